@@ -1,725 +1,1235 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-#include <stdlib.h>
-#include <windows.h>
-
-#include "jni.h"
-
-#include "OS_structs.h"
-#include "OS.h"
-
-/*
- * Sets the value of GetLastError() to the given >lastError< of the java type INT.
- */
-void preserveLastError(JNIEnv *env, jobject lastError) {
-	DWORD err = GetLastError();
-	setINT(env, lastError, &err);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    CreateFileA
- * Signature: (Ljava/lang/String;IIIIIILorg/xidobi/structs/INT;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_CreateFileA(JNIEnv *env, jobject this,
-		jstring lpFileName,
-		jint dwDesiredAccess,
-		jint dwShareMode,
-		jint lpSecurityAttributes,
-		jint dwCreationDisposition,
-		jint dwFlagsAndAttributes,
-		jint hTemplateFile,
-		jobject lastError) {
-
-	const char* fileName = (*env)->GetStringUTFChars(env, lpFileName, NULL);
-
-	HANDLE handle = CreateFileA(fileName,
-								dwDesiredAccess,
-								dwShareMode,
-								(LPSECURITY_ATTRIBUTES) lpSecurityAttributes,
-								dwCreationDisposition,
-								dwFlagsAndAttributes,
-								(HANDLE) hTemplateFile);
-
-	preserveLastError(env, lastError);
-
-	(*env)->ReleaseStringUTFChars(env, lpFileName, fileName);
-
-	return (jint) handle;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    CloseHandle
- * Signature: (ILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_CloseHandle(JNIEnv *env, jobject this,
-		jint handle,
-		jobject lastError) {
-
-	BOOL result = CloseHandle((HANDLE) handle);
-
-	preserveLastError(env, lastError);
-
-	if (!result)
-		return JNI_FALSE;
-	return JNI_TRUE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    GetCommState
- * Signature: (ILorg/xidobi/structs/DCB;Lorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_GetCommState(JNIEnv *env, jobject this,
-		jint handle,
-		jobject dcbObject,
-		jobject lastError) {
-
-	DCB dcb;
-	FillMemory(&dcb, sizeof(dcb), 0);
-
-	BOOL result = GetCommState((HANDLE) handle, &dcb);
-
-	preserveLastError(env, lastError);
-
-	if (!result)
-		return JNI_FALSE;
-
-	setDCBFields(env, dcbObject, &dcb);
-
-	return JNI_TRUE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    SetCommState
- * Signature: (ILorg/xidobi/structs/DCB;Lorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_SetCommState(JNIEnv *env, jobject this,
-		jint handle,
-		jobject dcbObject,
-		jobject lastError) {
-
-	DCB dcb;
-	getDCBFields(env, dcbObject, &dcb);
-
-	BOOL result = SetCommState((HANDLE) handle, &dcb);
-
-	preserveLastError(env, lastError);
-
-	if (!result)
-		return JNI_FALSE;
-	return JNI_TRUE;
-}
-
-
-/*
- * Class:     org_xidobi_OS
- * Method:    CreateEventA
- * Signature: (IZZLjava/lang/String;Lorg/xidobi/structs/INT;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_CreateEventA(JNIEnv *env, jobject this,
-		jint lpEventAttributes,
-		jboolean bManualReset,
-		jboolean bInitialState,
-		jstring lpName,
-		jobject lastError) {
-
-	const char* name;
-	if (lpName == NULL)
-		name = NULL;
-	else
-		name = (*env)->GetStringUTFChars(env, lpName, NULL);
-
-	HANDLE handle = CreateEvent(	NULL,
-									bManualReset,
-									bInitialState,
-									name);
-
-	preserveLastError(env, lastError);
-
-	if (name != NULL)
-		(*env)->ReleaseStringUTFChars(env, lpName, name);
-
-	return (jint) handle;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    WriteFile
- * Signature: (I[BILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_WriteFile(JNIEnv *env, jobject this,
-		jint handle,
-		jbyteArray lpBuffer,
-		jint nNumberOfBytesToWrite,
-		jobject lpNumberOfBytesWritten,
-		jobject lpOverlapped,
-		jobject lastError) {
-
-	DWORD *bytesWritten = getDWORD(env, lpNumberOfBytesWritten);
-	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
-
-	jbyte* jBuffer = (*env)->GetByteArrayElements(env, lpBuffer, NULL);
-
-	BOOL result = WriteFile( (HANDLE) handle,
-							 jBuffer,
-							 (DWORD) nNumberOfBytesToWrite,
-							 bytesWritten,
-							 overlapped);
-
-	preserveLastError(env, lastError);
-
-	(*env)->ReleaseByteArrayElements(env, lpBuffer, jBuffer, 0);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    ReadFile
- * Signature: (ILorg/xidobi/structs/NativeByteArray;ILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_ReadFile(JNIEnv *env, jobject this,
-		jint handle,
-		jobject lpBuffer,
-		jint nNumberOfBytesToRead,
-		jobject lpNumberOfBytesRead,
-		jobject lpOverlapped,
-		jobject lastError) {
-
-	DWORD *bytesRead = getDWORD(env, lpNumberOfBytesRead);
-	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
-
-	const jbyte *jBuffer = getNativeByteArray(env, lpBuffer);
-
-	BOOL result = ReadFile( (HANDLE) handle,
-							 (PVOID) jBuffer,
-							 (DWORD) nNumberOfBytesToRead,
-							 bytesRead,
-							 overlapped);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    MAKELANGID
- * Signature: (SS)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_MAKELANGID(JNIEnv *env, jobject this,
-		jshort usPrimaryLanguage,
-		jshort usSubLanguage) {
-	DWORD result = MAKELANGID(usPrimaryLanguage, usSubLanguage);
-	return (jint) result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    FormatMessageA
- * Signature: (ILjava/lang/Void;II[BILjava/lang/Void;Lorg/xidobi/structs/INT;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_FormatMessageA(JNIEnv *env, jobject this,
-		jint dwFlags,
-		jobject lpSource,
-		jint dwMessageId,
-		jint dwLanguageId,
-		jbyteArray lpBuffer,
-		jint nSize,
-		jobject arguments,
-		jobject lastError) {
-
-	jsize size = (*env)->GetArrayLength(env, lpBuffer);
-	const jbyte jBuffer[size];
-
-	DWORD result = FormatMessageA((DWORD) dwFlags,
-								  NULL, // ignored
-								  (DWORD) dwMessageId,
-								  (DWORD) dwLanguageId,
-								  (LPTSTR) &jBuffer,
-								  (DWORD) nSize,
-								  NULL); // ignored
-
-	preserveLastError(env, lastError);
-
-	(*env)->SetByteArrayRegion(env, lpBuffer, 0, size, jBuffer);
-
-	return result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    GetOverlappedResult
- * Signature: (ILorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;ZLorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_GetOverlappedResult(JNIEnv * env, jobject this,
-		  jint handle,
-		  jobject lpOverlapped,
-		  jobject lpNumberOfBytesTransferred,
-		  jboolean bWait,
-		  jobject lastError) {
-
-	DWORD *bytesTransferred = getDWORD(env, lpNumberOfBytesTransferred);
-	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
-
-	BOOL result = GetOverlappedResult((HANDLE) handle,
-									  overlapped,
-									  bytesTransferred,
-									  (BOOL) bWait);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    WaitForSingleObject
- * Signature: (IILorg/xidobi/structs/INT;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_WaitForSingleObject(JNIEnv *env, jobject this,
-		jint hhandle,
-		jint dwMilliseconds,
-		jobject lastError) {
-
-	DWORD result = WaitForSingleObject(	(HANDLE) hhandle,
-										(DWORD) dwMilliseconds);
-
-	preserveLastError(env, lastError);
-
-	return (jint) result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    RegOpenKeyExA
- * Signature: (ILjava/lang/String;IILorg/xidobi/structs/HKEY;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_RegOpenKeyExA(JNIEnv *env, jobject this,
-		jint hkey,
-		jstring lpSubKey,
-		jint ulOptions,
-		jint samDesired,
-		jobject phkResult) {
-
-	HKEY *hkresult = getHKEY(env, phkResult);
-
-	// Casting jstring to char*.
-	const char *subKey = (*env)->GetStringUTFChars(env, lpSubKey, NULL);
-
-	LONG result = RegOpenKeyExA((HKEY) hkey,
-								(LPCSTR) subKey,
-								(DWORD) ulOptions,
-								(REGSAM) samDesired,
-								(PHKEY) hkresult);
-
-	(*env)->ReleaseStringUTFChars(env, lpSubKey, subKey);
-
-	return (jint) result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    RegCloseKey
- * Signature: (Lorg/xidobi/structs/HKEY;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_RegCloseKey(JNIEnv *env, jobject this,
-		jobject hKey) {
-
-	HKEY *phkey = getHKEY(env, hKey);
-
-	LONG result = RegCloseKey((HKEY) *phkey);
-
-	return (jint) result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    RegEnumValueA
- * Signature: (Lorg/xidobi/structs/HKEY;I[BLorg/xidobi/structs/INT;ILorg/xidobi/structs/INT;[BLorg/xidobi/structs/INT;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_RegEnumValueA(JNIEnv *env, jobject this,
-		jobject hKey,
-		jint dwIndex,
-		jbyteArray lpValueName,
-		jobject lpcchValueName,
-		jint lpReserved,
-		jobject lpType,
-		jbyteArray lpData,
-		jobject lpcbData) {
-
-	HKEY *phkey = getHKEY(env, hKey);
-
-	// Initialize array for lpValueName.
-	jsize vnSize = (*env)->GetArrayLength(env, lpValueName);
-	const jbyte pValueName[vnSize];
-
-	DWORD pcchValueName = 0;
-	getINT(env, lpcchValueName, &pcchValueName);
-	DWORD pType = 0;
-
-	// Initialize array for lpData.
-	jsize size = (*env)->GetArrayLength(env, lpData);
-	const jbyte jBuffer[size];
-
-	DWORD pcbData;
-	getINT(env, lpcbData, &pcbData);
-
-	LONG result = RegEnumValueA((HKEY) *phkey,
-								(DWORD) dwIndex,
-								(LPTSTR) pValueName,
-								(LPDWORD) &pcchValueName,
-								NULL,
-								(LPDWORD) &pType,
-								(LPBYTE) &jBuffer,
-								(LPDWORD) &pcbData);
-
-	// Copying byte arrays to lpData and lpValueName:
-	(*env)->SetByteArrayRegion(env, lpData, 0, size, jBuffer);
-	(*env)->SetByteArrayRegion(env, lpValueName, 0, pcchValueName, pValueName);
-
-	setINT(env, lpcchValueName, &pcchValueName);
-	setINT(env, lpType, &pType);
-	setINT(env, lpcbData, &pcbData);
-
-	return (jint) result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    SetCommMask
- * Signature: (IILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_SetCommMask(JNIEnv *env, jobject this,
-		jint hFile,
-		jint dwEvtMask,
-		jobject lastError) {
-
-	BOOL result = SetCommMask((HANDLE) hFile,
-							  (DWORD) dwEvtMask);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    WaitCommEvent
- * Signature: (ILorg/xidobi/structs/INT;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_WaitCommEvent(JNIEnv *env, jobject this,
-		jint hFile,
-		jobject lpEvtMask,
-		jobject lpOverlapped,
-		jobject lastError) {
-
-	DWORD *evtMask = getDWORD(env, lpEvtMask);
-	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
-
-	BOOL result = WaitCommEvent((HANDLE) hFile,
-							    evtMask,
-							    overlapped);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    PurgeComm
- * Signature: (IILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_PurgeComm(JNIEnv *env, jobject this,
-		jint hFile,
-		jint dwFlags,
-		jobject lastError) {
-
-	BOOL result = PurgeComm((HANDLE) hFile,
-							dwFlags);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    ClearCommError
- * Signature: (ILorg/xidobi/structs/INT;Lorg/xidobi/structs/COMSTAT;Lorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_ClearCommError(JNIEnv *env, jobject this,
-		jint hFile,
-		jobject lpErrors,
-		jobject lpStat,
-		jobject lastError) {
-
-	DWORD errors = 0;
-	getINT(env, lpErrors, &errors);
-
-	COMSTAT comstat;
-	FillMemory(&comstat, sizeof(comstat), 0);
-
-	BOOL result = ClearCommError((HANDLE) hFile,
-								 &errors,
-								 &comstat);
-
-	preserveLastError(env, lastError);
-
-	setINT(env, lpErrors, &errors);
-	setCOMSTATFields(env, lpStat, &comstat);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    SetCommBreak
- * Signature: (ILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_SetCommBreak(JNIEnv *env, jobject this,
-		jint hFile,
-		jobject lastError) {
-
-	BOOL result = SetCommBreak((HANDLE) hFile);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    ClearCommBreak
- * Signature: (ILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_ClearCommBreak(JNIEnv *env, jobject this,
-		jint hFile,
-		jobject lastError) {
-
-	BOOL result = ClearCommBreak((HANDLE) hFile);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    CancelIo
- * Signature: (ILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_CancelIo(JNIEnv *env, jobject this,
-		jint hFile,
-		jobject lastError) {
-
-	BOOL result = CancelIo((HANDLE) hFile);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    ResetEvent
- * Signature: (ILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_ResetEvent(JNIEnv *env, jobject this,
-		jint hEvent,
-		jobject lastError) {
-
-	BOOL result = ResetEvent((HANDLE) hEvent);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    SetEvent
- * Signature: (ILorg/xidobi/structs/INT;)Z
- */
-JNIEXPORT jboolean JNICALL
-Java_org_xidobi_OS_SetEvent(JNIEnv *env, jobject this,
-		jint hEvent,
-		jobject lastError) {
-
-	BOOL result = SetEvent((HANDLE) hEvent);
-
-	preserveLastError(env, lastError);
-
-	if (result)
-		return JNI_TRUE;
-	return JNI_FALSE;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    malloc
- * Signature: (I)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_malloc(JNIEnv *env, jobject this,
-		jint size) {
-	return (jint) malloc(size);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    memset
- * Signature: (III)V
- */
-JNIEXPORT void JNICALL
-Java_org_xidobi_OS_memset(JNIEnv *env, jobject this,
-		jint ptr,
-		jint value,
-		jint num) {
-	memset((void *) ptr, value, num);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    free
- * Signature: (I)V
- */
-JNIEXPORT void JNICALL Java_org_xidobi_OS_free(JNIEnv *env, jobject this,
-		jint pointer) {
-	free((void *) pointer);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    sizeOf_OVERLAPPED
- * Signature: ()I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_sizeOf_1OVERLAPPED(JNIEnv *env, jobject this) {
-	return (jint) sizeof(OVERLAPPED);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    sizeOf_HKEY
- * Signature: ()I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_sizeOf_1HKEY(JNIEnv *env, jobject this) {
-	return (jint) sizeof(HKEY);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    sizeOf_DWORD
- * Signature: ()I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_sizeOf_1DWORD(JNIEnv *env, jobject this) {
-	return (jint) sizeof(DWORD);
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    getByteArray
- * Signature: (Lorg/xidobi/structs/NativeByteArray;I)[B
- */
-JNIEXPORT jbyteArray JNICALL
-Java_org_xidobi_OS_getByteArray(JNIEnv *env, jobject this,
-		jobject nativeByteArray,
-		jint length) {
-
-	jbyteArray result = (*env)->NewByteArray(env, length);
-	jbyte *bytes = getNativeByteArray(env, nativeByteArray);
-	(*env)->SetByteArrayRegion(env, result, 0, length, bytes);
-
-	return result;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    getValue_DWORD
- * Signature: (Lorg/xidobi/structs/DWORD;)I
- */
-JNIEXPORT jint JNICALL
-Java_org_xidobi_OS_getValue_1DWORD(JNIEnv *env, jobject this,
-		jobject dword) {
-
-	DWORD *ptr = getDWORD(env, dword);
-	return (jint) *ptr;
-}
-
-/*
- * Class:     org_xidobi_OS
- * Method:    setValue_DWORD
- * Signature: (Lorg/xidobi/structs/DWORD;I)V
- */
-JNIEXPORT void JNICALL
-Java_org_xidobi_OS_setValue_1DWORD(JNIEnv *env, jobject this,
-		jobject dword,
-		jint value) {
-
-	DWORD *ptr = getDWORD(env, dword);
-	*ptr = (DWORD) value;
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+#include <stdlib.h>
+#include <string.h>
+#include <windows.h>
+
+#include "jni.h"
+
+#include "OS_structs.h"
+#include "OS.h"
+
+/*
+ * The version of this library, see org.xidobi.WinApi.getNativeVersion().
+ */
+#define NATIVE_VERSION 2
+
+/*
+ * Sets the value of GetLastError() to the given >lastError< of the java type INT.
+ */
+void preserveLastError(JNIEnv *env, jobject lastError) {
+	DWORD err = GetLastError();
+	setINT(env, lastError, &err);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    CreateFileA
+ * Signature: (Ljava/lang/String;IIIIIILorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_CreateFileA(JNIEnv *env, jobject this,
+		jstring lpFileName,
+		jint dwDesiredAccess,
+		jint dwShareMode,
+		jint lpSecurityAttributes,
+		jint dwCreationDisposition,
+		jint dwFlagsAndAttributes,
+		jint hTemplateFile,
+		jobject lastError) {
+
+	const char* fileName = (*env)->GetStringUTFChars(env, lpFileName, NULL);
+
+	HANDLE handle = CreateFileA(fileName,
+								dwDesiredAccess,
+								dwShareMode,
+								(LPSECURITY_ATTRIBUTES) lpSecurityAttributes,
+								dwCreationDisposition,
+								dwFlagsAndAttributes,
+								(HANDLE) hTemplateFile);
+
+	preserveLastError(env, lastError);
+
+	(*env)->ReleaseStringUTFChars(env, lpFileName, fileName);
+
+	return (jint) handle;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    CloseHandle
+ * Signature: (ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_CloseHandle(JNIEnv *env, jobject this,
+		jint handle,
+		jobject lastError) {
+
+	BOOL result = CloseHandle((HANDLE) handle);
+
+	preserveLastError(env, lastError);
+
+	if (!result)
+		return JNI_FALSE;
+	return JNI_TRUE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    GetCommState
+ * Signature: (ILorg/xidobi/structs/DCB;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_GetCommState(JNIEnv *env, jobject this,
+		jint handle,
+		jobject dcbObject,
+		jobject lastError) {
+
+	DCB dcb;
+	FillMemory(&dcb, sizeof(dcb), 0);
+
+	BOOL result = GetCommState((HANDLE) handle, &dcb);
+
+	preserveLastError(env, lastError);
+
+	if (!result)
+		return JNI_FALSE;
+
+	setDCBFields(env, dcbObject, &dcb);
+
+	return JNI_TRUE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    SetCommState
+ * Signature: (ILorg/xidobi/structs/DCB;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_SetCommState(JNIEnv *env, jobject this,
+		jint handle,
+		jobject dcbObject,
+		jobject lastError) {
+
+	DCB dcb;
+	getDCBFields(env, dcbObject, &dcb);
+
+	BOOL result = SetCommState((HANDLE) handle, &dcb);
+
+	preserveLastError(env, lastError);
+
+	if (!result)
+		return JNI_FALSE;
+	return JNI_TRUE;
+}
+
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    CreateEventA
+ * Signature: (IZZLjava/lang/String;Lorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_CreateEventA(JNIEnv *env, jobject this,
+		jint lpEventAttributes,
+		jboolean bManualReset,
+		jboolean bInitialState,
+		jstring lpName,
+		jobject lastError) {
+
+	const char* name;
+	if (lpName == NULL)
+		name = NULL;
+	else
+		name = (*env)->GetStringUTFChars(env, lpName, NULL);
+
+	HANDLE handle = CreateEvent(	NULL,
+									bManualReset,
+									bInitialState,
+									name);
+
+	preserveLastError(env, lastError);
+
+	if (name != NULL)
+		(*env)->ReleaseStringUTFChars(env, lpName, name);
+
+	return (jint) handle;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WriteFile
+ * Signature: (I[BILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_WriteFile__I_3BILorg_xidobi_structs_DWORD_2Lorg_xidobi_structs_OVERLAPPED_2Lorg_xidobi_structs_INT_2(JNIEnv *env, jobject this,
+		jint handle,
+		jbyteArray lpBuffer,
+		jint nNumberOfBytesToWrite,
+		jobject lpNumberOfBytesWritten,
+		jobject lpOverlapped,
+		jobject lastError) {
+
+	DWORD *bytesWritten = getDWORD(env, lpNumberOfBytesWritten);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	jbyte* jBuffer = (*env)->GetByteArrayElements(env, lpBuffer, NULL);
+
+	BOOL result = WriteFile( (HANDLE) handle,
+							 jBuffer,
+							 (DWORD) nNumberOfBytesToWrite,
+							 bytesWritten,
+							 overlapped);
+
+	// The elements of the array are released, when this function returns. So a pending write
+	// must be completed before, otherwise it would read from released memory.
+	if (!result && overlapped != NULL && GetLastError() == ERROR_IO_PENDING) {
+		DWORD transferred;
+		result = GetOverlappedResult((HANDLE) handle, overlapped, &transferred, TRUE);
+		if (bytesWritten != NULL)
+			*bytesWritten = transferred;
+	}
+
+	preserveLastError(env, lastError);
+
+	(*env)->ReleaseByteArrayElements(env, lpBuffer, jBuffer, JNI_ABORT);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WriteFile
+ * Signature: (ILorg/xidobi/structs/NativeByteArray;ILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_WriteFile__ILorg_xidobi_structs_NativeByteArray_2ILorg_xidobi_structs_DWORD_2Lorg_xidobi_structs_OVERLAPPED_2Lorg_xidobi_structs_INT_2(JNIEnv *env, jobject this,
+		jint handle,
+		jobject lpBuffer,
+		jint nNumberOfBytesToWrite,
+		jobject lpNumberOfBytesWritten,
+		jobject lpOverlapped,
+		jobject lastError) {
+
+	jbyte *buffer = getNativeByteArray(env, lpBuffer);
+	DWORD *bytesWritten = getDWORD(env, lpNumberOfBytesWritten);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	BOOL result = WriteFile( (HANDLE) handle,
+							 buffer,
+							 (DWORD) nNumberOfBytesToWrite,
+							 bytesWritten,
+							 overlapped);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WriteFile
+ * Signature: (ILjava/nio/ByteBuffer;IILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_WriteFile__ILjava_nio_ByteBuffer_2IILorg_xidobi_structs_DWORD_2Lorg_xidobi_structs_OVERLAPPED_2Lorg_xidobi_structs_INT_2(JNIEnv *env, jobject this,
+		jint handle,
+		jobject lpBuffer,
+		jint offset,
+		jint nNumberOfBytesToWrite,
+		jobject lpNumberOfBytesWritten,
+		jobject lpOverlapped,
+		jobject lastError) {
+
+	jbyte *jBuffer = (*env)->GetDirectBufferAddress(env, lpBuffer);
+	if (jBuffer == NULL) {
+		// the buffer is not a direct buffer
+		SetLastError(ERROR_INVALID_PARAMETER);
+		preserveLastError(env, lastError);
+		return JNI_FALSE;
+	}
+
+	DWORD *bytesWritten = getDWORD(env, lpNumberOfBytesWritten);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	BOOL result = WriteFile( (HANDLE) handle,
+							 (LPCVOID) (jBuffer + offset),
+							 (DWORD) nNumberOfBytesToWrite,
+							 bytesWritten,
+							 overlapped);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    ReadFile
+ * Signature: (ILorg/xidobi/structs/NativeByteArray;ILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_ReadFile__ILorg_xidobi_structs_NativeByteArray_2ILorg_xidobi_structs_DWORD_2Lorg_xidobi_structs_OVERLAPPED_2Lorg_xidobi_structs_INT_2(JNIEnv *env, jobject this,
+		jint handle,
+		jobject lpBuffer,
+		jint nNumberOfBytesToRead,
+		jobject lpNumberOfBytesRead,
+		jobject lpOverlapped,
+		jobject lastError) {
+
+	DWORD *bytesRead = getDWORD(env, lpNumberOfBytesRead);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	const jbyte *jBuffer = getNativeByteArray(env, lpBuffer);
+
+	BOOL result = ReadFile( (HANDLE) handle,
+							 (PVOID) jBuffer,
+							 (DWORD) nNumberOfBytesToRead,
+							 bytesRead,
+							 overlapped);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    ReadFile
+ * Signature: (ILjava/nio/ByteBuffer;IILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_ReadFile__ILjava_nio_ByteBuffer_2IILorg_xidobi_structs_DWORD_2Lorg_xidobi_structs_OVERLAPPED_2Lorg_xidobi_structs_INT_2(JNIEnv *env, jobject this,
+		jint handle,
+		jobject lpBuffer,
+		jint offset,
+		jint nNumberOfBytesToRead,
+		jobject lpNumberOfBytesRead,
+		jobject lpOverlapped,
+		jobject lastError) {
+
+	jbyte *jBuffer = (*env)->GetDirectBufferAddress(env, lpBuffer);
+	if (jBuffer == NULL) {
+		// the buffer is not a direct buffer
+		SetLastError(ERROR_INVALID_PARAMETER);
+		preserveLastError(env, lastError);
+		return JNI_FALSE;
+	}
+
+	DWORD *bytesRead = getDWORD(env, lpNumberOfBytesRead);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	BOOL result = ReadFile( (HANDLE) handle,
+							 (PVOID) (jBuffer + offset),
+							 (DWORD) nNumberOfBytesToRead,
+							 bytesRead,
+							 overlapped);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    MAKELANGID
+ * Signature: (SS)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_MAKELANGID(JNIEnv *env, jobject this,
+		jshort usPrimaryLanguage,
+		jshort usSubLanguage) {
+	DWORD result = MAKELANGID(usPrimaryLanguage, usSubLanguage);
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    FormatMessageA
+ * Signature: (ILjava/lang/Void;II[BILjava/lang/Void;Lorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_FormatMessageA(JNIEnv *env, jobject this,
+		jint dwFlags,
+		jobject lpSource,
+		jint dwMessageId,
+		jint dwLanguageId,
+		jbyteArray lpBuffer,
+		jint nSize,
+		jobject arguments,
+		jobject lastError) {
+
+	jsize size = (*env)->GetArrayLength(env, lpBuffer);
+	const jbyte jBuffer[size];
+
+	DWORD result = FormatMessageA((DWORD) dwFlags,
+								  NULL, // ignored
+								  (DWORD) dwMessageId,
+								  (DWORD) dwLanguageId,
+								  (LPTSTR) &jBuffer,
+								  (DWORD) nSize,
+								  NULL); // ignored
+
+	preserveLastError(env, lastError);
+
+	(*env)->SetByteArrayRegion(env, lpBuffer, 0, size, jBuffer);
+
+	return result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    GetOverlappedResult
+ * Signature: (ILorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;ZLorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_GetOverlappedResult(JNIEnv * env, jobject this,
+		  jint handle,
+		  jobject lpOverlapped,
+		  jobject lpNumberOfBytesTransferred,
+		  jboolean bWait,
+		  jobject lastError) {
+
+	DWORD *bytesTransferred = getDWORD(env, lpNumberOfBytesTransferred);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	BOOL result = GetOverlappedResult((HANDLE) handle,
+									  overlapped,
+									  bytesTransferred,
+									  (BOOL) bWait);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WaitForSingleObject
+ * Signature: (IILorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_WaitForSingleObject(JNIEnv *env, jobject this,
+		jint hhandle,
+		jint dwMilliseconds,
+		jobject lastError) {
+
+	DWORD result = WaitForSingleObject(	(HANDLE) hhandle,
+										(DWORD) dwMilliseconds);
+
+	preserveLastError(env, lastError);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WaitForMultipleObjects
+ * Signature: (I[IZILorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_WaitForMultipleObjects(JNIEnv *env, jobject this,
+		jint nCount,
+		jintArray lpHandles,
+		jboolean bWaitAll,
+		jint dwMilliseconds,
+		jobject lastError) {
+
+	jint handles[MAXIMUM_WAIT_OBJECTS];
+	HANDLE hHandles[MAXIMUM_WAIT_OBJECTS];
+	DWORD result;
+	int i;
+
+	if (nCount < 1 || nCount > MAXIMUM_WAIT_OBJECTS || nCount > (*env)->GetArrayLength(env, lpHandles)) {
+		SetLastError(ERROR_INVALID_PARAMETER);
+		preserveLastError(env, lastError);
+		return (jint) WAIT_FAILED;
+	}
+
+	// the handles are copied onto the stack, the Java array must not be pinned during the wait
+	(*env)->GetIntArrayRegion(env, lpHandles, 0, nCount, handles);
+	for (i = 0; i < nCount; i++)
+		hHandles[i] = (HANDLE) handles[i];
+
+	result = WaitForMultipleObjects((DWORD) nCount,
+									hHandles,
+									bWaitAll == JNI_TRUE,
+									(DWORD) dwMilliseconds);
+
+	preserveLastError(env, lastError);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    RegOpenKeyExA
+ * Signature: (ILjava/lang/String;IILorg/xidobi/structs/HKEY;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_RegOpenKeyExA(JNIEnv *env, jobject this,
+		jint hkey,
+		jstring lpSubKey,
+		jint ulOptions,
+		jint samDesired,
+		jobject phkResult) {
+
+	HKEY *hkresult = getHKEY(env, phkResult);
+
+	// Casting jstring to char*.
+	const char *subKey = (*env)->GetStringUTFChars(env, lpSubKey, NULL);
+
+	LONG result = RegOpenKeyExA((HKEY) hkey,
+								(LPCSTR) subKey,
+								(DWORD) ulOptions,
+								(REGSAM) samDesired,
+								(PHKEY) hkresult);
+
+	(*env)->ReleaseStringUTFChars(env, lpSubKey, subKey);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    RegCloseKey
+ * Signature: (Lorg/xidobi/structs/HKEY;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_RegCloseKey(JNIEnv *env, jobject this,
+		jobject hKey) {
+
+	HKEY *phkey = getHKEY(env, hKey);
+
+	LONG result = RegCloseKey((HKEY) *phkey);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    RegEnumValueA
+ * Signature: (Lorg/xidobi/structs/HKEY;I[BLorg/xidobi/structs/INT;ILorg/xidobi/structs/INT;[BLorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_RegEnumValueA(JNIEnv *env, jobject this,
+		jobject hKey,
+		jint dwIndex,
+		jbyteArray lpValueName,
+		jobject lpcchValueName,
+		jint lpReserved,
+		jobject lpType,
+		jbyteArray lpData,
+		jobject lpcbData) {
+
+	HKEY *phkey = getHKEY(env, hKey);
+
+	// Initialize array for lpValueName.
+	jsize vnSize = (*env)->GetArrayLength(env, lpValueName);
+	const jbyte pValueName[vnSize];
+
+	DWORD pcchValueName = 0;
+	getINT(env, lpcchValueName, &pcchValueName);
+	DWORD pType = 0;
+
+	// Initialize array for lpData.
+	jsize size = (*env)->GetArrayLength(env, lpData);
+	const jbyte jBuffer[size];
+
+	DWORD pcbData;
+	getINT(env, lpcbData, &pcbData);
+
+	LONG result = RegEnumValueA((HKEY) *phkey,
+								(DWORD) dwIndex,
+								(LPTSTR) pValueName,
+								(LPDWORD) &pcchValueName,
+								NULL,
+								(LPDWORD) &pType,
+								(LPBYTE) &jBuffer,
+								(LPDWORD) &pcbData);
+
+	// Copying byte arrays to lpData and lpValueName:
+	(*env)->SetByteArrayRegion(env, lpData, 0, size, jBuffer);
+	(*env)->SetByteArrayRegion(env, lpValueName, 0, pcchValueName, pValueName);
+
+	setINT(env, lpcchValueName, &pcchValueName);
+	setINT(env, lpType, &pType);
+	setINT(env, lpcbData, &pcbData);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    RegNotifyChangeKeyValue
+ * Signature: (Lorg/xidobi/structs/HKEY;ZIIZ)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_RegNotifyChangeKeyValue(JNIEnv *env, jobject this,
+		jobject hKey,
+		jboolean bWatchSubtree,
+		jint dwNotifyFilter,
+		jint hEvent,
+		jboolean fAsynchronous) {
+
+	HKEY *phkey = getHKEY(env, hKey);
+
+	LONG result = RegNotifyChangeKeyValue((HKEY) *phkey,
+										  (BOOL) bWatchSubtree,
+										  (DWORD) dwNotifyFilter,
+										  (HANDLE) hEvent,
+										  (BOOL) fAsynchronous);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    SetCommMask
+ * Signature: (IILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_SetCommMask(JNIEnv *env, jobject this,
+		jint hFile,
+		jint dwEvtMask,
+		jobject lastError) {
+
+	BOOL result = SetCommMask((HANDLE) hFile,
+							  (DWORD) dwEvtMask);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WaitCommEvent
+ * Signature: (ILorg/xidobi/structs/INT;Lorg/xidobi/structs/OVERLAPPED;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_WaitCommEvent(JNIEnv *env, jobject this,
+		jint hFile,
+		jobject lpEvtMask,
+		jobject lpOverlapped,
+		jobject lastError) {
+
+	DWORD *evtMask = getDWORD(env, lpEvtMask);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+
+	BOOL result = WaitCommEvent((HANDLE) hFile,
+							    evtMask,
+							    overlapped);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    PurgeComm
+ * Signature: (IILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_PurgeComm(JNIEnv *env, jobject this,
+		jint hFile,
+		jint dwFlags,
+		jobject lastError) {
+
+	BOOL result = PurgeComm((HANDLE) hFile,
+							dwFlags);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    ClearCommError
+ * Signature: (ILorg/xidobi/structs/INT;Lorg/xidobi/structs/COMSTAT;Lorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_ClearCommError(JNIEnv *env, jobject this,
+		jint hFile,
+		jobject lpErrors,
+		jobject lpStat,
+		jobject lastError) {
+
+	DWORD errors = 0;
+	getINT(env, lpErrors, &errors);
+
+	COMSTAT comstat;
+	FillMemory(&comstat, sizeof(comstat), 0);
+
+	BOOL result = ClearCommError((HANDLE) hFile,
+								 &errors,
+								 &comstat);
+
+	preserveLastError(env, lastError);
+
+	setINT(env, lpErrors, &errors);
+	setCOMSTATFields(env, lpStat, &comstat);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    SetCommBreak
+ * Signature: (ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_SetCommBreak(JNIEnv *env, jobject this,
+		jint hFile,
+		jobject lastError) {
+
+	BOOL result = SetCommBreak((HANDLE) hFile);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    ClearCommBreak
+ * Signature: (ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_ClearCommBreak(JNIEnv *env, jobject this,
+		jint hFile,
+		jobject lastError) {
+
+	BOOL result = ClearCommBreak((HANDLE) hFile);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    CancelIo
+ * Signature: (ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_CancelIo(JNIEnv *env, jobject this,
+		jint hFile,
+		jobject lastError) {
+
+	BOOL result = CancelIo((HANDLE) hFile);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    ResetEvent
+ * Signature: (ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_ResetEvent(JNIEnv *env, jobject this,
+		jint hEvent,
+		jobject lastError) {
+
+	BOOL result = ResetEvent((HANDLE) hEvent);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    SetEvent
+ * Signature: (ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_SetEvent(JNIEnv *env, jobject this,
+		jint hEvent,
+		jobject lastError) {
+
+	BOOL result = SetEvent((HANDLE) hEvent);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+// Results of WaitAndReadFile, see org.xidobi.WinApi:
+#define WAIT_AND_READ_SUCCEEDED 0
+#define WAIT_AND_READ_TIMEOUT 1
+#define WAIT_AND_READ_COMM_ERROR 2
+#define WAIT_AND_READ_ABANDONED 3
+#define WAIT_AND_READ_READ_TIMEOUT 4
+#define WAIT_AND_READ_CANCELED 5
+#define WAIT_AND_READ_RESET_EVENT_FAILED 10
+#define WAIT_AND_READ_WAIT_COMM_EVENT_FAILED 11
+#define WAIT_AND_READ_WAIT_FAILED 12
+#define WAIT_AND_READ_CLEAR_COMM_ERROR_FAILED 13
+#define WAIT_AND_READ_READ_FILE_FAILED 14
+#define WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED 15
+
+/*
+ * Waits for the event of the given overlapped structure and returns one of the WAIT_AND_READ_*
+ * results. If a cancel event is given, the wait returns also when the cancel event is signaled.
+ */
+jint awaitOverlappedEvent(OVERLAPPED *overlapped, HANDLE cancelEvent, DWORD dwMilliseconds, jint timeoutResult) {
+	HANDLE handles[2];
+	DWORD waitResult;
+
+	if (cancelEvent == NULL) {
+		waitResult = WaitForSingleObject(overlapped->hEvent, dwMilliseconds);
+	} else {
+		handles[0] = overlapped->hEvent;
+		handles[1] = cancelEvent;
+		waitResult = WaitForMultipleObjects(2, handles, FALSE, dwMilliseconds);
+	}
+
+	switch (waitResult) {
+		case WAIT_OBJECT_0:
+			return WAIT_AND_READ_SUCCEEDED;
+		case WAIT_OBJECT_0 + 1:
+			return WAIT_AND_READ_CANCELED;
+		case WAIT_TIMEOUT:
+			return timeoutResult;
+		case WAIT_ABANDONED:
+		case WAIT_ABANDONED + 1:
+			return WAIT_AND_READ_ABANDONED;
+		default:
+			return WAIT_AND_READ_WAIT_FAILED;
+	}
+}
+
+/*
+ * Waits for data and reads the available bytes, see WinApi.WaitAndReadFile(..). The error flags of
+ * all ClearCommError calls are accumulated in allErrors.
+ */
+jint waitAndReadFile(HANDLE handle,
+		jbyte *buffer,
+		DWORD nNumberOfBytesToRead,
+		DWORD *bytesRead,
+		DWORD *evtMask,
+		DWORD *allErrors,
+		OVERLAPPED *overlapped,
+		HANDLE cancelEvent,
+		BOOL pending,
+		DWORD dwMilliseconds,
+		DWORD dwReadMilliseconds) {
+
+	COMSTAT comstat;
+	DWORD errors;
+	DWORD numberOfBytesToRead;
+	jint result;
+
+	*bytesRead = 0;
+	*allErrors = 0;
+
+	// Repeat until data was read:
+	while (TRUE) {
+
+		if (!pending) {
+			// start a new WaitCommEvent operation
+			if (!ResetEvent(overlapped->hEvent))
+				return WAIT_AND_READ_RESET_EVENT_FAILED;
+
+			*evtMask = 0;
+			if (!WaitCommEvent(handle, evtMask, overlapped)) {
+				if (GetLastError() != ERROR_IO_PENDING)
+					return WAIT_AND_READ_WAIT_COMM_EVENT_FAILED;
+				pending = TRUE;
+			}
+		}
+
+		if (pending) {
+			// wait for the pending WaitCommEvent operation
+			result = awaitOverlappedEvent(overlapped, cancelEvent, dwMilliseconds, WAIT_AND_READ_TIMEOUT);
+			if (result != WAIT_AND_READ_SUCCEEDED)
+				return result;
+			pending = FALSE;
+		}
+
+		if (*evtMask == 0)
+			return WAIT_AND_READ_COMM_ERROR;
+
+		// how many bytes are available for read?
+		if (!ClearCommError(handle, &errors, &comstat))
+			return WAIT_AND_READ_CLEAR_COMM_ERROR_FAILED;
+		*allErrors |= errors;
+		if (comstat.cbInQue == 0)
+			// there is no data available, wait for the next event
+			continue;
+
+		numberOfBytesToRead = comstat.cbInQue;
+		if (numberOfBytesToRead > nNumberOfBytesToRead)
+			numberOfBytesToRead = nNumberOfBytesToRead;
+
+		if (!ReadFile(handle, buffer, numberOfBytesToRead, bytesRead, overlapped)) {
+			if (GetLastError() != ERROR_IO_PENDING)
+				return WAIT_AND_READ_READ_FILE_FAILED;
+
+			// wait for the pending ReadFile operation, the data is available so it is not canceled
+			result = awaitOverlappedEvent(overlapped, NULL, dwReadMilliseconds, WAIT_AND_READ_READ_TIMEOUT);
+			if (result != WAIT_AND_READ_SUCCEEDED)
+				return result;
+
+			if (!GetOverlappedResult(handle, overlapped, bytesRead, TRUE))
+				return WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED;
+		}
+
+		if (*bytesRead > 0)
+			return WAIT_AND_READ_SUCCEEDED;
+	}
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    WaitAndReadFile
+ * Signature: (ILorg/xidobi/structs/NativeByteArray;ILorg/xidobi/structs/DWORD;Lorg/xidobi/structs/DWORD;Lorg/xidobi/structs/INT;Lorg/xidobi/structs/OVERLAPPED;IZIILorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_WaitAndReadFile(JNIEnv *env, jobject this,
+		jint hFile,
+		jobject lpBuffer,
+		jint nNumberOfBytesToRead,
+		jobject lpNumberOfBytesRead,
+		jobject lpEvtMask,
+		jobject lpErrors,
+		jobject lpOverlapped,
+		jint hCancelEvent,
+		jboolean bPending,
+		jint dwMilliseconds,
+		jint dwReadMilliseconds,
+		jobject lastError) {
+
+	jbyte *buffer = getNativeByteArray(env, lpBuffer);
+	DWORD *bytesRead = getDWORD(env, lpNumberOfBytesRead);
+	DWORD *evtMask = getDWORD(env, lpEvtMask);
+	OVERLAPPED *overlapped = getOVERLAPPED(env, lpOverlapped);
+	DWORD errors = 0;
+
+	jint result = waitAndReadFile( (HANDLE) hFile,
+								   buffer,
+								   (DWORD) nNumberOfBytesToRead,
+								   bytesRead,
+								   evtMask,
+								   &errors,
+								   overlapped,
+								   (HANDLE) hCancelEvent,
+								   bPending == JNI_TRUE,
+								   (DWORD) dwMilliseconds,
+								   (DWORD) dwReadMilliseconds);
+
+	preserveLastError(env, lastError);
+
+	setINT(env, lpErrors, &errors);
+
+	return result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    CreateIoCompletionPort
+ * Signature: (IIIILorg/xidobi/structs/INT;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_CreateIoCompletionPort(JNIEnv *env, jobject this,
+		jint FileHandle,
+		jint ExistingCompletionPort,
+		jint CompletionKey,
+		jint NumberOfConcurrentThreads,
+		jobject lastError) {
+
+	HANDLE result = CreateIoCompletionPort( (HANDLE) FileHandle,
+											(HANDLE) ExistingCompletionPort,
+											(ULONG_PTR) CompletionKey,
+											(DWORD) NumberOfConcurrentThreads);
+
+	preserveLastError(env, lastError);
+
+	return (jint) result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    GetQueuedCompletionStatus
+ * Signature: (ILorg/xidobi/structs/INT;Lorg/xidobi/structs/INT;Lorg/xidobi/structs/INT;ILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_GetQueuedCompletionStatus(JNIEnv *env, jobject this,
+		jint CompletionPort,
+		jobject lpNumberOfBytes,
+		jobject lpCompletionKey,
+		jobject lpOverlapped,
+		jint dwMilliseconds,
+		jobject lastError) {
+
+	DWORD numberOfBytes = 0;
+	ULONG_PTR completionKey = 0;
+	LPOVERLAPPED overlapped = NULL;
+	DWORD value;
+
+	BOOL result = GetQueuedCompletionStatus( (HANDLE) CompletionPort,
+											 &numberOfBytes,
+											 &completionKey,
+											 &overlapped,
+											 (DWORD) dwMilliseconds);
+
+	preserveLastError(env, lastError);
+
+	setINT(env, lpNumberOfBytes, &numberOfBytes);
+	value = (DWORD) completionKey;
+	setINT(env, lpCompletionKey, &value);
+	value = (DWORD) overlapped;
+	setINT(env, lpOverlapped, &value);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    PostQueuedCompletionStatus
+ * Signature: (IIIILorg/xidobi/structs/INT;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_PostQueuedCompletionStatus(JNIEnv *env, jobject this,
+		jint CompletionPort,
+		jint dwNumberOfBytesTransferred,
+		jint dwCompletionKey,
+		jint lpOverlapped,
+		jobject lastError) {
+
+	BOOL result = PostQueuedCompletionStatus( (HANDLE) CompletionPort,
+											  (DWORD) dwNumberOfBytesTransferred,
+											  (ULONG_PTR) dwCompletionKey,
+											  (LPOVERLAPPED) lpOverlapped);
+
+	preserveLastError(env, lastError);
+
+	if (result)
+		return JNI_TRUE;
+	return JNI_FALSE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    malloc
+ * Signature: (I)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_malloc(JNIEnv *env, jobject this,
+		jint size) {
+	return (jint) malloc(size);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    memset
+ * Signature: (III)V
+ */
+JNIEXPORT void JNICALL
+Java_org_xidobi_OS_memset(JNIEnv *env, jobject this,
+		jint ptr,
+		jint value,
+		jint num) {
+	memset((void *) ptr, value, num);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    free
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_org_xidobi_OS_free(JNIEnv *env, jobject this,
+		jint pointer) {
+	free((void *) pointer);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    sizeOf_OVERLAPPED
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_sizeOf_1OVERLAPPED(JNIEnv *env, jobject this) {
+	return (jint) sizeof(OVERLAPPED);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    sizeOf_HKEY
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_sizeOf_1HKEY(JNIEnv *env, jobject this) {
+	return (jint) sizeof(HKEY);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    sizeOf_DWORD
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_sizeOf_1DWORD(JNIEnv *env, jobject this) {
+	return (jint) sizeof(DWORD);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    nativeVersion
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_nativeVersion(JNIEnv *env, jobject this) {
+	return (jint) NATIVE_VERSION;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    getByteArray
+ * Signature: (Lorg/xidobi/structs/NativeByteArray;I)[B
+ */
+JNIEXPORT jbyteArray JNICALL
+Java_org_xidobi_OS_getByteArray(JNIEnv *env, jobject this,
+		jobject nativeByteArray,
+		jint length) {
+
+	jbyteArray result = (*env)->NewByteArray(env, length);
+	jbyte *bytes = getNativeByteArray(env, nativeByteArray);
+	(*env)->SetByteArrayRegion(env, result, 0, length, bytes);
+
+	return result;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    getByteArrayRegion
+ * Signature: (Lorg/xidobi/structs/NativeByteArray;[BII)V
+ */
+JNIEXPORT void JNICALL
+Java_org_xidobi_OS_getByteArrayRegion(JNIEnv *env, jobject this,
+		jobject nativeByteArray,
+		jbyteArray data,
+		jint offset,
+		jint length) {
+
+	jbyte *bytes = getNativeByteArray(env, nativeByteArray);
+	(*env)->SetByteArrayRegion(env, data, offset, length, bytes);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    copyByteArray
+ * Signature: (Lorg/xidobi/structs/NativeByteArray;I[BII)V
+ */
+JNIEXPORT void JNICALL
+Java_org_xidobi_OS_copyByteArray(JNIEnv *env, jobject this,
+		jobject nativeByteArray,
+		jint index,
+		jbyteArray data,
+		jint offset,
+		jint length) {
+
+	jbyte *bytes = getNativeByteArray(env, nativeByteArray);
+	(*env)->GetByteArrayRegion(env, data, offset, length, bytes + index);
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    copyDirectBuffer
+ * Signature: (Lorg/xidobi/structs/NativeByteArray;ILjava/nio/ByteBuffer;II)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_xidobi_OS_copyDirectBuffer(JNIEnv *env, jobject this,
+		jobject nativeByteArray,
+		jint index,
+		jobject data,
+		jint offset,
+		jint length) {
+
+	jbyte *jBuffer = (*env)->GetDirectBufferAddress(env, data);
+	if (jBuffer == NULL)
+		// the buffer is not a direct buffer
+		return JNI_FALSE;
+
+	jbyte *bytes = getNativeByteArray(env, nativeByteArray);
+	memcpy(bytes + index, jBuffer + offset, length);
+	return JNI_TRUE;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    getValue_DWORD
+ * Signature: (Lorg/xidobi/structs/DWORD;)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_xidobi_OS_getValue_1DWORD(JNIEnv *env, jobject this,
+		jobject dword) {
+
+	DWORD *ptr = getDWORD(env, dword);
+	return (jint) *ptr;
+}
+
+/*
+ * Class:     org_xidobi_OS
+ * Method:    setValue_DWORD
+ * Signature: (Lorg/xidobi/structs/DWORD;I)V
+ */
+JNIEXPORT void JNICALL
+Java_org_xidobi_OS_setValue_1DWORD(JNIEnv *env, jobject this,
+		jobject dword,
+		jint value) {
+
+	DWORD *ptr = getDWORD(env, dword);
+	*ptr = (DWORD) value;
+}
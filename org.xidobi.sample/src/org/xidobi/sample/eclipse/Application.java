@@ -39,7 +39,7 @@ import org.xidobi.SerialPortProvider;
  * This class controls all aspects of the application's execution.
  * 
  * @author Christian Schwarz
- * @author Tobias Breler
+ * @author Tobias Breßler
  */
 public class Application implements IApplication {
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.ReadPendingException;
+import java.nio.channels.WritePendingException;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Adapts an {@link AsyncSerialChannel} to the {@link AsynchronousByteChannel} of Java 7, so a
+ * serial port can be used by frameworks, that accept an asynchronous byte channel. The
+ * {@link AsyncSerialChannel} has the signatures of an asynchronous byte channel, but can't
+ * implement it, because xidobi runs on Java 5.
+ * <p>
+ * The operations are delegated to the {@link AsyncSerialChannel}, its
+ * {@link org.xidobi.CompletionHandler} is bridged to the
+ * {@link java.nio.channels.CompletionHandler}. A {@link ReadPendingException} or a
+ * {@link WritePendingException} is thrown, if an operation is already pending.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see AsyncSerialChannel
+ */
+public class AsynchronousSerialByteChannel implements AsynchronousByteChannel {
+
+	/** the adapted channel, never <code>null</code> */
+	@Nonnull
+	private final AsyncSerialChannel channel;
+
+	/**
+	 * Creates a new adapter for the given channel.
+	 * 
+	 * @param channel
+	 *            the adapted channel, must not be <code>null</code>
+	 */
+	public AsynchronousSerialByteChannel(@Nonnull AsyncSerialChannel channel) {
+		this.channel = checkArgumentNotNull(channel, "channel");
+	}
+
+	@Override
+	public <A> void read(	@Nonnull ByteBuffer dst,
+							@Nullable A attachment,
+							@Nonnull java.nio.channels.CompletionHandler<Integer, ? super A> handler) {
+		checkArgumentNotNull(handler, "handler");
+		try {
+			channel.read(dst, attachment, bridge(handler));
+		}
+		catch (IllegalStateException e) {
+			throw new ReadPendingException();
+		}
+	}
+
+	@Override
+	public Future<Integer> read(@Nonnull ByteBuffer dst) {
+		try {
+			return channel.read(dst);
+		}
+		catch (IllegalStateException e) {
+			throw new ReadPendingException();
+		}
+	}
+
+	@Override
+	public <A> void write(	@Nonnull ByteBuffer src,
+							@Nullable A attachment,
+							@Nonnull java.nio.channels.CompletionHandler<Integer, ? super A> handler) {
+		checkArgumentNotNull(handler, "handler");
+		try {
+			channel.write(src, attachment, bridge(handler));
+		}
+		catch (IllegalStateException e) {
+			throw new WritePendingException();
+		}
+	}
+
+	@Override
+	public Future<Integer> write(@Nonnull ByteBuffer src) {
+		try {
+			return channel.write(src);
+		}
+		catch (IllegalStateException e) {
+			throw new WritePendingException();
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/** Returns a handler of xidobi, that delegates to the given handler of Java 7. */
+	private static <V, A> CompletionHandler<V, A> bridge(final java.nio.channels.CompletionHandler<V, ? super A> handler) {
+		return new CompletionHandler<V, A>() {
+
+			@Override
+			public void completed(V result, A attachment) {
+				handler.completed(result, attachment);
+			}
+
+			@Override
+			public void failed(Throwable exc, A attachment) {
+				handler.failed(exc, attachment);
+			}
+		};
+	}
+}
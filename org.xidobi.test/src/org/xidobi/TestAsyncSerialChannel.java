@@ -0,0 +1,241 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+/**
+ * Tests the class {@link AsyncSerialChannel}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings({ "javadoc", "unchecked", "rawtypes" })
+public class TestAsyncSerialChannel {
+
+	/** the attachment of the operations */
+	private static final Object ATTACHMENT = new Object();
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private AsyncSerialConnection connection;
+
+	@Mock
+	private CompletionHandler<Integer, Object> handler;
+
+	/** the class under test */
+	private AsyncSerialChannel channel;
+
+	@Before
+	public void setUp() {
+		initMocks(this);
+
+		channel = new AsyncSerialChannel(connection);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the connection is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullConnection() {
+		new AsyncSerialChannel(null);
+	}
+
+	/**
+	 * Verifies that the received data is transferred into the buffer and the handler is completed
+	 * with the number of bytes.
+	 */
+	@Test
+	public void read() {
+		ByteBuffer dst = ByteBuffer.allocate(4);
+
+		channel.read(dst, ATTACHMENT, handler);
+		readHandler().completed(new byte[] { 1, 2, 3 }, ATTACHMENT);
+
+		verify(handler).completed(3, ATTACHMENT);
+		assertThat(dst.position(), is(3));
+		assertThat(dst.get(0), is((byte) 1));
+	}
+
+	/**
+	 * Verifies that the received bytes, that don't fit into the buffer, are transferred by the
+	 * next read without reading the connection.
+	 */
+	@Test
+	public void read_remainder() {
+		ByteBuffer dst = ByteBuffer.allocate(2);
+		channel.read(dst, ATTACHMENT, handler);
+		readHandler().completed(new byte[] { 1, 2, 3 }, ATTACHMENT);
+
+		dst.clear();
+		channel.read(dst, ATTACHMENT, handler);
+
+		verify(handler).completed(2, ATTACHMENT);
+		verify(handler).completed(1, ATTACHMENT);
+		assertThat(dst.get(0), is((byte) 3));
+		verify(connection, times(1)).readAsync(anyObject(), any(CompletionHandler.class));
+	}
+
+	/**
+	 * Verifies that a read into a full buffer is completed immediately with 0.
+	 */
+	@Test
+	public void read_noRemaining() {
+		channel.read(ByteBuffer.allocate(0), ATTACHMENT, handler);
+
+		verify(handler).completed(0, ATTACHMENT);
+		verify(connection, never()).readAsync(anyObject(), any(CompletionHandler.class));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when a read operation is already
+	 * pending.
+	 */
+	@Test
+	public void read_pending() {
+		channel.read(ByteBuffer.allocate(1), ATTACHMENT, handler);
+
+		exception.expect(IllegalStateException.class);
+		exception.expectMessage("A read operation is already pending!");
+
+		channel.read(ByteBuffer.allocate(1), ATTACHMENT, handler);
+	}
+
+	/**
+	 * Verifies that a new read can be started, after the pending read failed.
+	 */
+	@Test
+	public void read_failed() {
+		IOException failure = new IOException();
+		channel.read(ByteBuffer.allocate(1), ATTACHMENT, handler);
+		readHandler().failed(failure, ATTACHMENT);
+
+		channel.read(ByteBuffer.allocate(1), ATTACHMENT, handler);
+
+		verify(handler).failed(failure, ATTACHMENT);
+		verify(connection, times(2)).readAsync(anyObject(), any(CompletionHandler.class));
+	}
+
+	/**
+	 * Verifies that the future of a read is completed with the number of bytes.
+	 */
+	@Test
+	public void read_future() throws Exception {
+		Future<Integer> future = channel.read(ByteBuffer.allocate(4));
+		readHandler().completed(new byte[] { 1, 2 }, null);
+
+		assertThat(future.get(), is(2));
+	}
+
+	/**
+	 * Verifies that the remaining bytes of the buffer are written and its position is advanced,
+	 * when the write is completed.
+	 */
+	@Test
+	public void write() {
+		ByteBuffer src = ByteBuffer.wrap(new byte[] { 0, 1, 2 });
+		src.position(1);
+
+		channel.write(src, ATTACHMENT, handler);
+		assertThat(src.position(), is(1));
+		writeHandler(new byte[] { 1, 2 }).completed(2, ATTACHMENT);
+
+		verify(handler).completed(2, ATTACHMENT);
+		assertThat(src.position(), is(3));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when a write operation is already
+	 * pending.
+	 */
+	@Test
+	public void write_pending() {
+		channel.write(ByteBuffer.allocate(1), ATTACHMENT, handler);
+
+		exception.expect(IllegalStateException.class);
+		exception.expectMessage("A write operation is already pending!");
+
+		channel.write(ByteBuffer.allocate(1), ATTACHMENT, handler);
+	}
+
+	/**
+	 * Verifies that the future of a write fails, when the write fails.
+	 */
+	@Test
+	public void write_futureFailed() throws Exception {
+		Future<Integer> future = channel.write(ByteBuffer.wrap(new byte[] { 1 }));
+		writeHandler(new byte[] { 1 }).failed(new IOException("Port was closed!"), null);
+
+		exception.expectMessage("Port was closed!");
+
+		future.get();
+	}
+
+	/**
+	 * Verifies that the channel is open as long as the connection is open and closing the channel
+	 * closes the connection.
+	 */
+	@Test
+	public void close() throws Exception {
+		assertThat(channel.isOpen(), is(true));
+
+		channel.close();
+		when(connection.isClosed()).thenReturn(true);
+
+		verify(connection).close();
+		assertThat(channel.isOpen(), is(false));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Returns the handler of the last read of the connection. */
+	private CompletionHandler<byte[], Object> readHandler() {
+		ArgumentCaptor<CompletionHandler> captor = ArgumentCaptor.forClass(CompletionHandler.class);
+		verify(connection, times(1)).readAsync(anyObject(), captor.capture());
+		return captor.getValue();
+	}
+
+	/** Returns the handler of the write of the given data. */
+	private CompletionHandler<Integer, Object> writeHandler(byte[] data) {
+		ArgumentCaptor<CompletionHandler> captor = ArgumentCaptor.forClass(CompletionHandler.class);
+		verify(connection).writeAsync(eq(data), anyObject(), captor.capture());
+		return captor.getValue();
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.ReadPendingException;
+import java.nio.channels.WritePendingException;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+/**
+ * Tests the class {@link AsynchronousSerialByteChannel}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings({ "javadoc", "unchecked", "rawtypes" })
+public class TestAsynchronousSerialByteChannel {
+
+	/** the attachment of the operations */
+	private static final Object ATTACHMENT = new Object();
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private AsyncSerialConnection connection;
+
+	@Mock
+	private java.nio.channels.CompletionHandler<Integer, Object> handler;
+
+	/** the class under test */
+	private AsynchronousByteChannel channel;
+
+	@Before
+	public void setUp() {
+		initMocks(this);
+
+		channel = new AsynchronousSerialByteChannel(new AsyncSerialChannel(connection));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the channel is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullChannel() {
+		new AsynchronousSerialByteChannel(null);
+	}
+
+	/**
+	 * Verifies that the handler is completed with the number of bytes read.
+	 */
+	@Test
+	public void read() {
+		ByteBuffer dst = ByteBuffer.allocate(4);
+
+		channel.read(dst, ATTACHMENT, handler);
+		readHandler().completed(new byte[] { 1, 2, 3 }, ATTACHMENT);
+
+		verify(handler).completed(3, ATTACHMENT);
+		assertThat(dst.position(), is(3));
+	}
+
+	/**
+	 * Verifies that the handler fails, when the read fails.
+	 */
+	@Test
+	public void read_failed() {
+		IOException failure = new IOException();
+
+		channel.read(ByteBuffer.allocate(1), ATTACHMENT, handler);
+		readHandler().failed(failure, ATTACHMENT);
+
+		verify(handler).failed(failure, ATTACHMENT);
+	}
+
+	/**
+	 * Verifies that a {@link ReadPendingException} is thrown, when a read operation is already
+	 * pending.
+	 */
+	@Test
+	public void read_pending() {
+		channel.read(ByteBuffer.allocate(1));
+
+		exception.expect(ReadPendingException.class);
+
+		channel.read(ByteBuffer.allocate(1), ATTACHMENT, handler);
+	}
+
+	/**
+	 * Verifies that the future of a read is completed with the number of bytes.
+	 */
+	@Test
+	public void read_future() throws Exception {
+		Future<Integer> future = channel.read(ByteBuffer.allocate(4));
+		readHandler().completed(new byte[] { 1, 2 }, null);
+
+		assertThat(future.get(), is(2));
+	}
+
+	/**
+	 * Verifies that the handler is completed with the number of bytes written.
+	 */
+	@Test
+	public void write() {
+		ByteBuffer src = ByteBuffer.wrap(new byte[] { 1, 2 });
+
+		channel.write(src, ATTACHMENT, handler);
+		writeHandler(new byte[] { 1, 2 }).completed(2, ATTACHMENT);
+
+		verify(handler).completed(2, ATTACHMENT);
+		assertThat(src.position(), is(2));
+	}
+
+	/**
+	 * Verifies that a {@link WritePendingException} is thrown, when a write operation is already
+	 * pending.
+	 */
+	@Test
+	public void write_pending() {
+		channel.write(ByteBuffer.allocate(1), ATTACHMENT, handler);
+
+		exception.expect(WritePendingException.class);
+
+		channel.write(ByteBuffer.allocate(1));
+	}
+
+	/**
+	 * Verifies that the channel is open as long as the connection is open and closing the channel
+	 * closes the connection.
+	 */
+	@Test
+	public void close() throws Exception {
+		assertThat(channel.isOpen(), is(true));
+
+		channel.close();
+		when(connection.isClosed()).thenReturn(true);
+
+		verify(connection).close();
+		assertThat(channel.isOpen(), is(false));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Returns the handler of the last read of the connection. */
+	private CompletionHandler<byte[], Object> readHandler() {
+		ArgumentCaptor<CompletionHandler> captor = ArgumentCaptor.forClass(CompletionHandler.class);
+		verify(connection, times(1)).readAsync(anyObject(), captor.capture());
+		return captor.getValue();
+	}
+
+	/** Returns the handler of the write of the given data. */
+	private CompletionHandler<Integer, Object> writeHandler(byte[] data) {
+		ArgumentCaptor<CompletionHandler> captor = ArgumentCaptor.forClass(CompletionHandler.class);
+		verify(connection).writeAsync(eq(data), anyObject(), captor.capture());
+		return captor.getValue();
+	}
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.xidobi.spi.SimulatedDevice;
+
+/**
+ * Tests the class {@link ReconnectingSerialConnection}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestReconnectingSerialConnection {
+
+	/** the time in milliseconds, the tests wait for a condition */
+	private static final long TIMEOUT = 5000;
+
+	/** a delay, that is longer than the timeout of the tests */
+	private static final long LONG_DELAY = 60000;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/** the simulated port, that can be unplugged */
+	private SimulatedPort port;
+
+	/** the settings of the port */
+	private SerialPortSettings settings;
+
+	/** the class under test */
+	private ReconnectingSerialConnection connection;
+
+	@Before
+	public void setUp() {
+		port = new SimulatedPort();
+		settings = SerialPortSettings.from9600bauds8N1().create();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (connection != null)
+			connection.close();
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the port is
+	 * <code>null</code>.
+	 */
+	@Test
+	public void new_withNullPort() throws IOException {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >port< must not be null!");
+
+		connection = new ReconnectingSerialConnection(null, settings, port);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum delay is lesser
+	 * than the initial delay.
+	 */
+	@Test
+	public void new_withMaxDelayLesserThanInitialDelay() throws IOException {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >maxDelay< is invalid! Expected a value greater than or equal to the initial delay");
+
+		connection = new ReconnectingSerialConnection(port, settings, port, 100, 99, 10);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the port cannot be opened initially.
+	 */
+	@Test
+	public void new_whenPortIsMissing() throws IOException {
+		port.unplug();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 not found!");
+
+		connection = new ReconnectingSerialConnection(port, settings, port);
+	}
+
+	/**
+	 * Verifies that the data is written to and read from the port, while it is connected.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void writeAndRead() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port);
+
+		connection.write(bytes("abc"));
+		port.device().send("def");
+
+		assertThat(port.device().awaitWritten(), is("abc"));
+		assertThat(string(connection.read()), is("def"));
+		assertThat(connection.isConnected(), is(true));
+		assertThat(connection.getReconnectCount(), is(0L));
+	}
+
+	/**
+	 * Verifies that a blocked read continues with the reopened port, after the port was unplugged
+	 * and plugged in again.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_afterReconnect() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, 10, 10, 100);
+		ExecutorService executor = newSingleThreadExecutor();
+		Future<byte[]> read = executor.submit(new Callable<byte[]>() {
+			public byte[] call() throws IOException {
+				return connection.read();
+			}
+		});
+		executor.shutdown();
+
+		port.unplug();
+		awaitDisconnected();
+		port.plug();
+		awaitConnected();
+		port.device().send("abc");
+
+		assertThat(string(read.get()), is("abc"));
+		assertThat(connection.getReconnectCount(), is(1L));
+	}
+
+	/**
+	 * Verifies that the writes during an outage are queued and written in order to the reopened
+	 * port.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void write_queuedDuringOutage() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, 10, 10, 100);
+
+		port.unplug();
+		connection.write(bytes("abc"));
+		connection.write(ByteBuffer.wrap(bytes("def")));
+
+		assertThat(connection.isConnected(), is(false));
+		assertThat(connection.getQueuedBytes(), is(6));
+
+		port.plug();
+		awaitConnected();
+
+		assertThat(port.device().awaitWritten(), is("abc"));
+		assertThat(port.device().awaitWritten(), is("def"));
+		assertThat(connection.getQueuedBytes(), is(0));
+
+		connection.write(bytes("ghi"));
+		assertThat(port.device().awaitWritten(), is("ghi"));
+	}
+
+	/**
+	 * Verifies that the buffers are passed to the gathering write of the current connection and
+	 * queued as one write during an outage.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void write_byteBuffersAreGathered() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, 10, 10, 100);
+		ByteBuffer[] srcs = { ByteBuffer.wrap(bytes("ab")), ByteBuffer.wrap(bytes("c")) };
+
+		assertThat(connection.write(srcs), is(3L));
+		assertThat(srcs[0].remaining() + srcs[1].remaining(), is(0));
+		assertThat(port.device().awaitWritten(), is("abc"));
+
+		port.unplug();
+		awaitDisconnected();
+		srcs = new ByteBuffer[] { ByteBuffer.wrap(bytes("de")), ByteBuffer.wrap(bytes("f")) };
+		assertThat(connection.write(srcs), is(3L));
+		assertThat(srcs[0].remaining() + srcs[1].remaining(), is(0));
+		assertThat(connection.getQueuedBytes(), is(3));
+
+		port.plug();
+		awaitConnected();
+		assertThat(port.device().awaitWritten(), is("def"));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the queued writes exceed the buffer
+	 * size.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void write_whenBufferIsFull() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, LONG_DELAY, LONG_DELAY, 4);
+
+		port.unplug();
+		connection.write(bytes("abc"));
+
+		exception.expect(IOException.class);
+		exception.expectMessage("The write buffer of port COM1 is full!");
+
+		connection.write(bytes("de"));
+	}
+
+	/**
+	 * Verifies that the connection is dropped as soon as the port is removed, without waiting for
+	 * a failing read or write.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void disconnect_whenPortIsRemoved() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, LONG_DELAY, LONG_DELAY, 100);
+		SimulatedDevice removed = port.device();
+
+		port.unplug();
+
+		assertThat(connection.isConnected(), is(false));
+		assertThat(removed.getConnection().isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that the port is reopened as soon as it was added again, without waiting for the
+	 * end of the delay.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void reconnect_whenPortIsAdded() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, LONG_DELAY, LONG_DELAY, 100);
+
+		port.unplug();
+		connection.write(bytes("abc"));
+		port.plug();
+		awaitConnected();
+
+		assertThat(port.device().awaitWritten(), is("abc"));
+		assertThat(connection.getReconnectCount(), is(1L));
+	}
+
+	/**
+	 * Verifies that the port is reopened, if the first attempts fail.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void reconnect_retriesAfterFailedAttempts() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, 10, 20, 100);
+
+		port.failingOpens.set(3);
+		port.unplug();
+		connection.write(bytes("abc"));
+		port.plug();
+		awaitConnected();
+
+		assertThat(port.failingOpens.get(), is(-1));
+		assertThat(connection.getReconnectCount(), is(1L));
+	}
+
+	/**
+	 * Verifies that a read, that is blocked during an outage, fails when the connection is closed
+	 * and that the port is not reopened anymore.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void close_duringOutage() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port, 10, 10, 100);
+		port.unplug();
+		connection.write(bytes("abc"));
+
+		connection.close();
+		port.plug();
+		Thread.sleep(100);
+
+		assertThat(connection.isClosed(), is(true));
+		assertThat(port.openCount.get(), is(1));
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		connection.read();
+	}
+
+	/**
+	 * Verifies that the current connection is closed, when the reconnecting connection is closed.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void close() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, port);
+
+		connection.close();
+
+		assertThat(port.device().getConnection().isClosed(), is(true));
+		assertThat(connection.isConnected(), is(false));
+		assertThat(port.listeners.isEmpty(), is(true));
+	}
+
+	/**
+	 * Verifies that the listener is removed, when the port cannot be opened initially.
+	 */
+	@Test
+	public void new_removesListenerWhenPortIsMissing() {
+		port.unplug();
+
+		try {
+			connection = new ReconnectingSerialConnection(port, settings, port);
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			assertThat(port.listeners.isEmpty(), is(true));
+		}
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Blocks until the connection was lost. */
+	private void awaitDisconnected() throws InterruptedException {
+		while (connection.isConnected())
+			Thread.sleep(10);
+	}
+
+	/** Blocks until the port was reopened. */
+	private void awaitConnected() throws InterruptedException {
+		while (!connection.isConnected())
+			Thread.sleep(10);
+	}
+
+	private static byte[] bytes(String data) throws IOException {
+		return data.getBytes("US-ASCII");
+	}
+
+	private static String string(byte[] data) throws IOException {
+		return new String(data, "US-ASCII");
+	}
+
+	/** Simulates a port, that can be unplugged and plugged in again, and the finder for it. */
+	private static class SimulatedPort implements SerialPort, WatchableSerialPortFinder {
+
+		/** the number of calls of {@link #open(SerialPortSettings)} */
+		final AtomicInteger openCount = new AtomicInteger();
+		/** the number of calls of {@link #open(SerialPortSettings)}, that fail */
+		final AtomicInteger failingOpens = new AtomicInteger();
+
+		/** <code>true</code>, if the port is plugged in */
+		private volatile boolean present = true;
+		/** the device of the last opened connection */
+		private volatile SimulatedDevice device;
+
+		SimulatedDevice device() {
+			return device;
+		}
+
+		/** the registered listeners */
+		final List<PortListener> listeners = new CopyOnWriteArrayList<PortListener>();
+
+		void unplug() {
+			present = false;
+			if (device != null)
+				device.fail("Port COM1 was unplugged!");
+			for (PortListener listener : listeners)
+				listener.portRemoved(this);
+		}
+
+		void plug() {
+			present = true;
+			for (PortListener listener : listeners)
+				listener.portAdded(this);
+		}
+
+		public SerialConnection open(@Nonnull SerialPortSettings settings) throws IOException {
+			openCount.incrementAndGet();
+			if (!present)
+				throw new IOException("Port COM1 not found!");
+			if (failingOpens.getAndDecrement() > 0)
+				throw new IOException("Port COM1 is busy!");
+			device = new SimulatedDevice(this);
+			return device.getConnection();
+		}
+
+		public String getPortName() {
+			return "COM1";
+		}
+
+		public String getDescription() {
+			return null;
+		}
+
+		public Set<SerialPort> getAll() {
+			if (!present)
+				return Collections.emptySet();
+			return Collections.<SerialPort> singleton(this);
+		}
+
+		public SerialPort get(@Nonnull String portName) {
+			if (!present)
+				return null;
+			return this;
+		}
+
+		public void addListener(@Nonnull PortListener listener) {
+			listeners.add(listener);
+		}
+
+		public void removeListener(@Nonnull PortListener listener) {
+			listeners.remove(listener);
+		}
+	}
+}
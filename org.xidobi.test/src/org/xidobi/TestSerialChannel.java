@@ -0,0 +1,281 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the class {@link SerialChannel}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSerialChannel {
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private SerialConnection connection;
+
+	/** the class under test */
+	private SerialChannel channel;
+
+	@Before
+	public void setUp() {
+		initMocks(this);
+
+		channel = new SerialChannel(connection);
+	}
+
+	@After
+	public void tearDown() {
+		// clear the interrupt status of the test thread
+		Thread.interrupted();
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the connection is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullConnection() {
+		new SerialChannel(null);
+	}
+
+	/**
+	 * Verifies that a read is delegated to the connection.
+	 */
+	@Test
+	public void read() throws Exception {
+		ByteBuffer dst = ByteBuffer.allocate(4);
+		when(connection.read(dst)).thenReturn(3);
+
+		assertThat(channel.read(dst), is(3));
+	}
+
+	/**
+	 * Verifies that a write is delegated to the connection.
+	 */
+	@Test
+	public void write() throws Exception {
+		ByteBuffer src = ByteBuffer.allocate(4);
+		when(connection.write(src)).thenReturn(4);
+
+		assertThat(channel.write(src), is(4));
+	}
+
+	/**
+	 * Verifies that a gathering write passes all buffers to the connection.
+	 */
+	@Test
+	public void write_gathering() throws Exception {
+		ByteBuffer[] srcs = { ByteBuffer.allocate(1), ByteBuffer.allocate(2) };
+		when(connection.write(srcs)).thenReturn(3L);
+
+		assertThat(channel.write(srcs), is(3L));
+	}
+
+	/**
+	 * Verifies that a gathering write passes only the given range of buffers to the connection.
+	 */
+	@Test
+	public void write_gatheringWithOffset() throws Exception {
+		ByteBuffer[] srcs = { ByteBuffer.allocate(1), ByteBuffer.allocate(2), ByteBuffer.allocate(3) };
+		ArgumentCaptor<ByteBuffer[]> captor = ArgumentCaptor.forClass(ByteBuffer[].class);
+		when(connection.write(captor.capture())).thenReturn(5L);
+
+		assertThat(channel.write(srcs, 1, 2), is(5L));
+		assertThat(captor.getValue(), is(new ByteBuffer[] { srcs[1], srcs[2] }));
+	}
+
+	/**
+	 * Verifies that an {@link IndexOutOfBoundsException} is thrown, if the range exceeds the
+	 * array.
+	 */
+	@Test
+	public void write_gatheringInvalidRange() throws Exception {
+		exception.expect(IndexOutOfBoundsException.class);
+
+		channel.write(new ByteBuffer[2], 1, 2);
+	}
+
+	/**
+	 * Verifies that closing the channel closes the connection.
+	 */
+	@Test
+	public void close() throws Exception {
+		channel.close();
+
+		assertThat(channel.isOpen(), is(false));
+		verify(connection).close();
+	}
+
+	/**
+	 * Verifies that a {@link ClosedChannelException} is thrown, when the channel was closed.
+	 */
+	@Test
+	public void read_whenClosed() throws Exception {
+		channel.close();
+
+		exception.expect(ClosedChannelException.class);
+
+		channel.read(ByteBuffer.allocate(1));
+	}
+
+	/**
+	 * Verifies that a {@link ClosedChannelException} is thrown, when the connection was closed.
+	 */
+	@Test
+	public void write_whenConnectionClosed() throws Exception {
+		when(connection.isClosed()).thenReturn(true);
+
+		try {
+			channel.write(ByteBuffer.allocate(1));
+			fail("Expected a ClosedChannelException!");
+		}
+		catch (ClosedChannelException expected) {}
+
+		verify(connection, never()).write(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that a read, that was canceled because the thread was interrupted, closes the
+	 * channel and throws a {@link ClosedByInterruptException}. The interrupt status must be set.
+	 */
+	@Test
+	public void read_interrupted() throws Exception {
+		when(connection.read(any(ByteBuffer.class))).thenThrow(new InterruptedIOException());
+
+		try {
+			channel.read(ByteBuffer.allocate(1));
+			fail("Expected a ClosedByInterruptException!");
+		}
+		catch (ClosedByInterruptException expected) {
+			assertThat(expected.getCause(), is(instanceOf(InterruptedIOException.class)));
+		}
+
+		assertThat(Thread.currentThread().isInterrupted(), is(true));
+		assertThat(channel.isOpen(), is(false));
+		verify(connection, times(1)).close();
+	}
+
+	/**
+	 * Verifies that the {@link InterruptedIOException} is the cause of the
+	 * {@link ClosedByInterruptException}, when the thread was interrupted during the read, so that
+	 * the channel was already closed by its interruptor.
+	 */
+	@Test
+	public void read_interruptedDuringRead() throws Exception {
+		when(connection.read(any(ByteBuffer.class))).thenAnswer(new Answer<Integer>() {
+
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		});
+
+		try {
+			channel.read(ByteBuffer.allocate(1));
+			fail("Expected a ClosedByInterruptException!");
+		}
+		catch (ClosedByInterruptException expected) {
+			assertThat(expected.getCause(), is(instanceOf(InterruptedIOException.class)));
+		}
+
+		assertThat(Thread.currentThread().isInterrupted(), is(true));
+		assertThat(channel.isOpen(), is(false));
+		verify(connection, times(1)).close();
+	}
+
+	/**
+	 * Verifies that the interruption of a thread, that is blocked in a write, closes the
+	 * connection, so that the blocked write is aborted immediately.
+	 */
+	@Test(timeout = 5000)
+	public void write_interruptedWhileBlocked() throws Exception {
+		final CountDownLatch writeStarted = new CountDownLatch(1);
+		final CountDownLatch connectionClosed = new CountDownLatch(1);
+		when(connection.write(any(ByteBuffer.class))).thenAnswer(new Answer<Integer>() {
+
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				writeStarted.countDown();
+				connectionClosed.await();
+				throw new IOException("Port was closed!");
+			}
+		});
+		doAnswer(new Answer<Void>() {
+
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				connectionClosed.countDown();
+				return null;
+			}
+		}).when(connection).close();
+
+		final AtomicReference<Throwable> result = new AtomicReference<Throwable>();
+		Thread writer = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					channel.write(ByteBuffer.allocate(1));
+				}
+				catch (Throwable e) {
+					result.set(e);
+				}
+			}
+		};
+		writer.start();
+		assertThat(writeStarted.await(1, TimeUnit.SECONDS), is(true));
+
+		writer.interrupt();
+		writer.join(1000);
+
+		assertThat(result.get(), is(instanceOf(ClosedByInterruptException.class)));
+		assertThat(channel.isOpen(), is(false));
+	}
+}
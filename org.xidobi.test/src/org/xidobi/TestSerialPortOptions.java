@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xidobi.SerialPortOptions.SerialPortOptionsBuilder;
+
+/**
+ * Tests the class {@link SerialPortOptions}.
+ * 
+ * @author Christian Schwarz
+ */
+public class TestSerialPortOptions {
+
+	private SerialPortOptionsBuilder builder;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		builder = SerialPortOptions.fromDefaults();
+	}
+
+	/**
+	 * Verifies that all features are disabled by the default options.
+	 */
+	@Test
+	public void defaults() {
+		SerialPortOptions options = SerialPortOptions.DEFAULTS;
+
+		assertThat(options.isCoalescingWrites(), is(false));
+		assertThat(options.isPipeliningWrites(), is(false));
+		assertThat(options.isPumpingReceivedData(), is(false));
+		assertThat(options.isFusingReads(), is(false));
+		assertThat(options.getMaxReadBufferSize(), is(0));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum batch size is
+	 * 0.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void coalesceWrites_withMaxBatchSize0() {
+		builder.coalesceWrites(0, 100);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the linger time is
+	 * negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void coalesceWrites_withNegativeLinger() {
+		builder.coalesceWrites(512, -1);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the queue depth is 0.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void pipelineWrites_withQueueDepth0() {
+		builder.pipelineWrites(0, 4096);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the slot size is 0.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void pipelineWrites_withSlotSize0() {
+		builder.pipelineWrites(4, 0);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the receive capacity is 0.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void pumpReceivedData_withCapacity0() {
+		builder.pumpReceivedData(0);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum read buffer
+	 * size is 0.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void limitReadBuffer_withSize0() {
+		builder.limitReadBuffer(0);
+	}
+
+	/**
+	 * Verifies that the features can be combined.
+	 */
+	@Test
+	public void create_combinedFeatures() {
+		SerialPortOptions options = builder.coalesceWrites(512, 200).pipelineWrites(4, 4096).pumpReceivedData(65536).fuseReads().limitReadBuffer(1024).create();
+
+		assertThat(options.isCoalescingWrites(), is(true));
+		assertThat(options.getMaxBatchSize(), is(512));
+		assertThat(options.getLingerMicros(), is(200L));
+		assertThat(options.isPipeliningWrites(), is(true));
+		assertThat(options.getQueueDepth(), is(4));
+		assertThat(options.getSlotSize(), is(4096));
+		assertThat(options.isPumpingReceivedData(), is(true));
+		assertThat(options.getReceiveCapacity(), is(65536));
+		assertThat(options.isFusingReads(), is(true));
+		assertThat(options.getMaxReadBufferSize(), is(1024));
+	}
+}
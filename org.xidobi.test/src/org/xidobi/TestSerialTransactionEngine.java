@@ -0,0 +1,320 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.xidobi.codec.DelimiterFrameDecoder;
+import org.xidobi.spi.SimulatedDevice;
+
+/**
+ * Tests the class {@link SerialTransactionEngine}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSerialTransactionEngine {
+
+	/** the time in milliseconds, the tests wait for a request or a response */
+	private static final long TIMEOUT = 5000;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/** the simulated device */
+	private SimulatedDevice device;
+
+	/** the class under test */
+	private SerialTransactionEngine engine;
+
+	@Before
+	public void setUp() {
+		device = new SimulatedDevice();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (engine != null)
+			engine.close();
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum number of
+	 * outstanding requests is 0.
+	 */
+	@Test
+	@SuppressWarnings({ "unused", "resource" })
+	public void new_withMaxOutstanding0() {
+		exception.expect(IllegalArgumentException.class);
+
+		new SerialTransactionEngine(device.getConnection(), new DelimiterFrameDecoder(64, (byte) '\n'), 0);
+	}
+
+	/**
+	 * Verifies that the request is written and the future completes with the content of the
+	 * matching frame.
+	 */
+	@Test
+	public void request() throws Exception {
+		engine = newEngine(1);
+
+		Future<byte[]> response = engine.request(bytes("1:get\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+
+		assertThat(device.awaitWritten(), is("1:get\n"));
+		device.send("1:ok\n");
+		assertThat(string(response.get(TIMEOUT, MILLISECONDS)), is("1:ok"));
+		assertThat(engine.getCompletedCount(), is(1L));
+		assertThat(engine.getPendingCount(), is(0));
+	}
+
+	/**
+	 * Verifies that a request is written only after the previous transaction was completed, if
+	 * only one request may be outstanding.
+	 */
+	@Test
+	public void request_oneOutstanding() throws Exception {
+		engine = newEngine(1);
+
+		Future<byte[]> first = engine.request(bytes("1\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+		Future<byte[]> second = engine.request(bytes("2\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+
+		assertThat(device.awaitWritten(), is("1\n"));
+		assertThat(device.pollWritten(100), is(nullValue()));
+
+		device.send("a\n");
+		assertThat(string(first.get(TIMEOUT, MILLISECONDS)), is("a"));
+		assertThat(device.awaitWritten(), is("2\n"));
+		device.send("b\n");
+		assertThat(string(second.get(TIMEOUT, MILLISECONDS)), is("b"));
+	}
+
+	/**
+	 * Verifies that several requests are written without waiting for the responses and that the
+	 * responses are correlated by the matchers, even if they arrive out of order.
+	 */
+	@Test
+	public void request_pipelined() throws Exception {
+		engine = newEngine(2);
+
+		Future<byte[]> first = engine.request(bytes("1\n"), startsWith("1"), TIMEOUT, MILLISECONDS);
+		Future<byte[]> second = engine.request(bytes("2\n"), startsWith("2"), TIMEOUT, MILLISECONDS);
+		Future<byte[]> third = engine.request(bytes("3\n"), startsWith("3"), TIMEOUT, MILLISECONDS);
+
+		assertThat(device.awaitWritten(), is("1\n"));
+		assertThat(device.awaitWritten(), is("2\n"));
+		assertThat(device.pollWritten(100), is(nullValue()));
+
+		device.send("2:b\n");
+		assertThat(string(second.get(TIMEOUT, MILLISECONDS)), is("2:b"));
+		assertThat(device.awaitWritten(), is("3\n"));
+
+		device.send("3:c\n1:a\n");
+		assertThat(string(first.get(TIMEOUT, MILLISECONDS)), is("1:a"));
+		assertThat(string(third.get(TIMEOUT, MILLISECONDS)), is("3:c"));
+	}
+
+	/**
+	 * Verifies that a frame, that matches no outstanding request, is discarded.
+	 */
+	@Test
+	public void request_unmatchedFrame() throws Exception {
+		engine = newEngine(1);
+
+		Future<byte[]> response = engine.request(bytes("1\n"), startsWith("1"), TIMEOUT, MILLISECONDS);
+		device.awaitWritten();
+		device.send("event\n1:ok\n");
+
+		assertThat(string(response.get(TIMEOUT, MILLISECONDS)), is("1:ok"));
+		assertThat(engine.getDiscardedCount(), is(1L));
+	}
+
+	/**
+	 * Verifies that the future fails with a {@link TimeoutException}, if no response is received
+	 * in time, and that the next request is written.
+	 */
+	@Test
+	public void request_timeout() throws Exception {
+		engine = newEngine(1);
+
+		Future<byte[]> first = engine.request(bytes("1\n"), ResponseMatcher.ANY, 50, MILLISECONDS);
+		Future<byte[]> second = engine.request(bytes("2\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+
+		try {
+			first.get(TIMEOUT, MILLISECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+		}
+		assertThat(engine.getTimeoutCount(), is(1L));
+
+		device.awaitWritten();
+		assertThat(device.awaitWritten(), is("2\n"));
+		device.send("b\n");
+		assertThat(string(second.get(TIMEOUT, MILLISECONDS)), is("b"));
+	}
+
+	/**
+	 * Verifies that the requests of many threads are completed.
+	 */
+	@Test
+	public void request_manyThreads() throws Exception {
+		engine = newEngine(4);
+		Thread responder = new Thread() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						String request = device.pollWritten(TIMEOUT);
+						if (request != null)
+							device.send(request.replace(":", ":ok:"));
+					}
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+			}
+		};
+		responder.start();
+
+		final List<Future<byte[]>> responses = new ArrayList<Future<byte[]>>();
+		List<Thread> clients = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			final int client = t;
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 50; i++) {
+						String id = client + "/" + i;
+						try {
+							Future<byte[]> response = engine.request(bytes(id + ":\n"), startsWith(id + ":"), TIMEOUT, MILLISECONDS);
+							synchronized (responses) {
+								responses.add(response);
+							}
+						}
+						catch (IOException e) {
+							return;
+						}
+					}
+				}
+			};
+			clients.add(thread);
+			thread.start();
+		}
+		for (Thread thread : clients)
+			thread.join();
+
+		for (Future<byte[]> response : responses)
+			assertThat(string(response.get(TIMEOUT, MILLISECONDS)).contains(":ok:"), is(true));
+		responder.interrupt();
+
+		assertThat(responses.size(), is(400));
+		assertThat(engine.getCompletedCount(), is(400L));
+	}
+
+	/**
+	 * Verifies that the pending transactions fail, when the engine is closed, and that no request
+	 * is accepted afterwards.
+	 */
+	@Test
+	public void close() throws Exception {
+		engine = newEngine(1);
+		Future<byte[]> outstanding = engine.request(bytes("1\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+		Future<byte[]> queued = engine.request(bytes("2\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+		device.awaitWritten();
+
+		engine.close();
+
+		assertFailed(outstanding);
+		assertFailed(queued);
+		assertThat(device.getConnection().isClosed(), is(true));
+
+		exception.expect(IOException.class);
+		exception.expectMessage("The transaction engine was closed!");
+
+		engine.request(bytes("3\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+	}
+
+	/**
+	 * Verifies that the pending transactions fail, when the connection fails.
+	 */
+	@Test
+	public void connectionFailed() throws Exception {
+		engine = newEngine(1);
+		Future<byte[]> outstanding = engine.request(bytes("1\n"), ResponseMatcher.ANY, TIMEOUT, MILLISECONDS);
+		device.awaitWritten();
+
+		device.fail("Connection failed!");
+
+		assertFailed(outstanding);
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Creates an engine for newline terminated frames. */
+	private SerialTransactionEngine newEngine(int maxOutstanding) {
+		return new SerialTransactionEngine(device.getConnection(), new DelimiterFrameDecoder(64, (byte) '\n'), maxOutstanding);
+	}
+
+	/** Returns a matcher for frames, that start with the given prefix. */
+	private static ResponseMatcher startsWith(final String prefix) {
+		return new ResponseMatcher() {
+			public boolean matches(ByteBuffer frame) {
+				byte[] content = new byte[frame.remaining()];
+				frame.get(content);
+				return string(content).startsWith(prefix);
+			}
+		};
+	}
+
+	/** Verifies that the given transaction failed with an {@link IOException}. */
+	private static void assertFailed(Future<byte[]> future) throws Exception {
+		try {
+			future.get(TIMEOUT, MILLISECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), is(instanceOf(IOException.class)));
+		}
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes();
+	}
+
+	private static String string(byte[] data) {
+		return new String(data);
+	}
+}
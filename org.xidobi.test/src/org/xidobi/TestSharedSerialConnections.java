@@ -0,0 +1,388 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.spi.SimulatedDevice;
+
+/**
+ * Tests the class {@link SharedSerialConnections}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSharedSerialConnections {
+
+	/** the time in milliseconds, the tests wait for a condition */
+	private static final long TIMEOUT = 5000;
+
+	/** the name of the simulated port */
+	private static final String PORT_NAME = "COM1";
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/** the port, whose connections are shared */
+	private SerialPort port;
+
+	/** the simulated device of the current connection */
+	private SimulatedDevice device;
+
+	/** the settings of the port */
+	private SerialPortSettings settings;
+
+	/** the class under test */
+	private SharedSerialConnections registry;
+
+	@Before
+	public void setUp() throws IOException {
+		port = mock(SerialPort.class);
+		settings = SerialPortSettings.from9600bauds8N1().create();
+		when(port.getPortName()).thenReturn(PORT_NAME);
+		when(port.open(settings)).thenAnswer(new Answer<SerialConnection>() {
+			public SerialConnection answer(InvocationOnMock invocation) {
+				device = new SimulatedDevice(port);
+				return device.getConnection();
+			}
+		});
+
+		registry = new SharedSerialConnections();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (device != null)
+			device.getConnection().close();
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the buffer size is 0.
+	 */
+	@Test
+	@SuppressWarnings("unused")
+	public void new_withBufferSize0() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >bufferSize< is invalid! Expected a value greater than 0");
+
+		new SharedSerialConnections(0);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the port is
+	 * <code>null</code>.
+	 */
+	@Test
+	public void open_withNullPort() throws IOException {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >port< must not be null!");
+
+		registry.open(null, settings);
+	}
+
+	/**
+	 * Verifies that the port is opened only once, if several views of the same port are opened.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void open_sharesConnection() throws IOException {
+		SerialConnectionView first = registry.open(port, settings);
+		SerialConnectionView second = registry.open(port, settings);
+
+		verify(port, times(1)).open(settings);
+		assertThat(registry.isOpen(PORT_NAME), is(true));
+		assertThat(registry.getViewCount(PORT_NAME), is(2));
+		assertThat(first.getPort(), is(port));
+		assertThat(second.getPort(), is(port));
+	}
+
+	/**
+	 * Verifies that every view receives all data, independent of the other views.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_fanOut() throws IOException {
+		SerialConnectionView first = registry.open(port, settings);
+		SerialConnectionView second = registry.open(port, settings);
+
+		device.send("abc");
+		device.send("def");
+
+		assertThat(readString(first, 6), is("abcdef"));
+		assertThat(readString(second, 6), is("abcdef"));
+	}
+
+	/**
+	 * Verifies that a view receives only the data, that was received after it was opened.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_startsAtOpen() throws IOException {
+		SerialConnectionView first = registry.open(port, settings);
+		device.send("abc");
+		assertThat(readString(first, 3), is("abc"));
+
+		SerialConnectionView second = registry.open(port, settings);
+		device.send("def");
+
+		assertThat(readString(second, 3), is("def"));
+		assertThat(second.available(), is(0));
+	}
+
+	/**
+	 * Verifies that a view, that falls behind by more than the buffer size, loses the oldest
+	 * bytes, while the other views are not affected.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_slowViewLosesOldestBytes() throws IOException {
+		registry = new SharedSerialConnections(4);
+		SerialConnectionView fast = registry.open(port, settings);
+		SerialConnectionView slow = registry.open(port, settings);
+
+		for (String data : new String[] { "ab", "cd", "ef" }) {
+			device.send(data);
+			assertThat(readString(fast, 2), is(data));
+		}
+
+		assertThat(readString(slow, 4), is("cdef"));
+		assertThat(slow.getLostBytes(), is(2L));
+		assertThat(fast.getLostBytes(), is(0L));
+	}
+
+	/**
+	 * Verifies that the writes of all views are forwarded to the connection.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void write() throws Exception {
+		SerialConnectionView first = registry.open(port, settings);
+		SerialConnectionView second = registry.open(port, settings);
+
+		first.write("abc".getBytes("US-ASCII"));
+		second.write(ByteBuffer.wrap("def".getBytes("US-ASCII")));
+
+		assertThat(device.awaitWritten(), is("abc"));
+		assertThat(device.awaitWritten(), is("def"));
+	}
+
+	/**
+	 * Verifies that the connection stays open, until the last view is closed.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void close_lastViewClosesConnection() throws IOException {
+		SerialConnectionView first = registry.open(port, settings);
+		SerialConnectionView second = registry.open(port, settings);
+
+		first.close();
+		first.close();
+
+		assertThat(first.isClosed(), is(true));
+		assertThat(device.getConnection().isClosed(), is(false));
+		assertThat(registry.getViewCount(PORT_NAME), is(1));
+		device.send("abc");
+		assertThat(readString(second, 3), is("abc"));
+
+		second.close();
+
+		assertThat(device.getConnection().isClosed(), is(true));
+		assertThat(registry.isOpen(PORT_NAME), is(false));
+	}
+
+	/**
+	 * Verifies that the port is opened again, after all views were closed.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void open_afterClose() throws IOException {
+		registry.open(port, settings).close();
+		registry.open(port, settings);
+
+		verify(port, times(2)).open(settings);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a closed view is read.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_whenClosed() throws IOException {
+		SerialConnectionView view = registry.open(port, settings);
+		view.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		view.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a closed view is written.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void write_whenClosed() throws IOException {
+		SerialConnectionView view = registry.open(port, settings);
+		registry.open(port, settings);
+		view.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		view.write(new byte[1]);
+	}
+
+	/**
+	 * Verifies that the views read the remaining data after the connection failed and throw the
+	 * failure afterwards.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_afterFailure() throws IOException {
+		SerialConnectionView view = registry.open(port, settings);
+		device.send("abc");
+		device.fail("Connection lost!");
+
+		assertThat(readString(view, 3), is("abc"));
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Connection lost!");
+
+		view.read();
+	}
+
+	/**
+	 * Verifies that a failed connection is closed and the port is opened again.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void open_afterFailure() throws Exception {
+		registry.open(port, settings);
+		SimulatedDevice failedDevice = device;
+		failedDevice.fail("Connection lost!");
+
+		while (registry.isOpen(PORT_NAME))
+			Thread.sleep(10);
+		registry.open(port, settings);
+
+		assertThat(failedDevice.getConnection().isClosed(), is(true));
+		verify(port, times(2)).open(settings);
+	}
+
+	/**
+	 * Verifies that the registry is not locked, while a port is opened, so other ports can be
+	 * opened meanwhile.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void open_otherPortWhileOpening() throws Exception {
+		SerialPort otherPort = mock(SerialPort.class);
+		when(otherPort.getPortName()).thenReturn("COM2");
+		CountDownLatch proceed = openSlowly();
+
+		Thread opener = startOpen();
+		while (opener.getState() != Thread.State.WAITING)
+			Thread.sleep(10);
+
+		when(otherPort.open(settings)).thenReturn(mock(SerialConnection.class));
+		registry.open(otherPort, settings);
+		assertThat(registry.isOpen("COM2"), is(true));
+		assertThat(registry.isOpen(PORT_NAME), is(false));
+
+		proceed.countDown();
+		opener.join();
+		assertThat(registry.isOpen(PORT_NAME), is(true));
+	}
+
+	/**
+	 * Verifies that a port is opened only once, if it is opened by several threads concurrently.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void open_concurrently() throws Exception {
+		CountDownLatch proceed = openSlowly();
+
+		Thread first = startOpen();
+		Thread second = startOpen();
+		while (first.getState() != Thread.State.WAITING || second.getState() != Thread.State.WAITING)
+			Thread.sleep(10);
+
+		proceed.countDown();
+		first.join();
+		second.join();
+
+		verify(port, times(1)).open(settings);
+		assertThat(registry.getViewCount(PORT_NAME), is(2));
+	}
+
+	/**
+	 * Verifies that a read into a buffer without remaining bytes returns 0 immediately.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_bufferWithoutRemaining() throws IOException {
+		SerialConnectionView view = registry.open(port, settings);
+
+		assertThat(view.read(ByteBuffer.allocate(0)), is(0));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/**
+	 * Lets the open of the port wait until the returned latch is counted down.
+	 */
+	private CountDownLatch openSlowly() throws IOException {
+		final CountDownLatch proceed = new CountDownLatch(1);
+		doAnswer(new Answer<SerialConnection>() {
+			public SerialConnection answer(InvocationOnMock invocation) throws InterruptedException {
+				proceed.await();
+				device = new SimulatedDevice(port);
+				return device.getConnection();
+			}
+		}).when(port).open(settings);
+		return proceed;
+	}
+
+	/** Starts a thread, that opens a view of the port. */
+	private Thread startOpen() {
+		Thread opener = new Thread() {
+			@Override
+			public void run() {
+				try {
+					registry.open(port, settings);
+				}
+				catch (IOException e) {
+					throw new AssertionError(e);
+				}
+			}
+		};
+		opener.start();
+		return opener;
+	}
+
+	/** Reads the given number of bytes from the view and returns them as string. */
+	private String readString(SerialConnection view, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining())
+			view.read(buffer);
+		return new String(buffer.array(), "US-ASCII");
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.xidobi.SerialConnection;
+
+/**
+ * Measures the throughput of the {@link FrameDecoder}s, when the frames are read by a
+ * {@link FrameReader} from a simulated connection. The connection returns the encoded frames in
+ * chunks of random length between 1 and {@link #MAX_CHUNK_LENGTH} bytes, like the reads of a serial
+ * port return the content of the UART FIFO or of USB packets, so most frames are split between
+ * chunks.
+ * <p>
+ * For comparison the delimiter based framing is also measured in the way it is usually done on top
+ * of {@link SerialConnection#read()}: The chunks are appended to a growing array and every frame is
+ * copied into its own array.
+ * <p>
+ * Usage: <code>BenchmarkFrameDecoders [seconds per run]</code>
+ * 
+ * @author Christian Schwarz
+ */
+public class BenchmarkFrameDecoders {
+
+	/** the maximum length of a chunk returned by a read */
+	private static final int MAX_CHUNK_LENGTH = 64;
+	/** the maximum length of the content of a frame */
+	private static final int MAX_FRAME_LENGTH = 256;
+	/** the number of frames in the simulated stream */
+	private static final int FRAMES = 10000;
+
+	/** the delimiter of the delimiter based frames */
+	private static final byte DELIMITER = '\n';
+	/** the length of the fixed length frames */
+	private static final int FIXED_LENGTH = 32;
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional duration of a run in seconds
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		Random random = new Random(42);
+		byte[][] frames = newFrames(random);
+		int[] chunkLengths = newChunkLengths(random);
+
+		System.out.println("decoder\tframes/s\tMB/s (encoded)");
+		run("delimiter (copying)", null, encodeDelimited(frames), chunkLengths, seconds);
+		run("delimiter", new DelimiterFrameDecoder(MAX_FRAME_LENGTH, DELIMITER), encodeDelimited(frames), chunkLengths, seconds);
+		run("length field", new LengthFieldFrameDecoder(2, BIG_ENDIAN, MAX_FRAME_LENGTH), encodeLengthField(frames), chunkLengths, seconds);
+		run("fixed length", new FixedLengthFrameDecoder(FIXED_LENGTH), encodeFixedLength(frames), chunkLengths, seconds);
+		run("SLIP", new SlipFrameDecoder(MAX_FRAME_LENGTH), encodeSlip(frames), chunkLengths, seconds);
+		run("COBS", new CobsFrameDecoder(MAX_FRAME_LENGTH), encodeCobs(frames), chunkLengths, seconds);
+	}
+
+	/**
+	 * Decodes the stream repeatedly for the given duration and prints the throughput. If the
+	 * decoder is <code>null</code>, the copying delimiter framing is measured.
+	 */
+	private static void run(String name, FrameDecoder decoder, byte[] stream, int[] chunkLengths, int seconds) throws IOException {
+		// warm up
+		decode(decoder, stream, chunkLengths, 1000);
+
+		long frames = 0;
+		long bytes = 0;
+		long start = System.nanoTime();
+		long end = start + seconds * 1000000000L;
+		while (System.nanoTime() < end) {
+			frames += decode(decoder, stream, chunkLengths, 1);
+			bytes += stream.length;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%s\t%.0f\t%.1f", name, frames / elapsed, bytes / elapsed / 1e6));
+	}
+
+	/** Decodes the stream the given number of times and returns the number of decoded frames. */
+	private static long decode(FrameDecoder decoder, byte[] stream, int[] chunkLengths, int times) throws IOException {
+		long frames = 0;
+		for (int i = 0; i < times; i++) {
+			SimulatedPort port = new SimulatedPort(stream, chunkLengths);
+			SerialConnection connection = port.newConnection();
+			if (decoder == null) {
+				CopyingDelimiterReader reader = new CopyingDelimiterReader(connection);
+				while (!port.isExhausted() || reader.hasBufferedFrame())
+					{
+					reader.read();
+					frames++;
+				}
+			}
+			else {
+				decoder.reset();
+				FrameReader reader = new FrameReader(connection, decoder);
+				while (!port.isExhausted() || reader.getBufferedBytes() > 0) {
+					reader.read();
+					frames++;
+				}
+			}
+		}
+		return frames;
+	}
+
+	/** Returns frames of random length and content, the content never contains the delimiter. */
+	private static byte[][] newFrames(Random random) {
+		byte[][] frames = new byte[FRAMES][];
+		for (int i = 0; i < FRAMES; i++) {
+			byte[] frame = new byte[1 + random.nextInt(MAX_FRAME_LENGTH)];
+			random.nextBytes(frame);
+			for (int j = 0; j < frame.length; j++) {
+				if (frame[j] == DELIMITER)
+					frame[j] = ' ';
+			}
+			frames[i] = frame;
+		}
+		return frames;
+	}
+
+	/** Returns random chunk lengths between 1 and {@link #MAX_CHUNK_LENGTH}. */
+	private static int[] newChunkLengths(Random random) {
+		int[] chunkLengths = new int[1021];
+		for (int i = 0; i < chunkLengths.length; i++)
+			chunkLengths[i] = 1 + random.nextInt(MAX_CHUNK_LENGTH);
+		return chunkLengths;
+	}
+
+	private static byte[] encodeDelimited(byte[][] frames) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] frame : frames) {
+			out.write(frame, 0, frame.length);
+			out.write(DELIMITER);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] encodeLengthField(byte[][] frames) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] frame : frames) {
+			out.write(frame.length >> 8);
+			out.write(frame.length);
+			out.write(frame, 0, frame.length);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] encodeFixedLength(byte[][] frames) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] frame : frames)
+			out.write(Arrays.copyOf(frame, FIXED_LENGTH), 0, FIXED_LENGTH);
+		return out.toByteArray();
+	}
+
+	private static byte[] encodeSlip(byte[][] frames) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] frame : frames) {
+			for (byte b : frame) {
+				if (b == SlipFrameDecoder.END) {
+					out.write(SlipFrameDecoder.ESC);
+					out.write(SlipFrameDecoder.ESC_END);
+				}
+				else if (b == SlipFrameDecoder.ESC) {
+					out.write(SlipFrameDecoder.ESC);
+					out.write(SlipFrameDecoder.ESC_ESC);
+				}
+				else
+					out.write(b);
+			}
+			out.write(SlipFrameDecoder.END);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] encodeCobs(byte[][] frames) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] frame : frames) {
+			byte[] group = new byte[255];
+			int length = 1;
+			for (byte b : frame) {
+				if (b == 0 || length == 255) {
+					group[0] = (byte) length;
+					out.write(group, 0, length);
+					length = 1;
+					if (b == 0)
+						continue;
+				}
+				group[length++] = b;
+			}
+			group[0] = (byte) length;
+			out.write(group, 0, length);
+			out.write(CobsFrameDecoder.DELIMITER);
+		}
+		return out.toByteArray();
+	}
+
+	/** Returns the encoded stream in chunks of the given lengths. */
+	private static class SimulatedPort implements InvocationHandler {
+
+		private final byte[] stream;
+		private final int[] chunkLengths;
+		private int position;
+		private int chunk;
+
+		SimulatedPort(byte[] stream, int[] chunkLengths) {
+			this.stream = stream;
+			this.chunkLengths = chunkLengths;
+		}
+
+		SerialConnection newConnection() {
+			return (SerialConnection) Proxy.newProxyInstance(SerialConnection.class.getClassLoader(), new Class<?>[] { SerialConnection.class }, this);
+		}
+
+		boolean isExhausted() {
+			return position == stream.length;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+			if (!method.getName().equals("read"))
+				throw new UnsupportedOperationException(method.getName());
+
+			int length = Math.min(chunkLengths[chunk++ % chunkLengths.length], stream.length - position);
+			if (length == 0)
+				throw new IOException("The stream is exhausted!");
+			if (args == null) {
+				byte[] data = Arrays.copyOfRange(stream, position, position + length);
+				position += length;
+				return data;
+			}
+			ByteBuffer dst = (ByteBuffer) args[0];
+			length = Math.min(length, dst.remaining());
+			dst.put(stream, position, length);
+			position += length;
+			return length;
+		}
+	}
+
+	/**
+	 * Reads delimiter based frames, like it is usually done on top of
+	 * {@link SerialConnection#read()}.
+	 */
+	private static class CopyingDelimiterReader {
+
+		private final SerialConnection connection;
+		private byte[] received = new byte[0];
+		private int scanned;
+
+		CopyingDelimiterReader(SerialConnection connection) {
+			this.connection = connection;
+		}
+
+		boolean hasBufferedFrame() {
+			for (byte b : received) {
+				if (b == DELIMITER)
+					return true;
+			}
+			return false;
+		}
+
+		byte[] read() throws IOException {
+			while (true) {
+				for (int i = scanned; i < received.length; i++) {
+					if (received[i] == DELIMITER) {
+						byte[] frame = Arrays.copyOf(received, i);
+						received = Arrays.copyOfRange(received, i + 1, received.length);
+						scanned = 0;
+						return frame;
+					}
+				}
+				scanned = received.length;
+
+				byte[] chunk = connection.read();
+				byte[] appended = Arrays.copyOf(received, received.length + chunk.length);
+				System.arraycopy(chunk, 0, appended, received.length, chunk.length);
+				received = appended;
+			}
+		}
+	}
+}
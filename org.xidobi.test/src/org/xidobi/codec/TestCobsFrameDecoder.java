@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the class {@link CobsFrameDecoder}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestCobsFrameDecoder {
+
+	/** the class under test */
+	private CobsFrameDecoder decoder;
+
+	@Before
+	public void setUp() {
+		decoder = new CobsFrameDecoder(300);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum frame length
+	 * is 0.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withMaxFrameLength0() {
+		new CobsFrameDecoder(0);
+	}
+
+	/**
+	 * Verifies the decoding of encoded zeros.
+	 */
+	@Test
+	public void decode_zeros() throws Exception {
+		assertDecoded(bytes(0x01, 0x01, 0x00), bytes(0x00));
+		assertDecoded(bytes(0x01, 0x01, 0x01, 0x00), bytes(0x00, 0x00));
+		assertDecoded(bytes(0x02, 0x11, 0x01, 0x01, 0x01, 0x00), bytes(0x11, 0x00, 0x00, 0x00));
+	}
+
+	/**
+	 * Verifies the decoding of groups with and without a following zero.
+	 */
+	@Test
+	public void decode_groups() throws Exception {
+		assertDecoded(bytes(0x03, 0x11, 0x22, 0x02, 0x33, 0x00), bytes(0x11, 0x22, 0x00, 0x33));
+		assertDecoded(bytes(0x05, 0x11, 0x22, 0x33, 0x44, 0x00), bytes(0x11, 0x22, 0x33, 0x44));
+	}
+
+	/**
+	 * Verifies that a group with the code <code>0xFF</code> is not followed by a zero.
+	 */
+	@Test
+	public void decode_maximumGroup() throws Exception {
+		byte[] decoded = new byte[255];
+		byte[] encoded = new byte[258];
+		encoded[0] = (byte) 0xFF;
+		for (int i = 0; i < 254; i++) {
+			decoded[i] = (byte) (i + 1);
+			encoded[i + 1] = (byte) (i + 1);
+		}
+		decoded[254] = 0x11;
+		encoded[255] = 0x02;
+		encoded[256] = 0x11;
+
+		assertDecoded(encoded, decoded);
+	}
+
+	/**
+	 * Verifies that empty frames are skipped.
+	 */
+	@Test
+	public void decode_emptyFrames() throws Exception {
+		List<byte[]> frames = decodeBytewise(bytes(0x00, 0x00, 0x02, 0x11, 0x00));
+
+		assertThat(frames.size(), is(1));
+		assertThat(frames.get(0), is(bytes(0x11)));
+	}
+
+	/**
+	 * Verifies that a {@link CorruptFrameException} is thrown, when the last group is truncated,
+	 * and that the decoder continues with the next frame.
+	 */
+	@Test
+	public void decode_truncated() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes(0x03, 0x11, 0x00, 0x02, 0x22, 0x00));
+
+		try {
+			decoder.decode(buffer);
+			fail("Expected a CorruptFrameException!");
+		}
+		catch (CorruptFrameException expected) {}
+
+		assertThat(toArray(decoder.decode(buffer)), is(bytes(0x22)));
+	}
+
+	/**
+	 * Verifies that a frame, that exceeds the maximum length, is discarded up to the next
+	 * delimiter.
+	 */
+	@Test
+	public void decode_tooLong() throws Exception {
+		decoder = new CobsFrameDecoder(2);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes(0x04, 0x11, 0x22, 0x33, 0x00, 0x02, 0x44, 0x00));
+
+		try {
+			decoder.decode(buffer);
+			fail("Expected a CorruptFrameException!");
+		}
+		catch (CorruptFrameException expected) {}
+
+		assertThat(toArray(decoder.decode(buffer)), is(bytes(0x44)));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Verifies that the encoded frame is decoded, also if it is received byte by byte. */
+	private void assertDecoded(byte[] encoded, byte[] decoded) throws CorruptFrameException {
+		assertThat(toArray(decoder.decode(ByteBuffer.wrap(encoded.clone()))), is(decoded));
+
+		List<byte[]> frames = decodeBytewise(encoded.clone());
+		assertThat(frames.size(), is(1));
+		assertThat(frames.get(0), is(decoded));
+	}
+
+	/** Decodes the given bytes, that are received one by one. */
+	private List<byte[]> decodeBytewise(byte[] bytes) throws CorruptFrameException {
+		List<byte[]> frames = new ArrayList<byte[]>();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		for (int limit = 0; limit <= bytes.length; limit++) {
+			buffer.limit(limit);
+			ByteBuffer frame;
+			while ((frame = decoder.decode(buffer)) != null)
+				frames.add(toArray(frame));
+		}
+		return frames;
+	}
+
+	/** Returns the given values as bytes. */
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++)
+			bytes[i] = (byte) values[i];
+		return bytes;
+	}
+
+	/** Returns the remaining bytes of the given buffer. */
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the class {@link DelimiterFrameDecoder}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestDelimiterFrameDecoder {
+
+	/** the class under test */
+	private DelimiterFrameDecoder decoder;
+
+	@Before
+	public void setUp() {
+		decoder = new DelimiterFrameDecoder(4, (byte) '\r', (byte) '\n');
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the delimiter is empty.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withEmptyDelimiter() {
+		new DelimiterFrameDecoder(4);
+	}
+
+	/**
+	 * Verifies that a frame is decoded without the delimiter and the position is advanced behind
+	 * the delimiter.
+	 */
+	@Test
+	public void decode() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap("ab\r\nc".getBytes());
+
+		ByteBuffer frame = decoder.decode(buffer);
+
+		assertThat(toString(frame), is("ab"));
+		assertThat(buffer.position(), is(4));
+		assertThat(decoder.decode(buffer), is(nullValue()));
+	}
+
+	/**
+	 * Verifies that a delimiter, that is split between two chunks, is found and that consecutive
+	 * delimiters result in empty frames.
+	 */
+	@Test
+	public void decode_bytewise() throws Exception {
+		List<String> frames = decodeBytewise("ab\r\n\r\nc\rd\r\n");
+
+		assertThat(frames.size(), is(3));
+		assertThat(frames.get(0), is("ab"));
+		assertThat(frames.get(1), is(""));
+		assertThat(frames.get(2), is("c\rd"));
+	}
+
+	/**
+	 * Verifies that a frame, that exceeds the maximum length, is discarded.
+	 */
+	@Test
+	public void decode_tooLong() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap("abcde\r\nf\r\n".getBytes());
+
+		try {
+			decoder.decode(buffer);
+			fail("Expected a CorruptFrameException!");
+		}
+		catch (CorruptFrameException expected) {}
+
+		assertThat(toString(decoder.decode(buffer)), is("f"));
+	}
+
+	/**
+	 * Verifies that a frame, that exceeds the maximum length before the delimiter is received, is
+	 * discarded up to the next delimiter.
+	 */
+	@Test
+	public void decode_tooLongWithoutDelimiter() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap("abcdefg\r\nh\r\n".getBytes());
+		buffer.limit(7);
+
+		try {
+			decoder.decode(buffer);
+			fail("Expected a CorruptFrameException!");
+		}
+		catch (CorruptFrameException expected) {}
+
+		buffer.limit(buffer.capacity());
+		assertThat(toString(decoder.decode(buffer)), is("h"));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Decodes the given characters, that are received one by one. */
+	private List<String> decodeBytewise(String received) throws CorruptFrameException {
+		List<String> frames = new ArrayList<String>();
+		ByteBuffer buffer = ByteBuffer.wrap(received.getBytes());
+		for (int limit = 0; limit <= buffer.capacity(); limit++) {
+			buffer.limit(limit);
+			ByteBuffer frame;
+			while ((frame = decoder.decode(buffer)) != null)
+				frames.add(toString(frame));
+		}
+		return frames;
+	}
+
+	/** Returns the remaining bytes of the given buffer as string. */
+	private static String toString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return new String(bytes);
+	}
+}
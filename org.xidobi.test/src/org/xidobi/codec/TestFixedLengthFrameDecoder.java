@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests the class {@link FixedLengthFrameDecoder}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestFixedLengthFrameDecoder {
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the frame length is 0.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withFrameLength0() {
+		new FixedLengthFrameDecoder(0);
+	}
+
+	/**
+	 * Verifies that frames of the fixed length are returned as slices of the buffer.
+	 */
+	@Test
+	public void decode() throws Exception {
+		FixedLengthFrameDecoder decoder = new FixedLengthFrameDecoder(2);
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 });
+
+		ByteBuffer first = decoder.decode(buffer);
+		ByteBuffer second = decoder.decode(buffer);
+
+		assertThat(first.get(1), is((byte) 2));
+		assertThat(second.get(0), is((byte) 3));
+		assertThat(second.remaining(), is(2));
+		assertThat(decoder.decode(buffer), is(nullValue()));
+		assertThat(buffer.position(), is(4));
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.SerialConnection;
+
+/**
+ * Tests the class {@link FrameReader}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestFrameReader {
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private SerialConnection connection;
+
+	/** the chunks, that are returned by the reads of the connection */
+	private LinkedList<byte[]> chunks;
+
+	@Before
+	public void setUp() throws Exception {
+		initMocks(this);
+		chunks = new LinkedList<byte[]>();
+		when(connection.read(any(ByteBuffer.class))).thenAnswer(new Answer<Integer>() {
+
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				ByteBuffer dst = (ByteBuffer) invocation.getArguments()[0];
+				byte[] chunk = chunks.poll();
+				if (chunk == null)
+					throw new IOException("No more data!");
+				int numberOfBytes = Math.min(chunk.length, dst.remaining());
+				dst.put(chunk, 0, numberOfBytes);
+				if (numberOfBytes < chunk.length)
+					chunks.addFirst(Arrays.copyOfRange(chunk, numberOfBytes, chunk.length));
+				return numberOfBytes;
+			}
+		});
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the decoder is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullDecoder() {
+		new FrameReader(connection, null);
+	}
+
+	/**
+	 * Verifies that frames, that are split between chunks, and multiple frames in one chunk are
+	 * read.
+	 */
+	@Test
+	public void read() throws Exception {
+		FrameReader reader = new FrameReader(connection, new DelimiterFrameDecoder(16, (byte) ';'));
+		received("ab", "c;d", "e;f;");
+
+		assertThat(toString(reader.read()), is("abc"));
+		assertThat(toString(reader.read()), is("de"));
+		assertThat(toString(reader.read()), is("f"));
+		verify(connection, times(3)).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that the bytes of an incomplete frame are moved to the beginning of the buffer,
+	 * when the end of the buffer is reached.
+	 */
+	@Test
+	public void read_compacts() throws Exception {
+		FrameReader reader = new FrameReader(connection, new DelimiterFrameDecoder(16, (byte) ';'), 6);
+		received("ab;cde", "f;gh;");
+
+		assertThat(toString(reader.read()), is("ab"));
+		assertThat(toString(reader.read()), is("cdef"));
+		assertThat(toString(reader.read()), is("gh"));
+	}
+
+	/**
+	 * Verifies that a frame, that doesn't fit into the buffer, is discarded and the reader
+	 * continues with the received bytes.
+	 */
+	@Test
+	public void read_frameExceedsBuffer() throws Exception {
+		FrameReader reader = new FrameReader(connection, new FixedLengthFrameDecoder(5), 4);
+		received("abcd", "efgh");
+
+		try {
+			reader.read();
+			fail("Expected a CorruptFrameException!");
+		}
+		catch (CorruptFrameException expected) {}
+
+		assertThat(reader.getBufferedBytes(), is(0));
+	}
+
+	/**
+	 * Verifies that the received bytes are kept, if the read of the connection fails.
+	 */
+	@Test
+	public void read_connectionFailed() throws Exception {
+		FrameReader reader = new FrameReader(connection, new DelimiterFrameDecoder(16, (byte) ';'));
+		received("ab");
+
+		try {
+			reader.read();
+			fail("Expected an IOException!");
+		}
+		catch (IOException expected) {}
+
+		assertThat(reader.getBufferedBytes(), is(2));
+		received(";");
+		assertThat(toString(reader.read()), is("ab"));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Adds the given chunks to the chunks returned by the connection. */
+	private void received(String... received) {
+		for (String chunk : received)
+			chunks.add(chunk.getBytes());
+	}
+
+	/** Returns the remaining bytes of the given buffer as string. */
+	private static String toString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return new String(bytes);
+	}
+}
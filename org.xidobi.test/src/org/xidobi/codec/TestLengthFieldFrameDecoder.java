@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests the class {@link LengthFieldFrameDecoder}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestLengthFieldFrameDecoder {
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the length of the length
+	 * field is not supported.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withLengthFieldLength3() {
+		new LengthFieldFrameDecoder(3, BIG_ENDIAN, 10);
+	}
+
+	/**
+	 * Verifies that a frame with a length field of 1 byte is decoded.
+	 */
+	@Test
+	public void decode_1Byte() throws Exception {
+		LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(1, BIG_ENDIAN, 10);
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 2, 7, 8, 9 });
+
+		ByteBuffer frame = decoder.decode(buffer);
+
+		assertThat(toArray(frame), is(new byte[] { 7, 8 }));
+		assertThat(buffer.position(), is(3));
+	}
+
+	/**
+	 * Verifies that the length field is read in big endian byte order.
+	 */
+	@Test
+	public void decode_2BytesBigEndian() throws Exception {
+		LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(2, BIG_ENDIAN, 300);
+		ByteBuffer buffer = ByteBuffer.allocate(2 + 258);
+		buffer.put(0, (byte) 0x01).put(1, (byte) 0x02);
+
+		assertThat(decoder.decode(buffer).remaining(), is(258));
+	}
+
+	/**
+	 * Verifies that the length field is read in little endian byte order.
+	 */
+	@Test
+	public void decode_4BytesLittleEndian() throws Exception {
+		LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(4, LITTLE_ENDIAN, 300);
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 258);
+		buffer.put(0, (byte) 0x02).put(1, (byte) 0x01);
+
+		assertThat(decoder.decode(buffer).remaining(), is(258));
+	}
+
+	/**
+	 * Verifies that <code>null</code> is returned, as long as the frame is incomplete.
+	 */
+	@Test
+	public void decode_incomplete() throws Exception {
+		LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(2, BIG_ENDIAN, 10);
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 0, 2, 7, 8 });
+
+		buffer.limit(1);
+		assertThat(decoder.decode(buffer), is(nullValue()));
+		buffer.limit(3);
+		assertThat(decoder.decode(buffer), is(nullValue()));
+		assertThat(buffer.position(), is(0));
+		buffer.limit(4);
+		assertThat(toArray(decoder.decode(buffer)), is(new byte[] { 7, 8 }));
+	}
+
+	/**
+	 * Verifies that a {@link CorruptFrameException} is thrown, when the length exceeds the
+	 * maximum frame length.
+	 */
+	@Test
+	public void decode_tooLong() throws Exception {
+		LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(4, BIG_ENDIAN, 10);
+
+		exception.expect(CorruptFrameException.class);
+		exception.expectMessage("The frame exceeds the maximum length of 10 bytes! Got: 4294967295");
+
+		decoder.decode(ByteBuffer.wrap(new byte[] { -1, -1, -1, -1 }));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Returns the remaining bytes of the given buffer. */
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.xidobi.codec.SlipFrameDecoder.END;
+import static org.xidobi.codec.SlipFrameDecoder.ESC;
+import static org.xidobi.codec.SlipFrameDecoder.ESC_END;
+import static org.xidobi.codec.SlipFrameDecoder.ESC_ESC;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the class {@link SlipFrameDecoder}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSlipFrameDecoder {
+
+	/** the class under test */
+	private SlipFrameDecoder decoder;
+
+	@Before
+	public void setUp() {
+		decoder = new SlipFrameDecoder(4);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum frame length
+	 * is 0.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withMaxFrameLength0() {
+		new SlipFrameDecoder(0);
+	}
+
+	/**
+	 * Verifies that a frame is decoded and the position is advanced behind <code>END</code>.
+	 */
+	@Test
+	public void decode() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, 2, END, 3 });
+
+		ByteBuffer frame = decoder.decode(buffer);
+
+		assertThat(toArray(frame), is(new byte[] { 1, 2 }));
+		assertThat(buffer.position(), is(3));
+		assertThat(decoder.decode(buffer), is(nullValue()));
+	}
+
+	/**
+	 * Verifies that the escape sequences are replaced, also if they are split between two chunks.
+	 */
+	@Test
+	public void decode_escaped() throws Exception {
+		List<byte[]> frames = decodeBytewise(new byte[] { ESC, ESC_END, 1, ESC, ESC_ESC, END });
+
+		assertThat(frames.size(), is(1));
+		assertThat(frames.get(0), is(new byte[] { END, 1, ESC }));
+	}
+
+	/**
+	 * Verifies that an invalid escape sequence leaves the byte in the frame.
+	 */
+	@Test
+	public void decode_invalidEscape() throws Exception {
+		ByteBuffer frame = decoder.decode(ByteBuffer.wrap(new byte[] { ESC, 5, END }));
+
+		assertThat(toArray(frame), is(new byte[] { 5 }));
+	}
+
+	/**
+	 * Verifies that empty frames are skipped.
+	 */
+	@Test
+	public void decode_emptyFrames() throws Exception {
+		List<byte[]> frames = decodeBytewise(new byte[] { END, END, 1, END, END });
+
+		assertThat(frames.size(), is(1));
+		assertThat(frames.get(0), is(new byte[] { 1 }));
+	}
+
+	/**
+	 * Verifies that a frame, that exceeds the maximum length, is discarded up to the next
+	 * <code>END</code>.
+	 */
+	@Test
+	public void decode_tooLong() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, END, 7, END });
+
+		try {
+			decoder.decode(buffer);
+			fail("Expected a CorruptFrameException!");
+		}
+		catch (CorruptFrameException expected) {}
+
+		assertThat(toArray(decoder.decode(buffer)), is(new byte[] { 7 }));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Decodes the given bytes, that are received one by one. */
+	private List<byte[]> decodeBytewise(byte[] bytes) throws CorruptFrameException {
+		List<byte[]> frames = new ArrayList<byte[]>();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		for (int limit = 0; limit <= bytes.length; limit++) {
+			buffer.limit(limit);
+			ByteBuffer frame;
+			while ((frame = decoder.decode(buffer)) != null)
+				frames.add(toArray(frame));
+		}
+		return frames;
+	}
+
+	/** Returns the remaining bytes of the given buffer. */
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.lang.System.nanoTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xidobi.SerialConnection;
+import org.xidobi.spi.SimulatedDevice;
+
+/**
+ * An in-process Modbus RTU slave, that answers the requests written to its connection. It
+ * supports the functions of {@link ModbusRequest} on 100 coils and 100 registers, the discrete
+ * inputs are the coils and the input registers are the holding registers.
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class SimulatedSlave extends SimulatedDevice {
+
+	/** the number of coils and registers */
+	public static final int SIZE = 100;
+
+	/** the address of this slave */
+	private final int slaveId;
+
+	/** the values of the coils and discrete inputs */
+	public final boolean[] coils = new boolean[SIZE];
+	/** the values of the holding and input registers */
+	public final int[] registers = new int[SIZE];
+
+	/** the times in nanoseconds, when the requests were received */
+	public final List<Long> requestTimes = new ArrayList<Long>();
+
+	/** the number of bytes of each read, simulates a fragmented response */
+	public volatile int chunkSize = Integer.MAX_VALUE;
+	/** <code>true</code>, if this slave doesn't respond */
+	public volatile boolean silent;
+	/** <code>true</code>, if the CRC of the responses is corrupted */
+	public volatile boolean corruptCrc;
+
+	public SimulatedSlave(int slaveId) {
+		this.slaveId = slaveId;
+	}
+
+	/** Returns the connection to the bus of this slave. */
+	public SerialConnection newConnection() {
+		return getConnection();
+	}
+
+	/** Processes the received request and sends the response in chunks of {@link #chunkSize}. */
+	@Override
+	protected synchronized void received(byte[] frame) {
+		requestTimes.add(nanoTime());
+		if (frame.length < 4 || Crc16.compute(frame, 0, frame.length - 2) != crcOf(frame, frame.length))
+			return;
+		int slave = frame[0] & 0xFF;
+		if (slave != slaveId && slave != ModbusRequest.BROADCAST)
+			return;
+
+		byte[] response = process(frame);
+		if (slave == ModbusRequest.BROADCAST || silent)
+			return;
+
+		int crc = Crc16.compute(response, 0, response.length - 2);
+		if (corruptCrc)
+			crc ^= 1;
+		response[response.length - 2] = (byte) crc;
+		response[response.length - 1] = (byte) (crc >>> 8);
+
+		for (int offset = 0; offset < response.length; offset += chunkSize) {
+			byte[] chunk = new byte[min(chunkSize, response.length - offset)];
+			arraycopy(response, offset, chunk, 0, chunk.length);
+			send(chunk);
+		}
+	}
+
+	/** Processes the request and returns the response, with space for the CRC. */
+	private byte[] process(byte[] request) {
+		int functionCode = request[1] & 0xFF;
+		int address = register(request, 2);
+		int value = register(request, 4);
+
+		switch (functionCode) {
+			case ModbusRequest.READ_COILS:
+			case ModbusRequest.READ_DISCRETE_INPUTS: {
+				if (address + value > SIZE)
+					return exception(request, ModbusException.ILLEGAL_DATA_ADDRESS);
+				byte[] response = header(request, 3 + (value + 7) / 8 + 2);
+				response[2] = (byte) ((value + 7) / 8);
+				for (int i = 0; i < value; i++)
+					if (coils[address + i])
+						response[3 + i / 8] |= 1 << (i % 8);
+				return response;
+			}
+			case ModbusRequest.READ_HOLDING_REGISTERS:
+			case ModbusRequest.READ_INPUT_REGISTERS: {
+				if (address + value > SIZE)
+					return exception(request, ModbusException.ILLEGAL_DATA_ADDRESS);
+				byte[] response = header(request, 3 + 2 * value + 2);
+				response[2] = (byte) (2 * value);
+				for (int i = 0; i < value; i++) {
+					response[3 + 2 * i] = (byte) (registers[address + i] >>> 8);
+					response[4 + 2 * i] = (byte) registers[address + i];
+				}
+				return response;
+			}
+			case ModbusRequest.WRITE_SINGLE_COIL:
+				if (address >= SIZE)
+					return exception(request, ModbusException.ILLEGAL_DATA_ADDRESS);
+				coils[address] = value == 0xFF00;
+				return echo(request);
+			case ModbusRequest.WRITE_SINGLE_REGISTER:
+				if (address >= SIZE)
+					return exception(request, ModbusException.ILLEGAL_DATA_ADDRESS);
+				registers[address] = value;
+				return echo(request);
+			case ModbusRequest.WRITE_MULTIPLE_COILS:
+				if (address + value > SIZE)
+					return exception(request, ModbusException.ILLEGAL_DATA_ADDRESS);
+				for (int i = 0; i < value; i++)
+					coils[address + i] = (request[7 + i / 8] & 1 << (i % 8)) != 0;
+				return echo(request);
+			case ModbusRequest.WRITE_MULTIPLE_REGISTERS:
+				if (address + value > SIZE)
+					return exception(request, ModbusException.ILLEGAL_DATA_ADDRESS);
+				for (int i = 0; i < value; i++)
+					registers[address + i] = register(request, 7 + 2 * i);
+				return echo(request);
+			default:
+				return exception(request, ModbusException.ILLEGAL_FUNCTION);
+		}
+	}
+
+	/** Returns a response with the address and function code of the request. */
+	private static byte[] header(byte[] request, int length) {
+		byte[] response = new byte[length];
+		response[0] = request[0];
+		response[1] = request[1];
+		return response;
+	}
+
+	/** Returns a response, that echoes the address and value of a write request. */
+	private static byte[] echo(byte[] request) {
+		byte[] response = header(request, 8);
+		arraycopy(request, 2, response, 2, 4);
+		return response;
+	}
+
+	/** Returns an exception response. */
+	private static byte[] exception(byte[] request, int exceptionCode) {
+		byte[] response = header(request, 5);
+		response[1] |= 0x80;
+		response[2] = (byte) exceptionCode;
+		return response;
+	}
+
+	/** Returns the unsigned 16-bit value at the given offset. */
+	private static int register(byte[] frame, int offset) {
+		return (frame[offset] & 0xFF) << 8 | frame[offset + 1] & 0xFF;
+	}
+
+	/** Returns the CRC at the end of the given frame. */
+	private static int crcOf(byte[] frame, int length) {
+		return frame[length - 2] & 0xFF | (frame[length - 1] & 0xFF) << 8;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests the class {@link Crc16}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestCrc16 {
+
+	/**
+	 * Verifies the CRC of a request to read 10 holding registers of slave 1, that is transmitted
+	 * as <code>C5 CD</code>.
+	 */
+	@Test
+	public void compute() {
+		byte[] frame = { 0x01, 0x03, 0x00, 0x00, 0x00, 0x0A };
+
+		assertThat(Crc16.compute(frame, 0, frame.length), is(0xCDC5));
+	}
+
+	/**
+	 * Verifies that only the given range is used.
+	 */
+	@Test
+	public void compute_withOffset() {
+		byte[] frame = { 0x55, 0x01, 0x03, 0x00, 0x00, 0x00, 0x0A, 0x55 };
+
+		assertThat(Crc16.compute(frame, 1, 6), is(0xCDC5));
+	}
+
+	/**
+	 * Verifies that the CRC of no bytes is the initial value.
+	 */
+	@Test
+	public void compute_empty() {
+		assertThat(Crc16.compute(new byte[0], 0, 0), is(0xFFFF));
+	}
+
+	/**
+	 * Verifies the CRC of the standard check input <code>"123456789"</code>.
+	 */
+	@Test
+	public void compute_checkValue() {
+		byte[] data = "123456789".getBytes();
+
+		assertThat(Crc16.compute(data, 0, data.length), is(0x4B37));
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests the class {@link ModbusRequest}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestModbusRequest {
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/**
+	 * Verifies the frame of a request to read holding registers.
+	 */
+	@Test
+	public void readHoldingRegisters() {
+		ModbusRequest request = ModbusRequest.readHoldingRegisters(1, 0, 10);
+
+		assertThat(request.getFrame(), is(bytes(0x01, 0x03, 0x00, 0x00, 0x00, 0x0A, 0xC5, 0xCD)));
+		assertThat(request.getResponseLength(), is(25));
+		assertThat(request.isBroadcast(), is(false));
+	}
+
+	/**
+	 * Verifies the expected response length of a request to read coils.
+	 */
+	@Test
+	public void readCoils() {
+		ModbusRequest request = ModbusRequest.readCoils(17, 19, 37);
+
+		assertThat(request.getFunctionCode(), is(ModbusRequest.READ_COILS));
+		assertThat(request.getSlaveId(), is(17));
+		assertThat(request.getAddress(), is(19));
+		assertThat(request.getQuantity(), is(37));
+		assertThat(request.getResponseLength(), is(5 + 5));
+	}
+
+	/**
+	 * Verifies the frame of a request to write a single coil.
+	 */
+	@Test
+	public void writeSingleCoil() {
+		ModbusRequest request = ModbusRequest.writeSingleCoil(1, 0xAC, true);
+
+		assertThat(request.getFrame(), is(bytes(0x01, 0x05, 0x00, 0xAC, 0xFF, 0x00, 0x4C, 0x1B)));
+		assertThat(request.getResponseLength(), is(8));
+	}
+
+	/**
+	 * Verifies the payload of a request to write multiple coils.
+	 */
+	@Test
+	public void writeMultipleCoils() {
+		boolean[] values = { true, false, true, true, false, false, true, true, true, false };
+
+		byte[] frame = ModbusRequest.writeMultipleCoils(1, 19, values).getFrame();
+
+		assertThat(frame.length, is(11));
+		assertThat(frame[5], is((byte) 10));
+		assertThat(frame[6], is((byte) 2));
+		assertThat(frame[7], is((byte) 0xCD));
+		assertThat(frame[8], is((byte) 0x01));
+	}
+
+	/**
+	 * Verifies the payload of a request to write multiple registers.
+	 */
+	@Test
+	public void writeMultipleRegisters() {
+		byte[] frame = ModbusRequest.writeMultipleRegisters(1, 1, new int[] { 0x000A, 0x0102 }).getFrame();
+
+		assertThat(frame.length, is(13));
+		assertThat(frame[6], is((byte) 4));
+		assertThat(frame[7], is((byte) 0x00));
+		assertThat(frame[8], is((byte) 0x0A));
+		assertThat(frame[9], is((byte) 0x01));
+		assertThat(frame[10], is((byte) 0x02));
+	}
+
+	/**
+	 * Verifies that a write request can be broadcasted.
+	 */
+	@Test
+	public void writeSingleRegister_broadcast() {
+		ModbusRequest request = ModbusRequest.writeSingleRegister(ModbusRequest.BROADCAST, 1, 3);
+
+		assertThat(request.isBroadcast(), is(true));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when a read request is
+	 * broadcasted.
+	 */
+	@Test
+	public void readHoldingRegisters_broadcast() {
+		exception.expect(IllegalArgumentException.class);
+
+		ModbusRequest.readHoldingRegisters(ModbusRequest.BROADCAST, 0, 1);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when too many registers are
+	 * requested.
+	 */
+	@Test
+	public void readHoldingRegisters_tooManyRegisters() {
+		exception.expect(IllegalArgumentException.class);
+
+		ModbusRequest.readHoldingRegisters(1, 0, ModbusRequest.MAX_READ_REGISTERS + 1);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the registers exceed the
+	 * address space.
+	 */
+	@Test
+	public void readInputRegisters_beyondAddressSpace() {
+		exception.expect(IllegalArgumentException.class);
+
+		ModbusRequest.readInputRegisters(1, 0xFFFF, 2);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the slave address is
+	 * greater than 247.
+	 */
+	@Test
+	public void writeSingleRegister_invalidSlaveId() {
+		exception.expect(IllegalArgumentException.class);
+
+		ModbusRequest.writeSingleRegister(248, 0, 1);
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Returns the given values as bytes. */
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++)
+			bytes[i] = (byte) values[i];
+		return bytes;
+	}
+}
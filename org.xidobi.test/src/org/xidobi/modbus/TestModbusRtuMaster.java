@@ -0,0 +1,301 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.xidobi.SerialPortSettings.from9600bauds8N1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.xidobi.codec.CorruptFrameException;
+
+/**
+ * Tests the class {@link ModbusRtuMaster} against a {@link SimulatedSlave}.
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestModbusRtuMaster {
+
+	/** the address of the simulated slave */
+	private static final int SLAVE_ID = 7;
+
+	/** the response timeout in milliseconds used in the tests */
+	private static final long RESPONSE_TIMEOUT = 100;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/** the timing of 115200 bauds */
+	private final RtuTiming timing = new RtuTiming(from9600bauds8N1().bauds(115200).create());
+
+	private SimulatedSlave slave;
+
+	/** the class under test */
+	private ModbusRtuMaster master;
+
+	@Before
+	public void setUp() {
+		slave = new SimulatedSlave(SLAVE_ID);
+		master = new ModbusRtuMaster(slave.newConnection(), timing, RESPONSE_TIMEOUT);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		master.close();
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the connection is
+	 * <code>null</code>.
+	 */
+	@Test
+	@SuppressWarnings({ "unused", "resource" })
+	public void new_withNullConnection() {
+		exception.expect(IllegalArgumentException.class);
+
+		new ModbusRtuMaster(null, timing, RESPONSE_TIMEOUT);
+	}
+
+	/**
+	 * Verifies that the registers of the slave are read.
+	 */
+	@Test
+	public void readHoldingRegisters() throws Exception {
+		slave.registers[10] = 0x1234;
+		slave.registers[11] = 0xFFFF;
+
+		int[] result = master.readHoldingRegisters(SLAVE_ID, 10, 3);
+
+		assertThat(result, is(new int[] { 0x1234, 0xFFFF, 0 }));
+		assertThat(master.getTransactionCount(), is(1L));
+	}
+
+	/**
+	 * Verifies that the input registers of the slave are read.
+	 */
+	@Test
+	public void readInputRegisters() throws Exception {
+		slave.registers[0] = 42;
+
+		assertThat(master.readInputRegisters(SLAVE_ID, 0, 1), is(new int[] { 42 }));
+	}
+
+	/**
+	 * Verifies that the coils of the slave are read.
+	 */
+	@Test
+	public void readCoils() throws Exception {
+		slave.coils[3] = true;
+		slave.coils[11] = true;
+
+		boolean[] result = master.readCoils(SLAVE_ID, 2, 10);
+
+		assertThat(result, is(new boolean[] { false, true, false, false, false, false, false, false, false, true }));
+	}
+
+	/**
+	 * Verifies that the discrete inputs of the slave are read.
+	 */
+	@Test
+	public void readDiscreteInputs() throws Exception {
+		slave.coils[0] = true;
+
+		assertThat(master.readDiscreteInputs(SLAVE_ID, 0, 2), is(new boolean[] { true, false }));
+	}
+
+	/**
+	 * Verifies that the registers and coils of the slave are written.
+	 */
+	@Test
+	public void write() throws Exception {
+		master.writeSingleRegister(SLAVE_ID, 1, 0xABCD);
+		master.writeMultipleRegisters(SLAVE_ID, 5, new int[] { 1, 2, 3 });
+		master.writeSingleCoil(SLAVE_ID, 4, true);
+		master.writeMultipleCoils(SLAVE_ID, 20, new boolean[] { true, false, true });
+
+		assertThat(slave.registers[1], is(0xABCD));
+		assertThat(slave.registers[7], is(3));
+		assertThat(slave.coils[4], is(true));
+		assertThat(slave.coils[20], is(true));
+		assertThat(slave.coils[21], is(false));
+		assertThat(slave.coils[22], is(true));
+	}
+
+	/**
+	 * Verifies that a response is assembled, that is received in single bytes.
+	 */
+	@Test
+	public void readHoldingRegisters_fragmentedResponse() throws Exception {
+		slave.chunkSize = 1;
+		slave.registers[0] = 0x0102;
+
+		assertThat(master.readHoldingRegisters(SLAVE_ID, 0, 2), is(new int[] { 0x0102, 0 }));
+	}
+
+	/**
+	 * Verifies that a {@link ModbusException} is thrown, when the slave responds with an
+	 * exception.
+	 */
+	@Test
+	public void readHoldingRegisters_exceptionResponse() throws Exception {
+		try {
+			master.readHoldingRegisters(SLAVE_ID, SimulatedSlave.SIZE, 1);
+			fail("ModbusException expected");
+		}
+		catch (ModbusException e) {
+			assertThat(e.getSlaveId(), is(SLAVE_ID));
+			assertThat(e.getFunctionCode(), is(ModbusRequest.READ_HOLDING_REGISTERS));
+			assertThat(e.getExceptionCode(), is(ModbusException.ILLEGAL_DATA_ADDRESS));
+		}
+	}
+
+	/**
+	 * Verifies that a {@link ModbusTimeoutException} is thrown, when the slave doesn't respond, and
+	 * that the next transaction succeeds.
+	 */
+	@Test
+	public void readHoldingRegisters_timeout() throws Exception {
+		slave.silent = true;
+		try {
+			master.readHoldingRegisters(SLAVE_ID, 0, 1);
+			fail("ModbusTimeoutException expected");
+		}
+		catch (ModbusTimeoutException e) {
+			assertThat(master.getTimeoutCount(), is(1L));
+		}
+
+		slave.silent = false;
+		slave.registers[0] = 5;
+		assertThat(master.readHoldingRegisters(SLAVE_ID, 0, 1), is(new int[] { 5 }));
+	}
+
+	/**
+	 * Verifies that a {@link ModbusTimeoutException} is thrown, when another slave is addressed,
+	 * that doesn't exist.
+	 */
+	@Test
+	public void readHoldingRegisters_unknownSlave() throws Exception {
+		exception.expect(ModbusTimeoutException.class);
+
+		master.readHoldingRegisters(SLAVE_ID + 1, 0, 1);
+	}
+
+	/**
+	 * Verifies that a {@link CorruptFrameException} is thrown, when the CRC of the response is
+	 * invalid.
+	 */
+	@Test
+	public void readHoldingRegisters_invalidCrc() throws Exception {
+		slave.corruptCrc = true;
+		try {
+			master.readHoldingRegisters(SLAVE_ID, 0, 1);
+			fail("CorruptFrameException expected");
+		}
+		catch (CorruptFrameException e) {
+			assertThat(master.getCorruptFrameCount(), is(1L));
+		}
+	}
+
+	/**
+	 * Verifies that a broadcast is not answered and completes without a response frame.
+	 */
+	@Test
+	public void broadcast() throws Exception {
+		ModbusResponse response = master.execute(ModbusRequest.writeSingleRegister(ModbusRequest.BROADCAST, 2, 9));
+
+		assertThat(response.getFrame(), is(nullValue()));
+		assertThat(slave.registers[2], is(9));
+	}
+
+	/**
+	 * Verifies that the requests of several threads are performed in order and that the bus is
+	 * silent for 3.5 character times between a response and the next request.
+	 */
+	@Test
+	public void submit_queuedRequests() throws Exception {
+		final int count = 50;
+		List<Future<ModbusResponse>> futures = new ArrayList<Future<ModbusResponse>>();
+		for (int i = 0; i < count; i++)
+			futures.add(master.submit(ModbusRequest.writeSingleRegister(SLAVE_ID, i, i + 1)));
+
+		for (int i = 0; i < count; i++)
+			assertThat(futures.get(i).get().getRequest().getAddress(), is(i));
+
+		assertThat(master.getTransactionCount(), is((long) count));
+		assertThat(slave.registers[count - 1], is(count));
+		for (int i = 1; i < count; i++) {
+			long gap = slave.requestTimes.get(i) - slave.requestTimes.get(i - 1);
+			assertThat(gap, is(greaterThanOrEqualTo(timing.getInterFrameNanos())));
+		}
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a request is submitted to a closed
+	 * master.
+	 */
+	@Test
+	public void submit_whenClosed() throws Exception {
+		master.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("The Modbus master was closed!");
+
+		master.submit(ModbusRequest.readHoldingRegisters(SLAVE_ID, 0, 1));
+	}
+
+	/**
+	 * Verifies that the queued transactions fail, when the master is closed.
+	 */
+	@Test
+	public void close_failsQueuedTransactions() throws Exception {
+		slave.silent = true;
+		Future<ModbusResponse> pending = master.submit(ModbusRequest.readHoldingRegisters(SLAVE_ID, 0, 1));
+		Future<ModbusResponse> queued = master.submit(ModbusRequest.readHoldingRegisters(SLAVE_ID, 0, 1));
+
+		master.close();
+
+		assertFailed(pending);
+		assertFailed(queued);
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Verifies that the given transaction failed with an {@link IOException}. */
+	private static void assertFailed(Future<ModbusResponse> future) throws InterruptedException {
+		try {
+			future.get();
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause() instanceof IOException, is(true));
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.xidobi.DataBits.DATABITS_7;
+import static org.xidobi.Parity.PARITY_EVEN;
+import static org.xidobi.StopBits.STOPBITS_1_5;
+import static org.xidobi.SerialPortSettings.from9600bauds8N1;
+
+import org.junit.Test;
+
+/**
+ * Tests the class {@link RtuTiming}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestRtuTiming {
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the settings are
+	 * <code>null</code>.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	@SuppressWarnings("unused")
+	public void new_withNullSettings() {
+		new RtuTiming(null);
+	}
+
+	/**
+	 * Verifies the timing of 9600 bauds with 8 data bits, no parity and 1 stop bit, that are 10
+	 * bits per character.
+	 */
+	@Test
+	public void at9600bauds8N1() {
+		RtuTiming timing = new RtuTiming(from9600bauds8N1().create());
+
+		assertThat(timing.getCharacterNanos(), is(1041666L));
+		assertThat(timing.getInterFrameNanos(), is(1041666L * 7 / 2));
+		assertThat(timing.getInterCharacterNanos(), is(1041666L * 3 / 2));
+		assertThat(timing.getTransmissionNanos(8), is(8 * 1041666L));
+	}
+
+	/**
+	 * Verifies that the parity bit and 1.5 stop bits are counted, 7E1.5 are 10.5 bits per
+	 * character.
+	 */
+	@Test
+	public void withParityAndOneAndAHalfStopBits() {
+		RtuTiming timing = new RtuTiming(from9600bauds8N1().set(DATABITS_7).set(PARITY_EVEN).set(STOPBITS_1_5).create());
+
+		assertThat(timing.getCharacterNanos(), is(1093750L));
+	}
+
+	/**
+	 * Verifies that the fixed timing is used above 19200 bauds.
+	 */
+	@Test
+	public void above19200bauds() {
+		RtuTiming timing = new RtuTiming(from9600bauds8N1().bauds(115200).create());
+
+		assertThat(timing.getCharacterNanos(), is(86805L));
+		assertThat(timing.getInterFrameNanos(), is(RtuTiming.FIXED_INTER_FRAME_NANOS));
+		assertThat(timing.getInterCharacterNanos(), is(RtuTiming.FIXED_INTER_CHARACTER_NANOS));
+	}
+
+	/**
+	 * Verifies that the timing is derived from the character time at 19200 bauds.
+	 */
+	@Test
+	public void at19200bauds() {
+		RtuTiming timing = new RtuTiming(from9600bauds8N1().bauds(19200).create());
+
+		assertThat(timing.getInterFrameNanos(), is(520833L * 7 / 2));
+	}
+}
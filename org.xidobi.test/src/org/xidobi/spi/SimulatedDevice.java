@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.xidobi.SerialConnection;
+import org.xidobi.SerialPort;
+
+/**
+ * A device behind a {@link BasicSerialConnection}, that is controlled by the test. The data, that
+ * is {@link #send(String) sent} by the device, is returned by the reads of the connection. The
+ * data, that is written to the connection, is {@link #received(byte[]) received} by the device
+ * and can be {@link #awaitWritten() awaited} by the test. After the device {@link #fail(String)
+ * failed} or the connection was closed, all reads and writes throw an {@link IOException}.
+ * <p>
+ * Subclasses can simulate a device, that answers the written data, by overriding
+ * {@link #received(byte[])}.
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class SimulatedDevice implements Reader, Writer {
+
+	/** the time in milliseconds, {@link #awaitWritten()} waits for the written data */
+	public static final long TIMEOUT = 5000;
+
+	/** marks the failure of the device in the sent data */
+	private static final byte[] FAILED = new byte[0];
+
+	/** the serial port of the connection */
+	private final SerialPort port;
+
+	/** the connection to this device */
+	private final SerialConnection connection;
+
+	/** the data, that is sent by the device and not read yet */
+	private final BlockingQueue<byte[]> sent = new LinkedBlockingQueue<byte[]>();
+	/** the rest of the sent data, that didn't fit into the buffer of the last read */
+	private ByteBuffer pending = ByteBuffer.allocate(0);
+
+	/** the data, that was written to the device */
+	private final BlockingQueue<String> written = new LinkedBlockingQueue<String>();
+
+	/** the message of the failure, <code>null</code> if the device didn't fail */
+	private volatile String failure;
+
+	/** Creates a device behind a port named <code>SIMULATED</code>. */
+	public SimulatedDevice() {
+		this(newPort("SIMULATED"));
+	}
+
+	public SimulatedDevice(SerialPort port) {
+		this.port = port;
+		connection = new BasicSerialConnection(port, this, this) {};
+	}
+
+	/** Returns a mocked port with the given name. */
+	private static SerialPort newPort(String portName) {
+		SerialPort port = mock(SerialPort.class);
+		when(port.getPortName()).thenReturn(portName);
+		return port;
+	}
+
+	/** Returns the connection to this device. */
+	public SerialConnection getConnection() {
+		return connection;
+	}
+
+	/** Sends the given data, it is returned by the next reads of the connection. */
+	public void send(byte[] data) {
+		sent.add(data);
+	}
+
+	/** Sends the given US-ASCII string. */
+	public void send(String data) {
+		send(bytes(data));
+	}
+
+	/**
+	 * Lets all following reads and writes fail with an {@link IOException} with the given message.
+	 * The data, that was sent before, is read first.
+	 */
+	public void fail(String message) {
+		if (failure != null)
+			return;
+		failure = message;
+		sent.add(FAILED);
+	}
+
+	/** Returns <code>true</code>, if the device failed or the connection was closed. */
+	public boolean isFailed() {
+		return failure != null;
+	}
+
+	/**
+	 * Waits until data was written to the device and returns it as US-ASCII string, fails if no
+	 * data was written within {@link #TIMEOUT} milliseconds.
+	 */
+	public String awaitWritten() throws InterruptedException {
+		String data = pollWritten(TIMEOUT);
+		if (data == null)
+			org.junit.Assert.fail("Written data expected");
+		return data;
+	}
+
+	/**
+	 * Waits the given time for data, that was written to the device, and returns it as US-ASCII
+	 * string, or <code>null</code> if no data was written.
+	 */
+	public String pollWritten(long timeoutMillis) throws InterruptedException {
+		return written.poll(timeoutMillis, MILLISECONDS);
+	}
+
+	/**
+	 * Is called with the data of every write. The default implementation stores the data, so it
+	 * can be {@link #awaitWritten() awaited}.
+	 */
+	protected void received(byte[] data) throws IOException {
+		written.add(string(data));
+	}
+
+	public void write(byte[] data) throws IOException {
+		checkNotFailed();
+		received(data.clone());
+	}
+
+	public void write(ByteBuffer data) throws IOException {
+		byte[] bytes = new byte[data.remaining()];
+		data.get(bytes);
+		write(bytes);
+	}
+
+	/** Writes the gathered data as a single write. */
+	public void write(ByteBuffer[] data) throws IOException {
+		int length = 0;
+		for (ByteBuffer buffer : data)
+			length += buffer.remaining();
+		ByteBuffer bytes = ByteBuffer.allocate(length);
+		for (ByteBuffer buffer : data)
+			bytes.put(buffer);
+		write(bytes.array());
+	}
+
+	public byte[] read() throws IOException {
+		if (!pending.hasRemaining())
+			return takeSent();
+		byte[] data = new byte[pending.remaining()];
+		pending.get(data);
+		return data;
+	}
+
+	public int read(ByteBuffer dst) throws IOException {
+		if (!dst.hasRemaining())
+			return 0;
+		if (!pending.hasRemaining())
+			pending = ByteBuffer.wrap(takeSent());
+		int length = min(pending.remaining(), dst.remaining());
+		for (int i = 0; i < length; i++)
+			dst.put(pending.get());
+		return length;
+	}
+
+	/** Waits for the next sent data and returns it, throws an {@link IOException} on failure. */
+	private byte[] takeSent() throws IOException {
+		byte[] data;
+		try {
+			data = sent.take();
+		}
+		catch (InterruptedException e) {
+			throw new IOException("Interrupted!");
+		}
+		if (data == FAILED) {
+			// the following reads must fail too
+			sent.add(FAILED);
+			throw new IOException(failure);
+		}
+		return data;
+	}
+
+	public int available() {
+		return pending.remaining();
+	}
+
+	/** Lets the blocked and all following reads fail. */
+	public void close() {
+		fail("Port " + port.getPortName() + " was closed!");
+	}
+
+	public void dispose() {}
+
+	/** Throws an {@link IOException}, if the device failed. */
+	private void checkNotFailed() throws IOException {
+		String message = failure;
+		if (message != null)
+			throw new IOException(message);
+	}
+
+	/** Returns the US-ASCII bytes of the given string. */
+	public static byte[] bytes(String s) {
+		try {
+			return s.getBytes("US-ASCII");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/** Returns the given US-ASCII bytes as string. */
+	public static String string(byte[] data) {
+		try {
+			return new String(data, "US-ASCII");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
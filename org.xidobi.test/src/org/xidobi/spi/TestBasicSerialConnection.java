@@ -1,440 +1,831 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi.spi;
-
-import static junit.framework.Assert.fail;
-import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.notNullValue;
-import static org.junit.Assert.assertThat;
-import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.initMocks;
-
-import java.io.IOException;
-
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
-import org.junit.rules.ExpectedException;
-import org.mockito.Mock;
-import org.xidobi.SerialConnection;
-import org.xidobi.SerialPort;
-
-/**
- * Tests the class {@link BasicSerialConnection}
- * 
- * @author Christian Schwarz
- */
-@SuppressWarnings("javadoc")
-public class TestBasicSerialConnection {
-
-	/** constant for better readability */
-	private static final IOException IO_EXCEPTION = new IOException();
-	private static final NativeCodeException NATIVE_CODE_EXCEPTION = new NativeCodeException("exception");
-
-	private static final byte[] BYTES = {};
-
-	/** the class under test */
-	private BasicSerialConnection port;
-
-	@Mock
-	private BasicSerialConnection portInternal;
-
-	@Mock
-	private SerialPort portHandle;
-
-	@Mock
-	private Reader reader;
-
-	@Mock
-	private Writer writer;
-
-	/** needed to verify exceptions */
-	@Rule
-	public ExpectedException exception = ExpectedException.none();
-
-	@Before
-	public void setUp() {
-		initMocks(this);
-
-		when(portHandle.getPortName()).thenReturn("COM1");
-
-		port = new _BasicSerialConnection(portHandle, reader, writer);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown when <code>null</code> is passed
-	 * to the constructor.
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_nullPortPortHandle() throws Exception {
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >port< must not be null!");
-
-		new BasicSerialConnection(null, reader, writer);
-	}
-
-	/**
-	 * Verifies that {@link BasicSerialConnection#getPort()} returns the {@link SerialPort} that was
-	 * passed to the constructor.
-	 */
-	@Test
-	public void getPort() {
-		SerialPort result = port.getPort();
-		assertThat(result, is(portHandle));
-	}
-
-	/**
-	 * Verifies that the read and write operation are closed and disposed, when the connection is
-	 * closed.
-	 * 
-	 * @throws IOException
-	 */
-
-	@Test
-	public void close() throws IOException {
-
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that only the first call to {@link SerialConnection#close()} will close and dispose
-	 * the I/O operations read and write.
-	 */
-	@Test
-	public void close_2x() throws Exception {
-		port.close();
-
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that all I/O operations will be closed and disposed, when a {@link IOException} is
-	 * thrown during close of the reader operation.
-	 */
-	@Test
-	public void close_closeOfReaderThrowsIOException() throws Exception {
-		exception.expect(is(IO_EXCEPTION));
-
-		doThrow(IO_EXCEPTION).when(reader).close();
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that all I/O operations will be closed and disposed, when a
-	 * {@link NativeCodeException} is thrown during dispose of the reader operation.
-	 */
-	@Test
-	public void close_disposeOfReaderThrowsNativeCodeException() throws Exception {
-		exception.expect(is(NATIVE_CODE_EXCEPTION));
-
-		doThrow(NATIVE_CODE_EXCEPTION).when(reader).dispose();
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that all I/O operations will be closed and disposed, when a {@link IOException} is
-	 * thrown during close of the writer operation.
-	 */
-	@Test
-	public void close_closeOfWriterThrowsIOException() throws Exception {
-		exception.expect(is(IO_EXCEPTION));
-
-		doThrow(IO_EXCEPTION).when(writer).close();
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that all I/O operations will be closed and disposed, when a
-	 * {@link NativeCodeException} is thrown during dispose of the writer operation.
-	 */
-	@Test
-	public void close_disposeOfWriterThrowsNativeCodeException() throws Exception {
-		exception.expect(is(NATIVE_CODE_EXCEPTION));
-
-		doThrow(NATIVE_CODE_EXCEPTION).when(writer).dispose();
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that all I/O operations will be closed and disposed, when
-	 * <code>#closeInternal()</code> throws a {@link NativeCodeException}.
-	 */
-	@Test
-	public void close_closeInternalThrowsNativeCodeException() throws Exception {
-		exception.expect(is(NATIVE_CODE_EXCEPTION));
-
-		doThrow(NATIVE_CODE_EXCEPTION).when(portInternal).closeInternal();
-		port.close();
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that {@link AbstractSerialConnection#isClosed()} returns <code>false</code>, when
-	 * the port is not closed.
-	 */
-	@Test
-	public void isClosed_whenOpen() {
-		assertThat(port.isClosed(), is(false));
-	}
-
-	/**
-	 * Verifies that {@link AbstractSerialConnection#isClosed()} returns <code>true</code>, when the
-	 * port is closed.
-	 */
-	@Test
-	public void isClosed_whenClosed() throws Exception {
-		port.close();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown when the port is closed.
-	 */
-	@Test
-	public void write_toClosedPort() throws Exception {
-		when(portHandle.getPortName()).thenReturn("COM1");
-		port.close();
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed!");
-
-		port.write(BYTES);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown when <code>null</code> is passed.
-	 */
-	@Test
-	public void write_nullData() throws Exception {
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >data< must not be null!");
-
-		port.write(null);
-	}
-
-	/**
-	 * Verifies that {@link SerialConnection#write(byte[])} deleagtes to
-	 * {@link AbstractSerialConnection#writeInternal(byte[])} if <code>data!=null</code> and the
-	 * port is not closed.
-	 */
-	@Test
-	public void write_delegate() throws Exception {
-		port.write(BYTES);
-		verify(writer).write(BYTES);
-	}
-
-	/**
-	 * Verifies that in case of an {@link IOException} the port will be closed
-	 */
-	@Test
-	public void write_closePortOnIOException() throws Exception {
-		doThrow(IO_EXCEPTION).when(writer).write(BYTES);
-
-		try {
-			port.write(BYTES);
-			fail("expected an IOException");
-		}
-		catch (IOException ignore) {}
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that in case of an {@link NativeCodeException} the port will be closed
-	 */
-	@Test
-	public void write_closePortOnNativeCodeException() throws Exception {
-		doThrow(NATIVE_CODE_EXCEPTION).when(writer).write(BYTES);
-
-		try {
-			port.write(BYTES);
-			fail("expected an NativeCodeException");
-		}
-		catch (NativeCodeException ignore) {}
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown when the port is closed.
-	 */
-	@Test
-	public void read_portIsClosed() throws Exception {
-		when(portHandle.getPortName()).thenReturn("COM1");
-		port.close();
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed!");
-
-		port.read();
-	}
-
-	/**
-	 * Verifies that {@link SerialConnection#read()} is delegated to
-	 * {@link AbstractSerialConnection#readInternal()} if the port is not closed.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_delegate() throws IOException {
-		port.read();
-
-		verify(reader).read();
-	}
-
-	/**
-	 * Verifies that in case of an {@link IOException} the port will be closed
-	 */
-	@Test
-	public void read_closePortOnIOException() throws Exception {
-		doThrow(IO_EXCEPTION).when(reader).read();
-
-		try {
-			port.read();
-			fail("expected an IOException");
-		}
-		catch (IOException ignore) {}
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that in case of an {@link NativeCodeException} the port will be closed
-	 */
-	@Test
-	public void read_closePortOnNativeCloseException() throws Exception {
-		doThrow(NATIVE_CODE_EXCEPTION).when(reader).read();
-
-		try {
-			port.read();
-			fail("expected an NativeCodeException");
-		}
-		catch (NativeCodeException ignore) {}
-
-		verify(reader).close();
-		verify(writer).close();
-		verify(portInternal).closeInternal();
-		verify(reader).dispose();
-		verify(writer).dispose();
-		assertThat(port.isClosed(), is(true));
-	}
-
-	/**
-	 * Verifies that {@link AbstractSerialConnection#portClosedException()} returns an
-	 * {@link IOException} with a message 'Port ??? is closed!'.
-	 */
-	@Test
-	public void portClosedException() {
-		IOException result = port.portClosedException();
-
-		assertThat(result, is(notNullValue()));
-		assertThat(result.getMessage(), is("Port COM1 was closed!"));
-	}
-
-	/**
-	 * Verifies that {@link AbstractSerialConnection#portClosedException(String)} returns an
-	 * {@link IOException} with a message 'Port ??? is closed!' and an additional message.
-	 */
-	@Test
-	public void portClosedException_withMessage() {
-		IOException result = port.portClosedException("Additional message.");
-
-		assertThat(result, is(notNullValue()));
-		assertThat(result.getMessage(), is("Port COM1 was closed! Additional message."));
-	}
-
-	// Utilities for this Testclass ///////////////////////////////////////////////////////////
-
-	public class _BasicSerialConnection extends BasicSerialConnection {
-
-		public _BasicSerialConnection(	SerialPort port,
-										Reader reader,
-										Writer writer) {
-			super(port, reader, writer);
-		}
-
-		@Override
-		protected void closeInternal() throws IOException {
-			portInternal.closeInternal();
-		}
-	}
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static junit.framework.Assert.fail;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.SerialConnection;
+import org.xidobi.SerialPort;
+
+/**
+ * Tests the class {@link BasicSerialConnection}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestBasicSerialConnection {
+
+	/** constant for better readability */
+	private static final IOException IO_EXCEPTION = new IOException();
+	private static final NativeCodeException NATIVE_CODE_EXCEPTION = new NativeCodeException("exception");
+
+	private static final byte[] BYTES = {};
+	/** some data, that is written by the gathering writes */
+	private static final byte[] DATA = { 1, 2, 3 };
+
+	/** the class under test */
+	private BasicSerialConnection port;
+
+	@Mock
+	private BasicSerialConnection portInternal;
+
+	@Mock
+	private SerialPort portHandle;
+
+	@Mock
+	private Reader reader;
+
+	@Mock
+	private Writer writer;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Before
+	public void setUp() {
+		initMocks(this);
+
+		when(portHandle.getPortName()).thenReturn("COM1");
+
+		port = new _BasicSerialConnection(portHandle, reader, writer);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when <code>null</code> is passed
+	 * to the constructor.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_nullPortPortHandle() throws Exception {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >port< must not be null!");
+
+		new BasicSerialConnection(null, reader, writer);
+	}
+
+	/**
+	 * Verifies that {@link BasicSerialConnection#getPort()} returns the {@link SerialPort} that was
+	 * passed to the constructor.
+	 */
+	@Test
+	public void getPort() {
+		SerialPort result = port.getPort();
+		assertThat(result, is(portHandle));
+	}
+
+	/**
+	 * Verifies that the read and write operation are closed and disposed, when the connection is
+	 * closed.
+	 * 
+	 * @throws IOException
+	 */
+
+	@Test
+	public void close() throws IOException {
+
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that only the first call to {@link SerialConnection#close()} will close and dispose
+	 * the I/O operations read and write.
+	 */
+	@Test
+	public void close_2x() throws Exception {
+		port.close();
+
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that a concurrent call to {@link SerialConnection#close()} blocks until the first
+	 * call has closed and disposed the I/O operations, but doesn't close them again.
+	 */
+	@Test(timeout = 5000)
+	public void close_concurrently() throws Exception {
+		final CountDownLatch readerClosing = new CountDownLatch(1);
+		final CountDownLatch continueClose = new CountDownLatch(1);
+		doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				readerClosing.countDown();
+				continueClose.await();
+				return null;
+			}
+		}).when(reader).close();
+
+		Thread firstCloser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					port.close();
+				}
+				catch (IOException e) {
+					fail(e.getMessage());
+				}
+			}
+		};
+		firstCloser.start();
+		readerClosing.await();
+
+		final CountDownLatch secondClosed = new CountDownLatch(1);
+		Thread secondCloser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					port.close();
+					secondClosed.countDown();
+				}
+				catch (IOException e) {
+					fail(e.getMessage());
+				}
+			}
+		};
+		secondCloser.start();
+
+		assertThat(port.isClosed(), is(true));
+		assertThat(secondClosed.await(100, TimeUnit.MILLISECONDS), is(false));
+
+		continueClose.countDown();
+		firstCloser.join();
+		secondCloser.join();
+
+		assertThat(secondClosed.getCount(), is(0L));
+		verify(reader).close();
+		verify(writer).close();
+		verify(reader).dispose();
+		verify(writer).dispose();
+	}
+
+	/**
+	 * Verifies that a call to {@link SerialConnection#close()} by the closing thread itself
+	 * returns immediately, e.g. if the reader closes the connection while it is closed.
+	 */
+	@Test(timeout = 5000)
+	public void close_reentrant() throws Exception {
+		doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				port.close();
+				return null;
+			}
+		}).when(reader).close();
+
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that all I/O operations will be closed and disposed, when a {@link IOException} is
+	 * thrown during close of the reader operation.
+	 */
+	@Test
+	public void close_closeOfReaderThrowsIOException() throws Exception {
+		exception.expect(is(IO_EXCEPTION));
+
+		doThrow(IO_EXCEPTION).when(reader).close();
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that all I/O operations will be closed and disposed, when a
+	 * {@link NativeCodeException} is thrown during dispose of the reader operation.
+	 */
+	@Test
+	public void close_disposeOfReaderThrowsNativeCodeException() throws Exception {
+		exception.expect(is(NATIVE_CODE_EXCEPTION));
+
+		doThrow(NATIVE_CODE_EXCEPTION).when(reader).dispose();
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that all I/O operations will be closed and disposed, when a {@link IOException} is
+	 * thrown during close of the writer operation.
+	 */
+	@Test
+	public void close_closeOfWriterThrowsIOException() throws Exception {
+		exception.expect(is(IO_EXCEPTION));
+
+		doThrow(IO_EXCEPTION).when(writer).close();
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that all I/O operations will be closed and disposed, when a
+	 * {@link NativeCodeException} is thrown during dispose of the writer operation.
+	 */
+	@Test
+	public void close_disposeOfWriterThrowsNativeCodeException() throws Exception {
+		exception.expect(is(NATIVE_CODE_EXCEPTION));
+
+		doThrow(NATIVE_CODE_EXCEPTION).when(writer).dispose();
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that all I/O operations will be closed and disposed, when
+	 * <code>#closeInternal()</code> throws a {@link NativeCodeException}.
+	 */
+	@Test
+	public void close_closeInternalThrowsNativeCodeException() throws Exception {
+		exception.expect(is(NATIVE_CODE_EXCEPTION));
+
+		doThrow(NATIVE_CODE_EXCEPTION).when(portInternal).closeInternal();
+		port.close();
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that {@link AbstractSerialConnection#isClosed()} returns <code>false</code>, when
+	 * the port is not closed.
+	 */
+	@Test
+	public void isClosed_whenOpen() {
+		assertThat(port.isClosed(), is(false));
+	}
+
+	/**
+	 * Verifies that {@link AbstractSerialConnection#isClosed()} returns <code>true</code>, when the
+	 * port is closed.
+	 */
+	@Test
+	public void isClosed_whenClosed() throws Exception {
+		port.close();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown when the port is closed.
+	 */
+	@Test
+	public void write_toClosedPort() throws Exception {
+		when(portHandle.getPortName()).thenReturn("COM1");
+		port.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		port.write(BYTES);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when <code>null</code> is passed.
+	 */
+	@Test
+	public void write_nullData() throws Exception {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >data< must not be null!");
+
+		port.write((byte[]) null);
+	}
+
+	/**
+	 * Verifies that {@link SerialConnection#write(byte[])} deleagtes to
+	 * {@link AbstractSerialConnection#writeInternal(byte[])} if <code>data!=null</code> and the
+	 * port is not closed.
+	 */
+	@Test
+	public void write_delegate() throws Exception {
+		port.write(BYTES);
+		verify(writer).write(BYTES);
+	}
+
+	/**
+	 * Verifies that in case of an {@link IOException} the port will be closed
+	 */
+	@Test
+	public void write_closePortOnIOException() throws Exception {
+		doThrow(IO_EXCEPTION).when(writer).write(BYTES);
+
+		try {
+			port.write(BYTES);
+			fail("expected an IOException");
+		}
+		catch (IOException ignore) {}
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that in case of an {@link NativeCodeException} the port will be closed
+	 */
+	@Test
+	public void write_closePortOnNativeCodeException() throws Exception {
+		doThrow(NATIVE_CODE_EXCEPTION).when(writer).write(BYTES);
+
+		try {
+			port.write(BYTES);
+			fail("expected an NativeCodeException");
+		}
+		catch (NativeCodeException ignore) {}
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that {@link SerialConnection#write(ByteBuffer)} delegates to the writer and returns
+	 * the number of remaining bytes.
+	 */
+	@Test
+	public void writeByteBuffer_delegate() throws Exception {
+		ByteBuffer src = ByteBuffer.wrap(DATA);
+
+		int result = port.write(src);
+
+		verify(writer).write(src);
+		assertThat(result, is(DATA.length));
+	}
+
+	/**
+	 * Verifies that the writer is not called, if the buffer has no bytes remaining.
+	 */
+	@Test
+	public void writeByteBuffer_nothingRemaining() throws Exception {
+		int result = port.write(ByteBuffer.allocate(0));
+
+		verify(writer, never()).write(any(ByteBuffer.class));
+		assertThat(result, is(0));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when <code>null</code> is passed.
+	 */
+	@Test
+	public void writeByteBuffer_null() throws Exception {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >src< must not be null!");
+
+		port.write((ByteBuffer) null);
+	}
+
+	/**
+	 * Verifies that in case of an {@link IOException} the port will be closed
+	 */
+	@Test
+	public void writeByteBuffer_closePortOnIOException() throws Exception {
+		ByteBuffer src = ByteBuffer.wrap(DATA);
+		doThrow(IO_EXCEPTION).when(writer).write(src);
+
+		try {
+			port.write(src);
+			fail("expected an IOException");
+		}
+		catch (IOException ignore) {}
+
+		verify(portInternal).closeInternal();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that {@link SerialConnection#write(ByteBuffer[])} passes all buffers to the writer
+	 * and returns the number of remaining bytes.
+	 */
+	@Test
+	public void writeByteBuffers_delegate() throws Exception {
+		ByteBuffer[] srcs = { ByteBuffer.wrap(DATA), ByteBuffer.allocateDirect(3) };
+
+		long result = port.write(srcs);
+
+		verify(writer).write(srcs);
+		assertThat(result, is(DATA.length + 3L));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when an element is
+	 * <code>null</code>.
+	 */
+	@Test
+	public void writeByteBuffers_nullElement() throws Exception {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >srcs[1]< must not be null!");
+
+		port.write(new ByteBuffer[] { ByteBuffer.wrap(DATA), null });
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown when the port is closed.
+	 */
+	@Test
+	public void writeByteBuffers_portIsClosed() throws Exception {
+		when(portHandle.getPortName()).thenReturn("COM1");
+		port.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		port.write(new ByteBuffer[] { ByteBuffer.wrap(DATA) });
+	}
+
+	/**
+	 * Verifies that in case of an {@link NativeCodeException} the port will be closed
+	 */
+	@Test
+	public void writeByteBuffers_closePortOnNativeCodeException() throws Exception {
+		ByteBuffer[] srcs = { ByteBuffer.wrap(DATA) };
+		doThrow(NATIVE_CODE_EXCEPTION).when(writer).write(srcs);
+
+		try {
+			port.write(srcs);
+			fail("expected an NativeCodeException");
+		}
+		catch (NativeCodeException ignore) {}
+
+		verify(portInternal).closeInternal();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown when the port is closed.
+	 */
+	@Test
+	public void read_portIsClosed() throws Exception {
+		when(portHandle.getPortName()).thenReturn("COM1");
+		port.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		port.read();
+	}
+
+	/**
+	 * Verifies that {@link SerialConnection#read()} is delegated to
+	 * {@link AbstractSerialConnection#readInternal()} if the port is not closed.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_delegate() throws IOException {
+		port.read();
+
+		verify(reader).read();
+	}
+
+	/**
+	 * Verifies that in case of an {@link IOException} the port will be closed
+	 */
+	@Test
+	public void read_closePortOnIOException() throws Exception {
+		doThrow(IO_EXCEPTION).when(reader).read();
+
+		try {
+			port.read();
+			fail("expected an IOException");
+		}
+		catch (IOException ignore) {}
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that in case of an {@link NativeCodeException} the port will be closed
+	 */
+	@Test
+	public void read_closePortOnNativeCloseException() throws Exception {
+		doThrow(NATIVE_CODE_EXCEPTION).when(reader).read();
+
+		try {
+			port.read();
+			fail("expected an NativeCodeException");
+		}
+		catch (NativeCodeException ignore) {}
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when <code>null</code> is passed
+	 * as buffer.
+	 */
+	@Test
+	public void readByteBuffer_nullBuffer() throws Exception {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >dst< must not be null!");
+
+		port.read(null);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when a read-only buffer is
+	 * passed.
+	 */
+	@Test
+	public void readByteBuffer_readOnlyBuffer() throws Exception {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >dst< is invalid! The buffer must not be read-only!");
+
+		port.read(ByteBuffer.allocate(1).asReadOnlyBuffer());
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown when the port is closed.
+	 */
+	@Test
+	public void readByteBuffer_portIsClosed() throws Exception {
+		port.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		port.read(ByteBuffer.allocate(1));
+	}
+
+	/**
+	 * Verifies that 0 is returned without a call to the reader, when the buffer has no remaining
+	 * bytes.
+	 */
+	@Test
+	public void readByteBuffer_noRemaining() throws Exception {
+		int result = port.read(ByteBuffer.allocate(0));
+
+		assertThat(result, is(0));
+		verify(reader, never()).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that {@link SerialConnection#read(ByteBuffer)} is delegated to
+	 * {@link Reader#read(ByteBuffer)} if the port is not closed.
+	 */
+	@Test
+	public void readByteBuffer_delegate() throws Exception {
+		ByteBuffer dst = ByteBuffer.allocateDirect(1);
+		when(reader.read(dst)).thenReturn(1);
+
+		int result = port.read(dst);
+
+		assertThat(result, is(1));
+		verify(reader).read(dst);
+	}
+
+	/**
+	 * Verifies that in case of an {@link IOException} the port will be closed
+	 */
+	@Test
+	public void readByteBuffer_closePortOnIOException() throws Exception {
+		ByteBuffer dst = ByteBuffer.allocate(1);
+		doThrow(IO_EXCEPTION).when(reader).read(dst);
+
+		try {
+			port.read(dst);
+			fail("expected an IOException");
+		}
+		catch (IOException ignore) {}
+
+		verify(reader).close();
+		verify(writer).close();
+		verify(portInternal).closeInternal();
+		verify(reader).dispose();
+		verify(writer).dispose();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that {@link AbstractSerialConnection#portClosedException()} returns an
+	 * {@link IOException} with a message 'Port ??? is closed!'.
+	 */
+	@Test
+	public void portClosedException() {
+		IOException result = port.portClosedException();
+
+		assertThat(result, is(notNullValue()));
+		assertThat(result.getMessage(), is("Port COM1 was closed!"));
+	}
+
+	/**
+	 * Verifies that {@link AbstractSerialConnection#portClosedException(String)} returns an
+	 * {@link IOException} with a message 'Port ??? is closed!' and an additional message.
+	 */
+	@Test
+	public void portClosedException_withMessage() {
+		IOException result = port.portClosedException("Additional message.");
+
+		assertThat(result, is(notNullValue()));
+		assertThat(result.getMessage(), is("Port COM1 was closed! Additional message."));
+	}
+
+	/**
+	 * Verifies that {@link BasicSerialConnection#flush()} flushes a {@link CoalescingWriter}.
+	 */
+	@Test
+	public void flush() throws Exception {
+		CoalescingWriter coalescingWriter = mock(CoalescingWriter.class);
+		port = new _BasicSerialConnection(portHandle, reader, coalescingWriter);
+
+		port.flush();
+
+		verify(coalescingWriter).flush();
+	}
+
+	/**
+	 * Verifies that the connection is closed, when the flush fails.
+	 */
+	@Test
+	public void flush_throwsIOException() throws Exception {
+		CoalescingWriter coalescingWriter = mock(CoalescingWriter.class);
+		doThrow(IO_EXCEPTION).when(coalescingWriter).flush();
+		port = new _BasicSerialConnection(portHandle, reader, coalescingWriter);
+
+		try {
+			port.flush();
+			fail("Expected an IOException!");
+		}
+		catch (IOException e) {
+			assertThat(e, is(IO_EXCEPTION));
+		}
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a closed connection is flushed.
+	 */
+	@Test
+	public void flush_whenClosed() throws Exception {
+		port.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		port.flush();
+	}
+
+	/**
+	 * Verifies that {@link BasicSerialConnection#available()} returns the number of bytes, that are
+	 * available from the {@link Reader}.
+	 */
+	@Test
+	public void available_delegate() throws Exception {
+		when(reader.available()).thenReturn(7);
+
+		assertThat(port.available(), is(7));
+	}
+
+	/**
+	 * Verifies that the connection is closed, when {@link BasicSerialConnection#available()}
+	 * fails.
+	 */
+	@Test
+	public void available_closePortOnIOException() throws Exception {
+		doThrow(IO_EXCEPTION).when(reader).available();
+
+		try {
+			port.available();
+			fail("expected an IOException");
+		}
+		catch (IOException ignore) {}
+
+		verify(reader).close();
+		verify(writer).close();
+		assertThat(port.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when {@link BasicSerialConnection#available()}
+	 * is called on a closed connection.
+	 */
+	@Test
+	public void available_whenClosed() throws Exception {
+		port.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		port.available();
+	}
+
+	/**
+	 * Verifies that always the same streams are returned.
+	 */
+	@Test
+	public void getStreams_sameInstance() {
+		assertThat(port.getInputStream(), is(notNullValue()));
+		assertThat(port.getInputStream(), is(sameInstance(port.getInputStream())));
+		assertThat(port.getOutputStream(), is(notNullValue()));
+		assertThat(port.getOutputStream(), is(sameInstance(port.getOutputStream())));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	public class _BasicSerialConnection extends BasicSerialConnection {
+
+		public _BasicSerialConnection(	SerialPort port,
+										Reader reader,
+										Writer writer) {
+			super(port, reader, writer);
+		}
+
+		@Override
+		protected void closeInternal() throws IOException {
+			portInternal.closeInternal();
+		}
+	}
+}
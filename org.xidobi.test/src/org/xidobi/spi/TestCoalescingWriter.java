@@ -0,0 +1,329 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+/**
+ * Tests the class {@link CoalescingWriter}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestCoalescingWriter {
+
+	/** the maximum batch size used in the tests */
+	private static final int MAX_BATCH_SIZE = 8;
+
+	/** a linger time, that doesn't elapse during a test */
+	private static final long LONG_LINGER = 60 * 1000 * 1000;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private Writer delegate;
+
+	/** the class under test */
+	private CoalescingWriter writer;
+
+	@Before
+	public void setUp() {
+		initMocks(this);
+
+		writer = new CoalescingWriter(delegate, MAX_BATCH_SIZE, LONG_LINGER);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the writer is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullWriter() {
+		new CoalescingWriter(null, MAX_BATCH_SIZE, LONG_LINGER);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum batch size is
+	 * 0.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withMaxBatchSize0() {
+		new CoalescingWriter(delegate, 0, LONG_LINGER);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the linger time is
+	 * negative.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNegativeLinger() {
+		new CoalescingWriter(delegate, MAX_BATCH_SIZE, -1);
+	}
+
+	/**
+	 * Verifies that small writes are aggregated and written by a single write, when the writer is
+	 * flushed.
+	 */
+	@Test
+	public void write_aggregatesUntilFlush() throws Exception {
+		writer.write(new byte[] { 1, 2 });
+		writer.write(new byte[] { 3 });
+		verify(delegate, never()).write(any(byte[].class));
+
+		writer.flush();
+
+		verify(delegate).write(aryEq(new byte[] { 1, 2, 3 }));
+		assertThat(writer.getWriteCount(), is(2L));
+		assertThat(writer.getBatchCount(), is(1L));
+		assertThat(writer.getByteCount(), is(3L));
+	}
+
+	/**
+	 * Verifies that a flushable decorated writer is flushed after the batch was written.
+	 */
+	@Test
+	public void flush_flushableWriter() throws Exception {
+		FlushableWriter flushable = mock(FlushableWriter.class);
+		writer = new CoalescingWriter(flushable, MAX_BATCH_SIZE, LONG_LINGER);
+		writer.write(new byte[] { 1, 2 });
+
+		writer.flush();
+
+		InOrder inOrder = inOrder(flushable);
+		inOrder.verify(flushable).write(aryEq(new byte[] { 1, 2 }));
+		inOrder.verify(flushable).flush();
+	}
+
+	/**
+	 * Verifies that the batch is written, when it reaches the maximum batch size.
+	 */
+	@Test
+	public void write_fullBatch() throws Exception {
+		writer.write(new byte[] { 1, 2, 3, 4 });
+		writer.write(new byte[] { 5, 6, 7, 8 });
+
+		verify(delegate).write(aryEq(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+	}
+
+	/**
+	 * Verifies that the current batch is written first, if the data doesn't fit into the batch.
+	 */
+	@Test
+	public void write_dataDoesNotFit() throws Exception {
+		writer.write(new byte[] { 1, 2, 3, 4, 5 });
+		writer.write(new byte[] { 6, 7, 8, 9 });
+
+		verify(delegate).write(aryEq(new byte[] { 1, 2, 3, 4, 5 }));
+
+		writer.flush();
+
+		verify(delegate).write(aryEq(new byte[] { 6, 7, 8, 9 }));
+	}
+
+	/**
+	 * Verifies that large data is written directly after the current batch.
+	 */
+	@Test
+	public void write_largeData() throws Exception {
+		byte[] large = new byte[MAX_BATCH_SIZE * 2];
+		writer.write(new byte[] { 1 });
+
+		writer.write(large);
+
+		InOrder inOrder = inOrder(delegate);
+		inOrder.verify(delegate).write(aryEq(new byte[] { 1 }));
+		inOrder.verify(delegate).write(large);
+		assertThat(writer.getLargestBatchSize(), is(large.length));
+	}
+
+	/**
+	 * Verifies that the remaining bytes of small buffers are appended to the batch.
+	 */
+	@Test
+	public void writeByteBuffers_aggregatesUntilFlush() throws Exception {
+		ByteBuffer header = ByteBuffer.wrap(new byte[] { 1, 2 });
+		ByteBuffer payload = ByteBuffer.wrap(new byte[] { 3, 4 });
+
+		writer.write(new ByteBuffer[] { header, payload });
+		writer.write(ByteBuffer.wrap(new byte[] { 5 }));
+		writer.flush();
+
+		verify(delegate).write(aryEq(new byte[] { 1, 2, 3, 4, 5 }));
+		verify(delegate, never()).write(any(ByteBuffer[].class));
+		assertThat(header.remaining(), is(0));
+		assertThat(payload.remaining(), is(0));
+	}
+
+	/**
+	 * Verifies that large buffers are passed unchanged to the decorated writer, after the current
+	 * batch.
+	 */
+	@Test
+	public void writeByteBuffers_largeData() throws Exception {
+		ByteBuffer[] large = { ByteBuffer.allocateDirect(MAX_BATCH_SIZE), ByteBuffer.allocate(2) };
+		writer.write(new byte[] { 1 });
+
+		writer.write(large);
+
+		InOrder inOrder = inOrder(delegate);
+		inOrder.verify(delegate).write(aryEq(new byte[] { 1 }));
+		inOrder.verify(delegate).write(large);
+		assertThat(writer.getLargestBatchSize(), is(MAX_BATCH_SIZE + 2));
+	}
+
+	/**
+	 * Verifies that the batch is written by the background thread, when the linger time elapsed.
+	 */
+	@Test
+	public void write_lingerElapses() throws Exception {
+		writer = new CoalescingWriter(delegate, MAX_BATCH_SIZE, 1000);
+
+		writer.write(new byte[] { 1, 2 });
+		writer.write(new byte[] { 3 });
+
+		verify(delegate, timeout(2000)).write(aryEq(new byte[] { 1, 2, 3 }));
+	}
+
+	/**
+	 * Verifies that every write is passed through, if the linger time is 0.
+	 */
+	@Test
+	public void write_withoutLinger() throws Exception {
+		writer = new CoalescingWriter(delegate, MAX_BATCH_SIZE, 0);
+
+		writer.write(new byte[] { 1, 2 });
+
+		verify(delegate).write(aryEq(new byte[] { 1, 2 }));
+	}
+
+	/**
+	 * Verifies that the failure of a background write is thrown by the next write.
+	 */
+	@Test
+	public void write_backgroundWriteFailed() throws Exception {
+		IOException failure = new IOException("Port COM1 was closed!");
+		doThrow(failure).when(delegate).write(any(byte[].class));
+		writer = new CoalescingWriter(delegate, MAX_BATCH_SIZE, 1000);
+		writer.write(new byte[] { 1 });
+		verify(delegate, timeout(2000)).write(any(byte[].class));
+
+		try {
+			// the failure is stored after the write returned
+			for (int i = 0; i < 100; i++) {
+				Thread.sleep(10);
+				writer.write(new byte[] { 2 });
+			}
+			fail("Expected an IOException!");
+		}
+		catch (IOException e) {
+			assertThat(e, is(failure));
+		}
+	}
+
+	/**
+	 * Verifies that the current batch is written and the writer is closed by
+	 * {@link CoalescingWriter#close()}.
+	 */
+	@Test
+	public void close_writesBatch() throws Exception {
+		writer.write(new byte[] { 1, 2 });
+
+		writer.close();
+
+		InOrder inOrder = inOrder(delegate);
+		inOrder.verify(delegate).write(aryEq(new byte[] { 1, 2 }));
+		inOrder.verify(delegate).close();
+	}
+
+	/**
+	 * Verifies that the decorated writer is closed, even if the batch couldn't be written.
+	 */
+	@Test
+	public void close_writeFails() throws Exception {
+		doThrow(new IOException()).when(delegate).write(any(byte[].class));
+		writer.write(new byte[] { 1, 2 });
+
+		try {
+			writer.close();
+			fail("Expected an IOException!");
+		}
+		catch (IOException e) {}
+
+		verify(delegate).close();
+	}
+
+	/**
+	 * Verifies that the decorated writer is disposed.
+	 */
+	@Test
+	public void dispose() {
+		writer.dispose();
+
+		verify(delegate).dispose();
+	}
+
+	/**
+	 * Verifies the statistics of the batch sizes.
+	 */
+	@Test
+	public void batchSizeStatistics() throws Exception {
+		writer.write(new byte[1]);
+		writer.flush();
+		writer.write(new byte[3]);
+		writer.flush();
+		writer.write(new byte[MAX_BATCH_SIZE]);
+
+		long[] histogram = writer.getBatchSizeHistogram();
+		assertThat(histogram.length, is(32));
+		assertThat(histogram[0], is(1L));
+		assertThat(histogram[1], is(1L));
+		assertThat(histogram[3], is(1L));
+		assertThat(writer.getAverageBatchSize(), is(4.0));
+		assertThat(writer.getLargestBatchSize(), is(MAX_BATCH_SIZE));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** A {@link Writer}, that can be flushed. */
+	private interface FlushableWriter extends Writer, Flushable {}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests the class {@link CompletionFuture}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestCompletionFuture {
+
+	private static final byte[] RESULT = { 1, 2, 3 };
+
+	/** the class under test */
+	private CompletionFuture<byte[]> future;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Before
+	public void setUp() {
+		future = new CompletionFuture<byte[]>();
+	}
+
+	/**
+	 * Verifies that a new future is not done.
+	 */
+	@Test
+	public void new_isNotDone() {
+		assertThat(future.isDone(), is(false));
+		assertThat(future.isCancelled(), is(false));
+	}
+
+	/**
+	 * Verifies that the result is returned, when the future was completed.
+	 */
+	@Test
+	public void completed() throws Exception {
+		future.completed(RESULT, null);
+
+		assertThat(future.isDone(), is(true));
+		assertThat(future.get(), is(sameInstance(RESULT)));
+	}
+
+	/**
+	 * Verifies that the failure is thrown as cause of an {@link ExecutionException}, when the
+	 * future failed.
+	 */
+	@Test
+	public void failed() throws Exception {
+		IOException failure = new IOException("Port COM1 was closed!");
+		future.failed(failure, null);
+
+		assertThat(future.isDone(), is(true));
+		try {
+			future.get();
+			fail("Expected an ExecutionException!");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), is(sameInstance((Throwable) failure)));
+		}
+	}
+
+	/**
+	 * Verifies that only the first completion is taken into account.
+	 */
+	@Test
+	public void completed_twice() throws Exception {
+		future.completed(RESULT, null);
+		future.failed(new IOException(), null);
+		future.completed(new byte[0], null);
+
+		assertThat(future.get(), is(sameInstance(RESULT)));
+	}
+
+	/**
+	 * Verifies that the result, that was returned once, isn't overwritten by concurrent
+	 * completions.
+	 */
+	@Test(timeout = 10000)
+	public void completed_concurrently() throws Exception {
+		for (int i = 0; i < 500; i++) {
+			final CompletionFuture<byte[]> future = new CompletionFuture<byte[]>();
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++) {
+				final byte[] result = { (byte) t };
+				threads[t] = new Thread() {
+					@Override
+					public void run() {
+						future.completed(result, null);
+					}
+				};
+				threads[t].start();
+			}
+
+			byte[] first = future.get();
+			for (Thread thread : threads)
+				thread.join();
+
+			assertThat(future.get(), is(sameInstance(first)));
+		}
+	}
+
+	/**
+	 * Verifies that a {@link TimeoutException} is thrown, when the future is not completed within
+	 * the time-out.
+	 */
+	@Test
+	public void get_timeout() throws Exception {
+		exception.expect(TimeoutException.class);
+
+		future.get(10, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Verifies that a waiting thread is released, when the future is completed by another thread.
+	 */
+	@Test(timeout = 5000)
+	public void get_completedByOtherThread() throws Exception {
+		new Thread() {
+			@Override
+			public void run() {
+				future.completed(RESULT, null);
+			}
+		}.start();
+
+		assertThat(future.get(), is(sameInstance(RESULT)));
+	}
+
+	/**
+	 * Verifies that the future can't be cancelled.
+	 */
+	@Test
+	public void cancel() {
+		assertThat(future.cancel(true), is(false));
+		assertThat(future.isDone(), is(false));
+	}
+}
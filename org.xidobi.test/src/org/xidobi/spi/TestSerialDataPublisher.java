@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.spi.SimulatedDevice.bytes;
+
+import java.nio.ByteBuffer;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.xidobi.Flow;
+import org.xidobi.SerialConnection;
+
+/**
+ * Tests the class {@link SerialDataPublisher}, that is provided by
+ * {@link BasicSerialConnection#getDataPublisher()}.
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSerialDataPublisher {
+
+	/** the time in milliseconds to wait for the reader thread of the publisher */
+	private static final int TIMEOUT = 5000;
+	/** the time in milliseconds to verify, that no data is published */
+	private static final long QUIET_PERIOD = 100;
+
+	@Mock
+	private Flow.Subscriber<ByteBuffer> subscriber;
+
+	/** the device behind the connection */
+	private SimulatedDevice device;
+	/** the connection of the device */
+	private SerialConnection connection;
+
+	@Before
+	public void setUp() {
+		initMocks(this);
+		device = new SimulatedDevice();
+		connection = device.getConnection();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connection.close();
+	}
+
+	/**
+	 * Verifies that the data is only read and published, while the subscriber has an unfulfilled
+	 * demand.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void subscribe_honoursDemand() throws Exception {
+		Flow.Subscription subscription = subscribe();
+		device.send("abc");
+		Thread.sleep(QUIET_PERIOD);
+		verify(subscriber, never()).onNext(any(ByteBuffer.class));
+
+		subscription.request(1);
+		verify(subscriber, timeout(TIMEOUT)).onNext(ByteBuffer.wrap(bytes("abc")));
+
+		device.send("def");
+		Thread.sleep(QUIET_PERIOD);
+		verify(subscriber, never()).onNext(ByteBuffer.wrap(bytes("def")));
+
+		subscription.request(1);
+		verify(subscriber, timeout(TIMEOUT)).onNext(ByteBuffer.wrap(bytes("def")));
+	}
+
+	/**
+	 * Verifies that the subscriber is completed, when the connection is closed.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void close_completesSubscriber() throws Exception {
+		subscribe().request(1);
+
+		connection.close();
+
+		verify(subscriber, timeout(TIMEOUT)).onComplete();
+		verify(subscriber, never()).onError(any(Throwable.class));
+	}
+
+	/**
+	 * Verifies that the subscriber is completed, when the connection is closed while the
+	 * subscriber has no demand.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void close_completesSubscriberWithoutDemand() throws Exception {
+		subscribe();
+
+		connection.close();
+
+		verify(subscriber, timeout(TIMEOUT)).onComplete();
+	}
+
+	/**
+	 * Verifies that the subscriber is notified with the cause, when the connection is closed
+	 * because of an I/O error.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void readFails_notifiesSubscriber() throws Exception {
+		subscribe().request(1);
+
+		device.fail("Connection lost!");
+
+		verify(subscriber, timeout(TIMEOUT)).onError(argThat(hasMessage("Connection lost!")));
+		verify(subscriber, never()).onComplete();
+	}
+
+	/**
+	 * Verifies that a subscriber is rejected, when the connection was closed.
+	 */
+	@Test
+	public void subscribe_whenClosed() throws Exception {
+		connection.close();
+
+		subscribe();
+
+		verify(subscriber).onError(argThat(hasMessage("Port SIMULATED was closed!")));
+	}
+
+	/**
+	 * Verifies that a second subscriber is rejected.
+	 */
+	@Test
+	public void subscribe_secondSubscriber() throws Exception {
+		subscribe();
+		@SuppressWarnings("unchecked")
+		Flow.Subscriber<ByteBuffer> secondSubscriber = mock(Flow.Subscriber.class);
+
+		connection.getDataPublisher().subscribe(secondSubscriber);
+
+		verify(secondSubscriber).onError(argThat(hasMessage("The data of port SIMULATED is already subscribed!")));
+	}
+
+	/**
+	 * Verifies that the subscriber is notified with an {@link IllegalArgumentException}, when it
+	 * requests a number of items, that is not positive.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void request_notPositive() throws Exception {
+		subscribe().request(0);
+
+		verify(subscriber, timeout(TIMEOUT)).onError(argThat(hasMessage("The number of requested items must be greater than 0! Got: 0")));
+	}
+
+	/**
+	 * Verifies that no data is published after the subscription was cancelled and a new
+	 * subscriber can subscribe.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void cancel() throws Exception {
+		Flow.Subscription subscription = subscribe();
+		subscription.cancel();
+		subscription.request(1);
+		device.send("abc");
+		Thread.sleep(QUIET_PERIOD);
+
+		verify(subscriber, never()).onNext(any(ByteBuffer.class));
+		assertThat(connection.read(), is(bytes("abc")));
+
+		@SuppressWarnings("unchecked")
+		Flow.Subscriber<ByteBuffer> secondSubscriber = mock(Flow.Subscriber.class);
+		connection.getDataPublisher().subscribe(secondSubscriber);
+		verify(secondSubscriber, never()).onError(any(Throwable.class));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Subscribes the subscriber and returns its subscription. */
+	private Flow.Subscription subscribe() {
+		connection.getDataPublisher().subscribe(subscriber);
+		ArgumentCaptor<Flow.Subscription> subscription = ArgumentCaptor.forClass(Flow.Subscription.class);
+		verify(subscriber).onSubscribe(subscription.capture());
+		return subscription.getValue();
+	}
+
+	/** Matches a {@link Throwable} with the given message. */
+	private static Matcher<Throwable> hasMessage(final String message) {
+		return new BaseMatcher<Throwable>() {
+			public boolean matches(Object item) {
+				return item instanceof Throwable && message.equals(((Throwable) item).getMessage());
+			}
+
+			public void describeTo(Description description) {
+				description.appendText("a Throwable with the message ").appendValue(message);
+			}
+		};
+	}
+}
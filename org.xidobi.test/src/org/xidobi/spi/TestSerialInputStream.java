@@ -0,0 +1,367 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.SerialConnection;
+
+/**
+ * Tests the class {@link SerialInputStream}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSerialInputStream {
+
+	/** the data, that is received by a read of the connection */
+	private static final byte[] DATA = { 1, 2, (byte) 0xFF };
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private SerialConnection connection;
+
+	/** the class under test */
+	private SerialInputStream in;
+
+	@Before
+	public void setUp() throws Exception {
+		initMocks(this);
+		when(connection.read(any(ByteBuffer.class))).thenAnswer(receive(DATA));
+
+		in = new SerialInputStream(connection);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the connection is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullConnection() {
+		new SerialInputStream(null);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the buffer size is 0.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withBufferSize0() {
+		new SerialInputStream(connection, 0);
+	}
+
+	/**
+	 * Verifies that single-byte reads are served from the buffer, so the connection is read only
+	 * once.
+	 */
+	@Test
+	public void read_singleBytes() throws Exception {
+		assertThat(in.read(), is(1));
+		assertThat(in.read(), is(2));
+		assertThat(in.read(), is(0xFF));
+
+		verify(connection, times(1)).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that the connection is read again, when the buffer is empty.
+	 */
+	@Test
+	public void read_refillsEmptyBuffer() throws Exception {
+		byte[] b = new byte[DATA.length];
+		in.read(b);
+
+		assertThat(in.read(), is(1));
+
+		verify(connection, times(2)).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that a read into an array returns the buffered bytes.
+	 */
+	@Test
+	public void read_array() throws Exception {
+		byte[] b = new byte[5];
+
+		int result = in.read(b, 1, 4);
+
+		assertThat(result, is(DATA.length));
+		assertThat(b, is(new byte[] { 0, 1, 2, (byte) 0xFF, 0 }));
+	}
+
+	/**
+	 * Verifies that a read into a small array leaves the remaining bytes in the buffer.
+	 */
+	@Test
+	public void read_arraySmallerThanBuffered() throws Exception {
+		byte[] b = new byte[2];
+
+		assertThat(in.read(b), is(2));
+		assertThat(in.read(b), is(1));
+		assertThat(b[0], is((byte) 0xFF));
+
+		verify(connection, times(1)).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that an {@link IndexOutOfBoundsException} is thrown, if the length exceeds the
+	 * array.
+	 */
+	@Test
+	public void read_invalidLength() throws Exception {
+		exception.expect(IndexOutOfBoundsException.class);
+
+		in.read(new byte[2], 1, 2);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a read of the connection returns no
+	 * bytes instead of blocking, and that the buffer stays empty.
+	 */
+	@Test
+	public void read_connectionReturns0() throws Exception {
+		doReturn(0).doAnswer(receive(DATA)).when(connection).read(any(ByteBuffer.class));
+
+		try {
+			in.read();
+			fail("Expected an IOException!");
+		}
+		catch (IOException expected) {
+			assertThat(expected.getMessage(), is("The connection returned no bytes, expected a blocking read!"));
+		}
+
+		assertThat(in.read(), is(1));
+	}
+
+	/**
+	 * Verifies that {@link SerialInputStream#available()} and {@link SerialInputStream#close()}
+	 * don't wait for a blocked read, and that closing the stream releases the read.
+	 */
+	@Test(timeout = 5000)
+	public void close_whileReadIsBlocked() throws Exception {
+		final CountDownLatch readStarted = new CountDownLatch(1);
+		final CountDownLatch connectionClosed = new CountDownLatch(1);
+		doAnswer(new Answer<Integer>() {
+
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				readStarted.countDown();
+				connectionClosed.await();
+				throw new IOException("Port was closed!");
+			}
+		}).when(connection).read(any(ByteBuffer.class));
+		doAnswer(new Answer<Void>() {
+
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				connectionClosed.countDown();
+				return null;
+			}
+		}).when(connection).close();
+
+		final AtomicReference<Throwable> result = new AtomicReference<Throwable>();
+		Thread reader = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					in.read();
+				}
+				catch (Throwable e) {
+					result.set(e);
+				}
+			}
+		};
+		reader.start();
+		readStarted.await();
+
+		when(connection.available()).thenReturn(0);
+		assertThat(in.available(), is(0));
+
+		in.close();
+		reader.join();
+
+		assertThat(result.get(), is(instanceOf(IOException.class)));
+	}
+
+	/**
+	 * Verifies that <code>-1</code> is returned, when the connection signals the end of the stream.
+	 */
+	@Test
+	public void read_endOfStream() throws Exception {
+		doReturn(-1).when(connection).read(any(ByteBuffer.class));
+
+		assertThat(in.read(), is(-1));
+		assertThat(in.read(new byte[2]), is(-1));
+		assertThat(in.skip(2), is(0L));
+	}
+
+	/**
+	 * Verifies that a read into an array, that is not smaller than the buffer, bypasses the buffer
+	 * and reads directly into the array.
+	 */
+	@Test
+	public void read_largeArrayBypassesBuffer() throws Exception {
+		in = new SerialInputStream(connection, 4);
+		byte[] b = new byte[6];
+
+		int result = in.read(b, 1, 5);
+
+		assertThat(result, is(DATA.length));
+		assertThat(b, is(new byte[] { 0, 1, 2, (byte) 0xFF, 0, 0 }));
+
+		ArgumentCaptor<ByteBuffer> dst = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(connection).read(dst.capture());
+		assertThat(dst.getValue().array() == b, is(true));
+
+		// nothing was buffered
+		when(connection.available()).thenReturn(0);
+		assertThat(in.available(), is(0));
+	}
+
+	/**
+	 * Verifies that the connection is not read, if 0 bytes are requested.
+	 */
+	@Test
+	public void read_length0() throws Exception {
+		assertThat(in.read(new byte[2], 0, 0), is(0));
+
+		verify(connection, never()).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that the buffer stays empty, if the read of the connection fails.
+	 */
+	@Test
+	public void read_failed() throws Exception {
+		doThrow(new IOException()).when(connection).read(any(ByteBuffer.class));
+		try {
+			in.read();
+		}
+		catch (IOException ignore) {}
+
+		when(connection.available()).thenReturn(0);
+		assertThat(in.available(), is(0));
+	}
+
+	/**
+	 * Verifies that {@link SerialInputStream#available()} returns the number of buffered bytes
+	 * without calling the connection.
+	 */
+	@Test
+	public void available_buffered() throws Exception {
+		in.read();
+
+		assertThat(in.available(), is(DATA.length - 1));
+
+		verify(connection, never()).available();
+	}
+
+	/**
+	 * Verifies that {@link SerialInputStream#available()} asks the connection, if the buffer is
+	 * empty.
+	 */
+	@Test
+	public void available_emptyBuffer() throws Exception {
+		when(connection.available()).thenReturn(12);
+
+		assertThat(in.available(), is(12));
+	}
+
+	/**
+	 * Verifies that {@link SerialInputStream#skip(long)} skips the buffered bytes.
+	 */
+	@Test
+	public void skip() throws Exception {
+		assertThat(in.skip(2), is(2L));
+		assertThat(in.read(), is(0xFF));
+
+		verify(connection, times(1)).read(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that {@link SerialInputStream#skip(long)} skips not more than the buffered bytes.
+	 */
+	@Test
+	public void skip_moreThanBuffered() throws Exception {
+		assertThat(in.skip(100), is((long) DATA.length));
+	}
+
+	/**
+	 * Verifies that closing the stream closes the connection only once.
+	 */
+	@Test
+	public void close() throws Exception {
+		in.close();
+		in.close();
+
+		verify(connection, times(1)).close();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a closed stream is read.
+	 */
+	@Test
+	public void read_whenClosed() throws Exception {
+		in.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Stream was closed!");
+
+		in.read();
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Returns an answer, that puts the given data into the buffer of the read. */
+	private static Answer<Integer> receive(final byte[] data) {
+		return new Answer<Integer>() {
+
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				ByteBuffer dst = (ByteBuffer) invocation.getArguments()[0];
+				dst.put(data);
+				return data.length;
+			}
+		};
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.SerialConnection;
+
+/**
+ * Tests the class {@link SerialOutputStream}
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestSerialOutputStream {
+
+	/** the buffer size used in the tests */
+	private static final int BUFFER_SIZE = 4;
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private SerialConnection connection;
+
+	/** the bytes, that were written to the connection */
+	private ByteArrayOutputStream written;
+
+	/** the class under test */
+	private SerialOutputStream out;
+
+	@Before
+	public void setUp() throws Exception {
+		initMocks(this);
+		written = new ByteArrayOutputStream();
+		when(connection.write(any(ByteBuffer.class))).thenAnswer(new Answer<Integer>() {
+
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				ByteBuffer src = (ByteBuffer) invocation.getArguments()[0];
+				int numberOfBytes = src.remaining();
+				while (src.hasRemaining())
+					written.write(src.get());
+				return numberOfBytes;
+			}
+		});
+
+		out = new SerialOutputStream(connection, BUFFER_SIZE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the connection is
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullConnection() {
+		new SerialOutputStream(null);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the buffer size is 0.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withBufferSize0() {
+		new SerialOutputStream(connection, 0);
+	}
+
+	/**
+	 * Verifies that single bytes are buffered until the stream is flushed.
+	 */
+	@Test
+	public void write_singleBytes() throws Exception {
+		out.write(1);
+		out.write(2);
+
+		verify(connection, never()).write(any(ByteBuffer.class));
+
+		out.flush();
+
+		assertThat(written.toByteArray(), is(new byte[] { 1, 2 }));
+		verify(connection, times(1)).write(any(ByteBuffer.class));
+		verify(connection).flush();
+	}
+
+	/**
+	 * Verifies that the buffer is written, when it is full.
+	 */
+	@Test
+	public void write_bufferFull() throws Exception {
+		for (int i = 1; i <= BUFFER_SIZE + 1; i++)
+			out.write(i);
+
+		assertThat(written.toByteArray(), is(new byte[] { 1, 2, 3, 4 }));
+	}
+
+	/**
+	 * Verifies that the buffer is written first, if an array doesn't fit into the buffer.
+	 */
+	@Test
+	public void write_arrayDoesntFit() throws Exception {
+		out.write(new byte[] { 1, 2, 3 });
+		out.write(new byte[] { 4, 5 });
+
+		assertThat(written.toByteArray(), is(new byte[] { 1, 2, 3 }));
+
+		out.flush();
+
+		assertThat(written.toByteArray(), is(new byte[] { 1, 2, 3, 4, 5 }));
+	}
+
+	/**
+	 * Verifies that large arrays are written directly after the buffered bytes.
+	 */
+	@Test
+	public void write_largeArray() throws Exception {
+		out.write(1);
+		out.write(new byte[] { 0, 2, 3, 4, 5, 6 }, 1, 5);
+
+		assertThat(written.toByteArray(), is(new byte[] { 1, 2, 3, 4, 5, 6 }));
+		verify(connection, times(2)).write(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that an {@link IndexOutOfBoundsException} is thrown, if the length exceeds the
+	 * array.
+	 */
+	@Test
+	public void write_invalidLength() throws Exception {
+		exception.expect(IndexOutOfBoundsException.class);
+
+		out.write(new byte[2], 1, 2);
+	}
+
+	/**
+	 * Verifies that closing the stream writes the buffered bytes and closes the connection.
+	 */
+	@Test
+	public void close() throws Exception {
+		out.write(1);
+
+		out.close();
+		out.close();
+
+		InOrder inOrder = inOrder(connection);
+		inOrder.verify(connection).write(any(ByteBuffer.class));
+		inOrder.verify(connection).close();
+		assertThat(written.toByteArray(), is(new byte[] { 1 }));
+		verify(connection, times(1)).close();
+	}
+
+	/**
+	 * Verifies that the buffered bytes are discarded, if the connection was closed already.
+	 */
+	@Test
+	public void close_connectionClosed() throws Exception {
+		when(connection.isClosed()).thenReturn(true);
+		out.write(1);
+
+		out.close();
+
+		verify(connection, never()).write(any(ByteBuffer.class));
+		verify(connection).close();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when a closed stream is written.
+	 */
+	@Test
+	public void write_whenClosed() throws Exception {
+		out.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Stream was closed!");
+
+		out.write(1);
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Measures, how the throughput of the {@link IoCompletionEngine} scales with the number of
+ * registered ports, while the number of worker threads stays the same.
+ * <p>
+ * The benchmark runs against a simulated {@link WinApi}, where every port receives data
+ * continuously. Every <code>WaitCommEvent</code> and <code>ReadFile</code> completes immediately
+ * by queueing a completion packet, so the results show the dispatching overhead of the engine
+ * and not the throughput of real serial ports.
+ * <p>
+ * Usage: <code>BenchmarkIoCompletionEngine [threads] [seconds per run]</code>
+ * 
+ * @author Tobias Breßler
+ */
+public class BenchmarkIoCompletionEngine {
+
+	/** the numbers of ports, that are measured */
+	private static final int[] NUMBERS_OF_PORTS = { 1, 16, 64, 256 };
+
+	/** the number of bytes, that are available after every <code>WaitCommEvent</code> */
+	private static final int BYTES_PER_READ = 64;
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional number of worker threads and the duration of a run in seconds
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int numberOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		System.out.println("worker threads: " + numberOfThreads + ", bytes per read: " + BYTES_PER_READ);
+		System.out.println("ports\treads/s\t\tMB/s\t\tlive threads");
+		for (int numberOfPorts : NUMBERS_OF_PORTS)
+			run(numberOfPorts, numberOfThreads, seconds);
+	}
+
+	/** Measures the throughput for the given number of ports. */
+	private static void run(int numberOfPorts, int numberOfThreads, int seconds) throws Exception {
+		SimulatedWinApi simulation = new SimulatedWinApi();
+		WinApi os = simulation.newProxy();
+		CountingHandler handler = new CountingHandler();
+
+		IoCompletionEngine engine = new IoCompletionEngine(os, numberOfThreads);
+		engine.start();
+
+		List<IoCompletionChannel> channels = new ArrayList<IoCompletionChannel>();
+		for (int i = 0; i < numberOfPorts; i++)
+			channels.add(engine.register(new SerialPortImpl(os, "COM" + (i + 1), ""), 1000 + i, handler));
+
+		// warm up
+		Thread.sleep(500);
+
+		long reads = handler.reads.get();
+		long bytes = handler.bytes.get();
+		long start = System.nanoTime();
+		Thread.sleep(seconds * 1000L);
+		long duration = System.nanoTime() - start;
+		reads = handler.reads.get() - reads;
+		bytes = handler.bytes.get() - bytes;
+		int liveThreads = Thread.activeCount();
+
+		for (IoCompletionChannel channel : channels)
+			channel.close();
+		engine.shutdown();
+
+		double durationInSeconds = duration / 1e9;
+		System.out.println(String.format("%d\t%.0f\t\t%.2f\t\t%d", numberOfPorts, reads / durationInSeconds, bytes / durationInSeconds / (1024 * 1024), liveThreads));
+	}
+
+	/** Counts the received data of all channels. */
+	private static class CountingHandler implements IoCompletionHandler {
+
+		private final AtomicLong reads = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+
+		public void readCompleted(IoCompletionChannel channel, byte[] data) {
+			reads.incrementAndGet();
+			bytes.addAndGet(data.length);
+		}
+
+		public void writeCompleted(IoCompletionChannel channel, int numberOfBytes) {}
+
+		public void failed(IoCompletionChannel channel, IOException e) {
+			e.printStackTrace();
+		}
+
+		public void closed(IoCompletionChannel channel) {}
+	}
+
+	/**
+	 * A simulated Win32-API, that completes every I/O operation immediately by queueing a
+	 * completion packet. Only the functions, that are used by the engine, are simulated.
+	 */
+	private static class SimulatedWinApi implements InvocationHandler {
+
+		/** a completion packet: number of bytes, completion key and address of the overlapped */
+		private final BlockingQueue<int[]> packets = new LinkedBlockingQueue<int[]>();
+		/** the completion keys by the handles of the ports */
+		private final Map<Integer, Integer> completionKeys = new ConcurrentHashMap<Integer, Integer>();
+		/** the next address returned by <code>malloc</code> */
+		private final AtomicInteger nextAddress = new AtomicInteger(1);
+
+		/** Returns a {@link WinApi}, that delegates to this simulation. */
+		public WinApi newProxy() {
+			return (WinApi) Proxy.newProxyInstance(WinApi.class.getClassLoader(), new Class<?>[] { WinApi.class }, this);
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("getNativeVersion".equals(name))
+				return NATIVE_VERSION_2;
+			if ("malloc".equals(name))
+				return nextAddress.getAndIncrement();
+			if ("sizeOf_OVERLAPPED".equals(name) || "sizeOf_DWORD".equals(name))
+				return 4;
+			if ("getValue_DWORD".equals(name))
+				return EV_RXCHAR;
+			if ("GetLastError".equals(name))
+				return ERROR_IO_PENDING;
+			if ("CreateIoCompletionPort".equals(name)) {
+				completionKeys.put((Integer) args[0], (Integer) args[2]);
+				return 1;
+			}
+			if ("WaitCommEvent".equals(name)) {
+				complete((Integer) args[0], 0, (OVERLAPPED) args[2]);
+				return false;
+			}
+			if ("ClearCommError".equals(name)) {
+				((COMSTAT) args[2]).cbInQue = BYTES_PER_READ;
+				return true;
+			}
+			if ("ReadFile".equals(name)) {
+				complete((Integer) args[0], (Integer) args[2], (OVERLAPPED) args[4]);
+				return false;
+			}
+			if ("getByteArray".equals(name))
+				return new byte[(Integer) args[1]];
+			if ("GetQueuedCompletionStatus".equals(name)) {
+				int[] packet = packets.take();
+				((INT) args[1]).value = packet[0];
+				((INT) args[2]).value = packet[1];
+				((INT) args[3]).value = packet[2];
+				return true;
+			}
+			if ("PostQueuedCompletionStatus".equals(name)) {
+				packets.put(new int[] { (Integer) args[1], (Integer) args[2], (Integer) args[3] });
+				return true;
+			}
+			return defaultValue(method.getReturnType());
+		}
+
+		/** Queues the completion packet of an operation. */
+		private void complete(int handle, int numberOfBytes, OVERLAPPED overlapped) throws InterruptedException {
+			packets.put(new int[] { numberOfBytes, completionKeys.get(handle), overlapped.getAddress() });
+		}
+
+		/** Returns the result of the functions, that are not simulated. */
+		private static Object defaultValue(Class<?> returnType) {
+			if (returnType == boolean.class)
+				return true;
+			if (returnType == int.class)
+				return 0;
+			return null;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the overhead, that the guard of the shared resources adds to every read or write
+ * operation:
+ * <ul>
+ * <li><b>fair lock:</b> a fair {@link ReentrantLock}, like the <code>disposeLock</code> that
+ * {@link IoOperationImpl} used before
+ * <li><b>lifecycle:</b> {@link IoOperationImpl#beginOperation()} and
+ * {@link IoOperationImpl#endOperation()}
+ * </ul>
+ * Each run is measured with one thread, that performs the operations like a reader, and with a
+ * second thread, that performs operations on another instance concurrently like a writer. The
+ * operations don't call native code, so the results show only the overhead of the guard.
+ * <p>
+ * Afterwards the latency of close and dispose is measured, while an operation is blocked for
+ * {@link #BLOCKED_OPERATION_MILLIS} milliseconds, like a read that waits for data.
+ * <p>
+ * Usage: <code>BenchmarkIoOperationLifecycle [seconds per run]</code>
+ * 
+ * @author Christian Schwarz
+ */
+public class BenchmarkIoOperationLifecycle {
+
+	/** the duration of the blocked operation in milliseconds */
+	private static final int BLOCKED_OPERATION_MILLIS = 100;
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional duration of a run in seconds
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		WinApi os = newSimulatedWinApi();
+
+		System.out.println("threads\tfair lock ops/s\tlifecycle ops/s");
+		for (int threads = 1; threads <= 2; threads++) {
+			// warm up
+			run(new FairLockGuard(), threads, 1);
+			run(new LifecycleGuard(os), threads, 1);
+
+			long fairLock = run(new FairLockGuard(), threads, seconds);
+			long lifecycle = run(new LifecycleGuard(os), threads, seconds);
+			System.out.println(String.format("%d\t%d\t%d", threads, fairLock / seconds, lifecycle / seconds));
+		}
+
+		double fairLock = closeWhileBlocked(new FairLockGuard());
+		double lifecycle = closeWhileBlocked(new LifecycleGuard(os));
+		System.out.println(String.format("close while blocked: fair lock %.3f ms, lifecycle %.3f ms", fairLock, lifecycle));
+	}
+
+	/**
+	 * Closes and disposes the guard, while another thread performs a blocked operation, and returns
+	 * the latency in milliseconds.
+	 */
+	private static double closeWhileBlocked(final Guard guard) throws Exception {
+		final CountDownLatch blocked = new CountDownLatch(1);
+		Thread operation = new Thread() {
+			@Override
+			public void run() {
+				try {
+					guard.begin();
+					try {
+						blocked.countDown();
+						Thread.sleep(BLOCKED_OPERATION_MILLIS);
+					}
+					finally {
+						guard.end();
+					}
+				}
+				catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		operation.start();
+		blocked.await();
+
+		long start = System.nanoTime();
+		guard.closeAndDispose();
+		long duration = System.nanoTime() - start;
+
+		operation.join();
+		return duration / 1e6;
+	}
+
+	/**
+	 * Runs the guarded operations with the given number of threads, each on its own guard, and
+	 * returns the total number of operations.
+	 */
+	private static long run(final Guard guard, int threads, int seconds) throws Exception {
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicLong operations = new AtomicLong();
+		final CountDownLatch finished = new CountDownLatch(threads);
+
+		for (int i = 0; i < threads; i++) {
+			final Guard threadGuard = i == 0 ? guard : guard.newInstance();
+			new Thread() {
+				@Override
+				public void run() {
+					long count = 0;
+					try {
+						while (running.get()) {
+							threadGuard.begin();
+							try {
+								count++;
+							}
+							finally {
+								threadGuard.end();
+							}
+						}
+					}
+					catch (Exception e) {
+						e.printStackTrace();
+					}
+					operations.addAndGet(count);
+					finished.countDown();
+				}
+			}.start();
+		}
+
+		Thread.sleep(seconds * 1000L);
+		running.set(false);
+		finished.await();
+		return operations.get();
+	}
+
+	/** Returns a {@link WinApi}, that only supports the calls needed to create an operation. */
+	private static WinApi newSimulatedWinApi() {
+		return (WinApi) Proxy.newProxyInstance(WinApi.class.getClassLoader(), new Class<?>[] { WinApi.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				Class<?> returnType = method.getReturnType();
+				if (returnType == int.class)
+					// a dummy handle, pointer or size
+					return 1;
+				if (returnType == boolean.class)
+					return true;
+				return null;
+			}
+		});
+	}
+
+	/** The guard of a read or write operation. */
+	private interface Guard {
+
+		/** Begins the operation. */
+		void begin() throws Exception;
+
+		/** Ends the operation. */
+		void end();
+
+		/** Returns a new guard of the same kind for another instance. */
+		Guard newInstance();
+
+		/** Closes and disposes the guarded resources. */
+		void closeAndDispose() throws Exception;
+	}
+
+	/** Guards the operations with a fair lock. */
+	private static class FairLockGuard implements Guard {
+
+		private final Lock lock = new ReentrantLock(true);
+
+		public void begin() {
+			lock.lock();
+		}
+
+		public void end() {
+			lock.unlock();
+		}
+
+		public Guard newInstance() {
+			return new FairLockGuard();
+		}
+
+		public void closeAndDispose() {
+			// the resources can only be disposed, when no operation is in progress
+			lock.lock();
+			lock.unlock();
+		}
+	}
+
+	/** Guards the operations with the lifecycle of an {@link IoOperationImpl}. */
+	private static class LifecycleGuard extends IoOperationImpl implements Guard {
+
+		public LifecycleGuard(WinApi os) {
+			super(new SerialPortImpl(os, "COM1", null), os, 1);
+		}
+
+		public void begin() throws Exception {
+			beginOperation();
+		}
+
+		public void end() {
+			endOperation();
+		}
+
+		public Guard newInstance() {
+			return new LifecycleGuard(os);
+		}
+
+		public void closeAndDispose() throws Exception {
+			close();
+			dispose();
+		}
+	}
+}
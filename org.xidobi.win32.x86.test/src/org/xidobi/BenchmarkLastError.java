@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Thread.currentThread;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xidobi.structs.INT;
+
+/**
+ * Compares the overhead, that the propagation of the last error code adds to every native call of
+ * {@link OS}:
+ * <ul>
+ * <li><b>map:</b> a new {@link INT} per call and a {@link WeakHashMap} of the error codes per
+ * thread, like {@link OS} did before. The map is synchronized, because the unsynchronized map of
+ * the former implementation is corrupted by concurrent threads.
+ * <li><b>thread-local:</b> one {@link INT} per thread, that is held by a {@link ThreadLocal}
+ * </ul>
+ * The native call is simulated by writing an error code into the {@link INT}, so the results show
+ * only the overhead of the propagation. Each call is followed by <code>GetLastError()</code>. Each
+ * run is measured with one thread and with two threads, like a reader and a writer.
+ * <p>
+ * Usage: <code>BenchmarkLastError [seconds per run]</code>
+ * 
+ * @author Tobias Breßler
+ */
+public class BenchmarkLastError {
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional duration of a run in seconds
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+		System.out.println("threads\tmap calls/s\tthread-local calls/s");
+		for (int threads = 1; threads <= 2; threads++) {
+			// warm up
+			run(new MapErrors(), threads, 1);
+			run(new ThreadLocalErrors(), threads, 1);
+
+			long map = run(new MapErrors(), threads, seconds);
+			long threadLocal = run(new ThreadLocalErrors(), threads, seconds);
+			System.out.println(String.format("%d\t%d\t%d", threads, map / seconds, threadLocal / seconds));
+		}
+	}
+
+	/**
+	 * Performs the simulated native calls with the given number of threads on the same instance
+	 * and returns the total number of calls.
+	 */
+	private static long run(final LastErrors errors, int threads, int seconds) throws Exception {
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicLong calls = new AtomicLong();
+		final CountDownLatch finished = new CountDownLatch(threads);
+
+		for (int i = 0; i < threads; i++) {
+			final int errorCode = i + 1;
+			new Thread() {
+				@Override
+				public void run() {
+					long count = 0;
+					while (running.get()) {
+						if (errors.call(errorCode) != errorCode)
+							throw new IllegalStateException("Got the error code of another thread!");
+						count++;
+					}
+					calls.addAndGet(count);
+					finished.countDown();
+				}
+			}.start();
+		}
+
+		Thread.sleep(seconds * 1000L);
+		running.set(false);
+		finished.await();
+		return calls.get();
+	}
+
+	/** The propagation of the last error code. */
+	private interface LastErrors {
+
+		/**
+		 * Simulates a native call, that fails with the given error code, and returns the result of
+		 * <code>GetLastError()</code>.
+		 */
+		int call(int errorCode);
+	}
+
+	/** Propagates the error codes with a new {@link INT} per call and a map per thread. */
+	private static class MapErrors implements LastErrors {
+
+		private final Map<Thread, Integer> lastNativeErrorCodes = Collections.synchronizedMap(new WeakHashMap<Thread, Integer>());
+
+		public int call(int errorCode) {
+			INT lastError = new INT(0);
+			lastError.value = errorCode;
+			lastNativeErrorCodes.put(currentThread(), lastError.value);
+
+			Integer result = lastNativeErrorCodes.get(currentThread());
+			return result == null ? 0 : result;
+		}
+	}
+
+	/** Propagates the error codes with one {@link INT} per thread. */
+	private static class ThreadLocalErrors implements LastErrors {
+
+		private final ThreadLocal<INT> lastNativeErrorCode = new ThreadLocal<INT>() {
+			@Override
+			protected INT initialValue() {
+				return new INT(0);
+			}
+		};
+
+		public int call(int errorCode) {
+			lastNativeErrorCode.get().value = errorCode;
+
+			return lastNativeErrorCode.get().value;
+		}
+	}
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the class {@link AsyncSerialConnectionImpl}.
+ * 
+ * @author Christian Schwarz
+ */
+@SuppressWarnings("javadoc")
+public class TestAsyncSerialConnectionImpl {
+
+	/** a dummy handle of the serial port */
+	private static final int PORT_HANDLE = 12;
+
+	private static final byte[] DATA = { 1, 2, 3 };
+
+	/** needed to verify exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+	@Mock
+	private SerialPort port;
+	@Mock
+	private IoCompletionEngine engine;
+	@Mock
+	private IoCompletionChannel channel;
+	@Mock
+	private CompletionHandler<byte[], String> readHandler;
+	@Mock
+	private CompletionHandler<Integer, String> writeHandler;
+	@Mock
+	private Flow.Subscriber<ByteBuffer> subscriber;
+
+	/** the handler of the channel, that is registered at the engine */
+	private IoCompletionHandler channelHandler;
+
+	/** the class under test */
+	private AsyncSerialConnectionImpl connection;
+
+	@Before
+	public void setUp() throws Exception {
+		initMocks(this);
+
+		when(port.getPortName()).thenReturn("COM1");
+		when(engine.register(eq(port), eq(PORT_HANDLE), any(IoCompletionHandler.class))).thenReturn(channel);
+
+		connection = new AsyncSerialConnectionImpl(port, os, PORT_HANDLE, engine);
+
+		ArgumentCaptor<IoCompletionHandler> handler = ArgumentCaptor.forClass(IoCompletionHandler.class);
+		verify(engine).register(eq(port), eq(PORT_HANDLE), handler.capture());
+		channelHandler = handler.getValue();
+	}
+
+	/**
+	 * Verifies that the handle is closed, when the port couldn't be registered at the engine.
+	 */
+	@Test
+	public void new_registerFails() throws Exception {
+		IOException failure = new IOException("Couldn't associate the port COM1 with the I/O completion port!");
+		when(engine.register(eq(port), eq(PORT_HANDLE), any(IoCompletionHandler.class))).thenThrow(failure);
+
+		try {
+			new AsyncSerialConnectionImpl(port, os, PORT_HANDLE, engine);
+			fail("Expected an IOException!");
+		}
+		catch (IOException e) {
+			assertThat(e, is(sameInstance(failure)));
+		}
+		verify(os).CloseHandle(PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that a pending read is completed with the next received data.
+	 */
+	@Test
+	public void readAsync_completedWithReceivedData() {
+		connection.readAsync("attachment", readHandler);
+		verify(readHandler, never()).completed(any(byte[].class), any(String.class));
+
+		channelHandler.readCompleted(channel, DATA);
+
+		verify(readHandler).completed(DATA, "attachment");
+	}
+
+	/**
+	 * Verifies that data, that was received while no read was pending, is returned by the next
+	 * read.
+	 */
+	@Test
+	public void readAsync_completedWithBufferedData() throws Exception {
+		channelHandler.readCompleted(channel, DATA);
+
+		Future<byte[]> result = connection.readAsync();
+
+		assertThat(result.isDone(), is(true));
+		assertThat(result.get(), is(DATA));
+	}
+
+	/**
+	 * Verifies that the pending reads are completed in the order they were requested.
+	 */
+	@Test
+	public void readAsync_completedInOrder() throws Exception {
+		byte[] second = { 4, 5 };
+		Future<byte[]> firstResult = connection.readAsync();
+		Future<byte[]> secondResult = connection.readAsync();
+
+		channelHandler.readCompleted(channel, DATA);
+		channelHandler.readCompleted(channel, second);
+
+		assertThat(firstResult.get(), is(DATA));
+		assertThat(secondResult.get(), is(second));
+	}
+
+	/**
+	 * Verifies that a write is completed, when the channel completed the write operation.
+	 */
+	@Test
+	public void writeAsync() throws Exception {
+		connection.writeAsync(DATA, "attachment", writeHandler);
+
+		verify(channel).write(DATA);
+		verify(writeHandler, never()).completed(any(Integer.class), any(String.class));
+
+		channelHandler.writeCompleted(channel, DATA.length);
+
+		verify(writeHandler).completed(DATA.length, "attachment");
+	}
+
+	/**
+	 * Verifies that an empty array is completed immediately.
+	 */
+	@Test
+	public void writeAsync_emptyData() throws Exception {
+		Future<Integer> result = connection.writeAsync(new byte[0]);
+
+		assertThat(result.get(), is(0));
+		verify(channel, never()).write(any(byte[].class));
+	}
+
+	/**
+	 * Verifies that the write fails and the connection is closed, when the write couldn't be
+	 * started.
+	 */
+	@Test
+	public void writeAsync_channelFails() throws Exception {
+		IOException failure = new IOException("Port COM1 was closed!");
+		doThrow(failure).when(channel).write(DATA);
+
+		connection.writeAsync(DATA, "attachment", writeHandler);
+
+		verify(writeHandler).failed(failure, "attachment");
+		verify(channel).close();
+		assertThat(connection.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that the buffers are passed unchanged to the gathering write of the channel and the
+	 * blocking write returns, when the channel completed the write operation.
+	 */
+	@Test(timeout = 5000)
+	public void write_byteBuffersAreGathered() throws Exception {
+		final ByteBuffer[] srcs = { ByteBuffer.wrap(DATA), ByteBuffer.allocateDirect(2) };
+		doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				channelHandler.writeCompleted(channel, DATA.length + 2);
+				return null;
+			}
+		}).when(channel).write(srcs);
+
+		long result = connection.write(srcs);
+
+		assertThat(result, is((long) DATA.length + 2));
+		verify(channel, never()).write(any(byte[].class));
+	}
+
+	/**
+	 * Verifies that the blocking read returns the received data.
+	 */
+	@Test
+	public void read() throws Exception {
+		channelHandler.readCompleted(channel, DATA);
+
+		assertThat(connection.read(), is(DATA));
+	}
+
+	/**
+	 * Verifies that the remainder of the received data, that didn't fit into the buffer, is
+	 * returned by the next read.
+	 */
+	@Test
+	public void read_byteBufferKeepsRemainder() throws Exception {
+		channelHandler.readCompleted(channel, DATA);
+		ByteBuffer dst = ByteBuffer.allocate(2);
+
+		assertThat(connection.read(dst), is(2));
+		assertThat(dst.get(0), is((byte) 1));
+		assertThat(dst.get(1), is((byte) 2));
+		assertThat(connection.read(), is(new byte[] { 3 }));
+	}
+
+	/**
+	 * Verifies that the pending operations fail, when the channel is closed, and the handle of the
+	 * port is closed.
+	 */
+	@Test
+	public void close_failsPendingOperations() throws Exception {
+		connection.readAsync("read", readHandler);
+		connection.writeAsync(DATA, "write", writeHandler);
+
+		connection.close();
+		verify(channel).close();
+		verify(os, never()).CloseHandle(PORT_HANDLE);
+
+		channelHandler.closed(channel);
+
+		verify(readHandler).failed(any(IOException.class), eq("read"));
+		verify(writeHandler).failed(any(IOException.class), eq("write"));
+		verify(os).CloseHandle(PORT_HANDLE);
+		assertThat(connection.isClosed(), is(true));
+	}
+
+	/**
+	 * Verifies that the operations fail with the cause of the failure of the channel.
+	 */
+	@Test
+	public void failed_operationsFailWithCause() throws Exception {
+		IOException failure = new IOException("Port COM1 was closed! I/O operation has been aborted.");
+		Future<byte[]> pending = connection.readAsync();
+
+		channelHandler.failed(channel, failure);
+		channelHandler.closed(channel);
+
+		assertThat(connection.isClosed(), is(true));
+		try {
+			pending.get();
+			fail("Expected an ExecutionException!");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), is(sameInstance((Throwable) failure)));
+		}
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+		connection.read();
+	}
+
+	/**
+	 * Verifies that a read after close fails.
+	 */
+	@Test
+	public void read_whenClosed() throws Exception {
+		connection.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		connection.read();
+	}
+
+	/**
+	 * Verifies that reading is suspended, when data is received while there is no demand, and
+	 * resumed by the next read.
+	 */
+	@Test
+	public void readCompleted_withoutDemandSuspendsReading() throws Exception {
+		channelHandler.readCompleted(channel, DATA);
+		verify(channel).suspendReading();
+
+		connection.readAsync();
+		connection.readAsync();
+
+		verify(channel).resumeReading();
+	}
+
+	/**
+	 * Verifies that the subscriber receives only as many items as requested.
+	 */
+	@Test
+	public void dataPublisher_honoursDemand() throws Exception {
+		byte[] second = { 4, 5 };
+		Flow.Subscription subscription = subscribe();
+		verify(channel, never()).resumeReading();
+
+		subscription.request(1);
+		verify(channel).resumeReading();
+
+		channelHandler.readCompleted(channel, DATA);
+		channelHandler.readCompleted(channel, second);
+
+		verify(subscriber).onNext(ByteBuffer.wrap(DATA));
+		verify(subscriber, never()).onNext(ByteBuffer.wrap(second));
+		verify(channel, times(2)).suspendReading();
+
+		subscription.request(2);
+
+		verify(subscriber).onNext(ByteBuffer.wrap(second));
+		// the remaining demand resumes reading
+		verify(channel, times(2)).resumeReading();
+	}
+
+	/**
+	 * Verifies that the subscriber is notified, when a demand that is not positive is requested.
+	 */
+	@Test
+	public void dataPublisher_requestNotPositive() throws Exception {
+		Flow.Subscription subscription = subscribe();
+
+		subscription.request(0);
+
+		verify(subscriber).onError(isA(IllegalArgumentException.class));
+	}
+
+	/**
+	 * Verifies that a second subscriber is rejected.
+	 */
+	@Test
+	public void dataPublisher_secondSubscriber() throws Exception {
+		subscribe();
+		@SuppressWarnings("unchecked")
+		Flow.Subscriber<ByteBuffer> secondSubscriber = mock(Flow.Subscriber.class);
+
+		connection.getDataPublisher().subscribe(secondSubscriber);
+
+		InOrder inOrder = inOrder(secondSubscriber);
+		inOrder.verify(secondSubscriber).onSubscribe(any(Flow.Subscription.class));
+		inOrder.verify(secondSubscriber).onError(isA(IllegalStateException.class));
+	}
+
+	/**
+	 * Verifies that a cancelled subscriber receives no further data.
+	 */
+	@Test
+	public void dataPublisher_cancel() throws Exception {
+		Flow.Subscription subscription = subscribe();
+		subscription.request(5);
+
+		subscription.cancel();
+		channelHandler.readCompleted(channel, DATA);
+
+		verify(subscriber, never()).onNext(any(ByteBuffer.class));
+	}
+
+	/**
+	 * Verifies that the subscriber is completed, when the connection is closed.
+	 */
+	@Test
+	public void dataPublisher_completedOnClose() throws Exception {
+		subscribe();
+
+		connection.close();
+		channelHandler.closed(channel);
+
+		verify(subscriber).onComplete();
+		verify(subscriber, never()).onError(any(Throwable.class));
+	}
+
+	/**
+	 * Verifies that the subscriber receives the failure of the channel.
+	 */
+	@Test
+	public void dataPublisher_failedChannel() throws Exception {
+		IOException failure = new IOException("Port COM1 was closed! I/O operation has been aborted.");
+		subscribe();
+
+		channelHandler.failed(channel, failure);
+		channelHandler.closed(channel);
+
+		verify(subscriber).onError(failure);
+		verify(subscriber, never()).onComplete();
+	}
+
+	/** Subscribes the data publisher and returns the subscription. */
+	private Flow.Subscription subscribe() {
+		connection.getDataPublisher().subscribe(subscriber);
+		ArgumentCaptor<Flow.Subscription> subscription = ArgumentCaptor.forClass(Flow.Subscription.class);
+		verify(subscriber).onSubscribe(subscription.capture());
+		return subscription.getValue();
+	}
+}
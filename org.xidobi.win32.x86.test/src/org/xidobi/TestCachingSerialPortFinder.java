@@ -0,0 +1,658 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.WinApi.ERROR_NO_MORE_ITEMS;
+import static org.xidobi.WinApi.ERROR_SUCCESS;
+import static org.xidobi.WinApi.HKEY_LOCAL_MACHINE;
+import static org.xidobi.WinApi.KEY_READ;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.REG_NOTIFY_CHANGE_LAST_SET;
+import static org.xidobi.WinApi.REG_NOTIFY_CHANGE_NAME;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.structs.HKEY;
+import org.xidobi.structs.INT;
+
+/**
+ * Tests the class {@link CachingSerialPortFinder}.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestCachingSerialPortFinder {
+
+	/** Some unspecified error code */
+	private static final int AN_ERROR_CODE = 123;
+	/** Size of HKEY */
+	private static final int SIZE_OF_HKEY = 1;
+	/** Pointer to HKEY */
+	private static final int HKEY_POINTER = 2;
+	/** Handle of the event, that is signaled on changes */
+	private static final int EVENT_HANDLE = 3;
+	/** Handle of the event, that stops the background thread */
+	private static final int STOP_EVENT_HANDLE = 4;
+	/** the time in milliseconds, the tests wait for an event */
+	private static final int TIMEOUT = 5000;
+	/** Subkey for serial ports in the Windows Registry */
+	private static final String HARDWARE_DEVICEMAP_SERIALCOMM = "HARDWARE\\DEVICEMAP\\SERIALCOMM\\";
+
+	/** Class under test */
+	private CachingSerialPortFinder finder;
+
+	@Mock
+	private WinApi os;
+
+	/** the simulated values of the registry key, pairs of description and port name */
+	private final List<String[]> registry = new CopyOnWriteArrayList<String[]>();
+
+	/** the events, that are signaled to the background thread */
+	private final BlockingQueue<Integer> signaled = new LinkedBlockingQueue<Integer>();
+
+	/** the notifications of the listener */
+	private final BlockingQueue<String> notified = new LinkedBlockingQueue<String>();
+
+	/** records the notifications */
+	private final PortListener listener = new PortListener() {
+		public void portAdded(SerialPort port) {
+			notified.add("added " + port.getPortName() + " " + port.getDescription());
+		}
+
+		public void portRemoved(SerialPort port) {
+			notified.add("removed " + port.getPortName() + " " + port.getDescription());
+		}
+	};
+
+	/** <code>true</code>, if the simulated registry was changed since the notification was registered */
+	private boolean isChanged;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+		finder = new CachingSerialPortFinder(os);
+
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_2);
+		when(os.sizeOf_HKEY()).thenReturn(SIZE_OF_HKEY);
+		when(os.malloc(SIZE_OF_HKEY)).thenReturn(HKEY_POINTER);
+		when(os.CreateEventA(0, false, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.CreateEventA(0, true, false, null)).thenReturn(STOP_EVENT_HANDLE);
+		doAnswer(setEvent()).when(os).SetEvent(STOP_EVENT_HANDLE);
+		doAnswer(waitForSignal()).when(os).WaitForMultipleObjects(anyInt(), any(int[].class), eq(false), anyInt());
+		when(os.RegOpenKeyExA(eq(HKEY_LOCAL_MACHINE), eq(HARDWARE_DEVICEMAP_SERIALCOMM), eq(0), eq(KEY_READ), any(HKEY.class))).thenReturn(ERROR_SUCCESS);
+		doAnswer(notifyChange()).when(os).RegNotifyChangeKeyValue(any(HKEY.class), eq(false), eq(REG_NOTIFY_CHANGE_NAME | REG_NOTIFY_CHANGE_LAST_SET), eq(EVENT_HANDLE), eq(true));
+		doAnswer(enumValue()).when(os).RegEnumValueA(any(HKEY.class), anyInt(), any(byte[].class), any(INT.class), eq(0), any(INT.class), any(byte[].class), any(INT.class));
+		doAnswer(waitForChange()).when(os).WaitForSingleObject(EVENT_HANDLE, 0);
+
+		add("\\Device\\Serial0", "COM1");
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>os == null</code> is
+	 * passed to the constructor.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullOS() {
+		new CachingSerialPortFinder(null);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>portName == null</code>
+	 * is passed.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void get_withNullPortName() {
+		finder.get(null);
+	}
+
+	/**
+	 * Verifies that the registry is read only once, if it is not changed.
+	 */
+	@Test
+	public void get_readsRegistryOnce() {
+		for (int i = 0; i < 100; i++)
+			assertThat(finder.get("COM1"), is(notNullValue()));
+		assertThat(finder.get("COM2"), is(nullValue()));
+
+		assertThat(finder.getRefreshCount(), is(1L));
+		verify(os, times(2)).RegEnumValueA(any(HKEY.class), anyInt(), any(byte[].class), any(INT.class), eq(0), any(INT.class), any(byte[].class), any(INT.class));
+		verify(os, times(1)).RegNotifyChangeKeyValue(any(HKEY.class), anyBoolean(), anyInt(), anyInt(), anyBoolean());
+	}
+
+	/**
+	 * Verifies that the notification is registered before the registry is read, so no change is
+	 * missed.
+	 */
+	@Test
+	public void get_watchesBeforeReading() {
+		finder.get("COM1");
+
+		InOrder inOrder = inOrder(os);
+		inOrder.verify(os).RegNotifyChangeKeyValue(any(HKEY.class), eq(false), anyInt(), eq(EVENT_HANDLE), eq(true));
+		inOrder.verify(os).RegEnumValueA(any(HKEY.class), eq(0), any(byte[].class), any(INT.class), eq(0), any(INT.class), any(byte[].class), any(INT.class));
+	}
+
+	/**
+	 * Verifies that the registry is read again, after it was changed.
+	 */
+	@Test
+	public void get_afterChange() {
+		assertThat(finder.get("COM2"), is(nullValue()));
+
+		add("\\Device\\Serial1", "COM2");
+
+		assertThat(finder.get("COM2"), is(notNullValue()));
+		assertThat(finder.getRefreshCount(), is(2L));
+		verify(os, times(2)).RegNotifyChangeKeyValue(any(HKEY.class), anyBoolean(), anyInt(), anyInt(), anyBoolean());
+	}
+
+	/**
+	 * Verifies that a port, whose name and description are unchanged, is the same instance after
+	 * a refresh.
+	 */
+	@Test
+	public void get_keepsIdentityOfUnchangedPorts() {
+		SerialPort com1 = finder.get("COM1");
+
+		add("\\Device\\Serial1", "COM2");
+
+		assertThat(finder.get("COM1"), is(sameInstance(com1)));
+	}
+
+	/**
+	 * Verifies that a new instance is returned, if the description of a port was changed.
+	 */
+	@Test
+	public void get_changedDescription() {
+		SerialPort com1 = finder.get("COM1");
+
+		registry.clear();
+		add("\\Device\\USBSER000", "COM1");
+
+		SerialPort result = finder.get("COM1");
+		assertThat(result, is(not(sameInstance(com1))));
+		assertThat(result.getDescription(), is("\\Device\\USBSER000"));
+	}
+
+	/**
+	 * Verifies that a removed port isn't found anymore.
+	 */
+	@Test
+	public void get_removedPort() {
+		finder.get("COM1");
+
+		registry.clear();
+		isChanged = true;
+
+		assertThat(finder.get("COM1"), is(nullValue()));
+	}
+
+	/**
+	 * Verifies that all cached ports are returned.
+	 */
+	@Test
+	public void getAll() {
+		add("\\Device\\Serial1", "COM2");
+
+		assertThat(finder.getAll(), containsInAnyOrder(finder.get("COM1"), finder.get("COM2")));
+		assertThat(finder.getRefreshCount(), is(1L));
+	}
+
+	/**
+	 * Verifies that the registry is read for every call, if the notification cannot be registered.
+	 */
+	@Test
+	public void get_whenRegNotifyChangeKeyValueNotSuccessful() {
+		when(os.RegNotifyChangeKeyValue(any(HKEY.class), anyBoolean(), anyInt(), anyInt(), anyBoolean())).thenReturn(AN_ERROR_CODE);
+
+		finder.get("COM1");
+		finder.get("COM1");
+
+		assertThat(finder.getRefreshCount(), is(2L));
+	}
+
+	/**
+	 * Verifies that the registry is read for every call, if the event cannot be created.
+	 */
+	@Test
+	public void get_whenCreateEventANotSuccessful() {
+		when(os.CreateEventA(0, false, false, null)).thenReturn(0);
+
+		finder.get("COM1");
+		finder.get("COM1");
+
+		assertThat(finder.getRefreshCount(), is(2L));
+	}
+
+	/**
+	 * Verifies that the event is closed and the HKEY is disposed, when the registry key cannot be
+	 * opened.
+	 */
+	@Test
+	public void get_whenRegOpenKeyExANotSuccessful() {
+		when(os.RegOpenKeyExA(eq(HKEY_LOCAL_MACHINE), eq(HARDWARE_DEVICEMAP_SERIALCOMM), eq(0), eq(KEY_READ), any(HKEY.class))).thenReturn(AN_ERROR_CODE, ERROR_SUCCESS);
+
+		assertThat(finder.get("COM1"), is(notNullValue()));
+
+		verify(os).CloseHandle(EVENT_HANDLE);
+		// the failed key and the key of the refresh
+		verify(os, times(2)).malloc(SIZE_OF_HKEY);
+		verify(os, times(2)).free(HKEY_POINTER);
+	}
+
+	/**
+	 * Verifies that the registry key and the event are closed, when the finder is disposed.
+	 */
+	@Test
+	public void dispose() {
+		finder.get("COM1");
+
+		finder.dispose();
+
+		verify(os, times(2)).RegCloseKey(any(HKEY.class));
+		verify(os).CloseHandle(EVENT_HANDLE);
+		// the watched key and the key of the refresh
+		verify(os, times(2)).free(HKEY_POINTER);
+	}
+
+	/**
+	 * Verifies that nothing is closed, when the finder was never used.
+	 */
+	@Test
+	public void dispose_unused() {
+		finder.dispose();
+
+		verify(os, times(0)).CloseHandle(anyInt());
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>listener == null</code>
+	 * is passed.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void addListener_withNullListener() {
+		finder.addListener(null);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when a listener is added to a
+	 * disposed finder.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void addListener_whenDisposed() {
+		finder.dispose();
+
+		finder.addListener(listener);
+	}
+
+	/**
+	 * Verifies that the listener is notified about an added port.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void addListener_notifiesAddedPort() throws Exception {
+		finder.addListener(listener);
+
+		add("\\Device\\Serial1", "COM2");
+		signalChange();
+
+		assertThat(notified.take(), is("added COM2 \\Device\\Serial1"));
+		assertThat(finder.get("COM2"), is(notNullValue()));
+	}
+
+	/**
+	 * Verifies that the listener is notified about a removed port.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void addListener_notifiesRemovedPort() throws Exception {
+		finder.addListener(listener);
+
+		registry.clear();
+		signalChange();
+
+		assertThat(notified.take(), is("removed COM1 \\Device\\Serial0"));
+		assertThat(finder.get("COM1"), is(nullValue()));
+	}
+
+	/**
+	 * Verifies that a port, whose description was changed, is notified as removed and added.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void addListener_notifiesChangedDescription() throws Exception {
+		finder.addListener(listener);
+
+		registry.clear();
+		add("\\Device\\USBSER000", "COM1");
+		signalChange();
+
+		assertThat(notified.take(), is("removed COM1 \\Device\\Serial0"));
+		assertThat(notified.take(), is("added COM1 \\Device\\USBSER000"));
+	}
+
+	/**
+	 * Verifies that the listener is not notified about the ports, that existed before it was
+	 * added.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void addListener_notifiesNoExistingPorts() throws Exception {
+		finder.addListener(listener);
+
+		signalChange();
+		add("\\Device\\Serial1", "COM2");
+		signalChange();
+
+		assertThat(notified.take(), is("added COM2 \\Device\\Serial1"));
+		assertThat(notified.isEmpty(), is(true));
+	}
+
+	/**
+	 * Verifies that the other listeners are notified, if a listener throws an exception.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void addListener_withFaultyListener() throws Exception {
+		PortListener faulty = mock(PortListener.class);
+		doThrow(new IllegalStateException()).when(faulty).portAdded(any(SerialPort.class));
+		finder.addListener(faulty);
+		finder.addListener(listener);
+
+		add("\\Device\\Serial1", "COM2");
+		signalChange();
+
+		assertThat(notified.take(), is("added COM2 \\Device\\Serial1"));
+	}
+
+	/**
+	 * Verifies that the cache is refreshed by the background thread, while a listener is
+	 * registered, so the lookups don't consume the notification.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void get_whileListening() throws Exception {
+		finder.addListener(listener);
+
+		add("\\Device\\Serial1", "COM2");
+		signalChange();
+		notified.take();
+
+		assertThat(finder.get("COM2"), is(notNullValue()));
+		verify(os, never()).WaitForSingleObject(EVENT_HANDLE, 0);
+	}
+
+	/**
+	 * Verifies that the background thread keeps running, while other listeners are registered.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void removeListener_withOtherListeners() throws Exception {
+		finder.addListener(listener);
+		finder.addListener(mock(PortListener.class));
+
+		finder.removeListener(mock(PortListener.class));
+		finder.removeListener(listener);
+		finder.addListener(listener);
+		add("\\Device\\Serial1", "COM2");
+		signalChange();
+
+		assertThat(notified.take(), is("added COM2 \\Device\\Serial1"));
+		verify(os, never()).SetEvent(STOP_EVENT_HANDLE);
+	}
+
+	/**
+	 * Verifies that the stop event is signaled and closed, when the last listener was removed.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void removeListener_lastListener() {
+		finder.addListener(listener);
+
+		finder.removeListener(listener);
+
+		verify(os).SetEvent(STOP_EVENT_HANDLE);
+		verify(os, timeout(TIMEOUT)).CloseHandle(STOP_EVENT_HANDLE);
+	}
+
+	/**
+	 * Verifies that a listener isn't notified anymore, after it was removed, even if the
+	 * notification was already running.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void removeListener_waitsForRunningNotification() throws Exception {
+		final CountDownLatch notifying = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		PortListener blocking = new PortListener() {
+			public void portAdded(SerialPort port) {
+				notifying.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			public void portRemoved(SerialPort port) {}
+		};
+		finder.addListener(blocking);
+		finder.addListener(listener);
+		add("\\Device\\Serial1", "COM2");
+		signalChange();
+		notifying.await();
+
+		Thread remover = new Thread() {
+			@Override
+			public void run() {
+				finder.removeListener(listener);
+			}
+		};
+		remover.start();
+		remover.join(100);
+		assertThat(remover.isAlive(), is(true));
+
+		release.countDown();
+		remover.join();
+		assertThat(notified.isEmpty(), is(true));
+	}
+
+	/**
+	 * Verifies that the listeners are notified about the changes, when the native library doesn't
+	 * support the notification of registry changes. The registry is polled, while the thread waits
+	 * for the stop event.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void addListener_nativeVersion1() throws Exception {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+		doAnswer(pollForStop()).when(os).WaitForSingleObject(STOP_EVENT_HANDLE, CachingSerialPortFinder.POLL_INTERVAL);
+		finder.addListener(listener);
+
+		add("\\Device\\Serial1", "COM2");
+
+		assertThat(notified.take(), is("added COM2 \\Device\\Serial1"));
+
+		finder.removeListener(listener);
+
+		verify(os, timeout(TIMEOUT)).CloseHandle(STOP_EVENT_HANDLE);
+		verify(os, never()).RegNotifyChangeKeyValue(any(HKEY.class), anyBoolean(), anyInt(), anyInt(), anyBoolean());
+		verify(os, never()).WaitForMultipleObjects(anyInt(), any(int[].class), anyBoolean(), anyInt());
+	}
+
+	/**
+	 * Verifies that the registry is read for every call, when the native library doesn't support
+	 * the notification of registry changes.
+	 */
+	@Test
+	public void get_nativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+
+		finder.get("COM1");
+		finder.get("COM1");
+
+		assertThat(finder.getRefreshCount(), is(2L));
+		verify(os, never()).RegNotifyChangeKeyValue(any(HKEY.class), anyBoolean(), anyInt(), anyInt(), anyBoolean());
+	}
+
+	/**
+	 * Verifies that the background thread has terminated, when the finder was disposed.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void dispose_whileListening() {
+		finder.addListener(listener);
+
+		finder.dispose();
+
+		verify(os).CloseHandle(STOP_EVENT_HANDLE);
+		verify(os).CloseHandle(EVENT_HANDLE);
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Signals a change of the registry key to the background thread. */
+	private void signalChange() {
+		signaled.add(EVENT_HANDLE);
+	}
+
+	/** Returns an answer that mocks the behaviour of the native method SetEvent(). */
+	private Answer<Boolean> setEvent() {
+		return new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				signaled.add((Integer) invocation.getArguments()[0]);
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns an answer that mocks a WaitForMultipleObjects(), which blocks until one of the
+	 * events is signaled.
+	 */
+	private Answer<Integer> waitForSignal() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				int[] handles = (int[]) invocation.getArguments()[1];
+				while (true) {
+					int handle = signaled.take();
+					for (int i = 0; i < handles.length; i++)
+						if (handles[i] == handle)
+							return WAIT_OBJECT_0 + i;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns an answer that mocks a WaitForSingleObject() on the stop event, which returns
+	 * immediately after a short poll, unless the stop event is signaled.
+	 */
+	private Answer<Integer> pollForStop() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				Integer handle = signaled.poll(10, MILLISECONDS);
+				if (handle != null && handle == STOP_EVENT_HANDLE)
+					return WAIT_OBJECT_0;
+				return WAIT_TIMEOUT;
+			}
+		};
+	}
+
+	/** Adds a value to the simulated registry key. */
+	private void add(String description, String portName) {
+		registry.add(new String[] { description, portName });
+		isChanged = true;
+	}
+
+	/** Returns an answer that mocks the behaviour of the native method RegEnumValueA(). */
+	private Answer<Integer> enumValue() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				int index = (Integer) invocation.getArguments()[1];
+				if (index >= registry.size())
+					return ERROR_NO_MORE_ITEMS;
+
+				String[] value = registry.get(index);
+				copyToBytes(value[0], (byte[]) invocation.getArguments()[2], (INT) invocation.getArguments()[3]);
+				// the data includes the terminating null character
+				copyToBytes(value[1] + "\0", (byte[]) invocation.getArguments()[6], (INT) invocation.getArguments()[7]);
+				return ERROR_SUCCESS;
+			}
+		};
+	}
+
+	/**
+	 * Returns an answer that mocks the behaviour of the native method RegNotifyChangeKeyValue(),
+	 * only the changes after the registration are notified.
+	 */
+	private Answer<Integer> notifyChange() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				isChanged = false;
+				return ERROR_SUCCESS;
+			}
+		};
+	}
+
+	/** Returns an answer that mocks a non-blocking WaitForSingleObject() on the event. */
+	private Answer<Integer> waitForChange() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				if (!isChanged)
+					return WAIT_TIMEOUT;
+				isChanged = false;
+				return WAIT_OBJECT_0;
+			}
+		};
+	}
+
+	/**
+	 * Copies the bytes from the given {@link String} to the byte[] and sets the size on the
+	 * pointer.
+	 */
+	private void copyToBytes(String source, byte[] destination, INT sizePointer) {
+		byte[] bytes = source.getBytes();
+		System.arraycopy(bytes, 0, destination, 0, bytes.length);
+		sizePointer.value = bytes.length;
+	}
+}
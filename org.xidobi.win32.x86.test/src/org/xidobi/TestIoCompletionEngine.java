@@ -0,0 +1,760 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.IoCompletionEngine.SHUTDOWN_KEY;
+import static org.xidobi.WinApi.ERROR_ABANDONED_WAIT_0;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.INFINITE;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.NULL;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.io.IOException;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Tests the classes {@link IoCompletionEngine} and {@link IoCompletionChannel}.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestIoCompletionEngine {
+
+	/** the time in milliseconds to wait for the worker thread */
+	private static final int TIMEOUT = 2000;
+	/** the error code of an invalid parameter */
+	private static final int ERROR_INVALID_PARAMETER = 87;
+
+	/** a dummy handle of the I/O completion port */
+	private static final int COMPLETION_PORT = 100;
+	/** a dummy handle of the serial port */
+	private static final int PORT_HANDLE = 200;
+	/** the completion key of the first registered channel */
+	private static final int FIRST_KEY = SHUTDOWN_KEY + 1;
+
+	/** the dummy data that is read */
+	private static final byte[] DATA = { 1, 2, 3, 4, 5 };
+
+	/** expected exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+	@Mock
+	private SerialPort port;
+	@Mock
+	private IoCompletionHandler handler;
+
+	/** the next address returned by <code>malloc</code> */
+	private final AtomicInteger nextAddress = new AtomicInteger(1);
+
+	/** Class under test. */
+	private IoCompletionEngine engine;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_2);
+
+		when(os.sizeOf_OVERLAPPED()).thenReturn(1);
+		when(os.sizeOf_DWORD()).thenReturn(2);
+		doAnswer(new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return nextAddress.getAndIncrement();
+			}
+		}).when(os).malloc(anyInt());
+		when(os.getValue_DWORD(any(DWORD.class))).thenReturn(EV_RXCHAR);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.CloseHandle(COMPLETION_PORT)).thenReturn(true);
+		when(port.getPortName()).thenReturn("COM1");
+
+		when(os.CreateIoCompletionPort(INVALID_HANDLE_VALUE, NULL, 0, 2)).thenReturn(COMPLETION_PORT);
+		when(os.CreateIoCompletionPort(eq(PORT_HANDLE), eq(COMPLETION_PORT), anyInt(), eq(0))).thenReturn(COMPLETION_PORT);
+
+		engine = new IoCompletionEngine(os, 2);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>os == null</code>.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullOS() {
+		new IoCompletionEngine(null, 2);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the number of threads is
+	 * 0.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_with0Threads() {
+		new IoCompletionEngine(os, 0);
+	}
+
+	/**
+	 * Verifies that an {@link UnsupportedOperationException} is thrown, when the native library
+	 * doesn't support I/O completion ports.
+	 */
+	@SuppressWarnings("unused")
+	@Test
+	public void new_nativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+
+		exception.expect(UnsupportedOperationException.class);
+		exception.expectMessage("The I/O completion engine requires version 2 of the native library, but version 1 is loaded!");
+
+		new IoCompletionEngine(os, 3);
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when the I/O completion port couldn't
+	 * be created.
+	 */
+	@SuppressWarnings("unused")
+	@Test
+	public void new_CreateIoCompletionPortFails() {
+		when(os.CreateIoCompletionPort(INVALID_HANDLE_VALUE, NULL, 0, 3)).thenReturn(NULL);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("CreateIoCompletionPort failed unexpected!");
+
+		new IoCompletionEngine(os, 3);
+	}
+
+	/**
+	 * Verifies that the shared engine is started and reused, until it was shut down.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 5000)
+	public void getSharedEngine() throws Exception {
+		// the worker threads terminate immediately
+		doAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				((INT) invocation.getArguments()[2]).value = SHUTDOWN_KEY;
+				return true;
+			}
+		}).when(os).GetQueuedCompletionStatus(anyInt(), any(INT.class), any(INT.class), any(INT.class), anyInt());
+		when(os.CreateIoCompletionPort(eq(INVALID_HANDLE_VALUE), eq(NULL), eq(0), anyInt())).thenReturn(COMPLETION_PORT);
+		when(os.PostQueuedCompletionStatus(COMPLETION_PORT, 0, SHUTDOWN_KEY, NULL)).thenReturn(true);
+
+		IoCompletionEngine shared = IoCompletionEngine.getSharedEngine(os);
+
+		assertThat(IoCompletionEngine.getSharedEngine(os), is(sameInstance(shared)));
+		int numberOfThreads = Runtime.getRuntime().availableProcessors();
+		verify(os).CreateIoCompletionPort(INVALID_HANDLE_VALUE, NULL, 0, numberOfThreads);
+
+		shared.shutdown();
+
+		assertThat(shared.isShutdown(), is(true));
+		assertThat(IoCompletionEngine.getSharedEngine(os), is(not(sameInstance(shared))));
+		IoCompletionEngine.getSharedEngine(os).shutdown();
+	}
+
+	/**
+	 * Verifies that an {@link UnsupportedOperationException} is thrown, when the shared engine is
+	 * requested and the native library doesn't support I/O completion ports.
+	 */
+	@Test
+	public void getSharedEngine_nativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+
+		exception.expect(UnsupportedOperationException.class);
+		exception.expectMessage("The I/O completion engine requires version 2 of the native library, but version 1 is loaded!");
+
+		IoCompletionEngine.getSharedEngine(os);
+	}
+
+	/**
+	 * Verifies that the handle of a registered port is associated with the I/O completion port and
+	 * the channel starts waiting for data.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void register() throws Exception {
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+
+		assertThat(channel.getPort(), is(port));
+		assertThat(channel.isClosed(), is(false));
+		assertThat(engine.getNumberOfChannels(), is(1));
+		verify(os).CreateIoCompletionPort(PORT_HANDLE, COMPLETION_PORT, FIRST_KEY, 0);
+		verify(os).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), any(OVERLAPPED.class));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the handle couldn't be associated with
+	 * the I/O completion port.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void register_CreateIoCompletionPortFails() throws Exception {
+		when(os.CreateIoCompletionPort(PORT_HANDLE, COMPLETION_PORT, FIRST_KEY, 0)).thenReturn(NULL);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Couldn't associate the port COM1 with the I/O completion port!");
+
+		engine.register(port, PORT_HANDLE, handler);
+	}
+
+	/**
+	 * Verifies that the channel is closed, when the first <code>WaitCommEvent</code> fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void register_WaitCommEventFails() throws Exception {
+		when(os.GetLastError()).thenReturn(ERROR_INVALID_HANDLE);
+
+		try {
+			engine.register(port, PORT_HANDLE, handler);
+		}
+		catch (IOException e) {
+			assertThat(e.getMessage(), is("Port COM1 was closed! I/O operation failed, because the handle is invalid."));
+		}
+
+		assertThat(engine.getNumberOfChannels(), is(0));
+		verify(handler).closed(any(IoCompletionChannel.class));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when a port is registered at an
+	 * engine that was shut down.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void register_afterShutdown() throws Exception {
+		engine.shutdown();
+
+		exception.expect(IllegalStateException.class);
+
+		engine.register(port, PORT_HANDLE, handler);
+	}
+
+	/**
+	 * Verifies that the available bytes are read, when the <code>WaitCommEvent</code> completes,
+	 * and the data is passed to the handler, before the next <code>WaitCommEvent</code> is
+	 * started.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void processNextCompletion_readsAvailableData() throws Exception {
+		mockAvailableBytes(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		int readOverlapped = getReadOverlappedAddress();
+
+		dequeue(true, FIRST_KEY, readOverlapped, 0);
+		verify(os).ReadFile(eq(PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), any(DWORD.class), any(OVERLAPPED.class));
+		verify(handler, never()).readCompleted(any(IoCompletionChannel.class), any(byte[].class));
+
+		dequeue(true, FIRST_KEY, readOverlapped, DATA.length);
+		verify(handler).readCompleted(channel, DATA);
+		verify(os, times(2)).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), any(OVERLAPPED.class));
+	}
+
+	/**
+	 * Verifies that the channel waits again, if no bytes are available after the
+	 * <code>WaitCommEvent</code> completed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void processNextCompletion_noAvailableBytes() throws Exception {
+		mockAvailableBytes(0);
+		engine.register(port, PORT_HANDLE, handler);
+
+		dequeue(true, FIRST_KEY, getReadOverlappedAddress(), 0);
+
+		verify(os, never()).ReadFile(anyInt(), any(NativeByteArray.class), anyInt(), any(DWORD.class), any(OVERLAPPED.class));
+		verify(os, times(2)).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), any(OVERLAPPED.class));
+	}
+
+	/**
+	 * Verifies that the handler is notified and the channel is closed, when a communication error
+	 * event released the <code>WaitCommEvent</code>.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void processNextCompletion_communicationError() throws Exception {
+		when(os.getValue_DWORD(any(DWORD.class))).thenReturn(0);
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+
+		dequeue(true, FIRST_KEY, getReadOverlappedAddress(), 0);
+
+		verify(handler).failed(eq(channel), argThat(hasMessage("Port COM1 was closed! Read operation failed, because a communication error event was signaled!")));
+		verify(handler).closed(channel);
+		assertThat(channel.isClosed(), is(true));
+		assertThat(engine.getNumberOfChannels(), is(0));
+	}
+
+	/**
+	 * Verifies that the handler is notified and the channel is closed, when a completion packet of
+	 * a failed operation is dequeued.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void processNextCompletion_operationFailed() throws Exception {
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		when(os.GetLastError()).thenReturn(ERROR_OPERATION_ABORTED);
+
+		dequeue(false, FIRST_KEY, getReadOverlappedAddress(), 0);
+
+		verify(handler).failed(eq(channel), argThat(hasMessage("Port COM1 was closed! I/O operation has been aborted.")));
+		verify(handler).closed(channel);
+	}
+
+	/**
+	 * Verifies that a dequeued shutdown packet terminates the worker.
+	 */
+	@Test
+	public void processNextCompletion_shutdownPacket() {
+		mockGetQueuedCompletionStatus(true, SHUTDOWN_KEY, NULL, 0);
+
+		assertThat(engine.processNextCompletion(new INT(), new INT(), new INT(), 0), is(false));
+	}
+
+	/**
+	 * Verifies that the worker continues, when no packet was dequeued within the time-out.
+	 */
+	@Test
+	public void processNextCompletion_timeout() {
+		mockGetQueuedCompletionStatus(false, SHUTDOWN_KEY, NULL, 0);
+		when(os.GetLastError()).thenReturn(WAIT_TIMEOUT);
+
+		assertThat(engine.processNextCompletion(new INT(), new INT(), new INT(), 0), is(true));
+	}
+
+	/**
+	 * Verifies that the handler is notified and the channel is closed, when the handler throws a
+	 * {@link RuntimeException} while received data is passed to it.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void processNextCompletion_handlerThrows() throws Exception {
+		mockAvailableBytes(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		doThrow(new IllegalStateException("handler failed")).when(handler).readCompleted(channel, DATA);
+		int readOverlapped = getReadOverlappedAddress();
+
+		dequeue(true, FIRST_KEY, readOverlapped, 0);
+		dequeue(true, FIRST_KEY, readOverlapped, DATA.length);
+
+		verify(handler).failed(eq(channel), argThat(hasMessage("handler failed")));
+		verify(handler).closed(channel);
+		assertThat(channel.isClosed(), is(true));
+		assertThat(engine.getNumberOfChannels(), is(0));
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when
+	 * <code>GetQueuedCompletionStatus</code> fails without dequeuing a packet.
+	 */
+	@Test
+	public void processNextCompletion_GetQueuedCompletionStatusFails() {
+		mockGetQueuedCompletionStatus(false, SHUTDOWN_KEY, NULL, 0);
+		when(os.GetLastError()).thenReturn(ERROR_INVALID_PARAMETER);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetQueuedCompletionStatus failed unexpected!");
+
+		engine.processNextCompletion(new INT(), new INT(), new INT(), 0);
+	}
+
+	/**
+	 * Verifies that the worker terminates, when the I/O completion port was closed.
+	 */
+	@Test
+	public void processNextCompletion_completionPortClosed() {
+		mockGetQueuedCompletionStatus(false, SHUTDOWN_KEY, NULL, 0);
+		when(os.GetLastError()).thenReturn(ERROR_ABANDONED_WAIT_0);
+
+		assertThat(engine.processNextCompletion(new INT(), new INT(), new INT(), 0), is(false));
+	}
+
+	/**
+	 * Verifies that a worker thread continues to dispatch the completions of the other channels,
+	 * after <code>GetQueuedCompletionStatus</code> failed and the handler of a channel has thrown
+	 * an exception.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 5000)
+	public void worker_survivesFailures() throws Exception {
+		when(os.CreateIoCompletionPort(INVALID_HANDLE_VALUE, NULL, 0, 1)).thenReturn(COMPLETION_PORT);
+		mockAvailableBytes(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		final AtomicInteger lastError = new AtomicInteger(ERROR_IO_PENDING);
+		doAnswer(new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return lastError.get();
+			}
+		}).when(os).GetLastError();
+		final BlockingQueue<int[]> packets = new LinkedBlockingQueue<int[]>();
+		doAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				int[] packet = packets.take();
+				((INT) invocation.getArguments()[1]).value = packet[2];
+				((INT) invocation.getArguments()[2]).value = packet[0];
+				((INT) invocation.getArguments()[3]).value = packet[1];
+				lastError.set(packet[3]);
+				return packet[3] == ERROR_IO_PENDING;
+			}
+		}).when(os).GetQueuedCompletionStatus(eq(COMPLETION_PORT), any(INT.class), any(INT.class), any(INT.class), eq(INFINITE));
+		final BlockingQueue<Throwable> reported = new LinkedBlockingQueue<Throwable>();
+		UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+		Thread.setDefaultUncaughtExceptionHandler(new UncaughtExceptionHandler() {
+			public void uncaughtException(Thread t, Throwable e) {
+				reported.add(e);
+			}
+		});
+		try {
+			engine = new IoCompletionEngine(os, 1);
+			IoCompletionChannel failingChannel = engine.register(port, PORT_HANDLE, handler);
+			IoCompletionHandler otherHandler = mock(IoCompletionHandler.class);
+			IoCompletionChannel otherChannel = engine.register(port, PORT_HANDLE, otherHandler);
+			doThrow(new IllegalStateException("handler failed")).when(handler).readCompleted(failingChannel, DATA);
+			ArgumentCaptor<OVERLAPPED> overlapped = ArgumentCaptor.forClass(OVERLAPPED.class);
+			verify(os, times(2)).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), overlapped.capture());
+			int failingOverlapped = overlapped.getAllValues().get(0).getAddress();
+			int otherOverlapped = overlapped.getAllValues().get(1).getAddress();
+			engine.start();
+
+			packets.put(new int[] { SHUTDOWN_KEY, NULL, 0, ERROR_INVALID_PARAMETER });
+			packets.put(new int[] { FIRST_KEY, failingOverlapped, 0, ERROR_IO_PENDING });
+			packets.put(new int[] { FIRST_KEY, failingOverlapped, DATA.length, ERROR_IO_PENDING });
+			packets.put(new int[] { FIRST_KEY + 1, otherOverlapped, 0, ERROR_IO_PENDING });
+			packets.put(new int[] { FIRST_KEY + 1, otherOverlapped, DATA.length, ERROR_IO_PENDING });
+
+			verify(otherHandler, timeout(TIMEOUT)).readCompleted(otherChannel, DATA);
+			verify(handler).failed(eq(failingChannel), argThat(hasMessage("handler failed")));
+			assertThat(failingChannel.isClosed(), is(true));
+			assertThat(otherChannel.isClosed(), is(false));
+			assertThat(reported.take().getMessage().startsWith("GetQueuedCompletionStatus failed unexpected!"), is(true));
+		}
+		finally {
+			packets.put(new int[] { SHUTDOWN_KEY, NULL, 0, ERROR_IO_PENDING });
+			Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+		}
+	}
+
+	/**
+	 * Verifies that no further read operation is started, while reading is suspended.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void suspendReading() throws Exception {
+		mockAvailableBytes(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		int readOverlapped = getReadOverlappedAddress();
+		dequeue(true, FIRST_KEY, readOverlapped, 0);
+
+		channel.suspendReading();
+		dequeue(true, FIRST_KEY, readOverlapped, DATA.length);
+
+		assertThat(channel.isReadingSuspended(), is(true));
+		verify(handler).readCompleted(channel, DATA);
+		verify(os, times(1)).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), any(OVERLAPPED.class));
+	}
+
+	/**
+	 * Verifies that the available bytes are read immediately, when reading is resumed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void resumeReading() throws Exception {
+		mockAvailableBytes(0);
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		channel.suspendReading();
+		dequeue(true, FIRST_KEY, getReadOverlappedAddress(), 0);
+		verify(os, times(1)).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), any(OVERLAPPED.class));
+
+		mockAvailableBytes(DATA.length);
+		channel.resumeReading();
+
+		assertThat(channel.isReadingSuspended(), is(false));
+		verify(os).ReadFile(eq(PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), any(DWORD.class), any(OVERLAPPED.class));
+	}
+
+	/**
+	 * Verifies that resuming has no effect, while a read operation is pending.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void resumeReading_whileReadPending() throws Exception {
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+
+		channel.resumeReading();
+
+		verify(os, times(1)).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), any(OVERLAPPED.class));
+		verify(os, never()).ClearCommError(anyInt(), any(INT.class), any(COMSTAT.class));
+	}
+
+	/**
+	 * Verifies that only one write operation is pending at a time and the queued data is written
+	 * after the completion of the pending write.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void write_queuesDataWhileWritePending() throws Exception {
+		byte[] first = { 1, 2 };
+		byte[] second = { 3, 4, 5 };
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+
+		channel.write(first);
+		channel.write(second);
+
+		verify(os).copyByteArray(any(NativeByteArray.class), eq(0), aryEq(first), eq(0), eq(2));
+		verify(os, never()).copyByteArray(any(NativeByteArray.class), anyInt(), aryEq(second), anyInt(), anyInt());
+
+		ArgumentCaptor<OVERLAPPED> writeOverlapped = ArgumentCaptor.forClass(OVERLAPPED.class);
+		verify(os).WriteFile(eq(PORT_HANDLE), any(NativeByteArray.class), eq(2), any(DWORD.class), writeOverlapped.capture());
+		dequeue(true, FIRST_KEY, writeOverlapped.getValue().getAddress(), 2);
+
+		verify(handler).writeCompleted(channel, 2);
+		verify(os).copyByteArray(any(NativeByteArray.class), eq(0), aryEq(second), eq(0), eq(3));
+		verify(os).WriteFile(eq(PORT_HANDLE), any(NativeByteArray.class), eq(3), any(DWORD.class), eq(writeOverlapped.getValue()));
+	}
+
+	/**
+	 * Verifies that the buffers are gathered directly into the native write buffer, when no write
+	 * is pending, and copied into an array, while a write is pending.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void write_gathersBuffers() throws Exception {
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		ByteBuffer first = ByteBuffer.wrap(new byte[] { 1, 2 });
+		ByteBuffer second = ByteBuffer.wrap(new byte[] { 3, 4, 5 });
+
+		channel.write(new ByteBuffer[] { first, second });
+
+		verify(os).copyByteArray(any(NativeByteArray.class), eq(0), eq(first.array()), eq(0), eq(2));
+		verify(os).copyByteArray(any(NativeByteArray.class), eq(2), eq(second.array()), eq(0), eq(3));
+		assertThat(first.remaining(), is(0));
+		assertThat(second.remaining(), is(0));
+
+		ByteBuffer queued = ByteBuffer.wrap(DATA);
+		channel.write(new ByteBuffer[] { queued });
+		assertThat(queued.remaining(), is(0));
+
+		ArgumentCaptor<OVERLAPPED> writeOverlapped = ArgumentCaptor.forClass(OVERLAPPED.class);
+		verify(os).WriteFile(eq(PORT_HANDLE), any(NativeByteArray.class), eq(5), any(DWORD.class), writeOverlapped.capture());
+		dequeue(true, FIRST_KEY, writeOverlapped.getValue().getAddress(), 5);
+
+		verify(handler).writeCompleted(channel, 5);
+		verify(os).copyByteArray(any(NativeByteArray.class), eq(0), aryEq(DATA), eq(0), eq(5));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when data is written to a closed channel.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void write_whenClosed() throws Exception {
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+		channel.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		channel.write(DATA);
+	}
+
+	/**
+	 * Verifies that {@link IoCompletionChannel#close()} releases the pending
+	 * <code>WaitCommEvent</code> and the handler is notified, when the aborted operation
+	 * completed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_releasesPendingWaitCommEvent() throws Exception {
+		IoCompletionChannel channel = engine.register(port, PORT_HANDLE, handler);
+
+		channel.close();
+
+		assertThat(channel.isClosed(), is(true));
+		verify(os).SetCommMask(PORT_HANDLE, EV_RXCHAR);
+		verify(handler, never()).closed(channel);
+		assertThat(engine.getNumberOfChannels(), is(1));
+
+		when(os.GetLastError()).thenReturn(ERROR_OPERATION_ABORTED);
+		dequeue(false, FIRST_KEY, getReadOverlappedAddress(), 0);
+
+		verify(handler).closed(channel);
+		verify(handler, never()).failed(any(IoCompletionChannel.class), any(IOException.class));
+		verify(os, times(1)).WaitCommEvent(anyInt(), any(DWORD.class), any(OVERLAPPED.class));
+		assertThat(engine.getNumberOfChannels(), is(0));
+	}
+
+	/**
+	 * Verifies that the started worker threads are terminated and the I/O completion port is
+	 * closed by {@link IoCompletionEngine#shutdown()}.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 5000)
+	public void shutdown_terminatesWorkers() throws Exception {
+		final BlockingQueue<Integer> postedKeys = new LinkedBlockingQueue<Integer>();
+		doAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				postedKeys.put((Integer) invocation.getArguments()[2]);
+				return true;
+			}
+		}).when(os).PostQueuedCompletionStatus(eq(COMPLETION_PORT), anyInt(), anyInt(), anyInt());
+		doAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				((INT) invocation.getArguments()[2]).value = postedKeys.take();
+				((INT) invocation.getArguments()[3]).value = NULL;
+				return true;
+			}
+		}).when(os).GetQueuedCompletionStatus(eq(COMPLETION_PORT), any(INT.class), any(INT.class), any(INT.class), eq(INFINITE));
+
+		engine.start();
+		engine.shutdown();
+
+		verify(os, times(2)).PostQueuedCompletionStatus(COMPLETION_PORT, 0, SHUTDOWN_KEY, NULL);
+		verify(os, times(2)).GetQueuedCompletionStatus(eq(COMPLETION_PORT), any(INT.class), any(INT.class), any(INT.class), eq(INFINITE));
+		verify(os).CloseHandle(COMPLETION_PORT);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when the engine is started twice.
+	 */
+	@Test
+	public void start_twice() {
+		when(os.GetQueuedCompletionStatus(anyInt(), any(INT.class), any(INT.class), any(INT.class), anyInt())).thenReturn(true);
+		engine.start();
+
+		exception.expect(IllegalStateException.class);
+
+		engine.start();
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** Returns the address of the overlapped, that was passed to the first WaitCommEvent. */
+	private int getReadOverlappedAddress() {
+		ArgumentCaptor<OVERLAPPED> overlapped = ArgumentCaptor.forClass(OVERLAPPED.class);
+		verify(os).WaitCommEvent(eq(PORT_HANDLE), any(DWORD.class), overlapped.capture());
+		return overlapped.getValue().getAddress();
+	}
+
+	/** Lets <code>ClearCommError</code> return the given number of available bytes. */
+	private void mockAvailableBytes(final int availableBytes) {
+		doAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				((COMSTAT) invocation.getArguments()[2]).cbInQue = availableBytes;
+				return true;
+			}
+		}).when(os).ClearCommError(eq(PORT_HANDLE), any(INT.class), any(COMSTAT.class));
+	}
+
+	/** Lets <code>GetQueuedCompletionStatus</code> dequeue the given packet. */
+	private void mockGetQueuedCompletionStatus(final boolean result, final int completionKey, final int overlappedAddress, final int numberOfBytes) {
+		doAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				((INT) invocation.getArguments()[1]).value = numberOfBytes;
+				((INT) invocation.getArguments()[2]).value = completionKey;
+				((INT) invocation.getArguments()[3]).value = overlappedAddress;
+				return result;
+			}
+		}).when(os).GetQueuedCompletionStatus(eq(COMPLETION_PORT), any(INT.class), any(INT.class), any(INT.class), anyInt());
+	}
+
+	/** Dequeues the given packet and dispatches it. */
+	private void dequeue(boolean result, int completionKey, int overlappedAddress, int numberOfBytes) {
+		mockGetQueuedCompletionStatus(result, completionKey, overlappedAddress, numberOfBytes);
+		assertThat(engine.processNextCompletion(new INT(), new INT(), new INT(), 0), is(true));
+	}
+
+	/** Matches exceptions with the given message. */
+	private static Matcher<IOException> hasMessage(final String message) {
+		return new BaseMatcher<IOException>() {
+			public boolean matches(Object item) {
+				return message.equals(((Throwable) item).getMessage());
+			}
+
+			public void describeTo(Description description) {
+				description.appendText("an exception with message ").appendValue(message);
+			}
+		};
+	}
+}
@@ -1,231 +1,586 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.initMocks;
-import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
-
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
-import org.junit.rules.ExpectedException;
-import org.mockito.Mock;
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * Test for {@link IoOperationImpl}
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public class TestIoOperationImpl {
-
-	private static final int CREATE_EVENT_ERROR = 0;
-	private static final int DUMMY_ERROR_CODE = 214;
-
-	private static final int PORT_HANDLE = 123;
-
-	private static final int OVERLAPPED_SIZE = 1;
-	private static final int DWORD_SIZE = 2;
-	/** pointer to an {@link OVERLAPPED}-struct */
-	private int ptrOverlapped = 1;
-	/** pointer to an {@link DWORD} */
-	private int ptrBytesTransferred = 2;
-
-	private final int eventHandle = 1;
-
-	/** needed to verifiy exception */
-	@Rule
-	public ExpectedException exception = ExpectedException.none();
-
-	/** class under test */
-	private IoOperationImpl operation;
-
-	@Mock
-	private SerialPort port;
-
-	@Mock
-	private WinApi os;
-
-	@Before
-	@SuppressWarnings("javadoc")
-	public void setUp() {
-		initMocks(this);
-
-		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
-		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(ptrOverlapped);
-
-		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
-		when(os.malloc(DWORD_SIZE)).thenReturn(ptrBytesTransferred);
-
-		when(port.getPortName()).thenReturn("COM1");
-	}
-
-	/**
-	 * Verfies that an {@link IllegalArgumentException} is thrown if the {@link SerialPort} is
-	 * <code>null</code>
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_withNullPort() {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >port< must not be null!");
-
-		new _IoOperation(null, os, PORT_HANDLE);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown if the {@link WinApi} is
-	 * <code>null</code>.
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_withNullOS() {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >os< must not be null!");
-
-		new _IoOperation(port, null, PORT_HANDLE);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown if an invalid handle is passed.
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_withInvalidHandle() {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >handle< is invalid!");
-
-		new _IoOperation(port, os, INVALID_HANDLE_VALUE);
-	}
-
-	/**
-	 * Verifies that an {@link NativeCodeException} is thrown if the creation of the event handle
-	 * fails.
-	 */
-	@SuppressWarnings("unused")
-	@Test
-	public void new_createEvent_fails() {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(CREATE_EVENT_ERROR);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("Create overlapped event failed!");
-
-		try {
-			new _IoOperation(port, os, PORT_HANDLE);
-		}
-		finally {
-			verify(os).free(ptrOverlapped);
-		}
-	}
-
-	/**
-	 * Verifies that all resource are freed that were allocated in the construction
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close() throws Exception {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-		when(os.CloseHandle(eventHandle)).thenReturn(true);
-		operation = new _IoOperation(port, os, PORT_HANDLE);
-
-		operation.close();
-
-		verify(os).CloseHandle(eventHandle);
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>CloseHandle</code> returns
-	 * <code>false</code>.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_CloseHandleFailsUnexpected() throws Exception {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-		when(os.CloseHandle(eventHandle)).thenReturn(false);
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		operation = new _IoOperation(port, os, PORT_HANDLE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("CloseHandle failed unexpected!");
-
-		operation.close();
-	}
-
-	/**
-	 * Verifies that all resource are freed that were allocated in the construction
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void dispose() throws Exception {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-		operation = new _IoOperation(port, os, PORT_HANDLE);
-
-		operation.dispose();
-
-		verify(os).free(ptrOverlapped);
-		verify(os).free(ptrBytesTransferred);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalStateException} is thrown, when the I/O operation is disposed
-	 * for the second time.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void dispose_2x() throws Exception {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-		operation = new _IoOperation(port, os, PORT_HANDLE);
-		operation.dispose();
-
-		exception.expect(IllegalStateException.class);
-
-		try {
-			operation.dispose();
-		}
-		finally {
-			verify(os, times(1)).free(ptrOverlapped);
-			verify(os, times(1)).free(ptrBytesTransferred);
-		}
-	}
-
-	// Utilities for this Testclass ///////////////////////////////////////////////////////////
-
-	@SuppressWarnings("javadoc")
-	public static class _IoOperation extends IoOperationImpl {
-		public _IoOperation(SerialPort port,
-							WinApi os,
-							int handle) {
-			super(port, os, handle);
-		}
-	}
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.io.IOException;
+import java.lang.Thread.State;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Test for {@link IoOperationImpl}
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public class TestIoOperationImpl {
+
+	private static final int CREATE_EVENT_ERROR = 0;
+	private static final int DUMMY_ERROR_CODE = 214;
+
+	private static final int PORT_HANDLE = 123;
+
+	private static final int OVERLAPPED_SIZE = 1;
+	private static final int DWORD_SIZE = 2;
+	/** pointer to an {@link OVERLAPPED}-struct */
+	private int ptrOverlapped = 1;
+	/** pointer to an {@link DWORD} */
+	private int ptrBytesTransferred = 2;
+
+	private final int eventHandle = 1;
+
+	/** needed to verifiy exception */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	/** class under test */
+	private IoOperationImpl operation;
+
+	@Mock
+	private SerialPort port;
+
+	@Mock
+	private WinApi os;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+
+		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
+		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(ptrOverlapped);
+
+		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
+		when(os.malloc(DWORD_SIZE)).thenReturn(ptrBytesTransferred);
+
+		when(port.getPortName()).thenReturn("COM1");
+	}
+
+	/**
+	 * Verfies that an {@link IllegalArgumentException} is thrown if the {@link SerialPort} is
+	 * <code>null</code>
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_withNullPort() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >port< must not be null!");
+
+		new _IoOperation(null, os, PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown if the {@link WinApi} is
+	 * <code>null</code>.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_withNullOS() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >os< must not be null!");
+
+		new _IoOperation(port, null, PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown if an invalid handle is passed.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_withInvalidHandle() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >handle< is invalid!");
+
+		new _IoOperation(port, os, INVALID_HANDLE_VALUE);
+	}
+
+	/**
+	 * Verifies that an {@link NativeCodeException} is thrown if the creation of the event handle
+	 * fails.
+	 */
+	@SuppressWarnings("unused")
+	@Test
+	public void new_createEvent_fails() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(CREATE_EVENT_ERROR);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("Create overlapped event failed!");
+
+		try {
+			new _IoOperation(port, os, PORT_HANDLE);
+		}
+		finally {
+			verify(os).free(ptrOverlapped);
+		}
+	}
+
+	/**
+	 * Verifies that all resource are freed that were allocated in the construction
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+
+		operation.close();
+
+		verify(os).CloseHandle(eventHandle);
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>CloseHandle</code> returns
+	 * <code>false</code>.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_CloseHandleFailsUnexpected() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(false);
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("CloseHandle failed unexpected!");
+
+		operation.close();
+	}
+
+	/**
+	 * Verifies that all resource are freed that were allocated in the construction
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void dispose() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+
+		operation.dispose();
+
+		verify(os).free(ptrOverlapped);
+		verify(os).free(ptrBytesTransferred);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when the I/O operation is disposed
+	 * for the second time.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void dispose_2x() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		operation.dispose();
+
+		exception.expect(IllegalStateException.class);
+
+		try {
+			operation.dispose();
+		}
+		finally {
+			verify(os, times(1)).free(ptrOverlapped);
+			verify(os, times(1)).free(ptrBytesTransferred);
+		}
+	}
+
+	/**
+	 * Verifies that the event handle is kept open on close, when an operation is pending, and
+	 * closed when the I/O operation is disposed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_whenIoPending() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		operation.ioPending();
+
+		operation.close();
+		verify(os, never()).CloseHandle(eventHandle);
+
+		operation.dispose();
+		verify(os).CloseHandle(eventHandle);
+	}
+
+	/**
+	 * Verifies that {@link IoOperationImpl#awaitTermination(int)} returns immediately, if no
+	 * operation is pending.
+	 */
+	@Test
+	public void awaitTermination_noIoPending() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+
+		assertThat(operation.awaitTermination(100), is(true));
+		verify(os, never()).WaitForSingleObject(anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that {@link IoOperationImpl#awaitTermination(int)} waits on the event of the
+	 * pending operation.
+	 */
+	@Test
+	public void awaitTermination_ioPending() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.WaitForSingleObject(eventHandle, 100)).thenReturn(WAIT_OBJECT_0);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		operation.ioPending();
+
+		assertThat(operation.awaitTermination(100), is(true));
+		assertThat(operation.isIoPending(), is(false));
+	}
+
+	/**
+	 * Verifies that {@link IoOperationImpl#awaitTermination(int)} returns <code>false</code>, when
+	 * the event of the pending operation is not signaled within the time-out.
+	 */
+	@Test
+	public void awaitTermination_timeout() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.WaitForSingleObject(eventHandle, 100)).thenReturn(WAIT_TIMEOUT);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		operation.ioPending();
+
+		assertThat(operation.awaitTermination(100), is(false));
+		assertThat(operation.isIoPending(), is(true));
+	}
+
+	/**
+	 * Verifies that the resources are not released, when the instance is disposed while an
+	 * operation is in progress, but when the operation ends.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void dispose_whileOperationInProgress() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+
+		operation.beginOperation();
+		operation.dispose();
+		verify(os, never()).free(ptrOverlapped);
+		verify(os, never()).free(ptrBytesTransferred);
+
+		operation.endOperation();
+		verify(os).free(ptrOverlapped);
+		verify(os).free(ptrBytesTransferred);
+	}
+
+	/**
+	 * Verifies that the event handle is not closed, when the I/O operation is closed while an
+	 * operation is in progress, but when the resources are released.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_whileOperationInProgress() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+
+		operation.beginOperation();
+		operation.close();
+		operation.dispose();
+		verify(os, never()).CloseHandle(eventHandle);
+
+		operation.endOperation();
+		verify(os).CloseHandle(eventHandle);
+		verify(os).free(ptrOverlapped);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when an operation begins after the I/O
+	 * operation was closed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void beginOperation_whenClosed() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		operation.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		operation.beginOperation();
+	}
+
+	/**
+	 * Verifies that an {@link IllegalStateException} is thrown, when an operation begins after the
+	 * instance was disposed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void beginOperation_whenDisposed() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		operation.dispose();
+
+		exception.expect(IllegalStateException.class);
+
+		operation.beginOperation();
+	}
+
+	/**
+	 * Races {@link IoOperationImpl#close()} and {@link IoOperationImpl#dispose()} of another thread
+	 * against a blocked operation. Verifies that close and dispose don't wait for the operation and
+	 * that nothing is released while the operation is still active, but when it ends.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 10000)
+	public void closeAndDispose_raceAgainstBlockedOperation() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		operation = new _IoOperation(port, os, PORT_HANDLE);
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch proceed = new CountDownLatch(1);
+
+		Thread blocked = startOperation(entered, proceed);
+		entered.await();
+
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					operation.close();
+				}
+				catch (IOException e) {
+					throw new AssertionError(e);
+				}
+				operation.dispose();
+			}
+		};
+		closer.start();
+		closer.join();
+
+		assertThat(operation.isDisposed(), is(true));
+		assertThat(((_IoOperation) operation).releaseCount.get(), is(0));
+		verify(os, never()).CloseHandle(eventHandle);
+		verify(os, never()).free(anyInt());
+
+		proceed.countDown();
+		blocked.join();
+
+		assertThat(((_IoOperation) operation).releaseCount.get(), is(1));
+		verify(os).CloseHandle(eventHandle);
+		verify(os).free(ptrOverlapped);
+		verify(os).free(ptrBytesTransferred);
+	}
+
+	/**
+	 * Verifies that an operation, that waits for a concurrent operation, fails when the I/O
+	 * operation was closed and disposed while it was waiting, and that the resources are released
+	 * only after both operations ended.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 10000)
+	public void beginOperation_closedWhileWaitingForConcurrentOperation() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		final _IoOperation contended = new _IoOperation(port, os, PORT_HANDLE);
+		operation = contended;
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch proceed = new CountDownLatch(1);
+
+		Thread first = startOperation(entered, proceed);
+		entered.await();
+
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread second = new Thread() {
+			@Override
+			public void run() {
+				try {
+					contended.beginOperation();
+					contended.endOperation();
+				}
+				catch (Throwable e) {
+					failure.set(e);
+				}
+			}
+		};
+		second.start();
+		while (second.getState() != State.WAITING)
+			Thread.sleep(1);
+
+		contended.close();
+		contended.dispose();
+		assertThat(contended.releaseCount.get(), is(0));
+
+		proceed.countDown();
+		first.join();
+		second.join();
+
+		assertThat(failure.get(), is(instanceOf(IOException.class)));
+		assertThat(contended.releaseCount.get(), is(1));
+		verify(os).free(ptrOverlapped);
+		verify(os).free(ptrBytesTransferred);
+	}
+
+	/**
+	 * Stresses the lifecycle with two threads, that begin and end operations in a loop, and a
+	 * thread, that closes and disposes the I/O operation concurrently. Verifies for every round,
+	 * that the operations are executed one after another and that the resources are released
+	 * exactly once and never while an operation is in progress.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void lifecycle_stress() throws Exception {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+
+		for (int round = 0; round < 2000; round++) {
+			final _IoOperation stressed = new _IoOperation(port, os, PORT_HANDLE);
+			final AtomicBoolean inUse = new AtomicBoolean();
+			final AtomicInteger violations = new AtomicInteger();
+			stressed.onRelease = new Runnable() {
+				public void run() {
+					if (inUse.get())
+						violations.incrementAndGet();
+				}
+			};
+
+			Thread[] operations = new Thread[2];
+			for (int i = 0; i < operations.length; i++) {
+				operations[i] = new Thread() {
+					@Override
+					public void run() {
+						while (true) {
+							try {
+								stressed.beginOperation();
+							}
+							catch (IOException e) {
+								return;
+							}
+							catch (IllegalStateException e) {
+								return;
+							}
+							if (!inUse.compareAndSet(false, true))
+								// a concurrent operation is in progress
+								violations.incrementAndGet();
+							if (stressed.releaseCount.get() != 0)
+								violations.incrementAndGet();
+							inUse.set(false);
+							stressed.endOperation();
+						}
+					}
+				};
+				operations[i].start();
+			}
+			Thread.yield();
+			stressed.close();
+			stressed.dispose();
+			for (Thread thread : operations)
+				thread.join();
+
+			assertThat(violations.get(), is(0));
+			assertThat(stressed.releaseCount.get(), is(1));
+		}
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/**
+	 * Starts a thread, that begins an operation, counts down <code>entered</code> and blocks until
+	 * <code>proceed</code> is counted down, before it ends the operation.
+	 */
+	private Thread startOperation(final CountDownLatch entered, final CountDownLatch proceed) {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					operation.beginOperation();
+					try {
+						entered.countDown();
+						proceed.await();
+					}
+					finally {
+						operation.endOperation();
+					}
+				}
+				catch (Exception e) {
+					throw new AssertionError(e);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	@SuppressWarnings("javadoc")
+	public static class _IoOperation extends IoOperationImpl {
+
+		/** counts how often the resources were released */
+		final AtomicInteger releaseCount = new AtomicInteger();
+		/** invoked, when the resources are released, may be <code>null</code> */
+		Runnable onRelease;
+
+		public _IoOperation(SerialPort port,
+							WinApi os,
+							int handle) {
+			super(port, os, handle);
+		}
+
+		@Override
+		protected void disposeInternal() {
+			if (onRelease != null)
+				onRelease.run();
+			releaseCount.incrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Tests the class {@link PipelinedWriterImpl}
+ * 
+ * @author Christian Schwarz
+ */
+public class TestPipelinedWriterImpl {
+
+	/** Dummy pointer to the allocated memory */
+	private static final int PTR_MEMORY = 1;
+
+	/** Dummy event handle of the first slot */
+	private static final int EVENT_HANDLE_1 = 11;
+	/** Dummy event handle of the second slot */
+	private static final int EVENT_HANDLE_2 = 12;
+
+	/** Dummy serial port handle */
+	private static final int PORT_HANDLE = 2;
+
+	/** the number of slots used in the tests */
+	private static final int QUEUE_DEPTH = 2;
+	/** the size of the staging buffers used in the tests */
+	private static final int SLOT_SIZE = 4;
+
+	/** some dummy data, that fits into one slot */
+	private static final byte[] DATA = new byte[SLOT_SIZE];
+
+	/** check exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+
+	@Mock
+	private SerialPort port;
+
+	/** the class under test */
+	private PipelinedWriterImpl writer;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_2);
+
+		when(os.sizeOf_OVERLAPPED()).thenReturn(1);
+		when(os.sizeOf_DWORD()).thenReturn(2);
+		when(os.malloc(anyInt())).thenReturn(PTR_MEMORY);
+
+		when(port.getPortName()).thenReturn("COM1");
+		when(os.CloseHandle(anyInt())).thenReturn(true);
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE_1, EVENT_HANDLE_2);
+		when(os.ResetEvent(anyInt())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(SLOT_SIZE);
+
+		writer = new PipelinedWriterImpl(port, os, PORT_HANDLE, QUEUE_DEPTH, SLOT_SIZE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the queue depth is 0 and
+	 * that the already allocated resources are released.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_withQueueDepth0() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >queueDepth< is invalid! Expected a value greater than 0");
+
+		try {
+			new PipelinedWriterImpl(port, os, PORT_HANDLE, 0, SLOT_SIZE);
+		}
+		finally {
+			verify(os).CloseHandle(EVENT_HANDLE_2);
+		}
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the slot size is 0.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_withSlotSize0() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >slotSize< is invalid! Expected a value greater than 0");
+
+		new PipelinedWriterImpl(port, os, PORT_HANDLE, QUEUE_DEPTH, 0);
+	}
+
+	/**
+	 * Verifies that an {@link UnsupportedOperationException} is thrown, when the native library
+	 * doesn't support the pipelined writes and that the already allocated resources are released.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_nativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+
+		exception.expect(UnsupportedOperationException.class);
+		exception.expectMessage("The pipelined writer requires version 2 of the native library, but version 1 is loaded!");
+
+		try {
+			new PipelinedWriterImpl(port, os, PORT_HANDLE, QUEUE_DEPTH, SLOT_SIZE);
+		}
+		finally {
+			verify(os).CloseHandle(EVENT_HANDLE_2);
+		}
+	}
+
+	/**
+	 * Verifies that a write returns without waiting, while a slot is free.
+	 */
+	@Test
+	public void write_doesNotWaitForPendingWrites() throws Exception {
+		mockWriteFilePending();
+
+		writer.write(DATA);
+		writer.write(DATA);
+
+		verify(os, times(2)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(SLOT_SIZE), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).WaitForSingleObject(anyInt(), anyInt());
+		assertThat(writer.getPendingWrites(), is(2));
+		assertThat(writer.getQueueDepth(), is(QUEUE_DEPTH));
+	}
+
+	/**
+	 * Verifies that a write waits for the oldest write, if all slots are in flight.
+	 */
+	@Test
+	public void write_waitsForOldestWriteWhenAllSlotsAreInFlight() throws Exception {
+		mockWriteFilePending();
+		mockWriteCompletes();
+
+		writer.write(DATA);
+		writer.write(DATA);
+		writer.write(DATA);
+
+		verify(os).WaitForSingleObject(EVENT_HANDLE_1, 2000);
+		verify(os, never()).WaitForSingleObject(EVENT_HANDLE_2, 2000);
+		assertThat(writer.getPendingWrites(), is(2));
+	}
+
+	/**
+	 * Verifies that data, that doesn't fit into one staging buffer, is split across several slots.
+	 */
+	@Test
+	public void write_splitsLargeData() throws Exception {
+		mockWriteFilePending();
+		byte[] data = new byte[2 * SLOT_SIZE];
+
+		writer.write(data);
+
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(data), eq(0), eq(SLOT_SIZE));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(data), eq(SLOT_SIZE), eq(SLOT_SIZE));
+		verify(os, times(2)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(SLOT_SIZE), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that several buffers are gathered into the staging buffers of the slots.
+	 */
+	@Test
+	public void write_gatheredBuffers() throws Exception {
+		mockWriteFilePending();
+		byte[] header = new byte[3];
+		byte[] payload = new byte[3];
+
+		writer.write(new ByteBuffer[] { ByteBuffer.wrap(header), ByteBuffer.wrap(payload) });
+
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(header), eq(0), eq(3));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(3), eq(payload), eq(0), eq(1));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(payload), eq(1), eq(2));
+		verify(os).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(SLOT_SIZE), anyDWORD(), anyOVERLAPPED());
+		verify(os).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(2), anyDWORD(), anyOVERLAPPED());
+		assertThat(writer.getPendingWrites(), is(2));
+	}
+
+	/**
+	 * Verifies that no slot stays in flight, when the write completes immediately.
+	 */
+	@Test
+	public void write_succeedImmediatly() throws Exception {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(SLOT_SIZE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+
+		writer.write(DATA);
+
+		assertThat(writer.getPendingWrites(), is(0));
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>WriteFile(...)</code> fails with
+	 * <code>ERROR_OPERATION_ABORTED</code>.
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_OPERATION_ABORTED() throws Exception {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(SLOT_SIZE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the port is closed.
+	 */
+	@Test
+	public void write_whenClosed() throws Exception {
+		writer.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that {@link PipelinedWriterImpl#flush()} waits for all outstanding writes in the
+	 * order they were issued.
+	 */
+	@Test
+	public void flush_awaitsAllPendingWrites() throws Exception {
+		mockWriteFilePending();
+		mockWriteCompletes();
+		writer.write(DATA);
+		writer.write(DATA);
+		writer.write(DATA);
+
+		writer.flush();
+
+		InOrder inOrder = inOrder(os);
+		inOrder.verify(os).WaitForSingleObject(EVENT_HANDLE_2, 2000);
+		inOrder.verify(os).WaitForSingleObject(EVENT_HANDLE_1, 2000);
+		assertThat(writer.getPendingWrites(), is(0));
+	}
+
+	/**
+	 * Verifies that {@link PipelinedWriterImpl#flush()} returns immediately, if no write is in
+	 * flight.
+	 */
+	@Test
+	public void flush_withoutPendingWrites() throws Exception {
+		writer.flush();
+
+		verify(os, never()).WaitForSingleObject(anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when an outstanding write times out.
+	 */
+	@Test
+	public void flush_WaitForSingleObjectReturnsWAIT_TIMEOUT() throws Exception {
+		mockWriteFilePending();
+		when(os.WaitForSingleObject(anyInt(), eq(2000))).thenReturn(WAIT_TIMEOUT);
+		writer.write(DATA);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Write operation timed out after 2000 milliseconds!");
+
+		writer.flush();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when an outstanding write didn't
+	 * transfer all bytes.
+	 */
+	@Test
+	public void flush_lessBytesWritten() throws Exception {
+		mockWriteFilePending();
+		mockWriteCompletes();
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(SLOT_SIZE - 1);
+		writer.write(DATA);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult returned an unexpected number of transferred bytes! Transferred: " + (SLOT_SIZE - 1) + ", expected: " + SLOT_SIZE);
+
+		writer.flush();
+	}
+
+	/**
+	 * Verifies that the events of all slots are closed.
+	 */
+	@Test
+	public void close_closesAllEvents() throws Exception {
+		writer.close();
+
+		verify(os).CloseHandle(EVENT_HANDLE_1);
+		verify(os).CloseHandle(EVENT_HANDLE_2);
+	}
+
+	/**
+	 * Verifies that {@link PipelinedWriterImpl#close()} waits for all outstanding writes, before
+	 * the events are closed.
+	 */
+	@Test
+	public void close_awaitsPendingWrites() throws Exception {
+		mockWriteFilePending();
+		mockWriteCompletes();
+		writer.write(DATA);
+		writer.write(DATA);
+
+		writer.close();
+
+		InOrder inOrder = inOrder(os);
+		inOrder.verify(os).WaitForSingleObject(EVENT_HANDLE_1, 2000);
+		inOrder.verify(os).WaitForSingleObject(EVENT_HANDLE_2, 2000);
+		inOrder.verify(os).CloseHandle(EVENT_HANDLE_1);
+		inOrder.verify(os).CloseHandle(EVENT_HANDLE_2);
+		assertThat(writer.getPendingWrites(), is(0));
+	}
+
+	/**
+	 * Verifies that {@link PipelinedWriterImpl#close()} awaits the remaining writes and closes the
+	 * writer, when an outstanding write times out. The failure must be thrown afterwards.
+	 */
+	@Test
+	public void close_pendingWriteTimesOut() throws Exception {
+		mockWriteFilePending();
+		mockWriteCompletes();
+		when(os.WaitForSingleObject(EVENT_HANDLE_1, 2000)).thenReturn(WAIT_TIMEOUT);
+		writer.write(DATA);
+		writer.write(DATA);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Write operation timed out after 2000 milliseconds!");
+
+		try {
+			writer.close();
+		}
+		finally {
+			verify(os).WaitForSingleObject(EVENT_HANDLE_2, 2000);
+			assertThat(writer.getPendingWrites(), is(1));
+			assertThat(writer.isClosed(), is(true));
+		}
+	}
+
+	/**
+	 * Verifies that the memory of all slots is freed.
+	 */
+	@Test
+	public void dispose_freesAllSlots() throws Exception {
+		writer.close();
+
+		writer.dispose();
+
+		// 2 OVERLAPPED, 2 DWORD and 2 staging buffers
+		verify(os, times(6)).free(PTR_MEMORY);
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** <code>WriteFile(...)</code> returns with a pending write operation. */
+	private void mockWriteFilePending() {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), anyInt(), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+	}
+
+	/** The pending write operations complete successfully. */
+	private void mockWriteCompletes() {
+		when(os.WaitForSingleObject(anyInt(), eq(2000))).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+	}
+
+	private NativeByteArray anyNativeByteArray() {
+		return any(NativeByteArray.class);
+	}
+
+	private OVERLAPPED anyOVERLAPPED() {
+		return any(OVERLAPPED.class);
+	}
+
+	private DWORD anyDWORD() {
+		return any(DWORD.class);
+	}
+}
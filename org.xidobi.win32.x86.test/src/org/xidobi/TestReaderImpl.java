@@ -1,1050 +1,1885 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static org.hamcrest.Matchers.is;
-import static org.junit.Assert.assertThat;
-import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyInt;
-import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.initMocks;
-import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
-import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
-import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
-import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
-import static org.xidobi.WinApi.ERROR_IO_PENDING;
-import static org.xidobi.WinApi.ERROR_NOT_READY;
-import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
-import static org.xidobi.WinApi.EV_RXCHAR;
-import static org.xidobi.WinApi.WAIT_ABANDONED;
-import static org.xidobi.WinApi.WAIT_FAILED;
-import static org.xidobi.WinApi.WAIT_OBJECT_0;
-import static org.xidobi.WinApi.WAIT_TIMEOUT;
-
-import java.io.IOException;
-
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
-import org.junit.rules.ExpectedException;
-import org.mockito.Mock;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.structs.COMSTAT;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.INT;
-import org.xidobi.structs.NativeByteArray;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * Tests the class {@link ReaderImpl}.
- * 
- * @author Tobias Breler
- */
-public class TestReaderImpl {
-
-	/** dummy size of OVERLAPPED */
-	private static final int OVERLAPPED_SIZE = 1;
-	/** pointer to an {@link OVERLAPPED}-struct */
-	private int PTR_OVERLAPPED = 1;
-
-	/** dummy size of DWORD */
-	private static final int DWORD_SIZE = 2;
-
-	/** pointer to an {@link DWORD}, that is used for the number of transferred bytes */
-	private int PTR_BYTES_TRANSFERRED = 2;
-	/** pointer to an {@link DWORD}, that is used for the event mask */
-	private int PTR_EVT_MASK = 3;
-
-	/** pointer to the native byte array */
-	private static final int PTR_NATIVE_BYTE_ARRAY = 4;
-
-	/** a dummy error code */
-	private static final int DUMMY_ERROR_CODE = 12345;
-
-	/** a dummy handle to the event object */
-	private static final int DUMMY_EVENT_HANDLE = 1;
-	/** a valid HANDLE value used in tests */
-	private static final int DUMMY_PORT_HANDLE = 2;
-
-	/** the dummy data that is read */
-	private static final byte[] DATA = new byte[5];
-
-	/** check exceptions */
-	@Rule
-	public ExpectedException exception = ExpectedException.none();
-
-	@Mock
-	private WinApi os;
-
-	@Mock
-	private SerialPort port;
-
-	/** the class under test */
-	private ReaderImpl reader;
-
-	@Before
-	@SuppressWarnings("javadoc")
-	public void setUp() {
-		initMocks(this);
-
-		when(os.malloc(DATA.length)).thenReturn(PTR_NATIVE_BYTE_ARRAY);
-
-		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
-		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(PTR_OVERLAPPED);
-
-		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
-		when(os.malloc(DWORD_SIZE)).thenReturn(PTR_BYTES_TRANSFERRED, PTR_EVT_MASK);
-
-		when(port.getPortName()).thenReturn("COM1");
-		when(os.CloseHandle(anyInt())).thenReturn(true);
-		when(os.CreateEventA(0, true, false, null)).thenReturn(DUMMY_EVENT_HANDLE);
-		when(os.ResetEvent(DUMMY_EVENT_HANDLE)).thenReturn(true);
-
-		reader = new ReaderImpl(port, os, DUMMY_PORT_HANDLE);
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
-	 * <code>false</code> and the last error is <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithERROR_INVALID_HANDLE() throws IOException {
-		mockWaitCommEventFailsWith(ERROR_INVALID_HANDLE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
-	 * <code>false</code> and the last error is <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithERROR_ACCESS_DENIED() throws IOException {
-		mockWaitCommEventFailsWith(ERROR_ACCESS_DENIED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
-	 * <code>false</code> and the last error is <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithERROR_OPERATION_ABORTED() throws IOException {
-		mockWaitCommEventFailsWith(ERROR_OPERATION_ABORTED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
-	 * <code>false</code> and the last error is <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithERROR_GEN_FAILURE() throws IOException {
-		mockWaitCommEventFailsWith(ERROR_GEN_FAILURE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
-	 * <code>false</code> and the last error is <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithERROR_BAD_COMMAND() throws IOException {
-		mockWaitCommEventFailsWith(ERROR_BAD_COMMAND);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
-	 * <code>false</code> and the last error is <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithERROR_NOT_READY() throws IOException {
-		mockWaitCommEventFailsWith(ERROR_NOT_READY);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
-	 * returns <code>false</code> and the last error is not <code>ERROR_IO_PENDING</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventFailsWithUnexpectedErrorCode() throws IOException {
-		mockWaitCommEventFailsWith(DUMMY_ERROR_CODE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitCommEvent failed unexpected!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that no {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
-	 * is successfull, but the event mask is not <code>EV_RXCHAR</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventForUnexpectedEvent() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR + 1, EV_RXCHAR);
-		when(os.ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT())).
-			then(withAvailableBytes(0, true)).
-			then(withAvailableBytes(DATA.length, true));
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
-		//@formatter:on
-
-		byte[] result = reader.read();
-
-		assertThat(result, is(DATA));
-	}
-
-	/**
-	 * Verifies that the available data is read. The first time when <code>WaitCommEvent(...)</code>
-	 * is called, the operation is pending and <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_TIMEOUT</code>. The second time it returns immediatly and the data can be read
-	 * successfull.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingReturnsWAIT_TIMEOUT() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_TIMEOUT, WAIT_OBJECT_0);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
-		                                                DATA.length);
-			doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
-		// @formatter:on
-
-		byte[] result = reader.read();
-
-		assertThat(result, is(DATA));
-	}
-
-	/**
-	 * Verifies that the available data is read, when <code>WaitCommEvent(...)</code> is called, the
-	 * operation is pending and <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_OBJECT_0</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingReturnsWAIT_OBJECT_0() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
-		                                                DATA.length);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
-		// @formatter:on
-
-		byte[] result = reader.read();
-
-		assertThat(result, is(DATA));
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
-	 * is called, the operation is pending and <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_ABANDONED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingReturnsWAIT_ABANDONED() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_ABANDONED);
-		// @formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
-	 * called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedWithERROR_INVALID_HANDLE() throws IOException {
-		mockWaitCommEventPendingFailsWith(ERROR_INVALID_HANDLE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
-	 * called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedWithERROR_ACCESS_DENIED() throws IOException {
-		mockWaitCommEventPendingFailsWith(ERROR_ACCESS_DENIED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
-	 * called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedWithERROR_GEN_FAILURE() throws IOException {
-		mockWaitCommEventPendingFailsWith(ERROR_GEN_FAILURE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
-	 * called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedWithERROR_BAD_COMMAND() throws IOException {
-		mockWaitCommEventPendingFailsWith(ERROR_BAD_COMMAND);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
-	 * called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedWithERROR_NOT_READY() throws IOException {
-		mockWaitCommEventPendingFailsWith(ERROR_NOT_READY);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
-	 * called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedWithERROR_OPERATION_ABORTED() throws IOException {
-		mockWaitCommEventPendingFailsWith(ERROR_OPERATION_ABORTED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
-	 * is called, the operation is pending, <code>WaitForSingleObject(...)</code> returns
-	 * <code>WAIT_FAILED</code> and the last error code is unexpected.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingFailedUnexpected() throws IOException {
-		mockWaitCommEventPendingFailsWith(DUMMY_ERROR_CODE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject failed unexpected!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
-	 * is called, the operation is pending, <code>WaitForSingleObject(...)</code> returns unexpected
-	 * value.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_WaitCommEventPendingWaitForSingleObjectFailedUnexpected() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, DUMMY_ERROR_CODE);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(DUMMY_ERROR_CODE);
-		// @formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject returned unexpected value! Got: " + DUMMY_ERROR_CODE);
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ClearCommError(...)</code>
-	 * returns <code>false</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ClearCommErrorFailed() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(10, false)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("ClearCommError failed unexpected!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that the available data is read, when <code>ReadFile(...)</code> returns successfull
-	 * immediatly.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileSuccessfull() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
-		//@formatter:on
-
-		byte[] result = reader.read();
-
-		assertThat(result, is(DATA));
-	}
-
-	/**
-	 * Verifies that the available data is read, when <code>ClearCommError(...)</code> indicates
-	 * that 0 bytes available at the first invocation. Only at the second call it indicates a number
-	 * of bytes greater than 0.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_withNoDataAvailable() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		when(os.ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT())).
-			then(withAvailableBytes(0, true)).
-			then(withAvailableBytes(DATA.length, true));
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
-		//@formatter:on
-
-		byte[] result = reader.read();
-
-		assertThat(result, is(DATA));
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code>
-	 * returns <code>false</code> and the last error code is not <code>ERROR_IO_PENDING</code> or
-	 * <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsUnexpected() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("ReadFile failed unexpected!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsERROR_INVALID_HANDLE() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_INVALID_HANDLE);
-		//@formatter:on
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsERROR_ACCESS_DENIED() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_ACCESS_DENIED);
-		//@formatter:on
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsERROR_GEN_FAILURE() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_GEN_FAILURE);
-		//@formatter:on
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsERROR_BAD_COMMAND() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_BAD_COMMAND);
-		//@formatter:on
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsERROR_NOT_READY() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_NOT_READY);
-		//@formatter:on
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFileFailsERROR_OPERATION_ABORTED() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_OPERATION_ABORTED);
-		//@formatter:on
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
-	 * pending and <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFails() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_FAILED);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject failed unexpected!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
-	 * <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFailsWithERROR_INVALID_HANDLE() throws IOException {
-		mockReadFilePendingWaitFailsWith(ERROR_INVALID_HANDLE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
-	 * <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFailsWithERROR_ACCESS_DENIED() throws IOException {
-		mockReadFilePendingWaitFailsWith(ERROR_ACCESS_DENIED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
-	 * <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFailsWithERROR_GEN_FAILURE() throws IOException {
-		mockReadFilePendingWaitFailsWith(ERROR_GEN_FAILURE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
-	 * <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFailsWithERROR_BAD_COMMAND() throws IOException {
-		mockReadFilePendingWaitFailsWith(ERROR_BAD_COMMAND);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
-	 * <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFailsWithERROR_NOT_READY() throws IOException {
-		mockReadFilePendingWaitFailsWith(ERROR_NOT_READY);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
-	 * <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingWaitFailsWithERROR_OPERATION_ABORTED() throws IOException {
-		mockReadFilePendingWaitFailsWith(ERROR_OPERATION_ABORTED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
-	 * pending and <code>WaitForSingleObject(...)</code> returns <code>WAIT_ABANDONED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingReturnsWAIT_ABANDONED() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_ABANDONED);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
-	 * pending and <code>WaitForSingleObject(...)</code> returns an unexpected value.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingReturnsUnexpectedValue() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(123);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject returned unexpected value! Got: 123");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
-	 * pending and <code>WaitForSingleObject(...)</code> returns <code>WAIT_TIMEOUT</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingReturnsWAIT_TIMEOUT() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_TIMEOUT);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("ReadFile timed out after 100 milliseconds!");
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when
-	 * <code>GetOverlappedResult(...)</code> fails.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_GetOverlappedResultFails() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, 
-		                                         DUMMY_ERROR_CODE);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
-		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(false);
-		// @formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("GetOverlappedResult failed unexpected!\r\nError-Code " + DUMMY_ERROR_CODE);
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when
-	 * <code>GetOverlappedResult(...)</code> returns <code>true</code>, but signals an unexpected
-	 * number of bytes.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingReturnsUnexpectedNumberOfBytes() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
-		                                                DATA.length - 2);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
-		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
-		// @formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("GetOverlappedResult returned an unexpected number of read bytes! Read: " + (DATA.length - 2) + ", expected: " + DATA.length);
-
-		reader.read();
-	}
-
-	/**
-	 * Verifies that the available data is read, when <code>ReadFile(...)</code> is pending and
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_OBJECT_0</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void read_ReadFilePendingSuccess() throws IOException {
-		//@formatter:off
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
-		                                                DATA.length);
-			doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
-		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
-		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
-		// @formatter:on
-
-		byte[] result = reader.read();
-
-		assertThat(result, is(DATA));
-	}
-
-	/**
-	 * Verifies that all handles are disposed, when the reader is closed.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close() throws Exception {
-
-		reader.close();
-
-		verify(os).CloseHandle(DUMMY_EVENT_HANDLE);
-	}
-
-	/**
-	 * Verifies that all resources are disposed, when the reader is disposed.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void dispose() throws Exception {
-
-		reader.dispose();
-
-		verify(os).free(PTR_BYTES_TRANSFERRED);
-		verify(os).free(PTR_OVERLAPPED);
-		verify(os).free(PTR_EVT_MASK);
-	}
-
-	// Utilities for this Testclass ///////////////////////////////////////////////////////////
-
-	/** matches any {@link OVERLAPPED} */
-	private OVERLAPPED anyOVERLAPPED() {
-		return any(OVERLAPPED.class);
-	}
-
-	/** matches any {@link DWORD} */
-	private DWORD anyDWORD() {
-		return any(DWORD.class);
-	}
-
-	/** matches any {@link DWORD} */
-	private INT anyINT() {
-		return any(INT.class);
-	}
-
-	/** matches any {@link COMSTAT} */
-	private COMSTAT anyCOMSTAT() {
-		return any(COMSTAT.class);
-	}
-
-	/**
-	 * Returns an {@link Answer} that sets the <code>availableBytes</code> on the
-	 * <code>COMSTAT</code> parameter and returns the given <code>returnValue</code>.
-	 */
-	private Answer<Boolean> withAvailableBytes(final int availableByte, final boolean returnValue) {
-		return new Answer<Boolean>() {
-			@Override
-			public Boolean answer(InvocationOnMock invocation) throws Throwable {
-				COMSTAT comstat = (COMSTAT) invocation.getArguments()[2];
-				comstat.cbInQue = availableByte;
-				return returnValue;
-			}
-		};
-	}
-
-	/** Mocks <code>WaitCommEvent</code> to fail with the given error code. */
-	private void mockWaitCommEventFailsWith(int errorCode) {
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(errorCode);
-	}
-
-	/** Mocks <code>WaitCommEvent</code> (pending) to fail with the given error code. */
-	private void mockWaitCommEventPendingFailsWith(int errorCode) {
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_FAILED);
-	}
-
-	/** Mocks <code>ReadFile</code> (pending) to fail with the given error code. */
-	private void mockReadFilePendingWaitFailsWith(int errorCode) {
-		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
-		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
-		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
-		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_FAILED);
-	}
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.WinApi.CE_OVERRUN;
+import static org.xidobi.WinApi.CE_RXOVER;
+import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
+import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
+import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.ERROR_NOT_READY;
+import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.INFINITE;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.WAIT_ABANDONED;
+import static org.xidobi.WinApi.WAIT_AND_READ_ABANDONED;
+import static org.xidobi.WinApi.WAIT_AND_READ_CANCELED;
+import static org.xidobi.WinApi.WAIT_AND_READ_COMM_ERROR;
+import static org.xidobi.WinApi.WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_READ_FILE_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_READ_TIMEOUT;
+import static org.xidobi.WinApi.WAIT_AND_READ_SUCCEEDED;
+import static org.xidobi.WinApi.WAIT_AND_READ_TIMEOUT;
+import static org.xidobi.WinApi.WAIT_AND_READ_WAIT_COMM_EVENT_FAILED;
+import static org.xidobi.WinApi.WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Tests the class {@link ReaderImpl}.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestReaderImpl {
+
+	/** dummy size of OVERLAPPED */
+	private static final int OVERLAPPED_SIZE = 1;
+	/** pointer to an {@link OVERLAPPED}-struct */
+	private int PTR_OVERLAPPED = 1;
+
+	/** dummy size of DWORD */
+	private static final int DWORD_SIZE = 2;
+
+	/** pointer to an {@link DWORD}, that is used for the number of transferred bytes */
+	private int PTR_BYTES_TRANSFERRED = 2;
+	/** pointer to an {@link DWORD}, that is used for the event mask */
+	private int PTR_EVT_MASK = 3;
+
+	/** pointer to the native byte array */
+	private static final int PTR_NATIVE_BYTE_ARRAY = 4;
+
+	/** a dummy error code */
+	private static final int DUMMY_ERROR_CODE = 12345;
+
+	/** a dummy handle to the event object */
+	private static final int DUMMY_EVENT_HANDLE = 1;
+	/** a valid HANDLE value used in tests */
+	private static final int DUMMY_PORT_HANDLE = 2;
+	/** a dummy handle to the cancel event */
+	private static final int DUMMY_CANCEL_EVENT_HANDLE = 6;
+
+	/** the dummy data that is read */
+	private static final byte[] DATA = new byte[5];
+
+	/** check exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+
+	@Mock
+	private SerialPort port;
+
+	/** the class under test */
+	private ReaderImpl reader;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+
+		when(os.malloc(anyInt())).thenReturn(PTR_NATIVE_BYTE_ARRAY);
+
+		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
+		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(PTR_OVERLAPPED);
+
+		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
+		when(os.malloc(DWORD_SIZE)).thenReturn(PTR_BYTES_TRANSFERRED, PTR_EVT_MASK);
+
+		when(port.getPortName()).thenReturn("COM1");
+		when(os.CloseHandle(anyInt())).thenReturn(true);
+		mockCreateEvents();
+		when(os.SetEvent(DUMMY_CANCEL_EVENT_HANDLE)).thenReturn(true);
+		when(os.ResetEvent(DUMMY_EVENT_HANDLE)).thenReturn(true);
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_2);
+
+		reader = new ReaderImpl(port, os, DUMMY_PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
+	 * <code>false</code> and the last error is <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithERROR_INVALID_HANDLE() throws IOException {
+		mockWaitCommEventFailsWith(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
+	 * <code>false</code> and the last error is <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithERROR_ACCESS_DENIED() throws IOException {
+		mockWaitCommEventFailsWith(ERROR_ACCESS_DENIED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
+	 * <code>false</code> and the last error is <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithERROR_OPERATION_ABORTED() throws IOException {
+		mockWaitCommEventFailsWith(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
+	 * <code>false</code> and the last error is <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithERROR_GEN_FAILURE() throws IOException {
+		mockWaitCommEventFailsWith(ERROR_GEN_FAILURE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
+	 * <code>false</code> and the last error is <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithERROR_BAD_COMMAND() throws IOException {
+		mockWaitCommEventFailsWith(ERROR_BAD_COMMAND);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> returns
+	 * <code>false</code> and the last error is <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithERROR_NOT_READY() throws IOException {
+		mockWaitCommEventFailsWith(ERROR_NOT_READY);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
+	 * returns <code>false</code> and the last error is not <code>ERROR_IO_PENDING</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventFailsWithUnexpectedErrorCode() throws IOException {
+		mockWaitCommEventFailsWith(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitCommEvent failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that no {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
+	 * is successfull, but the event mask is not <code>EV_RXCHAR</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventForUnexpectedEvent() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR + 1, EV_RXCHAR);
+		when(os.ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT())).
+			then(withAvailableBytes(0, true)).
+			then(withAvailableBytes(DATA.length, true));
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+	}
+
+	/**
+	 * Verifies that the available data is read. The first time when <code>WaitCommEvent(...)</code>
+	 * is called, the operation is pending and <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_TIMEOUT</code>. The second time it returns immediatly and the data can be read
+	 * successfull.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingReturnsWAIT_TIMEOUT() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(WAIT_TIMEOUT, WAIT_OBJECT_0);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
+		                                                DATA.length);
+			doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		// @formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+	}
+
+	/**
+	 * Verifies that the available data is read, when <code>WaitCommEvent(...)</code> is called, the
+	 * operation is pending and <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_OBJECT_0</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingReturnsWAIT_OBJECT_0() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(WAIT_OBJECT_0);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
+		                                                DATA.length);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		// @formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
+	 * is called, the operation is pending and <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_ABANDONED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingReturnsWAIT_ABANDONED() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(WAIT_ABANDONED);
+		// @formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForMultipleObjects returned an unexpected value: WAIT_ABANDONED!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
+	 * called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedWithERROR_INVALID_HANDLE() throws IOException {
+		mockWaitCommEventPendingFailsWith(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
+	 * called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedWithERROR_ACCESS_DENIED() throws IOException {
+		mockWaitCommEventPendingFailsWith(ERROR_ACCESS_DENIED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
+	 * called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedWithERROR_GEN_FAILURE() throws IOException {
+		mockWaitCommEventPendingFailsWith(ERROR_GEN_FAILURE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
+	 * called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedWithERROR_BAD_COMMAND() throws IOException {
+		mockWaitCommEventPendingFailsWith(ERROR_BAD_COMMAND);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
+	 * called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedWithERROR_NOT_READY() throws IOException {
+		mockWaitCommEventPendingFailsWith(ERROR_NOT_READY);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WaitCommEvent(...)</code> is
+	 * called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedWithERROR_OPERATION_ABORTED() throws IOException {
+		mockWaitCommEventPendingFailsWith(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
+	 * is called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * <code>WAIT_FAILED</code> and the last error code is unexpected.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingFailedUnexpected() throws IOException {
+		mockWaitCommEventPendingFailsWith(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForMultipleObjects failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitCommEvent(...)</code>
+	 * is called, the operation is pending, <code>WaitForMultipleObjects(...)</code> returns
+	 * unexpected value.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_WaitCommEventPendingWaitForMultipleObjectsFailedUnexpected() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, DUMMY_ERROR_CODE);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(DUMMY_ERROR_CODE);
+		// @formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForMultipleObjects returned unexpected value! Got: " + DUMMY_ERROR_CODE);
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ClearCommError(...)</code>
+	 * returns <code>false</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ClearCommErrorFailed() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(10, false)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("ClearCommError failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that the available data is read, when <code>ReadFile(...)</code> returns successfull
+	 * immediatly.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileSuccessfull() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+	}
+
+	/**
+	 * Verifies that the available data is read, when <code>ClearCommError(...)</code> indicates
+	 * that 0 bytes available at the first invocation. Only at the second call it indicates a number
+	 * of bytes greater than 0.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_withNoDataAvailable() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		when(os.ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT())).
+			then(withAvailableBytes(0, true)).
+			then(withAvailableBytes(DATA.length, true));
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code>
+	 * returns <code>false</code> and the last error code is not <code>ERROR_IO_PENDING</code> or
+	 * <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsUnexpected() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("ReadFile failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsERROR_INVALID_HANDLE() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_INVALID_HANDLE);
+		//@formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsERROR_ACCESS_DENIED() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_ACCESS_DENIED);
+		//@formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsERROR_GEN_FAILURE() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_GEN_FAILURE);
+		//@formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsERROR_BAD_COMMAND() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_BAD_COMMAND);
+		//@formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsERROR_NOT_READY() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_NOT_READY);
+		//@formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>ReadFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFileFailsERROR_OPERATION_ABORTED() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_OPERATION_ABORTED);
+		//@formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
+	 * pending and <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFails() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_FAILED);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForSingleObject failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
+	 * <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFailsWithERROR_INVALID_HANDLE() throws IOException {
+		mockReadFilePendingWaitFailsWith(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
+	 * <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFailsWithERROR_ACCESS_DENIED() throws IOException {
+		mockReadFilePendingWaitFailsWith(ERROR_ACCESS_DENIED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
+	 * <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFailsWithERROR_GEN_FAILURE() throws IOException {
+		mockReadFilePendingWaitFailsWith(ERROR_GEN_FAILURE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
+	 * <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFailsWithERROR_BAD_COMMAND() throws IOException {
+		mockReadFilePendingWaitFailsWith(ERROR_BAD_COMMAND);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
+	 * <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFailsWithERROR_NOT_READY() throws IOException {
+		mockReadFilePendingWaitFailsWith(ERROR_NOT_READY);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error is
+	 * <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingWaitFailsWithERROR_OPERATION_ABORTED() throws IOException {
+		mockReadFilePendingWaitFailsWith(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
+	 * pending and <code>WaitForSingleObject(...)</code> returns <code>WAIT_ABANDONED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingReturnsWAIT_ABANDONED() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_ABANDONED);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
+	 * pending and <code>WaitForSingleObject(...)</code> returns an unexpected value.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingReturnsUnexpectedValue() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(123);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForSingleObject returned unexpected value! Got: 123");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>ReadFile(...)</code> is
+	 * pending and <code>WaitForSingleObject(...)</code> returns <code>WAIT_TIMEOUT</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingReturnsWAIT_TIMEOUT() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_TIMEOUT);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("ReadFile timed out after 100 milliseconds!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when
+	 * <code>GetOverlappedResult(...)</code> fails.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_GetOverlappedResultFails() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, 
+		                                         DUMMY_ERROR_CODE);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(false);
+		// @formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult failed unexpected!\r\nError-Code " + DUMMY_ERROR_CODE);
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when
+	 * <code>GetOverlappedResult(...)</code> returns <code>true</code>, but signals an unexpected
+	 * number of bytes.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingReturnsUnexpectedNumberOfBytes() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
+		                                                DATA.length - 2);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+		// @formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult returned an unexpected number of read bytes! Read: " + (DATA.length - 2) + ", expected: " + DATA.length);
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that the available data is read, when <code>ReadFile(...)</code> is pending and
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_OBJECT_0</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_ReadFilePendingSuccess() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
+		                                                DATA.length);
+			doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		// @formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+	}
+
+	/**
+	 * Verifies that <code>ReadFile(...)</code> writes directly into a direct buffer and the
+	 * position of the buffer is advanced by the number of read bytes.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readByteBuffer_direct() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(ByteBuffer.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		//@formatter:on
+
+		ByteBuffer dst = ByteBuffer.allocateDirect(10);
+		dst.position(2);
+
+		int result = reader.read(dst);
+
+		assertThat(result, is(DATA.length));
+		assertThat(dst.position(), is(2 + DATA.length));
+		verify(os).ReadFile(eq(DUMMY_PORT_HANDLE), eq(dst), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that not more than the remaining bytes of a direct buffer are read, if more bytes
+	 * are available.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readByteBuffer_directWithLessRemainingThanAvailable() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(ByteBuffer.class), eq(3), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		//@formatter:on
+
+		ByteBuffer dst = ByteBuffer.allocateDirect(3);
+
+		int result = reader.read(dst);
+
+		assertThat(result, is(3));
+		assertThat(dst.hasRemaining(), is(false));
+	}
+
+	/**
+	 * Verifies that the number of read bytes is verified, when <code>ReadFile(...)</code> into a
+	 * direct buffer is pending.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readByteBuffer_directReadFilePendingReturnsUnexpectedNumberOfBytes() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR, 
+		                                                DATA.length - 2);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(ByteBuffer.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(DUMMY_PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+		// @formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult returned an unexpected number of read bytes! Read: " + (DATA.length - 2) + ", expected: " + DATA.length);
+
+		reader.read(ByteBuffer.allocateDirect(10));
+	}
+
+	/**
+	 * Verifies that the data is read into a native buffer and copied directly into the array of a
+	 * heap buffer, at the position of the buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readByteBuffer_heap() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		doAnswer(copyBytes(new byte[] { 1, 2, 3, 4, 5 })).when(os).getByteArrayRegion(any(NativeByteArray.class), any(byte[].class), eq(3), eq(DATA.length));
+		//@formatter:on
+
+		// a buffer with an array offset of 2
+		ByteBuffer dst = ByteBuffer.wrap(new byte[12], 2, 10).slice();
+		dst.position(1);
+
+		int result = reader.read(dst);
+
+		assertThat(result, is(DATA.length));
+		assertThat(dst.position(), is(1 + DATA.length));
+		assertThat(dst.get(1), is((byte) 1));
+		assertThat(dst.get(5), is((byte) 5));
+		verify(os, never()).getByteArray(any(NativeByteArray.class), anyInt());
+	}
+
+	/**
+	 * Verifies that the data is copied into a heap buffer via an intermediate byte array, when the
+	 * native library of the first version is loaded.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readByteBuffer_heapNativeVersion1() throws IOException {
+		reader = newReaderOfNativeVersion1();
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(new byte[] { 1, 2, 3, 4, 5 });
+		//@formatter:on
+
+		ByteBuffer dst = ByteBuffer.allocate(10);
+
+		int result = reader.read(dst);
+
+		assertThat(result, is(DATA.length));
+		assertThat(dst.position(), is(DATA.length));
+		assertThat(dst.get(0), is((byte) 1));
+		assertThat(dst.get(4), is((byte) 5));
+		verify(os, never()).getByteArrayRegion(any(NativeByteArray.class), any(byte[].class), anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that the staging buffer is reused for subsequent reads.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_reusesStagingBuffer() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		reader.read();
+		reader.read();
+		reader.read();
+
+		verify(os, times(1)).malloc(StagingBuffer.MIN_CAPACITY);
+		verify(os, never()).free(PTR_NATIVE_BYTE_ARRAY);
+		assertThat(reader.getStagingBuffer().getGrowCount(), is(1));
+	}
+
+	/**
+	 * Verifies that not more bytes than the maximum size of the staging buffer are read.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_limitedByMaxReadBufferSize() throws IOException {
+		mockCreateEvents();
+		reader = new ReaderImpl(port, os, DUMMY_PORT_HANDLE, SerialPortOptions.fromDefaults().limitReadBuffer(3).create());
+
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(3), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(3))).thenReturn(new byte[3]);
+		//@formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result.length, is(3));
+	}
+
+	/**
+	 * Verifies that the staging buffer is freed, when the reader is disposed.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void dispose_freesStagingBuffer() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+		reader.read();
+
+		reader.dispose();
+
+		verify(os).free(PTR_NATIVE_BYTE_ARRAY);
+	}
+
+	/**
+	 * Verifies that the fused read returns the read data, when <code>WaitAndReadFile(...)</code>
+	 * succeeds, and that the separate native calls are not used.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_succeeded() throws IOException {
+		reader = newFusedReader();
+		//@formatter:off
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(StagingBuffer.MIN_CAPACITY), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), eq(DUMMY_CANCEL_EVENT_HANDLE), eq(false), eq(INFINITE), eq(100))).thenReturn(WAIT_AND_READ_SUCCEEDED);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+		verify(os, never()).WaitCommEvent(anyInt(), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).ClearCommError(anyInt(), anyINT(), anyCOMSTAT());
+		verify(os, never()).ReadFile(anyInt(), any(NativeByteArray.class), anyInt(), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that the pending <code>WaitCommEvent</code> operation is resumed, when
+	 * <code>WaitAndReadFile(...)</code> returns <code>WAIT_AND_READ_TIMEOUT</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_timeoutResumesPendingOperation() throws IOException {
+		reader = newFusedReader();
+		//@formatter:off
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt())).thenReturn(WAIT_AND_READ_TIMEOUT);
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(true), anyInt(), anyInt())).thenReturn(WAIT_AND_READ_TIMEOUT, WAIT_AND_READ_SUCCEEDED);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+		verify(os, times(1)).WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt());
+		verify(os, times(2)).WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(true), anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that the next fused read can receive more bytes, when the staging buffer was filled
+	 * completely.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_fullBufferGrowsNextRead() throws IOException {
+		reader = newFusedReader();
+		//@formatter:off
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt())).thenReturn(WAIT_AND_READ_SUCCEEDED);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(StagingBuffer.MIN_CAPACITY);
+		when(os.getByteArray(any(NativeByteArray.class), eq(StagingBuffer.MIN_CAPACITY))).thenReturn(new byte[StagingBuffer.MIN_CAPACITY]);
+		//@formatter:on
+
+		reader.read();
+		reader.read();
+
+		verify(os).WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(StagingBuffer.MIN_CAPACITY), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt());
+		verify(os).WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(2 * StagingBuffer.MIN_CAPACITY), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt());
+		assertThat(reader.getStagingBuffer().getGrowCount(), is(2));
+	}
+
+	/**
+	 * Verifies that the fused read copies the read data into a heap buffer, but not more than the
+	 * remaining bytes of the buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_heapByteBuffer() throws IOException {
+		reader = newFusedReader();
+		//@formatter:off
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(3), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt())).thenReturn(WAIT_AND_READ_SUCCEEDED);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(3);
+		doAnswer(copyBytes(new byte[] { 1, 2, 3 })).when(os).getByteArrayRegion(any(NativeByteArray.class), any(byte[].class), eq(0), eq(3));
+		//@formatter:on
+
+		ByteBuffer dst = ByteBuffer.allocate(3);
+
+		int result = reader.read(dst);
+
+		assertThat(result, is(3));
+		assertThat(dst.get(2), is((byte) 3));
+		verify(os, never()).getByteArray(any(NativeByteArray.class), anyInt());
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when <code>WaitAndReadFile(...)</code>
+	 * signals a communication error event.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_commError() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_COMM_ERROR);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! Read operation failed, because a communication error event was signaled!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitAndReadFile(...)</code>
+	 * returns <code>WAIT_AND_READ_ABANDONED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_abandoned() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_ABANDONED);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitAndReadFile returned an unexpected value: WAIT_AND_READ_ABANDONED!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when the <code>ReadFile</code>
+	 * operation of <code>WaitAndReadFile(...)</code> timed out.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_readTimeout() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_READ_TIMEOUT);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("ReadFile timed out after 100 milliseconds!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the <code>ReadFile</code> operation of
+	 * <code>WaitAndReadFile(...)</code> fails with <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_readFileFailsWithERROR_INVALID_HANDLE() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_READ_FILE_FAILED);
+		when(os.GetLastError()).thenReturn(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when the <code>WaitCommEvent</code>
+	 * operation of <code>WaitAndReadFile(...)</code> fails with an unexpected error code.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_waitCommEventFailsUnexpected() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_WAIT_COMM_EVENT_FAILED);
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitCommEvent failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when the
+	 * <code>GetOverlappedResult</code> operation of <code>WaitAndReadFile(...)</code> fails with
+	 * an unexpected error code.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_getOverlappedResultFailsUnexpected() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED);
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult failed unexpected!");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WaitAndReadFile(...)</code>
+	 * returns an unexpected value.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_unexpectedResult() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(-1);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitAndReadFile returned an unexpected value! Got: -1");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that a fused read throws an {@link IOException}, when <code>WaitAndReadFile(...)</code>
+	 * returns <code>WAIT_AND_READ_CANCELED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_canceled() throws IOException {
+		reader = newFusedReader();
+		mockWaitAndReadFileReturns(WAIT_AND_READ_CANCELED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! Read operation has been canceled.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that the fused read counts the overruns, that are reported by the
+	 * <code>ClearCommError</code> calls of <code>WaitAndReadFile(...)</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readFused_countsOverruns() throws IOException {
+		reader = newFusedReader();
+		//@formatter:off
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt())).
+			then(withReadErrors(CE_OVERRUN)).
+			then(withReadErrors(0)).
+			then(withReadErrors(CE_RXOVER));
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		reader.read();
+		reader.read();
+		reader.read();
+
+		assertThat(reader.getOverrunCount(), is(2L));
+	}
+
+	/**
+	 * Verifies that a reader with fused reads can't be created, when the native library doesn't
+	 * provide <code>WaitAndReadFile(...)</code>.
+	 */
+	@Test
+	public void new_fusedReadNativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+
+		exception.expect(UnsupportedOperationException.class);
+		exception.expectMessage("The fused read requires version 2 of the native library, but version 1 is loaded!");
+
+		try {
+			newFusedReader();
+		}
+		finally {
+			// only the events of the reader of the setup were created
+			verify(os, times(2)).CreateEventA(0, true, false, null);
+		}
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the options are
+	 * <code>null</code>.
+	 */
+	@Test
+	public void new_withNullOptions() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >options< must not be null!");
+
+		new ReaderImpl(port, os, DUMMY_PORT_HANDLE, (SerialPortOptions) null);
+	}
+
+	/**
+	 * Verifies that a read waits without a time-out for the event of the overlapped and the cancel
+	 * event.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_waitsForOverlappedAndCancelEvent() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(WAIT_OBJECT_0);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		// @formatter:on
+
+		reader.read();
+
+		verify(os).WaitForMultipleObjects(eq(2), aryEq(new int[] { DUMMY_EVENT_HANDLE, DUMMY_CANCEL_EVENT_HANDLE }), eq(false), eq(INFINITE));
+		verify(os, never()).WaitForSingleObject(anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the cancel event is signaled while the
+	 * read waits for data.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_cancelEventSignaled() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(WAIT_OBJECT_0 + 1);
+		// @formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! Read operation has been canceled.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that the cancel event is signaled and an {@link InterruptedIOException} is thrown,
+	 * when the reading thread is interrupted while the read waits for data.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_interruptedWhileWaiting() throws IOException {
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).then(interruptAndReturn(WAIT_OBJECT_0 + 1));
+		// @formatter:on
+
+		try {
+			reader.read();
+			fail("Expected an InterruptedIOException!");
+		}
+		catch (InterruptedIOException e) {
+			assertThat(e.getMessage(), is("The thread for the read operation is interrupted!"));
+		}
+
+		verify(os).SetEvent(DUMMY_CANCEL_EVENT_HANDLE);
+		assertThat(Thread.interrupted(), is(false));
+	}
+
+	/**
+	 * Verifies that a read waits in intervals with <code>WaitForSingleObject</code>, if the native
+	 * library doesn't provide <code>WaitForMultipleObjects</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_nativeVersion1WaitsInIntervals() throws IOException {
+		reader = newReaderOfNativeVersion1();
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, ReaderImpl.READ_TIMEOUT)).thenReturn(WAIT_TIMEOUT, WAIT_OBJECT_0);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		// @formatter:on
+
+		byte[] result = reader.read();
+
+		assertThat(result, is(DATA));
+		verify(os, times(2)).WaitForSingleObject(DUMMY_EVENT_HANDLE, ReaderImpl.READ_TIMEOUT);
+		verify(os, never()).WaitForMultipleObjects(anyInt(), anyHandles(), eq(false), anyInt());
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the reader is closed while a read waits
+	 * in intervals for data.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void read_nativeVersion1ClosedWhileWaiting() throws IOException {
+		reader = newReaderOfNativeVersion1();
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		doAnswer(new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				reader.close();
+				return WAIT_TIMEOUT;
+			}
+		}).when(os).WaitForSingleObject(DUMMY_EVENT_HANDLE, ReaderImpl.READ_TIMEOUT);
+		// @formatter:on
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! Read operation has been canceled.");
+
+		reader.read();
+	}
+
+	/**
+	 * Verifies that the data for a direct buffer is read into a native buffer first, if the native
+	 * library can't read into a direct buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void readByteBuffer_directNativeVersion1() throws IOException {
+		reader = newReaderOfNativeVersion1();
+		//@formatter:off
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+		//@formatter:on
+
+		ByteBuffer dst = ByteBuffer.allocateDirect(10);
+
+		int result = reader.read(dst);
+
+		assertThat(result, is(DATA.length));
+		assertThat(dst.position(), is(DATA.length));
+		verify(os, never()).ReadFile(anyInt(), any(ByteBuffer.class), anyInt(), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that the cancel event is signaled, when the reader is closed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_signalsCancelEvent() throws Exception {
+
+		reader.close();
+
+		verify(os).SetEvent(DUMMY_CANCEL_EVENT_HANDLE);
+	}
+
+	/**
+	 * Verifies that the handle of the cancel event is closed, when the reader is disposed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void dispose_closesCancelEvent() throws Exception {
+
+		reader.dispose();
+
+		verify(os).CloseHandle(DUMMY_CANCEL_EVENT_HANDLE);
+	}
+
+	/**
+	 * Verifies that all handles are disposed, when the reader is closed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close() throws Exception {
+
+		reader.close();
+
+		verify(os).CloseHandle(DUMMY_EVENT_HANDLE);
+	}
+
+	/**
+	 * Verifies that all resources are disposed, when the reader is disposed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void dispose() throws Exception {
+
+		reader.dispose();
+
+		verify(os).free(PTR_BYTES_TRANSFERRED);
+		verify(os).free(PTR_OVERLAPPED);
+		verify(os).free(PTR_EVT_MASK);
+	}
+
+	/**
+	 * Verifies that {@link ReaderImpl#available()} returns the number of bytes in the input queue
+	 * of the driver, without waiting for data.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void available() throws Exception {
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+
+		assertThat(reader.available(), is(DATA.length));
+
+		verify(os, never()).WaitCommEvent(anyInt(), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).ReadFile(anyInt(), any(NativeByteArray.class), anyInt(), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when {@link ReaderImpl#available()} is called
+	 * on a closed reader.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void available_whenClosed() throws Exception {
+		reader.close();
+
+		exception.expect(IOException.class);
+
+		reader.available();
+	}
+
+	/**
+	 * Verifies that the overruns are counted, that are reported by
+	 * <code>ClearCommError(...)</code>.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void getOverrunCount() throws Exception {
+		assertThat(reader.getOverrunCount(), is(0L));
+
+		doAnswer(withErrors(CE_OVERRUN)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		reader.available();
+		doAnswer(withErrors(0)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		reader.available();
+		doAnswer(withErrors(CE_RXOVER)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		reader.available();
+
+		assertThat(reader.getOverrunCount(), is(2L));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** matches any {@link OVERLAPPED} */
+	private OVERLAPPED anyOVERLAPPED() {
+		return any(OVERLAPPED.class);
+	}
+
+	/** matches any {@link DWORD} */
+	private DWORD anyDWORD() {
+		return any(DWORD.class);
+	}
+
+	/** matches any {@link DWORD} */
+	private INT anyINT() {
+		return any(INT.class);
+	}
+
+	/** matches any array of handles */
+	private int[] anyHandles() {
+		return any(int[].class);
+	}
+
+	/** matches any {@link COMSTAT} */
+	private COMSTAT anyCOMSTAT() {
+		return any(COMSTAT.class);
+	}
+
+	/**
+	 * Returns an {@link Answer} that sets the <code>availableBytes</code> on the
+	 * <code>COMSTAT</code> parameter and returns the given <code>returnValue</code>.
+	 */
+	private Answer<Boolean> withAvailableBytes(final int availableByte, final boolean returnValue) {
+		return new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				COMSTAT comstat = (COMSTAT) invocation.getArguments()[2];
+				comstat.cbInQue = availableByte;
+				return returnValue;
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@link Answer} that reports the given errors and one available byte and returns
+	 * <code>true</code>.
+	 */
+	private Answer<Boolean> withErrors(final int errors) {
+		return new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				((INT) invocation.getArguments()[1]).value = errors;
+				((COMSTAT) invocation.getArguments()[2]).cbInQue = 1;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@link Answer} that reports the given errors of the <code>ClearCommError</code>
+	 * calls of <code>WaitAndReadFile</code> and returns <code>WAIT_AND_READ_SUCCEEDED</code>.
+	 */
+	private Answer<Integer> withReadErrors(final int errors) {
+		return new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				((INT) invocation.getArguments()[5]).value = errors;
+				return WAIT_AND_READ_SUCCEEDED;
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@link Answer} that lets another thread interrupt the current thread and returns
+	 * the given <code>returnValue</code>.
+	 */
+	private Answer<Integer> interruptAndReturn(final int returnValue) {
+		return new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				// the thread must be interrupted by another thread, like in a real application
+				final Thread readingThread = Thread.currentThread();
+				Thread interruptingThread = new Thread() {
+					@Override
+					public void run() {
+						readingThread.interrupt();
+					}
+				};
+				interruptingThread.start();
+				interruptingThread.join();
+				return returnValue;
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@link Answer} for <code>getByteArrayRegion(...)</code>, that copies the given
+	 * bytes into the passed array at the passed offset.
+	 */
+	private Answer<Void> copyBytes(final byte[] data) {
+		return new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Object[] args = invocation.getArguments();
+				System.arraycopy(data, 0, (byte[]) args[1], (Integer) args[2], data.length);
+				return null;
+			}
+		};
+	}
+
+	/** Returns a new reader, that uses a native library of the first version. */
+	private ReaderImpl newReaderOfNativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+		mockCreateEvents();
+		return new ReaderImpl(port, os, DUMMY_PORT_HANDLE);
+	}
+
+	/** Returns a new reader, that uses the fused native read operation. */
+	private ReaderImpl newFusedReader() {
+		mockCreateEvents();
+		return new ReaderImpl(port, os, DUMMY_PORT_HANDLE, SerialPortOptions.fromDefaults().fuseReads().create());
+	}
+
+	/**
+	 * Mocks <code>CreateEventA</code> to return the handle of the overlapped event first and the
+	 * handle of the cancel event second, like a new reader creates them.
+	 */
+	private void mockCreateEvents() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(DUMMY_EVENT_HANDLE, DUMMY_CANCEL_EVENT_HANDLE);
+	}
+
+	/** Mocks <code>WaitAndReadFile</code> to return the given result. */
+	private void mockWaitAndReadFileReturns(int result) {
+		when(os.WaitAndReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), anyInt(), anyDWORD(), anyDWORD(), anyINT(), anyOVERLAPPED(), anyInt(), eq(false), anyInt(), anyInt())).thenReturn(result);
+	}
+
+	/** Mocks <code>WaitCommEvent</code> to fail with the given error code. */
+	private void mockWaitCommEventFailsWith(int errorCode) {
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(errorCode);
+	}
+
+	/** Mocks <code>WaitCommEvent</code> (pending) to fail with the given error code. */
+	private void mockWaitCommEventPendingFailsWith(int errorCode) {
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
+		when(os.WaitForMultipleObjects(eq(2), anyHandles(), eq(false), eq(INFINITE))).thenReturn(WAIT_FAILED);
+	}
+
+	/** Mocks <code>ReadFile</code> (pending) to fail with the given error code. */
+	private void mockReadFilePendingWaitFailsWith(int errorCode) {
+		when(os.WaitCommEvent(eq(DUMMY_PORT_HANDLE), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length, true)).when(os).ClearCommError(eq(DUMMY_PORT_HANDLE), anyINT(), anyCOMSTAT());
+		when(os.ReadFile(eq(DUMMY_PORT_HANDLE), any(NativeByteArray.class), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
+		when(os.WaitForSingleObject(DUMMY_EVENT_HANDLE, 100)).thenReturn(WAIT_FAILED);
+	}
+
+}
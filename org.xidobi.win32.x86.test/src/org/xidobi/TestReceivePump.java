@@ -0,0 +1,312 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.System.currentTimeMillis;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the class {@link ReceivePump}.
+ * 
+ * @author Christian Schwarz
+ */
+public class TestReceivePump {
+
+	/** the capacity of the ring buffer used in the tests */
+	private static final int CAPACITY = 8;
+
+	/** the time in milliseconds, the tests wait for the background thread */
+	private static final long TIMEOUT = 5000;
+
+	/** check exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private SerialPort port;
+
+	@Mock
+	private ReaderImpl reader;
+
+	/** the data, that is received by the mocked reader, or an exception that it throws */
+	private final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+
+	/** the class under test */
+	private ReceivePump pump;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() throws Exception {
+		initMocks(this);
+
+		when(port.getPortName()).thenReturn("COM1");
+		doAnswer(receive()).when(reader).read(any(ByteBuffer.class));
+		when(reader.getOverrunCount()).thenReturn(3L);
+
+		pump = new ReceivePump(port, reader, CAPACITY);
+	}
+
+	@After
+	@SuppressWarnings("javadoc")
+	public void tearDown() {
+		// terminates the background thread
+		received.add(new IOException("closed"));
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>port == null</code>.
+	 */
+	@Test
+	@SuppressWarnings("unused")
+	public void new_withNullPort() {
+		exception.expect(IllegalArgumentException.class);
+
+		new ReceivePump(null, reader, CAPACITY);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the reader is
+	 * <code>null</code>.
+	 */
+	@Test
+	@SuppressWarnings("unused")
+	public void new_withNullReader() {
+		exception.expect(IllegalArgumentException.class);
+
+		new ReceivePump(port, null, CAPACITY);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the capacity is 0.
+	 */
+	@Test
+	@SuppressWarnings("unused")
+	public void new_withCapacity0() {
+		exception.expect(IllegalArgumentException.class);
+
+		new ReceivePump(port, reader, 0);
+	}
+
+	/**
+	 * Verifies that {@link ReceivePump#read()} returns the received data.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read() throws Exception {
+		received.add(new byte[] { 1, 2, 3 });
+
+		assertThat(pump.read(), is(new byte[] { 1, 2, 3 }));
+		assertThat(pump.getBufferedBytes(), is(0));
+	}
+
+	/**
+	 * Verifies that {@link ReceivePump#read(ByteBuffer)} transfers not more bytes than the buffer
+	 * can take and that the rest remains buffered.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read_ByteBuffer() throws Exception {
+		received.add(new byte[] { 1, 2, 3, 4, 5 });
+		awaitBufferedBytes(5);
+
+		ByteBuffer dst = ByteBuffer.allocate(3);
+		int result = pump.read(dst);
+
+		assertThat(result, is(3));
+		assertThat(dst.array(), is(new byte[] { 1, 2, 3 }));
+		assertThat(pump.available(), is(2));
+		assertThat(pump.read(), is(new byte[] { 4, 5 }));
+	}
+
+	/**
+	 * Verifies that the data is returned in the right order, when it wraps around the end of the
+	 * ring buffer.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read_wrapsAround() throws Exception {
+		received.add(new byte[] { 1, 2, 3, 4, 5, 6 });
+		awaitBufferedBytes(6);
+		pump.read();
+
+		received.add(new byte[] { 7, 8, 9, 10, 11, 12 });
+		awaitBufferedBytes(6);
+
+		ByteBuffer dst = ByteBuffer.allocate(CAPACITY);
+		int result = pump.read(dst);
+
+		assertThat(result, is(6));
+		assertThat(dst.get(0), is((byte) 7));
+		assertThat(dst.get(5), is((byte) 12));
+	}
+
+	/**
+	 * Verifies that the background thread stalls, when the ring buffer is full, and continues
+	 * after the data was read.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read_stallsWhenFull() throws Exception {
+		received.add(new byte[CAPACITY + 2]);
+		awaitBufferedBytes(CAPACITY);
+		awaitStall();
+
+		assertThat(pump.getHighWaterMark(), is(CAPACITY));
+		assertThat(pump.read().length, is(CAPACITY));
+		assertThat(pump.read().length, is(2));
+	}
+
+	/**
+	 * Verifies that the failure of the background thread is thrown, after the received data was
+	 * read.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read_failureAfterData() throws Exception {
+		IOException failure = new IOException("failed");
+		received.add(new byte[] { 1, 2 });
+		received.add(failure);
+
+		assertThat(pump.read(), is(new byte[] { 1, 2 }));
+		try {
+			pump.read();
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			assertThat(e == failure, is(true));
+		}
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the pump is closed and that the reader
+	 * is closed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read_whenClosed() throws Exception {
+		pump.close();
+
+		verify(reader).close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed!");
+
+		pump.read();
+	}
+
+	/**
+	 * Verifies that an {@link InterruptedIOException} is thrown, when the reading thread is
+	 * interrupted.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void read_interrupted() throws Exception {
+		Thread.currentThread().interrupt();
+
+		exception.expect(InterruptedIOException.class);
+
+		pump.read();
+	}
+
+	/**
+	 * Verifies that the capacity and the overruns of the reader are returned.
+	 */
+	@Test
+	public void statistics() {
+		assertThat(pump.getCapacity(), is(CAPACITY));
+		assertThat(pump.getOverrunCount(), is(3L));
+		assertThat(pump.getStallCount(), is(0L));
+		assertThat(pump.getHighWaterMark(), is(0));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/**
+	 * Returns an {@link Answer} that transfers the data of the queue into the buffer, like a
+	 * read of the {@link ReaderImpl}.
+	 */
+	private Answer<Integer> receive() {
+		return new Answer<Integer>() {
+
+			/** the data of the last queue element, that didn't fit into the buffer */
+			private ByteBuffer pending = ByteBuffer.allocate(0);
+
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				if (!pending.hasRemaining()) {
+					Object next = received.take();
+					if (next instanceof Throwable)
+						throw (Throwable) next;
+					pending = ByteBuffer.wrap((byte[]) next);
+				}
+				ByteBuffer dst = (ByteBuffer) invocation.getArguments()[0];
+				int length = Math.min(pending.remaining(), dst.remaining());
+				for (int i = 0; i < length; i++)
+					dst.put(pending.get());
+				return length;
+			}
+		};
+	}
+
+	/** Waits until the given number of bytes is buffered. */
+	private void awaitBufferedBytes(int bufferedBytes) throws InterruptedException {
+		long deadline = currentTimeMillis() + TIMEOUT;
+		while (pump.getBufferedBytes() != bufferedBytes) {
+			if (currentTimeMillis() > deadline)
+				fail("Expected " + bufferedBytes + " buffered bytes, but was " + pump.getBufferedBytes());
+			Thread.sleep(1);
+		}
+	}
+
+	/** Waits until the background thread stalled. */
+	private void awaitStall() throws InterruptedException {
+		long deadline = currentTimeMillis() + TIMEOUT;
+		while (pump.getStallCount() == 0) {
+			if (currentTimeMillis() > deadline)
+				fail("Expected a stall of the background thread");
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.WinApi.ERROR_FILE_NOT_FOUND;
+import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.FILE_FLAG_OVERLAPPED;
+import static org.xidobi.WinApi.GENERIC_READ;
+import static org.xidobi.WinApi.GENERIC_WRITE;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.OPEN_EXISTING;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DCB;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Tests the class {@link ReconnectingSerialConnection} with a {@link SerialPortImpl} on a
+ * simulated {@link WinApi}, whose port is dropped and restored.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestReconnectingSerialPortImpl {
+
+	/** the time in milliseconds, the tests wait for a condition */
+	private static final int TIMEOUT = 5000;
+
+	/** the file name of the port */
+	private static final String PORT_FILE_NAME = "\\\\.\\COM1";
+
+	/** the handle of the port, before it was dropped */
+	private static final int DROPPED_HANDLE = 11;
+	/** the handle of the port, after it was restored */
+	private static final int RESTORED_HANDLE = 12;
+
+	/** the number of attempts to reopen the port, that fail while the port is dropped */
+	private static final int FAILED_ATTEMPTS = 2;
+
+	/** the data, that is received after the port was restored */
+	private static final byte[] DATA = { 1, 2, 3 };
+
+	/** expected exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+	@Mock
+	private DCBConfigurator configurator;
+	@Mock
+	private WatchableSerialPortFinder finder;
+
+	/** the simulated port */
+	private SerialPortImpl port;
+
+	/** the settings to open the port */
+	private SerialPortSettings settings;
+
+	/** <code>true</code>, while the port is dropped */
+	private volatile boolean isDropped;
+	/** the number of attempts to open the port, that failed while the port was dropped */
+	private volatile int failedAttempts;
+	/** the last error of the simulated native calls */
+	private volatile int lastError;
+	/** the handle, that is returned by the next successful open */
+	private volatile int nextHandle = DROPPED_HANDLE;
+
+	/** the class under test */
+	private ReconnectingSerialConnection connection;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+		port = new SerialPortImpl(os, "COM1", "description", configurator);
+		settings = SerialPortSettings.from9600bauds8N1().create();
+
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+		when(os.sizeOf_OVERLAPPED()).thenReturn(1);
+		when(os.sizeOf_DWORD()).thenReturn(1);
+		when(os.malloc(anyInt())).thenReturn(1);
+		when(os.CreateEventA(anyInt(), anyBoolean(), anyBoolean(), anyString())).thenReturn(2);
+		when(os.CloseHandle(anyInt())).thenReturn(true);
+		when(os.SetEvent(anyInt())).thenReturn(true);
+		when(os.ResetEvent(anyInt())).thenReturn(true);
+		when(os.GetCommState(anyInt(), any(DCB.class))).thenReturn(true);
+		when(os.SetCommState(anyInt(), any(DCB.class))).thenReturn(true);
+		when(os.PurgeComm(anyInt(), anyInt())).thenReturn(true);
+		when(os.SetCommMask(anyInt(), eq(EV_RXCHAR))).thenReturn(true);
+		when(os.CancelIo(anyInt())).thenReturn(true);
+		doAnswer(lastError()).when(os).GetLastError();
+		doAnswer(createFile()).when(os).CreateFileA(PORT_FILE_NAME, GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, FILE_FLAG_OVERLAPPED, 0);
+
+		// the data is available immediately
+		when(os.WaitCommEvent(anyInt(), any(DWORD.class), any(OVERLAPPED.class))).thenReturn(true);
+		when(os.getValue_DWORD(any(DWORD.class))).thenReturn(EV_RXCHAR);
+		doAnswer(withAvailableBytes(DATA.length)).when(os).ClearCommError(anyInt(), any(INT.class), any(COMSTAT.class));
+		doAnswer(dropPort()).when(os).ReadFile(eq(DROPPED_HANDLE), any(NativeByteArray.class), eq(DATA.length), any(DWORD.class), any(OVERLAPPED.class));
+		when(os.ReadFile(eq(RESTORED_HANDLE), any(NativeByteArray.class), eq(DATA.length), any(DWORD.class), any(OVERLAPPED.class))).thenReturn(true);
+		when(os.getByteArray(any(NativeByteArray.class), eq(DATA.length))).thenReturn(DATA);
+	}
+
+	@After
+	@SuppressWarnings("javadoc")
+	public void tearDown() throws IOException {
+		if (connection != null)
+			connection.close();
+	}
+
+	/**
+	 * Verifies that the port is reopened, after a read failed with <code>ERROR_GEN_FAILURE</code>
+	 * and <code>CreateFileA</code> failed until the port was restored. The read blocks during the
+	 * outage and returns the data of the restored port.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void read_reopensDroppedPort() throws Exception {
+		connection = new ReconnectingSerialConnection(port, settings, finder, 1, 10, 1024);
+
+		byte[] result = connection.read();
+
+		assertThat(result, is(DATA));
+		assertThat(connection.getReconnectCount(), is(1L));
+		assertThat(failedAttempts, is(FAILED_ATTEMPTS));
+		verify(os, times(2 + FAILED_ATTEMPTS)).CreateFileA(PORT_FILE_NAME, GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, FILE_FLAG_OVERLAPPED, 0);
+		verify(os).CloseHandle(DROPPED_HANDLE);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the port cannot be opened initially.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void new_portNotFound() throws Exception {
+		isDropped = true;
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port not found (COM1)!");
+
+		connection = new ReconnectingSerialConnection(port, settings, finder, 1, 10, 1024);
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/**
+	 * Returns an answer that mocks <code>CreateFileA(...)</code>. It fails with
+	 * <code>ERROR_FILE_NOT_FOUND</code> while the port is dropped, after the
+	 * {@link #FAILED_ATTEMPTS} the port is restored.
+	 */
+	private Answer<Integer> createFile() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				if (isDropped && failedAttempts < FAILED_ATTEMPTS) {
+					failedAttempts++;
+					lastError = ERROR_FILE_NOT_FOUND;
+					return INVALID_HANDLE_VALUE;
+				}
+				if (isDropped && connection == null) {
+					// the port is not found initially
+					lastError = ERROR_FILE_NOT_FOUND;
+					return INVALID_HANDLE_VALUE;
+				}
+				isDropped = false;
+				return nextHandle++;
+			}
+		};
+	}
+
+	/**
+	 * Returns an answer that mocks a <code>ReadFile(...)</code>, that fails with
+	 * <code>ERROR_GEN_FAILURE</code>, because the port was dropped.
+	 */
+	private Answer<Boolean> dropPort() {
+		return new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				isDropped = true;
+				lastError = ERROR_GEN_FAILURE;
+				return false;
+			}
+		};
+	}
+
+	/** Returns an answer that mocks <code>GetLastError()</code>. */
+	private Answer<Integer> lastError() {
+		return new Answer<Integer>() {
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return lastError;
+			}
+		};
+	}
+
+	/** Returns an answer that mocks <code>ClearCommError(...)</code> with the available bytes. */
+	private Answer<Boolean> withAvailableBytes(final int availableBytes) {
+		return new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				((COMSTAT) invocation.getArguments()[2]).cbInQue = availableBytes;
+				return true;
+			}
+		};
+	}
+}
@@ -1,428 +1,626 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.initMocks;
-import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
-import static org.xidobi.WinApi.ERROR_FILE_NOT_FOUND;
-import static org.xidobi.WinApi.EV_RXCHAR;
-import static org.xidobi.WinApi.GENERIC_READ;
-import static org.xidobi.WinApi.GENERIC_WRITE;
-import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
-import static org.xidobi.WinApi.OPEN_EXISTING;
-import static org.xidobi.WinApi.PURGE_RXABORT;
-import static org.xidobi.WinApi.PURGE_RXCLEAR;
-import static org.xidobi.WinApi.PURGE_TXABORT;
-import static org.xidobi.WinApi.PURGE_TXCLEAR;
-
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
-import org.junit.rules.ExpectedException;
-import org.mockito.Mock;
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * Tests the class {@link SerialConnectionImpl}.
- * 
- * @author Tobias Breler
- */
-public class TestSerialConnectionImpl {
-
-	/** dummy size of OVERLAPPED */
-	private static final int OVERLAPPED_SIZE = 1;
-	/** dummy size of DWORD */
-	private static final int DWORD_SIZE = 2;
-	/** a dummy handle to the event object */
-	private static final int eventHandle = 1;
-
-	private static final int DUMMY_ERROR_CODE = 1324;
-
-	/** pointer to an {@link OVERLAPPED}-struct */
-	private int ptrOverlapped = 1;
-	/** pointer to an {@link DWORD} */
-	private int ptrBytesTransferred = 2;
-	private int ptrEvtMask = 3;
-
-	/** Class under test */
-	private SerialConnectionImpl serialConnectionImpl;
-
-	/** check exceptions */
-	@Rule
-	public ExpectedException exception = ExpectedException.none();
-
-	@Mock
-	private SerialPort port;
-	@Mock
-	private WinApi os;
-
-	private int handle = 1534;
-	private int terminationHandle = 13423;
-
-	@Before
-	@SuppressWarnings("javadoc")
-	public void setUp() {
-		initMocks(this);
-
-		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
-		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(ptrOverlapped);
-
-		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
-		when(os.malloc(DWORD_SIZE)).thenReturn(ptrBytesTransferred, ptrEvtMask);
-
-		when(port.getPortName()).thenReturn("COM1");
-		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
-
-		serialConnectionImpl = new SerialConnectionImpl(port, os, handle);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>null</code> is
-	 * passed.
-	 */
-	@SuppressWarnings({ "resource", "unused" })
-	@Test(expected = IllegalArgumentException.class)
-	public void new_withNullPort() {
-		new SerialConnectionImpl(null, os, handle);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>null</code> is
-	 * passed.
-	 */
-	@SuppressWarnings({ "unused", "resource" })
-	@Test(expected = IllegalArgumentException.class)
-	public void new_withNullWinApi() {
-		new SerialConnectionImpl(port, null, handle);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown, when an invalid port handle is
-	 * passed.
-	 */
-	@SuppressWarnings({ "unused", "resource" })
-	@Test(expected = IllegalArgumentException.class)
-	public void new_withInvalidHandle() {
-		new SerialConnectionImpl(port, os, INVALID_HANDLE_VALUE);
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_successfull() throws Exception {
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
-		when(os.CloseHandle(eventHandle)).thenReturn(true);
-		when(os.CloseHandle(handle)).thenReturn(true);
-
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
-	 * <code>CancelIo</code> fails.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_CancelIoFails() throws Exception {
-		when(os.CancelIo(handle)).thenReturn(false); /* fails! */
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
-		when(os.CloseHandle(eventHandle)).thenReturn(true);
-		when(os.CloseHandle(handle)).thenReturn(true);
-
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-
-		exception.expect(NativeCodeException.class);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
-	 * <code>PurgeComm</code> fails.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_PurgeCommFails() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(false); /* fails! */
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
-		when(os.CloseHandle(eventHandle)).thenReturn(true);
-		when(os.CloseHandle(handle)).thenReturn(true);
-
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
-	 * <code>SetCommMask</code> fails.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_SetCommMaskFails() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(false); /* fails! */
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		when(os.CloseHandle(eventHandle)).thenReturn(true);
-		when(os.CloseHandle(handle)).thenReturn(true);
-
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
-	 * <code>CloseHandle</code> for the event handle fails.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_CloseEventHandleFails() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
-		when(os.CloseHandle(eventHandle)).thenReturn(false); /* fails! */
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		when(os.CloseHandle(handle)).thenReturn(true);
-		
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
-	 * <code>CloseHandle</code> for the port handle fails.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_ClosePortHandleFails() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
-		when(os.CloseHandle(eventHandle)).thenReturn(true); 
-		when(os.CloseHandle(handle)).thenReturn(false); /* fails! */
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
-	 * all invocations fail.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_allInvocationsFail() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(false); /* fails! */
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(false); /* fails! */
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(false); /* fails! */
-		when(os.CloseHandle(eventHandle)).thenReturn(false); /* fails! */
-		when(os.CloseHandle(handle)).thenReturn(false); /* fails! */
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-		}
-	}
-
-	/**
-	 * Verifies that {@link SerialConnectionImpl#close()} awaits the termination of serial
-	 * connection, when the port is busy.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_waitForTermination_portBusy() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
-		when(os.CloseHandle(eventHandle)).thenReturn(true); 
-		when(os.CloseHandle(handle)).thenReturn(true); 
-		
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(INVALID_HANDLE_VALUE, terminationHandle);
-		when(os.GetLastError()).thenReturn(ERROR_ACCESS_DENIED);
-		when(os.CloseHandle(terminationHandle)).thenReturn(true);
-		//@formatter:on
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-			verify(os, times(2)).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
-			verify(os).CloseHandle(terminationHandle);
-		}
-	}
-
-	/**
-	 * Verifies that {@link SerialConnectionImpl#close()} awaits the termination of serial
-	 * connection, when the port was not found.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_waitForTermination_portNotFound() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
-		when(os.CloseHandle(eventHandle)).thenReturn(true); 
-		when(os.CloseHandle(handle)).thenReturn(true); 
-		
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(INVALID_HANDLE_VALUE);
-		when(os.GetLastError()).thenReturn(ERROR_FILE_NOT_FOUND);
-		//@formatter:on
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-			verify(os).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
-		}
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>CreateFileA</code> fails
-	 * with an unexpected error during the wait for termination.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close_waitForTerminationFailedUnexpected() throws Exception {
-		// @formatter:off
-		when(os.CancelIo(handle)).thenReturn(true);
-		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
-		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
-		when(os.CloseHandle(eventHandle)).thenReturn(true); 
-		when(os.CloseHandle(handle)).thenReturn(true); 
-		
-		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(INVALID_HANDLE_VALUE);
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-		//@formatter:on
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("Couldn't wait for close termination! CreateFileA failed unexpected!");
-
-		try {
-			serialConnectionImpl.close();
-		}
-		finally {
-			verifyClosePort();
-			verify(os).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
-		}
-	}
-
-	// Utilities for this Testclass ///////////////////////////////////////////////////////////
-
-	/** Verifies that all native resources are closed or disposed. */
-	private void verifyClosePort() {
-		verify(os).CancelIo(handle);
-		verify(os).PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR);
-		verify(os).SetCommMask(handle, EV_RXCHAR);
-		verify(os).CloseHandle(handle);
-	}
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
+import static org.xidobi.WinApi.ERROR_FILE_NOT_FOUND;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.GENERIC_READ;
+import static org.xidobi.WinApi.GENERIC_WRITE;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.OPEN_EXISTING;
+import static org.xidobi.WinApi.PURGE_RXABORT;
+import static org.xidobi.WinApi.PURGE_RXCLEAR;
+import static org.xidobi.WinApi.PURGE_TXABORT;
+import static org.xidobi.WinApi.PURGE_TXCLEAR;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Tests the class {@link SerialConnectionImpl}.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestSerialConnectionImpl {
+
+	/** dummy size of OVERLAPPED */
+	private static final int OVERLAPPED_SIZE = 1;
+	/** dummy size of DWORD */
+	private static final int DWORD_SIZE = 2;
+	/** a dummy handle to the event object */
+	private static final int eventHandle = 1;
+	/** a dummy handle to the event object of the pending write operation */
+	private static final int writeEventHandle = 5;
+
+	private static final int DUMMY_ERROR_CODE = 1324;
+
+	/** pointer to an {@link OVERLAPPED}-struct */
+	private int ptrOverlapped = 1;
+	/** pointer to an {@link DWORD} */
+	private int ptrBytesTransferred = 2;
+	private int ptrEvtMask = 3;
+	/** pointer to the staging buffer of the writer */
+	private int ptrStagingBuffer = 4;
+
+	/** Class under test */
+	private SerialConnectionImpl serialConnectionImpl;
+
+	/** check exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private SerialPort port;
+	@Mock
+	private WinApi os;
+
+	private int handle = 1534;
+	private int terminationHandle = 13423;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+
+		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
+		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(ptrOverlapped);
+
+		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
+		when(os.malloc(DWORD_SIZE)).thenReturn(ptrBytesTransferred, ptrEvtMask);
+
+		when(port.getPortName()).thenReturn("COM1");
+		when(os.CreateEventA(0, true, false, null)).thenReturn(eventHandle);
+		when(os.SetEvent(eventHandle)).thenReturn(true);
+		when(os.malloc(StagingBuffer.MIN_CAPACITY)).thenReturn(ptrStagingBuffer);
+
+		serialConnectionImpl = new SerialConnectionImpl(port, os, handle);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>null</code> is
+	 * passed.
+	 */
+	@SuppressWarnings({ "resource", "unused" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullPort() {
+		new SerialConnectionImpl(null, os, handle);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>null</code> is
+	 * passed.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullWinApi() {
+		new SerialConnectionImpl(port, null, handle);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when an invalid port handle is
+	 * passed.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withInvalidHandle() {
+		new SerialConnectionImpl(port, os, INVALID_HANDLE_VALUE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>null</code> is
+	 * passed.
+	 */
+	@SuppressWarnings({ "unused", "resource" })
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullOptions() {
+		new SerialConnectionImpl(port, os, handle, (SerialPortOptions) null);
+	}
+
+	/**
+	 * Verifies that a connection with the default options doesn't use a receive pump.
+	 */
+	@Test
+	public void new_withDefaultOptions() {
+		assertThat(serialConnectionImpl.getReceivePump(), is(nullValue()));
+	}
+
+	/**
+	 * Verifies that the options can combine the coalesced writes with the pipelined writes: The
+	 * pipelined writer allocates an event per slot and small writes are not written until the
+	 * connection is flushed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	@SuppressWarnings("resource")
+	public void new_withCoalescingAndPipelinedWrites() throws Exception {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_2);
+		when(os.malloc(16)).thenReturn(ptrStagingBuffer);
+		SerialPortOptions options = SerialPortOptions.fromDefaults().coalesceWrites(8, 60 * 1000 * 1000).pipelineWrites(3, 16).create();
+
+		new SerialConnectionImpl(port, os, handle, options).write(new byte[] { 1 });
+
+		// 3 events of the connection of setUp(), 2 of the reader and 1 per slot
+		verify(os, times(8)).CreateEventA(0, true, false, null);
+		verify(os, never()).WriteFile(anyInt(), any(NativeByteArray.class), anyInt(), any(DWORD.class), any(OVERLAPPED.class));
+	}
+
+	/**
+	 * Verifies that an {@link UnsupportedOperationException} is thrown, when the writes should be
+	 * pipelined, but the native library doesn't support it.
+	 */
+	@Test
+	@SuppressWarnings({ "unused", "resource" })
+	public void new_withPipelinedWritesNativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+
+		exception.expect(UnsupportedOperationException.class);
+
+		new SerialConnectionImpl(port, os, handle, SerialPortOptions.fromDefaults().pipelineWrites(3, 16).create());
+	}
+
+	/**
+	 * Verifies that an {@link UnsupportedOperationException} is thrown and the already created
+	 * write operation is released, when fused reads are requested, but the native library doesn't
+	 * provide them.
+	 */
+	@Test
+	@SuppressWarnings({ "unused", "resource" })
+	public void new_withFusedReadsNativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+
+		exception.expect(UnsupportedOperationException.class);
+
+		try {
+			new SerialConnectionImpl(port, os, handle, SerialPortOptions.fromDefaults().fuseReads().create());
+		}
+		finally {
+			// the event of the write operation
+			verify(os).CloseHandle(eventHandle);
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_successfull() throws Exception {
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		when(os.CloseHandle(handle)).thenReturn(true);
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+			verify(os, never()).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
+			verify(os, never()).WaitForSingleObject(anyInt(), anyInt());
+		}
+	}
+
+	/**
+	 * Verifies that {@link SerialConnectionImpl#close()} waits on the event of a pending write
+	 * operation, instead of re-opening the port. The event handle must not be closed before the
+	 * operation is terminated.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_awaitsPendingOperation() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		when(os.CloseHandle(writeEventHandle)).thenReturn(true);
+		when(os.CloseHandle(handle)).thenReturn(true);
+		//@formatter:on
+
+		serialConnectionImpl = newConnectionWithPendingWrite();
+		when(os.WaitForSingleObject(eq(writeEventHandle), anyInt())).thenReturn(WAIT_OBJECT_0);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+			InOrder inOrder = inOrder(os);
+			inOrder.verify(os).CancelIo(handle);
+			inOrder.verify(os).WaitForSingleObject(eq(writeEventHandle), anyInt());
+			inOrder.verify(os).CloseHandle(writeEventHandle);
+			verify(os, never()).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
+		}
+	}
+
+	/**
+	 * Verifies that {@link SerialConnectionImpl#close()} falls back to re-open the port, when the
+	 * event of a pending operation is not signaled within the time-out.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_pendingOperationNotTerminated() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		when(os.CloseHandle(writeEventHandle)).thenReturn(true);
+		when(os.CloseHandle(handle)).thenReturn(true);
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		serialConnectionImpl = newConnectionWithPendingWrite();
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+			verify(os).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
+			verify(os).CloseHandle(terminationHandle);
+			verify(os).CloseHandle(writeEventHandle);
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
+	 * <code>CancelIo</code> fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_CancelIoFails() throws Exception {
+		when(os.CancelIo(handle)).thenReturn(false); /* fails! */
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		when(os.CloseHandle(handle)).thenReturn(true);
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+
+		exception.expect(NativeCodeException.class);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
+	 * <code>PurgeComm</code> fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_PurgeCommFails() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(false); /* fails! */
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		when(os.CloseHandle(handle)).thenReturn(true);
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
+	 * <code>SetCommMask</code> fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_SetCommMaskFails() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(false); /* fails! */
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		when(os.CloseHandle(eventHandle)).thenReturn(true);
+		when(os.CloseHandle(handle)).thenReturn(true);
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
+	 * <code>CloseHandle</code> for the event handle fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_CloseEventHandleFails() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
+		when(os.CloseHandle(eventHandle)).thenReturn(false); /* fails! */
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		when(os.CloseHandle(handle)).thenReturn(true);
+		
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
+	 * <code>CloseHandle</code> for the port handle fails.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_ClosePortHandleFails() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
+		when(os.CloseHandle(eventHandle)).thenReturn(true); 
+		when(os.CloseHandle(handle)).thenReturn(false); /* fails! */
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+		}
+	}
+
+	/**
+	 * Verifies that all resources are closed and disposed, when the serial connection is closed and
+	 * all invocations fail.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_allInvocationsFail() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(false); /* fails! */
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(false); /* fails! */
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(false); /* fails! */
+		when(os.CloseHandle(eventHandle)).thenReturn(false); /* fails! */
+		when(os.CloseHandle(handle)).thenReturn(false); /* fails! */
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(terminationHandle);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+		}
+	}
+
+	/**
+	 * Verifies that {@link SerialConnectionImpl#close()} awaits the termination of serial
+	 * connection, when the port is busy.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_waitForTermination_portBusy() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
+		when(os.CloseHandle(eventHandle)).thenReturn(true); 
+		when(os.CloseHandle(handle)).thenReturn(true); 
+		
+		when(os.CloseHandle(writeEventHandle)).thenReturn(true);
+		serialConnectionImpl = newConnectionWithPendingWrite();
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(INVALID_HANDLE_VALUE, terminationHandle);
+		when(os.GetLastError()).thenReturn(ERROR_ACCESS_DENIED);
+		when(os.CloseHandle(terminationHandle)).thenReturn(true);
+		//@formatter:on
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+			verify(os, times(2)).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
+			verify(os).CloseHandle(terminationHandle);
+		}
+	}
+
+	/**
+	 * Verifies that {@link SerialConnectionImpl#close()} awaits the termination of serial
+	 * connection, when the port was not found.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_waitForTermination_portNotFound() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
+		when(os.CloseHandle(eventHandle)).thenReturn(true); 
+		when(os.CloseHandle(handle)).thenReturn(true); 
+		
+		when(os.CloseHandle(writeEventHandle)).thenReturn(true);
+		serialConnectionImpl = newConnectionWithPendingWrite();
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(INVALID_HANDLE_VALUE);
+		when(os.GetLastError()).thenReturn(ERROR_FILE_NOT_FOUND);
+		//@formatter:on
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+			verify(os).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
+		}
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>CreateFileA</code> fails
+	 * with an unexpected error during the wait for termination.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close_waitForTerminationFailedUnexpected() throws Exception {
+		// @formatter:off
+		when(os.CancelIo(handle)).thenReturn(true);
+		when(os.PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR)).thenReturn(true);
+		when(os.SetCommMask(handle, EV_RXCHAR)).thenReturn(true); 
+		when(os.CloseHandle(eventHandle)).thenReturn(true); 
+		when(os.CloseHandle(handle)).thenReturn(true); 
+		
+		when(os.CloseHandle(writeEventHandle)).thenReturn(true);
+		serialConnectionImpl = newConnectionWithPendingWrite();
+
+		when(os.CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0)).thenReturn(INVALID_HANDLE_VALUE);
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+		//@formatter:on
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("Couldn't wait for close termination! CreateFileA failed unexpected!");
+
+		try {
+			serialConnectionImpl.close();
+		}
+		finally {
+			verifyClosePort();
+			verify(os).CreateFileA("\\\\.\\COM1", GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, 0, 0);
+		}
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/**
+	 * Returns a new connection, whose write operation timed out, so the <code>WriteFile</code>
+	 * operation is still pending. The event of the operation is not signaled.
+	 */
+	@SuppressWarnings("resource")
+	private SerialConnectionImpl newConnectionWithPendingWrite() {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(writeEventHandle, eventHandle);
+		WriterImpl writer = new WriterImpl(port, os, handle);
+
+		when(os.ResetEvent(writeEventHandle)).thenReturn(true);
+		when(os.WriteFile(eq(handle), any(NativeByteArray.class), eq(1), any(DWORD.class), any(OVERLAPPED.class))).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(eq(writeEventHandle), anyInt())).thenReturn(WAIT_TIMEOUT);
+		try {
+			writer.write(new byte[1]);
+		}
+		catch (IOException expected) {
+			// the write operation timed out
+		}
+		return new SerialConnectionImpl(port, os, handle, writer, SerialPortOptions.DEFAULTS);
+	}
+
+	/** Verifies that all native resources are closed or disposed. */
+	private void verifyClosePort() {
+		verify(os).CancelIo(handle);
+		verify(os).PurgeComm(handle, PURGE_RXABORT | PURGE_RXCLEAR | PURGE_TXABORT | PURGE_TXCLEAR);
+		verify(os).SetCommMask(handle, EV_RXCHAR);
+		verify(os).CloseHandle(handle);
+	}
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.StagingBuffer.MIN_CAPACITY;
+import static org.xidobi.StagingBuffer.SHRINK_THRESHOLD;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.xidobi.structs.NativeByteArray;
+
+/**
+ * Tests the class {@link StagingBuffer}.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestStagingBuffer {
+
+	/** a dummy pointer to the native memory */
+	private static final int DUMMY_POINTER = 1;
+
+	/** the maximum capacity used in the tests */
+	private static final int MAX_CAPACITY = 1024;
+
+	/** expected exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+
+	/** Class under test. */
+	private StagingBuffer buffer;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+		when(os.malloc(anyInt())).thenReturn(DUMMY_POINTER);
+
+		buffer = new StagingBuffer(os, MAX_CAPACITY);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when <code>os == null</code>.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withNullOS() {
+		new StagingBuffer(null, MAX_CAPACITY);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when the maximum capacity is 0.
+	 */
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void new_withMaxCapacity0() {
+		new StagingBuffer(os, 0);
+	}
+
+	/**
+	 * Verifies that no memory is allocated, before the buffer is used.
+	 */
+	@Test
+	public void new_allocatesNoMemory() {
+		assertThat(buffer.getCapacity(), is(0));
+		verify(os, never()).malloc(anyInt());
+	}
+
+	/**
+	 * Verifies that the buffer grows at least to the minimum capacity.
+	 */
+	@Test
+	public void get_growsToMinCapacity() {
+		NativeByteArray result = buffer.get(5);
+
+		assertThat(result.size(), is(MIN_CAPACITY));
+		assertThat(buffer.getCapacity(), is(MIN_CAPACITY));
+		assertThat(buffer.getGrowCount(), is(1));
+	}
+
+	/**
+	 * Verifies that the buffer grows to the next power of two.
+	 */
+	@Test
+	public void get_growsToNextPowerOfTwo() {
+		buffer.get(100);
+
+		assertThat(buffer.getCapacity(), is(128));
+	}
+
+	/**
+	 * Verifies that the buffer doesn't grow beyond the maximum capacity.
+	 */
+	@Test
+	public void get_growsNotBeyondMaxCapacity() {
+		buffer = new StagingBuffer(os, 1000);
+
+		buffer.get(1000);
+
+		assertThat(buffer.getCapacity(), is(1000));
+	}
+
+	/**
+	 * Verifies that the same buffer is returned for subsequent operations, that fit into the buffer.
+	 */
+	@Test
+	public void get_reusesBuffer() {
+		NativeByteArray first = buffer.get(100);
+		NativeByteArray second = buffer.get(128);
+		NativeByteArray third = buffer.get(40);
+
+		assertThat(second, is(sameInstance(first)));
+		assertThat(third, is(sameInstance(first)));
+		assertThat(buffer.getGrowCount(), is(1));
+		verify(os, times(1)).malloc(anyInt());
+		verify(os, never()).free(anyInt());
+	}
+
+	/**
+	 * Verifies that the old buffer is freed, when the buffer grows.
+	 */
+	@Test
+	public void get_freesOldBufferOnGrowth() {
+		buffer.get(10);
+		buffer.get(100);
+
+		assertThat(buffer.getCapacity(), is(128));
+		assertThat(buffer.getGrowCount(), is(2));
+		verify(os).free(DUMMY_POINTER);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown, when more bytes than the maximum
+	 * capacity are requested.
+	 */
+	@Test
+	public void get_beyondMaxCapacity() {
+		exception.expect(IllegalArgumentException.class);
+
+		buffer.get(MAX_CAPACITY + 1);
+	}
+
+	/**
+	 * Verifies that the number of bytes is limited to the maximum capacity.
+	 */
+	@Test
+	public void limit() {
+		assertThat(buffer.limit(10), is(10));
+		assertThat(buffer.limit(MAX_CAPACITY + 1), is(MAX_CAPACITY));
+	}
+
+	/**
+	 * Verifies that the buffer is shrunk to the peak of the small operations after a burst.
+	 */
+	@Test
+	public void get_shrinksAfterBurst() {
+		buffer.get(MAX_CAPACITY);
+
+		for (int i = 0; i < SHRINK_THRESHOLD - 1; i++)
+			buffer.get(100);
+		assertThat(buffer.getCapacity(), is(MAX_CAPACITY));
+
+		buffer.get(10);
+
+		assertThat(buffer.getCapacity(), is(128));
+		assertThat(buffer.getShrinkCount(), is(1));
+		assertThat(buffer.getGrowCount(), is(1));
+	}
+
+	/**
+	 * Verifies that the shrink policy starts again, if a large read occurs.
+	 */
+	@Test
+	public void get_largeReadResetsShrinkPolicy() {
+		buffer.get(MAX_CAPACITY);
+
+		for (int i = 0; i < SHRINK_THRESHOLD - 1; i++)
+			buffer.get(100);
+		buffer.get(MAX_CAPACITY);
+		buffer.get(100);
+
+		assertThat(buffer.getCapacity(), is(MAX_CAPACITY));
+		assertThat(buffer.getShrinkCount(), is(0));
+	}
+
+	/**
+	 * Verifies that the buffer is not shrunk below the minimum capacity.
+	 */
+	@Test
+	public void get_noShrinkBelowMinCapacity() {
+		for (int i = 0; i < 2 * SHRINK_THRESHOLD; i++)
+			buffer.get(1);
+
+		assertThat(buffer.getCapacity(), is(MIN_CAPACITY));
+		assertThat(buffer.getShrinkCount(), is(0));
+	}
+
+	/**
+	 * Verifies that the native memory is freed, when the buffer is disposed.
+	 */
+	@Test
+	public void dispose() {
+		buffer.get(10);
+
+		buffer.dispose();
+
+		assertThat(buffer.getCapacity(), is(0));
+		verify(os).free(DUMMY_POINTER);
+	}
+
+	/**
+	 * Verifies that nothing is freed, when the buffer was never used.
+	 */
+	@Test
+	public void dispose_unused() {
+		buffer.dispose();
+
+		verify(os, never()).free(anyInt());
+	}
+}
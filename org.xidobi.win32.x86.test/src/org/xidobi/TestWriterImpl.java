@@ -1,710 +1,968 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyInt;
-import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.initMocks;
-import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
-import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
-import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
-import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
-import static org.xidobi.WinApi.ERROR_IO_PENDING;
-import static org.xidobi.WinApi.ERROR_NOT_READY;
-import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
-import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
-import static org.xidobi.WinApi.WAIT_ABANDONED;
-import static org.xidobi.WinApi.WAIT_FAILED;
-import static org.xidobi.WinApi.WAIT_OBJECT_0;
-import static org.xidobi.WinApi.WAIT_TIMEOUT;
-
-import java.io.IOException;
-
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
-import org.junit.rules.ExpectedException;
-import org.mockito.Mock;
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.INT;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * Tests the class {@link WriterImpl}
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public class TestWriterImpl {
-
-	/** Dummy size of a {@link OVERLAPPED} */
-	private static final int OVERLAPPED_SIZE = 1;
-	/** Dummy pointer to an {@link OVERLAPPED}-struct */
-	private int PTR_OVERLAPPED = 1;
-	/** Dummy size of a {@link DWORD} */
-	private static final int DWORD_SIZE = 2;
-	/** Dummy pointer to an {@link DWORD} */
-	private int PTR_BYTES_TRANSFERRED = 2;
-
-	/** some unspecific error code */
-	private static final int DUMMY_ERROR_CODE = 12345;
-
-	/** Dummy event handle */
-	private static final int EVENT_HANDLE = 1;
-
-	/** Dummy serial port handle */
-	private static final int PORT_HANDLE = 2;
-
-	/** some dummy data, that should be written */
-	private static final byte[] DATA = new byte[5];
-
-	/** check exceptions */
-	@Rule
-	public ExpectedException exception = ExpectedException.none();
-
-	@Mock
-	private WinApi os;
-
-	@Mock
-	private SerialPort port;
-
-	/** the class under test */
-	private WriterImpl writer;
-
-	@Before
-	@SuppressWarnings("javadoc")
-	public void setUp() {
-		initMocks(this);
-
-		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
-		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(PTR_OVERLAPPED);
-
-		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
-		when(os.malloc(DWORD_SIZE)).thenReturn(PTR_BYTES_TRANSFERRED);
-
-		when(port.getPortName()).thenReturn("COM1");
-		when(os.CloseHandle(anyInt())).thenReturn(true);
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.ResetEvent(EVENT_HANDLE)).thenReturn(true);
-		writer = new WriterImpl(port, os, PORT_HANDLE);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is throw when the passed {@link WinApi} is
-	 * <code>null</code>.
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_nullOs() {
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >os< must not be null!");
-
-		new WriterImpl(port, null, PORT_HANDLE);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is throw when the passed {@link SerialPort}
-	 * is <code>null</code>.
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_nullPortHandle() {
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >port< must not be null!");
-
-		new WriterImpl(null, os, PORT_HANDLE);
-	}
-
-	/**
-	 * Verifies that an {@link IllegalArgumentException} is thrown when the handle is
-	 * {@link WinApi#INVALID_HANDLE_VALUE} (-1).
-	 * 
-	 */
-	@Test
-	@SuppressWarnings({ "resource", "unused" })
-	public void new_negativeHandle() {
-		exception.expect(IllegalArgumentException.class);
-		exception.expectMessage("Argument >handle< is invalid! Invalid handle value");
-
-		new WriterImpl(port, os, INVALID_HANDLE_VALUE);
-	}
-
-	/**
-	 * Simulates are write operation that completes immediatly without the need to wait for
-	 * completion of the pendig operation..
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_succeedImmediatly() throws IOException {
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
-
-		writer.write(DATA);
-
-		verify(os, times(1)).WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WriteFile(...)</code>
-	 * returns an unexpected number of transferred bytes.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileReturnsUnexpectedNumberOfBytes() throws IOException {
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length - 1);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WriteFile returned an unexpected number of transferred bytes! Transferred: " + (DATA.length - 1) + ", expected: " + DATA.length);
-
-		writer.write(DATA);
-
-		verify(os, times(1)).WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
-	 * <code>false</code> and the last error code is not <code>ERROR_IO_PENDING</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsWithERROR_INVALID_HANDLE() throws IOException {
-		mockWriteFileFailsWith(ERROR_INVALID_HANDLE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
-	 * <code>false</code> and the last error code is not <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsWithERROR_ACCESS_DENIED() throws IOException {
-		mockWriteFileFailsWith(ERROR_ACCESS_DENIED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
-	 * <code>false</code> and the last error code is not <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsWithERROR_GEN_FAILURE() throws IOException {
-		mockWriteFileFailsWith(ERROR_GEN_FAILURE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
-	 * <code>false</code> and the last error code is not <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsWithERROR_BAD_COMMAND() throws IOException {
-		mockWriteFileFailsWith(ERROR_BAD_COMMAND);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
-	 * <code>false</code> and the last error code is not <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsWithERROR_NOT_READY() throws IOException {
-		mockWriteFileFailsWith(ERROR_NOT_READY);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
-	 * <code>false</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsWithERROR_OPERATION_ABORTED() throws IOException {
-		mockWriteFileFailsWith(ERROR_OPERATION_ABORTED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WriteFile(...)</code>
-	 * returns <code>false</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFailsUnexpected() throws IOException {
-		mockWriteFileFailsWith(DUMMY_ERROR_CODE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WriteFile failed unexpected!");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WriteFile(...)</code>
-	 * returns <code>false</code> and the last error code is not <code>ERROR_IO_PENDING</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WriteFileFails() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WriteFile failed unexpected!");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when
-	 * <code>WaitForSingleObject(...)</code> returns an undefined value.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectReturnsUndefinedValue() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(DUMMY_ERROR_CODE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject returned unexpected value! Got: " + DUMMY_ERROR_CODE);
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that {@link SerialConnection#write(byte[])} returns normally, when all bytes are
-	 * written.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_successfull() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
-		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a {@link NativeCodeException} is thrown, when GetOverlappedResult(...)
-	 * indicates that not all bytes are written.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_lessBytesWritten() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
-		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
-		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length - 1);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("GetOverlappedResult returned an unexpected number of transferred bytes! Transferred: " + (DATA.length - 1) + ", expected: " + DATA.length);
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> indicates a time-out.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectReturnsWAIT_TIMEOUT() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_TIMEOUT);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Write operation timed out after 2000 milliseconds!");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
-	 * code is <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFailsWithERROR_OPERATION_ABORTED() throws IOException {
-		mockWaitForSingleObjectFailsWith(ERROR_OPERATION_ABORTED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
-	 * code is <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFailsWithERROR_INVALID_HANDLE() throws IOException {
-		mockWaitForSingleObjectFailsWith(ERROR_INVALID_HANDLE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
-	 * code is <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFailsWithERROR_ACCESS_DENIED() throws IOException {
-		mockWaitForSingleObjectFailsWith(ERROR_ACCESS_DENIED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
-	 * code is <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFailsWithERROR_GEN_FAILURE() throws IOException {
-		mockWaitForSingleObjectFailsWith(ERROR_GEN_FAILURE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
-	 * code is <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFailsWithERROR_BAD_COMMAND() throws IOException {
-		mockWaitForSingleObjectFailsWith(ERROR_BAD_COMMAND);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
-	 * code is <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFailsWithERROR_NOT_READY() throws IOException {
-		mockWaitForSingleObjectFailsWith(ERROR_NOT_READY);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link NativeCodeException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectFails() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_FAILED);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject failed unexpected!");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link NativeCodeException} is thrown, when the
-	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_ABANDONED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_WaitForSingleObjectReturnsWAIT_ABANDONED() throws IOException {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_ABANDONED);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * <code>ERROR_OPERATION_ABORTED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsWithERROR_OPERATION_ABORTED() throws IOException {
-		mockGetOverlappedResultFailsWith(ERROR_OPERATION_ABORTED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * <code>ERROR_INVALID_HANDLE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsWithERROR_INVALID_HANDLE() throws IOException {
-		mockGetOverlappedResultFailsWith(ERROR_INVALID_HANDLE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * <code>ERROR_ACCESS_DENIED</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsWithERROR_ACCESS_DENIED() throws IOException {
-		mockGetOverlappedResultFailsWith(ERROR_ACCESS_DENIED);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * <code>ERROR_GEN_FAILURE</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsWithERROR_GEN_FAILURE() throws IOException {
-		mockGetOverlappedResultFailsWith(ERROR_GEN_FAILURE);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * <code>ERROR_BAD_COMMAND</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsWithERROR_BAD_COMMAND() throws IOException {
-		mockGetOverlappedResultFailsWith(ERROR_BAD_COMMAND);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link IOException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * <code>ERROR_NOT_READY</code>.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsWithERROR_NOT_READY() throws IOException {
-		mockGetOverlappedResultFailsWith(ERROR_NOT_READY);
-
-		exception.expect(IOException.class);
-		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that an {@link NativeCodeException} is thrown, when the
-	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
-	 * unexpected.
-	 * 
-	 * @throws IOException
-	 */
-	@Test
-	public void write_GetOverlappedResultFailsUnexpected() throws IOException {
-		mockGetOverlappedResultFailsWith(DUMMY_ERROR_CODE);
-
-		exception.expect(NativeCodeException.class);
-		exception.expectMessage("GetOverlappedResult failed unexpected!");
-
-		writer.write(DATA);
-	}
-
-	/**
-	 * Verifies that a call to close() frees all handles.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void close() throws Exception {
-		writer.close();
-
-		verify(os).CloseHandle(EVENT_HANDLE);
-	}
-
-	/**
-	 * Verifies that a call to dispose() frees all resources.
-	 * 
-	 * @throws Exception
-	 */
-	@Test
-	public void dispose() {
-		writer.dispose();
-
-		verify(os).free(PTR_BYTES_TRANSFERRED);
-		verify(os).free(PTR_OVERLAPPED);
-	}
-
-	// Utilities for this Testclass ///////////////////////////////////////////////////////////
-
-	/** matches any {@link OVERLAPPED} */
-	private OVERLAPPED anyOVERLAPPED() {
-		return any(OVERLAPPED.class);
-	}
-
-	/** matches any {@link INT} */
-	private DWORD anyDWORD() {
-		return any(DWORD.class);
-	}
-
-	/** Mocks <code>WriteFile</code> to fail with given error code. */
-	private void mockWriteFileFailsWith(int errorCode) {
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(errorCode);
-	}
-
-	/** Mocks <code>WriteFile</code> (pending) to fail with given error code. */
-	private void mockWaitForSingleObjectFailsWith(int errorCode) {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_FAILED);
-	}
-
-	/** Mocks <code>GetOverlappedResult</code> to fail with given error code. */
-	private void mockGetOverlappedResultFailsWith(int errorCode) {
-		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
-		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
-		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
-		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
-		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(false);
-	}
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.xidobi.StagingBuffer.MIN_CAPACITY;
+import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
+import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
+import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.ERROR_NOT_READY;
+import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.NATIVE_VERSION_1;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.WAIT_ABANDONED;
+import static org.xidobi.WinApi.WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Tests the class {@link WriterImpl}
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public class TestWriterImpl {
+
+	/** Dummy size of a {@link OVERLAPPED} */
+	private static final int OVERLAPPED_SIZE = 1;
+	/** Dummy pointer to an {@link OVERLAPPED}-struct */
+	private int PTR_OVERLAPPED = 1;
+	/** Dummy pointer to the native staging buffer */
+	private int PTR_STAGING_BUFFER = 3;
+	/** Dummy size of a {@link DWORD} */
+	private static final int DWORD_SIZE = 2;
+	/** Dummy pointer to an {@link DWORD} */
+	private int PTR_BYTES_TRANSFERRED = 2;
+
+	/** some unspecific error code */
+	private static final int DUMMY_ERROR_CODE = 12345;
+
+	/** Dummy event handle */
+	private static final int EVENT_HANDLE = 1;
+
+	/** Dummy serial port handle */
+	private static final int PORT_HANDLE = 2;
+
+	/** some dummy data, that should be written */
+	private static final byte[] DATA = new byte[5];
+
+	/** check exceptions */
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Mock
+	private WinApi os;
+
+	@Mock
+	private SerialPort port;
+
+	/** the class under test */
+	private WriterImpl writer;
+
+	@Before
+	@SuppressWarnings("javadoc")
+	public void setUp() {
+		initMocks(this);
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_2);
+
+		when(os.sizeOf_OVERLAPPED()).thenReturn(OVERLAPPED_SIZE);
+		when(os.malloc(OVERLAPPED_SIZE)).thenReturn(PTR_OVERLAPPED);
+
+		when(os.sizeOf_DWORD()).thenReturn(DWORD_SIZE);
+		when(os.malloc(DWORD_SIZE)).thenReturn(PTR_BYTES_TRANSFERRED);
+
+		when(os.malloc(MIN_CAPACITY)).thenReturn(PTR_STAGING_BUFFER);
+
+		when(port.getPortName()).thenReturn("COM1");
+		when(os.CloseHandle(anyInt())).thenReturn(true);
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.ResetEvent(EVENT_HANDLE)).thenReturn(true);
+		writer = new WriterImpl(port, os, PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is throw when the passed {@link WinApi} is
+	 * <code>null</code>.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_nullOs() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >os< must not be null!");
+
+		new WriterImpl(port, null, PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is throw when the passed {@link SerialPort}
+	 * is <code>null</code>.
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_nullPortHandle() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >port< must not be null!");
+
+		new WriterImpl(null, os, PORT_HANDLE);
+	}
+
+	/**
+	 * Verifies that an {@link IllegalArgumentException} is thrown when the handle is
+	 * {@link WinApi#INVALID_HANDLE_VALUE} (-1).
+	 * 
+	 */
+	@Test
+	@SuppressWarnings({ "resource", "unused" })
+	public void new_negativeHandle() {
+		exception.expect(IllegalArgumentException.class);
+		exception.expectMessage("Argument >handle< is invalid! Invalid handle value");
+
+		new WriterImpl(port, os, INVALID_HANDLE_VALUE);
+	}
+
+	/**
+	 * Simulates are write operation that completes immediatly without the need to wait for
+	 * completion of the pendig operation..
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_succeedImmediatly() throws IOException {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(DATA);
+
+		verify(os, times(1)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WriteFile(...)</code>
+	 * returns an unexpected number of transferred bytes.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileReturnsUnexpectedNumberOfBytes() throws IOException {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length - 1);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WriteFile returned an unexpected number of transferred bytes! Transferred: " + (DATA.length - 1) + ", expected: " + DATA.length);
+
+		writer.write(DATA);
+
+		verify(os, times(1)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
+	 * <code>false</code> and the last error code is not <code>ERROR_IO_PENDING</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_INVALID_HANDLE() throws IOException {
+		mockWriteFileFailsWith(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
+	 * <code>false</code> and the last error code is not <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_ACCESS_DENIED() throws IOException {
+		mockWriteFileFailsWith(ERROR_ACCESS_DENIED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
+	 * <code>false</code> and the last error code is not <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_GEN_FAILURE() throws IOException {
+		mockWriteFileFailsWith(ERROR_GEN_FAILURE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
+	 * <code>false</code> and the last error code is not <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_BAD_COMMAND() throws IOException {
+		mockWriteFileFailsWith(ERROR_BAD_COMMAND);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
+	 * <code>false</code> and the last error code is not <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_NOT_READY() throws IOException {
+		mockWriteFileFailsWith(ERROR_NOT_READY);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link IOException} is thrown, when <code>WriteFile(...)</code> returns
+	 * <code>false</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsWithERROR_OPERATION_ABORTED() throws IOException {
+		mockWriteFileFailsWith(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WriteFile(...)</code>
+	 * returns <code>false</code> and the last error code is <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFailsUnexpected() throws IOException {
+		mockWriteFileFailsWith(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WriteFile failed unexpected!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when <code>WriteFile(...)</code>
+	 * returns <code>false</code> and the last error code is not <code>ERROR_IO_PENDING</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WriteFileFails() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WriteFile failed unexpected!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when
+	 * <code>WaitForSingleObject(...)</code> returns an undefined value.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectReturnsUndefinedValue() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForSingleObject returned unexpected value! Got: " + DUMMY_ERROR_CODE);
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that {@link SerialConnection#write(byte[])} returns normally, when all bytes are
+	 * written.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_successfull() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a {@link NativeCodeException} is thrown, when GetOverlappedResult(...)
+	 * indicates that not all bytes are written.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_lessBytesWritten() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length - 1);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult returned an unexpected number of transferred bytes! Transferred: " + (DATA.length - 1) + ", expected: " + DATA.length);
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> indicates a time-out.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectReturnsWAIT_TIMEOUT() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_TIMEOUT);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Write operation timed out after 2000 milliseconds!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
+	 * code is <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFailsWithERROR_OPERATION_ABORTED() throws IOException {
+		mockWaitForSingleObjectFailsWith(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
+	 * code is <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFailsWithERROR_INVALID_HANDLE() throws IOException {
+		mockWaitForSingleObjectFailsWith(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
+	 * code is <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFailsWithERROR_ACCESS_DENIED() throws IOException {
+		mockWaitForSingleObjectFailsWith(ERROR_ACCESS_DENIED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
+	 * code is <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFailsWithERROR_GEN_FAILURE() throws IOException {
+		mockWaitForSingleObjectFailsWith(ERROR_GEN_FAILURE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
+	 * code is <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFailsWithERROR_BAD_COMMAND() throws IOException {
+		mockWaitForSingleObjectFailsWith(ERROR_BAD_COMMAND);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code> and the last error
+	 * code is <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFailsWithERROR_NOT_READY() throws IOException {
+		mockWaitForSingleObjectFailsWith(ERROR_NOT_READY);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link NativeCodeException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_FAILED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectFails() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_FAILED);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForSingleObject failed unexpected!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link NativeCodeException} is thrown, when the
+	 * <code>WaitForSingleObject(...)</code> returns <code>WAIT_ABANDONED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_WaitForSingleObjectReturnsWAIT_ABANDONED() throws IOException {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_ABANDONED);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * <code>ERROR_OPERATION_ABORTED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsWithERROR_OPERATION_ABORTED() throws IOException {
+		mockGetOverlappedResultFailsWith(ERROR_OPERATION_ABORTED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation has been aborted.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * <code>ERROR_INVALID_HANDLE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsWithERROR_INVALID_HANDLE() throws IOException {
+		mockGetOverlappedResultFailsWith(ERROR_INVALID_HANDLE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the handle is invalid.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * <code>ERROR_ACCESS_DENIED</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsWithERROR_ACCESS_DENIED() throws IOException {
+		mockGetOverlappedResultFailsWith(ERROR_ACCESS_DENIED);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because access denied.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * <code>ERROR_GEN_FAILURE</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsWithERROR_GEN_FAILURE() throws IOException {
+		mockGetOverlappedResultFailsWith(ERROR_GEN_FAILURE);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because a device attached to the system is not functioning.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * <code>ERROR_BAD_COMMAND</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsWithERROR_BAD_COMMAND() throws IOException {
+		mockGetOverlappedResultFailsWith(ERROR_BAD_COMMAND);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device doesn't recognize the command.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link IOException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * <code>ERROR_NOT_READY</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsWithERROR_NOT_READY() throws IOException {
+		mockGetOverlappedResultFailsWith(ERROR_NOT_READY);
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Port COM1 was closed! I/O operation failed, because the device is not ready.");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that an {@link NativeCodeException} is thrown, when the
+	 * <code>GetOverlappedResult(...)</code> returns <code>false</code> and the last error is
+	 * unexpected.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_GetOverlappedResultFailsUnexpected() throws IOException {
+		mockGetOverlappedResultFailsWith(DUMMY_ERROR_CODE);
+
+		exception.expect(NativeCodeException.class);
+		exception.expectMessage("GetOverlappedResult failed unexpected!");
+
+		writer.write(DATA);
+	}
+
+	/**
+	 * Verifies that a call to close() frees all handles.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void close() throws Exception {
+		writer.close();
+
+		verify(os).CloseHandle(EVENT_HANDLE);
+	}
+
+	/**
+	 * Verifies that a call to dispose() frees all resources.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void dispose() {
+		writer.dispose();
+
+		verify(os).free(PTR_BYTES_TRANSFERRED);
+		verify(os).free(PTR_OVERLAPPED);
+	}
+
+	/**
+	 * Verifies that the data is copied into the native staging buffer, that is passed to
+	 * <code>WriteFile(...)</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_copiesDataIntoStagingBuffer() throws IOException {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(DATA);
+
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(DATA), eq(0), eq(DATA.length));
+		verify(os, never()).WriteFile(anyInt(), any(byte[].class), anyInt(), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that the staging buffer is allocated only once for subsequent writes.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_reusesStagingBuffer() throws IOException {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(DATA);
+		writer.write(DATA);
+
+		verify(os, times(1)).malloc(MIN_CAPACITY);
+		verify(os, never()).free(PTR_STAGING_BUFFER);
+	}
+
+	/**
+	 * Verifies that data, that doesn't fit into the staging buffer, is written in chunks.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_largeDataInChunks() throws IOException {
+		writer = new WriterImpl(port, os, PORT_HANDLE, 4);
+		when(os.malloc(4)).thenReturn(PTR_STAGING_BUFFER);
+		byte[] data = new byte[10];
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), anyInt(), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(4, 4, 2);
+
+		writer.write(data);
+
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(data), eq(0), eq(4));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(data), eq(4), eq(4));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(data), eq(8), eq(2));
+		verify(os, times(2)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(4), anyDWORD(), anyOVERLAPPED());
+		verify(os, times(1)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(2), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that nothing is written, if the data is empty.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_emptyData() throws IOException {
+		writer.write(new byte[0]);
+
+		verify(os, never()).WriteFile(anyInt(), anyNativeByteArray(), anyInt(), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that a direct buffer is written without copying it into the staging buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_directBuffer() throws IOException {
+		ByteBuffer data = ByteBuffer.allocateDirect(DATA.length);
+		when(os.WriteFile(eq(PORT_HANDLE), eq(data), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(data);
+
+		assertThat(data.remaining(), is(0));
+		verify(os).WriteFile(eq(PORT_HANDLE), eq(data), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).copyByteArray(anyNativeByteArray(), anyInt(), any(byte[].class), anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that the remaining bytes of a heap buffer are copied into the staging buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_heapBuffer() throws IOException {
+		byte[] array = new byte[DATA.length + 2];
+		ByteBuffer data = ByteBuffer.wrap(array, 2, DATA.length);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(data);
+
+		assertThat(data.remaining(), is(0));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(array), eq(2), eq(DATA.length));
+	}
+
+	/**
+	 * Verifies that several buffers are gathered into the staging buffer and written by one
+	 * <code>WriteFile(...)</code>.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_gatheredBuffers() throws IOException {
+		byte[] header = new byte[2];
+		ByteBuffer payload = ByteBuffer.allocateDirect(8);
+		payload.position(3);
+		byte[] crc = new byte[2];
+		ByteBuffer[] data = { ByteBuffer.wrap(header), payload, ByteBuffer.wrap(crc) };
+		when(os.copyDirectBuffer(anyNativeByteArray(), anyInt(), eq(payload), anyInt(), anyInt())).thenReturn(true);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(9), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(9);
+
+		writer.write(data);
+
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(header), eq(0), eq(2));
+		verify(os).copyDirectBuffer(anyNativeByteArray(), eq(2), eq(payload), eq(3), eq(5));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(7), eq(crc), eq(0), eq(2));
+		verify(os, times(1)).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(9), anyDWORD(), anyOVERLAPPED());
+		for (ByteBuffer src : data)
+			assertThat(src.remaining(), is(0));
+	}
+
+	/**
+	 * Verifies that gathered buffers, that don't fit into the staging buffer, are written in
+	 * chunks.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_gatheredBuffersInChunks() throws IOException {
+		writer = new WriterImpl(port, os, PORT_HANDLE, 4);
+		when(os.malloc(4)).thenReturn(PTR_STAGING_BUFFER);
+		byte[] first = new byte[3];
+		byte[] second = new byte[3];
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), anyInt(), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(4, 2);
+
+		writer.write(new ByteBuffer[] { ByteBuffer.wrap(first), ByteBuffer.wrap(second) });
+
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(first), eq(0), eq(3));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(3), eq(second), eq(0), eq(1));
+		verify(os).copyByteArray(anyNativeByteArray(), eq(0), eq(second), eq(1), eq(2));
+		verify(os).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(4), anyDWORD(), anyOVERLAPPED());
+		verify(os).WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(2), anyDWORD(), anyOVERLAPPED());
+	}
+
+	/**
+	 * Verifies that a single direct buffer is written without copying it.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_gatheredSingleDirectBuffer() throws IOException {
+		ByteBuffer data = ByteBuffer.allocateDirect(DATA.length);
+		when(os.WriteFile(eq(PORT_HANDLE), eq(data), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(new ByteBuffer[] { data });
+
+		assertThat(data.remaining(), is(0));
+		verify(os, never()).copyDirectBuffer(anyNativeByteArray(), anyInt(), any(ByteBuffer.class), anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that a call to dispose() frees the staging buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void dispose_freesStagingBuffer() throws IOException {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+		writer.write(DATA);
+
+		writer.dispose();
+
+		verify(os).free(PTR_STAGING_BUFFER);
+	}
+
+	/**
+	 * Verifies that the data is passed as Java array to <code>WriteFile(...)</code>, if the native
+	 * library doesn't support the staging buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_nativeVersion1() throws IOException {
+		writer = newWriterOfNativeVersion1();
+		when(os.WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(DATA.length);
+
+		writer.write(DATA);
+
+		verify(os).WriteFile(eq(PORT_HANDLE), eq(DATA), eq(DATA.length), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).malloc(MIN_CAPACITY);
+		verify(os, never()).copyByteArray(anyNativeByteArray(), anyInt(), any(byte[].class), anyInt(), anyInt());
+	}
+
+	/**
+	 * Verifies that the remaining bytes of several buffers are copied into one Java array and
+	 * passed to <code>WriteFile(...)</code>, if the native library doesn't support the staging
+	 * buffer.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void write_gatheredBuffersNativeVersion1() throws IOException {
+		writer = newWriterOfNativeVersion1();
+		ByteBuffer header = ByteBuffer.wrap(new byte[] { 1, 2 });
+		ByteBuffer payload = ByteBuffer.allocateDirect(4);
+		payload.put(new byte[] { 0, 3, 4, 5 }).position(1);
+		when(os.WriteFile(eq(PORT_HANDLE), eq(new byte[] { 1, 2, 3, 4, 5 }), eq(5), anyDWORD(), anyOVERLAPPED())).thenReturn(true);
+		when(os.getValue_DWORD(anyDWORD())).thenReturn(5);
+
+		writer.write(new ByteBuffer[] { header, payload });
+
+		verify(os).WriteFile(eq(PORT_HANDLE), eq(new byte[] { 1, 2, 3, 4, 5 }), eq(5), anyDWORD(), anyOVERLAPPED());
+		verify(os, never()).WriteFile(anyInt(), any(ByteBuffer.class), anyInt(), anyDWORD(), anyOVERLAPPED());
+		assertThat(header.remaining(), is(0));
+		assertThat(payload.remaining(), is(0));
+	}
+
+	// Utilities for this Testclass ///////////////////////////////////////////////////////////
+
+	/** matches any {@link OVERLAPPED} */
+	private OVERLAPPED anyOVERLAPPED() {
+		return any(OVERLAPPED.class);
+	}
+
+	/** matches any {@link INT} */
+	private DWORD anyDWORD() {
+		return any(DWORD.class);
+	}
+
+	/** matches any {@link NativeByteArray} */
+	private NativeByteArray anyNativeByteArray() {
+		return any(NativeByteArray.class);
+	}
+
+	/** Returns a new writer, that uses a native library of version 1. */
+	private WriterImpl newWriterOfNativeVersion1() {
+		when(os.getNativeVersion()).thenReturn(NATIVE_VERSION_1);
+		return new WriterImpl(port, os, PORT_HANDLE);
+	}
+
+	/** Mocks <code>WriteFile</code> to fail with given error code. */
+	private void mockWriteFileFailsWith(int errorCode) {
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(errorCode);
+	}
+
+	/** Mocks <code>WriteFile</code> (pending) to fail with given error code. */
+	private void mockWaitForSingleObjectFailsWith(int errorCode) {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_FAILED);
+	}
+
+	/** Mocks <code>GetOverlappedResult</code> to fail with given error code. */
+	private void mockGetOverlappedResultFailsWith(int errorCode) {
+		when(os.CreateEventA(0, true, false, null)).thenReturn(EVENT_HANDLE);
+		when(os.WriteFile(eq(PORT_HANDLE), anyNativeByteArray(), eq(DATA.length), anyDWORD(), anyOVERLAPPED())).thenReturn(false);
+		when(os.GetLastError()).thenReturn(ERROR_IO_PENDING, errorCode);
+		when(os.WaitForSingleObject(EVENT_HANDLE, 2000)).thenReturn(WAIT_OBJECT_0);
+		when(os.GetOverlappedResult(eq(PORT_HANDLE), anyOVERLAPPED(), anyDWORD(), eq(true))).thenReturn(false);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.integration;
+
+import static org.xidobi.OS.OS;
+import static org.xidobi.SerialPortSettings.from9600bauds8N1;
+
+import java.io.IOException;
+
+import org.xidobi.SerialConnection;
+import org.xidobi.SerialConnectionImpl;
+import org.xidobi.SerialPort;
+import org.xidobi.SerialPortImpl;
+
+/**
+ * Measures the latency of close/re-open cycles of a real serial port. In every cycle a thread
+ * blocks in {@link SerialConnection#read()}, so the <code>WaitCommEvent</code> operation is still
+ * pending, when the connection is closed. The close operation of {@link SerialConnectionImpl}
+ * waits on the event of the canceled operation, instead of polling the port by re-opening it.
+ * <p>
+ * Usage: <code>BenchmarkCloseReopen [port] [cycles]</code>
+ * 
+ * @author Christian Schwarz
+ */
+public class BenchmarkCloseReopen {
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional name of the port and the number of cycles
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String portName = args.length > 0 ? args[0] : "COM1";
+		int cycles = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+		SerialPort port = new SerialPortImpl(OS, portName, null);
+
+		// warm up
+		for (int i = 0; i < cycles / 10; i++)
+			cycle(port);
+
+		long minClose = Long.MAX_VALUE;
+		long maxClose = 0;
+		long totalClose = 0;
+		long totalOpen = 0;
+		for (int i = 0; i < cycles; i++) {
+			long[] durations = cycle(port);
+			totalOpen += durations[0];
+			totalClose += durations[1];
+			minClose = Math.min(minClose, durations[1]);
+			maxClose = Math.max(maxClose, durations[1]);
+		}
+
+		System.out.println("port: " + portName + ", cycles: " + cycles);
+		System.out.println(String.format("open  avg: %.3f ms", millis(totalOpen / cycles)));
+		System.out.println(String.format("close avg: %.3f ms, min: %.3f ms, max: %.3f ms", millis(totalClose / cycles), millis(minClose), millis(maxClose)));
+	}
+
+	/**
+	 * Opens the port, starts a blocking read and closes the port. Returns the durations of the open
+	 * and the close operation in nanoseconds.
+	 */
+	private static long[] cycle(SerialPort port) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		final SerialConnection connection = port.open(from9600bauds8N1().create());
+		long openDuration = System.nanoTime() - start;
+
+		Thread reader = new Thread("reader") {
+			@Override
+			public void run() {
+				try {
+					connection.read();
+				}
+				catch (IOException expected) {
+					// the connection was closed
+				}
+			}
+		};
+		reader.start();
+		// give the reader some time to issue WaitCommEvent
+		Thread.sleep(20);
+
+		start = System.nanoTime();
+		connection.close();
+		long closeDuration = System.nanoTime() - start;
+
+		reader.join();
+		return new long[] { openDuration, closeDuration };
+	}
+
+	/** Converts the given nanoseconds to milliseconds. */
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
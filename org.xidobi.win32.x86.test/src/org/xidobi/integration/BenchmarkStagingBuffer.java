@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.integration;
+
+import static org.xidobi.OS.OS;
+
+import org.xidobi.ReaderImpl;
+import org.xidobi.StagingBuffer;
+import org.xidobi.WinApi;
+import org.xidobi.structs.NativeByteArray;
+
+/**
+ * Compares the native buffers, that receive the data of a read:
+ * <ul>
+ * <li><b>per read:</b> a new {@link NativeByteArray} for every read, that is allocated, cleared
+ * and freed, like {@link ReaderImpl} did before it used a staging buffer
+ * <li><b>staged:</b> a {@link StagingBuffer}, that is reused for all reads
+ * </ul>
+ * Each read copies the data of the native buffer into a Java array, like a read does. No serial
+ * port is needed, but the native library must be available.
+ * <p>
+ * Afterwards a sequence of reads with alternating sizes is run, to show how often the staging
+ * buffer grows and shrinks.
+ * <p>
+ * Usage: <code>BenchmarkStagingBuffer [reads per run]</code>
+ * 
+ * @author Tobias Breßler
+ */
+public class BenchmarkStagingBuffer {
+
+	/** the sizes of the read data */
+	private static final int[] SIZES = { 16, 256, 4 * 1024, 64 * 1024 };
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional number of reads per run
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int reads = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+		WinApi os = OS;
+		System.out.println("reads per run: " + reads);
+		System.out.println("size\tper read ns/op\tstaged ns/op");
+		for (int size : SIZES) {
+			// warm up
+			runPerRead(os, size, reads / 10);
+			runStaged(os, size, reads / 10);
+
+			double perRead = runPerRead(os, size, reads);
+			double staged = runStaged(os, size, reads);
+			System.out.println(String.format("%d\t%.1f\t\t%.1f", size, perRead, staged));
+		}
+
+		StagingBuffer buffer = new StagingBuffer(os);
+		try {
+			for (int i = 0; i < reads; i++)
+				// a burst of large reads after every 1000 small reads
+				read(buffer, i % 1000 < 10 ? 64 * 1024 : 16);
+			System.out.println(String.format("alternating sizes: %d grows, %d shrinks", buffer.getGrowCount(), buffer.getShrinkCount()));
+		}
+		finally {
+			buffer.dispose();
+		}
+	}
+
+	/** Measures the reads with a new native buffer per read and returns the time per read in ns. */
+	private static double runPerRead(WinApi os, int size, int reads) {
+		long start = System.nanoTime();
+		for (int i = 0; i < reads; i++) {
+			NativeByteArray buffer = new NativeByteArray(os, size);
+			try {
+				buffer.getByteArray(size);
+			}
+			finally {
+				buffer.dispose();
+			}
+		}
+		return (double) (System.nanoTime() - start) / reads;
+	}
+
+	/** Measures the reads with a reused staging buffer and returns the time per read in ns. */
+	private static double runStaged(WinApi os, int size, int reads) {
+		StagingBuffer buffer = new StagingBuffer(os);
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < reads; i++)
+				read(buffer, size);
+			return (double) (System.nanoTime() - start) / reads;
+		}
+		finally {
+			buffer.dispose();
+		}
+	}
+
+	/** Copies the given number of bytes out of the staging buffer, like a read does. */
+	private static void read(StagingBuffer buffer, int size) {
+		buffer.get(size).getByteArray(size);
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.integration;
+
+import static org.xidobi.OS.OS;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.FILE_FLAG_OVERLAPPED;
+import static org.xidobi.WinApi.GENERIC_READ;
+import static org.xidobi.WinApi.GENERIC_WRITE;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.OPEN_EXISTING;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.xidobi.SerialPort;
+import org.xidobi.SerialPortImpl;
+import org.xidobi.WinApi;
+import org.xidobi.WriterImpl;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Compares the write paths of a real serial port:
+ * <ul>
+ * <li><b>array:</b> <code>WriteFile</code> with a pinned Java array, like {@link WriterImpl} did
+ * before it used a staging buffer
+ * <li><b>staged:</b> {@link WriterImpl#write(byte[])}, that copies the data into a reusable native
+ * staging buffer
+ * <li><b>direct:</b> {@link WriterImpl#write(ByteBuffer)} with a direct buffer, that is written
+ * without a copy
+ * </ul>
+ * The throughput is limited by the baud rate of the port, so use a virtual port (e.g. a null-modem
+ * emulator) to measure the overhead of the write paths.
+ * <p>
+ * Usage: <code>BenchmarkWriterImpl [port] [writes per run]</code>
+ * 
+ * @author Christian Schwarz
+ */
+public class BenchmarkWriterImpl {
+
+	/** the sizes of the written data */
+	private static final int[] SIZES = { 16, 256, 4 * 1024, 64 * 1024 };
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args
+	 *            the optional name of the port and the number of writes per run
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String portName = args.length > 0 ? args[0] : "COM1";
+		int writes = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+		WinApi os = OS;
+		int handle = os.CreateFileA("\\\\.\\" + portName, GENERIC_READ | GENERIC_WRITE, 0, 0, OPEN_EXISTING, FILE_FLAG_OVERLAPPED, 0);
+		if (handle == INVALID_HANDLE_VALUE)
+			throw new IOException("Unable to open port (" + portName + ")!");
+
+		SerialPort port = new SerialPortImpl(os, portName, null);
+		WriterImpl writer = new WriterImpl(port, os, handle);
+		ArrayWriter arrayWriter = new ArrayWriter(os, handle);
+		try {
+			System.out.println("port: " + portName + ", writes per run: " + writes);
+			System.out.println("size\tarray MB/s\tstaged MB/s\tdirect MB/s");
+			for (int size : SIZES) {
+				byte[] data = new byte[size];
+				ByteBuffer directData = ByteBuffer.allocateDirect(size);
+
+				// warm up
+				runArray(arrayWriter, data, writes / 10);
+				runStaged(writer, data, writes / 10);
+				runDirect(writer, directData, writes / 10);
+
+				double array = runArray(arrayWriter, data, writes);
+				double staged = runStaged(writer, data, writes);
+				double direct = runDirect(writer, directData, writes);
+				System.out.println(String.format("%d\t%.2f\t\t%.2f\t\t%.2f", size, array, staged, direct));
+			}
+		}
+		finally {
+			writer.close();
+			arrayWriter.close();
+			os.CloseHandle(handle);
+			writer.dispose();
+			arrayWriter.dispose();
+		}
+	}
+
+	/** Measures the writes with a pinned Java array and returns the throughput in MB/s. */
+	private static double runArray(ArrayWriter writer, byte[] data, int writes) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < writes; i++)
+			writer.write(data);
+		return throughput(data.length, writes, System.nanoTime() - start);
+	}
+
+	/** Measures the writes via the staging buffer and returns the throughput in MB/s. */
+	private static double runStaged(WriterImpl writer, byte[] data, int writes) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < writes; i++)
+			writer.write(data);
+		return throughput(data.length, writes, System.nanoTime() - start);
+	}
+
+	/** Measures the writes of a direct buffer and returns the throughput in MB/s. */
+	private static double runDirect(WriterImpl writer, ByteBuffer data, int writes) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < writes; i++) {
+			data.clear();
+			writer.write(data);
+		}
+		return throughput(data.capacity(), writes, System.nanoTime() - start);
+	}
+
+	/** Returns the throughput in MB/s. */
+	private static double throughput(int size, int writes, long durationInNanos) {
+		return (double) size * writes / (1024 * 1024) / (durationInNanos / 1e9);
+	}
+
+	/** Writes a Java array directly, the write waits until the operation is completed. */
+	private static class ArrayWriter {
+
+		private final WinApi os;
+		private final int handle;
+		private final OVERLAPPED overlapped;
+		private final DWORD bytesWritten;
+
+		public ArrayWriter(	WinApi os,
+							int handle) {
+			this.os = os;
+			this.handle = handle;
+			overlapped = new OVERLAPPED(os);
+			overlapped.hEvent = os.CreateEventA(0, true, false, null);
+			bytesWritten = new DWORD(os);
+		}
+
+		public void write(byte[] data) throws IOException {
+			os.ResetEvent(overlapped.hEvent);
+			if (os.WriteFile(handle, data, data.length, bytesWritten, overlapped))
+				return;
+			if (os.GetLastError() != ERROR_IO_PENDING)
+				throw new IOException("WriteFile failed!");
+			if (os.WaitForSingleObject(overlapped.hEvent, 2000) != WAIT_OBJECT_0)
+				throw new IOException("Write operation timed out!");
+			if (!os.GetOverlappedResult(handle, overlapped, bytesWritten, true))
+				throw new IOException("GetOverlappedResult failed!");
+		}
+
+		public void close() {
+			os.CloseHandle(overlapped.hEvent);
+		}
+
+		public void dispose() {
+			overlapped.dispose();
+			bytesWritten.dispose();
+		}
+	}
+}
@@ -1,72 +1,135 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi.integration;
-
-import static org.hamcrest.Matchers.is;
-import static org.junit.Assert.assertThat;
-
-import org.junit.Test;
-import org.xidobi.OS;
-import org.xidobi.WinApi;
-
-/**
- * Integration test for class {@link OS}.
- * 
- * @author Tobias Breler
- */
-public class TestOS {
-
-	private WinApi os = OS.OS;
-
-	/**
-	 * Verifies that no exception is thrown, when <code>malloc</code>, <code>memset</code> and
-	 * <code>free</code> are called.
-	 */
-	@Test
-	public void mallocMemsetAndFree() {
-		int pointer = os.malloc(1024);
-		os.memset(pointer, 0, 1024);
-		os.free(pointer);
-	}
-
-	/**
-	 * Verifies that {@link OS#sizeOf_DWORD()} returns 4.
-	 */
-	@Test
-	public void sizeOf_DWORD() {
-		int size = os.sizeOf_DWORD();
-		assertThat(size, is(4));
-	}
-
-	/**
-	 * Verifies that {@link OS#sizeOf_OVERLAPPED()} returns 20.
-	 */
-	@Test
-	public void sizeOf_OVERLAPPED() {
-		int size = os.sizeOf_OVERLAPPED();
-		assertThat(size, is(20));
-	}
-
-	/**
-	 * Verifies that {@link OS#sizeOf_HKEY()} returns 4.
-	 */
-	@Test
-	public void sizeOf_HKEY() {
-		int size = os.sizeOf_HKEY();
-		assertThat(size, is(4));
-	}
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.integration;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.xidobi.WinApi.ERROR_FILE_NOT_FOUND;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.GENERIC_READ;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.OPEN_EXISTING;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.xidobi.OS;
+import org.xidobi.WinApi;
+
+/**
+ * Integration test for class {@link OS}.
+ * 
+ * @author Tobias Breßler
+ */
+public class TestOS {
+
+	private WinApi os = OS.OS;
+
+	/**
+	 * Verifies that no exception is thrown, when <code>malloc</code>, <code>memset</code> and
+	 * <code>free</code> are called.
+	 */
+	@Test
+	public void mallocMemsetAndFree() {
+		int pointer = os.malloc(1024);
+		os.memset(pointer, 0, 1024);
+		os.free(pointer);
+	}
+
+	/**
+	 * Verifies that {@link OS#sizeOf_DWORD()} returns 4.
+	 */
+	@Test
+	public void sizeOf_DWORD() {
+		int size = os.sizeOf_DWORD();
+		assertThat(size, is(4));
+	}
+
+	/**
+	 * Verifies that {@link OS#sizeOf_OVERLAPPED()} returns 20.
+	 */
+	@Test
+	public void sizeOf_OVERLAPPED() {
+		int size = os.sizeOf_OVERLAPPED();
+		assertThat(size, is(20));
+	}
+
+	/**
+	 * Verifies that {@link OS#sizeOf_HKEY()} returns 4.
+	 */
+	@Test
+	public void sizeOf_HKEY() {
+		int size = os.sizeOf_HKEY();
+		assertThat(size, is(4));
+	}
+
+	/**
+	 * Verifies that the last error code of a native call is preserved per thread, when many
+	 * threads call native methods concurrently. Every thread causes its own error code and checks
+	 * that {@link OS#GetLastError()} returns exactly this error code.
+	 */
+	@Test(timeout = 60000)
+	public void getLastError_concurrentThreads() throws Exception {
+		final int threads = 8;
+		final int iterations = 10000;
+		final CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = newFixedThreadPool(threads);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < threads; i++) {
+				final boolean invalidHandle = i % 2 == 0;
+				results.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						start.await();
+						int mismatches = 0;
+						for (int j = 0; j < iterations; j++) {
+							if (invalidHandle) {
+								assertThat(os.CloseHandle(0), is(false));
+								if (os.GetLastError() != ERROR_INVALID_HANDLE)
+									mismatches++;
+							}
+							else {
+								int handle = os.CreateFileA("\\\\.\\XIDOBI_NOT_EXISTING", GENERIC_READ, 0, 0, OPEN_EXISTING, 0, 0);
+								assertThat(handle, is(INVALID_HANDLE_VALUE));
+								if (os.GetLastError() != ERROR_FILE_NOT_FOUND)
+									mismatches++;
+							}
+						}
+						return mismatches;
+					}
+				}));
+			}
+			start.countDown();
+
+			for (Future<Integer> result : results)
+				assertThat(result.get(), is(0));
+		}
+		finally {
+			executor.shutdownNow();
+			executor.awaitTermination(10, SECONDS);
+		}
+	}
+
+}
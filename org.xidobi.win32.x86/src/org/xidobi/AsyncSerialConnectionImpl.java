@@ -0,0 +1,673 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.min;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.spi.CompletionFuture;
+import org.xidobi.spi.SerialInputStream;
+import org.xidobi.spi.SerialOutputStream;
+
+/**
+ * Implementation of the {@link AsyncSerialConnection} for Windows (32bit) x86 Platform.
+ * <p>
+ * The I/O operations are performed by an {@link IoCompletionChannel}, the completions are delivered
+ * by the worker threads of the {@link IoCompletionEngine}. No thread is blocked for a pending
+ * operation, so many ports can be served by a few threads.
+ * <p>
+ * The port is only read, while a read operation is pending or the subscriber of the
+ * {@link #getDataPublisher() data publisher} has an unfulfilled demand. Otherwise reading is
+ * suspended and the received data remains in the input buffer of the driver. At most the data of
+ * one read operation, that completed after the demand stopped, is kept in the JVM.
+ * <p>
+ * <b>IMPORTANT:</b> The blocking methods {@link #read()}, {@link #read(ByteBuffer)} and
+ * {@link #write(byte[])} must not be called by a {@link CompletionHandler}, because they would
+ * block a worker thread of the engine.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see IoCompletionEngine
+ */
+public class AsyncSerialConnectionImpl implements AsyncSerialConnection {
+
+	/** the serial port, never <code>null</code> */
+	@Nonnull
+	private final SerialPort port;
+	/** the native Win32-API, never <code>null</code> */
+	@Nonnull
+	private final WinApi os;
+	/** the native handle of the serial port */
+	private final int handle;
+
+	/** performs the I/O operations, never <code>null</code> after construction */
+	private final IoCompletionChannel channel;
+
+	/** guards the read state */
+	private final Object readLock = new Object();
+	/** the received data, that was not requested by a read operation yet */
+	private final LinkedList<byte[]> receivedData = new LinkedList<byte[]>();
+	/** the read operations, that wait for data */
+	private final LinkedList<PendingOperation<byte[], ?>> pendingReads = new LinkedList<PendingOperation<byte[], ?>>();
+	/** the subscription of the data publisher, <code>null</code> if there is no subscriber */
+	private DataSubscription subscription;
+	/** <code>true</code>, if a thread passes the received data to the subscriber */
+	private boolean draining;
+
+	/** publishes the received data */
+	private final Flow.Publisher<ByteBuffer> dataPublisher = new DataPublisher();
+
+	/** the input stream of this connection, <code>null</code> until it is requested */
+	private InputStream inputStream;
+	/** the output stream of this connection, <code>null</code> until it is requested */
+	private OutputStream outputStream;
+
+	/** guards the write state */
+	private final Object writeLock = new Object();
+	/** the started write operations in the order they are completed */
+	private final LinkedList<PendingOperation<Integer, ?>> pendingWrites = new LinkedList<PendingOperation<Integer, ?>>();
+
+	/** <code>true</code>, if this connection was closed or failed */
+	private volatile boolean isClosed;
+	/** the cause of a failure of the channel, <code>null</code> if it didn't fail */
+	private volatile IOException failure;
+	/** <code>true</code>, if the handle of the port was closed */
+	private volatile boolean handleClosed;
+
+	/**
+	 * Creates a new asynchronous connection for the given opened port and registers it at the
+	 * given engine.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port, that was opened with
+	 *            {@link WinApi#FILE_FLAG_OVERLAPPED}
+	 * @param engine
+	 *            the engine, that performs the I/O operations, must not be <code>null</code>
+	 * @throws IOException
+	 *             if the port couldn't be registered at the engine, the handle is closed in this
+	 *             case
+	 */
+	public AsyncSerialConnectionImpl(	@Nonnull SerialPort port,
+										@Nonnull WinApi os,
+										int handle,
+										@Nonnull IoCompletionEngine engine) throws IOException {
+		this.port = checkArgumentNotNull(port, "port");
+		this.os = checkArgumentNotNull(os, "os");
+		checkArgumentNotNull(engine, "engine");
+		this.handle = handle;
+
+		try {
+			channel = engine.register(port, handle, new ChannelHandler());
+		}
+		catch (IOException e) {
+			// the handle was closed already, if the channel was registered but failed to start
+			if (!handleClosed)
+				os.CloseHandle(handle);
+			throw e;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public Future<byte[]> readAsync() {
+		CompletionFuture<byte[]> future = new CompletionFuture<byte[]>();
+		readAsync(null, future);
+		return future;
+	}
+
+	/** {@inheritDoc} */
+	public <A> void readAsync(@Nullable A attachment, @Nonnull CompletionHandler<byte[], ? super A> handler) {
+		checkArgumentNotNull(handler, "handler");
+
+		byte[] data = null;
+		boolean rejected = false;
+		synchronized (readLock) {
+			// NOTE: The state is checked while holding the lock, because the pending operations
+			// are failed while holding the lock, when the connection is closed.
+			if (isClosed)
+				rejected = true;
+			else {
+				data = receivedData.poll();
+				if (data == null)
+					pendingReads.add(new PendingOperation<byte[], A>(attachment, handler));
+			}
+		}
+		if (rejected) {
+			handler.failed(closedException(), attachment);
+			return;
+		}
+		if (data != null)
+			handler.completed(data, attachment);
+		drain(channel);
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public Future<Integer> writeAsync(@Nonnull byte[] data) {
+		CompletionFuture<Integer> future = new CompletionFuture<Integer>();
+		writeAsync(data, null, future);
+		return future;
+	}
+
+	/** {@inheritDoc} */
+	public <A> void writeAsync(@Nonnull byte[] data, @Nullable A attachment, @Nonnull CompletionHandler<Integer, ? super A> handler) {
+		checkArgumentNotNull(data, "data");
+		checkArgumentNotNull(handler, "handler");
+
+		if (data.length == 0) {
+			handler.completed(0, attachment);
+			return;
+		}
+		startWrite(data, null, attachment, handler);
+	}
+
+	/**
+	 * Starts the write of the given array or the gathered write of the given buffers, exactly one
+	 * of them must not be <code>null</code> and contain at least one byte.
+	 */
+	private <A> void startWrite(@Nullable byte[] data,
+								@Nullable ByteBuffer[] buffers,
+								@Nullable A attachment,
+								@Nonnull CompletionHandler<Integer, ? super A> handler) {
+		IOException writeFailure = null;
+		synchronized (writeLock) {
+			if (!isClosed) {
+				PendingOperation<Integer, A> write = new PendingOperation<Integer, A>(attachment, handler);
+				pendingWrites.add(write);
+				try {
+					if (data != null)
+						channel.write(data);
+					else
+						channel.write(buffers);
+					return;
+				}
+				catch (IOException e) {
+					pendingWrites.remove(write);
+					writeFailure = e;
+				}
+			}
+		}
+		if (writeFailure == null) {
+			handler.failed(closedException(), attachment);
+			return;
+		}
+		// NOTE: If the write couldn't be started, the connection must be closed in order to
+		// dispose all resources.
+		close();
+		handler.failed(writeFailure, attachment);
+	}
+
+	/** {@inheritDoc} */
+	public void write(@Nonnull byte[] data) throws IOException {
+		await(writeAsync(data));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The remaining bytes are gathered like by {@link #write(ByteBuffer[])}.
+	 */
+	public int write(@Nonnull ByteBuffer src) throws IOException {
+		return (int) write(new ByteBuffer[] { checkArgumentNotNull(src, "src") });
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The remaining bytes are gathered directly into the native write buffer of the channel, if no
+	 * other write is pending. Otherwise they are copied into one <code>byte[]</code>, because the
+	 * write operations of this connection are queued.
+	 */
+	public long write(@Nonnull ByteBuffer[] srcs) throws IOException {
+		checkArgumentNotNull(srcs, "srcs");
+		long length = 0;
+		for (int i = 0; i < srcs.length; i++)
+			length += checkArgumentNotNull(srcs[i], "srcs[" + i + "]").remaining();
+		if (isClosed)
+			throw closedException();
+		if (length == 0)
+			return 0;
+
+		CompletionFuture<Integer> future = new CompletionFuture<Integer>();
+		startWrite(null, srcs, null, future);
+		await(future);
+		return length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The write operations are started immediately, so this method only checks, that the
+	 * connection is open.
+	 */
+	public void flush() throws IOException {
+		if (isClosed)
+			throw closedException();
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public byte[] read() throws IOException {
+		CompletionFuture<byte[]> future = new CompletionFuture<byte[]>();
+		readAsync(null, future);
+		try {
+			return await(future);
+		}
+		catch (InterruptedIOException e) {
+			abandonRead(future);
+			throw e;
+		}
+	}
+
+	/** {@inheritDoc} */
+	public int read(@Nonnull ByteBuffer dst) throws IOException {
+		checkArgumentNotNull(dst, "dst");
+		checkArgument(!dst.isReadOnly(), "dst", "The buffer must not be read-only!");
+		if (isClosed)
+			throw closedException();
+		if (!dst.hasRemaining())
+			return 0;
+
+		byte[] data = read();
+		int numberOfBytes = min(data.length, dst.remaining());
+		dst.put(data, 0, numberOfBytes);
+		if (numberOfBytes < data.length) {
+			byte[] remainder = new byte[data.length - numberOfBytes];
+			System.arraycopy(data, numberOfBytes, remainder, 0, remainder.length);
+			unread(remainder);
+		}
+		return numberOfBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns the number of received bytes, that were not requested by a read operation yet.
+	 */
+	public int available() throws IOException {
+		if (isClosed)
+			throw closedException();
+		int numberOfBytes = 0;
+		synchronized (readLock) {
+			for (byte[] data : receivedData)
+				numberOfBytes += data.length;
+		}
+		return numberOfBytes;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized InputStream getInputStream() {
+		if (inputStream == null)
+			inputStream = new SerialInputStream(this);
+		return inputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized OutputStream getOutputStream() {
+		if (outputStream == null)
+			outputStream = new SerialOutputStream(this);
+		return outputStream;
+	}
+
+	/**
+	 * Removes the read operation of an interrupted blocking read. If the operation was completed
+	 * already, the data is returned to the received data, so that it isn't lost.
+	 */
+	private void abandonRead(CompletionFuture<byte[]> future) {
+		synchronized (readLock) {
+			for (Iterator<PendingOperation<byte[], ?>> it = pendingReads.iterator(); it.hasNext();) {
+				if (it.next().handler == future) {
+					it.remove();
+					return;
+				}
+			}
+		}
+		try {
+			if (future.isDone())
+				unread(future.get());
+		}
+		catch (InterruptedException e) {
+			// the future is done, so get() doesn't wait
+		}
+		catch (ExecutionException e) {
+			// the read failed, no data was lost
+		}
+	}
+
+	/**
+	 * Returns the given data, that was not consumed by a read, to the head of the received data.
+	 */
+	private void unread(byte[] data) {
+		PendingOperation<byte[], ?> read;
+		synchronized (readLock) {
+			read = pendingReads.poll();
+			if (read == null)
+				receivedData.addFirst(data);
+		}
+		if (read != null)
+			read.completed(data);
+		drain(channel);
+	}
+
+	/**
+	 * Passes the received data to the subscriber as long as it has demand and suspends or resumes
+	 * reading according to the remaining demand. Only one thread drains at a time, so the
+	 * subscriber is never called concurrently.
+	 */
+	private void drain(IoCompletionChannel channel) {
+		synchronized (readLock) {
+			if (draining)
+				return;
+			draining = true;
+		}
+		IOException resumeFailure;
+		try {
+			while (true) {
+				DataSubscription s;
+				byte[] data = null;
+				synchronized (readLock) {
+					s = subscription;
+					if (s != null && s.terminated)
+						subscription = null;
+					else if (s != null && s.demand > 0 && !receivedData.isEmpty()) {
+						data = receivedData.poll();
+						s.demand--;
+					}
+					else {
+						draining = false;
+						resumeFailure = updateReadDemand(channel);
+						break;
+					}
+				}
+				if (data != null)
+					s.subscriber.onNext(ByteBuffer.wrap(data));
+				else if (s.terminalCause != null)
+					s.subscriber.onError(s.terminalCause);
+				else
+					s.subscriber.onComplete();
+			}
+		}
+		catch (RuntimeException e) {
+			synchronized (readLock) {
+				draining = false;
+			}
+			throw e;
+		}
+		if (resumeFailure != null) {
+			// NOTE: If reading couldn't be resumed, the connection must be closed in order to
+			// dispose all resources.
+			failure = resumeFailure;
+			isClosed = true;
+			channel.close();
+		}
+	}
+
+	/**
+	 * Suspends reading, if there is no demand for data, otherwise reading is resumed. This method
+	 * must be called while holding the read lock.
+	 * 
+	 * @return the failure, if reading couldn't be resumed, otherwise <code>null</code>
+	 */
+	private IOException updateReadDemand(IoCompletionChannel channel) {
+		if (isClosed)
+			return null;
+		boolean demand = !pendingReads.isEmpty() || subscription != null && subscription.demand > 0;
+		if (!demand || !receivedData.isEmpty()) {
+			channel.suspendReading();
+			return null;
+		}
+		try {
+			channel.resumeReading();
+			return null;
+		}
+		catch (IOException e) {
+			return e;
+		}
+	}
+
+	/**
+	 * Waits for the result of the given future and throws the failure of the operation as
+	 * {@link IOException}.
+	 */
+	private <V> V await(Future<V> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The thread for the I/O operation is interrupted!");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			IOException ioException = new IOException(cause.getMessage());
+			ioException.initCause(cause);
+			throw ioException;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This method doesn't wait for the termination of the pending operations. They fail with an
+	 * {@link IOException} and the handle of the port is closed, when the I/O completion port has
+	 * dispatched their completions.
+	 */
+	public void close() {
+		isClosed = true;
+		channel.close();
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public Flow.Publisher<ByteBuffer> getDataPublisher() {
+		return dataPublisher;
+	}
+
+	/** {@inheritDoc} */
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public SerialPort getPort() {
+		return port;
+	}
+
+	/** Returns the exception for operations on the closed connection. */
+	private IOException closedException() {
+		IOException cause = failure;
+		if (cause != null)
+			return cause;
+		return new IOException("Port " + port.getPortName() + " was closed!");
+	}
+
+	/** Completes the operations of this connection, called by the worker threads of the engine. */
+	private class ChannelHandler implements IoCompletionHandler {
+
+		/** {@inheritDoc} */
+		public void readCompleted(@Nonnull IoCompletionChannel channel, @Nonnull byte[] data) {
+			PendingOperation<byte[], ?> read;
+			synchronized (readLock) {
+				read = pendingReads.poll();
+				if (read == null)
+					receivedData.add(data);
+			}
+			if (read != null)
+				read.completed(data);
+			drain(channel);
+		}
+
+		/** {@inheritDoc} */
+		public void writeCompleted(@Nonnull IoCompletionChannel channel, int numberOfBytes) {
+			PendingOperation<Integer, ?> write;
+			synchronized (writeLock) {
+				write = pendingWrites.poll();
+			}
+			if (write != null)
+				write.completed(numberOfBytes);
+		}
+
+		/** {@inheritDoc} */
+		public void failed(@Nonnull IoCompletionChannel channel, @Nonnull IOException e) {
+			failure = e;
+			isClosed = true;
+		}
+
+		/** {@inheritDoc} */
+		public void closed(@Nonnull IoCompletionChannel channel) {
+			List<PendingOperation<?, ?>> operations = new ArrayList<PendingOperation<?, ?>>();
+			synchronized (readLock) {
+				isClosed = true;
+				operations.addAll(pendingReads);
+				pendingReads.clear();
+				receivedData.clear();
+				if (subscription != null) {
+					subscription.terminated = true;
+					subscription.terminalCause = failure;
+				}
+			}
+			synchronized (writeLock) {
+				isClosed = true;
+				operations.addAll(pendingWrites);
+				pendingWrites.clear();
+			}
+
+			// The result is ignored, because this method is called by a worker thread of the
+			// engine and the pending operations are terminated anyway.
+			os.CloseHandle(handle);
+			handleClosed = true;
+
+			IOException cause = closedException();
+			for (PendingOperation<?, ?> operation : operations)
+				operation.failed(cause);
+			drain(channel);
+		}
+	}
+
+	/** Publishes the received data to one subscriber at a time. */
+	private class DataPublisher implements Flow.Publisher<ByteBuffer> {
+
+		/** {@inheritDoc} */
+		public void subscribe(@Nonnull Flow.Subscriber<? super ByteBuffer> subscriber) {
+			checkArgumentNotNull(subscriber, "subscriber");
+
+			DataSubscription s = new DataSubscription(subscriber);
+			Throwable rejection = null;
+			synchronized (readLock) {
+				if (isClosed)
+					rejection = closedException();
+				else if (subscription != null)
+					rejection = new IllegalStateException("The data of port " + port.getPortName() + " is already subscribed!");
+				else
+					subscription = s;
+			}
+			subscriber.onSubscribe(s);
+			if (rejection != null)
+				subscriber.onError(rejection);
+		}
+	}
+
+	/** The subscription of the received data, the state is guarded by the read lock. */
+	private class DataSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+		/** the number of requested items, that were not passed yet */
+		private long demand;
+		/** <code>true</code>, if the subscriber must be notified about the termination */
+		private boolean terminated;
+		/** the error passed to the subscriber, <code>null</code> if the subscription completes */
+		private Throwable terminalCause;
+
+		DataSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		/** {@inheritDoc} */
+		public void request(long n) {
+			synchronized (readLock) {
+				if (subscription != this)
+					return;
+				if (n <= 0) {
+					terminated = true;
+					terminalCause = new IllegalArgumentException("The number of requested items must be greater than 0! Got: " + n);
+				}
+				else {
+					demand += n;
+					// the demand is unbounded, if it overflows
+					if (demand < 0)
+						demand = Long.MAX_VALUE;
+				}
+			}
+			drain(channel);
+		}
+
+		/** {@inheritDoc} */
+		public void cancel() {
+			synchronized (readLock) {
+				if (subscription == this)
+					subscription = null;
+			}
+			drain(channel);
+		}
+	}
+
+	/** A pending read or write operation with its handler and attachment. */
+	private static class PendingOperation<V, A> {
+
+		private final A attachment;
+		private final CompletionHandler<V, ? super A> handler;
+
+		PendingOperation(A attachment, CompletionHandler<V, ? super A> handler) {
+			this.attachment = attachment;
+			this.handler = handler;
+		}
+
+		void completed(V result) {
+			handler.completed(result, attachment);
+		}
+
+		void failed(Throwable exc) {
+			handler.failed(exc, attachment);
+		}
+	}
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.WinApi.ERROR_SUCCESS;
+import static org.xidobi.WinApi.HKEY_LOCAL_MACHINE;
+import static org.xidobi.WinApi.INFINITE;
+import static org.xidobi.WinApi.KEY_READ;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.REG_NOTIFY_CHANGE_LAST_SET;
+import static org.xidobi.WinApi.REG_NOTIFY_CHANGE_NAME;
+import static org.xidobi.WinApi.WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.xidobi.structs.HKEY;
+
+/**
+ * Implementation of the interface {@link WatchableSerialPortFinder}, that caches the serial ports of the
+ * Windows Registry.
+ * <p>
+ * The serial ports are read from the registry only after the key
+ * {@value #HARDWARE_DEVICEMAP_SERIALCOMM} was changed, this is checked with
+ * <code>RegNotifyChangeKeyValue</code>. A lookup by name costs a single non-blocking
+ * <code>WaitForSingleObject</code> and a map access, if nothing was changed. A port, whose name
+ * and description are unchanged after a refresh, is returned as the same instance as before.
+ * <p>
+ * The notification is signaled too, if the thread that registered it exits. This causes only an
+ * unnecessary refresh. If the notification cannot be registered, e.g. because the native library
+ * is older than {@link WinApi#NATIVE_VERSION_2}, the registry is read for every call, like
+ * {@link SerialPortFinderImpl} does.
+ * <p>
+ * While {@link PortListener}s are registered, a single background thread blocks on the
+ * notification, refreshes the cache and notifies the listeners about the added and removed ports.
+ * A port, whose description was changed, is notified as removed and added again. If the
+ * notification cannot be registered, e.g. with a native library older than
+ * {@link WinApi#NATIVE_VERSION_2}, the thread polls the registry every {@value #POLL_INTERVAL}
+ * milliseconds.
+ * <p>
+ * <b>IMPORTANT:</b> The finder must be disposed, when it is not used anymore!
+ * 
+ * @author Tobias Breßler
+ * 
+ * @see SerialPortFinderImpl
+ */
+public class CachingSerialPortFinder implements WatchableSerialPortFinder {
+
+	/** Subkey to the serial ports in the Windows Registry */
+	private static final String HARDWARE_DEVICEMAP_SERIALCOMM = "HARDWARE\\DEVICEMAP\\SERIALCOMM\\";
+
+	/** the changes of the registry key, that invalidate the cache */
+	private static final int NOTIFY_FILTER = REG_NOTIFY_CHANGE_NAME | REG_NOTIFY_CHANGE_LAST_SET;
+
+	/**
+	 * The interval in milliseconds, in which the background thread reads the registry, if the
+	 * notification cannot be registered.
+	 */
+	static final int POLL_INTERVAL = 1000;
+
+	/** the native Win32-API, never <code>null</code> */
+	@Nonnull
+	private final WinApi os;
+
+	/** reads the serial ports from the registry, never <code>null</code> */
+	@Nonnull
+	private final SerialPortFinder scanner;
+
+	/** the cached serial ports by name, never <code>null</code> */
+	@Nonnull
+	private Map<String, SerialPort> ports = Collections.emptyMap();
+
+	/** <code>true</code>, if the cache is valid until the notification is signaled */
+	private boolean isValid;
+
+	/** the watched registry key, <code>null</code> if it is not open */
+	private HKEY keyHandle;
+	/** the event, that is signaled when the registry key was changed */
+	private int eventHandle;
+
+	/** the number of times the serial ports were read from the registry */
+	private long refreshCount;
+
+	/** <code>true</code>, if this finder was disposed */
+	private boolean isDisposed;
+
+	/** the registered listeners, never <code>null</code> */
+	@Nonnull
+	private final List<PortListener> listeners = new CopyOnWriteArrayList<PortListener>();
+
+	/** the background thread, that notifies the listeners, <code>null</code> if not started */
+	private Watcher watcher;
+
+	/** held by the background thread, while it notifies the listeners */
+	private final Object notifying = new Object();
+
+	/**
+	 * Creates a new instance, that caches the serial ports of the Windows Registry.
+	 */
+	public CachingSerialPortFinder() {
+		this(OS.OS);
+	}
+
+	/**
+	 * Creates a new instance, that caches the serial ports of the Windows Registry.
+	 * 
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 */
+	public CachingSerialPortFinder(@Nonnull WinApi os) {
+		this.os = checkArgumentNotNull(os, "os");
+		scanner = new SerialPortFinderImpl(os);
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized Set<SerialPort> getAll() {
+		refreshIfChanged();
+		return new HashSet<SerialPort>(ports.values());
+	}
+
+	/** {@inheritDoc} */
+	@CheckForNull
+	public synchronized SerialPort get(@Nonnull String portName) {
+		checkArgumentNotNull(portName, "portName");
+		refreshIfChanged();
+		return ports.get(portName);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The background thread is started with the first listener.
+	 * 
+	 * @exception IllegalStateException
+	 *                if the finder was disposed
+	 */
+	public synchronized void addListener(@Nonnull PortListener listener) {
+		checkArgumentNotNull(listener, "listener");
+		if (isDisposed)
+			throw new IllegalStateException("The finder was disposed!");
+
+		listeners.add(listener);
+		if (watcher != null)
+			return;
+		// the changes are notified relative to the current ports
+		refreshIfChanged();
+		watcher = new Watcher(ports);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The background thread is stopped after the last listener was removed. Unless this method is
+	 * called by a notification, it waits until a running notification is finished.
+	 */
+	public void removeListener(@Nonnull PortListener listener) {
+		checkArgumentNotNull(listener, "listener");
+		Watcher current;
+		boolean isLast;
+		synchronized (this) {
+			if (!listeners.remove(listener) || watcher == null)
+				return;
+			current = watcher;
+			isLast = listeners.isEmpty();
+			if (isLast)
+				watcher = null;
+		}
+		if (isLast)
+			current.stop(true);
+		else if (!current.isCurrentThread())
+			synchronized (notifying) {
+				// the running notification has finished
+			}
+	}
+
+	/**
+	 * Returns the number of times the serial ports were read from the registry.
+	 * 
+	 * @return the number of refreshes
+	 */
+	public synchronized long getRefreshCount() {
+		return refreshCount;
+	}
+
+	/**
+	 * Stops the background thread and closes the watched registry key and the event. The finder
+	 * reads the registry for every call afterwards.
+	 */
+	public void dispose() {
+		Watcher stopped;
+		synchronized (this) {
+			if (isDisposed)
+				return;
+			isDisposed = true;
+			isValid = false;
+			listeners.clear();
+			stopped = watcher;
+			watcher = null;
+		}
+		// the background thread must not wait for the event anymore, when it is closed
+		if (stopped != null)
+			stopped.stop(true);
+		synchronized (this) {
+			closeKey();
+		}
+	}
+
+	/**
+	 * Reads the serial ports from the registry, if the registry key was changed. The notification
+	 * is consumed by the background thread, while it is running.
+	 */
+	private void refreshIfChanged() {
+		if (isValid && (watcher != null || !isChanged()))
+			return;
+		// register the next notification before reading, so no change is missed
+		isValid = watch();
+		refresh();
+	}
+
+	/** Returns <code>true</code>, if the notification was signaled or the wait failed. */
+	private boolean isChanged() {
+		return os.WaitForSingleObject(eventHandle, 0) != WAIT_TIMEOUT;
+	}
+
+	/** Registers the notification, returns <code>false</code> if it couldn't be registered. */
+	private boolean watch() {
+		if (isDisposed || os.getNativeVersion() < NATIVE_VERSION_2)
+			return false;
+		if (keyHandle == null && !openKey())
+			return false;
+		return os.RegNotifyChangeKeyValue(keyHandle, false, NOTIFY_FILTER, eventHandle, true) == ERROR_SUCCESS;
+	}
+
+	/** Opens the registry key and creates the event, returns <code>false</code> on failure. */
+	private boolean openKey() {
+		eventHandle = os.CreateEventA(0, false, false, null);
+		if (eventHandle == 0)
+			return false;
+
+		keyHandle = new HKEY(os);
+		if (os.RegOpenKeyExA(HKEY_LOCAL_MACHINE, HARDWARE_DEVICEMAP_SERIALCOMM, 0, KEY_READ, keyHandle) == ERROR_SUCCESS)
+			return true;
+
+		keyHandle.dispose();
+		keyHandle = null;
+		os.CloseHandle(eventHandle);
+		eventHandle = 0;
+		return false;
+	}
+
+	/** Closes the registry key and the event, if they are open. */
+	private void closeKey() {
+		if (keyHandle == null)
+			return;
+		try {
+			os.RegCloseKey(keyHandle);
+		}
+		finally {
+			keyHandle.dispose();
+			keyHandle = null;
+			os.CloseHandle(eventHandle);
+			eventHandle = 0;
+		}
+	}
+
+	/** Reads the serial ports from the registry and keeps the instances of unchanged ports. */
+	private void refresh() {
+		Map<String, SerialPort> refreshed = new HashMap<String, SerialPort>();
+		for (SerialPort port : scanner.getAll()) {
+			SerialPort known = ports.get(port.getPortName());
+			if (known != null && equal(known.getDescription(), port.getDescription()))
+				port = known;
+			refreshed.put(port.getPortName(), port);
+		}
+		ports = refreshed;
+		refreshCount++;
+	}
+
+	/**
+	 * Notifies the listeners about the ports, that were removed or added. A listener, that is
+	 * removed by a notification, is not notified anymore.
+	 */
+	private void fire(@Nonnull List<SerialPort> removed, @Nonnull List<SerialPort> added) {
+		synchronized (notifying) {
+			for (PortListener listener : listeners) {
+				for (SerialPort port : removed) {
+					if (!listeners.contains(listener))
+						break;
+					try {
+						listener.portRemoved(port);
+					}
+					catch (RuntimeException ignore) {
+						// a faulty listener must not affect the other listeners
+					}
+				}
+				for (SerialPort port : added) {
+					if (!listeners.contains(listener))
+						break;
+					try {
+						listener.portAdded(port);
+					}
+					catch (RuntimeException ignore) {
+						// a faulty listener must not affect the other listeners
+					}
+				}
+			}
+		}
+	}
+
+	/** Returns the ports of the first map, that are not contained by the second map. */
+	@Nonnull
+	private static List<SerialPort> difference(@Nonnull Map<String, SerialPort> ports, @Nonnull Map<String, SerialPort> others) {
+		List<SerialPort> difference = new ArrayList<SerialPort>();
+		for (SerialPort port : ports.values())
+			if (others.get(port.getPortName()) != port)
+				difference.add(port);
+		return difference;
+	}
+
+	/** Returns <code>true</code>, if both strings are <code>null</code> or equal. */
+	private static boolean equal(@CheckForNull String a, @CheckForNull String b) {
+		if (a == null)
+			return b == null;
+		return a.equals(b);
+	}
+
+	/**
+	 * Waits for the notification of changes to the registry key and notifies the listeners. The
+	 * notification is registered by this thread, so it is not signaled by exiting threads.
+	 */
+	private final class Watcher implements Runnable {
+
+		/** the thread of this watcher, never <code>null</code> */
+		@Nonnull
+		private final Thread thread;
+
+		/** the event, that is signaled to stop this watcher */
+		private final int stopEventHandle;
+
+		/** <code>true</code>, if this watcher was stopped */
+		private volatile boolean isStopped;
+
+		/** the ports, that were notified to the listeners, never <code>null</code> */
+		@Nonnull
+		private Map<String, SerialPort> notified;
+
+		/** Starts a new watcher, that notifies the changes relative to the given ports. */
+		Watcher(@Nonnull Map<String, SerialPort> ports) {
+			notified = ports;
+			stopEventHandle = os.CreateEventA(0, true, false, null);
+			if (stopEventHandle == 0)
+				throw newNativeCodeException(os, "CreateEventA failed unexpected!", os.GetLastError());
+
+			thread = new Thread(this, "xidobi port watcher");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					boolean isWatching;
+					Map<String, SerialPort> current;
+					synchronized (CachingSerialPortFinder.this) {
+						if (isStopped)
+							return;
+						isWatching = watch();
+						refresh();
+						isValid = isWatching;
+						current = ports;
+					}
+
+					fire(difference(notified, current), difference(current, notified));
+					notified = current;
+
+					if (!awaitChange(isWatching))
+						return;
+				}
+			}
+			finally {
+				os.CloseHandle(stopEventHandle);
+			}
+		}
+
+		/**
+		 * Blocks until the registry key was changed, returns <code>false</code> if this watcher was
+		 * stopped. If the notification isn't registered, it returns after the poll interval.
+		 */
+		private boolean awaitChange(boolean isWatching) {
+			int result;
+			if (isWatching)
+				result = os.WaitForMultipleObjects(2, new int[] { stopEventHandle, eventHandle }, false, INFINITE);
+			else
+				// only the stop event is awaited, this works with every native library
+				result = os.WaitForSingleObject(stopEventHandle, POLL_INTERVAL);
+			if (result == WAIT_OBJECT_0 || isStopped)
+				return false;
+			if (result == WAIT_FAILED) {
+				// don't spin, if the wait fails repeatedly
+				try {
+					Thread.sleep(POLL_INTERVAL);
+				}
+				catch (InterruptedException e) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/** Returns <code>true</code>, if this method is called by the thread of this watcher. */
+		boolean isCurrentThread() {
+			return Thread.currentThread() == thread;
+		}
+
+		/**
+		 * Stops this watcher. If requested, blocks until the thread has terminated, unless it is
+		 * called by the thread itself.
+		 */
+		void stop(boolean await) {
+			isStopped = true;
+			os.SetEvent(stopEventHandle);
+			if (!await || Thread.currentThread() == thread)
+				return;
+
+			boolean interrupted = false;
+			while (true) {
+				try {
+					thread.join();
+					break;
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				// restore the interrupted status
+				Thread.currentThread().interrupt();
+		}
+	}
+}
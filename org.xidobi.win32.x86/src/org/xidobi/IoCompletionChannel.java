@@ -0,0 +1,583 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
+import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
+import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.ERROR_NOT_READY;
+import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
+import static org.xidobi.WinApi.ERROR_SUCCESS;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.PURGE_RXABORT;
+import static org.xidobi.WinApi.PURGE_TXABORT;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * A serial port, that is registered at an {@link IoCompletionEngine}. The I/O operations of the
+ * port are started by this channel and completed by the worker threads of the engine, so no thread
+ * is blocked while the port waits for data.
+ * <p>
+ * The channel waits continuously for data and passes the received data to its
+ * {@link IoCompletionHandler}. Reading can be suspended by {@link #suspendReading()}, then the
+ * received data remains in the input buffer of the driver, until {@link #resumeReading()} is
+ * called. If an input flow control is configured for the port, the driver throttles the sender,
+ * when its input buffer fills up.
+ * <p>
+ * Data is written by {@link #write(byte[])}, that returns immediately.
+ * Only one write operation is pending at a time, further writes are queued and performed in the
+ * order they were requested.
+ * <p>
+ * <b>IMPORTANT:</b> The handle of the serial port is not closed by this channel. It must be
+ * closed by the owner, after {@link IoCompletionHandler#closed(IoCompletionChannel)} was called.
+ * 
+ * @author Tobias Breßler
+ * 
+ * @see IoCompletionEngine
+ * @see IoCompletionHandler
+ */
+public class IoCompletionChannel {
+
+	/** the engine, that dispatches the completions, never <code>null</code> */
+	@Nonnull
+	private final IoCompletionEngine engine;
+	/** the native Win32-API, never <code>null</code> */
+	@Nonnull
+	private final WinApi os;
+	/** the serial port, never <code>null</code> */
+	@Nonnull
+	private final SerialPort port;
+	/** the native handle of the serial port */
+	private final int handle;
+	/** the completion key, that identifies this channel at the I/O completion port */
+	private final int completionKey;
+	/** receives the results of the I/O operations, never <code>null</code> */
+	@Nonnull
+	private final IoCompletionHandler handler;
+
+	/** Overlapped of the pending <code>WaitCommEvent</code> or <code>ReadFile</code> operation */
+	private final OVERLAPPED readOverlapped;
+	/** Overlapped of the pending <code>WriteFile</code> operation */
+	private final OVERLAPPED writeOverlapped;
+	/** the addresses of the overlapped structs, to identify the operation of a completion packet */
+	private final int readOverlappedAddress;
+	private final int writeOverlappedAddress;
+
+	/** Receives the events of the <code>WaitCommEvent</code> operation */
+	private final DWORD eventMask;
+	/**
+	 * Receive the number of bytes, if an operation completes immediately. The values are not
+	 * used, because a completion packet is queued in this case, too.
+	 */
+	private final DWORD numberOfBytesRead;
+	private final DWORD numberOfBytesWritten;
+
+	/** the reused native buffer for the read operations */
+	private final StagingBuffer stagingBuffer;
+	/** the buffer of the pending <code>ReadFile</code> operation */
+	private NativeByteArray readBuffer;
+	/** the buffer of the pending <code>WriteFile</code> operation, grows on demand */
+	private NativeByteArray writeBuffer;
+	/** the number of bytes of the pending <code>WriteFile</code> operation */
+	private int numberOfBytesToWrite;
+	/** the data of the writes, that are performed after the pending write */
+	private final Queue<byte[]> queuedWrites = new LinkedList<byte[]>();
+
+	/** <code>true</code>, if a <code>WaitCommEvent</code> or <code>ReadFile</code> is pending */
+	private boolean readPending;
+	/** <code>true</code>, if the pending read operation is <code>ReadFile</code> */
+	private boolean readFilePending;
+	/** <code>true</code>, if the handler is called with received data */
+	private boolean delivering;
+	/** <code>true</code>, if no further read operations are started */
+	private boolean readSuspended;
+	/** <code>true</code>, if a <code>WriteFile</code> is pending */
+	private boolean writePending;
+	/** <code>true</code>, if {@link #close()} was called */
+	private boolean closing;
+	/** <code>true</code>, if the resources of this channel are disposed */
+	private boolean disposed;
+
+	/**
+	 * Creates a new channel, it is created by
+	 * {@link IoCompletionEngine#register(SerialPort, int, IoCompletionHandler)}.
+	 */
+	IoCompletionChannel(@Nonnull IoCompletionEngine engine,
+						@Nonnull WinApi os,
+						@Nonnull SerialPort port,
+						int handle,
+						int completionKey,
+						@Nonnull IoCompletionHandler handler) {
+		this.engine = checkArgumentNotNull(engine, "engine");
+		this.os = checkArgumentNotNull(os, "os");
+		this.port = checkArgumentNotNull(port, "port");
+		this.handle = handle;
+		this.completionKey = completionKey;
+		this.handler = checkArgumentNotNull(handler, "handler");
+
+		readOverlapped = new OVERLAPPED(os);
+		writeOverlapped = new OVERLAPPED(os);
+		readOverlappedAddress = readOverlapped.getAddress();
+		writeOverlappedAddress = writeOverlapped.getAddress();
+		eventMask = new DWORD(os);
+		numberOfBytesRead = new DWORD(os);
+		numberOfBytesWritten = new DWORD(os);
+		stagingBuffer = new StagingBuffer(os);
+	}
+
+	/**
+	 * Returns the serial port of this channel.
+	 * 
+	 * @return the serial port, never <code>null</code>
+	 */
+	@Nonnull
+	public SerialPort getPort() {
+		return port;
+	}
+
+	/**
+	 * Returns <code>true</code>, if this channel was closed.
+	 * 
+	 * @return <code>true</code>, if {@link #close()} was called or an I/O operation failed
+	 */
+	public synchronized boolean isClosed() {
+		return closing;
+	}
+
+	/** Returns the completion key, that identifies this channel at the I/O completion port. */
+	int getCompletionKey() {
+		return completionKey;
+	}
+
+	/** Starts waiting for data, called once after the registration at the engine. */
+	synchronized void start() throws IOException {
+		startWaitCommEvent();
+	}
+
+	/**
+	 * Suspends reading. A pending read operation is completed, but no further read operation is
+	 * started, until {@link #resumeReading()} is called.
+	 */
+	public synchronized void suspendReading() {
+		readSuspended = true;
+	}
+
+	/**
+	 * Resumes reading, after it was suspended by {@link #suspendReading()}. The data, that was
+	 * received in the meantime, is read immediately.
+	 * 
+	 * @throws IOException
+	 *             if the read operation couldn't be started
+	 */
+	public synchronized void resumeReading() throws IOException {
+		readSuspended = false;
+		if (closing || readPending || delivering)
+			return;
+		try {
+			readAvailableBytes();
+		}
+		catch (NativeCodeException e) {
+			throw toIOException(e);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code>, if reading is suspended.
+	 * 
+	 * @return <code>true</code>, if {@link #suspendReading()} was called and reading was not
+	 *         resumed
+	 */
+	public synchronized boolean isReadingSuspended() {
+		return readSuspended;
+	}
+
+	/**
+	 * Writes the given data to the serial port. This method returns immediately, the completion is
+	 * passed to {@link IoCompletionHandler#writeCompleted(IoCompletionChannel, int)}.
+	 * 
+	 * @param data
+	 *            the data to write, must not be <code>null</code>
+	 * @throws IOException
+	 *             if the channel is closed or the write operation couldn't be started
+	 */
+	public void write(@Nonnull byte[] data) throws IOException {
+		checkArgumentNotNull(data, "data");
+		if (data.length == 0)
+			return;
+		synchronized (this) {
+			if (closing)
+				throw portClosedException(null);
+			if (writePending || !queuedWrites.isEmpty()) {
+				queuedWrites.add(data.clone());
+				return;
+			}
+			startWrite(data);
+		}
+	}
+
+	/**
+	 * Writes the remaining bytes of the given buffers to the serial port and advances their
+	 * positions. This method returns immediately, the completion is passed to
+	 * {@link IoCompletionHandler#writeCompleted(IoCompletionChannel, int)} once for all buffers.
+	 * <p>
+	 * If no other write is pending, the buffers are gathered directly into the native write
+	 * buffer. Otherwise their content is copied into one <code>byte[]</code>, that is queued.
+	 * 
+	 * @param data
+	 *            the buffers to write, must not be <code>null</code>
+	 * @throws IOException
+	 *             if the channel is closed, the write operation couldn't be started or there are
+	 *             more than {@link Integer#MAX_VALUE} remaining bytes
+	 */
+	public void write(@Nonnull ByteBuffer[] data) throws IOException {
+		checkArgumentNotNull(data, "data");
+		long length = 0;
+		for (int i = 0; i < data.length; i++)
+			length += checkArgumentNotNull(data[i], "data[" + i + "]").remaining();
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Can't write more than " + Integer.MAX_VALUE + " bytes at once! Got: " + length);
+		if (length == 0)
+			return;
+		synchronized (this) {
+			if (closing)
+				throw portClosedException(null);
+			if (writePending || !queuedWrites.isEmpty()) {
+				byte[] array = new byte[(int) length];
+				ByteBuffer dst = ByteBuffer.wrap(array);
+				for (ByteBuffer src : data)
+					dst.put(src);
+				queuedWrites.add(array);
+				return;
+			}
+			ensureWriteBuffer((int) length);
+			try {
+				WriterImpl.gather(os, writeBuffer, (int) length, data);
+			}
+			catch (NativeCodeException e) {
+				throw toIOException(e);
+			}
+			startWriteFile((int) length);
+		}
+	}
+
+	/**
+	 * Closes this channel. The pending I/O operations are aborted,
+	 * {@link IoCompletionHandler#closed(IoCompletionChannel)} is called when all of them are
+	 * terminated. Queued writes are discarded.
+	 */
+	public void close() {
+		synchronized (this) {
+			if (closing)
+				return;
+			closing = true;
+			queuedWrites.clear();
+			// The results are ignored, because the port may be closed already. The aborted
+			// operations complete with an error in this case, too.
+			if (writePending || readPending && readFilePending)
+				os.PurgeComm(handle, PURGE_RXABORT | PURGE_TXABORT);
+			if (readPending && !readFilePending)
+				// releases the pending WaitCommEvent
+				os.SetCommMask(handle, EV_RXCHAR);
+		}
+		disposeIfTerminated();
+	}
+
+	/**
+	 * Handles a dequeued completion packet of this channel. This method is called by the worker
+	 * threads of the {@link IoCompletionEngine}.
+	 * 
+	 * @param overlappedAddress
+	 *            the address of the {@link OVERLAPPED} of the completed operation
+	 * @param numberOfBytes
+	 *            the number of transferred bytes
+	 * @param errorCode
+	 *            the error code of the operation, {@link WinApi#ERROR_SUCCESS} if it succeeded
+	 */
+	void completed(int overlappedAddress, int numberOfBytes, int errorCode) {
+		try {
+			if (overlappedAddress == readOverlappedAddress)
+				readCompleted(numberOfBytes, errorCode);
+			else if (overlappedAddress == writeOverlappedAddress)
+				writeCompleted(numberOfBytes, errorCode);
+		}
+		catch (IOException e) {
+			fail(e);
+		}
+		catch (RuntimeException e) {
+			// a NativeCodeException or an exception of the handler, the next operation of this
+			// channel was not started, so the channel is closed
+			fail(toIOException(e));
+		}
+		finally {
+			disposeIfTerminated();
+		}
+	}
+
+	/** Returns an {@link IOException} with the given exception as cause. */
+	private IOException toIOException(RuntimeException e) {
+		IOException ioException = new IOException(e.getMessage());
+		ioException.initCause(e);
+		return ioException;
+	}
+
+	/** Handles the completion of a <code>WaitCommEvent</code> or <code>ReadFile</code>. */
+	private void readCompleted(int numberOfBytes, int errorCode) throws IOException {
+		byte[] data = null;
+		synchronized (this) {
+			readPending = false;
+			if (closing)
+				return;
+			if (errorCode != ERROR_SUCCESS)
+				handleNativeError(readFilePending ? "ReadFile" : "WaitCommEvent", errorCode);
+
+			if (!readFilePending) {
+				checkEventMask();
+				if (!readSuspended)
+					readAvailableBytes();
+				return;
+			}
+
+			readFilePending = false;
+			if (numberOfBytes > 0) {
+				data = readBuffer.getByteArray(numberOfBytes);
+				delivering = true;
+			}
+		}
+
+		// The next read is started after the data was passed to the handler, so the data of this
+		// channel is never passed concurrently or out of order:
+		if (data != null) {
+			try {
+				handler.readCompleted(this, data);
+			}
+			finally {
+				synchronized (this) {
+					delivering = false;
+				}
+			}
+		}
+
+		synchronized (this) {
+			if (!closing && !readSuspended && !readPending)
+				startWaitCommEvent();
+		}
+	}
+
+	/**
+	 * Starts a <code>ReadFile</code> operation, if data is available, otherwise a
+	 * <code>WaitCommEvent</code> operation.
+	 */
+	private void readAvailableBytes() throws IOException {
+		int availableBytes = getAvailableBytes();
+		if (availableBytes > 0)
+			startReadFile(availableBytes);
+		else
+			startWaitCommEvent();
+	}
+
+	/** Handles the completion of a <code>WriteFile</code>. */
+	private void writeCompleted(int numberOfBytes, int errorCode) throws IOException {
+		synchronized (this) {
+			writePending = false;
+			if (closing)
+				return;
+			if (errorCode != ERROR_SUCCESS)
+				handleNativeError("WriteFile", errorCode);
+			if (numberOfBytes != numberOfBytesToWrite)
+				throw new NativeCodeException("WriteFile wrote an unexpected number of bytes! Expected: " + numberOfBytesToWrite + ", got: " + numberOfBytes);
+		}
+
+		handler.writeCompleted(this, numberOfBytes);
+
+		synchronized (this) {
+			if (closing || writePending)
+				return;
+			byte[] data = queuedWrites.poll();
+			if (data != null)
+				startWrite(data);
+		}
+	}
+
+	/** Starts an asynchronous <code>WaitCommEvent</code> operation. */
+	private void startWaitCommEvent() throws IOException {
+		eventMask.setValue(0);
+		readPending = true;
+		readFilePending = false;
+		// If the operation completes immediately, a completion packet is queued, too.
+		if (os.WaitCommEvent(handle, eventMask, readOverlapped))
+			return;
+		int lastError = os.GetLastError();
+		if (lastError == ERROR_IO_PENDING)
+			return;
+		readPending = false;
+		handleNativeError("WaitCommEvent", lastError);
+	}
+
+	/** Starts an asynchronous <code>ReadFile</code> operation of the available bytes. */
+	private void startReadFile(int availableBytes) throws IOException {
+		int numberOfBytesToRead = stagingBuffer.limit(availableBytes);
+		readBuffer = stagingBuffer.get(numberOfBytesToRead);
+		readPending = true;
+		readFilePending = true;
+		if (os.ReadFile(handle, readBuffer, numberOfBytesToRead, numberOfBytesRead, readOverlapped))
+			return;
+		int lastError = os.GetLastError();
+		if (lastError == ERROR_IO_PENDING)
+			return;
+		readPending = false;
+		readFilePending = false;
+		handleNativeError("ReadFile", lastError);
+	}
+
+	/** Starts an asynchronous <code>WriteFile</code> operation of the given data. */
+	private void startWrite(byte[] data) throws IOException {
+		ensureWriteBuffer(data.length);
+		os.copyByteArray(writeBuffer, 0, data, 0, data.length);
+		startWriteFile(data.length);
+	}
+
+	/** Grows the native write buffer, if it is smaller than the given length. */
+	private void ensureWriteBuffer(int length) {
+		if (writeBuffer == null || writeBuffer.size() < length) {
+			if (writeBuffer != null)
+				writeBuffer.dispose();
+			writeBuffer = null;
+			writeBuffer = new NativeByteArray(os, length);
+		}
+	}
+
+	/** Starts an asynchronous <code>WriteFile</code> operation of the native write buffer. */
+	private void startWriteFile(int length) throws IOException {
+		numberOfBytesToWrite = length;
+		writePending = true;
+		if (os.WriteFile(handle, writeBuffer, length, numberOfBytesWritten, writeOverlapped))
+			return;
+		int lastError = os.GetLastError();
+		if (lastError == ERROR_IO_PENDING)
+			return;
+		writePending = false;
+		handleNativeError("WriteFile", lastError);
+	}
+
+	/** Returns the number of bytes that are available to read. */
+	private int getAvailableBytes() throws IOException {
+		COMSTAT lpStat = new COMSTAT();
+		INT lpErrors = new INT(0);
+		boolean succeed = os.ClearCommError(handle, lpErrors, lpStat);
+		if (!succeed)
+			handleNativeError("ClearCommError", os.GetLastError());
+		return lpStat.cbInQue;
+	}
+
+	/**
+	 * Throws an {@link IOException}, if the <code>WaitCommEvent</code> operation was released by a
+	 * communication error.
+	 */
+	private void checkEventMask() throws IOException {
+		// NOTICE: We have to ignore unexpected events, because some serial port drivers are
+		// signaling events we haven't registered for.
+		if (eventMask.getValue() == 0)
+			throw portClosedException("Read operation failed, because a communication error event was signaled!");
+	}
+
+	/** Passes the failure to the handler and closes this channel. */
+	private void fail(IOException e) {
+		synchronized (this) {
+			if (closing)
+				return;
+		}
+		try {
+			handler.failed(this, e);
+		}
+		finally {
+			close();
+		}
+	}
+
+	/**
+	 * Disposes the resources of this channel and notifies the handler, if the channel is closed
+	 * and no I/O operation is pending anymore.
+	 */
+	private void disposeIfTerminated() {
+		synchronized (this) {
+			if (!closing || disposed || readPending || writePending)
+				return;
+			disposed = true;
+
+			readOverlapped.dispose();
+			writeOverlapped.dispose();
+			eventMask.dispose();
+			numberOfBytesRead.dispose();
+			numberOfBytesWritten.dispose();
+			stagingBuffer.dispose();
+			if (writeBuffer != null)
+				writeBuffer.dispose();
+		}
+		engine.unregister(this);
+		handler.closed(this);
+	}
+
+	/**
+	 * Handles the native error and throws an {@link IOException}, if the error code indicates that
+	 * the port was closed. Otherwise it throws a {@link NativeCodeException} with the error code
+	 * and the given name of the native method.
+	 */
+	private void handleNativeError(@Nonnull String nativeMethodName, int errorCode) throws IOException {
+		switch (errorCode) {
+			case ERROR_INVALID_HANDLE:
+				throw portClosedException("I/O operation failed, because the handle is invalid.");
+			case ERROR_ACCESS_DENIED:
+				throw portClosedException("I/O operation failed, because access denied.");
+			case ERROR_OPERATION_ABORTED:
+				throw portClosedException("I/O operation has been aborted.");
+			case ERROR_GEN_FAILURE:
+				throw portClosedException("I/O operation failed, because a device attached to the system is not functioning.");
+			case ERROR_BAD_COMMAND:
+				throw portClosedException("I/O operation failed, because the device doesn't recognize the command.");
+			case ERROR_NOT_READY:
+				throw portClosedException("I/O operation failed, because the device is not ready.");
+			default:
+				throw newNativeCodeException(os, nativeMethodName + " failed unexpected!", errorCode);
+		}
+	}
+
+	/** Returns an {@link IOException} indicating that the port is closed. */
+	private IOException portClosedException(@Nullable String message) {
+		if (message == null)
+			message = "";
+		else
+			message = " " + message;
+		return new IOException("Port " + port.getPortName() + " was closed!" + message);
+	}
+}
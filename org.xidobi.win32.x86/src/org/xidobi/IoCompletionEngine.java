@@ -0,0 +1,357 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.currentThread;
+import static org.xidobi.WinApi.ERROR_ABANDONED_WAIT_0;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.ERROR_SUCCESS;
+import static org.xidobi.WinApi.INFINITE;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.NULL;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+import static org.xidobi.utils.Throwables.newIOException;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+import static org.xidobi.utils.Throwables.newUnsupportedVersionException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.structs.INT;
+
+/**
+ * Serves the I/O operations of many serial ports with a small pool of worker threads, instead of
+ * blocking one reader thread per port.
+ * <p>
+ * The handles of the registered ports are associated with one I/O completion port. The worker
+ * threads dequeue the completion packets of the finished operations and dispatch them to the
+ * {@link IoCompletionChannel} of the port, that passes the results to its
+ * {@link IoCompletionHandler} and starts the next operation.
+ * <p>
+ * Example:
+ * 
+ * <pre>
+ * IoCompletionEngine engine = new IoCompletionEngine(os, 2);
+ * engine.start();
+ * IoCompletionChannel channel = engine.register(port, handle, handler);
+ * channel.write(data);
+ * ...
+ * channel.close();
+ * engine.shutdown();
+ * </pre>
+ * 
+ * The handles must be opened with {@link WinApi#FILE_FLAG_OVERLAPPED}.
+ * 
+ * @author Tobias Breßler
+ * 
+ * @see IoCompletionChannel
+ * @see IoCompletionHandler
+ */
+public class IoCompletionEngine {
+
+	/** The completion key of the packets, that terminate the worker threads. */
+	static final int SHUTDOWN_KEY = 0;
+
+	/** The time in milliseconds, that {@link #shutdown()} waits for the channels to be closed. */
+	private static final int SHUTDOWN_TIMEOUT = 2000;
+
+	/** the shared engines by their native Win32-API, guarded by the map */
+	private static final Map<WinApi, IoCompletionEngine> sharedEngines = new HashMap<WinApi, IoCompletionEngine>();
+
+	/** the native Win32-API, never <code>null</code> */
+	@Nonnull
+	private final WinApi os;
+	/** the number of worker threads */
+	private final int numberOfThreads;
+	/** the handle of the I/O completion port */
+	private final int completionPort;
+
+	/** the registered channels by their completion key */
+	private final ConcurrentMap<Integer, IoCompletionChannel> channels = new ConcurrentHashMap<Integer, IoCompletionChannel>();
+	/** the completion key of the next registered channel */
+	private final AtomicInteger nextCompletionKey = new AtomicInteger(SHUTDOWN_KEY + 1);
+
+	/** the started worker threads */
+	private final List<Thread> workers = new ArrayList<Thread>();
+	/** <code>true</code>, if {@link #shutdown()} was called */
+	private boolean isShutdown;
+
+	/**
+	 * Creates a new engine with a new I/O completion port. The worker threads are started by
+	 * {@link #start()}.
+	 * 
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param numberOfThreads
+	 *            the number of worker threads, must be greater than 0
+	 * @throws UnsupportedOperationException
+	 *             if the native library is older than {@link WinApi#NATIVE_VERSION_2}
+	 */
+	public IoCompletionEngine(	@Nonnull WinApi os,
+								@Nonnegative int numberOfThreads) {
+		this.os = checkArgumentNotNull(os, "os");
+		checkArgument(numberOfThreads > 0, "numberOfThreads", "Expected a value greater than 0");
+		if (os.getNativeVersion() < NATIVE_VERSION_2)
+			throw newUnsupportedVersionException(os, "The I/O completion engine", NATIVE_VERSION_2);
+		this.numberOfThreads = numberOfThreads;
+
+		completionPort = os.CreateIoCompletionPort(INVALID_HANDLE_VALUE, NULL, 0, numberOfThreads);
+		if (completionPort == NULL)
+			throw newNativeCodeException(os, "CreateIoCompletionPort failed unexpected!", os.GetLastError());
+	}
+
+	/**
+	 * Returns the shared engine of the given native Win32-API. It is created and started on first
+	 * use with one worker thread per available processor, the worker threads are daemon threads.
+	 * A new engine is created, if the shared engine was shut down.
+	 * 
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @return the started engine, never <code>null</code>
+	 * @throws UnsupportedOperationException
+	 *             if the native library is older than {@link WinApi#NATIVE_VERSION_2}
+	 */
+	@Nonnull
+	public static IoCompletionEngine getSharedEngine(@Nonnull WinApi os) {
+		checkArgumentNotNull(os, "os");
+		synchronized (sharedEngines) {
+			IoCompletionEngine engine = sharedEngines.get(os);
+			if (engine == null || engine.isShutdown()) {
+				engine = new IoCompletionEngine(os, Runtime.getRuntime().availableProcessors());
+				engine.start();
+				sharedEngines.put(os, engine);
+			}
+			return engine;
+		}
+	}
+
+	/**
+	 * Starts the worker threads.
+	 * 
+	 * @exception IllegalStateException
+	 *                if the engine was already started or shut down
+	 */
+	public synchronized void start() {
+		if (isShutdown || !workers.isEmpty())
+			throw new IllegalStateException("The engine was already started!");
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			Thread worker = new Thread(new Worker(), "xidobi I/O completion worker " + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+		}
+		for (Thread worker : workers)
+			worker.start();
+	}
+
+	/**
+	 * Registers the serial port with the given handle. The returned channel starts waiting for
+	 * data immediately.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the opened serial port
+	 * @param handler
+	 *            receives the results of the I/O operations, must not be <code>null</code>
+	 * @return the channel of the port, never <code>null</code>
+	 * @throws IOException
+	 *             if the port couldn't be registered
+	 * @exception IllegalStateException
+	 *                if the engine was shut down
+	 */
+	@Nonnull
+	public IoCompletionChannel register(@Nonnull SerialPort port,
+										int handle,
+										@Nonnull IoCompletionHandler handler) throws IOException {
+		checkArgumentNotNull(port, "port");
+		checkArgumentNotNull(handler, "handler");
+		synchronized (this) {
+			if (isShutdown)
+				throw new IllegalStateException("The engine was shut down!");
+		}
+
+		int completionKey = nextCompletionKey.getAndIncrement();
+		if (os.CreateIoCompletionPort(handle, completionPort, completionKey, 0) == NULL)
+			throw newIOException(os, "Couldn't associate the port " + port.getPortName() + " with the I/O completion port!", os.GetLastError());
+
+		IoCompletionChannel channel = new IoCompletionChannel(this, os, port, handle, completionKey, handler);
+		channels.put(completionKey, channel);
+		try {
+			channel.start();
+		}
+		catch (IOException e) {
+			// no operation is pending, so the channel is disposed and unregistered immediately
+			channel.close();
+			throw e;
+		}
+		return channel;
+	}
+
+	/** Removes the channel, called when the channel is closed and its resources are disposed. */
+	void unregister(@Nonnull IoCompletionChannel channel) {
+		synchronized (this) {
+			channels.remove(channel.getCompletionKey());
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the number of registered channels, that are not closed yet.
+	 * 
+	 * @return the number of channels
+	 */
+	public int getNumberOfChannels() {
+		return channels.size();
+	}
+
+	/**
+	 * Returns <code>true</code>, if this engine was shut down.
+	 * 
+	 * @return <code>true</code>, if {@link #shutdown()} was called
+	 */
+	public synchronized boolean isShutdown() {
+		return isShutdown;
+	}
+
+	/**
+	 * Closes all registered channels and stops the worker threads. Afterwards the I/O completion
+	 * port is closed.
+	 * 
+	 * @throws InterruptedException
+	 *             if the current thread was interrupted, while waiting for the termination of the
+	 *             worker threads
+	 */
+	public void shutdown() throws InterruptedException {
+		synchronized (this) {
+			if (isShutdown)
+				return;
+			isShutdown = true;
+		}
+
+		for (IoCompletionChannel channel : channels.values())
+			channel.close();
+		awaitChannelsClosed();
+
+		for (int i = 0; i < workers.size(); i++) {
+			if (!os.PostQueuedCompletionStatus(completionPort, 0, SHUTDOWN_KEY, NULL))
+				throw newNativeCodeException(os, "PostQueuedCompletionStatus failed unexpected!", os.GetLastError());
+		}
+		for (Thread worker : workers)
+			worker.join();
+
+		if (!os.CloseHandle(completionPort))
+			throw newNativeCodeException(os, "CloseHandle failed unexpected!", os.GetLastError());
+	}
+
+	/**
+	 * Waits until the completions of the aborted operations of all channels are dispatched, but
+	 * not longer than {@link #SHUTDOWN_TIMEOUT}.
+	 */
+	private synchronized void awaitChannelsClosed() throws InterruptedException {
+		long deadline = currentTimeMillis() + SHUTDOWN_TIMEOUT;
+		while (!channels.isEmpty() && !workers.isEmpty()) {
+			long remaining = deadline - currentTimeMillis();
+			if (remaining <= 0)
+				return;
+			wait(remaining);
+		}
+	}
+
+	/**
+	 * Dequeues the next completion packet and dispatches it to the channel of the completed
+	 * operation.
+	 * 
+	 * @param numberOfBytes
+	 *            receives the number of transferred bytes
+	 * @param completionKey
+	 *            receives the completion key of the channel
+	 * @param overlappedAddress
+	 *            receives the address of the {@link org.xidobi.structs.OVERLAPPED OVERLAPPED}
+	 * @param timeout
+	 *            the time in milliseconds to wait for a packet, or {@link WinApi#INFINITE}
+	 * @return <code>false</code>, if the worker thread must terminate, otherwise <code>true</code>
+	 * @exception org.xidobi.spi.NativeCodeException
+	 *                if no packet was dequeued, because <code>GetQueuedCompletionStatus</code>
+	 *                failed unexpected. The worker thread continues in this case.
+	 */
+	boolean processNextCompletion(INT numberOfBytes, INT completionKey, INT overlappedAddress, int timeout) {
+		overlappedAddress.value = NULL;
+		boolean succeed = os.GetQueuedCompletionStatus(completionPort, numberOfBytes, completionKey, overlappedAddress, timeout);
+		int errorCode = succeed ? ERROR_SUCCESS : os.GetLastError();
+
+		if (overlappedAddress.value == NULL) {
+			if (succeed)
+				// no operation, but a posted packet
+				return completionKey.value != SHUTDOWN_KEY;
+			switch (errorCode) {
+				case WAIT_TIMEOUT:
+					// no packet was dequeued within the time-out
+					return true;
+				case ERROR_ABANDONED_WAIT_0:
+				case ERROR_INVALID_HANDLE:
+					// the I/O completion port was closed
+					return false;
+				default:
+					throw newNativeCodeException(os, "GetQueuedCompletionStatus failed unexpected!", errorCode);
+			}
+		}
+
+		IoCompletionChannel channel = channels.get(completionKey.value);
+		if (channel != null)
+			channel.completed(overlappedAddress.value, numberOfBytes.value, errorCode);
+		return true;
+	}
+
+	/**
+	 * Dispatches the completion packets, until the shutdown packet is dequeued or the I/O
+	 * completion port is closed.
+	 */
+	private class Worker implements Runnable {
+
+		/** {@inheritDoc} */
+		public void run() {
+			INT numberOfBytes = new INT();
+			INT completionKey = new INT();
+			INT overlappedAddress = new INT();
+			boolean running = true;
+			while (running) {
+				try {
+					running = processNextCompletion(numberOfBytes, completionKey, overlappedAddress, INFINITE);
+				}
+				catch (RuntimeException e) {
+					// The worker must survive, otherwise the completions of all channels of this
+					// engine are never dispatched. The failure is only reported:
+					Thread worker = currentThread();
+					worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Receives the results of the I/O operations of an {@link IoCompletionChannel}.
+ * <p>
+ * The methods are called by the worker threads of the {@link IoCompletionEngine}. Received data of
+ * a channel is passed in the order it was received, the calls of
+ * {@link #readCompleted(IoCompletionChannel, byte[])} for one channel are never concurrent.
+ * <p>
+ * <b>IMPORTANT:</b> Implementations must return quickly, because a blocked worker thread can't
+ * dispatch the completions of other channels. If {@link #readCompleted(IoCompletionChannel, byte[])}
+ * or {@link #writeCompleted(IoCompletionChannel, int)} throws a {@link RuntimeException}, the
+ * exception is passed to {@link #failed(IoCompletionChannel, IOException)} and the channel is
+ * closed.
+ * 
+ * @author Tobias Breßler
+ * 
+ * @see IoCompletionEngine
+ * @see IoCompletionChannel
+ */
+public interface IoCompletionHandler {
+
+	/**
+	 * Called when data was read from the serial port.
+	 * 
+	 * @param channel
+	 *            the channel that received the data, never <code>null</code>
+	 * @param data
+	 *            the received data, never <code>null</code> or empty
+	 */
+	void readCompleted(@Nonnull IoCompletionChannel channel, @Nonnull byte[] data);
+
+	/**
+	 * Called when a write operation, that was started by
+	 * {@link IoCompletionChannel#write(byte[])}, has completed.
+	 * 
+	 * @param channel
+	 *            the channel that has written the data, never <code>null</code>
+	 * @param numberOfBytes
+	 *            the number of written bytes
+	 */
+	void writeCompleted(@Nonnull IoCompletionChannel channel, @Nonnegative int numberOfBytes);
+
+	/**
+	 * Called when an I/O operation of the channel failed, e.g. because the serial port was
+	 * removed. The channel is closed afterwards.
+	 * 
+	 * @param channel
+	 *            the failed channel, never <code>null</code>
+	 * @param e
+	 *            the cause of the failure, never <code>null</code>
+	 */
+	void failed(@Nonnull IoCompletionChannel channel, @Nonnull IOException e);
+
+	/**
+	 * Called when the channel is closed and all of its pending I/O operations are terminated. The
+	 * handle of the serial port can be closed safely afterwards.
+	 * 
+	 * @param channel
+	 *            the closed channel, never <code>null</code>
+	 */
+	void closed(@Nonnull IoCompletionChannel channel);
+}
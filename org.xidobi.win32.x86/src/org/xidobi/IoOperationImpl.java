@@ -1,306 +1,531 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
-import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
-import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
-import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
-import static org.xidobi.WinApi.ERROR_NOT_READY;
-import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
-import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
-import static org.xidobi.spi.Preconditions.checkArgument;
-import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
-import static org.xidobi.utils.Throwables.newNativeCodeException;
-
-import java.io.IOException;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
-import javax.annotation.OverridingMethodsMustInvokeSuper;
-
-import org.xidobi.spi.IoOperation;
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * Abstract class for I/O operations.
- * <p>
- * Subclasses are:
- * 
- * <ul>
- * <li>{@link ReaderImpl} for read operations</li>
- * <li>{@link WriterImpl} for write operations</li>
- * </ul>
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- * 
- * @see IoOperation
- * @see WriterImpl
- * @see ReaderImpl
- */
-public abstract class IoOperationImpl implements IoOperation {
-
-	/** the serial port, never <code>null</code> */
-	@Nonnull
-	protected final SerialPort port;
-	/** the native Win32-API, never <code>null</code> */
-	@Nonnull
-	protected final WinApi os;
-	/** the native handle of the serial port */
-	protected final int handle;
-
-	/** Receives the number of bytes that are read or written. */
-	protected final DWORD numberOfBytesTransferred;
-	/** Overlapped */
-	protected final OVERLAPPED overlapped;
-
-	/**
-	 * Ensures that the shared resources can only be disposed, when no read or write operations are
-	 * in progress.
-	 */
-	protected final Lock disposeLock = new ReentrantLock(true);
-
-	/**
-	 * <ul>
-	 * <li> <code>true</code> if this instance is disposed
-	 * <li> <code>false</code> if this instance is not disposed
-	 * </ul>
-	 */
-	private boolean isDisposed;
-
-	/**
-	 * <ul>
-	 * <li> <code>true</code> if this I/O operation is closed
-	 * <li> <code>false</code> if this I/O operation is not closed
-	 * </ul>
-	 */
-	private boolean isClosed;
-
-	/**
-	 * Creates a new I/O operation.
-	 * 
-	 * @param port
-	 *            the serial port, must not be <code>null</code>
-	 * @param os
-	 *            the native Win32-API, must not be <code>null</code>
-	 * @param handle
-	 *            the native handle of the serial port
-	 */
-	public IoOperationImpl(	@Nonnull SerialPort port,
-							@Nonnull WinApi os,
-							int handle) {
-		this.port = checkArgumentNotNull(port, "port");
-		this.os = checkArgumentNotNull(os, "os");
-		checkArgument(handle != INVALID_HANDLE_VALUE, "handle", "Invalid handle value (-1)!");
-		this.handle = handle;
-
-		// initialize shared resources:
-		overlapped = newOverlapped(os);
-		numberOfBytesTransferred = new DWORD(os);
-	}
-
-	/** Creates a new overlapped with an event object. */
-	private OVERLAPPED newOverlapped(WinApi os) {
-		OVERLAPPED overlapped = new OVERLAPPED(os);
-
-		// Create an event for the overlapped struct
-		overlapped.hEvent = os.CreateEventA(0, true, false, null);
-		if (overlapped.hEvent != 0)
-			return overlapped;
-
-		// If the event couldn't been created, we don't need the overlapped
-		overlapped.dispose();
-		throw newNativeCodeException(os, "Create overlapped event failed!", os.GetLastError());
-	}
-
-	/** Resets the overlapped event handle */
-	protected final void resetOverlappedEventHandle() throws IOException {
-		boolean resetEventResult = os.ResetEvent(overlapped.hEvent);
-		if (!resetEventResult)
-			handleNativeError("ResetEvent", os.GetLastError());
-	}
-
-	/**
-	 * Handles the native error and throws an {@link IOException}, if the given error code is one of
-	 * the following:
-	 * <ul>
-	 * <li>{@link WinApi#ERROR_INVALID_HANDLE ERROR_INVALID_HANDLE}
-	 * <li>{@link WinApi#ERROR_OPERATION_ABORTED ERROR_OPERATION_ABORTED}
-	 * <li>{@link WinApi#ERROR_ACCESS_DENIED ERROR_ACCESS_DENIED}
-	 * <li>{@link WinApi#ERROR_GEN_FAILURE ERROR_GEN_FAILURE}
-	 * <li>{@link WinApi#ERROR_BAD_COMMAND ERROR_BAD_COMMAND}
-	 * </ul>
-	 * Otherwise it throws a {@link NativeCodeException} with the error code and the given name of
-	 * the native method.
-	 * 
-	 * @param nativeMethodName
-	 *            the name of the native method, must not be <code>null</code>
-	 * @param errorCode
-	 *            the last error code
-	 * @throws IOException
-	 *             if the error code is one of the following:
-	 *             <ul>
-	 *             <li>{@link WinApi#ERROR_INVALID_HANDLE ERROR_INVALID_HANDLE}
-	 *             <li>
-	 *             {@link WinApi#ERROR_OPERATION_ABORTED ERROR_OPERATION_ABORTED}
-	 *             <li>
-	 *             {@link WinApi#ERROR_ACCESS_DENIED ERROR_ACCESS_DENIED}
-	 *             <li>
-	 *             {@link WinApi#ERROR_GEN_FAILURE ERROR_GEN_FAILURE}
-	 *             <li>
-	 *             {@link WinApi#ERROR_BAD_COMMAND ERROR_BAD_COMMAND}
-	 *             <li>
-	 *             {@link WinApi#ERROR_NOT_READY ERROR_NOT_READY}
-	 *             </ul>
-	 * @exception NativeCodeException
-	 *                for all unexpected error codes
-	 */
-	protected final void handleNativeError(@Nonnull String nativeMethodName, int errorCode) throws IOException {
-		checkArgumentNotNull(nativeMethodName, "nativeMethodName");
-
-		switch (errorCode) {
-			case ERROR_INVALID_HANDLE:
-				throw portClosedException("I/O operation failed, because the handle is invalid.");
-			case ERROR_ACCESS_DENIED:
-				throw portClosedException("I/O operation failed, because access denied.");
-			case ERROR_OPERATION_ABORTED:
-				throw portClosedException("I/O operation has been aborted.");
-			case ERROR_GEN_FAILURE:
-				throw portClosedException("I/O operation failed, because a device attached to the system is not functioning.");
-			case ERROR_BAD_COMMAND:
-				throw portClosedException("I/O operation failed, because the device doesn't recognize the command.");
-			case ERROR_NOT_READY:
-				throw portClosedException("I/O operation failed, because the device is not ready.");
-			default:
-				throw newNativeCodeException(os, nativeMethodName + " failed unexpected!", errorCode);
-		}
-	}
-
-	/** {@inheritDoc} */
-	@OverridingMethodsMustInvokeSuper
-	public void close() throws IOException {
-		checkIfClosedOrDisposed();
-
-		// Close handle for overlapped event
-		boolean closeHandleResult = os.CloseHandle(overlapped.hEvent);
-		if (!closeHandleResult)
-			throw newNativeCodeException(os, "CloseHandle failed unexpected!", os.GetLastError());
-
-		isClosed = true;
-	}
-
-	/**
-	 * Returns <code>true</code>, if this I/O operation is closed.
-	 * 
-	 * @return <ul>
-	 *         <li> <code>true</code> if closed
-	 *         <li> <code>false</code> if not closed
-	 *         </ul>
-	 */
-	protected final boolean isClosed() {
-		return isClosed;
-	}
-
-	/**
-	 * Throws an {@link IOException} if this I/O operation was already closed or an
-	 * {@link IllegalStateException} if this instance was already disposed.
-	 * 
-	 * @throws IOException
-	 *             when this I/O operation was already closed
-	 * @throws IllegalStateException
-	 *             when this instance was already disposed
-	 */
-	protected final void checkIfClosedOrDisposed() throws IOException {
-		if (isClosed())
-			throw portClosedException(null);
-		checkIfDisposed();
-	}
-
-	/**
-	 * Returns a new {@link IOException} indicating that the port is closed. Subclasses may use this
-	 * to throw a consitent {@link IOException}, if a closed port was detected.
-	 * <p>
-	 * <b>NOTE:</b> This method is also used by {@link #read()} and {@link #write(byte[])} to throw
-	 * an {@link IOException} if the port is closed. Overriding it may have consequences to the
-	 * caller.
-	 * 
-	 * @param message
-	 *            error description, may be <code>null</code>
-	 */
-	@Nonnull
-	protected final IOException portClosedException(@Nullable String message) {
-		if (message == null)
-			message = "";
-		else
-			message = " " + message;
-		return new IOException("Port " + port.getPortName() + " was closed!" + message);
-	}
-
-	/** {@inheritDoc} */
-	public final void dispose() {
-		//@formatter:off
-		disposeLock.lock();
-		try { 
-			checkIfDisposed();
-		try {
-			numberOfBytesTransferred.dispose();
-		} finally {	try {
-			overlapped.dispose();
-		} finally {
-			disposeInternal();
-		}}} finally {
-			isDisposed = true;
-			disposeLock.unlock();
-		}
-		// @formatter:on
-	}
-
-	/**
-	 * Subclasses can overwrite this method in order to dispose their resources.
-	 * <p>
-	 * <b>IMPORTANT:</b> Don't call this method yourself!
-	 */
-	protected void disposeInternal() {}
-
-	/**
-	 * Returns <code>true</code> if this instance is disposed.
-	 * 
-	 * @return <ul>
-	 *         <li> <code>true</code> if this instance is disposed
-	 *         <li> <code>false</code> if this instance is not disposed
-	 *         </ul>
-	 */
-	protected final boolean isDisposed() {
-		return isDisposed;
-	}
-
-	/**
-	 * Throws an {@link IllegalStateException} if this instance was already disposed.
-	 * 
-	 * @throws IllegalStateException
-	 *             when this instance was already disposed
-	 */
-	protected final void checkIfDisposed() {
-		if (isDisposed())
-			throw new IllegalStateException("The instance of " + getClass().getName() + " was already disposed!");
-	}
-
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.WinApi.ERROR_ACCESS_DENIED;
+import static org.xidobi.WinApi.ERROR_BAD_COMMAND;
+import static org.xidobi.WinApi.ERROR_GEN_FAILURE;
+import static org.xidobi.WinApi.ERROR_INVALID_HANDLE;
+import static org.xidobi.WinApi.ERROR_NOT_READY;
+import static org.xidobi.WinApi.ERROR_OPERATION_ABORTED;
+import static org.xidobi.WinApi.INVALID_HANDLE_VALUE;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.OverridingMethodsMustInvokeSuper;
+
+import org.xidobi.spi.IoOperation;
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Abstract class for I/O operations.
+ * <p>
+ * Subclasses are:
+ * 
+ * <ul>
+ * <li>{@link ReaderImpl} for read operations</li>
+ * <li>{@link WriterImpl} for write operations</li>
+ * </ul>
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ * 
+ * @see IoOperation
+ * @see WriterImpl
+ * @see ReaderImpl
+ */
+public abstract class IoOperationImpl implements IoOperation {
+
+	/** the serial port, never <code>null</code> */
+	@Nonnull
+	protected final SerialPort port;
+	/** the native Win32-API, never <code>null</code> */
+	@Nonnull
+	protected final WinApi os;
+	/** the native handle of the serial port */
+	protected final int handle;
+
+	/** Receives the number of bytes that are read or written. */
+	protected final DWORD numberOfBytesTransferred;
+	/** Overlapped */
+	protected final OVERLAPPED overlapped;
+
+	/** The flag of the {@link #state}, that is set when this I/O operation is closed. */
+	private static final int CLOSED = 1 << 30;
+	/** The flag of the {@link #state}, that is set when this instance is disposed. */
+	private static final int DISPOSED = 1 << 29;
+	/** The flag of the {@link #state}, that is set while an operation uses the overlapped. */
+	private static final int BUSY = 1 << 28;
+	/** The bits of the {@link #state}, that count the operations in progress or waiting. */
+	private static final int ACTIVE_OPERATIONS = BUSY - 1;
+
+	/**
+	 * The lifecycle of this instance: the flags {@link #CLOSED}, {@link #DISPOSED} and
+	 * {@link #BUSY} and the number of read or write operations in progress. The shared resources
+	 * are released by {@link #dispose()} or, if operations are still in progress, by the last
+	 * operation that ends. So the resources are never freed while they are in use, without a lock
+	 * on the I/O path.
+	 */
+	private final AtomicInteger state = new AtomicInteger();
+
+	/**
+	 * The monitor, that operations wait on, while a concurrent operation of this instance uses the
+	 * overlapped. It is only used if operations are contended and never by {@link #close()} or
+	 * {@link #dispose()}.
+	 */
+	private final Object turn = new Object();
+
+	/**
+	 * <ul>
+	 * <li> <code>true</code> if an overlapped operation was started and its completion was not
+	 * observed yet
+	 * <li> <code>false</code> if no overlapped operation is pending
+	 * </ul>
+	 */
+	private volatile boolean isIoPending;
+
+	/**
+	 * <ul>
+	 * <li> <code>true</code> if the overlapped event handle is closed
+	 * <li> <code>false</code> if the overlapped event handle is still open
+	 * </ul>
+	 */
+	private volatile boolean isEventClosed;
+
+	/**
+	 * Creates a new I/O operation.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 */
+	public IoOperationImpl(	@Nonnull SerialPort port,
+							@Nonnull WinApi os,
+							int handle) {
+		this.port = checkArgumentNotNull(port, "port");
+		this.os = checkArgumentNotNull(os, "os");
+		checkArgument(handle != INVALID_HANDLE_VALUE, "handle", "Invalid handle value (-1)!");
+		this.handle = handle;
+
+		// initialize shared resources:
+		overlapped = newOverlapped(os);
+		numberOfBytesTransferred = new DWORD(os);
+	}
+
+	/**
+	 * Creates a new overlapped with a manual-reset event object. The event handle must be closed
+	 * and the overlapped must be disposed, when it isn't used anymore.
+	 */
+	@Nonnull
+	protected static final OVERLAPPED newOverlapped(@Nonnull WinApi os) {
+		OVERLAPPED overlapped = new OVERLAPPED(os);
+
+		// Create an event for the overlapped struct
+		overlapped.hEvent = os.CreateEventA(0, true, false, null);
+		if (overlapped.hEvent != 0)
+			return overlapped;
+
+		// If the event couldn't been created, we don't need the overlapped
+		overlapped.dispose();
+		throw newNativeCodeException(os, "Create overlapped event failed!", os.GetLastError());
+	}
+
+	/** Resets the overlapped event handle */
+	protected final void resetOverlappedEventHandle() throws IOException {
+		boolean resetEventResult = os.ResetEvent(overlapped.hEvent);
+		if (!resetEventResult)
+			handleNativeError("ResetEvent", os.GetLastError());
+	}
+
+	/**
+	 * Handles the native error and throws an {@link IOException}, if the given error code is one of
+	 * the following:
+	 * <ul>
+	 * <li>{@link WinApi#ERROR_INVALID_HANDLE ERROR_INVALID_HANDLE}
+	 * <li>{@link WinApi#ERROR_OPERATION_ABORTED ERROR_OPERATION_ABORTED}
+	 * <li>{@link WinApi#ERROR_ACCESS_DENIED ERROR_ACCESS_DENIED}
+	 * <li>{@link WinApi#ERROR_GEN_FAILURE ERROR_GEN_FAILURE}
+	 * <li>{@link WinApi#ERROR_BAD_COMMAND ERROR_BAD_COMMAND}
+	 * </ul>
+	 * Otherwise it throws a {@link NativeCodeException} with the error code and the given name of
+	 * the native method.
+	 * 
+	 * @param nativeMethodName
+	 *            the name of the native method, must not be <code>null</code>
+	 * @param errorCode
+	 *            the last error code
+	 * @throws IOException
+	 *             if the error code is one of the following:
+	 *             <ul>
+	 *             <li>{@link WinApi#ERROR_INVALID_HANDLE ERROR_INVALID_HANDLE}
+	 *             <li>
+	 *             {@link WinApi#ERROR_OPERATION_ABORTED ERROR_OPERATION_ABORTED}
+	 *             <li>
+	 *             {@link WinApi#ERROR_ACCESS_DENIED ERROR_ACCESS_DENIED}
+	 *             <li>
+	 *             {@link WinApi#ERROR_GEN_FAILURE ERROR_GEN_FAILURE}
+	 *             <li>
+	 *             {@link WinApi#ERROR_BAD_COMMAND ERROR_BAD_COMMAND}
+	 *             <li>
+	 *             {@link WinApi#ERROR_NOT_READY ERROR_NOT_READY}
+	 *             </ul>
+	 * @exception NativeCodeException
+	 *                for all unexpected error codes
+	 */
+	protected final void handleNativeError(@Nonnull String nativeMethodName, int errorCode) throws IOException {
+		checkArgumentNotNull(nativeMethodName, "nativeMethodName");
+
+		switch (errorCode) {
+			case ERROR_INVALID_HANDLE:
+				throw portClosedException("I/O operation failed, because the handle is invalid.");
+			case ERROR_ACCESS_DENIED:
+				throw portClosedException("I/O operation failed, because access denied.");
+			case ERROR_OPERATION_ABORTED:
+				throw portClosedException("I/O operation has been aborted.");
+			case ERROR_GEN_FAILURE:
+				throw portClosedException("I/O operation failed, because a device attached to the system is not functioning.");
+			case ERROR_BAD_COMMAND:
+				throw portClosedException("I/O operation failed, because the device doesn't recognize the command.");
+			case ERROR_NOT_READY:
+				throw portClosedException("I/O operation failed, because the device is not ready.");
+			default:
+				throw newNativeCodeException(os, nativeMethodName + " failed unexpected!", errorCode);
+		}
+	}
+
+	/**
+	 * Marks the overlapped operation, that was started with the overlapped of this instance, as
+	 * pending. Subclasses must call this method, when the native operation returned
+	 * <code>ERROR_IO_PENDING</code>.
+	 */
+	protected final void ioPending() {
+		isIoPending = true;
+	}
+
+	/**
+	 * Marks the pending overlapped operation as completed. Subclasses must call this method, when
+	 * the overlapped event was signaled.
+	 */
+	protected final void ioCompleted() {
+		isIoPending = false;
+	}
+
+	/**
+	 * Returns <code>true</code>, if an overlapped operation was started and its completion was not
+	 * observed yet.
+	 * 
+	 * @return <ul>
+	 *         <li> <code>true</code> if an overlapped operation is pending
+	 *         <li> <code>false</code> if no overlapped operation is pending
+	 *         </ul>
+	 */
+	protected boolean isIoPending() {
+		return isIoPending;
+	}
+
+	/**
+	 * Blocks until the pending overlapped operations of this instance are terminated, but not
+	 * longer than the given time-out. This method must be called after the pending operations were
+	 * canceled, e.g. by <code>CancelIo</code> or <code>PurgeComm</code>, and before the resources
+	 * are disposed.
+	 * 
+	 * @param timeout
+	 *            the time-out in milliseconds
+	 * @return <ul>
+	 *         <li> <code>true</code> if no overlapped operation is pending anymore
+	 *         <li> <code>false</code> if the time-out elapsed or the wait failed
+	 *         </ul>
+	 */
+	boolean awaitTermination(int timeout) {
+		if (!isIoPending())
+			return true;
+		if (isEventClosed || isDisposed())
+			return false;
+
+		int waitResult = os.WaitForSingleObject(overlapped.hEvent, timeout);
+		if (waitResult != WAIT_OBJECT_0)
+			return false;
+
+		isIoPending = false;
+		return true;
+	}
+
+	/**
+	 * Begins a read or write operation, that uses the shared resources of this instance. Every
+	 * call must be followed by a call of {@link #endOperation()} in a <code>finally</code> block.
+	 * Concurrent operations of this instance are executed one after another. An uncontended
+	 * operation begins with a single compare-and-set, only a contended operation waits for the
+	 * operation in progress.
+	 * 
+	 * @throws IOException
+	 *             when this I/O operation was already closed
+	 * @throws IllegalStateException
+	 *             when this instance was already disposed
+	 */
+	protected final void beginOperation() throws IOException {
+		int currentState;
+		do {
+			currentState = state.get();
+			checkIfClosedOrDisposed(currentState);
+			if ((currentState & BUSY) != 0) {
+				awaitTurn();
+				return;
+			}
+		}
+		while (!state.compareAndSet(currentState, (currentState + 1) | BUSY));
+	}
+
+	/**
+	 * Waits until the concurrent operation in progress has ended and marks this instance as busy.
+	 * The waiting operation is counted, so the resources are not released while it waits.
+	 */
+	private void awaitTurn() throws IOException {
+		int currentState;
+		do {
+			currentState = state.get();
+			checkIfClosedOrDisposed(currentState);
+		}
+		while (!state.compareAndSet(currentState, currentState + 1));
+
+		boolean interrupted = false;
+		try {
+			synchronized (turn) {
+				while (true) {
+					currentState = state.get();
+					if ((currentState & (CLOSED | DISPOSED)) != 0) {
+						// closed or disposed while waiting for a concurrent operation
+						leave(0);
+						checkIfClosedOrDisposed(currentState);
+					}
+					if ((currentState & BUSY) == 0) {
+						if (state.compareAndSet(currentState, currentState | BUSY))
+							return;
+						continue;
+					}
+					try {
+						turn.wait();
+					}
+					catch (InterruptedException e) {
+						// like a lock, the wait is not interruptible
+						interrupted = true;
+					}
+				}
+			}
+		}
+		finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Ends an operation, that was begun by {@link #beginOperation()}. The shared resources are
+	 * released, if this instance was disposed while the operation was in progress.
+	 */
+	protected final void endOperation() {
+		leave(BUSY);
+	}
+
+	/**
+	 * Removes an operation from the {@link #state} and clears the given flags, that must be set.
+	 * Wakes up the waiting operations, if this instance is not busy anymore, or releases the
+	 * resources, if this was the last operation of a disposed instance.
+	 */
+	private void leave(int flags) {
+		int newState = state.addAndGet(-1 - flags);
+		if ((newState & ACTIVE_OPERATIONS) != 0) {
+			if (flags != 0) {
+				// operations are waiting for their turn
+				synchronized (turn) {
+					turn.notifyAll();
+				}
+			}
+		}
+		else if ((newState & DISPOSED) != 0)
+			release();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This method doesn't wait for operations in progress. If an operation is in progress or an
+	 * overlapped operation is still pending, the event handles are kept open until the resources
+	 * are released, so that the termination of the operation can be awaited.
+	 */
+	@OverridingMethodsMustInvokeSuper
+	public void close() throws IOException {
+		int currentState;
+		do {
+			currentState = state.get();
+			checkIfClosedOrDisposed(currentState);
+		}
+		while (!state.compareAndSet(currentState, currentState | CLOSED));
+
+		if ((currentState & ACTIVE_OPERATIONS) == 0 && !isIoPending())
+			closeEventHandles();
+	}
+
+	/**
+	 * Closes the event handles of this instance. Subclasses, that own further overlapped events,
+	 * can overwrite this method in order to close them.
+	 * <p>
+	 * <b>IMPORTANT:</b> Don't call this method yourself!
+	 */
+	@OverridingMethodsMustInvokeSuper
+	protected void closeEventHandles() {
+		isEventClosed = true;
+		boolean closeHandleResult = os.CloseHandle(overlapped.hEvent);
+		if (!closeHandleResult)
+			throw newNativeCodeException(os, "CloseHandle failed unexpected!", os.GetLastError());
+	}
+
+	/**
+	 * Returns <code>true</code>, if this I/O operation is closed.
+	 * 
+	 * @return <ul>
+	 *         <li> <code>true</code> if closed
+	 *         <li> <code>false</code> if not closed
+	 *         </ul>
+	 */
+	protected final boolean isClosed() {
+		return (state.get() & CLOSED) != 0;
+	}
+
+	/**
+	 * Throws an {@link IOException} if this I/O operation was already closed or an
+	 * {@link IllegalStateException} if this instance was already disposed.
+	 * 
+	 * @throws IOException
+	 *             when this I/O operation was already closed
+	 * @throws IllegalStateException
+	 *             when this instance was already disposed
+	 */
+	protected final void checkIfClosedOrDisposed() throws IOException {
+		checkIfClosedOrDisposed(state.get());
+	}
+
+	/** Throws an exception, if the given state is closed or disposed. */
+	private void checkIfClosedOrDisposed(int currentState) throws IOException {
+		if ((currentState & CLOSED) != 0)
+			throw portClosedException(null);
+		if ((currentState & DISPOSED) != 0)
+			throw newDisposedException();
+	}
+
+	/**
+	 * Returns a new {@link IOException} indicating that the port is closed. Subclasses may use this
+	 * to throw a consitent {@link IOException}, if a closed port was detected.
+	 * <p>
+	 * <b>NOTE:</b> This method is also used by {@link #read()} and {@link #write(byte[])} to throw
+	 * an {@link IOException} if the port is closed. Overriding it may have consequences to the
+	 * caller.
+	 * 
+	 * @param message
+	 *            error description, may be <code>null</code>
+	 */
+	@Nonnull
+	protected final IOException portClosedException(@Nullable String message) {
+		if (message == null)
+			message = "";
+		else
+			message = " " + message;
+		return new IOException("Port " + port.getPortName() + " was closed!" + message);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If an operation is still in progress, the resources are released when the operation ends.
+	 */
+	public final void dispose() {
+		int currentState;
+		do {
+			currentState = state.get();
+			if ((currentState & DISPOSED) != 0)
+				throw newDisposedException();
+		}
+		while (!state.compareAndSet(currentState, currentState | DISPOSED));
+
+		if ((currentState & ACTIVE_OPERATIONS) == 0)
+			release();
+	}
+
+	/** Releases the shared resources, this is done exactly once. */
+	private void release() {
+		//@formatter:off
+		try {
+			if (isClosed() && !isEventClosed)
+				// the handles were kept open, because an operation was in progress on close
+				closeEventHandles();
+		} finally { try {
+			numberOfBytesTransferred.dispose();
+		} finally {	try {
+			overlapped.dispose();
+		} finally {
+			disposeInternal();
+		}}}
+		// @formatter:on
+	}
+
+	/**
+	 * Subclasses can overwrite this method in order to dispose their resources.
+	 * <p>
+	 * <b>IMPORTANT:</b> Don't call this method yourself!
+	 */
+	protected void disposeInternal() {}
+
+	/**
+	 * Returns <code>true</code> if this instance is disposed.
+	 * 
+	 * @return <ul>
+	 *         <li> <code>true</code> if this instance is disposed
+	 *         <li> <code>false</code> if this instance is not disposed
+	 *         </ul>
+	 */
+	protected final boolean isDisposed() {
+		return (state.get() & DISPOSED) != 0;
+	}
+
+	/**
+	 * Throws an {@link IllegalStateException} if this instance was already disposed.
+	 * 
+	 * @throws IllegalStateException
+	 *             when this instance was already disposed
+	 */
+	protected final void checkIfDisposed() {
+		if (isDisposed())
+			throw newDisposedException();
+	}
+
+	/** Returns a new {@link IllegalStateException} indicating that this instance is disposed. */
+	@Nonnull
+	private IllegalStateException newDisposedException() {
+		return new IllegalStateException("The instance of " + getClass().getName() + " was already disposed!");
+	}
+
 }
\ No newline at end of file
@@ -1,344 +1,390 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static java.lang.System.loadLibrary;
-import static java.lang.Thread.currentThread;
-
-import java.util.Map;
-import java.util.WeakHashMap;
-
-import javax.annotation.CheckReturnValue;
-import javax.annotation.Nonnegative;
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
-
-import org.xidobi.structs.COMSTAT;
-import org.xidobi.structs.DCB;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.HKEY;
-import org.xidobi.structs.INT;
-import org.xidobi.structs.NativeByteArray;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * This class contains one-to-one mappings of native methods used by the OS to control serial ports.
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public class OS implements WinApi {
-
-	/** The name of the native shared library. */
-	private static final String NATIVE_LIB = "xidobi";
-
-	/**
-	 * Stores the last native error codes. Contains:
-	 * <ul>
-	 * <li><b>key:</b> the thread that caused the error
-	 * <li><b>value:</b> the last native error code of the thread
-	 * </ul>
-	 */
-	private final Map<Thread, Integer> lastNativeErrorCodes = new WeakHashMap<Thread, Integer>();
-
-	/** The singleton instance of this class */
-	public final static WinApi OS = new OS();
-
-	/**
-	 * This class is not intended to be instantiated.
-	 * 
-	 * @see #OS
-	 */
-	private OS() {
-		try {
-			loadLibrary(NATIVE_LIB);
-			return;
-		}
-		catch (UnsatisfiedLinkError ignore) {
-			throw new UnsatisfiedLinkError("Unable to find " + NATIVE_LIB + ".dll!\r\nYou must run in an OSGi enviroment!");
-		}
-	}
-
-	/** Stores the last error code. */
-	private void preserveLastError(INT lastError) {
-		lastNativeErrorCodes.put(currentThread(), lastError.value);
-	}
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public int CreateFileA(String lpFileName, int dwDesiredAccess, int dwShareMode, int lpSecurityAttributes, int dwCreationDisposition, int dwFlagsAndAttributes, int hTemplateFile) {
-		INT lastError = new INT(0);
-		int result = CreateFileA(lpFileName, dwDesiredAccess, dwShareMode, lpSecurityAttributes, dwCreationDisposition, dwFlagsAndAttributes, hTemplateFile, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #CreateFileA(String, int, int, int, int, int, int)}. */
-	private native int CreateFileA(String lpFileName, int dwDesiredAccess, int dwShareMode, int lpSecurityAttributes, int dwCreationDisposition, int dwFlagsAndAttributes, int hTemplateFile, INT lastError);
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public boolean CloseHandle(int handle) {
-		INT lastError = new INT(0);
-		boolean result = CloseHandle(handle, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #CloseHandle(int)}. */
-	private native boolean CloseHandle(int handle, INT lastError);
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public boolean GetCommState(int handle, DCB dcb) {
-		INT lastError = new INT(0);
-		boolean result = GetCommState(handle, dcb, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #GetCommState(int, DCB)}. */
-	private native boolean GetCommState(int handle, DCB dcb, INT lastError);
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public boolean SetCommState(int handle, DCB dcb) {
-		INT lastError = new INT(0);
-		boolean result = SetCommState(handle, dcb, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #SetCommState(int, DCB)}. */
-	private native boolean SetCommState(int handle, DCB dcb, INT lastError);
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public int CreateEventA(int lpEventAttributes, boolean bManualReset, boolean bInitialState, @Nullable String lpName) {
-		INT lastError = new INT(0);
-		int result = CreateEventA(lpEventAttributes, bManualReset, bInitialState, lpName, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #CreateEventA(int, boolean, boolean, String)}. */
-	private native int CreateEventA(int lpEventAttributes, boolean bManualReset, boolean bInitialState, @Nullable String lpName, INT lastError);
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public boolean WriteFile(int handle, @Nonnull byte[] lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped) {
-		INT lastError = new INT(0);
-		boolean result = WriteFile(handle, lpBuffer, nNumberOfBytesToWrite, lpNumberOfBytesWritten, lpOverlapped, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)}. */
-	private native boolean WriteFile(int handle, @Nonnull byte[] lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped, INT lastError);
-
-	/** {@inheritDoc} */
-	@CheckReturnValue
-	public boolean ReadFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped) {
-		INT lastError = new INT(0);
-		boolean result = ReadFile(handle, lpBuffer, nNumberOfBytesToRead, lpNumberOfBytesRead, lpOverlapped, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #ReadFile(int, NativeByteArray, int, DWORD, OVERLAPPED)}. */
-	private native boolean ReadFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped, INT lastError);
-
-	/** {@inheritDoc} */
-	public int GetLastError() {
-		Integer lastError = lastNativeErrorCodes.get(currentThread());
-		if (lastError == null)
-			// no error was stored
-			return ERROR_SUCCESS;
-		return lastError;
-	}
-
-	/** {@inheritDoc} */
-	public native int MAKELANGID(short usPrimaryLanguage, short usSubLanguage);
-
-	/** {@inheritDoc} */
-	public int FormatMessageA(int dwFlags, Void lpSource, int dwMessageId, int dwLanguageId, @Nonnull byte[] lpBuffer, int nSize, Void arguments) {
-		INT lastError = new INT(0);
-		int result = FormatMessageA(dwFlags, lpSource, dwMessageId, dwLanguageId, lpBuffer, nSize, arguments, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #FormatMessageA(int, Void, int, int, byte[], int, Void)}. */
-	private native int FormatMessageA(int dwFlags, Void lpSource, int dwMessageId, int dwLanguageId, @Nonnull byte[] lpBuffer, int nSize, Void arguments, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean GetOverlappedResult(int handle, OVERLAPPED lpOverlapped, DWORD lpNumberOfBytesTransferred, boolean bWait) {
-		INT lastError = new INT(0);
-		boolean result = GetOverlappedResult(handle, lpOverlapped, lpNumberOfBytesTransferred, bWait, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #GetOverlappedResult(int, OVERLAPPED, DWORD, boolean)}. */
-	private native boolean GetOverlappedResult(int handle, OVERLAPPED lpOverlapped, DWORD lpNumberOfBytesTransferred, boolean bWait, INT lastError);
-
-	/** {@inheritDoc} */
-	public int WaitForSingleObject(int hHandle, int dwMilliseconds) {
-		INT lastError = new INT(0);
-		int result = WaitForSingleObject(hHandle, dwMilliseconds, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #WaitForSingleObject(int, int)}. */
-	private native int WaitForSingleObject(int hHandle, int dwMilliseconds, INT lastError);
-
-	/** {@inheritDoc} */
-	public native int RegOpenKeyExA(int hKey, String lpSubKey, int ulOptions, int samDesired, HKEY phkResult);
-
-	/** {@inheritDoc} */
-	public native int RegCloseKey(HKEY hKey);
-
-	/** {@inheritDoc} */
-	public native int RegEnumValueA(HKEY hKey, int dwIndex, byte[] lpValueName, INT lpcchValueName, int lpReserved, INT lpType, byte[] lpData, INT lpcbData);
-
-	/** {@inheritDoc} */
-	public boolean SetCommMask(int hFile, int dwEvtMask) {
-		INT lastError = new INT(0);
-		boolean result = SetCommMask(hFile, dwEvtMask, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #SetCommMask(int, int)}. */
-	private native boolean SetCommMask(int hFile, int dwEvtMask, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean WaitCommEvent(int hFile, DWORD lpEvtMask, OVERLAPPED lpOverlapped) {
-		INT lastError = new INT(0);
-		boolean result = WaitCommEvent(hFile, lpEvtMask, lpOverlapped, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #WaitCommEvent(int, DWORD, OVERLAPPED)}. */
-	private native boolean WaitCommEvent(int hFile, DWORD lpEvtMask, OVERLAPPED lpOverlapped, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean PurgeComm(int hFile, int dwFlags) {
-		INT lastError = new INT(0);
-		boolean result = PurgeComm(hFile, dwFlags, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #PurgeComm(int, int)}. */
-	private native boolean PurgeComm(int hFile, int dwFlags, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean ClearCommError(int hFile, INT lpErrors, COMSTAT lpStat) {
-		INT lastError = new INT(0);
-		boolean result = ClearCommError(hFile, lpErrors, lpStat, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #ClearCommError(int, INT, COMSTAT)}. */
-	private native boolean ClearCommError(int hFile, INT lpErrors, COMSTAT lpStat, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean ResetEvent(int hEvent) {
-		INT lastError = new INT(0);
-		boolean result = ResetEvent(hEvent, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #ResetEvent(int)}. */
-	private native boolean ResetEvent(int hEvent, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean SetCommBreak(int hFile) {
-		INT lastError = new INT(0);
-		boolean result = SetCommBreak(hFile, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #SetCommBreak(int)}. */
-	private native boolean SetCommBreak(int hFile, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean ClearCommBreak(int hFile) {
-		INT lastError = new INT(0);
-		boolean result = ClearCommBreak(hFile, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #ClearCommBreak(int)}. */
-	private native boolean ClearCommBreak(int hFile, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean CancelIo(int hFile) {
-		INT lastError = new INT(0);
-		boolean result = CancelIo(hFile, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #CancelIo(int)}. */
-	private native boolean CancelIo(int hFile, INT lastError);
-
-	/** {@inheritDoc} */
-	public boolean SetEvent(int hEvent) {
-		INT lastError = new INT(0);
-		boolean result = SetEvent(hEvent, lastError);
-		preserveLastError(lastError);
-		return result;
-	}
-
-	/** Native reference to {@link #SetEvent(int)}. */
-	private native boolean SetEvent(int hEvent, INT lastError);
-
-	/** {@inheritDoc} */
-	public native int malloc(@Nonnegative int size);
-
-	/** {@inheritDoc} */
-	public native void memset(int ptr, int value, int num);
-
-	/** {@inheritDoc} */
-	public native void free(int pointer);
-
-	/** {@inheritDoc} */
-	public native int sizeOf_OVERLAPPED();
-
-	/** {@inheritDoc} */
-	public native int sizeOf_HKEY();
-
-	/** {@inheritDoc} */
-	public native int sizeOf_DWORD();
-
-	/** {@inheritDoc} */
-	public native byte[] getByteArray(NativeByteArray nativeByteArray, int length);
-
-	/** {@inheritDoc} */
-	public native int getValue_DWORD(@Nonnull DWORD dword);
-
-	/** {@inheritDoc} */
-	public native void setValue_DWORD(@Nonnull DWORD dword, int value);
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.System.loadLibrary;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DCB;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.HKEY;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * This class contains one-to-one mappings of native methods used by the OS to control serial ports.
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public class OS implements WinApi {
+
+	/** The name of the native shared library. */
+	private static final String NATIVE_LIB = "xidobi";
+
+	/**
+	 * Holds the last native error code of each thread. The native methods store the error code
+	 * directly in the {@link INT} of the calling thread, that is reused for all calls of the
+	 * thread. So no allocation or synchronization is necessary to preserve the error code.
+	 */
+	private final ThreadLocal<INT> lastNativeErrorCode = new ThreadLocal<INT>() {
+		@Override
+		protected INT initialValue() {
+			return new INT(ERROR_SUCCESS);
+		}
+	};
+
+	/** The version of the loaded native library */
+	private final int nativeVersion;
+
+	/** The singleton instance of this class */
+	public final static WinApi OS = new OS();
+
+	/**
+	 * This class is not intended to be instantiated.
+	 * 
+	 * @see #OS
+	 */
+	private OS() {
+		try {
+			loadLibrary(NATIVE_LIB);
+		}
+		catch (UnsatisfiedLinkError ignore) {
+			throw new UnsatisfiedLinkError("Unable to find " + NATIVE_LIB + ".dll!\r\nYou must run in an OSGi enviroment!");
+		}
+		nativeVersion = queryNativeVersion();
+	}
+
+	/**
+	 * Returns the version of the loaded native library. The library of the first version doesn't
+	 * provide the function <code>nativeVersion</code>.
+	 */
+	private int queryNativeVersion() {
+		try {
+			return nativeVersion();
+		}
+		catch (UnsatisfiedLinkError e) {
+			return NATIVE_VERSION_1;
+		}
+	}
+
+	/**
+	 * Returns the {@link INT} of the current thread, that receives the error code of the next
+	 * native call.
+	 */
+	private INT lastError() {
+		return lastNativeErrorCode.get();
+	}
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public int CreateFileA(String lpFileName, int dwDesiredAccess, int dwShareMode, int lpSecurityAttributes, int dwCreationDisposition, int dwFlagsAndAttributes, int hTemplateFile) {
+		return CreateFileA(lpFileName, dwDesiredAccess, dwShareMode, lpSecurityAttributes, dwCreationDisposition, dwFlagsAndAttributes, hTemplateFile, lastError());
+	}
+
+	/** Native reference to {@link #CreateFileA(String, int, int, int, int, int, int)}. */
+	private native int CreateFileA(String lpFileName, int dwDesiredAccess, int dwShareMode, int lpSecurityAttributes, int dwCreationDisposition, int dwFlagsAndAttributes, int hTemplateFile, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public boolean CloseHandle(int handle) {
+		return CloseHandle(handle, lastError());
+	}
+
+	/** Native reference to {@link #CloseHandle(int)}. */
+	private native boolean CloseHandle(int handle, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public boolean GetCommState(int handle, DCB dcb) {
+		return GetCommState(handle, dcb, lastError());
+	}
+
+	/** Native reference to {@link #GetCommState(int, DCB)}. */
+	private native boolean GetCommState(int handle, DCB dcb, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public boolean SetCommState(int handle, DCB dcb) {
+		return SetCommState(handle, dcb, lastError());
+	}
+
+	/** Native reference to {@link #SetCommState(int, DCB)}. */
+	private native boolean SetCommState(int handle, DCB dcb, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public int CreateEventA(int lpEventAttributes, boolean bManualReset, boolean bInitialState, @Nullable String lpName) {
+		return CreateEventA(lpEventAttributes, bManualReset, bInitialState, lpName, lastError());
+	}
+
+	/** Native reference to {@link #CreateEventA(int, boolean, boolean, String)}. */
+	private native int CreateEventA(int lpEventAttributes, boolean bManualReset, boolean bInitialState, @Nullable String lpName, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public boolean WriteFile(int handle, @Nonnull byte[] lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped) {
+		return WriteFile(handle, lpBuffer, nNumberOfBytesToWrite, lpNumberOfBytesWritten, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)}. */
+	private native boolean WriteFile(int handle, @Nonnull byte[] lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean WriteFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped) {
+		return WriteFile(handle, lpBuffer, nNumberOfBytesToWrite, lpNumberOfBytesWritten, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #WriteFile(int, NativeByteArray, int, DWORD, OVERLAPPED)}. */
+	private native boolean WriteFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean WriteFile(int handle, @Nonnull ByteBuffer lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped) {
+		return WriteFile(handle, lpBuffer, lpBuffer.position(), nNumberOfBytesToWrite, lpNumberOfBytesWritten, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #WriteFile(int, ByteBuffer, int, DWORD, OVERLAPPED)}. */
+	private native boolean WriteFile(int handle, @Nonnull ByteBuffer lpBuffer, int offset, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public boolean ReadFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped) {
+		return ReadFile(handle, lpBuffer, nNumberOfBytesToRead, lpNumberOfBytesRead, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #ReadFile(int, NativeByteArray, int, DWORD, OVERLAPPED)}. */
+	private native boolean ReadFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public boolean ReadFile(int handle, @Nonnull ByteBuffer lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped) {
+		return ReadFile(handle, lpBuffer, lpBuffer.position(), nNumberOfBytesToRead, lpNumberOfBytesRead, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #ReadFile(int, ByteBuffer, int, DWORD, OVERLAPPED)}. */
+	private native boolean ReadFile(int handle, @Nonnull ByteBuffer lpBuffer, int offset, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	public int GetLastError() {
+		return lastError().value;
+	}
+
+	/** {@inheritDoc} */
+	public native int MAKELANGID(short usPrimaryLanguage, short usSubLanguage);
+
+	/** {@inheritDoc} */
+	public int FormatMessageA(int dwFlags, Void lpSource, int dwMessageId, int dwLanguageId, @Nonnull byte[] lpBuffer, int nSize, Void arguments) {
+		return FormatMessageA(dwFlags, lpSource, dwMessageId, dwLanguageId, lpBuffer, nSize, arguments, lastError());
+	}
+
+	/** Native reference to {@link #FormatMessageA(int, Void, int, int, byte[], int, Void)}. */
+	private native int FormatMessageA(int dwFlags, Void lpSource, int dwMessageId, int dwLanguageId, @Nonnull byte[] lpBuffer, int nSize, Void arguments, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean GetOverlappedResult(int handle, OVERLAPPED lpOverlapped, DWORD lpNumberOfBytesTransferred, boolean bWait) {
+		return GetOverlappedResult(handle, lpOverlapped, lpNumberOfBytesTransferred, bWait, lastError());
+	}
+
+	/** Native reference to {@link #GetOverlappedResult(int, OVERLAPPED, DWORD, boolean)}. */
+	private native boolean GetOverlappedResult(int handle, OVERLAPPED lpOverlapped, DWORD lpNumberOfBytesTransferred, boolean bWait, INT lastError);
+
+	/** {@inheritDoc} */
+	public int WaitForSingleObject(int hHandle, int dwMilliseconds) {
+		return WaitForSingleObject(hHandle, dwMilliseconds, lastError());
+	}
+
+	/** Native reference to {@link #WaitForSingleObject(int, int)}. */
+	private native int WaitForSingleObject(int hHandle, int dwMilliseconds, INT lastError);
+
+	/** {@inheritDoc} */
+	public int WaitForMultipleObjects(int nCount, @Nonnull int[] lpHandles, boolean bWaitAll, int dwMilliseconds) {
+		return WaitForMultipleObjects(nCount, lpHandles, bWaitAll, dwMilliseconds, lastError());
+	}
+
+	/** Native reference to {@link #WaitForMultipleObjects(int, int[], boolean, int)}. */
+	private native int WaitForMultipleObjects(int nCount, @Nonnull int[] lpHandles, boolean bWaitAll, int dwMilliseconds, INT lastError);
+
+	/** {@inheritDoc} */
+	public native int RegOpenKeyExA(int hKey, String lpSubKey, int ulOptions, int samDesired, HKEY phkResult);
+
+	/** {@inheritDoc} */
+	public native int RegCloseKey(HKEY hKey);
+
+	/** {@inheritDoc} */
+	public native int RegEnumValueA(HKEY hKey, int dwIndex, byte[] lpValueName, INT lpcchValueName, int lpReserved, INT lpType, byte[] lpData, INT lpcbData);
+
+	/** {@inheritDoc} */
+	public native int RegNotifyChangeKeyValue(HKEY hKey, boolean bWatchSubtree, int dwNotifyFilter, int hEvent, boolean fAsynchronous);
+
+	/** {@inheritDoc} */
+	public boolean SetCommMask(int hFile, int dwEvtMask) {
+		return SetCommMask(hFile, dwEvtMask, lastError());
+	}
+
+	/** Native reference to {@link #SetCommMask(int, int)}. */
+	private native boolean SetCommMask(int hFile, int dwEvtMask, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean WaitCommEvent(int hFile, DWORD lpEvtMask, OVERLAPPED lpOverlapped) {
+		return WaitCommEvent(hFile, lpEvtMask, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #WaitCommEvent(int, DWORD, OVERLAPPED)}. */
+	private native boolean WaitCommEvent(int hFile, DWORD lpEvtMask, OVERLAPPED lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean PurgeComm(int hFile, int dwFlags) {
+		return PurgeComm(hFile, dwFlags, lastError());
+	}
+
+	/** Native reference to {@link #PurgeComm(int, int)}. */
+	private native boolean PurgeComm(int hFile, int dwFlags, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean ClearCommError(int hFile, INT lpErrors, COMSTAT lpStat) {
+		return ClearCommError(hFile, lpErrors, lpStat, lastError());
+	}
+
+	/** Native reference to {@link #ClearCommError(int, INT, COMSTAT)}. */
+	private native boolean ClearCommError(int hFile, INT lpErrors, COMSTAT lpStat, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean ResetEvent(int hEvent) {
+		return ResetEvent(hEvent, lastError());
+	}
+
+	/** Native reference to {@link #ResetEvent(int)}. */
+	private native boolean ResetEvent(int hEvent, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean SetCommBreak(int hFile) {
+		return SetCommBreak(hFile, lastError());
+	}
+
+	/** Native reference to {@link #SetCommBreak(int)}. */
+	private native boolean SetCommBreak(int hFile, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean ClearCommBreak(int hFile) {
+		return ClearCommBreak(hFile, lastError());
+	}
+
+	/** Native reference to {@link #ClearCommBreak(int)}. */
+	private native boolean ClearCommBreak(int hFile, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean CancelIo(int hFile) {
+		return CancelIo(hFile, lastError());
+	}
+
+	/** Native reference to {@link #CancelIo(int)}. */
+	private native boolean CancelIo(int hFile, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean SetEvent(int hEvent) {
+		return SetEvent(hEvent, lastError());
+	}
+
+	/** Native reference to {@link #SetEvent(int)}. */
+	private native boolean SetEvent(int hEvent, INT lastError);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public int WaitAndReadFile(int hFile, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nonnull DWORD lpNumberOfBytesRead, @Nonnull DWORD lpEvtMask, @Nonnull INT lpErrors, @Nonnull OVERLAPPED lpOverlapped, int hCancelEvent, boolean bPending, int dwMilliseconds, int dwReadMilliseconds) {
+		return WaitAndReadFile(hFile, lpBuffer, nNumberOfBytesToRead, lpNumberOfBytesRead, lpEvtMask, lpErrors, lpOverlapped, hCancelEvent, bPending, dwMilliseconds, dwReadMilliseconds, lastError());
+	}
+
+	/** Native reference to {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}. */
+	private native int WaitAndReadFile(int hFile, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nonnull DWORD lpNumberOfBytesRead, @Nonnull DWORD lpEvtMask, @Nonnull INT lpErrors, @Nonnull OVERLAPPED lpOverlapped, int hCancelEvent, boolean bPending, int dwMilliseconds, int dwReadMilliseconds, INT lastError);
+
+	/** {@inheritDoc} */
+	public int CreateIoCompletionPort(int FileHandle, int ExistingCompletionPort, int CompletionKey, int NumberOfConcurrentThreads) {
+		return CreateIoCompletionPort(FileHandle, ExistingCompletionPort, CompletionKey, NumberOfConcurrentThreads, lastError());
+	}
+
+	/** Native reference to {@link #CreateIoCompletionPort(int, int, int, int)}. */
+	private native int CreateIoCompletionPort(int FileHandle, int ExistingCompletionPort, int CompletionKey, int NumberOfConcurrentThreads, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean GetQueuedCompletionStatus(int CompletionPort, @Nonnull INT lpNumberOfBytes, @Nonnull INT lpCompletionKey, @Nonnull INT lpOverlapped, int dwMilliseconds) {
+		return GetQueuedCompletionStatus(CompletionPort, lpNumberOfBytes, lpCompletionKey, lpOverlapped, dwMilliseconds, lastError());
+	}
+
+	/** Native reference to {@link #GetQueuedCompletionStatus(int, INT, INT, INT, int)}. */
+	private native boolean GetQueuedCompletionStatus(int CompletionPort, @Nonnull INT lpNumberOfBytes, @Nonnull INT lpCompletionKey, @Nonnull INT lpOverlapped, int dwMilliseconds, INT lastError);
+
+	/** {@inheritDoc} */
+	public boolean PostQueuedCompletionStatus(int CompletionPort, int dwNumberOfBytesTransferred, int dwCompletionKey, int lpOverlapped) {
+		return PostQueuedCompletionStatus(CompletionPort, dwNumberOfBytesTransferred, dwCompletionKey, lpOverlapped, lastError());
+	}
+
+	/** Native reference to {@link #PostQueuedCompletionStatus(int, int, int, int)}. */
+	private native boolean PostQueuedCompletionStatus(int CompletionPort, int dwNumberOfBytesTransferred, int dwCompletionKey, int lpOverlapped, INT lastError);
+
+	/** {@inheritDoc} */
+	public native int malloc(@Nonnegative int size);
+
+	/** {@inheritDoc} */
+	public native void memset(int ptr, int value, int num);
+
+	/** {@inheritDoc} */
+	public native void free(int pointer);
+
+	/** {@inheritDoc} */
+	public native int sizeOf_OVERLAPPED();
+
+	/** {@inheritDoc} */
+	public native int sizeOf_HKEY();
+
+	/** {@inheritDoc} */
+	public native int sizeOf_DWORD();
+
+	/** {@inheritDoc} */
+	public int getNativeVersion() {
+		return nativeVersion;
+	}
+
+	/** Native reference to {@link #getNativeVersion()}. */
+	private native int nativeVersion();
+
+	/** {@inheritDoc} */
+	public native byte[] getByteArray(NativeByteArray nativeByteArray, int length);
+
+	/** {@inheritDoc} */
+	public native void getByteArrayRegion(@Nonnull NativeByteArray nativeByteArray, @Nonnull byte[] data, int offset, int length);
+
+	/** {@inheritDoc} */
+	public native void copyByteArray(@Nonnull NativeByteArray nativeByteArray, int index, @Nonnull byte[] data, int offset, int length);
+
+	/** {@inheritDoc} */
+	@CheckReturnValue
+	public native boolean copyDirectBuffer(@Nonnull NativeByteArray nativeByteArray, int index, @Nonnull ByteBuffer data, int offset, int length);
+
+	/** {@inheritDoc} */
+	public native int getValue_DWORD(@Nonnull DWORD dword);
+
+	/** {@inheritDoc} */
+	public native void setValue_DWORD(@Nonnull DWORD dword, int value);
+
+}
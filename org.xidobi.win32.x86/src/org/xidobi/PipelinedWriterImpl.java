@@ -0,0 +1,457 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.currentTimeMillis;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.WAIT_ABANDONED;
+import static org.xidobi.WinApi.WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+import static org.xidobi.utils.Throwables.newUnsupportedVersionException;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.spi.Writer;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Implementation for write operations, that keeps several overlapped writes in flight.
+ * <p>
+ * In contrast to {@link WriterImpl}, that waits until each write is completed, this writer owns a
+ * ring of slots. Each slot consists of an {@link OVERLAPPED} and a native staging buffer. The data
+ * is copied into the staging buffer of the next slot and <code>WriteFile</code> returns
+ * immediately, so the next write can be issued while the previous ones are still transmitted. A
+ * write only blocks, if the next slot of the ring is still in flight, i.e. the number of
+ * outstanding writes is bounded by the queue depth. Data that doesn't fit into one staging buffer
+ * is split across several slots.
+ * <p>
+ * {@link #flush()} and {@link #close()} block until all outstanding writes are completed. Errors of
+ * an outstanding write are thrown by the {@link #write(byte[])}, {@link #flush()} or
+ * {@link #close()} that waits for the slot.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see WriterImpl
+ */
+public class PipelinedWriterImpl extends IoOperationImpl implements Writer, Flushable {
+
+	/** The default number of writes, that can be in flight at the same time. */
+	public static final int DEFAULT_QUEUE_DEPTH = 4;
+
+	/** The default size of the staging buffer of each slot in bytes. */
+	public static final int DEFAULT_SLOT_SIZE = 4 * 1024;
+
+	/** Write timeout in milliseconds */
+	private int writeTimeout = 2000;
+
+	/** the ring of slots, never <code>null</code> */
+	@Nonnull
+	private final Slot[] slots;
+
+	/** the index of the slot, that is used by the next write */
+	private int next;
+
+	/**
+	 * Creates a new pipelined write operation with the {@link #DEFAULT_QUEUE_DEPTH} and the
+	 * {@link #DEFAULT_SLOT_SIZE}.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 */
+	public PipelinedWriterImpl(	@Nonnull SerialPort port,
+								@Nonnull WinApi os,
+								int handle) {
+		this(port, os, handle, DEFAULT_QUEUE_DEPTH, DEFAULT_SLOT_SIZE);
+	}
+
+	/**
+	 * Creates a new pipelined write operation.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 * @param queueDepth
+	 *            the maximum number of writes, that can be in flight at the same time, must be
+	 *            greater than 0
+	 * @param slotSize
+	 *            the size of the staging buffer of each slot in bytes, must be greater than 0
+	 * @throws UnsupportedOperationException
+	 *             if the native library is older than {@link WinApi#NATIVE_VERSION_2}
+	 */
+	public PipelinedWriterImpl(	@Nonnull SerialPort port,
+								@Nonnull WinApi os,
+								int handle,
+								@Nonnegative int queueDepth,
+								@Nonnegative int slotSize) {
+		super(port, os, handle);
+		slots = new Slot[queueDepth > 0 ? queueDepth : 1];
+		try {
+			if (os.getNativeVersion() < NATIVE_VERSION_2)
+				throw newUnsupportedVersionException(os, "The pipelined writer", NATIVE_VERSION_2);
+			checkArgument(queueDepth > 0, "queueDepth", "Expected a value greater than 0");
+			checkArgument(slotSize > 0, "slotSize", "Expected a value greater than 0");
+
+			// the first slot reuses the overlapped of the super class
+			slots[0] = new Slot(overlapped, numberOfBytesTransferred, new NativeByteArray(os, slotSize));
+			for (int i = 1; i < slots.length; i++)
+				slots[i] = newSlot(slotSize);
+		}
+		catch (RuntimeException e) {
+			closeEvents();
+			dispose();
+			throw e;
+		}
+	}
+
+	/** Creates a new slot with its own overlapped, staging buffer and DWORD. */
+	private Slot newSlot(int slotSize) {
+		OVERLAPPED slotOverlapped = newOverlapped(os);
+		DWORD bytesWritten = null;
+		try {
+			bytesWritten = new DWORD(os);
+			return new Slot(slotOverlapped, bytesWritten, new NativeByteArray(os, slotSize));
+		}
+		catch (RuntimeException e) {
+			os.CloseHandle(slotOverlapped.hEvent);
+			slotOverlapped.dispose();
+			if (bytesWritten != null)
+				bytesWritten.dispose();
+			throw e;
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void write(@Nonnull byte[] data) throws IOException {
+		beginOperation();
+		try {
+			int offset = 0;
+			while (offset < data.length) {
+				Slot slot = nextSlot();
+
+				int length = min(data.length - offset, slot.buffer.size());
+				os.copyByteArray(slot.buffer, 0, data, offset, length);
+				startWrite(slot, length);
+
+				offset += length;
+			}
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void write(@Nonnull ByteBuffer data) throws IOException {
+		write(new ByteBuffer[] { data });
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The buffers are copied one after another into the staging buffers of the slots, so several
+	 * buffers are written by one <code>WriteFile</code> per slot.
+	 */
+	public void write(@Nonnull ByteBuffer[] data) throws IOException {
+		beginOperation();
+		try {
+			long remaining = 0;
+			for (ByteBuffer src : data)
+				remaining += src.remaining();
+
+			while (remaining > 0) {
+				Slot slot = nextSlot();
+
+				int length = (int) min(remaining, slot.buffer.size());
+				WriterImpl.gather(os, slot.buffer, length, data);
+				startWrite(slot, length);
+
+				remaining -= length;
+			}
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/** Returns the next slot of the ring, after its outstanding write was completed. */
+	private Slot nextSlot() throws IOException {
+		Slot slot = slots[next];
+		awaitCompletion(slot);
+		next = (next + 1) % slots.length;
+		return slot;
+	}
+
+	/**
+	 * Blocks until all outstanding writes are completed.
+	 * 
+	 * @throws IOException
+	 *             if an outstanding write failed or timed out
+	 */
+	public void flush() throws IOException {
+		beginOperation();
+		try {
+			// await the slots in the order, the writes were issued
+			for (int i = 0; i < slots.length; i++)
+				awaitCompletion(slots[(next + i) % slots.length]);
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Awaits all outstanding writes first, so the connection doesn't purge the data that is still
+	 * in flight. This writer is closed, even if an outstanding write failed or timed out. In this
+	 * case the first failure is thrown after the remaining slots were awaited.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			drain();
+		}
+		finally {
+			super.close();
+		}
+	}
+
+	/**
+	 * Awaits the outstanding writes of all slots, even if the write of a slot failed.
+	 * 
+	 * @throws IOException
+	 *             the first failure of an outstanding write
+	 */
+	private void drain() throws IOException {
+		beginOperation();
+		try {
+			IOException failure = null;
+			// await the slots in the order, the writes were issued
+			for (int i = 0; i < slots.length; i++) {
+				try {
+					awaitCompletion(slots[(next + i) % slots.length]);
+				}
+				catch (IOException e) {
+					if (failure == null)
+						failure = e;
+				}
+			}
+			if (failure != null)
+				throw failure;
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/** Issues the overlapped write of the given number of bytes of the staging buffer. */
+	private void startWrite(Slot slot, int length) throws IOException {
+		boolean resetEventResult = os.ResetEvent(slot.overlapped.hEvent);
+		if (!resetEventResult)
+			handleNativeError("ResetEvent", os.GetLastError());
+
+		boolean succeed = os.WriteFile(handle, slot.buffer, length, slot.bytesWritten, slot.overlapped);
+		if (succeed) {
+			// the write operation succeeded immediatly
+			verifyBytesWritten("WriteFile", slot.bytesWritten, length);
+			return;
+		}
+
+		int lastError = os.GetLastError();
+		if (lastError != ERROR_IO_PENDING)
+			handleNativeError("WriteFile", lastError);
+
+		slot.length = length;
+		slot.pending = true;
+	}
+
+	/** Waits until the outstanding write of the slot is completed, if there is one. */
+	private void awaitCompletion(Slot slot) throws IOException {
+		if (!slot.pending)
+			return;
+
+		int waitResult = os.WaitForSingleObject(slot.overlapped.hEvent, writeTimeout);
+		switch (waitResult) {
+			case WAIT_OBJECT_0: // IO operation has finished
+				if (!os.GetOverlappedResult(handle, slot.overlapped, slot.bytesWritten, true))
+					handleNativeError("GetOverlappedResult", os.GetLastError());
+
+				slot.pending = false;
+				verifyBytesWritten("GetOverlappedResult", slot.bytesWritten, slot.length);
+				return;
+			case WAIT_TIMEOUT:
+				// I/O operation has timed out
+				throw new IOException("Write operation timed out after " + writeTimeout + " milliseconds!");
+			case WAIT_ABANDONED:
+				throw new NativeCodeException("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
+			case WAIT_FAILED:
+				handleNativeError("WaitForSingleObject", os.GetLastError());
+			default:
+				throw newNativeCodeException(os, "WaitForSingleObject returned unexpected value! Got: " + waitResult, os.GetLastError());
+		}
+	}
+
+	/**
+	 * Verifies that the number of transferred bytes is equal to the data length, that was written.
+	 */
+	private void verifyBytesWritten(String nativeMethodName, DWORD bytesWritten, int length) {
+		if (bytesWritten.getValue() != length)
+			throw new NativeCodeException(nativeMethodName + " returned an unexpected number of transferred bytes! Transferred: " + bytesWritten.getValue() + ", expected: " + length);
+	}
+
+	/**
+	 * Returns the maximum number of writes, that can be in flight at the same time.
+	 * 
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return slots.length;
+	}
+
+	/**
+	 * Returns the number of writes, that were issued but not awaited yet.
+	 * 
+	 * @return the number of outstanding writes
+	 */
+	public int getPendingWrites() {
+		int pendingWrites = 0;
+		for (Slot slot : slots)
+			if (slot != null && slot.pending)
+				pendingWrites++;
+		return pendingWrites;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns <code>true</code>, if the write of any slot is still in flight.
+	 */
+	@Override
+	protected boolean isIoPending() {
+		for (Slot slot : slots)
+			if (slot != null && slot.pending)
+				return true;
+		return false;
+	}
+
+	/** Waits for the events of all slots, whose writes are still in flight. */
+	@Override
+	boolean awaitTermination(int timeout) {
+		if (isDisposed())
+			return !isIoPending();
+
+		long deadline = currentTimeMillis() + timeout;
+		for (Slot slot : slots) {
+			if (!slot.pending)
+				continue;
+			int remaining = (int) max(0, deadline - currentTimeMillis());
+			int waitResult = os.WaitForSingleObject(slot.overlapped.hEvent, remaining);
+			if (waitResult != WAIT_OBJECT_0)
+				return false;
+			slot.pending = false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Closes the events of all slots.
+	 */
+	@Override
+	protected void closeEventHandles() {
+		super.closeEventHandles();
+
+		// the event of the first slot is closed by the super class
+		for (int i = 1; i < slots.length; i++) {
+			boolean closeHandleResult = os.CloseHandle(slots[i].overlapped.hEvent);
+			if (!closeHandleResult)
+				throw newNativeCodeException(os, "CloseHandle failed unexpected!", os.GetLastError());
+		}
+	}
+
+	/** Closes the events of all allocated slots, if the construction failed. */
+	private void closeEvents() {
+		os.CloseHandle(overlapped.hEvent);
+		for (int i = 1; i < slots.length; i++)
+			if (slots[i] != null)
+				os.CloseHandle(slots[i].overlapped.hEvent);
+	}
+
+	@Override
+	protected void disposeInternal() {
+		for (int i = 0; i < slots.length; i++) {
+			Slot slot = slots[i];
+			if (slot == null)
+				continue;
+			slot.buffer.dispose();
+			// the overlapped and the DWORD of the first slot are disposed by the super class
+			if (i == 0)
+				continue;
+			slot.overlapped.dispose();
+			slot.bytesWritten.dispose();
+		}
+	}
+
+	/** A slot of the ring, that holds the resources of one outstanding write. */
+	private static final class Slot {
+
+		/** the overlapped of the write, never <code>null</code> */
+		@Nonnull
+		final OVERLAPPED overlapped;
+		/** receives the number of bytes written, never <code>null</code> */
+		@Nonnull
+		final DWORD bytesWritten;
+		/** the native staging buffer, never <code>null</code> */
+		@Nonnull
+		final NativeByteArray buffer;
+
+		/** the number of bytes of the outstanding write */
+		int length;
+		/** <code>true</code>, if the write was issued but not awaited yet */
+		volatile boolean pending;
+
+		/** Creates a new slot with the given resources. */
+		Slot(	@Nonnull OVERLAPPED overlapped,
+				@Nonnull DWORD bytesWritten,
+				@Nonnull NativeByteArray buffer) {
+			this.overlapped = overlapped;
+			this.bytesWritten = bytesWritten;
+			this.buffer = buffer;
+		}
+	}
+}
@@ -1,241 +1,725 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static java.lang.Thread.interrupted;
-import static org.xidobi.WinApi.ERROR_IO_PENDING;
-import static org.xidobi.WinApi.EV_RXCHAR;
-import static org.xidobi.WinApi.WAIT_ABANDONED;
-import static org.xidobi.WinApi.WAIT_FAILED;
-import static org.xidobi.WinApi.WAIT_OBJECT_0;
-import static org.xidobi.WinApi.WAIT_TIMEOUT;
-import static org.xidobi.utils.Throwables.newNativeCodeException;
-
-import java.io.IOException;
-import java.io.InterruptedIOException;
-
-import javax.annotation.Nonnull;
-
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.spi.Reader;
-import org.xidobi.structs.COMSTAT;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.INT;
-import org.xidobi.structs.NativeByteArray;
-
-/**
- * Implementation for read operations.
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public class ReaderImpl extends IoOperationImpl implements Reader {
-
-	/** Timeout for native <code>ReadFile</code> operation. */
-	private static final int READ_FILE_TIMEOUT = 100;
-
-	/** Read timeout in milliseconds */
-	private int readTimeout = 100;
-
-	/** Buffer for read data */
-	private NativeByteArray readBuffer;
-
-	/** Receives the flags of a communication event */
-	private DWORD eventMask;
-
-	/**
-	 * Creates a new read operation.
-	 * 
-	 * @param port
-	 *            the serial port, must not be <code>null</code>
-	 * @param os
-	 *            the native Win32-API, must not be <code>null</code>
-	 * @param handle
-	 *            the native handle of the serial port
-	 */
-	public ReaderImpl(	SerialPort port,
-						WinApi os,
-						int handle) {
-		super(port, os, handle);
-
-		eventMask = new DWORD(os);
-	}
-
-	/** {@inheritDoc} */
-	@Nonnull
-	public byte[] read() throws IOException {
-		disposeLock.lock();
-		try {
-			checkIfClosedOrDisposed();
-
-			resetOverlappedEventHandle();
-
-			// Repeat until data is available:
-			while (true) {
-
-				// check if the current thread is interrupted
-				if (interrupted())
-					throw new InterruptedIOException("The thread for the read operation is interrupted!");
-
-				// wait for some data to arrive
-				awaitArrivalOfData();
-
-				// how many bytes are available for read?
-				int availableBytes = getAvailableBytes();
-				if (availableBytes == 0)
-					// there is no data available for read
-					continue;
-
-				// now we can read the available data
-				return readAvailableBytes(availableBytes);
-			}
-		}
-		finally {
-			disposeLock.unlock();
-		}
-	}
-
-	/** Blocks until data arrives or an {@link IOException} is thrown. */
-	private void awaitArrivalOfData() throws IOException {
-
-		// reset eventMask
-		eventMask.setValue(0);
-
-		boolean succeed = os.WaitCommEvent(handle, eventMask, overlapped);
-		if (succeed) {
-			// event was signaled immediatly, the input buffer contains data
-			checkEventMask(eventMask);
-			return;
-		}
-
-		int lastError = os.GetLastError();
-		if (lastError != ERROR_IO_PENDING)
-			handleNativeError("WaitCommEvent", lastError);
-
-		// Repeat until some data arrived:
-		while (true) {
-
-			// wait for pending operation to complete
-			int waitResult = os.WaitForSingleObject(overlapped.hEvent, readTimeout);
-
-			switch (waitResult) {
-				case WAIT_OBJECT_0:
-					// wait finished successfull
-					checkEventMask(eventMask);
-					return;
-				case WAIT_TIMEOUT:
-					// operation has timed out
-					continue;
-				case WAIT_ABANDONED:
-					throw new NativeCodeException("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
-				case WAIT_FAILED:
-					handleNativeError("WaitForSingleObject", os.GetLastError());
-				default:
-					throw newNativeCodeException(os, "WaitForSingleObject returned unexpected value! Got: " + waitResult, os.GetLastError());
-			}
-		}
-	}
-
-	/** Returns the number of bytes that are available to read. */
-	private int getAvailableBytes() throws IOException {
-		COMSTAT lpStat = new COMSTAT();
-		INT lpErrors = new INT(0);
-		boolean succeed = os.ClearCommError(handle, lpErrors, lpStat);
-		if (!succeed)
-			handleNativeError("ClearCommError", os.GetLastError());
-		return lpStat.cbInQue;
-	}
-
-	/** Reads and returns the data that is available in the read buffer. */
-	private byte[] readAvailableBytes(int numberOfBytesToRead) throws IOException {
-
-		// create a new read buffer
-		newReadBuffer(numberOfBytesToRead);
-
-		boolean readFileResult = os.ReadFile(handle, readBuffer, numberOfBytesToRead, numberOfBytesTransferred, overlapped);
-		if (readFileResult)
-			// the read operation succeeded immediatly
-			return readBuffer.getByteArray();
-
-		int lastError = os.GetLastError();
-		if (lastError != ERROR_IO_PENDING)
-			handleNativeError("ReadFile", lastError);
-
-		// wait for pending I/O operation to complete
-		int waitResult = os.WaitForSingleObject(overlapped.hEvent, READ_FILE_TIMEOUT);
-		switch (waitResult) {
-			case WAIT_OBJECT_0:
-				// I/O operation has finished
-				boolean overlappedResult = os.GetOverlappedResult(handle, overlapped, numberOfBytesTransferred, true);
-				if (!overlappedResult)
-					handleNativeError("GetOverlappedResult", os.GetLastError());
-
-				// verify that the number of read bytes is equal to the number of available
-				// bytes:
-				int bytesRead = numberOfBytesTransferred.getValue();
-				if (bytesRead != numberOfBytesToRead)
-					throw new NativeCodeException("GetOverlappedResult returned an unexpected number of read bytes! Read: " + bytesRead + ", expected: " + numberOfBytesToRead);
-				return readBuffer.getByteArray();
-			case WAIT_TIMEOUT:
-				// ReadFile has timed out. This should not happen, because we determined that
-				// data is available
-				throw new NativeCodeException("ReadFile timed out after " + READ_FILE_TIMEOUT + " milliseconds!");
-			case WAIT_ABANDONED:
-				throw new NativeCodeException("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
-			case WAIT_FAILED:
-				handleNativeError("WaitForSingleObject", os.GetLastError());
-			default:
-				throw newNativeCodeException(os, "WaitForSingleObject returned unexpected value! Got: " + waitResult, os.GetLastError());
-		}
-	}
-
-	/** Disposes the current buffer and creates a new one. */
-	private void newReadBuffer(int numberOfBytesToRead) {
-		if (readBuffer != null)
-			readBuffer.dispose();
-		readBuffer = new NativeByteArray(os, numberOfBytesToRead);
-	}
-
-	/**
-	 * Throws an {@link IOException}, when the <code>EV_RXCHAR</code> flag in the given
-	 * <code>eventMask</code> is 0.
-	 */
-	private void checkEventMask(DWORD eventMask) throws IOException {
-		int mask = eventMask.getValue();
-		if (mask == 0)
-			throw portClosedException("Read operation failed, because a communication error event was signaled!");
-		// NOTICE: We have to ignore wrong event masks, because some serial port drivers are
-		// signaling events we haven't registered for.
-		if ((mask & EV_RXCHAR) != EV_RXCHAR) {
-			// throw new NativeCodeException("WaitCommEvt was signaled for unexpected event! Got: "
-			// + mask + ", expected: " + EV_RXCHAR);
-			return;
-		}
-	}
-
-	@Override
-	protected void disposeInternal() {
-		//@formatter:off
-		try {
-			eventMask.dispose();
-		} finally {
-			if (readBuffer != null) {
-				readBuffer.dispose();
-		}}
-		//@formatter:on
-	}
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.min;
+import static java.lang.Thread.interrupted;
+import static org.xidobi.WinApi.CE_OVERRUN;
+import static org.xidobi.WinApi.CE_RXOVER;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.EV_RXCHAR;
+import static org.xidobi.WinApi.INFINITE;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.WAIT_ABANDONED;
+import static org.xidobi.WinApi.WAIT_AND_READ_ABANDONED;
+import static org.xidobi.WinApi.WAIT_AND_READ_CANCELED;
+import static org.xidobi.WinApi.WAIT_AND_READ_CLEAR_COMM_ERROR_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_COMM_ERROR;
+import static org.xidobi.WinApi.WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_READ_FILE_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_READ_TIMEOUT;
+import static org.xidobi.WinApi.WAIT_AND_READ_RESET_EVENT_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_SUCCEEDED;
+import static org.xidobi.WinApi.WAIT_AND_READ_TIMEOUT;
+import static org.xidobi.WinApi.WAIT_AND_READ_WAIT_COMM_EVENT_FAILED;
+import static org.xidobi.WinApi.WAIT_AND_READ_WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+import static org.xidobi.utils.Throwables.newIOException;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+import static org.xidobi.utils.Throwables.newUnsupportedVersionException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.spi.AbstractInterruptibleChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.spi.Reader;
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+
+/**
+ * Implementation for read operations.
+ * <p>
+ * A read waits for the arrival of data without a time-out, together with a cancel event. The
+ * cancel event is signaled, when the reader is closed or the reading thread is interrupted, so
+ * an idle port doesn't wake up the reading thread until data arrives. If the native library
+ * doesn't provide <code>WaitForMultipleObjects</code>, the read waits for the arrival of data in
+ * intervals of {@link #READ_TIMEOUT} milliseconds and checks in between, if the reader was closed or
+ * the reading thread was interrupted.
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public class ReaderImpl extends IoOperationImpl implements Reader {
+
+	/** Timeout for native <code>ReadFile</code> operation. */
+	private static final int READ_FILE_TIMEOUT = 100;
+
+	/**
+	 * Interval in milliseconds of the wait for data, if the native library doesn't provide
+	 * <code>WaitForMultipleObjects</code>.
+	 */
+	static final int READ_TIMEOUT = 100;
+
+	/** Buffer for read data, reused for all read operations */
+	@Nonnull
+	private final StagingBuffer stagingBuffer;
+
+	/** Receives the flags of a communication event */
+	private DWORD eventMask;
+
+	/** Handle of the event, that cancels the wait for data when it is signaled */
+	private final int cancelEvent;
+	/** The handles to wait for: the event of the overlapped and the cancel event */
+	private final int[] waitHandles;
+	/** Signals the cancel event, when the reader is closed or the reading thread is interrupted */
+	private final Cancellation cancellation = new Cancellation();
+	/**
+	 * <ul>
+	 * <li> <code>true</code> if the wait for data is canceled by the cancel event
+	 * <li> <code>false</code> if the native library doesn't provide
+	 * <code>WaitForMultipleObjects</code> and the wait is done in intervals
+	 * </ul>
+	 */
+	private final boolean cancelableWait;
+	/**
+	 * <code>true</code> if the native library can read directly into the memory of a direct
+	 * {@link ByteBuffer} and copy the read data directly into the array of a heap buffer
+	 */
+	private final boolean directReads;
+
+	/**
+	 * <ul>
+	 * <li> <code>true</code> if the data is read with the native
+	 * {@link WinApi#WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)
+	 * WaitAndReadFile}
+	 * <li> <code>false</code> if the data is read with separate native calls
+	 * </ul>
+	 */
+	private final boolean fusedRead;
+
+	/** The number of bytes the next fused read should be able to receive */
+	private int nextReadSize;
+
+	/** Receives the error flags of the <code>ClearCommError</code> calls of a fused read */
+	private final INT readErrors = new INT(0);
+
+	/** The number of overruns, that were reported by <code>ClearCommError</code> */
+	private final AtomicLong overrunCount = new AtomicLong();
+
+	/**
+	 * Creates a new read operation, with a staging buffer of the
+	 * {@link StagingBuffer#DEFAULT_MAX_CAPACITY default maximum capacity}.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 */
+	public ReaderImpl(	SerialPort port,
+						WinApi os,
+						int handle) {
+		this(port, os, handle, StagingBuffer.DEFAULT_MAX_CAPACITY, false);
+	}
+
+	/**
+	 * Creates a new read operation with the features of the given options. The staging buffer has
+	 * the {@link StagingBuffer#DEFAULT_MAX_CAPACITY default maximum capacity}, unless the options
+	 * {@link SerialPortOptions#getMaxReadBufferSize() limit the read buffer}.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 * @param options
+	 *            the options of the connection, must not be <code>null</code>
+	 * @throws UnsupportedOperationException
+	 *             if the options {@link SerialPortOptions#isFusingReads() fuse the reads} and the
+	 *             native library is older than {@link WinApi#NATIVE_VERSION_2}
+	 */
+	public ReaderImpl(	SerialPort port,
+						WinApi os,
+						int handle,
+						@Nonnull SerialPortOptions options) {
+		this(port, os, handle, getMaxReadBufferSize(options), isFusingReads(os, options));
+	}
+
+	/**
+	 * Creates a new read operation.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 * @param maxReadBufferSize
+	 *            the maximum size of the staging buffer in bytes, must be greater than 0. A single
+	 *            read returns not more than this number of bytes.
+	 * @param fusedRead
+	 *            <code>true</code> to wait for and read the data with a single native call to
+	 *            {@link WinApi#WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)
+	 *            WaitAndReadFile}, <code>false</code> to use separate native calls for each step.
+	 *            Reads into direct buffers are always done with separate native calls.
+	 */
+	private ReaderImpl(	SerialPort port,
+						WinApi os,
+						int handle,
+						int maxReadBufferSize,
+						boolean fusedRead) {
+		super(port, os, handle);
+
+		cancelEvent = newCancelEvent(os);
+		waitHandles = new int[] { overlapped.hEvent, cancelEvent };
+		cancelableWait = os.getNativeVersion() >= NATIVE_VERSION_2;
+		directReads = os.getNativeVersion() >= NATIVE_VERSION_2;
+		stagingBuffer = new StagingBuffer(os, maxReadBufferSize);
+		eventMask = new DWORD(os);
+		this.fusedRead = fusedRead;
+		nextReadSize = stagingBuffer.limit(StagingBuffer.MIN_CAPACITY);
+	}
+
+	/**
+	 * Returns the maximum size of the staging buffer, that is specified by the given options, or
+	 * the {@link StagingBuffer#DEFAULT_MAX_CAPACITY default maximum capacity}.
+	 */
+	private static int getMaxReadBufferSize(SerialPortOptions options) {
+		checkArgumentNotNull(options, "options");
+		if (options.getMaxReadBufferSize() > 0)
+			return options.getMaxReadBufferSize();
+		return StagingBuffer.DEFAULT_MAX_CAPACITY;
+	}
+
+	/**
+	 * Returns <code>true</code>, if the given options fuse the reads. Throws an
+	 * {@link UnsupportedOperationException}, if the native library doesn't provide
+	 * <code>WaitAndReadFile</code>. The check is done before any native resources are allocated.
+	 */
+	private static boolean isFusingReads(WinApi os, SerialPortOptions options) {
+		checkArgumentNotNull(os, "os");
+		checkArgumentNotNull(options, "options");
+		if (options.isFusingReads() && os.getNativeVersion() < NATIVE_VERSION_2)
+			throw newUnsupportedVersionException(os, "The fused read", NATIVE_VERSION_2);
+		return options.isFusingReads();
+	}
+
+	/** Creates a new manual-reset event, that is initially not signaled. */
+	private static int newCancelEvent(WinApi os) {
+		int cancelEvent = os.CreateEventA(0, true, false, null);
+		if (cancelEvent == 0)
+			throw newNativeCodeException(os, "Create cancel event failed!", os.GetLastError());
+		return cancelEvent;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public byte[] read() throws IOException {
+		beginOperation();
+		try {
+			if (fusedRead) {
+				NativeByteArray readBuffer = stagingBuffer.get(min(nextReadSize, stagingBuffer.getMaxCapacity()));
+				return readBuffer.getByteArray(waitAndRead(readBuffer, min(readBuffer.size(), stagingBuffer.getMaxCapacity())));
+			}
+
+			// read not more than the staging buffer can take, the rest remains in the input buffer
+			int numberOfBytesToRead = stagingBuffer.limit(awaitAvailableBytes());
+
+			NativeByteArray readBuffer = stagingBuffer.get(numberOfBytesToRead);
+
+			boolean readFileResult = os.ReadFile(handle, readBuffer, numberOfBytesToRead, numberOfBytesTransferred, overlapped);
+			awaitReadCompletion(readFileResult, numberOfBytesToRead);
+
+			return readBuffer.getByteArray(numberOfBytesToRead);
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the given buffer is a direct buffer, <code>ReadFile</code> writes the data directly into
+	 * the memory of the buffer. Otherwise, or if the native library doesn't support this, the data
+	 * is read into a native buffer first and copied into the given buffer afterwards. If the
+	 * buffer is backed by an array, the data is copied directly into the array, without an
+	 * intermediate byte array.
+	 */
+	public int read(@Nonnull ByteBuffer dst) throws IOException {
+		beginOperation();
+		try {
+			if (fusedRead && !dst.isDirect()) {
+				NativeByteArray readBuffer = stagingBuffer.get(min(nextReadSize, dst.remaining()));
+				int bytesRead = waitAndRead(readBuffer, min(readBuffer.size(), dst.remaining()));
+				copyTo(dst, readBuffer, bytesRead);
+				return bytesRead;
+			}
+
+			int availableBytes = awaitAvailableBytes();
+
+			// read not more than the buffer can take, the rest remains in the input buffer
+			int numberOfBytesToRead = min(availableBytes, dst.remaining());
+
+			if (dst.isDirect() && directReads) {
+				boolean readFileResult = os.ReadFile(handle, dst, numberOfBytesToRead, numberOfBytesTransferred, overlapped);
+				awaitReadCompletion(readFileResult, numberOfBytesToRead);
+
+				dst.position(dst.position() + numberOfBytesToRead);
+				return numberOfBytesToRead;
+			}
+
+			numberOfBytesToRead = stagingBuffer.limit(numberOfBytesToRead);
+			NativeByteArray readBuffer = stagingBuffer.get(numberOfBytesToRead);
+
+			boolean readFileResult = os.ReadFile(handle, readBuffer, numberOfBytesToRead, numberOfBytesTransferred, overlapped);
+			awaitReadCompletion(readFileResult, numberOfBytesToRead);
+
+			copyTo(dst, readBuffer, numberOfBytesToRead);
+			return numberOfBytesToRead;
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * Copies the given number of bytes from the read buffer into the given buffer. If the native
+	 * library supports it, the bytes are copied directly into the array of the buffer, otherwise
+	 * via an intermediate byte array.
+	 */
+	private void copyTo(ByteBuffer dst, NativeByteArray readBuffer, int length) {
+		if (directReads && dst.hasArray()) {
+			os.getByteArrayRegion(readBuffer, dst.array(), dst.arrayOffset() + dst.position(), length);
+			dst.position(dst.position() + length);
+		}
+		else
+			dst.put(readBuffer.getByteArray(length));
+	}
+
+	/**
+	 * Waits for data and reads not more than the given number of bytes into the given buffer of
+	 * the staging buffer, with a single native call. Returns the number of read bytes, at least
+	 * one.
+	 */
+	private int waitAndRead(NativeByteArray readBuffer, int numberOfBytesToRead) throws IOException {
+
+		// is a WaitCommEvent operation of a previous call pending?
+		boolean pending = false;
+
+		// Repeat until data was read:
+		while (true) {
+
+			// check if the current thread is interrupted
+			if (interrupted())
+				throw new InterruptedIOException("The thread for the read operation is interrupted!");
+
+			int result = waitAndReadFile(readBuffer, numberOfBytesToRead, pending);
+			switch (result) {
+				case WAIT_AND_READ_SUCCEEDED:
+					ioCompleted();
+					int bytesRead = numberOfBytesTransferred.getValue();
+					// if the buffer was filled completely, the next read should receive more bytes
+					if (bytesRead == readBuffer.size())
+						nextReadSize = stagingBuffer.limit(2 * bytesRead);
+					else
+						nextReadSize = bytesRead;
+					return bytesRead;
+				case WAIT_AND_READ_TIMEOUT:
+					// no data arrived, the WaitCommEvent operation is still pending
+					pending = true;
+					continue;
+				default:
+					handleWaitAndReadError(result);
+			}
+		}
+	}
+
+	/**
+	 * Calls <code>WaitAndReadFile</code>, that waits for data without a time-out, until the cancel
+	 * event is signaled.
+	 */
+	private int waitAndReadFile(NativeByteArray readBuffer, int numberOfBytesToRead, boolean pending) throws IOException {
+		boolean completed = false;
+		// the result doesn't tell, if an operation is left pending, so we assume that it is
+		ioPending();
+		cancellation.beginWait();
+		try {
+			readErrors.value = 0;
+			int result = os.WaitAndReadFile(handle, readBuffer, numberOfBytesToRead, numberOfBytesTransferred, eventMask, readErrors, overlapped, cancelEvent, pending, INFINITE, READ_FILE_TIMEOUT);
+			completed = result != WAIT_AND_READ_CANCELED;
+			countOverruns(readErrors.value);
+			return result;
+		}
+		finally {
+			cancellation.endWait(completed);
+		}
+	}
+
+	/** Throws an exception for the given error result of <code>WaitAndReadFile</code>. */
+	private void handleWaitAndReadError(int result) throws IOException {
+		switch (result) {
+			case WAIT_AND_READ_CANCELED:
+				throw portClosedException("Read operation has been canceled.");
+			case WAIT_AND_READ_COMM_ERROR:
+				throw portClosedException("Read operation failed, because a communication error event was signaled!");
+			case WAIT_AND_READ_ABANDONED:
+				throw new NativeCodeException("WaitAndReadFile returned an unexpected value: WAIT_AND_READ_ABANDONED!");
+			case WAIT_AND_READ_READ_TIMEOUT:
+				throw new NativeCodeException("ReadFile timed out after " + READ_FILE_TIMEOUT + " milliseconds!");
+			case WAIT_AND_READ_RESET_EVENT_FAILED:
+				handleNativeError("ResetEvent", os.GetLastError());
+				break;
+			case WAIT_AND_READ_WAIT_COMM_EVENT_FAILED:
+				handleNativeError("WaitCommEvent", os.GetLastError());
+				break;
+			case WAIT_AND_READ_WAIT_FAILED:
+				handleNativeError("WaitForMultipleObjects", os.GetLastError());
+				break;
+			case WAIT_AND_READ_CLEAR_COMM_ERROR_FAILED:
+				handleNativeError("ClearCommError", os.GetLastError());
+				break;
+			case WAIT_AND_READ_READ_FILE_FAILED:
+				handleNativeError("ReadFile", os.GetLastError());
+				break;
+			case WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED:
+				handleNativeError("GetOverlappedResult", os.GetLastError());
+				break;
+		}
+		throw new NativeCodeException("WaitAndReadFile returned an unexpected value! Got: " + result);
+	}
+
+	/**
+	 * Blocks until data is available to read and returns the number of available bytes, that is
+	 * always greater than 0.
+	 */
+	private int awaitAvailableBytes() throws IOException {
+		resetOverlappedEventHandle();
+
+		// Repeat until data is available:
+		while (true) {
+
+			// check if the current thread is interrupted
+			if (interrupted())
+				throw new InterruptedIOException("The thread for the read operation is interrupted!");
+
+			// wait for some data to arrive
+			awaitArrivalOfData();
+
+			// how many bytes are available for read?
+			int availableBytes = getAvailableBytes();
+			if (availableBytes == 0)
+				// there is no data available for read
+				continue;
+
+			return availableBytes;
+		}
+	}
+
+	/** Blocks until data arrives or an {@link IOException} is thrown. */
+	private void awaitArrivalOfData() throws IOException {
+
+		// reset eventMask
+		eventMask.setValue(0);
+
+		boolean succeed = os.WaitCommEvent(handle, eventMask, overlapped);
+		if (succeed) {
+			// event was signaled immediatly, the input buffer contains data
+			checkEventMask(eventMask);
+			return;
+		}
+
+		int lastError = os.GetLastError();
+		if (lastError != ERROR_IO_PENDING)
+			handleNativeError("WaitCommEvent", lastError);
+		ioPending();
+
+		// Repeat until some data arrived:
+		while (true) {
+
+			// wait for pending operation to complete or to be canceled
+			int waitResult = awaitOverlappedOrCancelEvent();
+			String waitFunction = cancelableWait ? "WaitForMultipleObjects" : "WaitForSingleObject";
+
+			switch (waitResult) {
+				case WAIT_OBJECT_0:
+					// wait finished successfull
+					ioCompleted();
+					checkEventMask(eventMask);
+					return;
+				case WAIT_OBJECT_0 + 1:
+					// the cancel event was signaled or the reader was closed
+					throw portClosedException("Read operation has been canceled.");
+				case WAIT_TIMEOUT:
+					// operation has timed out
+					continue;
+				case WAIT_ABANDONED:
+				case WAIT_ABANDONED + 1:
+					throw new NativeCodeException(waitFunction + " returned an unexpected value: WAIT_ABANDONED!");
+				case WAIT_FAILED:
+					handleNativeError(waitFunction, os.GetLastError());
+				default:
+					throw newNativeCodeException(os, waitFunction + " returned unexpected value! Got: " + waitResult, os.GetLastError());
+			}
+		}
+	}
+
+	/**
+	 * Waits without a time-out until the event of the overlapped or the cancel event is signaled
+	 * and returns the result of <code>WaitForMultipleObjects</code>.
+	 */
+	private int awaitOverlappedOrCancelEvent() throws IOException {
+		if (!cancelableWait)
+			return awaitOverlappedEvent();
+
+		boolean completed = false;
+		cancellation.beginWait();
+		try {
+			int waitResult = os.WaitForMultipleObjects(waitHandles.length, waitHandles, false, INFINITE);
+			completed = waitResult != WAIT_OBJECT_0 + 1;
+			return waitResult;
+		}
+		finally {
+			cancellation.endWait(completed);
+		}
+	}
+
+	/**
+	 * Waits in intervals of {@link #READ_TIMEOUT} milliseconds until the event of the overlapped is
+	 * signaled and returns the result of <code>WaitForSingleObject</code>. Returns
+	 * <code>WAIT_OBJECT_0 + 1</code> like a signaled cancel event, if this reader was closed in the
+	 * meantime.
+	 */
+	private int awaitOverlappedEvent() throws IOException {
+		while (true) {
+			int waitResult = os.WaitForSingleObject(overlapped.hEvent, READ_TIMEOUT);
+			if (waitResult != WAIT_TIMEOUT)
+				return waitResult;
+			if (isClosed())
+				return WAIT_OBJECT_0 + 1;
+			if (interrupted())
+				throw new InterruptedIOException("The thread for the read operation is interrupted!");
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns the number of bytes in the input buffer of the port, see <code>COMSTAT.cbInQue</code>.
+	 * This method doesn't wait for a read operation in progress, because it uses no shared
+	 * resources.
+	 */
+	public int available() throws IOException {
+		checkIfClosedOrDisposed();
+		return getAvailableBytes();
+	}
+
+	/**
+	 * Returns the number of bytes that are available to read. Counts the overruns, that are
+	 * reported by the driver.
+	 */
+	private int getAvailableBytes() throws IOException {
+		COMSTAT lpStat = new COMSTAT();
+		INT lpErrors = new INT(0);
+		boolean succeed = os.ClearCommError(handle, lpErrors, lpStat);
+		if (!succeed)
+			handleNativeError("ClearCommError", os.GetLastError());
+		countOverruns(lpErrors.value);
+		return lpStat.cbInQue;
+	}
+
+	/** Counts an overrun, if the given error flags of <code>ClearCommError</code> report one. */
+	private void countOverruns(int errors) {
+		if ((errors & (CE_OVERRUN | CE_RXOVER)) != 0)
+			overrunCount.incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of times, the driver reported that received data was lost, because the
+	 * input buffer of the driver or the UART was full (<code>CE_RXOVER</code> or
+	 * <code>CE_OVERRUN</code>). The errors are reported by <code>ClearCommError</code>, that is
+	 * called by every read and by {@link #available()}. A fused read counts the errors of all its
+	 * native <code>ClearCommError</code> calls as one overrun.
+	 * 
+	 * @return the number of reported overruns
+	 */
+	public long getOverrunCount() {
+		return overrunCount.get();
+	}
+
+	/**
+	 * Blocks until the <code>ReadFile</code> operation, that returned the given result, has read
+	 * the expected number of bytes.
+	 */
+	private void awaitReadCompletion(boolean readFileResult, int numberOfBytesToRead) throws IOException {
+		if (readFileResult)
+			// the read operation succeeded immediatly
+			return;
+
+		int lastError = os.GetLastError();
+		if (lastError != ERROR_IO_PENDING)
+			handleNativeError("ReadFile", lastError);
+		ioPending();
+
+		// wait for pending I/O operation to complete
+		int waitResult = os.WaitForSingleObject(overlapped.hEvent, READ_FILE_TIMEOUT);
+		switch (waitResult) {
+			case WAIT_OBJECT_0:
+				// I/O operation has finished
+				ioCompleted();
+				boolean overlappedResult = os.GetOverlappedResult(handle, overlapped, numberOfBytesTransferred, true);
+				if (!overlappedResult)
+					handleNativeError("GetOverlappedResult", os.GetLastError());
+
+				// verify that the number of read bytes is equal to the number of available
+				// bytes:
+				int bytesRead = numberOfBytesTransferred.getValue();
+				if (bytesRead != numberOfBytesToRead)
+					throw new NativeCodeException("GetOverlappedResult returned an unexpected number of read bytes! Read: " + bytesRead + ", expected: " + numberOfBytesToRead);
+				return;
+			case WAIT_TIMEOUT:
+				// ReadFile has timed out. This should not happen, because we determined that
+				// data is available
+				throw new NativeCodeException("ReadFile timed out after " + READ_FILE_TIMEOUT + " milliseconds!");
+			case WAIT_ABANDONED:
+				throw new NativeCodeException("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
+			case WAIT_FAILED:
+				handleNativeError("WaitForSingleObject", os.GetLastError());
+			default:
+				throw newNativeCodeException(os, "WaitForSingleObject returned unexpected value! Got: " + waitResult, os.GetLastError());
+		}
+	}
+
+	/**
+	 * Returns the buffer that is used to receive the data. The buffer provides statistics about its
+	 * growth, e.g. {@link StagingBuffer#getGrowCount()}.
+	 * 
+	 * @return the staging buffer, never <code>null</code>
+	 */
+	@Nonnull
+	public StagingBuffer getStagingBuffer() {
+		return stagingBuffer;
+	}
+
+	/**
+	 * Throws an {@link IOException}, when the <code>EV_RXCHAR</code> flag in the given
+	 * <code>eventMask</code> is 0.
+	 */
+	private void checkEventMask(DWORD eventMask) throws IOException {
+		int mask = eventMask.getValue();
+		if (mask == 0)
+			throw portClosedException("Read operation failed, because a communication error event was signaled!");
+		// NOTICE: We have to ignore wrong event masks, because some serial port drivers are
+		// signaling events we haven't registered for.
+		if ((mask & EV_RXCHAR) != EV_RXCHAR) {
+			// throw new NativeCodeException("WaitCommEvt was signaled for unexpected event! Got: "
+			// + mask + ", expected: " + EV_RXCHAR);
+			return;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The cancel event is signaled first, so that a pending wait for data returns immediately. This
+	 * method doesn't block until the read operation has returned, its resources are released when
+	 * it ends.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			cancellation.close();
+		}
+		finally {
+			super.close();
+		}
+	}
+
+	@Override
+	protected void disposeInternal() {
+		//@formatter:off
+		try {
+			eventMask.dispose();
+		} finally { try {
+			stagingBuffer.dispose();
+		} finally {
+			closeCancelEvent();
+		}}
+		//@formatter:on
+	}
+
+	/** Closes the handle of the cancel event. */
+	private void closeCancelEvent() {
+		boolean closeHandleResult = os.CloseHandle(cancelEvent);
+		if (!closeHandleResult)
+			throw newNativeCodeException(os, "CloseHandle failed unexpected!", os.GetLastError());
+	}
+
+	/**
+	 * Connects the cancel event with the interruption of the reading thread. The cancel event is
+	 * signaled, when this channel is closed. This is the case, when the reader is closed or the
+	 * thread, that waits between {@link #beginWait()} and {@link #endWait(boolean)}, is
+	 * interrupted.
+	 */
+	private final class Cancellation extends AbstractInterruptibleChannel {
+
+		/** Marks the beginning of a wait, that is canceled if the current thread is interrupted. */
+		void beginWait() {
+			begin();
+		}
+
+		/**
+		 * Marks the end of a wait. Throws an {@link InterruptedIOException}, if the wait was
+		 * canceled because the thread was interrupted, or an {@link IOException} if the wait was
+		 * canceled because the reader was closed.
+		 */
+		void endWait(boolean completed) throws IOException {
+			try {
+				end(completed);
+			}
+			catch (ClosedByInterruptException e) {
+				// clear the interrupted status, like the check before every wait does
+				interrupted();
+				throw new InterruptedIOException("The thread for the read operation is interrupted!");
+			}
+			catch (AsynchronousCloseException e) {
+				throw portClosedException("Read operation has been canceled.");
+			}
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			boolean setEventResult = os.SetEvent(cancelEvent);
+			if (!setEventResult)
+				throw newIOException(os, "SetEvent failed unexpected!", os.GetLastError());
+		}
+	}
+
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.spi.Reader;
+
+/**
+ * A {@link Reader} that drains the input buffer of the driver continuously by a background thread
+ * into a large ring buffer, in order to prevent overruns of the driver, when the application
+ * doesn't read fast enough for a while.
+ * <p>
+ * The ring buffer is a direct buffer, the background thread reads the data with the
+ * {@link ReaderImpl} directly into its free region, so the data is copied only once, when it is
+ * taken by {@link #read()} or {@link #read(ByteBuffer)}. If the ring buffer is full, the
+ * background thread stalls until the data is read.
+ * <p>
+ * If a read of the background thread fails, the failure is thrown by the next read, after all
+ * received data was read.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialPortOptions.SerialPortOptionsBuilder#pumpReceivedData(int)
+ */
+public class ReceivePump implements Reader {
+
+	/** the serial port, never <code>null</code> */
+	@Nonnull
+	private final SerialPort port;
+	/** the reader, that drains the input buffer of the driver, never <code>null</code> */
+	@Nonnull
+	private final ReaderImpl reader;
+
+	/** the ring buffer, never <code>null</code> */
+	@Nonnull
+	private final ByteBuffer ring;
+	/** the view of the ring buffer, that is used to take the received data */
+	@Nonnull
+	private final ByteBuffer readView;
+	/** the capacity of the ring buffer in bytes */
+	private final int capacity;
+
+	/** guards the state of this pump */
+	private final Lock lock = new ReentrantLock();
+	/** signaled, when data was received, a read failed or the pump was closed */
+	private final Condition dataAvailable = lock.newCondition();
+	/** signaled, when data was taken from the ring buffer or the pump was closed */
+	private final Condition spaceAvailable = lock.newCondition();
+
+	/** the total number of bytes, that were received into the ring buffer */
+	private long written;
+	/** the total number of bytes, that were taken from the ring buffer */
+	private long consumed;
+
+	/** the failure of the background thread, <code>null</code> if none occurred */
+	private Exception failure;
+	/** <code>true</code>, if this pump was closed */
+	private boolean isClosed;
+
+	/** the largest number of bytes, that were buffered at the same time */
+	private int highWaterMark;
+	/** the number of times the background thread stalled, because the ring buffer was full */
+	private long stallCount;
+
+	/**
+	 * Creates a new receive pump and starts the background thread.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param reader
+	 *            the reader, that drains the input buffer of the driver, must not be
+	 *            <code>null</code>
+	 * @param capacity
+	 *            the capacity of the ring buffer in bytes, must be greater than 0
+	 */
+	public ReceivePump(	@Nonnull SerialPort port,
+						@Nonnull ReaderImpl reader,
+						@Nonnegative int capacity) {
+		this.port = checkArgumentNotNull(port, "port");
+		this.reader = checkArgumentNotNull(reader, "reader");
+		checkArgument(capacity > 0, "capacity", "Expected a value greater than 0");
+		this.capacity = capacity;
+		ring = ByteBuffer.allocateDirect(capacity);
+		readView = ring.duplicate();
+
+		Thread pump = new Thread(new Pump(), "xidobi receive pump");
+		pump.setDaemon(true);
+		pump.start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns all bytes, that are currently buffered.
+	 */
+	@Nonnull
+	public byte[] read() throws IOException {
+		lock.lock();
+		try {
+			int length = awaitData();
+			byte[] data = new byte[length];
+			int offset = offset(consumed);
+			int first = min(length, capacity - offset);
+			readView.clear();
+			readView.position(offset);
+			readView.get(data, 0, first);
+			if (length > first) {
+				readView.position(0);
+				readView.get(data, first, length - first);
+			}
+			take(length);
+			return data;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Transfers not more buffered bytes than the given buffer can take.
+	 */
+	public int read(@Nonnull ByteBuffer dst) throws IOException {
+		lock.lock();
+		try {
+			int length = min(awaitData(), dst.remaining());
+			int offset = offset(consumed);
+			int first = min(length, capacity - offset);
+			readView.clear();
+			readView.position(offset);
+			readView.limit(offset + first);
+			dst.put(readView);
+			if (length > first) {
+				readView.clear();
+				readView.limit(length - first);
+				dst.put(readView);
+			}
+			take(length);
+			return length;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns the number of buffered bytes.
+	 */
+	public int available() throws IOException {
+		return getBufferedBytes();
+	}
+
+	/**
+	 * Blocks until data is buffered and returns the number of buffered bytes. Must be called
+	 * while holding the lock.
+	 */
+	private int awaitData() throws IOException {
+		while (written == consumed) {
+			if (failure instanceof IOException)
+				throw (IOException) failure;
+			if (failure instanceof RuntimeException)
+				throw (RuntimeException) failure;
+			if (isClosed)
+				throw new IOException("Port " + port.getPortName() + " was closed!");
+			try {
+				dataAvailable.await();
+			}
+			catch (InterruptedException e) {
+				throw new InterruptedIOException("The thread for the read operation is interrupted!");
+			}
+		}
+		return (int) (written - consumed);
+	}
+
+	/** Releases the given number of bytes. Must be called while holding the lock. */
+	private void take(int length) {
+		consumed += length;
+		spaceAvailable.signal();
+	}
+
+	/** Returns the offset in the ring buffer for the given total number of bytes. */
+	private int offset(long position) {
+		return (int) (position % capacity);
+	}
+
+	/**
+	 * Closes the reader, the background thread terminates. Blocked reads throw an
+	 * {@link IOException}.
+	 */
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			isClosed = true;
+			dataAvailable.signalAll();
+			spaceAvailable.signalAll();
+		}
+		finally {
+			lock.unlock();
+			reader.close();
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void dispose() {
+		reader.dispose();
+	}
+
+	/**
+	 * Returns the capacity of the ring buffer.
+	 * 
+	 * @return the capacity in bytes
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of bytes, that are currently buffered.
+	 * 
+	 * @return the number of buffered bytes
+	 */
+	public int getBufferedBytes() {
+		lock.lock();
+		try {
+			return (int) (written - consumed);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the largest number of bytes, that were buffered at the same time. If it reaches the
+	 * capacity, the ring buffer was full and the driver had to buffer the received data alone.
+	 * 
+	 * @return the high-water mark in bytes
+	 */
+	public int getHighWaterMark() {
+		lock.lock();
+		try {
+			return highWaterMark;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of times the background thread stalled, because the ring buffer was
+	 * full.
+	 * 
+	 * @return the number of stalls
+	 */
+	public long getStallCount() {
+		lock.lock();
+		try {
+			return stallCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of overruns, that were reported by the driver, see
+	 * {@link ReaderImpl#getOverrunCount()}.
+	 * 
+	 * @return the number of reported overruns
+	 */
+	public long getOverrunCount() {
+		return reader.getOverrunCount();
+	}
+
+	/** Reads the received data into the ring buffer, until the pump is closed or a read fails. */
+	private final class Pump implements Runnable {
+
+		/** the view of the ring buffer, that is used to receive the data */
+		@Nonnull
+		private final ByteBuffer pumpView = ring.duplicate();
+
+		public void run() {
+			try {
+				while (awaitSpace()) {
+					int length = reader.read(pumpView);
+					received(length);
+				}
+			}
+			catch (IOException e) {
+				fail(e);
+			}
+			catch (RuntimeException e) {
+				fail(e);
+			}
+		}
+
+		/**
+		 * Blocks until the ring buffer has free space and limits the view to the contiguous free
+		 * region. Returns <code>false</code>, if the pump was closed.
+		 */
+		private boolean awaitSpace() {
+			lock.lock();
+			try {
+				if (!isClosed && written - consumed == capacity) {
+					stallCount++;
+					while (!isClosed && written - consumed == capacity)
+						spaceAvailable.awaitUninterruptibly();
+				}
+				if (isClosed)
+					return false;
+
+				int offset = offset(written);
+				int free = capacity - (int) (written - consumed);
+				pumpView.clear();
+				pumpView.position(offset);
+				pumpView.limit(offset + min(free, capacity - offset));
+				return true;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		/** Publishes the given number of received bytes. */
+		private void received(int length) {
+			lock.lock();
+			try {
+				written += length;
+				highWaterMark = max(highWaterMark, (int) (written - consumed));
+				dataAvailable.signal();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		/** Stores the failure, it is thrown by the next read after all data was read. */
+		private void fail(Exception e) {
+			lock.lock();
+			try {
+				failure = e;
+				dataAvailable.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+}
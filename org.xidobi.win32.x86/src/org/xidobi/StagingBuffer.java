@@ -0,0 +1,222 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.structs.NativeByteArray;
+
+/**
+ * A native buffer that is reused for all I/O operations of one direction, instead of allocating a
+ * new {@link NativeByteArray} for every operation. The {@link ReaderImpl} reads the received data
+ * into it, the {@link WriterImpl} copies the data to write into it.
+ * <p>
+ * The buffer grows on demand to the next power of two of the requested size, but never beyond the
+ * maximum capacity. After a burst the buffer is shrunk again, if a number of consecutive
+ * operations used only a quarter of the capacity.
+ * <p>
+ * This class is not thread-safe, the caller must ensure that only one I/O operation uses the
+ * buffer at a time.
+ * 
+ * @author Tobias Breßler
+ */
+public class StagingBuffer {
+
+	/** The default maximum capacity of the buffer in bytes. */
+	public static final int DEFAULT_MAX_CAPACITY = 64 * 1024;
+
+	/** The minimum capacity of the buffer in bytes. */
+	public static final int MIN_CAPACITY = 64;
+
+	/** The number of consecutive small operations, after that the buffer is shrunk. */
+	public static final int SHRINK_THRESHOLD = 256;
+
+	/** the native Win32-API, never <code>null</code> */
+	@Nonnull
+	private final WinApi os;
+
+	/** the maximum capacity in bytes */
+	private final int maxCapacity;
+
+	/** the current buffer, <code>null</code> if no memory was allocated yet */
+	private NativeByteArray buffer;
+
+	/** the number of consecutive operations, that used not more than a quarter of the capacity */
+	private int smallOperations;
+	/** the largest number of bytes used during the current sequence of small operations */
+	private int smallPeak;
+
+	/** the number of times the buffer was grown */
+	private int growCount;
+	/** the number of times the buffer was shrunk */
+	private int shrinkCount;
+
+	/**
+	 * Creates a new staging buffer with the {@link #DEFAULT_MAX_CAPACITY}. No memory is allocated
+	 * until the first call to {@link #get(int)}.
+	 * 
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 */
+	public StagingBuffer(@Nonnull WinApi os) {
+		this(os, DEFAULT_MAX_CAPACITY);
+	}
+
+	/**
+	 * Creates a new staging buffer. No memory is allocated until the first call to
+	 * {@link #get(int)}.
+	 * 
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param maxCapacity
+	 *            the maximum capacity of the buffer in bytes, must be greater than 0
+	 */
+	public StagingBuffer(	@Nonnull WinApi os,
+							@Nonnegative int maxCapacity) {
+		this.os = checkArgumentNotNull(os, "os");
+		checkArgument(maxCapacity > 0, "maxCapacity", "Expected a value greater than 0");
+		this.maxCapacity = maxCapacity;
+	}
+
+	/**
+	 * Returns the number of bytes that fit into the buffer for one I/O operation, this is the given
+	 * number limited to the maximum capacity.
+	 * 
+	 * @param numberOfBytes
+	 *            the number of requested bytes
+	 * @return the number of bytes that fit into this buffer
+	 */
+	public int limit(int numberOfBytes) {
+		return min(numberOfBytes, maxCapacity);
+	}
+
+	/**
+	 * Returns the native buffer for an I/O operation of the given number of bytes. The buffer is
+	 * grown, if the current capacity is to small, or shrunk if the shrink policy applies.
+	 * <p>
+	 * <b>IMPORTANT:</b> The returned instance is only valid until the next call of this method
+	 * or {@link #dispose()}!
+	 * 
+	 * @param numberOfBytes
+	 *            the number of bytes to transfer, must be greater than 0 and not greater than the
+	 *            maximum capacity
+	 * @return the native buffer, never <code>null</code>
+	 */
+	@Nonnull
+	public NativeByteArray get(int numberOfBytes) {
+		checkArgument(numberOfBytes > 0, "numberOfBytes", "Expected a value greater than 0");
+		checkArgument(numberOfBytes <= maxCapacity, "numberOfBytes", "Expected a value lesser than or equal to the maximum capacity");
+
+		if (buffer == null || buffer.size() < numberOfBytes) {
+			reallocate(numberOfBytes);
+			growCount++;
+			resetShrinkPolicy();
+			return buffer;
+		}
+
+		if (numberOfBytes > buffer.size() / 4) {
+			resetShrinkPolicy();
+			return buffer;
+		}
+
+		smallOperations++;
+		smallPeak = max(smallPeak, numberOfBytes);
+		if (smallOperations >= SHRINK_THRESHOLD && buffer.size() > MIN_CAPACITY) {
+			reallocate(smallPeak);
+			shrinkCount++;
+			resetShrinkPolicy();
+		}
+		return buffer;
+	}
+
+	/** Replaces the current buffer with a buffer, that can hold the given number of bytes. */
+	private void reallocate(int numberOfBytes) {
+		int capacity = min(maxCapacity, max(MIN_CAPACITY, nextPowerOfTwo(numberOfBytes)));
+		if (buffer != null)
+			buffer.dispose();
+		// don't keep a reference to the disposed buffer, if the allocation fails
+		buffer = null;
+		buffer = new NativeByteArray(os, capacity);
+	}
+
+	/** Starts a new sequence of small operations. */
+	private void resetShrinkPolicy() {
+		smallOperations = 0;
+		smallPeak = 0;
+	}
+
+	/** Returns the smallest power of two, that is greater than or equal to the given value. */
+	private static int nextPowerOfTwo(int value) {
+		int highestOneBit = Integer.highestOneBit(value);
+		if (highestOneBit == value || highestOneBit == 1 << 30)
+			return highestOneBit;
+		return highestOneBit << 1;
+	}
+
+	/**
+	 * Returns the current capacity of this buffer in bytes.
+	 * 
+	 * @return the capacity, 0 if no memory is allocated
+	 */
+	public int getCapacity() {
+		if (buffer == null)
+			return 0;
+		return buffer.size();
+	}
+
+	/**
+	 * Returns the maximum capacity of this buffer in bytes.
+	 * 
+	 * @return the maximum capacity
+	 */
+	public int getMaxCapacity() {
+		return maxCapacity;
+	}
+
+	/**
+	 * Returns the number of times this buffer was grown.
+	 * 
+	 * @return the number of growths
+	 */
+	public int getGrowCount() {
+		return growCount;
+	}
+
+	/**
+	 * Returns the number of times this buffer was shrunk.
+	 * 
+	 * @return the number of shrinks
+	 */
+	public int getShrinkCount() {
+		return shrinkCount;
+	}
+
+	/**
+	 * Frees the native memory of this buffer.
+	 */
+	public void dispose() {
+		if (buffer == null)
+			return;
+		buffer.dispose();
+		buffer = null;
+	}
+}
@@ -1,1102 +1,1605 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import javax.annotation.CheckReturnValue;
-import javax.annotation.Nonnegative;
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
-
-import org.xidobi.structs.COMSTAT;
-import org.xidobi.structs.DCB;
-import org.xidobi.structs.DWORD;
-import org.xidobi.structs.HKEY;
-import org.xidobi.structs.INT;
-import org.xidobi.structs.NativeByteArray;
-import org.xidobi.structs.OVERLAPPED;
-
-/**
- * Interface for the native operations of the Windows API.
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public interface WinApi {
-
-	/** 0 */
-	int NULL = 0;
-	/** Used for timeout durations. */
-	int INFINITE = -1;
-
-	/** Opens port for input. */
-	int GENERIC_READ = 0x80000000;
-	/** Opens port for output. */
-	int GENERIC_WRITE = 0x40000000;
-
-	/**
-	 * Opens a file or device, only if it exists. If the specified file or device does not exist,
-	 * the function fails and the last-error code is set to ERROR_FILE_NOT_FOUND (2).
-	 */
-	int OPEN_EXISTING = 3;
-
-	/**
-	 * The file or device is being opened with no system caching for data reads and writes. This
-	 * flag does not affect hard disk caching or memory mapped files. There are strict requirements
-	 * for successfully working with files opened with CreateFile using the
-	 * {@link #FILE_FLAG_NO_BUFFERING} flag, for details see File Buffering.
-	 */
-	int FILE_FLAG_NO_BUFFERING = 0x20000000;
-
-	/**
-	 * The file or device is being opened or created for asynchronous I/O. When subsequent I/O
-	 * operations are completed on this handle, the event specified in the OVERLAPPED structure will
-	 * be set to the signaled state. If this flag is specified, the file can be used for
-	 * simultaneous read and write operations. If this flag is not specified, then I/O operations
-	 * are serialized, even if the calls to the read and write functions specify an OVERLAPPED
-	 * structure.
-	 */
-	int FILE_FLAG_OVERLAPPED = 0x40000000;
-	/**
-	 * Write operations will not go through any intermediate cache, they will go directly to disk.
-	 * For additional information, see the Caching Behavior section of this topic.
-	 */
-	int FILE_FLAG_WRITE_THROUGH = 0x80000000;
-
-	/** Invalid handle value. */
-	int INVALID_HANDLE_VALUE = -1;
-
-	/** No errors. */
-	int ERROR_SUCCESS = 0;
-	/** File not found or port unavailable. */
-	int ERROR_FILE_NOT_FOUND = 2;
-	/** Access denied or port busy. */
-	int ERROR_ACCESS_DENIED = 5;
-	/** The handle is invalid. */
-	int ERROR_INVALID_HANDLE = 6;
-	/** The device is not ready. */
-	int ERROR_NOT_READY = 21;
-	/** The device does not recognize the command. */
-	int ERROR_BAD_COMMAND = 22;
-	/** A device attached to the system is not functioning. */
-	int ERROR_GEN_FAILURE = 31;
-	/** More data is available. */
-	int ERROR_MORE_DATA = 234;
-	/** No more data is available. Indicates in an enumeration that no more elements are available. */
-	int ERROR_NO_MORE_ITEMS = 259;
-	/** The operation has been aborted because of either a thread exit or an application request. */
-	int ERROR_OPERATION_ABORTED = 995;
-	/** Overlapped I/O event is not in a signaled state. */
-	int ERROR_IO_INCOMPLETE = 996;
-	/** Overlapped I/O operation is in progress. */
-	int ERROR_IO_PENDING = 997;
-
-	/**
-	 * The specified object is a mutex object that was not released by the thread that owned the
-	 * mutex object before the owning thread terminated. Ownership of the mutex object is granted to
-	 * the calling thread and the mutex state is set to nonsignaled. If the mutex was protecting
-	 * persistent state information, you should check it for consistency.
-	 */
-	int WAIT_ABANDONED = 0x00000080;
-	/** The state of the specified object is signaled. */
-	int WAIT_OBJECT_0 = 0x00000000;
-	/** The time-out interval elapsed, and the object's state is nonsignaled. */
-	int WAIT_TIMEOUT = 0x00000102;
-	/** The function has failed. To get extended error information, call GetLastError. */
-	int WAIT_FAILED = 0xFFFFFFFF;
-
-	/** Combines the STANDARD_RIGHTS_WRITE, KEY_SET_VALUE, and KEY_CREATE_SUB_KEY access rights. */
-	int KEY_WRITE = 0x20006;
-	/** Equivalent to {@link #KEY_READ}. */
-	int KEY_EXECUTE = 0x20019;
-	/**
-	 * Combines the STANDARD_RIGHTS_READ, KEY_QUERY_VALUE, KEY_ENUMERATE_SUB_KEYS, and KEY_NOTIFY
-	 * values.
-	 */
-	int KEY_READ = 0x20019;
-
-	/**
-	 * Registry entries subordinate to this key define the physical state of the computer, including
-	 * data about the bus type, system memory, and installed hardware and software. It contains
-	 * subkeys that hold current configuration data, including Plug and Play information (the Enum
-	 * branch, which includes a complete list of all hardware that has ever been on the system),
-	 * network logon preferences, network security information, software-related information (such
-	 * as server names and the location of the server), and other system information.
-	 */
-	int HKEY_LOCAL_MACHINE = 0x80000002;
-
-	/**
-	 * The function allocates a buffer large enough to hold the formatted message, and places a
-	 * pointer to the allocated buffer at the address specified by lpBuffer. The lpBuffer parameter
-	 * is a pointer to an LPTSTR; you must cast the pointer to an LPTSTR (for example,
-	 * (LPTSTR)&lpBuffer). The nSize parameter specifies the minimum number of TCHARs to allocate
-	 * for an output message buffer. The caller should use the LocalFree function to free the buffer
-	 * when it is no longer needed. If the length of the formatted message exceeds 128K bytes, then
-	 * FormatMessage will fail and a subsequent call to GetLastError will return ERROR_MORE_DATA.
-	 */
-	int FORMAT_MESSAGE_ALLOCATE_BUFFER = 0x00000100;
-	/**
-	 * The Arguments parameter is not a va_list structure, but is a pointer to an array of values
-	 * that represent the arguments. This flag cannot be used with 64-bit integer values. If you are
-	 * using a 64-bit integer, you must use the va_list structure.
-	 */
-	int FORMAT_MESSAGE_ARGUMENT_ARRAY = 0x00002000;
-	/**
-	 * The lpSource parameter is a module handle containing the message-table resource(s) to search.
-	 * If this lpSource handle is NULL, the current process's application image file will be
-	 * searched. This flag cannot be used with FORMAT_MESSAGE_FROM_STRING. If the module has no
-	 * message table resource, the function fails with ERROR_RESOURCE_TYPE_NOT_FOUND.
-	 */
-	int FORMAT_MESSAGE_FROM_HMODULE = 0x00000800;
-	/**
-	 * The lpSource parameter is a pointer to a null-terminated string that contains a message
-	 * definition. The message definition may contain insert sequences, just as the message text in
-	 * a message table resource may. This flag cannot be used with FORMAT_MESSAGE_FROM_HMODULE or
-	 * FORMAT_MESSAGE_FROM_SYSTEM.
-	 */
-	int FORMAT_MESSAGE_FROM_STRING = 0x00000400;
-	/**
-	 * The function should search the system message-table resource(s) for the requested message. If
-	 * this flag is specified with FORMAT_MESSAGE_FROM_HMODULE, the function searches the system
-	 * message table if the message is not found in the module specified by lpSource. This flag
-	 * cannot be used with FORMAT_MESSAGE_FROM_STRING. If this flag is specified, an application can
-	 * pass the result of the GetLastError function to retrieve the message text for a
-	 * system-defined error.
-	 */
-	int FORMAT_MESSAGE_FROM_SYSTEM = 0x00001000;
-	/**
-	 * Insert sequences in the message definition are to be ignored and passed through to the output
-	 * buffer unchanged. This flag is useful for fetching a message for later formatting. If this
-	 * flag is set, the Arguments parameter is ignored.
-	 */
-	int FORMAT_MESSAGE_IGNORE_INSERTS = 0x00000200;
-
-	/** Neutral locale language */
-	short LANG_NEUTRAL = 0x00;
-	/** Neutral sublanguage */
-	short SUBLANG_NEUTRAL = 0x00;
-	/** User default sublanguage */
-	short SUBLANG_DEFAULT = 0x01;
-	/** English (en) */
-	short LANG_ENGLISH = 0x09;
-	/** United States (US) */
-	short SUBLANG_ENGLISH_US = 0x01;
-	/** United Kingdom (GB) */
-	short SUBLANG_ENGLISH_UK = 0x02;
-	/** System default locale language */
-	short LANG_SYSTEM_DEFAULT = 0x02;
-	/** System default sublanguage */
-	short SUBLANG_SYS_DEFAULT = 0x02;
-
-	/** A break was detected on input. */
-	int EV_BREAK = 0x0040;
-	/** The CTS (clear-to-send) signal changed state. */
-	int EV_CTS = 0x0008;
-	/** The DSR (data-set-ready) signal changed state. */
-	int EV_DSR = 0x0010;
-	/** A line-status error occurred. Line-status errors are CE_FRAME, CE_OVERRUN, and CE_RXPARITY. */
-	int EV_ERR = 0x0080;
-	/** A ring indicator was detected. */
-	int EV_RING = 0x0100;
-	/** The RLSD (receive-line-signal-detect) signal changed state. */
-	int EV_RLSD = 0x0020;
-	/** A character was received and placed in the input buffer. */
-	int EV_RXCHAR = 0x0001;
-	/**
-	 * The event character was received and placed in the input buffer. The event character is
-	 * specified in the device's DCB structure, which is applied to a serial port by using the
-	 * SetCommState function.
-	 */
-	int EV_RXFLAG = 0x0002;
-	/** The last character in the output buffer was sent. */
-	int EV_TXEMPTY = 0x0004;
-
-	/**
-	 * Terminates all outstanding overlapped read operations and returns immediately, even if the
-	 * read operations have not been completed.
-	 */
-	int PURGE_RXABORT = 0x0002;
-	/** Clears the input buffer (if the device driver has one). */
-	int PURGE_RXCLEAR = 0x0008;
-	/**
-	 * Terminates all outstanding overlapped write operations and returns immediately, even if the
-	 * write operations have not been completed.
-	 */
-	int PURGE_TXABORT = 0x0001;
-	/** Clears the output buffer (if the device driver has one). */
-	int PURGE_TXCLEAR = 0x0004;
-
-	/** The hardware detected a break condition. */
-	int CE_BREAK = 0x0010;
-	/** The hardware detected a framing error. */
-	int CE_FRAME = 0x0008;
-	/**
-	 * A character-buffer overrun has occurred. The next character is lost.
-	 */
-	int CE_OVERRUN = 0x0002;
-	/**
-	 * An input buffer overflow has occurred. There is either no room in the input buffer, or a
-	 * character was received after the end-of-file (EOF) character.
-	 */
-	int CE_RXOVER = 0x0001;
-	/** The hardware detected a parity error. */
-	int CE_RXPARITY = 0x0004;
-
-	/**
-	 * The CreateFile function can create a handle to a communications resource, such as the serial
-	 * port COM1. For communications resources, the dwCreationDisposition parameter must be
-	 * OPEN_EXISTING, the dwShareMode parameter must be zero (exclusive access), and the
-	 * hTemplateFile parameter must be NULL. Read, write, or read/write access can be specified, and
-	 * the handle can be opened for overlapped I/O. To specify a COM port number greater than 9, use
-	 * the following syntax: "\\.\COM10". This syntax works for all port numbers and hardware that
-	 * allows COM port numbers to be specified.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363858(v=vs.85).aspx">
-	 * CreateFile (MSDN)</a> for more details.</i>
-	 * 
-	 * @param lpFileName
-	 *            {@code _In_ LPCTSTR} - The name of the file or device to be created or opened. You
-	 *            may use either forward slashes (/) or backslashes (\) in this name.
-	 * @param dwDesiredAccess
-	 *            {@code _In_ DWORD} - The requested access to the file or device, which can be
-	 *            summarized as read, write, both or neither zero).
-	 * @param dwShareMode
-	 *            {@code _In_ DWORD} - The requested sharing mode of the file or device, which can
-	 *            be read, write, both, delete, all of these, or none (refer to the following
-	 *            table). Access requests to attributes or extended attributes are not affected by
-	 *            this flag. If this parameter is zero and CreateFile succeeds, the file or device
-	 *            cannot be shared and cannot be opened again until the handle to the file or device
-	 *            is closed. For more information, see the Remarks section.
-	 * @param lpSecurityAttributes
-	 *            {@code _In_opt_ LPSECURITY_ATTRIBUTES} - A pointer to a SECURITY_ATTRIBUTES
-	 *            structure that contains two separate but related data members: an optional
-	 *            security descriptor, and a Boolean value that determines whether the returned
-	 *            handle can be inherited by child processes. This parameter can be NULL.
-	 * @param dwCreationDisposition
-	 *            {@code _In_ DWORD} - An action to take on a file or device that exists or does not
-	 *            exist.
-	 * @param dwFlagsAndAttributes
-	 *            {@code _In_ DWORD} - The file or device attributes and flags,
-	 *            FILE_ATTRIBUTE_NORMAL being the most common default value for files.
-	 * @param hTemplateFile
-	 *            {@code _In_opt_ HANDLE} - A valid handle to a template file with the GENERIC_READ
-	 *            access right. The template file supplies file attributes and extended attributes
-	 *            for the file that is being created. This parameter can be NULL.
-	 * @return {@code HANDLE} - If the function succeeds, the return value is an open handle to the
-	 *         specified file, device, named pipe, or mail slot. If the function fails, the return
-	 *         value is {@link #INVALID_HANDLE_VALUE}. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	int CreateFileA(String lpFileName, int dwDesiredAccess, int dwShareMode, int lpSecurityAttributes, int dwCreationDisposition, int dwFlagsAndAttributes, int hTemplateFile);
-
-	/**
-	 * Closes an open object handle.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724211(v=vs.85).aspx">
-	 * CloseHandle (MSDN)</a> for more details.</i>
-	 * 
-	 * @param handle
-	 *            {@code _In_ HANDLE} - A valid handle to an open object.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean CloseHandle(int handle);
-
-	/**
-	 * Retrieves the current control settings for a specified communications device.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363260(v=vs.85).aspx">
-	 * GetCommState (MSDN)</a> for more details.</i>
-	 * 
-	 * @param handle
-	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
-	 *            function returns this handle.
-	 * @param dcb
-	 *            {@code _Inout_ LPDCB} - A pointer to a {@link DCB} structure that receives the
-	 *            control settings information.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean GetCommState(int handle, DCB dcb);
-
-	/**
-	 * Configures a communications device according to the specifications in a device-control block
-	 * (a DCB structure). The function reinitializes all hardware and control settings, but it does
-	 * not empty output or input queues.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363436(v=vs.85).aspx">
-	 * SetCommState (MSDN)</a> for more details.</i>
-	 * 
-	 * @param handle
-	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
-	 *            function returns this handle.
-	 * @param dcb
-	 *            {@code _In_ LPDCB} - A pointer to a {@link DCB} structure that contains the
-	 *            configuration information for the specified communications device.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean SetCommState(int handle, DCB dcb);
-
-	/**
-	 * Creates or opens a named or unnamed event object.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms682396(v=vs.85).aspx">
-	 * CreateEvent (MSDN)</a> for more details.</i>
-	 * 
-	 * @param lpEventAttributes
-	 *            {@code _In_opt_ LPSECURITY_ATTRIBUTES} - A pointer to a SECURITY_ATTRIBUTES
-	 *            structure. If this parameter is NULL, the handle cannot be inherited by child
-	 *            processes.
-	 * @param bManualReset
-	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the function creates a
-	 *            manual-reset event object, which requires the use of the ResetEvent function to
-	 *            set the event state to nonsignaled. If this parameter is <code>false</code>, the
-	 *            function creates an auto-reset event object, and system automatically resets the
-	 *            event state to nonsignaled after a single waiting thread has been released.
-	 * @param bInitialState
-	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the initial state of
-	 *            the event object is signaled; otherwise, it is nonsignaled.
-	 * @param lpName
-	 *            {@code _In_opt_ LPCTSTR} - The name of the event object. The name is limited to
-	 *            MAX_PATH characters. Name comparison is case sensitive. If lpName matches the name
-	 *            of an existing named event object, this function requests the EVENT_ALL_ACCESS
-	 *            access right. In this case, the bManualReset and bInitialState parameters are
-	 *            ignored because they have already been set by the creating process. If the
-	 *            lpEventAttributes parameter is not NULL, it determines whether the handle can be
-	 *            inherited, but its security-descriptor member is ignored. If lpName is NULL, the
-	 *            event object is created without a name.
-	 * @return {@code HANDLE} - If the function succeeds, the return value is a handle to the event
-	 *         object. If the named event object existed before the function call, the function
-	 *         returns a handle to the existing object and {@link #GetLastError()} returns
-	 *         ERROR_ALREADY_EXISTS.
-	 *         <p>
-	 *         If the function fails, the return value is NULL.
-	 */
-	@CheckReturnValue
-	int CreateEventA(int lpEventAttributes, boolean bManualReset, boolean bInitialState, @Nullable String lpName);
-
-	/**
-	 * Writes data to the specified file or input/output (I/O) device.
-	 * <p>
-	 * This function is designed for both synchronous and asynchronous operation.
-	 * <p>
-	 * <i> Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365747(v=vs.85).aspx">
-	 * WriteFile (MSDN)</a> for more details.</i>
-	 * 
-	 * @param handle
-	 *            {@code _In_ HANDLE} - A handle to the file or I/O device (for example, a file,
-	 *            file stream, physical disk, volume, console buffer, tape drive, socket,
-	 *            communications resource, mailslot, or pipe). The hFile parameter must have been
-	 *            created with the write access.
-	 * @param lpBuffer
-	 *            {@code _In_ LPCVOID} - A pointer to the buffer containing the data to be written
-	 *            to the file or device. This buffer must remain valid for the duration of the write
-	 *            operation. The caller must not use this buffer until the write operation is
-	 *            completed.
-	 * @param nNumberOfBytesToWrite
-	 *            {@code _In_ DWORD} - The number of bytes to be written to the file or device. A
-	 *            value of zero specifies a null write operation. The behavior of a null write
-	 *            operation depends on the underlying file system or communications technology.
-	 * @param lpNumberOfBytesWritten
-	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
-	 *            bytes written when using a synchronous hFile parameter. WriteFile sets this value
-	 *            to zero before doing any work or error checking. Use NULL for this parameter if
-	 *            this is an asynchronous operation to avoid potentially erroneous results. This
-	 *            parameter can be NULL only when the lpOverlapped parameter is not NULL.
-	 * @param lpOverlapped
-	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
-	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise
-	 *            this parameter can be NULL.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
-	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
-	 *         return value is zero (<code>false</code>). To get extended error information, call
-	 *         the {@link #GetLastError()} function.
-	 */
-	@CheckReturnValue
-	boolean WriteFile(int handle, @Nonnull byte[] lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped);
-
-	/**
-	 * Reads data from the specified file or input/output (I/O) device. Reads occur at the position
-	 * specified by the file pointer if supported by the device.
-	 * <p>
-	 * This function is designed for both synchronous and asynchronous operations.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365467(v=vs.85).aspx">
-	 * ReadFile (MSDN)</a> for more details.</i>
-	 * 
-	 * @param handle
-	 *            {@code _In_ HANDLE} - A handle to the device (for example, a file, file stream,
-	 *            physical disk, volume, console buffer, tape drive, socket, communications
-	 *            resource, mailslot, or pipe). The hFile parameter must have been created with read
-	 *            access. For more information, see Generic Access Rights and File Security and
-	 *            Access Rights. For asynchronous read operations, hFile can be any handle that is
-	 *            opened with the FILE_FLAG_OVERLAPPED flag by the CreateFile function, or a socket
-	 *            handle returned by the socket or accept function.
-	 * @param lpBuffer
-	 *            {@code _Out_ LPCVOID} - A pointer to the buffer that receives the data read from a
-	 *            file or device. This buffer must remain valid for the duration of the read
-	 *            operation. The caller must not use this buffer until the read operation is
-	 *            completed.
-	 * @param nNumberOfBytesToRead
-	 *            {@code _In_ DWORD} - The maximum number of bytes to be read.
-	 * @param lpNumberOfBytesRead
-	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
-	 *            bytes read when using a synchronous hFile parameter. ReadFile sets this value to
-	 *            zero before doing any work or error checking. Use NULL for this parameter if this
-	 *            is an asynchronous operation to avoid potentially erroneous results. This
-	 *            parameter can be NULL only when the lpOverlapped parameter is not NULL.
-	 * @param lpOverlapped
-	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
-	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise it
-	 *            can be NULL.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
-	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
-	 *         return value is zero (<code>false</code>). To get extended error information, call
-	 *         the {@link #GetLastError()} function.
-	 */
-	@CheckReturnValue
-	boolean ReadFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped);
-
-	/**
-	 * Returns the last error code, that occured during a native method call by the current thread.
-	 * This method is a workaround for an issue with {@link #GetLastError()} were JNI or the VM
-	 * clears the error code, see (<a href="https://code.google.com/p/xidobi/issues/detail?id=3"
-	 * >Bug #3</a>).
-	 * <p>
-	 * A list of all Windows error codes can be found <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms681381(v=vs.85).aspx"
-	 * >here</a>.
-	 * <p>
-	 * <b>IMPORTANT:</b> This method returns the result of {@link #GetLastError()} that were
-	 * "preserved" in the native code, by calls to one of the following methods:
-	 * <ul>
-	 * <li> {@link #CloseHandle(int)}
-	 * <li> {@link #CreateEventA(int, boolean, boolean, String)}
-	 * <li> {@link #CreateFile(String, int, int, int, int, int, int)}
-	 * <li> {@link #GetCommState(int, DCB)}
-	 * <li> {@link #GetOverlappedResult(int, OVERLAPPED, DWORD, boolean)}
-	 * <li> {@link #ReadFile(int, NativeByteArray, int, DWORD, OVERLAPPED)}
-	 * <li> {@link #SetCommState(int, DCB)}
-	 * <li> {@link #WaitForSingleObject(int, int)}
-	 * <li> {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)}
-	 * </ul>
-	 * 
-	 * @see #GetLastError()
-	 * @return the last error code
-	 */
-
-	/**
-	 * Retrieves the calling thread's last-error code value. The last-error code is maintained on a
-	 * per-thread basis. Multiple threads do not overwrite each other's last-error code.
-	 * <p>
-	 * A list of all Windows error codes can be found <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms681381(v=vs.85).aspx"
-	 * >here</a>.
-	 * <p>
-	 * This method returns 0 (<code>ERROR_SUCCESS</code>), if no error was stored for the current
-	 * thread.
-	 * 
-	 * @return {@code DWORD} - The return value is the calling thread's last-error code.
-	 */
-	int GetLastError();
-
-	/**
-	 * Retrieves the results of an overlapped operation on the specified file, named pipe, or
-	 * communications device. To specify a timeout interval or wait on an alertable thread, use
-	 * GetOverlappedResultEx.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms683209(v=vs.85).aspx">
-	 * GetOverlappedResult (MSDN)</a> for more details.</i>
-	 * 
-	 * @param handle
-	 *            {@code _In_ HANDLE} - A handle to the file, named pipe, or communications device.
-	 * @param lpOverlapped
-	 *            {@code _In_ LPOVERLAPPED } - A pointer to an {@link OVERLAPPED} structure that was
-	 *            specified when the overlapped operation was started.
-	 * @param lpNumberOfBytesTransferred
-	 *            {@code _Out_ LPDWORD} - A pointer to a variable that receives the number of bytes
-	 *            that were actually transferred by a read or write operation.
-	 * @param bWait
-	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, and the Internal
-	 *            member of the lpOverlapped structure is STATUS_PENDING, the function does not
-	 *            return until the operation has been completed. If this parameter is
-	 *            <code>false</code> and the operation is still pending, the function returns FALSE
-	 *            and the GetLastError function returns {@link #ERROR_IO_INCOMPLETE}.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean GetOverlappedResult(int handle, OVERLAPPED lpOverlapped, DWORD lpNumberOfBytesTransferred, boolean bWait);
-
-	/**
-	 * Waits until the specified object is in the signaled state or the time-out interval elapses.
-	 * <p>
-	 * To enter an alertable wait state, use the WaitForSingleObjectEx function. To wait for
-	 * multiple objects, use the WaitForMultipleObjects.
-	 * <p>
-	 * <b>Remarks:</b> The WaitForSingleObject function checks the current state of the specified
-	 * object. If the object's state is nonsignaled, the calling thread enters the wait state until
-	 * the object is signaled or the time-out interval elapses. The function modifies the state of
-	 * some types of synchronization objects. Modification occurs only for the object whose signaled
-	 * state caused the function to return. For example, the count of a semaphore object is
-	 * decreased by one.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms687032(v=vs.85).aspx">
-	 * WaitForSingleObject (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hHandle
-	 *            {@code _In_ HANDLE} - A handle to the object. For a list of the object types whose
-	 *            handles can be specified, see the following Remarks section. If this handle is
-	 *            closed while the wait is still pending, the function's behavior is undefined. The
-	 *            handle must have the SYNCHRONIZE access right. For more information, see <a href
-	 *            ="http://msdn.microsoft.com/en-us/library/windows/desktop/aa379607(v=vs.85).aspx"
-	 *            >Standard Access Rights</a>.
-	 * @param dwMilliseconds
-	 *            {@code _In_ DWORD} - The time-out interval, in milliseconds. If a nonzero value is
-	 *            specified, the function waits until the object is signaled or the interval
-	 *            elapses. If dwMilliseconds is zero, the function does not enter a wait state if
-	 *            the object is not signaled; it always returns immediately. If dwMilliseconds is
-	 *            INFINITE, the function will return only when the object is signaled.
-	 * @return {@code DWORD} - If the function succeeds, the return value indicates the event that
-	 *         caused the function to return. It can be one of the following values:
-	 *         <ul>
-	 *         <li>{@link #WAIT_ABANDONED} <li>{@link #WAIT_FAILED}<li> {@link #WAIT_OBJECT_0} <li>
-	 *         {@link #WAIT_TIMEOUT}
-	 *         </ul>
-	 */
-	@CheckReturnValue
-	int WaitForSingleObject(int hHandle, int dwMilliseconds);
-
-	/**
-	 * Opens the specified registry key. Note that key names are not case sensitive.
-	 * <p>
-	 * To perform transacted registry operations on a key, call the RegOpenKeyTransacted function.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724897(v=vs.85).aspx">
-	 * RegOpenKeyEx (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hKey
-	 *            {@code _In_ HKEY} - A handle to an open registry key.
-	 * @param lpSubKey
-	 *            {@code _In_opt_ LPCTSTR} - The name of the registry subkey to be opened. Key names
-	 *            are not case sensitive.
-	 * @param ulOptions
-	 *            {@code _Reserved_ DWORD} - This parameter is reserved and must be zero.
-	 * @param samDesired
-	 *            {@code _In_ REGSAM} - A mask that specifies the desired access rights to the key
-	 *            to be opened. The function fails if the security descriptor of the key does not
-	 *            permit the requested access for the calling process. For more information, see <a
-	 *            href
-	 *            ="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724878(v=vs.85).aspx"
-	 *            >Registry Key Security and Access Rights</a>.
-	 *            <ul>
-	 *            <li> {@link #KEY_WRITE} <li> {@link #KEY_READ} <li> {@link #KEY_EXECUTE}
-	 *            </ul>
-	 * @param phkResult
-	 *            {@code _Out_ PHKEY} - A pointer to a variable that receives a handle to the opened
-	 *            key. If the key is not one of the predefined registry keys, call the
-	 *            {@link #RegCloseKey(HKEY)} function after you have finished using the handle.
-	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS}.
-	 *         <p>
-	 *         If the function fails, the return value is a nonzero error code defined in
-	 *         Winerror.h.
-	 */
-	@CheckReturnValue
-	int RegOpenKeyExA(int hKey, String lpSubKey, int ulOptions, int samDesired, HKEY phkResult);
-
-	/**
-	 * Closes a handle to the specified registry key.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724837(v=vs.85).aspx">
-	 * RegCloseKey (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hKey
-	 *            {@code _In_ HKEY} - A handle to the open key to be closed.
-	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS}.
-	 *         If the function fails, the return value is a nonzero error code defined in
-	 *         Winerror.h.
-	 */
-	@CheckReturnValue
-	int RegCloseKey(HKEY hKey);
-
-	/**
-	 * Enumerates the values for the specified open registry key. The function copies one indexed
-	 * value name and data block for the key each time it is called.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724865(v=vs.85).aspx">
-	 * RegEnumValue (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hKey
-	 *            {@code _In_ HKEY} - A handle to an open registry key. The key must have been
-	 *            opened with the KEY_QUERY_VALUE access right.
-	 * @param dwIndex
-	 *            {@code _In_ DWORD} - The index of the value to be retrieved. This parameter should
-	 *            be zero for the first call to the RegEnumValueA function and then be incremented
-	 *            for subsequent calls.
-	 *            <p>
-	 *            Because values are not ordered, any new value will have an arbitrary index. This
-	 *            means that the function may return values in any order.
-	 * @param lpValueName
-	 *            {@code _Out_ LPTSTR} - A pointer to a buffer that receives the name of the value
-	 *            as a null-terminated string. This buffer must be large enough to include the
-	 *            terminating null character.
-	 * @param lpcchValueName
-	 *            {@code _Inout_ LPDWORD} - A pointer to a variable that specifies the size of the
-	 *            buffer pointed to by the lpValueName parameter, in characters. When the function
-	 *            returns, the variable receives the number of characters stored in the buffer, not
-	 *            including the terminating null character.
-	 * @param lpReserved
-	 *            {@code _Reserved_ LPDWORD} - This parameter is reserved and must be
-	 *            <code>null</code>.
-	 * @param lpType
-	 *            {@code _Out_opt_ LPDWORD} - A pointer to a variable that receives a code
-	 *            indicating the type of data stored in the specified value. For a list of the
-	 *            possible type codes, see <a href=
-	 *            "http://msdn.microsoft.com/en-us/library/windows/desktop/ms724884(v=vs.85).aspx"
-	 *            >Registry Value Types</a>. The lpType parameter can be NULL if the type code is
-	 *            not required.
-	 * @param lpData
-	 *            {@code _Out_opt_ LPBYTE} - A pointer to a buffer that receives the data for the
-	 *            value entry. This parameter can be NULL if the data is not required.
-	 *            <p>
-	 *            If lpData is NULL and lpcbData is non-NULL, the function stores the size of the
-	 *            data, in bytes, in the variable pointed to by lpcbData. This enables an
-	 *            application to determine the best way to allocate a buffer for the data.
-	 * @param lpcbData
-	 *            {@code _Inout_opt_ LPDWORD} - A pointer to a variable that specifies the size of
-	 *            the buffer pointed to by the lpData parameter, in bytes. When the function
-	 *            returns, the variable receives the number of bytes stored in the buffer. This
-	 *            parameter can be NULL only if lpData is NULL. If the buffer specified by lpData is
-	 *            not large enough to hold the data, the function returns {@link #ERROR_MORE_DATA}
-	 *            and stores the required buffer size in the variable pointed to by lpcbData. In
-	 *            this case, the contents of lpData are undefined.
-	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS} .
-	 *         If the function fails, the return value is a system error code. If there are no more
-	 *         values available, the function returns {@link #ERROR_NO_MORE_ITEMS}. If the lpData
-	 *         buffer is too small to receive the value, the function returns
-	 *         {@link #ERROR_MORE_DATA}.
-	 */
-	@CheckReturnValue
-	int RegEnumValueA(HKEY hKey, int dwIndex, byte[] lpValueName, INT lpcchValueName, int lpReserved, INT lpType, byte[] lpData, INT lpcbData);
-
-	/**
-	 * Creates a <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/dd318691(v=vs.85).aspx"
-	 * >language identifier</a> from a primary language identifier and a sublanguage identifier.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/dd373908(v=vs.85).aspx">
-	 * MAKELANGID (MSDN)</a> for more details.</i>
-	 * 
-	 * @param usPrimaryLanguage
-	 *            {@code USHORT} - Primary language identifier. This identifier can be a predefined
-	 *            value or a value for a user-defined primary language. For a user-defined language,
-	 *            the identifier is a value in the range 0x0200 to 0x03FF. All other values are
-	 *            reserved for operating system use. For more information, see Language Identifier
-	 *            Constants and Strings.
-	 * @param usSubLanguage
-	 *            {@code USHORT} - Sublanguage identifier. This parameter can be a predefined
-	 *            sublanguage identifier or a user-defined sublanguage. For a user-defined
-	 *            sublanguage, the identifier is a value in the range 0x20 to 0x3F. All other values
-	 *            are reserved for operating system use. For more information, see Language
-	 *            Identifier Constants and Strings.
-	 * @return {@code DWORD} - Returns the language identifier.
-	 */
-	int MAKELANGID(short usPrimaryLanguage, short usSubLanguage);
-
-	/**
-	 * Formats a message string. The function requires a message definition as input. The message
-	 * definition can come from a buffer passed into the function. It can come from a message table
-	 * resource in an already-loaded module. Or the caller can ask the function to search the
-	 * system's message table resource(s) for the message definition. The function finds the message
-	 * definition in a message table resource based on a message identifier and a language
-	 * identifier. The function copies the formatted message text to an output buffer, processing
-	 * any embedded insert sequences if requested.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms679351(v=vs.85).aspx">
-	 * FormatMessage (MSDN)</a> for more details.</i>
-	 * 
-	 * @param dwFlags
-	 *            {@code _In_ DWORD} - The formatting options, and how to interpret the lpSource
-	 *            parameter. The low-order byte of dwFlags specifies how the function handles line
-	 *            breaks in the output buffer. The low-order byte can also specify the maximum width
-	 *            of a formatted output line. This parameter can be one or more of the following
-	 *            values:
-	 *            <ul>
-	 *            <li>{@link #FORMAT_MESSAGE_ALLOCATE_BUFFER}</li> <li>
-	 *            {@link #FORMAT_MESSAGE_ARGUMENT_ARRAY}</li> <li>
-	 *            {@link #FORMAT_MESSAGE_FROM_HMODULE}</li> <li>{@link #FORMAT_MESSAGE_FROM_STRING}
-	 *            </li> <li>{@link #FORMAT_MESSAGE_FROM_SYSTEM}</li> <li>
-	 *            {@link #FORMAT_MESSAGE_IGNORE_INSERTS}</li>
-	 *            </ul>
-	 * @param lpSource
-	 *            {@code _In_opt_ LPCVOID} - The location of the message definition. The type of
-	 *            this parameter depends upon the settings in the dwFlags parameter.
-	 *            <ul>
-	 *            <li>{@link #FORMAT_MESSAGE_FROM_HMODULE}</li> <li>
-	 *            {@link #FORMAT_MESSAGE_FROM_STRING}</li>
-	 *            </ul>
-	 * @param dwMessageId
-	 *            {@code _In_ DWORD} - The message identifier for the requested message. This
-	 *            parameter is ignored if dwFlags includes {@link #FORMAT_MESSAGE_FROM_STRING}.
-	 * @param dwLanguageId
-	 *            {@code _In_ DWORD} - The language identifier for the requested message. This
-	 *            parameter is ignored if dwFlags includes {@link #FORMAT_MESSAGE_FROM_STRING}.
-	 * @param lpBuffer
-	 *            {@code _Out_ LPTSTR} - A pointer to a buffer that receives the null-terminated
-	 *            string that specifies the formatted message. If dwFlags includes
-	 *            {@link #FORMAT_MESSAGE_ALLOCATE_BUFFER}, the function allocates a buffer using the
-	 *            LocalAlloc function, and places the pointer to the buffer at the address specified
-	 *            in lpBuffer. This buffer cannot be larger than 64K bytes.
-	 * @param nSize
-	 *            {@code _In_ DWORD} - If the {@link #FORMAT_MESSAGE_ALLOCATE_BUFFER} flag is not
-	 *            set, this parameter specifies the size of the output buffer, in TCHARs. If
-	 *            {@link #FORMAT_MESSAGE_ALLOCATE_BUFFER} is set, this parameter specifies the
-	 *            minimum number of TCHARs to allocate for an output buffer. The output buffer
-	 *            cannot be larger than 64K bytes.
-	 * @param arguments
-	 *            {@code _In_opt_ va_list*} - An array of values that are used as insert values in
-	 *            the formatted message. A %1 in the format string indicates the first value in the
-	 *            Arguments array; a %2 indicates the second argument; and so on.
-	 * @return {@code DWORD} - If the function succeeds, the return value is the number of TCHARs
-	 *         stored in the output buffer, excluding the terminating null character. If the
-	 *         function fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	int FormatMessageA(int dwFlags, Void lpSource, int dwMessageId, int dwLanguageId, @Nonnull byte[] lpBuffer, int nSize, Void arguments);
-
-	/**
-	 * Specifies a set of events to be monitored for a communications device.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363435(v=vs.85).aspx">
-	 * SetCommMask (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the communications device.
-	 * @param dwEvtMask
-	 *            {@code _In_ DWORD} - The events to be enabled. A value of zero disables all
-	 *            events. This parameter can be one or more of the following values:
-	 *            <ul>
-	 *            <li>{@link #EV_BREAK}<li>{@link #EV_CTS}<li>{@link #EV_DSR}<li>{@link #EV_ERR} 
-	 *            <li>{@link #EV_RING}<li>{@link #EV_RLSD}<li> {@link #EV_RXCHAR}
-	 *            </ul>
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean SetCommMask(int hFile, int dwEvtMask);
-
-	/**
-	 * Waits for an event to occur for a specified communications device. The set of events that are
-	 * monitored by this function is contained in the event mask associated with the device handle.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363479(v=vs.85).aspx">
-	 * WaitCommEvent (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the communications device.
-	 * @param lpEvtMask
-	 *            {@code _Out_ LPDWORD} -A pointer to a variable that receives a mask indicating the
-	 *            type of event that occurred. If an error occurs, the value is zero; otherwise, it
-	 *            is one of the following values:
-	 *            <ul>
-	 *            <li>{@link #EV_BREAK}<li>{@link #EV_CTS}<li>{@link #EV_DSR}<li>{@link #EV_ERR} 
-	 *            <li>{@link #EV_RING}<li>{@link #EV_RLSD}<li> {@link #EV_RXCHAR}
-	 *            </ul>
-	 * @param lpOverlapped
-	 *            {@code _In_ LPOVERLAPPED} - A pointer to an OVERLAPPED structure. This structure
-	 *            is required if hFile was opened with FILE_FLAG_OVERLAPPED.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean WaitCommEvent(int hFile, DWORD lpEvtMask, OVERLAPPED lpOverlapped);
-
-	/**
-	 * Sets the specified event object to the nonsignaled state.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms685081(v=vs.85).aspx">
-	 * ResetEvent (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hEvent
-	 *            {@code _In_ HANDLE} - A handle to the event object.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean ResetEvent(int hEvent);
-
-	/**
-	 * Discards all characters from the output or input buffer of a specified communications
-	 * resource. It can also terminate pending read or write operations on the resource.
-	 * <p>
-	 * <b>Remarks:</b> If a thread uses PurgeComm to flush an output buffer, the deleted characters
-	 * are not transmitted. To empty the output buffer while ensuring that the contents are
-	 * transmitted, call the FlushFileBuffers function (a synchronous operation). Note, however,
-	 * that FlushFileBuffers is subject to flow control but not to write time-outs, and it will not
-	 * return until all pending write operations have been transmitted.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363428(v=vs.85).aspx">
-	 * PurgeComm (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the communications resource.
-	 * @param dwFlags
-	 *            {@code _In_ DWORD} - This parameter can be one or more of the following values:
-	 *            <ul>
-	 *            <li>{@link #PURGE_RXABORT} <li>{@link #PURGE_RXCLEAR} <li>{@link #PURGE_TXABORT}
-	 *            <li>{@link #PURGE_TXCLEAR}
-	 *            </ul>
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean PurgeComm(int hFile, int dwFlags);
-
-	/**
-	 * Retrieves information about a communications error and reports the current status of a
-	 * communications device. The function is called when a communications error occurs, and it
-	 * clears the device's error flag to enable additional input and output (I/O) operations.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363180(v=vs.85).aspx">
-	 * ClearCommError (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the communications device.
-	 * @param lpErrors
-	 *            {@code _Out_opt_ LPDWORD} - A pointer to a variable that receives a mask
-	 *            indicating the type of error. This parameter can be one or more of the following
-	 *            values:
-	 *            <ul>
-	 *            <li>{@link #CE_BREAK} <li>{@link #CE_FRAME} <li>{@link #CE_OVERRUN} <li>
-	 *            {@link #CE_RXOVER} <li>{@link #CE_RXPARITY}
-	 *            </ul>
-	 * @param lpStat
-	 *            {@code _Out_opt_ LPCOMSTAT} - A pointer to a COMSTAT structure in which the
-	 *            device's status information is returned. If this parameter is NULL, no status
-	 *            information is returned.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean ClearCommError(int hFile, INT lpErrors, COMSTAT lpStat);
-
-	/**
-	 * Suspends character transmission for a specified communications device and places the
-	 * transmission line in a break state until the ClearCommBreak function is called.
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
-	 *            function returns this handle.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 * 
-	 * @deprecated We don't need this method at the moment. Maybe we can remove it!
-	 */
-	@Deprecated
-	@CheckReturnValue
-	boolean SetCommBreak(int hFile);
-
-	/**
-	 * Restores character transmission for a specified communications device and places the
-	 * transmission line in a nonbreak state.
-	 * <p>
-	 * A communications device is placed in a break state by the SetCommBreak or EscapeCommFunction
-	 * function. Character transmission is then suspended until the break state is cleared by
-	 * calling ClearCommBreak.
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
-	 *            function returns this handle.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 * 
-	 * @deprecated We don't need this method at the moment. Maybe we can remove it!
-	 */
-	@Deprecated
-	@CheckReturnValue
-	boolean ClearCommBreak(int hFile);
-
-	/**
-	 * Marks any outstanding I/O operations for the specified file handle. The function only cancels
-	 * I/O operations in the current process, regardless of which thread created the I/O operation.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363791(v=vs.85).aspx">
-	 * CancelIo (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hFile
-	 *            {@code _In_ HANDLE} - A handle to the file.
-	 * @param lpOverlapped
-	 *            {@code _In_opt_  LPOVERLAPPED} - A pointer to an OVERLAPPED data structure that
-	 *            contains the data used for asynchronous I/O.
-	 * @return {@code BOOL} - f the function succeeds, the return value is nonzero. The cancel
-	 *         operation for all pending I/O operations issued by the calling process for the
-	 *         specified file handle was successfully requested. The application must not free or
-	 *         reuse the OVERLAPPED structure associated with the canceled I/O operations until they
-	 *         have completed. The thread can use the GetOverlappedResult function to determine when
-	 *         the I/O operations themselves have been completed.
-	 */
-	@CheckReturnValue
-	boolean CancelIo(int hFile);
-
-	/**
-	 * Sets the specified event object to the signaled state.
-	 * <p>
-	 * <i>Please see <a
-	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms686211(v=vs.85).aspx">
-	 * SetEvent (MSDN)</a> for more details.</i>
-	 * 
-	 * @param hEvent
-	 *            {@code _In_ HANDLE} - A handle to the event object. The CreateEvent or OpenEvent
-	 *            function returns this handle. The handle must have the EVENT_MODIFY_STATE access
-	 *            right. For more information, see <a
-	 *            href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms686670(v=vs.85).aspx"
-	 *            > Synchronization Object Security and Access Rights</a>.
-	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
-	 *         fails, the return value is zero. To get extended error information, call
-	 *         {@link #GetLastError()}.
-	 */
-	@CheckReturnValue
-	boolean SetEvent(int hEvent);
-
-	/**
-	 * Allocates a block of {@code size} bytes of memory, returning a pointer to the beginning of
-	 * the block.
-	 * <p>
-	 * The content of the newly allocated block of memory is not initialized, remaining with
-	 * indeterminate values.
-	 * <p>
-	 * If size is zero, the return value depends on the particular library implementation (it may or
-	 * may not be a null pointer), but the returned pointer shall not be used to dereference an
-	 * object in any case.
-	 * 
-	 * @param size
-	 *            the size of the memory
-	 * @return On success, a pointer to the memory block allocated by the function. If the function
-	 *         failed to allocate the requested block of memory, {@link #NULL} (a null pointer) is
-	 *         returned.
-	 */
-	int malloc(@Nonnegative int size);
-
-	/**
-	 * Sets the bytes of the memory to the specified value.
-	 * 
-	 * @param ptr
-	 *            pointer to the block of memory to fill
-	 * @param value
-	 *            value to be set. The value is passed as an int, but the function fills the block
-	 *            of memory using the unsigned char conversion of this value.
-	 * @param num
-	 *            number of bytes to be set to the value.
-	 */
-	void memset(int ptr, int value, int num);
-
-	/**
-	 * Frees the memory of the given pointer.
-	 * 
-	 * @param pointer
-	 *            pointer to the memory
-	 */
-	void free(int pointer);
-
-	/**
-	 * Size of an OVERLAPPED struct.
-	 * 
-	 * @return the size of the OVERLAPPED struct
-	 */
-	int sizeOf_OVERLAPPED();
-
-	/**
-	 * Size of an HKEY struct.
-	 * 
-	 * @return the size of the HKEY struct
-	 */
-	int sizeOf_HKEY();
-
-	/**
-	 * Size of an HKEY struct.
-	 * 
-	 * @return the size of the HKEY struct
-	 */
-	int sizeOf_DWORD();
-
-	/**
-	 * Returns the byte array with the specified length for the given native byte array pointer.
-	 * 
-	 * @param nativeByteArray
-	 *            the native byte array pointer
-	 * @param length
-	 *            the length of the byte array, must be greater than 0 and lower than or equal to
-	 *            the size of the native byte array
-	 * @return the byte array of the specified length
-	 */
-	byte[] getByteArray(@Nonnull NativeByteArray nativeByteArray, @Nonnegative int length);
-
-	/**
-	 * Returns the value of the DWORD pointer.
-	 * 
-	 * @param dword
-	 *            the pointer to the DWORD, must not be <code>null</code>
-	 * @return the value of the DWORD pointer
-	 */
-	int getValue_DWORD(@Nonnull DWORD dword);
-
-	/**
-	 * Sets the value of the DWORD pointer.
-	 * 
-	 * @param dword
-	 *            the pointer to the DWORD, must not be <code>null</code>
-	 * @param value
-	 *            the value of the DWORD pointer
-	 */
-	void setValue_DWORD(@Nonnull DWORD dword, int value);
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.structs.COMSTAT;
+import org.xidobi.structs.DCB;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.HKEY;
+import org.xidobi.structs.INT;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Interface for the native operations of the Windows API.
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public interface WinApi {
+
+	/** 0 */
+	int NULL = 0;
+	/** Used for timeout durations. */
+	int INFINITE = -1;
+
+	/** Opens port for input. */
+	int GENERIC_READ = 0x80000000;
+	/** Opens port for output. */
+	int GENERIC_WRITE = 0x40000000;
+
+	/**
+	 * Opens a file or device, only if it exists. If the specified file or device does not exist,
+	 * the function fails and the last-error code is set to ERROR_FILE_NOT_FOUND (2).
+	 */
+	int OPEN_EXISTING = 3;
+
+	/**
+	 * The file or device is being opened with no system caching for data reads and writes. This
+	 * flag does not affect hard disk caching or memory mapped files. There are strict requirements
+	 * for successfully working with files opened with CreateFile using the
+	 * {@link #FILE_FLAG_NO_BUFFERING} flag, for details see File Buffering.
+	 */
+	int FILE_FLAG_NO_BUFFERING = 0x20000000;
+
+	/**
+	 * The file or device is being opened or created for asynchronous I/O. When subsequent I/O
+	 * operations are completed on this handle, the event specified in the OVERLAPPED structure will
+	 * be set to the signaled state. If this flag is specified, the file can be used for
+	 * simultaneous read and write operations. If this flag is not specified, then I/O operations
+	 * are serialized, even if the calls to the read and write functions specify an OVERLAPPED
+	 * structure.
+	 */
+	int FILE_FLAG_OVERLAPPED = 0x40000000;
+	/**
+	 * Write operations will not go through any intermediate cache, they will go directly to disk.
+	 * For additional information, see the Caching Behavior section of this topic.
+	 */
+	int FILE_FLAG_WRITE_THROUGH = 0x80000000;
+
+	/** Invalid handle value. */
+	int INVALID_HANDLE_VALUE = -1;
+
+	/** The version of the first native library, see {@link #getNativeVersion()}. */
+	int NATIVE_VERSION_1 = 1;
+	/**
+	 * The version of the native library, that provides the functions for waits on several
+	 * objects, fused reads, I/O completion ports, registry notifications and the transfer of data
+	 * between native byte arrays and Java buffers, see {@link #getNativeVersion()}.
+	 */
+	int NATIVE_VERSION_2 = 2;
+
+	/** No errors. */
+	int ERROR_SUCCESS = 0;
+	/** File not found or port unavailable. */
+	int ERROR_FILE_NOT_FOUND = 2;
+	/** Access denied or port busy. */
+	int ERROR_ACCESS_DENIED = 5;
+	/** The handle is invalid. */
+	int ERROR_INVALID_HANDLE = 6;
+	/** The device is not ready. */
+	int ERROR_NOT_READY = 21;
+	/** The device does not recognize the command. */
+	int ERROR_BAD_COMMAND = 22;
+	/** A device attached to the system is not functioning. */
+	int ERROR_GEN_FAILURE = 31;
+	/** More data is available. */
+	int ERROR_MORE_DATA = 234;
+	/** No more data is available. Indicates in an enumeration that no more elements are available. */
+	int ERROR_NO_MORE_ITEMS = 259;
+	/** The I/O completion port handle was closed, while a thread was waiting for a packet. */
+	int ERROR_ABANDONED_WAIT_0 = 735;
+	/** The operation has been aborted because of either a thread exit or an application request. */
+	int ERROR_OPERATION_ABORTED = 995;
+	/** Overlapped I/O event is not in a signaled state. */
+	int ERROR_IO_INCOMPLETE = 996;
+	/** Overlapped I/O operation is in progress. */
+	int ERROR_IO_PENDING = 997;
+
+	/**
+	 * The specified object is a mutex object that was not released by the thread that owned the
+	 * mutex object before the owning thread terminated. Ownership of the mutex object is granted to
+	 * the calling thread and the mutex state is set to nonsignaled. If the mutex was protecting
+	 * persistent state information, you should check it for consistency.
+	 */
+	int WAIT_ABANDONED = 0x00000080;
+	/** The state of the specified object is signaled. */
+	int WAIT_OBJECT_0 = 0x00000000;
+	/** The time-out interval elapsed, and the object's state is nonsignaled. */
+	int WAIT_TIMEOUT = 0x00000102;
+	/** The function has failed. To get extended error information, call GetLastError. */
+	int WAIT_FAILED = 0xFFFFFFFF;
+	/** The maximum number of object handles for {@link #WaitForMultipleObjects(int, int[], boolean, int)}. */
+	int MAXIMUM_WAIT_OBJECTS = 64;
+
+	/** Combines the STANDARD_RIGHTS_WRITE, KEY_SET_VALUE, and KEY_CREATE_SUB_KEY access rights. */
+	int KEY_WRITE = 0x20006;
+	/** Equivalent to {@link #KEY_READ}. */
+	int KEY_EXECUTE = 0x20019;
+	/**
+	 * Combines the STANDARD_RIGHTS_READ, KEY_QUERY_VALUE, KEY_ENUMERATE_SUB_KEYS, and KEY_NOTIFY
+	 * values.
+	 */
+	int KEY_READ = 0x20019;
+
+	/** Notify the caller if a subkey is added or deleted. */
+	int REG_NOTIFY_CHANGE_NAME = 0x1;
+	/** Notify the caller of changes to a value of the key, e.g. adding, deleting or modifying. */
+	int REG_NOTIFY_CHANGE_LAST_SET = 0x4;
+
+	/**
+	 * Registry entries subordinate to this key define the physical state of the computer, including
+	 * data about the bus type, system memory, and installed hardware and software. It contains
+	 * subkeys that hold current configuration data, including Plug and Play information (the Enum
+	 * branch, which includes a complete list of all hardware that has ever been on the system),
+	 * network logon preferences, network security information, software-related information (such
+	 * as server names and the location of the server), and other system information.
+	 */
+	int HKEY_LOCAL_MACHINE = 0x80000002;
+
+	/**
+	 * The function allocates a buffer large enough to hold the formatted message, and places a
+	 * pointer to the allocated buffer at the address specified by lpBuffer. The lpBuffer parameter
+	 * is a pointer to an LPTSTR; you must cast the pointer to an LPTSTR (for example,
+	 * (LPTSTR)&lpBuffer). The nSize parameter specifies the minimum number of TCHARs to allocate
+	 * for an output message buffer. The caller should use the LocalFree function to free the buffer
+	 * when it is no longer needed. If the length of the formatted message exceeds 128K bytes, then
+	 * FormatMessage will fail and a subsequent call to GetLastError will return ERROR_MORE_DATA.
+	 */
+	int FORMAT_MESSAGE_ALLOCATE_BUFFER = 0x00000100;
+	/**
+	 * The Arguments parameter is not a va_list structure, but is a pointer to an array of values
+	 * that represent the arguments. This flag cannot be used with 64-bit integer values. If you are
+	 * using a 64-bit integer, you must use the va_list structure.
+	 */
+	int FORMAT_MESSAGE_ARGUMENT_ARRAY = 0x00002000;
+	/**
+	 * The lpSource parameter is a module handle containing the message-table resource(s) to search.
+	 * If this lpSource handle is NULL, the current process's application image file will be
+	 * searched. This flag cannot be used with FORMAT_MESSAGE_FROM_STRING. If the module has no
+	 * message table resource, the function fails with ERROR_RESOURCE_TYPE_NOT_FOUND.
+	 */
+	int FORMAT_MESSAGE_FROM_HMODULE = 0x00000800;
+	/**
+	 * The lpSource parameter is a pointer to a null-terminated string that contains a message
+	 * definition. The message definition may contain insert sequences, just as the message text in
+	 * a message table resource may. This flag cannot be used with FORMAT_MESSAGE_FROM_HMODULE or
+	 * FORMAT_MESSAGE_FROM_SYSTEM.
+	 */
+	int FORMAT_MESSAGE_FROM_STRING = 0x00000400;
+	/**
+	 * The function should search the system message-table resource(s) for the requested message. If
+	 * this flag is specified with FORMAT_MESSAGE_FROM_HMODULE, the function searches the system
+	 * message table if the message is not found in the module specified by lpSource. This flag
+	 * cannot be used with FORMAT_MESSAGE_FROM_STRING. If this flag is specified, an application can
+	 * pass the result of the GetLastError function to retrieve the message text for a
+	 * system-defined error.
+	 */
+	int FORMAT_MESSAGE_FROM_SYSTEM = 0x00001000;
+	/**
+	 * Insert sequences in the message definition are to be ignored and passed through to the output
+	 * buffer unchanged. This flag is useful for fetching a message for later formatting. If this
+	 * flag is set, the Arguments parameter is ignored.
+	 */
+	int FORMAT_MESSAGE_IGNORE_INSERTS = 0x00000200;
+
+	/** Neutral locale language */
+	short LANG_NEUTRAL = 0x00;
+	/** Neutral sublanguage */
+	short SUBLANG_NEUTRAL = 0x00;
+	/** User default sublanguage */
+	short SUBLANG_DEFAULT = 0x01;
+	/** English (en) */
+	short LANG_ENGLISH = 0x09;
+	/** United States (US) */
+	short SUBLANG_ENGLISH_US = 0x01;
+	/** United Kingdom (GB) */
+	short SUBLANG_ENGLISH_UK = 0x02;
+	/** System default locale language */
+	short LANG_SYSTEM_DEFAULT = 0x02;
+	/** System default sublanguage */
+	short SUBLANG_SYS_DEFAULT = 0x02;
+
+	/** A break was detected on input. */
+	int EV_BREAK = 0x0040;
+	/** The CTS (clear-to-send) signal changed state. */
+	int EV_CTS = 0x0008;
+	/** The DSR (data-set-ready) signal changed state. */
+	int EV_DSR = 0x0010;
+	/** A line-status error occurred. Line-status errors are CE_FRAME, CE_OVERRUN, and CE_RXPARITY. */
+	int EV_ERR = 0x0080;
+	/** A ring indicator was detected. */
+	int EV_RING = 0x0100;
+	/** The RLSD (receive-line-signal-detect) signal changed state. */
+	int EV_RLSD = 0x0020;
+	/** A character was received and placed in the input buffer. */
+	int EV_RXCHAR = 0x0001;
+	/**
+	 * The event character was received and placed in the input buffer. The event character is
+	 * specified in the device's DCB structure, which is applied to a serial port by using the
+	 * SetCommState function.
+	 */
+	int EV_RXFLAG = 0x0002;
+	/** The last character in the output buffer was sent. */
+	int EV_TXEMPTY = 0x0004;
+
+	/**
+	 * Terminates all outstanding overlapped read operations and returns immediately, even if the
+	 * read operations have not been completed.
+	 */
+	int PURGE_RXABORT = 0x0002;
+	/** Clears the input buffer (if the device driver has one). */
+	int PURGE_RXCLEAR = 0x0008;
+	/**
+	 * Terminates all outstanding overlapped write operations and returns immediately, even if the
+	 * write operations have not been completed.
+	 */
+	int PURGE_TXABORT = 0x0001;
+	/** Clears the output buffer (if the device driver has one). */
+	int PURGE_TXCLEAR = 0x0004;
+
+	/** The hardware detected a break condition. */
+	int CE_BREAK = 0x0010;
+	/** The hardware detected a framing error. */
+	int CE_FRAME = 0x0008;
+	/**
+	 * A character-buffer overrun has occurred. The next character is lost.
+	 */
+	int CE_OVERRUN = 0x0002;
+	/**
+	 * An input buffer overflow has occurred. There is either no room in the input buffer, or a
+	 * character was received after the end-of-file (EOF) character.
+	 */
+	int CE_RXOVER = 0x0001;
+	/** The hardware detected a parity error. */
+	int CE_RXPARITY = 0x0004;
+
+	/**
+	 * Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: Data was read, the number of read bytes is stored in
+	 * <code>lpNumberOfBytesRead</code>.
+	 */
+	int WAIT_AND_READ_SUCCEEDED = 0;
+	/**
+	 * Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: No data arrived within the time-out interval. The
+	 * <code>WaitCommEvent</code> operation is still pending, the next call must pass
+	 * <code>bPending=true</code>.
+	 */
+	int WAIT_AND_READ_TIMEOUT = 1;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: A communication error event was signaled. */
+	int WAIT_AND_READ_COMM_ERROR = 2;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: A wait operation returned {@link #WAIT_ABANDONED}. */
+	int WAIT_AND_READ_ABANDONED = 3;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: The pending <code>ReadFile</code> operation timed out. */
+	int WAIT_AND_READ_READ_TIMEOUT = 4;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: The cancel event was signaled. */
+	int WAIT_AND_READ_CANCELED = 5;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: <code>ResetEvent</code> failed. */
+	int WAIT_AND_READ_RESET_EVENT_FAILED = 10;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: <code>WaitCommEvent</code> failed. */
+	int WAIT_AND_READ_WAIT_COMM_EVENT_FAILED = 11;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: <code>WaitForSingleObject</code> or <code>WaitForMultipleObjects</code> failed. */
+	int WAIT_AND_READ_WAIT_FAILED = 12;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: <code>ClearCommError</code> failed. */
+	int WAIT_AND_READ_CLEAR_COMM_ERROR_FAILED = 13;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: <code>ReadFile</code> failed. */
+	int WAIT_AND_READ_READ_FILE_FAILED = 14;
+	/** Result of {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}: <code>GetOverlappedResult</code> failed. */
+	int WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED = 15;
+
+	/**
+	 * The CreateFile function can create a handle to a communications resource, such as the serial
+	 * port COM1. For communications resources, the dwCreationDisposition parameter must be
+	 * OPEN_EXISTING, the dwShareMode parameter must be zero (exclusive access), and the
+	 * hTemplateFile parameter must be NULL. Read, write, or read/write access can be specified, and
+	 * the handle can be opened for overlapped I/O. To specify a COM port number greater than 9, use
+	 * the following syntax: "\\.\COM10". This syntax works for all port numbers and hardware that
+	 * allows COM port numbers to be specified.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363858(v=vs.85).aspx">
+	 * CreateFile (MSDN)</a> for more details.</i>
+	 * 
+	 * @param lpFileName
+	 *            {@code _In_ LPCTSTR} - The name of the file or device to be created or opened. You
+	 *            may use either forward slashes (/) or backslashes (\) in this name.
+	 * @param dwDesiredAccess
+	 *            {@code _In_ DWORD} - The requested access to the file or device, which can be
+	 *            summarized as read, write, both or neither zero).
+	 * @param dwShareMode
+	 *            {@code _In_ DWORD} - The requested sharing mode of the file or device, which can
+	 *            be read, write, both, delete, all of these, or none (refer to the following
+	 *            table). Access requests to attributes or extended attributes are not affected by
+	 *            this flag. If this parameter is zero and CreateFile succeeds, the file or device
+	 *            cannot be shared and cannot be opened again until the handle to the file or device
+	 *            is closed. For more information, see the Remarks section.
+	 * @param lpSecurityAttributes
+	 *            {@code _In_opt_ LPSECURITY_ATTRIBUTES} - A pointer to a SECURITY_ATTRIBUTES
+	 *            structure that contains two separate but related data members: an optional
+	 *            security descriptor, and a Boolean value that determines whether the returned
+	 *            handle can be inherited by child processes. This parameter can be NULL.
+	 * @param dwCreationDisposition
+	 *            {@code _In_ DWORD} - An action to take on a file or device that exists or does not
+	 *            exist.
+	 * @param dwFlagsAndAttributes
+	 *            {@code _In_ DWORD} - The file or device attributes and flags,
+	 *            FILE_ATTRIBUTE_NORMAL being the most common default value for files.
+	 * @param hTemplateFile
+	 *            {@code _In_opt_ HANDLE} - A valid handle to a template file with the GENERIC_READ
+	 *            access right. The template file supplies file attributes and extended attributes
+	 *            for the file that is being created. This parameter can be NULL.
+	 * @return {@code HANDLE} - If the function succeeds, the return value is an open handle to the
+	 *         specified file, device, named pipe, or mail slot. If the function fails, the return
+	 *         value is {@link #INVALID_HANDLE_VALUE}. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	int CreateFileA(String lpFileName, int dwDesiredAccess, int dwShareMode, int lpSecurityAttributes, int dwCreationDisposition, int dwFlagsAndAttributes, int hTemplateFile);
+
+	/**
+	 * Closes an open object handle.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724211(v=vs.85).aspx">
+	 * CloseHandle (MSDN)</a> for more details.</i>
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A valid handle to an open object.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean CloseHandle(int handle);
+
+	/**
+	 * Retrieves the current control settings for a specified communications device.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363260(v=vs.85).aspx">
+	 * GetCommState (MSDN)</a> for more details.</i>
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
+	 *            function returns this handle.
+	 * @param dcb
+	 *            {@code _Inout_ LPDCB} - A pointer to a {@link DCB} structure that receives the
+	 *            control settings information.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean GetCommState(int handle, DCB dcb);
+
+	/**
+	 * Configures a communications device according to the specifications in a device-control block
+	 * (a DCB structure). The function reinitializes all hardware and control settings, but it does
+	 * not empty output or input queues.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363436(v=vs.85).aspx">
+	 * SetCommState (MSDN)</a> for more details.</i>
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
+	 *            function returns this handle.
+	 * @param dcb
+	 *            {@code _In_ LPDCB} - A pointer to a {@link DCB} structure that contains the
+	 *            configuration information for the specified communications device.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean SetCommState(int handle, DCB dcb);
+
+	/**
+	 * Creates or opens a named or unnamed event object.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms682396(v=vs.85).aspx">
+	 * CreateEvent (MSDN)</a> for more details.</i>
+	 * 
+	 * @param lpEventAttributes
+	 *            {@code _In_opt_ LPSECURITY_ATTRIBUTES} - A pointer to a SECURITY_ATTRIBUTES
+	 *            structure. If this parameter is NULL, the handle cannot be inherited by child
+	 *            processes.
+	 * @param bManualReset
+	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the function creates a
+	 *            manual-reset event object, which requires the use of the ResetEvent function to
+	 *            set the event state to nonsignaled. If this parameter is <code>false</code>, the
+	 *            function creates an auto-reset event object, and system automatically resets the
+	 *            event state to nonsignaled after a single waiting thread has been released.
+	 * @param bInitialState
+	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the initial state of
+	 *            the event object is signaled; otherwise, it is nonsignaled.
+	 * @param lpName
+	 *            {@code _In_opt_ LPCTSTR} - The name of the event object. The name is limited to
+	 *            MAX_PATH characters. Name comparison is case sensitive. If lpName matches the name
+	 *            of an existing named event object, this function requests the EVENT_ALL_ACCESS
+	 *            access right. In this case, the bManualReset and bInitialState parameters are
+	 *            ignored because they have already been set by the creating process. If the
+	 *            lpEventAttributes parameter is not NULL, it determines whether the handle can be
+	 *            inherited, but its security-descriptor member is ignored. If lpName is NULL, the
+	 *            event object is created without a name.
+	 * @return {@code HANDLE} - If the function succeeds, the return value is a handle to the event
+	 *         object. If the named event object existed before the function call, the function
+	 *         returns a handle to the existing object and {@link #GetLastError()} returns
+	 *         ERROR_ALREADY_EXISTS.
+	 *         <p>
+	 *         If the function fails, the return value is NULL.
+	 */
+	@CheckReturnValue
+	int CreateEventA(int lpEventAttributes, boolean bManualReset, boolean bInitialState, @Nullable String lpName);
+
+	/**
+	 * Writes data to the specified file or input/output (I/O) device.
+	 * <p>
+	 * This function is designed for both synchronous and asynchronous operation.
+	 * <p>
+	 * The elements of the Java array are only valid during the call. So a write, that is still
+	 * pending, is completed before this function returns. The native library of
+	 * {@link #NATIVE_VERSION_1} returns <code>false</code> with <code>ERROR_IO_PENDING</code> after
+	 * the array was released, so that the pending write may read from released memory. Use
+	 * {@link #WriteFile(int, NativeByteArray, int, DWORD, OVERLAPPED)} for overlapped writes.
+	 * <p>
+	 * <i> Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365747(v=vs.85).aspx">
+	 * WriteFile (MSDN)</a> for more details.</i>
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the file or I/O device (for example, a file,
+	 *            file stream, physical disk, volume, console buffer, tape drive, socket,
+	 *            communications resource, mailslot, or pipe). The hFile parameter must have been
+	 *            created with the write access.
+	 * @param lpBuffer
+	 *            {@code _In_ LPCVOID} - A pointer to the buffer containing the data to be written
+	 *            to the file or device. This buffer must remain valid for the duration of the write
+	 *            operation. The caller must not use this buffer until the write operation is
+	 *            completed.
+	 * @param nNumberOfBytesToWrite
+	 *            {@code _In_ DWORD} - The number of bytes to be written to the file or device. A
+	 *            value of zero specifies a null write operation. The behavior of a null write
+	 *            operation depends on the underlying file system or communications technology.
+	 * @param lpNumberOfBytesWritten
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
+	 *            bytes written when using a synchronous hFile parameter. WriteFile sets this value
+	 *            to zero before doing any work or error checking. Use NULL for this parameter if
+	 *            this is an asynchronous operation to avoid potentially erroneous results. This
+	 *            parameter can be NULL only when the lpOverlapped parameter is not NULL.
+	 * @param lpOverlapped
+	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
+	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise
+	 *            this parameter can be NULL.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
+	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
+	 *         return value is zero (<code>false</code>). To get extended error information, call
+	 *         the {@link #GetLastError()} function.
+	 */
+	@CheckReturnValue
+	boolean WriteFile(int handle, @Nonnull byte[] lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped);
+
+	/**
+	 * Writes the data of a native byte array to the specified file or input/output (I/O) device.
+	 * In contrast to {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)} the buffer remains
+	 * valid, when the function returns. So this function can be used for write operations, that
+	 * complete after the function returned.
+	 * <p>
+	 * <i> Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365747(v=vs.85).aspx">
+	 * WriteFile (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the file or I/O device, see
+	 *            {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)}.
+	 * @param lpBuffer
+	 *            {@code _In_ LPCVOID} - The native buffer containing the data to be written to the
+	 *            file or device. This buffer must not be disposed until the write operation is
+	 *            completed.
+	 * @param nNumberOfBytesToWrite
+	 *            {@code _In_ DWORD} - The number of bytes to be written to the file or device, must
+	 *            not be greater than the size of the buffer.
+	 * @param lpNumberOfBytesWritten
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
+	 *            bytes written when using a synchronous hFile parameter.
+	 * @param lpOverlapped
+	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
+	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise
+	 *            this parameter can be NULL.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
+	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
+	 *         return value is zero (<code>false</code>). To get extended error information, call
+	 *         the {@link #GetLastError()} function.
+	 */
+	@CheckReturnValue
+	boolean WriteFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped);
+
+	/**
+	 * Writes the data of a direct {@link ByteBuffer} to the specified file or input/output (I/O)
+	 * device without copying it. The data is read starting at the current position of the buffer,
+	 * the position of the buffer is <b>not</b> changed.
+	 * <p>
+	 * <i> Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365747(v=vs.85).aspx">
+	 * WriteFile (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the file or I/O device, see
+	 *            {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)}.
+	 * @param lpBuffer
+	 *            {@code _In_ LPCVOID} - A direct buffer containing the data to be written to the
+	 *            file or device. The buffer must remain reachable and must not be modified until
+	 *            the write operation is completed.
+	 * @param nNumberOfBytesToWrite
+	 *            {@code _In_ DWORD} - The number of bytes to be written to the file or device, must
+	 *            not be greater than {@link ByteBuffer#remaining() lpBuffer.remaining()}.
+	 * @param lpNumberOfBytesWritten
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
+	 *            bytes written when using a synchronous hFile parameter.
+	 * @param lpOverlapped
+	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
+	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise
+	 *            this parameter can be NULL.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
+	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
+	 *         return value is zero (<code>false</code>). If the given buffer is not a direct
+	 *         buffer the function fails with ERROR_INVALID_PARAMETER. To get extended error
+	 *         information, call the {@link #GetLastError()} function.
+	 */
+	@CheckReturnValue
+	boolean WriteFile(int handle, @Nonnull ByteBuffer lpBuffer, int nNumberOfBytesToWrite, @Nullable DWORD lpNumberOfBytesWritten, @Nullable OVERLAPPED lpOverlapped);
+
+	/**
+	 * Reads data from the specified file or input/output (I/O) device. Reads occur at the position
+	 * specified by the file pointer if supported by the device.
+	 * <p>
+	 * This function is designed for both synchronous and asynchronous operations.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365467(v=vs.85).aspx">
+	 * ReadFile (MSDN)</a> for more details.</i>
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the device (for example, a file, file stream,
+	 *            physical disk, volume, console buffer, tape drive, socket, communications
+	 *            resource, mailslot, or pipe). The hFile parameter must have been created with read
+	 *            access. For more information, see Generic Access Rights and File Security and
+	 *            Access Rights. For asynchronous read operations, hFile can be any handle that is
+	 *            opened with the FILE_FLAG_OVERLAPPED flag by the CreateFile function, or a socket
+	 *            handle returned by the socket or accept function.
+	 * @param lpBuffer
+	 *            {@code _Out_ LPCVOID} - A pointer to the buffer that receives the data read from a
+	 *            file or device. This buffer must remain valid for the duration of the read
+	 *            operation. The caller must not use this buffer until the read operation is
+	 *            completed.
+	 * @param nNumberOfBytesToRead
+	 *            {@code _In_ DWORD} - The maximum number of bytes to be read.
+	 * @param lpNumberOfBytesRead
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
+	 *            bytes read when using a synchronous hFile parameter. ReadFile sets this value to
+	 *            zero before doing any work or error checking. Use NULL for this parameter if this
+	 *            is an asynchronous operation to avoid potentially erroneous results. This
+	 *            parameter can be NULL only when the lpOverlapped parameter is not NULL.
+	 * @param lpOverlapped
+	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
+	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise it
+	 *            can be NULL.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
+	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
+	 *         return value is zero (<code>false</code>). To get extended error information, call
+	 *         the {@link #GetLastError()} function.
+	 */
+	@CheckReturnValue
+	boolean ReadFile(int handle, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped);
+
+	/**
+	 * Reads data from the specified file or input/output (I/O) device directly into the memory of a
+	 * direct {@link ByteBuffer}. The data is written starting at the current position of the
+	 * buffer, the position of the buffer is <b>not</b> changed.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365467(v=vs.85).aspx">
+	 * ReadFile (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the device, see
+	 *            {@link #ReadFile(int, NativeByteArray, int, DWORD, OVERLAPPED)}.
+	 * @param lpBuffer
+	 *            {@code _Out_ LPCVOID} - A direct buffer that receives the data read from a file or
+	 *            device. The buffer must remain reachable for the duration of the read operation.
+	 *            The caller must not use this buffer until the read operation is completed.
+	 * @param nNumberOfBytesToRead
+	 *            {@code _In_ DWORD} - The maximum number of bytes to be read, must not be greater
+	 *            than {@link ByteBuffer#remaining() lpBuffer.remaining()}.
+	 * @param lpNumberOfBytesRead
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to the variable that receives the number of
+	 *            bytes read when using a synchronous hFile parameter.
+	 * @param lpOverlapped
+	 *            {@code _Inout_opt_ LPOVERLAPPED} - A pointer to an {@link OVERLAPPED} structure is
+	 *            required if the hFile parameter was opened with FILE_FLAG_OVERLAPPED, otherwise it
+	 *            can be NULL.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero (
+	 *         <code>true</code>). If the function fails, or is completing asynchronously, the
+	 *         return value is zero (<code>false</code>). If the given buffer is not a direct
+	 *         buffer the function fails with ERROR_INVALID_PARAMETER. To get extended error
+	 *         information, call the {@link #GetLastError()} function.
+	 */
+	@CheckReturnValue
+	boolean ReadFile(int handle, @Nonnull ByteBuffer lpBuffer, int nNumberOfBytesToRead, @Nullable DWORD lpNumberOfBytesRead, OVERLAPPED lpOverlapped);
+
+	/**
+	 * Returns the last error code, that occured during a native method call by the current thread.
+	 * This method is a workaround for an issue with {@link #GetLastError()} were JNI or the VM
+	 * clears the error code, see (<a href="https://code.google.com/p/xidobi/issues/detail?id=3"
+	 * >Bug #3</a>).
+	 * <p>
+	 * A list of all Windows error codes can be found <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms681381(v=vs.85).aspx"
+	 * >here</a>.
+	 * <p>
+	 * <b>IMPORTANT:</b> This method returns the result of {@link #GetLastError()} that were
+	 * "preserved" in the native code, by calls to one of the following methods:
+	 * <ul>
+	 * <li> {@link #CloseHandle(int)}
+	 * <li> {@link #CreateEventA(int, boolean, boolean, String)}
+	 * <li> {@link #CreateFile(String, int, int, int, int, int, int)}
+	 * <li> {@link #GetCommState(int, DCB)}
+	 * <li> {@link #GetOverlappedResult(int, OVERLAPPED, DWORD, boolean)}
+	 * <li> {@link #ReadFile(int, NativeByteArray, int, DWORD, OVERLAPPED)}
+	 * <li> {@link #ReadFile(int, ByteBuffer, int, DWORD, OVERLAPPED)}
+	 * <li> {@link #SetCommState(int, DCB)}
+	 * <li> {@link #WaitForSingleObject(int, int)}
+	 * <li> {@link #WaitAndReadFile(int, NativeByteArray, int, DWORD, DWORD, INT, OVERLAPPED, int, boolean, int, int)}
+	 * <li> {@link #WriteFile(int, byte[], int, DWORD, OVERLAPPED)}
+	 * </ul>
+	 * 
+	 * @see #GetLastError()
+	 * @return the last error code
+	 */
+
+	/**
+	 * Retrieves the calling thread's last-error code value. The last-error code is maintained on a
+	 * per-thread basis. Multiple threads do not overwrite each other's last-error code.
+	 * <p>
+	 * A list of all Windows error codes can be found <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms681381(v=vs.85).aspx"
+	 * >here</a>.
+	 * <p>
+	 * This method returns 0 (<code>ERROR_SUCCESS</code>), if no error was stored for the current
+	 * thread.
+	 * 
+	 * @return {@code DWORD} - The return value is the calling thread's last-error code.
+	 */
+	int GetLastError();
+
+	/**
+	 * Retrieves the results of an overlapped operation on the specified file, named pipe, or
+	 * communications device. To specify a timeout interval or wait on an alertable thread, use
+	 * GetOverlappedResultEx.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms683209(v=vs.85).aspx">
+	 * GetOverlappedResult (MSDN)</a> for more details.</i>
+	 * 
+	 * @param handle
+	 *            {@code _In_ HANDLE} - A handle to the file, named pipe, or communications device.
+	 * @param lpOverlapped
+	 *            {@code _In_ LPOVERLAPPED } - A pointer to an {@link OVERLAPPED} structure that was
+	 *            specified when the overlapped operation was started.
+	 * @param lpNumberOfBytesTransferred
+	 *            {@code _Out_ LPDWORD} - A pointer to a variable that receives the number of bytes
+	 *            that were actually transferred by a read or write operation.
+	 * @param bWait
+	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, and the Internal
+	 *            member of the lpOverlapped structure is STATUS_PENDING, the function does not
+	 *            return until the operation has been completed. If this parameter is
+	 *            <code>false</code> and the operation is still pending, the function returns FALSE
+	 *            and the GetLastError function returns {@link #ERROR_IO_INCOMPLETE}.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean GetOverlappedResult(int handle, OVERLAPPED lpOverlapped, DWORD lpNumberOfBytesTransferred, boolean bWait);
+
+	/**
+	 * Waits until the specified object is in the signaled state or the time-out interval elapses.
+	 * <p>
+	 * To enter an alertable wait state, use the WaitForSingleObjectEx function. To wait for
+	 * multiple objects, use the WaitForMultipleObjects.
+	 * <p>
+	 * <b>Remarks:</b> The WaitForSingleObject function checks the current state of the specified
+	 * object. If the object's state is nonsignaled, the calling thread enters the wait state until
+	 * the object is signaled or the time-out interval elapses. The function modifies the state of
+	 * some types of synchronization objects. Modification occurs only for the object whose signaled
+	 * state caused the function to return. For example, the count of a semaphore object is
+	 * decreased by one.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms687032(v=vs.85).aspx">
+	 * WaitForSingleObject (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hHandle
+	 *            {@code _In_ HANDLE} - A handle to the object. For a list of the object types whose
+	 *            handles can be specified, see the following Remarks section. If this handle is
+	 *            closed while the wait is still pending, the function's behavior is undefined. The
+	 *            handle must have the SYNCHRONIZE access right. For more information, see <a href
+	 *            ="http://msdn.microsoft.com/en-us/library/windows/desktop/aa379607(v=vs.85).aspx"
+	 *            >Standard Access Rights</a>.
+	 * @param dwMilliseconds
+	 *            {@code _In_ DWORD} - The time-out interval, in milliseconds. If a nonzero value is
+	 *            specified, the function waits until the object is signaled or the interval
+	 *            elapses. If dwMilliseconds is zero, the function does not enter a wait state if
+	 *            the object is not signaled; it always returns immediately. If dwMilliseconds is
+	 *            INFINITE, the function will return only when the object is signaled.
+	 * @return {@code DWORD} - If the function succeeds, the return value indicates the event that
+	 *         caused the function to return. It can be one of the following values:
+	 *         <ul>
+	 *         <li>{@link #WAIT_ABANDONED} <li>{@link #WAIT_FAILED}<li> {@link #WAIT_OBJECT_0} <li>
+	 *         {@link #WAIT_TIMEOUT}
+	 *         </ul>
+	 */
+	@CheckReturnValue
+	int WaitForSingleObject(int hHandle, int dwMilliseconds);
+
+	/**
+	 * Waits until one or all of the specified objects are in the signaled state or the time-out
+	 * interval elapses.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms687025(v=vs.85).aspx">
+	 * WaitForMultipleObjects (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param nCount
+	 *            {@code _In_ DWORD} - The number of object handles in the array pointed to by
+	 *            lpHandles. The maximum number of object handles is {@link #MAXIMUM_WAIT_OBJECTS}.
+	 *            This parameter cannot be zero.
+	 * @param lpHandles
+	 *            {@code _In_ const HANDLE *} - An array of object handles. The array can contain
+	 *            handles to objects of different types. It may not contain multiple copies of the
+	 *            same handle. If one of these handles is closed while the wait is still pending, the
+	 *            function's behavior is undefined.
+	 * @param bWaitAll
+	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the function returns
+	 *            when the state of all objects in the lpHandles array is signaled. If
+	 *            <code>false</code>, the function returns when the state of any one of the objects
+	 *            is set to signaled. In the latter case, the return value indicates the object whose
+	 *            state caused the function to return.
+	 * @param dwMilliseconds
+	 *            {@code _In_ DWORD} - The time-out interval, in milliseconds. If dwMilliseconds is
+	 *            {@link #INFINITE}, the function will return only when the specified objects are
+	 *            signaled.
+	 * @return {@code DWORD} - If the function succeeds, the return value indicates the event that
+	 *         caused the function to return. It can be one of the following values:
+	 *         <ul>
+	 *         <li>{@link #WAIT_OBJECT_0} to (<code>WAIT_OBJECT_0 + nCount - 1</code>), the index of
+	 *         the signaled object is the return value minus {@link #WAIT_OBJECT_0}
+	 *         <li>{@link #WAIT_ABANDONED} to (<code>WAIT_ABANDONED + nCount - 1</code>)
+	 *         <li>{@link #WAIT_TIMEOUT}
+	 *         <li>{@link #WAIT_FAILED}
+	 *         </ul>
+	 */
+	@CheckReturnValue
+	int WaitForMultipleObjects(int nCount, @Nonnull int[] lpHandles, boolean bWaitAll, int dwMilliseconds);
+
+	/**
+	 * Opens the specified registry key. Note that key names are not case sensitive.
+	 * <p>
+	 * To perform transacted registry operations on a key, call the RegOpenKeyTransacted function.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724897(v=vs.85).aspx">
+	 * RegOpenKeyEx (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hKey
+	 *            {@code _In_ HKEY} - A handle to an open registry key.
+	 * @param lpSubKey
+	 *            {@code _In_opt_ LPCTSTR} - The name of the registry subkey to be opened. Key names
+	 *            are not case sensitive.
+	 * @param ulOptions
+	 *            {@code _Reserved_ DWORD} - This parameter is reserved and must be zero.
+	 * @param samDesired
+	 *            {@code _In_ REGSAM} - A mask that specifies the desired access rights to the key
+	 *            to be opened. The function fails if the security descriptor of the key does not
+	 *            permit the requested access for the calling process. For more information, see <a
+	 *            href
+	 *            ="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724878(v=vs.85).aspx"
+	 *            >Registry Key Security and Access Rights</a>.
+	 *            <ul>
+	 *            <li> {@link #KEY_WRITE} <li> {@link #KEY_READ} <li> {@link #KEY_EXECUTE}
+	 *            </ul>
+	 * @param phkResult
+	 *            {@code _Out_ PHKEY} - A pointer to a variable that receives a handle to the opened
+	 *            key. If the key is not one of the predefined registry keys, call the
+	 *            {@link #RegCloseKey(HKEY)} function after you have finished using the handle.
+	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS}.
+	 *         <p>
+	 *         If the function fails, the return value is a nonzero error code defined in
+	 *         Winerror.h.
+	 */
+	@CheckReturnValue
+	int RegOpenKeyExA(int hKey, String lpSubKey, int ulOptions, int samDesired, HKEY phkResult);
+
+	/**
+	 * Closes a handle to the specified registry key.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724837(v=vs.85).aspx">
+	 * RegCloseKey (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hKey
+	 *            {@code _In_ HKEY} - A handle to the open key to be closed.
+	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS}.
+	 *         If the function fails, the return value is a nonzero error code defined in
+	 *         Winerror.h.
+	 */
+	@CheckReturnValue
+	int RegCloseKey(HKEY hKey);
+
+	/**
+	 * Enumerates the values for the specified open registry key. The function copies one indexed
+	 * value name and data block for the key each time it is called.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724865(v=vs.85).aspx">
+	 * RegEnumValue (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hKey
+	 *            {@code _In_ HKEY} - A handle to an open registry key. The key must have been
+	 *            opened with the KEY_QUERY_VALUE access right.
+	 * @param dwIndex
+	 *            {@code _In_ DWORD} - The index of the value to be retrieved. This parameter should
+	 *            be zero for the first call to the RegEnumValueA function and then be incremented
+	 *            for subsequent calls.
+	 *            <p>
+	 *            Because values are not ordered, any new value will have an arbitrary index. This
+	 *            means that the function may return values in any order.
+	 * @param lpValueName
+	 *            {@code _Out_ LPTSTR} - A pointer to a buffer that receives the name of the value
+	 *            as a null-terminated string. This buffer must be large enough to include the
+	 *            terminating null character.
+	 * @param lpcchValueName
+	 *            {@code _Inout_ LPDWORD} - A pointer to a variable that specifies the size of the
+	 *            buffer pointed to by the lpValueName parameter, in characters. When the function
+	 *            returns, the variable receives the number of characters stored in the buffer, not
+	 *            including the terminating null character.
+	 * @param lpReserved
+	 *            {@code _Reserved_ LPDWORD} - This parameter is reserved and must be
+	 *            <code>null</code>.
+	 * @param lpType
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to a variable that receives a code
+	 *            indicating the type of data stored in the specified value. For a list of the
+	 *            possible type codes, see <a href=
+	 *            "http://msdn.microsoft.com/en-us/library/windows/desktop/ms724884(v=vs.85).aspx"
+	 *            >Registry Value Types</a>. The lpType parameter can be NULL if the type code is
+	 *            not required.
+	 * @param lpData
+	 *            {@code _Out_opt_ LPBYTE} - A pointer to a buffer that receives the data for the
+	 *            value entry. This parameter can be NULL if the data is not required.
+	 *            <p>
+	 *            If lpData is NULL and lpcbData is non-NULL, the function stores the size of the
+	 *            data, in bytes, in the variable pointed to by lpcbData. This enables an
+	 *            application to determine the best way to allocate a buffer for the data.
+	 * @param lpcbData
+	 *            {@code _Inout_opt_ LPDWORD} - A pointer to a variable that specifies the size of
+	 *            the buffer pointed to by the lpData parameter, in bytes. When the function
+	 *            returns, the variable receives the number of bytes stored in the buffer. This
+	 *            parameter can be NULL only if lpData is NULL. If the buffer specified by lpData is
+	 *            not large enough to hold the data, the function returns {@link #ERROR_MORE_DATA}
+	 *            and stores the required buffer size in the variable pointed to by lpcbData. In
+	 *            this case, the contents of lpData are undefined.
+	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS} .
+	 *         If the function fails, the return value is a system error code. If there are no more
+	 *         values available, the function returns {@link #ERROR_NO_MORE_ITEMS}. If the lpData
+	 *         buffer is too small to receive the value, the function returns
+	 *         {@link #ERROR_MORE_DATA}.
+	 */
+	@CheckReturnValue
+	int RegEnumValueA(HKEY hKey, int dwIndex, byte[] lpValueName, INT lpcchValueName, int lpReserved, INT lpType, byte[] lpData, INT lpcbData);
+
+	/**
+	 * Notifies the caller about changes to the attributes or contents of a specified registry key.
+	 * <p>
+	 * This function detects a single change. After the caller receives a notification event, it
+	 * should call the function again to receive the next notification. If the thread that called
+	 * the function exits, the event is signaled.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms724892(v=vs.85).aspx">
+	 * RegNotifyChangeKeyValue (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param hKey
+	 *            {@code _In_ HKEY} - A handle to an open registry key. This handle must be opened
+	 *            with the KEY_NOTIFY access right, e.g. with {@link #KEY_READ}.
+	 * @param bWatchSubtree
+	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the function reports
+	 *            changes in the specified key and its subkeys. If the parameter is
+	 *            <code>false</code>, the function reports changes only in the specified key.
+	 * @param dwNotifyFilter
+	 *            {@code _In_ DWORD} - A value that indicates the changes that should be reported.
+	 *            <ul>
+	 *            <li> {@link #REG_NOTIFY_CHANGE_NAME} <li> {@link #REG_NOTIFY_CHANGE_LAST_SET}
+	 *            </ul>
+	 * @param hEvent
+	 *            {@code _In_opt_ HANDLE} - A handle to an event. If the fAsynchronous parameter is
+	 *            <code>true</code>, the function returns immediately and changes are reported by
+	 *            signaling this event.
+	 * @param fAsynchronous
+	 *            {@code _In_ BOOL} - If this parameter is <code>true</code>, the function returns
+	 *            immediately and reports changes by signaling the specified event. If this
+	 *            parameter is <code>false</code>, the function does not return until a change has
+	 *            occurred.
+	 * @return {@code LONG} - If the function succeeds, the return value is {@link #ERROR_SUCCESS}.
+	 *         If the function fails, the return value is a nonzero error code defined in
+	 *         Winerror.h.
+	 */
+	@CheckReturnValue
+	int RegNotifyChangeKeyValue(HKEY hKey, boolean bWatchSubtree, int dwNotifyFilter, int hEvent, boolean fAsynchronous);
+
+	/**
+	 * Creates a <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/dd318691(v=vs.85).aspx"
+	 * >language identifier</a> from a primary language identifier and a sublanguage identifier.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/dd373908(v=vs.85).aspx">
+	 * MAKELANGID (MSDN)</a> for more details.</i>
+	 * 
+	 * @param usPrimaryLanguage
+	 *            {@code USHORT} - Primary language identifier. This identifier can be a predefined
+	 *            value or a value for a user-defined primary language. For a user-defined language,
+	 *            the identifier is a value in the range 0x0200 to 0x03FF. All other values are
+	 *            reserved for operating system use. For more information, see Language Identifier
+	 *            Constants and Strings.
+	 * @param usSubLanguage
+	 *            {@code USHORT} - Sublanguage identifier. This parameter can be a predefined
+	 *            sublanguage identifier or a user-defined sublanguage. For a user-defined
+	 *            sublanguage, the identifier is a value in the range 0x20 to 0x3F. All other values
+	 *            are reserved for operating system use. For more information, see Language
+	 *            Identifier Constants and Strings.
+	 * @return {@code DWORD} - Returns the language identifier.
+	 */
+	int MAKELANGID(short usPrimaryLanguage, short usSubLanguage);
+
+	/**
+	 * Formats a message string. The function requires a message definition as input. The message
+	 * definition can come from a buffer passed into the function. It can come from a message table
+	 * resource in an already-loaded module. Or the caller can ask the function to search the
+	 * system's message table resource(s) for the message definition. The function finds the message
+	 * definition in a message table resource based on a message identifier and a language
+	 * identifier. The function copies the formatted message text to an output buffer, processing
+	 * any embedded insert sequences if requested.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms679351(v=vs.85).aspx">
+	 * FormatMessage (MSDN)</a> for more details.</i>
+	 * 
+	 * @param dwFlags
+	 *            {@code _In_ DWORD} - The formatting options, and how to interpret the lpSource
+	 *            parameter. The low-order byte of dwFlags specifies how the function handles line
+	 *            breaks in the output buffer. The low-order byte can also specify the maximum width
+	 *            of a formatted output line. This parameter can be one or more of the following
+	 *            values:
+	 *            <ul>
+	 *            <li>{@link #FORMAT_MESSAGE_ALLOCATE_BUFFER}</li> <li>
+	 *            {@link #FORMAT_MESSAGE_ARGUMENT_ARRAY}</li> <li>
+	 *            {@link #FORMAT_MESSAGE_FROM_HMODULE}</li> <li>{@link #FORMAT_MESSAGE_FROM_STRING}
+	 *            </li> <li>{@link #FORMAT_MESSAGE_FROM_SYSTEM}</li> <li>
+	 *            {@link #FORMAT_MESSAGE_IGNORE_INSERTS}</li>
+	 *            </ul>
+	 * @param lpSource
+	 *            {@code _In_opt_ LPCVOID} - The location of the message definition. The type of
+	 *            this parameter depends upon the settings in the dwFlags parameter.
+	 *            <ul>
+	 *            <li>{@link #FORMAT_MESSAGE_FROM_HMODULE}</li> <li>
+	 *            {@link #FORMAT_MESSAGE_FROM_STRING}</li>
+	 *            </ul>
+	 * @param dwMessageId
+	 *            {@code _In_ DWORD} - The message identifier for the requested message. This
+	 *            parameter is ignored if dwFlags includes {@link #FORMAT_MESSAGE_FROM_STRING}.
+	 * @param dwLanguageId
+	 *            {@code _In_ DWORD} - The language identifier for the requested message. This
+	 *            parameter is ignored if dwFlags includes {@link #FORMAT_MESSAGE_FROM_STRING}.
+	 * @param lpBuffer
+	 *            {@code _Out_ LPTSTR} - A pointer to a buffer that receives the null-terminated
+	 *            string that specifies the formatted message. If dwFlags includes
+	 *            {@link #FORMAT_MESSAGE_ALLOCATE_BUFFER}, the function allocates a buffer using the
+	 *            LocalAlloc function, and places the pointer to the buffer at the address specified
+	 *            in lpBuffer. This buffer cannot be larger than 64K bytes.
+	 * @param nSize
+	 *            {@code _In_ DWORD} - If the {@link #FORMAT_MESSAGE_ALLOCATE_BUFFER} flag is not
+	 *            set, this parameter specifies the size of the output buffer, in TCHARs. If
+	 *            {@link #FORMAT_MESSAGE_ALLOCATE_BUFFER} is set, this parameter specifies the
+	 *            minimum number of TCHARs to allocate for an output buffer. The output buffer
+	 *            cannot be larger than 64K bytes.
+	 * @param arguments
+	 *            {@code _In_opt_ va_list*} - An array of values that are used as insert values in
+	 *            the formatted message. A %1 in the format string indicates the first value in the
+	 *            Arguments array; a %2 indicates the second argument; and so on.
+	 * @return {@code DWORD} - If the function succeeds, the return value is the number of TCHARs
+	 *         stored in the output buffer, excluding the terminating null character. If the
+	 *         function fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	int FormatMessageA(int dwFlags, Void lpSource, int dwMessageId, int dwLanguageId, @Nonnull byte[] lpBuffer, int nSize, Void arguments);
+
+	/**
+	 * Specifies a set of events to be monitored for a communications device.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363435(v=vs.85).aspx">
+	 * SetCommMask (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications device.
+	 * @param dwEvtMask
+	 *            {@code _In_ DWORD} - The events to be enabled. A value of zero disables all
+	 *            events. This parameter can be one or more of the following values:
+	 *            <ul>
+	 *            <li>{@link #EV_BREAK}<li>{@link #EV_CTS}<li>{@link #EV_DSR}<li>{@link #EV_ERR} 
+	 *            <li>{@link #EV_RING}<li>{@link #EV_RLSD}<li> {@link #EV_RXCHAR}
+	 *            </ul>
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean SetCommMask(int hFile, int dwEvtMask);
+
+	/**
+	 * Waits for an event to occur for a specified communications device. The set of events that are
+	 * monitored by this function is contained in the event mask associated with the device handle.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363479(v=vs.85).aspx">
+	 * WaitCommEvent (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications device.
+	 * @param lpEvtMask
+	 *            {@code _Out_ LPDWORD} -A pointer to a variable that receives a mask indicating the
+	 *            type of event that occurred. If an error occurs, the value is zero; otherwise, it
+	 *            is one of the following values:
+	 *            <ul>
+	 *            <li>{@link #EV_BREAK}<li>{@link #EV_CTS}<li>{@link #EV_DSR}<li>{@link #EV_ERR} 
+	 *            <li>{@link #EV_RING}<li>{@link #EV_RLSD}<li> {@link #EV_RXCHAR}
+	 *            </ul>
+	 * @param lpOverlapped
+	 *            {@code _In_ LPOVERLAPPED} - A pointer to an OVERLAPPED structure. This structure
+	 *            is required if hFile was opened with FILE_FLAG_OVERLAPPED.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean WaitCommEvent(int hFile, DWORD lpEvtMask, OVERLAPPED lpOverlapped);
+
+	/**
+	 * Sets the specified event object to the nonsignaled state.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms685081(v=vs.85).aspx">
+	 * ResetEvent (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hEvent
+	 *            {@code _In_ HANDLE} - A handle to the event object.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean ResetEvent(int hEvent);
+
+	/**
+	 * Discards all characters from the output or input buffer of a specified communications
+	 * resource. It can also terminate pending read or write operations on the resource.
+	 * <p>
+	 * <b>Remarks:</b> If a thread uses PurgeComm to flush an output buffer, the deleted characters
+	 * are not transmitted. To empty the output buffer while ensuring that the contents are
+	 * transmitted, call the FlushFileBuffers function (a synchronous operation). Note, however,
+	 * that FlushFileBuffers is subject to flow control but not to write time-outs, and it will not
+	 * return until all pending write operations have been transmitted.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363428(v=vs.85).aspx">
+	 * PurgeComm (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications resource.
+	 * @param dwFlags
+	 *            {@code _In_ DWORD} - This parameter can be one or more of the following values:
+	 *            <ul>
+	 *            <li>{@link #PURGE_RXABORT} <li>{@link #PURGE_RXCLEAR} <li>{@link #PURGE_TXABORT}
+	 *            <li>{@link #PURGE_TXCLEAR}
+	 *            </ul>
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean PurgeComm(int hFile, int dwFlags);
+
+	/**
+	 * Retrieves information about a communications error and reports the current status of a
+	 * communications device. The function is called when a communications error occurs, and it
+	 * clears the device's error flag to enable additional input and output (I/O) operations.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363180(v=vs.85).aspx">
+	 * ClearCommError (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications device.
+	 * @param lpErrors
+	 *            {@code _Out_opt_ LPDWORD} - A pointer to a variable that receives a mask
+	 *            indicating the type of error. This parameter can be one or more of the following
+	 *            values:
+	 *            <ul>
+	 *            <li>{@link #CE_BREAK} <li>{@link #CE_FRAME} <li>{@link #CE_OVERRUN} <li>
+	 *            {@link #CE_RXOVER} <li>{@link #CE_RXPARITY}
+	 *            </ul>
+	 * @param lpStat
+	 *            {@code _Out_opt_ LPCOMSTAT} - A pointer to a COMSTAT structure in which the
+	 *            device's status information is returned. If this parameter is NULL, no status
+	 *            information is returned.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean ClearCommError(int hFile, INT lpErrors, COMSTAT lpStat);
+
+	/**
+	 * Suspends character transmission for a specified communications device and places the
+	 * transmission line in a break state until the ClearCommBreak function is called.
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
+	 *            function returns this handle.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 * 
+	 * @deprecated We don't need this method at the moment. Maybe we can remove it!
+	 */
+	@Deprecated
+	@CheckReturnValue
+	boolean SetCommBreak(int hFile);
+
+	/**
+	 * Restores character transmission for a specified communications device and places the
+	 * transmission line in a nonbreak state.
+	 * <p>
+	 * A communications device is placed in a break state by the SetCommBreak or EscapeCommFunction
+	 * function. Character transmission is then suspended until the break state is cleared by
+	 * calling ClearCommBreak.
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications device. The CreateFile
+	 *            function returns this handle.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 * 
+	 * @deprecated We don't need this method at the moment. Maybe we can remove it!
+	 */
+	@Deprecated
+	@CheckReturnValue
+	boolean ClearCommBreak(int hFile);
+
+	/**
+	 * Marks any outstanding I/O operations for the specified file handle. The function only cancels
+	 * I/O operations in the current process, regardless of which thread created the I/O operation.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363791(v=vs.85).aspx">
+	 * CancelIo (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the file.
+	 * @param lpOverlapped
+	 *            {@code _In_opt_  LPOVERLAPPED} - A pointer to an OVERLAPPED data structure that
+	 *            contains the data used for asynchronous I/O.
+	 * @return {@code BOOL} - f the function succeeds, the return value is nonzero. The cancel
+	 *         operation for all pending I/O operations issued by the calling process for the
+	 *         specified file handle was successfully requested. The application must not free or
+	 *         reuse the OVERLAPPED structure associated with the canceled I/O operations until they
+	 *         have completed. The thread can use the GetOverlappedResult function to determine when
+	 *         the I/O operations themselves have been completed.
+	 */
+	@CheckReturnValue
+	boolean CancelIo(int hFile);
+
+	/**
+	 * Sets the specified event object to the signaled state.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms686211(v=vs.85).aspx">
+	 * SetEvent (MSDN)</a> for more details.</i>
+	 * 
+	 * @param hEvent
+	 *            {@code _In_ HANDLE} - A handle to the event object. The CreateEvent or OpenEvent
+	 *            function returns this handle. The handle must have the EVENT_MODIFY_STATE access
+	 *            right. For more information, see <a
+	 *            href="http://msdn.microsoft.com/en-us/library/windows/desktop/ms686670(v=vs.85).aspx"
+	 *            > Synchronization Object Security and Access Rights</a>.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean SetEvent(int hEvent);
+
+	/**
+	 * Waits for data to arrive at the specified communications device and reads the available
+	 * data, with a single native call. This is not a function of the Windows API, it combines the
+	 * following functions:
+	 * <ol>
+	 * <li>{@link #ResetEvent(int)} of the event of the overlapped structure
+	 * <li>{@link #WaitCommEvent(int, DWORD, OVERLAPPED)}
+	 * <li>{@link #WaitForMultipleObjects(int, int[], boolean, int)} of the event of the overlapped
+	 * structure and the cancel event, if the <code>WaitCommEvent</code> operation is pending
+	 * <li>{@link #ClearCommError(int, INT, COMSTAT)} to determine the number of available bytes
+	 * <li>{@link #ReadFile(int, NativeByteArray, int, DWORD, OVERLAPPED)} of the available bytes
+	 * <li>{@link #WaitForSingleObject(int, int)} and
+	 * {@link #GetOverlappedResult(int, OVERLAPPED, DWORD, boolean)}, if the <code>ReadFile</code>
+	 * operation is pending
+	 * </ol>
+	 * If no bytes are available after an event was signaled, the function waits for the next
+	 * event.
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param hFile
+	 *            {@code _In_ HANDLE} - A handle to the communications device, that was opened with
+	 *            FILE_FLAG_OVERLAPPED.
+	 * @param lpBuffer
+	 *            {@code _Out_ LPVOID} - The buffer that receives the data.
+	 * @param nNumberOfBytesToRead
+	 *            {@code _In_ DWORD} - The maximum number of bytes to be read, must not be greater
+	 *            than the size of the buffer.
+	 * @param lpNumberOfBytesRead
+	 *            {@code _Out_ LPDWORD} - Receives the number of bytes read.
+	 * @param lpEvtMask
+	 *            {@code _Out_ LPDWORD} - Receives the event mask of <code>WaitCommEvent</code>. The
+	 *            same instance must be passed, if <code>bPending</code> is <code>true</code>.
+	 * @param lpErrors
+	 *            {@code _Out_ LPDWORD} - Receives the error flags, that were reported by all calls
+	 *            of <code>ClearCommError</code> during this call, e.g. {@link #CE_OVERRUN}.
+	 * @param lpOverlapped
+	 *            {@code _In_ LPOVERLAPPED} - A pointer to an OVERLAPPED structure with an event
+	 *            that is used for all overlapped operations.
+	 * @param hCancelEvent
+	 *            {@code _In_ HANDLE} - A handle to an event, that cancels the wait for data when it
+	 *            is signaled, or {@link #NULL} if the wait can't be canceled.
+	 * @param bPending
+	 *            {@code _In_ BOOL} - <code>true</code>, if the previous call returned
+	 *            {@link #WAIT_AND_READ_TIMEOUT}. In this case the pending <code>WaitCommEvent</code>
+	 *            operation is awaited, instead of starting a new one.
+	 * @param dwMilliseconds
+	 *            {@code _In_ DWORD} - The time-out interval in milliseconds to wait for an event.
+	 * @param dwReadMilliseconds
+	 *            {@code _In_ DWORD} - The time-out interval in milliseconds to wait for a pending
+	 *            <code>ReadFile</code> operation.
+	 * @return one of the following values:
+	 *         <ul>
+	 *         <li>{@link #WAIT_AND_READ_SUCCEEDED}
+	 *         <li>{@link #WAIT_AND_READ_TIMEOUT}
+	 *         <li>{@link #WAIT_AND_READ_COMM_ERROR}
+	 *         <li>{@link #WAIT_AND_READ_ABANDONED}
+	 *         <li>{@link #WAIT_AND_READ_READ_TIMEOUT}
+	 *         <li>{@link #WAIT_AND_READ_CANCELED}
+	 *         <li>{@link #WAIT_AND_READ_RESET_EVENT_FAILED},
+	 *         {@link #WAIT_AND_READ_WAIT_COMM_EVENT_FAILED}, {@link #WAIT_AND_READ_WAIT_FAILED},
+	 *         {@link #WAIT_AND_READ_CLEAR_COMM_ERROR_FAILED},
+	 *         {@link #WAIT_AND_READ_READ_FILE_FAILED} or
+	 *         {@link #WAIT_AND_READ_GET_OVERLAPPED_RESULT_FAILED}, if the corresponding function
+	 *         failed. To get extended error information, call {@link #GetLastError()}.
+	 *         </ul>
+	 */
+	@CheckReturnValue
+	int WaitAndReadFile(int hFile, @Nonnull NativeByteArray lpBuffer, int nNumberOfBytesToRead, @Nonnull DWORD lpNumberOfBytesRead, @Nonnull DWORD lpEvtMask, @Nonnull INT lpErrors, @Nonnull OVERLAPPED lpOverlapped, int hCancelEvent, boolean bPending, int dwMilliseconds, int dwReadMilliseconds);
+
+	/**
+	 * Creates an input/output (I/O) completion port and associates it with a specified file
+	 * handle, or creates an I/O completion port that is not yet associated with a file handle,
+	 * allowing association at a later time.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa363862(v=vs.85).aspx">
+	 * CreateIoCompletionPort (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param FileHandle
+	 *            {@code _In_ HANDLE} - An open file handle, that was opened with
+	 *            FILE_FLAG_OVERLAPPED, or {@link #INVALID_HANDLE_VALUE}. If
+	 *            {@link #INVALID_HANDLE_VALUE} is specified, the function creates an I/O completion
+	 *            port without associating it with a file handle. In this case, the
+	 *            ExistingCompletionPort parameter must be {@link #NULL} and the CompletionKey
+	 *            parameter is ignored.
+	 * @param ExistingCompletionPort
+	 *            {@code _In_opt_ HANDLE} - A handle to an existing I/O completion port or
+	 *            {@link #NULL}. If this parameter specifies an existing I/O completion port, the
+	 *            function associates it with the handle specified by the FileHandle parameter.
+	 * @param CompletionKey
+	 *            {@code _In_ ULONG_PTR} - The per-handle user-defined completion key that is
+	 *            included in every I/O completion packet for the specified file handle.
+	 * @param NumberOfConcurrentThreads
+	 *            {@code _In_ DWORD} - The maximum number of threads that the operating system can
+	 *            allow to concurrently process I/O completion packets for the I/O completion port.
+	 *            If this parameter is zero, the system allows as many concurrently running threads
+	 *            as there are processors in the system. This parameter is ignored, if the
+	 *            ExistingCompletionPort parameter is not {@link #NULL}.
+	 * @return {@code HANDLE} - If the function succeeds, the return value is the handle to an I/O
+	 *         completion port. If the function fails, the return value is {@link #NULL}. To get
+	 *         extended error information, call the {@link #GetLastError()} function.
+	 */
+	@CheckReturnValue
+	int CreateIoCompletionPort(int FileHandle, int ExistingCompletionPort, int CompletionKey, int NumberOfConcurrentThreads);
+
+	/**
+	 * Attempts to dequeue an I/O completion packet from the specified I/O completion port. If there
+	 * is no completion packet queued, the function waits for a pending I/O operation associated
+	 * with the completion port to complete.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa364986(v=vs.85).aspx">
+	 * GetQueuedCompletionStatus (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param CompletionPort
+	 *            {@code _In_ HANDLE} - A handle to the completion port.
+	 * @param lpNumberOfBytes
+	 *            {@code _Out_ LPDWORD} - Receives the number of bytes transferred during an I/O
+	 *            operation that has completed.
+	 * @param lpCompletionKey
+	 *            {@code _Out_ PULONG_PTR} - Receives the completion key value associated with the
+	 *            file handle whose I/O operation has completed.
+	 * @param lpOverlapped
+	 *            {@code _Out_ LPOVERLAPPED *} - Receives the address of the {@link OVERLAPPED}
+	 *            structure that was specified when the completed I/O operation was started, see
+	 *            {@link OVERLAPPED#getAddress()}. Receives {@link #NULL}, if no completion packet
+	 *            was dequeued.
+	 * @param dwMilliseconds
+	 *            {@code _In_ DWORD} - The number of milliseconds that the caller is willing to wait
+	 *            for a completion packet to appear at the completion port, or {@link #INFINITE}.
+	 * @return {@code BOOL} - Returns nonzero (<code>true</code>) if successful or zero (
+	 *         <code>false</code>) otherwise. If a completion packet for a failed I/O operation was
+	 *         dequeued, the function returns <code>false</code> and <code>lpOverlapped</code>
+	 *         receives the address of the {@link OVERLAPPED} structure. To get extended error
+	 *         information, call {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean GetQueuedCompletionStatus(int CompletionPort, @Nonnull INT lpNumberOfBytes, @Nonnull INT lpCompletionKey, @Nonnull INT lpOverlapped, int dwMilliseconds);
+
+	/**
+	 * Posts an I/O completion packet to an I/O completion port.
+	 * <p>
+	 * <i>Please see <a
+	 * href="http://msdn.microsoft.com/en-us/library/windows/desktop/aa365458(v=vs.85).aspx">
+	 * PostQueuedCompletionStatus (MSDN)</a> for more details.</i>
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param CompletionPort
+	 *            {@code _In_ HANDLE} - A handle to an I/O completion port to which the I/O
+	 *            completion packet is to be posted.
+	 * @param dwNumberOfBytesTransferred
+	 *            {@code _In_ DWORD} - The value to be returned through the lpNumberOfBytes
+	 *            parameter of the {@link #GetQueuedCompletionStatus(int, INT, INT, INT, int)}
+	 *            function.
+	 * @param dwCompletionKey
+	 *            {@code _In_ ULONG_PTR} - The value to be returned through the lpCompletionKey
+	 *            parameter of the {@link #GetQueuedCompletionStatus(int, INT, INT, INT, int)}
+	 *            function.
+	 * @param lpOverlapped
+	 *            {@code _In_opt_ LPOVERLAPPED} - The value to be returned through the lpOverlapped
+	 *            parameter of the {@link #GetQueuedCompletionStatus(int, INT, INT, INT, int)}
+	 *            function.
+	 * @return {@code BOOL} - If the function succeeds, the return value is nonzero. If the function
+	 *         fails, the return value is zero. To get extended error information, call
+	 *         {@link #GetLastError()}.
+	 */
+	@CheckReturnValue
+	boolean PostQueuedCompletionStatus(int CompletionPort, int dwNumberOfBytesTransferred, int dwCompletionKey, int lpOverlapped);
+
+	/**
+	 * Allocates a block of {@code size} bytes of memory, returning a pointer to the beginning of
+	 * the block.
+	 * <p>
+	 * The content of the newly allocated block of memory is not initialized, remaining with
+	 * indeterminate values.
+	 * <p>
+	 * If size is zero, the return value depends on the particular library implementation (it may or
+	 * may not be a null pointer), but the returned pointer shall not be used to dereference an
+	 * object in any case.
+	 * 
+	 * @param size
+	 *            the size of the memory
+	 * @return On success, a pointer to the memory block allocated by the function. If the function
+	 *         failed to allocate the requested block of memory, {@link #NULL} (a null pointer) is
+	 *         returned.
+	 */
+	int malloc(@Nonnegative int size);
+
+	/**
+	 * Sets the bytes of the memory to the specified value.
+	 * 
+	 * @param ptr
+	 *            pointer to the block of memory to fill
+	 * @param value
+	 *            value to be set. The value is passed as an int, but the function fills the block
+	 *            of memory using the unsigned char conversion of this value.
+	 * @param num
+	 *            number of bytes to be set to the value.
+	 */
+	void memset(int ptr, int value, int num);
+
+	/**
+	 * Frees the memory of the given pointer.
+	 * 
+	 * @param pointer
+	 *            pointer to the memory
+	 */
+	void free(int pointer);
+
+	/**
+	 * Size of an OVERLAPPED struct.
+	 * 
+	 * @return the size of the OVERLAPPED struct
+	 */
+	int sizeOf_OVERLAPPED();
+
+	/**
+	 * Size of an HKEY struct.
+	 * 
+	 * @return the size of the HKEY struct
+	 */
+	int sizeOf_HKEY();
+
+	/**
+	 * Size of an HKEY struct.
+	 * 
+	 * @return the size of the HKEY struct
+	 */
+	int sizeOf_DWORD();
+
+	/**
+	 * Returns the version of the loaded native library. The functions, that were added after the
+	 * first version, document the version they require. Calling them with a native library of a
+	 * previous version fails with an {@link UnsatisfiedLinkError} or, for overloaded functions, may
+	 * even call the wrong native function.
+	 * 
+	 * @return the version of the native library, e.g. {@link #NATIVE_VERSION_1} or
+	 *         {@link #NATIVE_VERSION_2}
+	 */
+	int getNativeVersion();
+
+	/**
+	 * Returns the byte array with the specified length for the given native byte array pointer.
+	 * 
+	 * @param nativeByteArray
+	 *            the native byte array pointer
+	 * @param length
+	 *            the length of the byte array, must be greater than 0 and lower than or equal to
+	 *            the size of the native byte array
+	 * @return the byte array of the specified length
+	 */
+	byte[] getByteArray(@Nonnull NativeByteArray nativeByteArray, @Nonnegative int length);
+
+	/**
+	 * Copies the given number of bytes from the beginning of the native byte array to the byte
+	 * array, starting at the given offset. Unlike
+	 * {@link #getByteArray(NativeByteArray, int)} no intermediate byte array is allocated.
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param nativeByteArray
+	 *            the native byte array pointer, must not be <code>null</code>
+	 * @param data
+	 *            the byte array that receives the bytes, must not be <code>null</code>
+	 * @param offset
+	 *            the index in <code>data</code>, where the first byte is copied to
+	 * @param length
+	 *            the number of bytes to copy, must not be greater than the size of the native byte
+	 *            array
+	 */
+	void getByteArrayRegion(@Nonnull NativeByteArray nativeByteArray, @Nonnull byte[] data, @Nonnegative int offset, @Nonnegative int length);
+
+	/**
+	 * Copies the given number of bytes of the byte array, starting at the given offset, to the
+	 * native byte array, starting at the given index.
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param nativeByteArray
+	 *            the native byte array pointer, must not be <code>null</code>
+	 * @param index
+	 *            the index in the native byte array, where the first byte is copied to
+	 * @param data
+	 *            the bytes to copy, must not be <code>null</code>
+	 * @param offset
+	 *            the index of the first byte in <code>data</code> to copy
+	 * @param length
+	 *            the number of bytes to copy, <code>index + length</code> must not be greater than
+	 *            the size of the native byte array
+	 */
+	void copyByteArray(@Nonnull NativeByteArray nativeByteArray, @Nonnegative int index, @Nonnull byte[] data, @Nonnegative int offset, @Nonnegative int length);
+
+	/**
+	 * Copies the given number of bytes of a direct {@link ByteBuffer}, starting at the given
+	 * offset, to the native byte array, starting at the given index. The bytes are copied in native
+	 * code, without a copy into the Java heap. The position of the buffer is <b>not</b> changed.
+	 * <p>
+	 * <b>Requires</b> a native library of {@link #NATIVE_VERSION_2}, see {@link #getNativeVersion()}.
+	 * 
+	 * @param nativeByteArray
+	 *            the native byte array pointer, must not be <code>null</code>
+	 * @param index
+	 *            the index in the native byte array, where the first byte is copied to
+	 * @param data
+	 *            a direct buffer containing the bytes to copy, must not be <code>null</code>
+	 * @param offset
+	 *            the absolute index of the first byte in <code>data</code> to copy
+	 * @param length
+	 *            the number of bytes to copy, <code>index + length</code> must not be greater than
+	 *            the size of the native byte array
+	 * @return <code>true</code> if the bytes were copied, <code>false</code> if the buffer is not
+	 *         a direct buffer
+	 */
+	@CheckReturnValue
+	boolean copyDirectBuffer(@Nonnull NativeByteArray nativeByteArray, @Nonnegative int index, @Nonnull ByteBuffer data, @Nonnegative int offset, @Nonnegative int length);
+
+	/**
+	 * Returns the value of the DWORD pointer.
+	 * 
+	 * @param dword
+	 *            the pointer to the DWORD, must not be <code>null</code>
+	 * @return the value of the DWORD pointer
+	 */
+	int getValue_DWORD(@Nonnull DWORD dword);
+
+	/**
+	 * Sets the value of the DWORD pointer.
+	 * 
+	 * @param dword
+	 *            the pointer to the DWORD, must not be <code>null</code>
+	 * @param value
+	 *            the value of the DWORD pointer
+	 */
+	void setValue_DWORD(@Nonnull DWORD dword, int value);
+
+}
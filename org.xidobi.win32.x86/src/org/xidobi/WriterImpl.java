@@ -1,109 +1,379 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import static org.xidobi.WinApi.ERROR_IO_PENDING;
-import static org.xidobi.WinApi.WAIT_ABANDONED;
-import static org.xidobi.WinApi.WAIT_FAILED;
-import static org.xidobi.WinApi.WAIT_OBJECT_0;
-import static org.xidobi.WinApi.WAIT_TIMEOUT;
-import static org.xidobi.utils.Throwables.newNativeCodeException;
-
-import java.io.IOException;
-
-import javax.annotation.Nonnull;
-
-import org.xidobi.spi.NativeCodeException;
-import org.xidobi.spi.Writer;
-
-/**
- * Implementation for write operations.
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public class WriterImpl extends IoOperationImpl implements Writer {
-
-	/** Write timeout in milliseconds */
-	private int writeTimeout = 2000;
-
-	/**
-	 * Creates a new write operation.
-	 * 
-	 * @param port
-	 *            the serial port, must not be <code>null</code>
-	 * @param os
-	 *            the native Win32-API, must not be <code>null</code>
-	 * @param handle
-	 *            the native handle of the serial port
-	 */
-	public WriterImpl(	@Nonnull SerialPort port,
-						@Nonnull WinApi os,
-						int handle) {
-		super(port, os, handle);
-	}
-
-	/** {@inheritDoc} */
-	public void write(@Nonnull byte[] data) throws IOException {
-		disposeLock.lock();
-		try {
-			checkIfClosedOrDisposed();
-
-			resetOverlappedEventHandle();
-
-			// write data to serial port
-			boolean succeed = os.WriteFile(handle, data, data.length, numberOfBytesTransferred, overlapped);
-
-			if (succeed) {
-				// the write operation succeeded immediatly
-				if (numberOfBytesTransferred.getValue() != data.length)
-					throw new NativeCodeException("WriteFile returned an unexpected number of transferred bytes! Transferred: " + numberOfBytesTransferred.getValue() + ", expected: " + data.length);
-				return;
-			}
-
-			int lastError = os.GetLastError();
-			if (lastError != ERROR_IO_PENDING)
-				handleNativeError("WriteFile", lastError);
-
-			// wait for pending I/O operation to complete
-			int waitResult = os.WaitForSingleObject(overlapped.hEvent, writeTimeout);
-			switch (waitResult) {
-				case WAIT_OBJECT_0: // IO operation has finished
-					if (!os.GetOverlappedResult(handle, overlapped, numberOfBytesTransferred, true))
-						handleNativeError("GetOverlappedResult", os.GetLastError());
-
-					// verify that the number of transferred bytes is equal to the data length that
-					// was written:
-					if (numberOfBytesTransferred.getValue() != data.length)
-						throw new NativeCodeException("GetOverlappedResult returned an unexpected number of transferred bytes! Transferred: " + numberOfBytesTransferred.getValue() + ", expected: " + data.length);
-					return;
-				case WAIT_TIMEOUT:
-					// I/O operation has timed out
-					throw new IOException("Write operation timed out after " + writeTimeout + " milliseconds!");
-				case WAIT_ABANDONED:
-					throw new NativeCodeException("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
-				case WAIT_FAILED:
-					handleNativeError("WaitForSingleObject", os.GetLastError());
-				default:
-					throw newNativeCodeException(os, "WaitForSingleObject returned unexpected value! Got: " + waitResult, os.GetLastError());
-			}
-		}
-		finally {
-			disposeLock.unlock();
-		}
-	}
-
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.min;
+import static org.xidobi.WinApi.ERROR_IO_PENDING;
+import static org.xidobi.WinApi.NATIVE_VERSION_2;
+import static org.xidobi.WinApi.WAIT_ABANDONED;
+import static org.xidobi.WinApi.WAIT_FAILED;
+import static org.xidobi.WinApi.WAIT_OBJECT_0;
+import static org.xidobi.WinApi.WAIT_TIMEOUT;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+import static org.xidobi.utils.Throwables.newNativeCodeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.spi.NativeCodeException;
+import org.xidobi.spi.Writer;
+import org.xidobi.structs.DWORD;
+import org.xidobi.structs.NativeByteArray;
+import org.xidobi.structs.OVERLAPPED;
+
+/**
+ * Implementation for write operations.
+ * <p>
+ * The data is copied into a native staging buffer, that is reused for all write operations. The
+ * staging buffer stays allocated until this instance is disposed, so it remains valid while an
+ * overlapped write is pending, even if the write timed out. Data, that doesn't fit into the
+ * staging buffer, is written in several chunks. Large writes can avoid the copy by passing a
+ * direct {@link ByteBuffer} to {@link #write(ByteBuffer)}. Several buffers passed to
+ * {@link #write(ByteBuffer[])} are gathered into the staging buffer and written together.
+ * <p>
+ * The staging buffer requires a native library of {@link WinApi#NATIVE_VERSION_2}. With an older
+ * library the data is passed as Java array to <code>WriteFile</code>, like before, see
+ * {@link WinApi#getNativeVersion()}. The array is only safe, if the native library completes a
+ * pending write before it releases the array, see
+ * {@link WinApi#WriteFile(int, byte[], int, DWORD, OVERLAPPED)}.
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public class WriterImpl extends IoOperationImpl implements Writer {
+
+	/** Write timeout in milliseconds */
+	private int writeTimeout = 2000;
+
+	/** the native staging buffer, that is reused for all write operations */
+	@Nonnull
+	private final StagingBuffer stagingBuffer;
+
+	/**
+	 * the direct buffer of the last write, keeps the buffer reachable until the write is completed
+	 * or this instance is disposed
+	 */
+	@Nullable
+	private ByteBuffer pendingDirectBuffer;
+
+	/**
+	 * <code>true</code>, if the data is written from the native staging buffer or a direct buffer,
+	 * <code>false</code> if the native library doesn't support it and the data is written from a
+	 * Java array
+	 */
+	private final boolean nativeWrites;
+
+	/**
+	 * Creates a new write operation with a staging buffer of
+	 * {@link StagingBuffer#DEFAULT_MAX_CAPACITY}.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 */
+	public WriterImpl(	@Nonnull SerialPort port,
+						@Nonnull WinApi os,
+						int handle) {
+		this(port, os, handle, StagingBuffer.DEFAULT_MAX_CAPACITY);
+	}
+
+	/**
+	 * Creates a new write operation.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param handle
+	 *            the native handle of the serial port
+	 * @param maxStagingSize
+	 *            the maximum size of the native staging buffer in bytes, must be greater than 0
+	 */
+	public WriterImpl(	@Nonnull SerialPort port,
+						@Nonnull WinApi os,
+						int handle,
+						@Nonnegative int maxStagingSize) {
+		super(port, os, handle);
+		stagingBuffer = new StagingBuffer(os, maxStagingSize);
+		nativeWrites = os.getNativeVersion() >= NATIVE_VERSION_2;
+	}
+
+	/** {@inheritDoc} */
+	public void write(@Nonnull byte[] data) throws IOException {
+		beginOperation();
+		try {
+			if (nativeWrites)
+				writeStaged(data, 0, data.length);
+			else
+				writeArray(data, data.length);
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A direct buffer is written without copying its content, all other buffers are copied into
+	 * the native staging buffer.
+	 */
+	public void write(@Nonnull ByteBuffer data) throws IOException {
+		checkArgumentNotNull(data, "data");
+
+		beginOperation();
+		try {
+			if (!nativeWrites)
+				writeArray(new ByteBuffer[] { data });
+			else if (data.isDirect())
+				writeDirect(data);
+			else
+				writeGathered(new ByteBuffer[] { data });
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A single direct buffer is written without copying its content. Otherwise the buffers are
+	 * copied one after another into the native staging buffer and written by one
+	 * <code>WriteFile</code> per staging buffer, the content of direct buffers is copied in native
+	 * code.
+	 */
+	public void write(@Nonnull ByteBuffer[] data) throws IOException {
+		checkArgumentNotNull(data, "data");
+
+		beginOperation();
+		try {
+			if (!nativeWrites)
+				writeArray(data);
+			else if (data.length == 1 && data[0].isDirect())
+				writeDirect(data[0]);
+			else
+				writeGathered(data);
+		}
+		finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * Writes the data in chunks, that fit into the native staging buffer. Nothing is written, if
+	 * the length is 0.
+	 */
+	private void writeStaged(byte[] data, int offset, int length) throws IOException {
+		while (length > 0) {
+			int chunkLength = stagingBuffer.limit(length);
+			NativeByteArray buffer = stagingBuffer.get(chunkLength);
+			os.copyByteArray(buffer, 0, data, offset, chunkLength);
+
+			resetOverlappedEventHandle();
+
+			// write data to serial port
+			boolean succeed = os.WriteFile(handle, buffer, chunkLength, numberOfBytesTransferred, overlapped);
+			awaitCompletion(succeed, chunkLength);
+
+			offset += chunkLength;
+			length -= chunkLength;
+		}
+	}
+
+	/** Writes the remaining bytes of the direct buffer without copying them. */
+	private void writeDirect(ByteBuffer data) throws IOException {
+		int length = data.remaining();
+		if (length == 0)
+			return;
+
+		resetOverlappedEventHandle();
+
+		// keep the buffer reachable, until the write operation is completed
+		pendingDirectBuffer = data;
+
+		// write data to serial port
+		boolean succeed = os.WriteFile(handle, data, length, numberOfBytesTransferred, overlapped);
+		awaitCompletion(succeed, length);
+
+		pendingDirectBuffer = null;
+		data.position(data.limit());
+	}
+
+	/**
+	 * Copies the remaining bytes of the buffers in chunks into the native staging buffer and
+	 * writes each chunk.
+	 */
+	private void writeGathered(ByteBuffer[] data) throws IOException {
+		long length = 0;
+		for (ByteBuffer src : data)
+			length += src.remaining();
+
+		while (length > 0) {
+			int chunkLength = stagingBuffer.limit((int) min(length, Integer.MAX_VALUE));
+			NativeByteArray buffer = stagingBuffer.get(chunkLength);
+			gather(os, buffer, chunkLength, data);
+
+			resetOverlappedEventHandle();
+
+			// write data to serial port
+			boolean succeed = os.WriteFile(handle, buffer, chunkLength, numberOfBytesTransferred, overlapped);
+			awaitCompletion(succeed, chunkLength);
+
+			length -= chunkLength;
+		}
+	}
+
+	/**
+	 * Copies the remaining bytes of the buffers into a Java array and writes it, this is used if
+	 * the native library doesn't support the staging buffer.
+	 */
+	private void writeArray(ByteBuffer[] data) throws IOException {
+		long length = 0;
+		for (ByteBuffer src : data)
+			length += src.remaining();
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Can't write more than " + Integer.MAX_VALUE + " bytes at once! Got: " + length);
+
+		byte[] array = new byte[(int) length];
+		int index = 0;
+		for (ByteBuffer src : data) {
+			int n = src.remaining();
+			src.get(array, index, n);
+			index += n;
+		}
+		writeArray(array, array.length);
+	}
+
+	/**
+	 * Writes the given number of bytes of the Java array with one <code>WriteFile</code>, this is
+	 * used if the native library doesn't support the staging buffer. Nothing is written, if the
+	 * length is 0.
+	 */
+	private void writeArray(byte[] data, int length) throws IOException {
+		if (length == 0)
+			return;
+
+		resetOverlappedEventHandle();
+
+		// write data to serial port
+		boolean succeed = os.WriteFile(handle, data, length, numberOfBytesTransferred, overlapped);
+		awaitCompletion(succeed, length);
+	}
+
+	/**
+	 * Copies the given number of bytes from the remaining bytes of the buffers into the native
+	 * byte array and advances the positions of the buffers by the number of copied bytes. The
+	 * content of direct buffers is copied in native code, the content of heap buffers is copied
+	 * from their backing array.
+	 * 
+	 * @param os
+	 *            the native Win32-API, must not be <code>null</code>
+	 * @param buffer
+	 *            the native byte array, must not be <code>null</code>
+	 * @param length
+	 *            the number of bytes to copy, must not be greater than the size of the native byte
+	 *            array and the number of remaining bytes of the buffers
+	 * @param data
+	 *            the buffers, must not be <code>null</code>
+	 */
+	static void gather(@Nonnull WinApi os, @Nonnull NativeByteArray buffer, int length, @Nonnull ByteBuffer[] data) {
+		int index = 0;
+		for (int i = 0; i < data.length && index < length; i++) {
+			ByteBuffer src = data[i];
+			int n = min(src.remaining(), length - index);
+			if (n == 0)
+				continue;
+
+			if (src.isDirect()) {
+				if (!os.copyDirectBuffer(buffer, index, src, src.position(), n))
+					throw new NativeCodeException("copyDirectBuffer failed, the buffer is not a direct buffer!");
+			}
+			else if (src.hasArray())
+				os.copyByteArray(buffer, index, src.array(), src.arrayOffset() + src.position(), n);
+			else {
+				// e.g. a read-only heap buffer, that doesn't expose its array
+				byte[] copy = new byte[n];
+				src.duplicate().get(copy);
+				os.copyByteArray(buffer, index, copy, 0, n);
+			}
+			src.position(src.position() + n);
+			index += n;
+		}
+	}
+
+	/**
+	 * Waits until the write operation of the given number of bytes is completed.
+	 * 
+	 * @param succeed
+	 *            the result of <code>WriteFile</code>
+	 * @param length
+	 *            the number of bytes, that must be written
+	 */
+	private void awaitCompletion(boolean succeed, int length) throws IOException {
+		if (succeed) {
+			// the write operation succeeded immediatly
+			if (numberOfBytesTransferred.getValue() != length)
+				throw new NativeCodeException("WriteFile returned an unexpected number of transferred bytes! Transferred: " + numberOfBytesTransferred.getValue() + ", expected: " + length);
+			return;
+		}
+
+		int lastError = os.GetLastError();
+		if (lastError != ERROR_IO_PENDING)
+			handleNativeError("WriteFile", lastError);
+		ioPending();
+
+		// wait for pending I/O operation to complete
+		int waitResult = os.WaitForSingleObject(overlapped.hEvent, writeTimeout);
+		switch (waitResult) {
+			case WAIT_OBJECT_0: // IO operation has finished
+				ioCompleted();
+				if (!os.GetOverlappedResult(handle, overlapped, numberOfBytesTransferred, true))
+					handleNativeError("GetOverlappedResult", os.GetLastError());
+
+				// verify that the number of transferred bytes is equal to the data length that
+				// was written:
+				if (numberOfBytesTransferred.getValue() != length)
+					throw new NativeCodeException("GetOverlappedResult returned an unexpected number of transferred bytes! Transferred: " + numberOfBytesTransferred.getValue() + ", expected: " + length);
+				return;
+			case WAIT_TIMEOUT:
+				// I/O operation has timed out
+				throw new IOException("Write operation timed out after " + writeTimeout + " milliseconds!");
+			case WAIT_ABANDONED:
+				throw new NativeCodeException("WaitForSingleObject returned an unexpected value: WAIT_ABANDONED!");
+			case WAIT_FAILED:
+				handleNativeError("WaitForSingleObject", os.GetLastError());
+			default:
+				throw newNativeCodeException(os, "WaitForSingleObject returned unexpected value! Got: " + waitResult, os.GetLastError());
+		}
+	}
+
+	@Override
+	protected void disposeInternal() {
+		// IMPORTANT: The staging buffer must not be freed before, because a pending write may
+		// still access it. Dispose is called after all pending I/O operations are terminated.
+		stagingBuffer.dispose();
+		pendingDirectBuffer = null;
+	}
+
+}
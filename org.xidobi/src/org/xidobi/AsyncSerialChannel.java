@@ -0,0 +1,248 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.min;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.spi.CompletionFuture;
+
+/**
+ * An asynchronous byte channel, that reads from and writes to an {@link AsyncSerialConnection}.
+ * The operations are performed by the overlapped I/O of the connection, no thread is blocked
+ * while an operation is pending.
+ * <p>
+ * The methods have the signatures and the semantics of
+ * <code>java.nio.channels.AsynchronousByteChannel</code>, with the {@link CompletionHandler} of
+ * xidobi, so frameworks that accept an asynchronous byte channel can be connected by a thin
+ * adapter:
+ * <ul>
+ * <li>Only one read and one write operation can be pending at a time, otherwise an
+ * {@link IllegalStateException} is thrown.
+ * <li>A read transfers at least one byte into the buffer. Received bytes, that don't fit into the
+ * buffer, are transferred by the next read.
+ * <li>A write transfers all remaining bytes of the buffer.
+ * <li>The position of the buffer is advanced by the number of transferred bytes, before the
+ * handler is completed. The buffer must not be accessed, while the operation is pending.
+ * </ul>
+ * The handler may be completed by the thread that initiates the operation, e.g. if received bytes
+ * are left over from the previous read.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see AsyncSerialConnection
+ * @see SerialChannel
+ */
+public class AsyncSerialChannel implements Channel {
+
+	/** the connection to read from and write to, never <code>null</code> */
+	@Nonnull
+	private final AsyncSerialConnection connection;
+
+	/** <code>true</code>, if a read operation is pending */
+	private final AtomicBoolean readPending = new AtomicBoolean();
+	/** <code>true</code>, if a write operation is pending */
+	private final AtomicBoolean writePending = new AtomicBoolean();
+
+	/**
+	 * The received bytes, that didn't fit into the buffer of the previous read, <code>null</code>
+	 * if there are none. Only accessed by the pending read operation.
+	 */
+	private ByteBuffer remainder;
+
+	/**
+	 * Creates a new channel for the given connection.
+	 * 
+	 * @param connection
+	 *            the connection to read from and write to, must not be <code>null</code>
+	 */
+	public AsyncSerialChannel(@Nonnull AsyncSerialConnection connection) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+	}
+
+	/**
+	 * Returns the connection of this channel.
+	 * 
+	 * @return the connection, never <code>null</code>
+	 */
+	@Nonnull
+	public AsyncSerialConnection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * Reads a sequence of bytes from this channel into the given buffer. The returned future is
+	 * completed with the number of bytes read.
+	 * 
+	 * @param dst
+	 *            the buffer into which bytes are to be transferred, must not be <code>null</code>
+	 *            or read-only
+	 * @return a future representing the result of the read operation, never <code>null</code>
+	 * @throws IllegalStateException
+	 *             if a read operation is already pending
+	 */
+	@Nonnull
+	public Future<Integer> read(@Nonnull ByteBuffer dst) {
+		CompletionFuture<Integer> future = new CompletionFuture<Integer>();
+		read(dst, null, future);
+		return future;
+	}
+
+	/**
+	 * Reads a sequence of bytes from this channel into the given buffer. The handler is completed
+	 * with the number of bytes read, it is 0 if the buffer has no remaining bytes.
+	 * 
+	 * @param dst
+	 *            the buffer into which bytes are to be transferred, must not be <code>null</code>
+	 *            or read-only
+	 * @param attachment
+	 *            the object to attach to the I/O operation, can be <code>null</code>
+	 * @param handler
+	 *            the handler for consuming the result, must not be <code>null</code>
+	 * @throws IllegalStateException
+	 *             if a read operation is already pending
+	 */
+	public <A> void read(	@Nonnull final ByteBuffer dst,
+							@Nullable A attachment,
+							@Nonnull final CompletionHandler<Integer, ? super A> handler) {
+		checkArgumentNotNull(dst, "dst");
+		checkArgument(!dst.isReadOnly(), "dst", "The buffer must not be read-only!");
+		checkArgumentNotNull(handler, "handler");
+		if (!readPending.compareAndSet(false, true))
+			throw new IllegalStateException("A read operation is already pending!");
+
+		if (!dst.hasRemaining()) {
+			readPending.set(false);
+			handler.completed(0, attachment);
+			return;
+		}
+		if (remainder != null) {
+			int numberOfBytes = transfer(remainder, dst);
+			readPending.set(false);
+			handler.completed(numberOfBytes, attachment);
+			return;
+		}
+
+		connection.readAsync(attachment, new CompletionHandler<byte[], A>() {
+
+			public void completed(byte[] data, A attachment) {
+				int numberOfBytes = transfer(ByteBuffer.wrap(data), dst);
+				readPending.set(false);
+				handler.completed(numberOfBytes, attachment);
+			}
+
+			public void failed(Throwable exc, A attachment) {
+				readPending.set(false);
+				handler.failed(exc, attachment);
+			}
+		});
+	}
+
+	/**
+	 * Transfers the received bytes into the buffer and keeps the bytes, that don't fit, as
+	 * remainder for the next read.
+	 */
+	private int transfer(ByteBuffer received, ByteBuffer dst) {
+		int numberOfBytes = min(received.remaining(), dst.remaining());
+		int limit = received.limit();
+		received.limit(received.position() + numberOfBytes);
+		dst.put(received);
+		received.limit(limit);
+
+		remainder = received.hasRemaining() ? received : null;
+		return numberOfBytes;
+	}
+
+	/**
+	 * Writes a sequence of bytes to this channel from the given buffer. The returned future is
+	 * completed with the number of bytes written.
+	 * 
+	 * @param src
+	 *            the buffer from which bytes are to be retrieved, must not be <code>null</code>
+	 * @return a future representing the result of the write operation, never <code>null</code>
+	 * @throws IllegalStateException
+	 *             if a write operation is already pending
+	 */
+	@Nonnull
+	public Future<Integer> write(@Nonnull ByteBuffer src) {
+		CompletionFuture<Integer> future = new CompletionFuture<Integer>();
+		write(src, null, future);
+		return future;
+	}
+
+	/**
+	 * Writes a sequence of bytes to this channel from the given buffer. The handler is completed
+	 * with the number of bytes written, when all remaining bytes of the buffer were written.
+	 * 
+	 * @param src
+	 *            the buffer from which bytes are to be retrieved, must not be <code>null</code>
+	 * @param attachment
+	 *            the object to attach to the I/O operation, can be <code>null</code>
+	 * @param handler
+	 *            the handler for consuming the result, must not be <code>null</code>
+	 * @throws IllegalStateException
+	 *             if a write operation is already pending
+	 */
+	public <A> void write(	@Nonnull final ByteBuffer src,
+							@Nullable A attachment,
+							@Nonnull final CompletionHandler<Integer, ? super A> handler) {
+		checkArgumentNotNull(src, "src");
+		checkArgumentNotNull(handler, "handler");
+		if (!writePending.compareAndSet(false, true))
+			throw new IllegalStateException("A write operation is already pending!");
+
+		// the connection copies the data into native memory, so the buffer is only read here
+		byte[] data = new byte[src.remaining()];
+		src.duplicate().get(data);
+
+		connection.writeAsync(data, attachment, new CompletionHandler<Integer, A>() {
+
+			public void completed(Integer numberOfBytes, A attachment) {
+				src.position(src.position() + numberOfBytes);
+				writePending.set(false);
+				handler.completed(numberOfBytes, attachment);
+			}
+
+			public void failed(Throwable exc, A attachment) {
+				writePending.set(false);
+				handler.failed(exc, attachment);
+			}
+		});
+	}
+
+	/** {@inheritDoc} */
+	public boolean isOpen() {
+		return !connection.isClosed();
+	}
+
+	/**
+	 * Closes this channel and the connection. The pending operations fail with an
+	 * {@link IOException}.
+	 */
+	public void close() throws IOException {
+		connection.close();
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link SerialConnection} that supports asynchronous read and write operations. The operations
+ * return immediately, their results are passed to a {@link CompletionHandler} or can be retrieved
+ * by a {@link Future}. No thread is blocked, while an operation is pending.
+ * <p>
+ * Example:
+ * 
+ * <pre>
+ * connection.writeAsync(request, null, new CompletionHandler&lt;Integer, Object&gt;() {
+ * 	public void completed(Integer result, Object attachment) {
+ * 		connection.readAsync(null, responseHandler);
+ * 	}
+ * 	...
+ * });
+ * </pre>
+ * 
+ * Read operations are completed in the order they were requested, with the data in the order it
+ * was received. The same applies to write operations.
+ * <p>
+ * If the port is closed, all pending operations fail with an <code>IOException</code>.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see CompletionHandler
+ */
+public interface AsyncSerialConnection extends SerialConnection {
+
+	/**
+	 * Reads asynchronously from this serial port. The returned future is completed with the next
+	 * received data, that is never empty.
+	 * 
+	 * @return a future representing the result of the read operation, never <code>null</code>
+	 */
+	@Nonnull
+	Future<byte[]> readAsync();
+
+	/**
+	 * Reads asynchronously from this serial port. The handler is completed with the next received
+	 * data, that is never empty.
+	 * 
+	 * @param attachment
+	 *            the object to attach to the I/O operation, can be <code>null</code>
+	 * @param handler
+	 *            the handler for consuming the result, must not be <code>null</code>
+	 */
+	<A> void readAsync(@Nullable A attachment, @Nonnull CompletionHandler<byte[], ? super A> handler);
+
+	/**
+	 * Writes the given data asynchronously. The returned future is completed with the number of
+	 * written bytes, when all bytes of the array were written.
+	 * 
+	 * @param data
+	 *            the data to write, must not be <code>null</code>
+	 * @return a future representing the result of the write operation, never <code>null</code>
+	 */
+	@Nonnull
+	Future<Integer> writeAsync(@Nonnull byte[] data);
+
+	/**
+	 * Writes the given data asynchronously. The handler is completed with the number of written
+	 * bytes, when all bytes of the array were written.
+	 * 
+	 * @param data
+	 *            the data to write, must not be <code>null</code>
+	 * @param attachment
+	 *            the object to attach to the I/O operation, can be <code>null</code>
+	 * @param handler
+	 *            the handler for consuming the result, must not be <code>null</code>
+	 */
+	<A> void writeAsync(@Nonnull byte[] data, @Nullable A attachment, @Nonnull CompletionHandler<Integer, ? super A> handler);
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The port is only read, while a read operation is pending or the subscriber has an
+	 * unfulfilled demand, no thread is blocked by the publisher. If the input flow control of the
+	 * port is configured, e.g. {@link FlowControl#FLOWCONTROL_RTSCTS_IN} or
+	 * {@link FlowControl#FLOWCONTROL_XONXOFF_IN}, the sender is throttled when the input buffer of
+	 * the driver fills up.
+	 * 
+	 * @return the publisher of the received data, never <code>null</code>
+	 */
+	@Nonnull
+	Flow.Publisher<ByteBuffer> getDataPublisher();
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A handler for consuming the result of an asynchronous I/O operation of an
+ * {@link AsyncSerialConnection}.
+ * <p>
+ * The methods are called by the threads, that complete the I/O operations. Implementations should
+ * return quickly and must not block, otherwise the completion of other operations is delayed.
+ * 
+ * @param <V>
+ *            the type of the result of the I/O operation
+ * @param <A>
+ *            the type of the object attached to the I/O operation
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see AsyncSerialConnection
+ */
+public interface CompletionHandler<V, A> {
+
+	/**
+	 * Invoked when an operation has completed.
+	 * 
+	 * @param result
+	 *            the result of the I/O operation
+	 * @param attachment
+	 *            the object attached to the I/O operation when it was initiated, can be
+	 *            <code>null</code>
+	 */
+	void completed(V result, @Nullable A attachment);
+
+	/**
+	 * Invoked when an operation fails, e.g. because the port was closed.
+	 * 
+	 * @param exc
+	 *            the exception that indicates why the I/O operation failed, never
+	 *            <code>null</code>
+	 * @param attachment
+	 *            the object attached to the I/O operation when it was initiated, can be
+	 *            <code>null</code>
+	 */
+	void failed(@Nonnull Throwable exc, @Nullable A attachment);
+}
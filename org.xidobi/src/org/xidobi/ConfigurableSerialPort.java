@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.WillCloseWhenClosed;
+
+/**
+ * A {@link SerialPort}, whose connections can be opened with optional features, e.g. coalesced or
+ * pipelined writes, or as an {@link AsyncSerialConnection}.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialPortOptions
+ */
+public interface ConfigurableSerialPort extends SerialPort {
+
+	/**
+	 * Opens a serial port with the given control settings and options and returns the connected
+	 * serial port.
+	 * <p>
+	 * <b>IMPORTANT:</b> The returned {@link SerialConnection} must be closed, when it is not used
+	 * anymore! Otherwise the port stays open!
+	 * 
+	 * @param settings
+	 *            the control settings for the port, must not be <code>null</code>
+	 * @param options
+	 *            the optional features of the connection, must not be <code>null</code>
+	 * @return a connected serial port, never <code>null</code>
+	 * @throws IOException
+	 *             if the port cannot be opened
+	 */
+	@WillCloseWhenClosed
+	SerialConnection open(@Nonnull SerialPortSettings settings, @Nonnull SerialPortOptions options) throws IOException;
+
+	/**
+	 * Opens a serial port with the given control settings and returns a connection, that
+	 * performs asynchronous I/O operations. The operations are completed by threads, that are
+	 * shared by all asynchronous connections of the implementation.
+	 * <p>
+	 * <b>IMPORTANT:</b> The returned {@link AsyncSerialConnection} must be closed, when it is not
+	 * used anymore! Otherwise the port stays open!
+	 * 
+	 * @param settings
+	 *            the control settings for the port, must not be <code>null</code>
+	 * @return a connected serial port, never <code>null</code>
+	 * @throws IOException
+	 *             if the port cannot be opened
+	 * @exception UnsupportedOperationException
+	 *                if the implementation doesn't support asynchronous I/O operations
+	 */
+	@Nonnull
+	@WillCloseWhenClosed
+	AsyncSerialConnection openAsync(@Nonnull SerialPortSettings settings) throws IOException;
+
+}
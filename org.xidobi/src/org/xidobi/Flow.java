@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Interfaces for establishing flow-controlled components, in which a {@link Publisher} produces
+ * items consumed by one or more {@link Subscriber Subscribers}, each managed by a
+ * {@link Subscription}.
+ * <p>
+ * The interfaces correspond to the <i>Reactive Streams</i> specification and to
+ * <code>java.util.concurrent.Flow</code> of Java 9, that is not available on the execution
+ * environments supported by xidobi. A publisher never passes more items to a subscriber, than
+ * the subscriber requested by {@link Subscription#request(long)}.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see AsyncSerialConnection#getDataPublisher()
+ */
+public final class Flow {
+
+	/** This class is not intended to be instantiated. */
+	private Flow() {}
+
+	/**
+	 * A producer of items received by subscribers.
+	 * 
+	 * @param <T>
+	 *            the published item type
+	 */
+	public interface Publisher<T> {
+
+		/**
+		 * Adds the given subscriber. The subscriber is notified by
+		 * {@link Subscriber#onSubscribe(Subscription)}, or by
+		 * {@link Subscriber#onError(Throwable)} if the subscription is not possible.
+		 * 
+		 * @param subscriber
+		 *            the subscriber, must not be <code>null</code>
+		 */
+		void subscribe(@Nonnull Subscriber<? super T> subscriber);
+	}
+
+	/**
+	 * A receiver of items. The methods are invoked in sequential order for each subscription.
+	 * 
+	 * @param <T>
+	 *            the subscribed item type
+	 */
+	public interface Subscriber<T> {
+
+		/**
+		 * Invoked prior to invoking any other method for the given subscription. No items are
+		 * received, until {@link Subscription#request(long)} is called.
+		 * 
+		 * @param subscription
+		 *            the new subscription, never <code>null</code>
+		 */
+		void onSubscribe(@Nonnull Subscription subscription);
+
+		/**
+		 * Invoked with the next item of the subscription.
+		 * 
+		 * @param item
+		 *            the item, never <code>null</code>
+		 */
+		void onNext(@Nonnull T item);
+
+		/**
+		 * Invoked upon an unrecoverable error, no further methods are invoked afterwards.
+		 * 
+		 * @param throwable
+		 *            the error, never <code>null</code>
+		 */
+		void onError(@Nonnull Throwable throwable);
+
+		/**
+		 * Invoked when it is known that no additional items will be passed, no further methods
+		 * are invoked afterwards.
+		 */
+		void onComplete();
+	}
+
+	/**
+	 * The link between a {@link Publisher} and a {@link Subscriber}.
+	 */
+	public interface Subscription {
+
+		/**
+		 * Adds the given number of items to the unfulfilled demand of this subscription.
+		 * 
+		 * @param n
+		 *            the number of requested items, must be greater than 0, otherwise
+		 *            {@link Subscriber#onError(Throwable)} is invoked with an
+		 *            {@link IllegalArgumentException}
+		 */
+		void request(@Nonnegative long n);
+
+		/**
+		 * Causes the subscriber to (eventually) stop receiving items.
+		 */
+		void cancel();
+	}
+}
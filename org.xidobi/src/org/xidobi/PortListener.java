@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A listener, that is notified when a serial port is added to or removed from the system, e.g.
+ * when an USB-serial adapter is plugged in or unplugged.
+ * <p>
+ * The methods are called by the thread, that watches the serial ports of a
+ * {@link WatchableSerialPortFinder}. Implementations should return quickly and must not block, otherwise
+ * the notification of other listeners is delayed.
+ * 
+ * @author Tobias Breßler
+ * 
+ * @see WatchableSerialPortFinder#addListener(PortListener)
+ */
+public interface PortListener {
+
+	/**
+	 * Invoked when a serial port was added.
+	 * 
+	 * @param port
+	 *            the added serial port, never <code>null</code>
+	 */
+	void portAdded(@Nonnull SerialPort port);
+
+	/**
+	 * Invoked when a serial port was removed. The port can't be opened anymore, open connections
+	 * to the port will fail.
+	 * 
+	 * @param port
+	 *            the removed serial port, never <code>null</code>
+	 */
+	void portRemoved(@Nonnull SerialPort port);
+}
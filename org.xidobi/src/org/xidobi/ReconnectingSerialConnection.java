@@ -0,0 +1,678 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.spi.SerialDataPublisher;
+import org.xidobi.spi.SerialInputStream;
+import org.xidobi.spi.SerialOutputStream;
+
+/**
+ * A connection, that reopens its port after the connection was lost, e.g. because the USB-serial
+ * adapter was unplugged.
+ * <p>
+ * The port is reopened by a background thread with an exponential backoff between the attempts,
+ * the delays are randomized to avoid that several connections retry in lockstep. The connection
+ * listens to the {@link WatchableSerialPortFinder}, so the port is reopened as soon as it is added
+ * again, without waiting for the end of the current delay, and the connection is dropped as soon
+ * as the port is removed.
+ * <p>
+ * During an outage:
+ * <ul>
+ * <li>the written data is queued in a bounded buffer and written in order after the port was
+ * reopened, a write that doesn't fit into the buffer fails with an {@link IOException}</li>
+ * <li>the reads block until the port was reopened</li>
+ * </ul>
+ * The data of a write, that failed because the connection was lost, is queued too. It may be
+ * written twice, if the port received a part of it before the connection was lost.
+ * 
+ * @author Christian Schwarz
+ */
+public class ReconnectingSerialConnection implements SerialConnection {
+
+	/** The default delay in milliseconds before the first attempt to reopen the port. */
+	public static final long DEFAULT_INITIAL_DELAY = 100;
+	/** The default maximum delay in milliseconds between two attempts to reopen the port. */
+	public static final long DEFAULT_MAX_DELAY = 10000;
+	/** The default size of the buffer for the writes during an outage in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/** the port, never <code>null</code> */
+	@Nonnull
+	private final SerialPort port;
+	/** the settings to open the port, never <code>null</code> */
+	@Nonnull
+	private final SerialPortSettings settings;
+	/** the finder, that notifies when the port is added or removed, never <code>null</code> */
+	@Nonnull
+	private final WatchableSerialPortFinder finder;
+
+	/** the delay before the first attempt to reopen the port in milliseconds */
+	private final long initialDelay;
+	/** the maximum delay between two attempts to reopen the port in milliseconds */
+	private final long maxDelay;
+	/** the maximum number of bytes, that are queued during an outage */
+	private final int bufferSize;
+
+	/** randomizes the delays */
+	private final Random random = new Random();
+
+	/** guards the state of this connection */
+	private final Lock lock = new ReentrantLock();
+	/** signaled, when the port was reopened, the connection was lost or this connection was closed */
+	private final Condition stateChanged = lock.newCondition();
+
+	/** serializes the writes and the replay of the queued writes */
+	private final Lock writeLock = new ReentrantLock();
+
+	/** the current connection, <code>null</code> during an outage */
+	private SerialConnection connection;
+	/** the writes of the current outage, guarded by the write lock */
+	private final LinkedList<byte[]> queue = new LinkedList<byte[]>();
+	/** the number of queued bytes, guarded by the write lock */
+	private int queuedBytes;
+
+	/** <code>true</code>, if this connection was closed */
+	private volatile boolean isClosed;
+
+	/** the number of times the port was reopened */
+	private long reconnectCount;
+
+	/** <code>true</code>, if the port was added since the last attempt to reopen it */
+	private boolean isAdded;
+
+	/** listens to the finder, never <code>null</code> */
+	@Nonnull
+	private final PortListener portWatcher = new PortWatcher();
+
+	/** the input stream, <code>null</code> until requested */
+	private InputStream inputStream;
+	/** the output stream, <code>null</code> until requested */
+	private OutputStream outputStream;
+
+	/** publishes the received data, never <code>null</code> */
+	@Nonnull
+	private final SerialDataPublisher dataPublisher = new SerialDataPublisher(this);
+
+	/**
+	 * Opens the port and creates a new reconnecting connection with the default delays and buffer
+	 * size.
+	 * 
+	 * @param port
+	 *            the port, must not be <code>null</code>
+	 * @param settings
+	 *            the settings to open the port, must not be <code>null</code>
+	 * @param finder
+	 *            the finder, that notifies when the port is added or removed, must not be
+	 *            <code>null</code>
+	 * @throws IOException
+	 *             if the port cannot be opened
+	 */
+	public ReconnectingSerialConnection(@Nonnull SerialPort port,
+										@Nonnull SerialPortSettings settings,
+										@Nonnull WatchableSerialPortFinder finder) throws IOException {
+		this(port, settings, finder, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Opens the port and creates a new reconnecting connection.
+	 * 
+	 * @param port
+	 *            the port, must not be <code>null</code>
+	 * @param settings
+	 *            the settings to open the port, must not be <code>null</code>
+	 * @param finder
+	 *            the finder, that notifies when the port is added or removed, must not be
+	 *            <code>null</code>
+	 * @param initialDelay
+	 *            the delay before the first attempt to reopen the port in milliseconds, must be
+	 *            greater than 0, it is doubled after every failed attempt
+	 * @param maxDelay
+	 *            the maximum delay between two attempts in milliseconds, must not be lesser than
+	 *            the initial delay
+	 * @param bufferSize
+	 *            the maximum number of bytes, that are queued during an outage, must be greater
+	 *            than 0
+	 * @throws IOException
+	 *             if the port cannot be opened
+	 */
+	public ReconnectingSerialConnection(@Nonnull SerialPort port,
+										@Nonnull SerialPortSettings settings,
+										@Nonnull WatchableSerialPortFinder finder,
+										@Nonnegative long initialDelay,
+										@Nonnegative long maxDelay,
+										@Nonnegative int bufferSize) throws IOException {
+		this.port = checkArgumentNotNull(port, "port");
+		this.settings = checkArgumentNotNull(settings, "settings");
+		this.finder = checkArgumentNotNull(finder, "finder");
+		checkArgument(initialDelay > 0, "initialDelay", "Expected a value greater than 0");
+		checkArgument(maxDelay >= initialDelay, "maxDelay", "Expected a value greater than or equal to the initial delay");
+		checkArgument(bufferSize > 0, "bufferSize", "Expected a value greater than 0");
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.bufferSize = bufferSize;
+
+		finder.addListener(portWatcher);
+		try {
+			connection = port.open(settings);
+		}
+		catch (IOException e) {
+			finder.removeListener(portWatcher);
+			throw e;
+		}
+
+		Thread reconnector = new Thread(new Reconnector(), "xidobi reconnector " + port.getPortName());
+		reconnector.setDaemon(true);
+		reconnector.start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The data is queued, if the connection is currently lost.
+	 */
+	public void write(@Nonnull byte[] data) throws IOException {
+		checkArgumentNotNull(data, "data");
+		writeLock.lock();
+		try {
+			ensureOpen();
+			SerialConnection current = getConnection();
+			if (current != null && queue.isEmpty()) {
+				try {
+					current.write(data);
+					return;
+				}
+				catch (IOException e) {
+					lost(current);
+				}
+			}
+			enqueue(data.clone());
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All remaining bytes are queued, if the connection is currently lost.
+	 */
+	public int write(@Nonnull ByteBuffer src) throws IOException {
+		return (int) write(new ByteBuffer[] { checkArgumentNotNull(src, "src") });
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The buffers are passed to the gathering write of the current connection. All remaining
+	 * bytes are queued, if the connection is currently lost.
+	 */
+	public long write(@Nonnull ByteBuffer[] srcs) throws IOException {
+		checkArgumentNotNull(srcs, "srcs");
+		long length = 0;
+		int[] positions = new int[srcs.length];
+		for (int i = 0; i < srcs.length; i++) {
+			positions[i] = checkArgumentNotNull(srcs[i], "srcs[" + i + "]").position();
+			length += srcs[i].remaining();
+		}
+		writeLock.lock();
+		try {
+			ensureOpen();
+			SerialConnection current = getConnection();
+			if (current != null && queue.isEmpty()) {
+				try {
+					current.write(srcs);
+					return length;
+				}
+				catch (IOException e) {
+					lost(current);
+				}
+				// like write(byte[]) all bytes are queued, because it is unknown how many were
+				// written before the connection was lost
+				for (int i = 0; i < srcs.length; i++)
+					srcs[i].position(positions[i]);
+			}
+			enqueue(srcs, length);
+			return length;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Does nothing, if the connection is currently lost. The queued data is written, when the port
+	 * was reopened.
+	 */
+	public void flush() throws IOException {
+		writeLock.lock();
+		try {
+			ensureOpen();
+			SerialConnection current = getConnection();
+			if (current == null)
+				return;
+			try {
+				current.flush();
+			}
+			catch (IOException e) {
+				lost(current);
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Blocks during an outage, until the port was reopened.
+	 */
+	@Nonnull
+	public byte[] read() throws IOException {
+		while (true) {
+			SerialConnection current = awaitConnection();
+			try {
+				return current.read();
+			}
+			catch (IOException e) {
+				ensureOpen();
+				lost(current);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Blocks during an outage, until the port was reopened.
+	 */
+	public int read(@Nonnull ByteBuffer dst) throws IOException {
+		checkArgumentNotNull(dst, "dst");
+		while (true) {
+			SerialConnection current = awaitConnection();
+			try {
+				return current.read(dst);
+			}
+			catch (IOException e) {
+				ensureOpen();
+				lost(current);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns 0 during an outage.
+	 */
+	public int available() throws IOException {
+		ensureOpen();
+		SerialConnection current = getConnection();
+		if (current == null)
+			return 0;
+		try {
+			return current.available();
+		}
+		catch (IOException e) {
+			lost(current);
+			return 0;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized InputStream getInputStream() {
+		if (inputStream == null)
+			inputStream = new SerialInputStream(this);
+		return inputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized OutputStream getOutputStream() {
+		if (outputStream == null)
+			outputStream = new SerialOutputStream(this);
+		return outputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public Flow.Publisher<ByteBuffer> getDataPublisher() {
+		return dataPublisher;
+	}
+
+	/**
+	 * Closes the current connection and stops reopening the port. The queued data is discarded.
+	 * 
+	 * @throws IOException
+	 *             if the current connection couldn't be closed
+	 */
+	public void close() throws IOException {
+		SerialConnection current;
+		lock.lock();
+		try {
+			if (isClosed)
+				return;
+			isClosed = true;
+			current = connection;
+			connection = null;
+			stateChanged.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		dataPublisher.close();
+		finder.removeListener(portWatcher);
+		if (current != null)
+			current.close();
+	}
+
+	/** {@inheritDoc} */
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public SerialPort getPort() {
+		return port;
+	}
+
+	/**
+	 * Returns <code>true</code>, if the port is currently open, <code>false</code> during an
+	 * outage or after this connection was closed.
+	 * 
+	 * @return <code>true</code>, if the port is open
+	 */
+	public boolean isConnected() {
+		return getConnection() != null;
+	}
+
+	/**
+	 * Returns the number of times the port was reopened after the connection was lost.
+	 * 
+	 * @return the number of reconnects
+	 */
+	public long getReconnectCount() {
+		lock.lock();
+		try {
+			return reconnectCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes, that were written during the current outage and are not
+	 * written to the port yet.
+	 * 
+	 * @return the number of queued bytes
+	 */
+	public int getQueuedBytes() {
+		writeLock.lock();
+		try {
+			return queuedBytes;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/** Returns the current connection, <code>null</code> during an outage. */
+	@CheckForNull
+	private SerialConnection getConnection() {
+		lock.lock();
+		try {
+			return connection;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Blocks until the port is open and returns the current connection. */
+	@Nonnull
+	private SerialConnection awaitConnection() throws IOException {
+		lock.lock();
+		try {
+			while (true) {
+				ensureOpen();
+				if (connection != null)
+					return connection;
+				stateChanged.await();
+			}
+		}
+		catch (InterruptedException e) {
+			throw new InterruptedIOException("The thread for the read operation is interrupted!");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Queues the given data, must be called with the write lock. */
+	private void enqueue(byte[] data) throws IOException {
+		if (queuedBytes + data.length > bufferSize)
+			throw new IOException("The write buffer of port " + port.getPortName() + " is full!");
+		queue.add(data);
+		queuedBytes += data.length;
+	}
+
+	/**
+	 * Copies the given number of remaining bytes of the buffers into one array and queues it, must
+	 * be called with the write lock.
+	 */
+	private void enqueue(ByteBuffer[] srcs, long length) throws IOException {
+		if (queuedBytes + length > bufferSize)
+			throw new IOException("The write buffer of port " + port.getPortName() + " is full!");
+		ByteBuffer data = ByteBuffer.allocate((int) length);
+		for (ByteBuffer src : srcs)
+			data.put(src);
+		enqueue(data.array());
+	}
+
+	/** Starts an outage, if the given connection is the current one, and closes it. */
+	private void lost(@Nonnull SerialConnection lost) {
+		lock.lock();
+		try {
+			if (connection != lost)
+				return;
+			connection = null;
+			stateChanged.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		closeQuietly(lost);
+	}
+
+	/**
+	 * Writes the queued data to the reopened connection and makes it the current connection.
+	 * Returns <code>false</code>, if the connection was lost again or this connection was closed.
+	 */
+	private boolean reconnected(@Nonnull SerialConnection reopened) {
+		writeLock.lock();
+		try {
+			while (!queue.isEmpty()) {
+				byte[] data = queue.getFirst();
+				reopened.write(data);
+				queue.removeFirst();
+				queuedBytes -= data.length;
+			}
+
+			lock.lock();
+			try {
+				if (isClosed)
+					return false;
+				connection = reopened;
+				reconnectCount++;
+				stateChanged.signalAll();
+				return true;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Blocks during an outage until the port should be reopened, this is after the given delay or
+	 * as soon as the port was added. Returns <code>false</code>, if this connection was closed.
+	 */
+	private boolean awaitAttempt(long delay) throws InterruptedException {
+		long remaining = MILLISECONDS.toNanos(delay);
+		lock.lock();
+		try {
+			while (!isClosed && !isAdded && remaining > 0)
+				remaining = stateChanged.awaitNanos(remaining);
+			isAdded = false;
+			return !isClosed;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns the given delay randomized between the half and the full value. */
+	private long jitter(long delay) {
+		long half = delay / 2;
+		return half + (long) (random.nextDouble() * (delay - half));
+	}
+
+	/** Throws an {@link IOException}, if this connection was closed. */
+	private void ensureOpen() throws IOException {
+		if (isClosed)
+			throw new IOException("Port " + port.getPortName() + " was closed!");
+	}
+
+	/** Closes the given connection and ignores any failure, the connection is lost anyway. */
+	private static void closeQuietly(@Nonnull SerialConnection connection) {
+		try {
+			connection.close();
+		}
+		catch (IOException ignore) {
+			// the connection is lost anyway
+		}
+	}
+
+	/** Reopens the port after the connection was lost, until this connection is closed. */
+	private final class Reconnector implements Runnable {
+
+		public void run() {
+			try {
+				while (awaitOutage()) {
+					long delay = initialDelay;
+					while (awaitAttempt(jitter(delay))) {
+						SerialConnection reopened = tryOpen();
+						if (reopened != null && reconnected(reopened))
+							break;
+						if (reopened != null)
+							closeQuietly(reopened);
+						delay = min(delay * 2, maxDelay);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				// the thread terminates
+			}
+		}
+
+		/** Blocks until the connection is lost, returns <code>false</code> if it was closed. */
+		private boolean awaitOutage() throws InterruptedException {
+			lock.lock();
+			try {
+				while (!isClosed && connection != null)
+					stateChanged.await();
+				return !isClosed;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		/** Opens the port, returns <code>null</code> if the port cannot be opened. */
+		@CheckForNull
+		private SerialConnection tryOpen() {
+			try {
+				return port.open(settings);
+			}
+			catch (IOException e) {
+				return null;
+			}
+			catch (RuntimeException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Triggers an attempt to reopen the port, when it was added, and drops the connection, when
+	 * the port was removed.
+	 */
+	private final class PortWatcher implements PortListener {
+
+		public void portAdded(@Nonnull SerialPort added) {
+			if (!added.getPortName().equals(port.getPortName()))
+				return;
+			lock.lock();
+			try {
+				isAdded = true;
+				stateChanged.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		public void portRemoved(@Nonnull SerialPort removed) {
+			if (!removed.getPortName().equals(port.getPortName()))
+				return;
+			SerialConnection current = getConnection();
+			if (current != null)
+				lost(current);
+		}
+	}
+}
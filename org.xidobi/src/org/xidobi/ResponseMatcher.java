@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Decides, whether a received frame is the response to a request of a
+ * {@link SerialTransactionEngine}, e.g. by comparing a transaction id or an address.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialTransactionEngine
+ */
+public interface ResponseMatcher {
+
+	/** Matches any frame, for devices that respond in the order of the requests. */
+	ResponseMatcher ANY = new ResponseMatcher() {
+		public boolean matches(@Nonnull ByteBuffer frame) {
+			return true;
+		}
+	};
+
+	/**
+	 * Returns <code>true</code>, if the given frame is the response to the request.
+	 * <p>
+	 * The implementation must not block and must not change the content of the frame. It is
+	 * called by the receiving thread of the engine.
+	 * 
+	 * @param frame
+	 *            the received frame between the position and the limit, never <code>null</code>
+	 * @return <code>true</code>, if the frame is the response
+	 */
+	boolean matches(@Nonnull ByteBuffer frame);
+}
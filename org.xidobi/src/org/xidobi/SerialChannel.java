@@ -0,0 +1,230 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.spi.AbstractInterruptibleChannel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ByteChannel}, that reads from and writes to a {@link SerialConnection}. The channel can
+ * be used with the utilities of {@link java.nio.channels.Channels} and channel based pumps, the
+ * buffers are passed to the connection without an intermediate <code>byte[]</code>.
+ * <p>
+ * This channel is interruptible: If a thread is interrupted, while it is blocked in an I/O
+ * operation of this channel, the channel and the connection are closed, which aborts the pending
+ * overlapped I/O immediately. The blocked thread receives a {@link ClosedByInterruptException}
+ * and its interrupt status is set. Closing this channel closes the connection and vice versa, a
+ * closed connection causes a {@link ClosedChannelException}.
+ * <p>
+ * A read blocks until at least one byte is received, it never returns the end of the stream
+ * (<code>-1</code>).
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialConnection
+ */
+public class SerialChannel extends AbstractInterruptibleChannel implements ByteChannel, GatheringByteChannel {
+
+	/** the connection to read from and write to, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+
+	/**
+	 * Creates a new channel for the given connection.
+	 * 
+	 * @param connection
+	 *            the connection to read from and write to, must not be <code>null</code>
+	 */
+	public SerialChannel(@Nonnull SerialConnection connection) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+	}
+
+	/**
+	 * Returns the connection of this channel.
+	 * 
+	 * @return the connection, never <code>null</code>
+	 */
+	@Nonnull
+	public SerialConnection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Blocks until at least one byte is received, the received bytes that don't fit into the
+	 * buffer are returned by the next read.
+	 */
+	public int read(@Nonnull ByteBuffer dst) throws IOException {
+		checkArgumentNotNull(dst, "dst");
+		ensureOpen();
+
+		int numberOfBytes = 0;
+		boolean completed = false;
+		InterruptedIOException canceled = null;
+		begin();
+		try {
+			numberOfBytes = connection.read(dst);
+			completed = true;
+		}
+		catch (InterruptedIOException e) {
+			// the read was canceled, because the thread was interrupted while it waited for data
+			canceled = e;
+		}
+		finally {
+			end(completed, canceled);
+		}
+		return numberOfBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All remaining bytes of the buffer are written.
+	 */
+	public int write(@Nonnull ByteBuffer src) throws IOException {
+		checkArgumentNotNull(src, "src");
+		ensureOpen();
+
+		int numberOfBytes = 0;
+		boolean completed = false;
+		InterruptedIOException canceled = null;
+		begin();
+		try {
+			numberOfBytes = connection.write(src);
+			completed = true;
+		}
+		catch (InterruptedIOException e) {
+			canceled = e;
+		}
+		finally {
+			end(completed, canceled);
+		}
+		return numberOfBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All remaining bytes of the buffers are written.
+	 */
+	public long write(@Nonnull ByteBuffer[] srcs) throws IOException {
+		checkArgumentNotNull(srcs, "srcs");
+		return write(srcs, 0, srcs.length);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All remaining bytes of the buffers are written.
+	 */
+	public long write(@Nonnull ByteBuffer[] srcs, int offset, int length) throws IOException {
+		checkArgumentNotNull(srcs, "srcs");
+		if (offset < 0 || length < 0 || offset > srcs.length - length)
+			throw new IndexOutOfBoundsException("Invalid offset or length! Offset: " + offset + ", length: " + length + ", array length: " + srcs.length);
+		for (int i = offset; i < offset + length; i++)
+			checkArgument(srcs[i] != null, "srcs", "The buffers must not contain null!");
+		ensureOpen();
+
+		ByteBuffer[] buffers = srcs;
+		if (offset != 0 || length != srcs.length) {
+			buffers = new ByteBuffer[length];
+			System.arraycopy(srcs, offset, buffers, 0, length);
+		}
+
+		long numberOfBytes = 0;
+		boolean completed = false;
+		InterruptedIOException canceled = null;
+		begin();
+		try {
+			numberOfBytes = connection.write(buffers);
+			completed = true;
+		}
+		catch (InterruptedIOException e) {
+			canceled = e;
+		}
+		finally {
+			end(completed, canceled);
+		}
+		return numberOfBytes;
+	}
+
+	/**
+	 * Closes the connection. A thread, that is blocked in an I/O operation of this channel, is
+	 * released immediately, because the connection aborts the pending I/O operations.
+	 */
+	@Override
+	protected void implCloseChannel() throws IOException {
+		connection.close();
+	}
+
+	/** Throws a {@link ClosedChannelException}, if this channel or the connection is closed. */
+	private void ensureOpen() throws ClosedChannelException {
+		if (!isOpen() || connection.isClosed())
+			throw new ClosedChannelException();
+	}
+
+	/**
+	 * Marks the end of an I/O operation, see {@link #end(boolean)}. If the operation was canceled
+	 * by the interruption of the current thread, a {@link ClosedByInterruptException} is thrown,
+	 * whose cause is the given {@link InterruptedIOException}.
+	 */
+	private void end(boolean completed, @Nullable InterruptedIOException canceled) throws IOException {
+		try {
+			// a canceled operation closes the channel below, it isn't closed asynchronously
+			end(completed || canceled != null);
+		}
+		catch (ClosedByInterruptException e) {
+			// the thread was interrupted inside the operation, the channel is already closed
+			if (canceled != null)
+				e.initCause(canceled);
+			throw e;
+		}
+		if (canceled != null)
+			throw closedByInterrupt(canceled);
+	}
+
+	/**
+	 * Closes this channel after an I/O operation was canceled by the interruption of the current
+	 * thread, like the channel does when it is interrupted itself. The interrupt status is restored,
+	 * because the canceled operation has cleared it. Must be called after {@link #end(boolean)},
+	 * otherwise <code>end</code> would throw its own exception without the cause.
+	 */
+	private ClosedByInterruptException closedByInterrupt(InterruptedIOException cause) {
+		Thread.currentThread().interrupt();
+		try {
+			close();
+		}
+		catch (IOException ignore) {
+			// the interruption is reported, the connection is closed anyway
+		}
+		ClosedByInterruptException e = new ClosedByInterruptException();
+		e.initCause(cause);
+		return e;
+	}
+}
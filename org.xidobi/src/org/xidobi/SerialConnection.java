@@ -1,73 +1,200 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi;
-
-import java.io.Closeable;
-import java.io.IOException;
-
-import javax.annotation.Nonnull;
-
-/**
- * Repesents a connected serial port. Clients must call {@link #close()} to free this serial port
- * after usage!
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public interface SerialConnection extends Closeable {
-
-	/**
-	 * Writes the given <code>byte[]</code>. All bytes of the array were written.
-	 * 
-	 * @param data
-	 *            the data to write, must not be <code>null</code>
-	 * @throws IOException
-	 *             if this port was closed or an unexpected I/O error occurs.
-	 */
-	void write(@Nonnull byte[] data) throws IOException;
-
-	/**
-	 * Reads from this serial port and returns the read byte's or throws an {@link IOException} when
-	 * the port was closed or an other I/O error occurs. This method blocks until at least one byte
-	 * can be returned or an {@link IOException} is thrown.
-	 * 
-	 * @return the received <code>byte[]</code>, never <code>null</code>
-	 * @throws IOException
-	 *             if this port was closed or an unexpected I/O error occurs or the thread was
-	 *             interrupted
-	 */
-	@Nonnull
-	byte[] read() throws IOException;
-
-	/**
-	 * Returns <code>true</code>, if the serial port is closed.
-	 * 
-	 * @return <ul>
-	 *         <li> <code>true</code> if the serial port is closed
-	 *         <li> <code>false</code> if the serial port is open
-	 *         </ul>
-	 */
-	boolean isClosed();
-
-	/**
-	 * Returns the underlying serial port for this serial connection.
-	 * 
-	 * @return the serial port, never <code>null</code>
-	 */
-	@Nonnull
-	SerialPort getPort();
-
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Repesents a connected serial port. Clients must call {@link #close()} to free this serial port
+ * after usage!
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public interface SerialConnection extends Closeable, Flushable {
+
+	/**
+	 * Writes the given <code>byte[]</code>. All bytes of the array were written.
+	 * <p>
+	 * <b>NOTE:</b> The call <code>write(null)</code> is ambiguous, because this method is
+	 * overloaded by {@link #write(ByteBuffer)} and {@link #write(ByteBuffer[])}. A
+	 * <code>null</code> reference must be cast to the intended parameter type, every overload
+	 * throws an {@link IllegalArgumentException} for it.
+	 * 
+	 * @param data
+	 *            the data to write, must not be <code>null</code>
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs.
+	 */
+	void write(@Nonnull byte[] data) throws IOException;
+
+	/**
+	 * Writes the remaining bytes of the given buffer. All bytes from the current position up to
+	 * the limit are written and the position of the buffer is advanced to its limit.
+	 * <p>
+	 * If the given buffer is a direct buffer, the data is passed to the native code without an
+	 * intermediate copy into the Java heap.
+	 * 
+	 * @param src
+	 *            the buffer containing the data to write, must not be <code>null</code>
+	 * @return the number of bytes written, may be 0
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs.
+	 */
+	int write(@Nonnull ByteBuffer src) throws IOException;
+
+	/**
+	 * Writes the remaining bytes of the given buffers in order, like they were one contiguous
+	 * sequence of bytes. The buffers are submitted without concatenating them into an intermediate
+	 * <code>byte[]</code>, e.g. a header, a payload and a checksum can be written in one call. The
+	 * positions of all buffers are advanced to their limits.
+	 * 
+	 * @param srcs
+	 *            the buffers containing the data to write, must not be <code>null</code> and must
+	 *            not contain <code>null</code>
+	 * @return the number of bytes written, may be 0
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs.
+	 */
+	long write(@Nonnull ByteBuffer[] srcs) throws IOException;
+
+	/**
+	 * Writes all data, that is buffered by this connection. Connections that don't buffer written
+	 * data return immediately.
+	 * 
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs.
+	 */
+	void flush() throws IOException;
+
+	/**
+	 * Reads from this serial port and returns the read byte's or throws an {@link IOException} when
+	 * the port was closed or an other I/O error occurs. This method blocks until at least one byte
+	 * can be returned or an {@link IOException} is thrown.
+	 * 
+	 * @return the received <code>byte[]</code>, never <code>null</code>
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs or the thread was
+	 *             interrupted
+	 */
+	@Nonnull
+	byte[] read() throws IOException;
+
+	/**
+	 * Reads from this serial port into the given buffer. This method blocks until at least one byte
+	 * was transferred or an {@link IOException} is thrown.
+	 * <p>
+	 * The bytes are written starting at the current position of the buffer, at most
+	 * {@link ByteBuffer#remaining() dst.remaining()} bytes are transferred. Bytes that don't fit
+	 * into the buffer remain in the input buffer of the serial port and will be returned by the
+	 * next read. The position of the buffer is advanced by the number of bytes read.
+	 * <p>
+	 * If the given buffer is a direct buffer, the received data is transferred without an
+	 * intermediate copy into the Java heap. Clients that read continuously should allocate one
+	 * direct buffer and reuse it for every read.
+	 * 
+	 * @param dst
+	 *            the buffer into which the bytes are transferred, must not be <code>null</code> and
+	 *            must not be read-only
+	 * @return the number of bytes read, 0 only if the buffer has no bytes remaining
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs or the thread was
+	 *             interrupted
+	 */
+	int read(@Nonnull ByteBuffer dst) throws IOException;
+
+	/**
+	 * Returns the number of bytes, that can be read without blocking. For a port this is the
+	 * number of bytes in its input buffer.
+	 * 
+	 * @return the number of available bytes
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs
+	 */
+	int available() throws IOException;
+
+	/**
+	 * Returns an input stream, that reads from this connection. The stream reads the received data
+	 * into an internal buffer, that is reused for every read, so single-byte reads,
+	 * <code>available()</code> and <code>skip()</code> are served from the buffer without a native
+	 * call as long as it contains data. Closing the stream closes this connection.
+	 * <p>
+	 * Every call returns the same stream. Data read by the stream is not returned by
+	 * {@link #read()} anymore, so clients should use either the stream or the read methods of this
+	 * connection.
+	 * 
+	 * @return the input stream, never <code>null</code>
+	 */
+	@Nonnull
+	InputStream getInputStream();
+
+	/**
+	 * Returns an output stream, that writes to this connection. The stream collects the written
+	 * bytes in an internal buffer, that is written when it is full or the stream is flushed.
+	 * Closing the stream writes the buffer and closes this connection.
+	 * <p>
+	 * Every call returns the same stream.
+	 * 
+	 * @return the output stream, never <code>null</code>
+	 */
+	@Nonnull
+	OutputStream getOutputStream();
+
+	/**
+	 * Returns a publisher of the received data, that honours the demand of its subscriber. Every
+	 * item contains the data of one read operation.
+	 * <p>
+	 * The port is only read, while the subscriber has an unfulfilled demand. Otherwise the
+	 * received data remains in the input buffer of the driver, so it is never buffered
+	 * unboundedly in the JVM. Data read by the publisher is not returned by {@link #read()}
+	 * anymore, so clients should use either the publisher or the read methods of this connection.
+	 * <p>
+	 * Only one subscriber can be subscribed at a time, further subscribers receive an
+	 * {@link IllegalStateException}. When this connection is closed, the subscriber is notified by
+	 * {@link Flow.Subscriber#onComplete()}, or by {@link Flow.Subscriber#onError(Throwable)} if an
+	 * I/O error occurred.
+	 * 
+	 * @return the publisher of the received data, never <code>null</code>
+	 */
+	@Nonnull
+	Flow.Publisher<ByteBuffer> getDataPublisher();
+
+	/**
+	 * Returns <code>true</code>, if the serial port is closed.
+	 * 
+	 * @return <ul>
+	 *         <li> <code>true</code> if the serial port is closed
+	 *         <li> <code>false</code> if the serial port is open
+	 *         </ul>
+	 */
+	boolean isClosed();
+
+	/**
+	 * Returns the underlying serial port for this serial connection.
+	 * 
+	 * @return the serial port, never <code>null</code>
+	 */
+	@Nonnull
+	SerialPort getPort();
+
 }
\ No newline at end of file
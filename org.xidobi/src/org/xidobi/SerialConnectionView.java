@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+import org.xidobi.spi.SerialDataPublisher;
+import org.xidobi.spi.SerialInputStream;
+import org.xidobi.spi.SerialOutputStream;
+
+/**
+ * A view of a connection, that is shared by {@link SharedSerialConnections}.
+ * <p>
+ * Every view receives all data, that was received after the view was opened, with its own
+ * cursor, independent of the other views. If a view falls behind by more than the buffer size of
+ * the registry, it loses the oldest data, see {@link #getLostBytes()}. The writes of all views are
+ * serialized, the data of one write is not interleaved with the data of other views.
+ * <p>
+ * Closing a view doesn't affect the other views, the connection is closed, when its last view is
+ * closed.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SharedSerialConnections
+ */
+public final class SerialConnectionView implements SerialConnection {
+
+	/** the registry, never <code>null</code> */
+	@Nonnull
+	private final SharedSerialConnections registry;
+	/** the shared connection, never <code>null</code> */
+	@Nonnull
+	final SharedConnection shared;
+
+	/** the number of received bytes, that were read by this view, guarded by the shared state */
+	long cursor;
+	/** the number of bytes, that were lost by this view, guarded by the shared state */
+	long lostBytes;
+	/** <code>true</code>, if this view was closed */
+	volatile boolean isClosed;
+
+	/** the input stream, <code>null</code> until requested */
+	private InputStream inputStream;
+	/** the output stream, <code>null</code> until requested */
+	private OutputStream outputStream;
+
+	/** publishes the received data, never <code>null</code> */
+	@Nonnull
+	private final SerialDataPublisher dataPublisher = new SerialDataPublisher(this);
+
+	/** Creates a view, that starts reading at the currently received data. */
+	SerialConnectionView(	@Nonnull SharedSerialConnections registry,
+							@Nonnull SharedConnection shared) {
+		this.registry = registry;
+		this.shared = shared;
+		cursor = shared.getReceived();
+	}
+
+	/** {@inheritDoc} */
+	public void write(@Nonnull byte[] data) throws IOException {
+		ensureOpen();
+		shared.write(data);
+	}
+
+	/** {@inheritDoc} */
+	public int write(@Nonnull ByteBuffer src) throws IOException {
+		ensureOpen();
+		return shared.write(src);
+	}
+
+	/** {@inheritDoc} */
+	public long write(@Nonnull ByteBuffer[] srcs) throws IOException {
+		ensureOpen();
+		return shared.write(srcs);
+	}
+
+	/** {@inheritDoc} */
+	public void flush() throws IOException {
+		ensureOpen();
+		shared.flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns all data, that was received since the last read of this view.
+	 */
+	@Nonnull
+	public byte[] read() throws IOException {
+		return shared.read(this);
+	}
+
+	/** {@inheritDoc} */
+	public int read(@Nonnull ByteBuffer dst) throws IOException {
+		checkArgumentNotNull(dst, "dst");
+		ensureOpen();
+		// don't wait for data, that doesn't fit into the buffer
+		if (!dst.hasRemaining())
+			return 0;
+		return shared.read(this, dst);
+	}
+
+	/** {@inheritDoc} */
+	public int available() throws IOException {
+		ensureOpen();
+		return shared.available(this);
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized InputStream getInputStream() {
+		if (inputStream == null)
+			inputStream = new SerialInputStream(this);
+		return inputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public synchronized OutputStream getOutputStream() {
+		if (outputStream == null)
+			outputStream = new SerialOutputStream(this);
+		return outputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public Flow.Publisher<ByteBuffer> getDataPublisher() {
+		return dataPublisher;
+	}
+
+	/**
+	 * Closes this view. The shared connection is closed, if this was its last open view.
+	 * 
+	 * @throws IOException
+	 *             if the shared connection couldn't be closed
+	 */
+	public void close() throws IOException {
+		dataPublisher.close();
+		registry.release(this);
+	}
+
+	/** {@inheritDoc} */
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public SerialPort getPort() {
+		return shared.port;
+	}
+
+	/**
+	 * Returns the number of received bytes, that this view lost, because it didn't read them
+	 * before the buffer was overwritten.
+	 * 
+	 * @return the number of lost bytes
+	 */
+	public long getLostBytes() {
+		return shared.getLostBytes(this);
+	}
+
+	/** Throws an {@link IOException}, if this view was closed. */
+	private void ensureOpen() throws IOException {
+		if (isClosed)
+			throw new IOException("Port " + getPort().getPortName() + " was closed!");
+	}
+}
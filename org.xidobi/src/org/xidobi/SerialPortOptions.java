@@ -0,0 +1,313 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Specifies the optional features of a connection, that are independent of the control settings
+ * of the serial port. The features can be combined, e.g. a connection can coalesce the writes and
+ * pipeline the resulting batches at the same time.
+ * <p>
+ * <b>Usage:</b>
+ * <p>
+ * <code>
+ * SerialPortOptions options;</br>
+ * options = SerialPortOptions.fromDefaults().coalesceWrites(512, 200).pumpReceivedData(65536).create();
+ * </code>
+ * <p>
+ * All features are disabled by default, see {@link #DEFAULTS}.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ConfigurableSerialPort#open(SerialPortSettings, SerialPortOptions)
+ */
+@Immutable
+public class SerialPortOptions {
+
+	/**
+	 * A builder for serial port options.
+	 * 
+	 * @author Christian Schwarz
+	 */
+	public static final class SerialPortOptionsBuilder {
+
+		/** the maximum number of bytes of a batch, 0 if the writes are not coalesced */
+		private int maxBatchSize;
+		/** the time in microseconds, a batch waits for further data */
+		private long lingerMicros;
+		/** the maximum number of writes in flight, 0 if the writes are not pipelined */
+		private int queueDepth;
+		/** the size of the staging buffer of each pipeline slot in bytes */
+		private int slotSize;
+		/** the capacity of the ring buffer in bytes, 0 if the received data is not pumped */
+		private int receiveCapacity;
+		/** <code>true</code>, if the wait for data and the read are done by one native call */
+		private boolean fusedReads;
+		/** the maximum number of bytes of a single read, 0 for the default of the implementation */
+		private int maxReadBufferSize;
+
+		/** Creates a builder for serial port options. */
+		private SerialPortOptionsBuilder() {}
+
+		/**
+		 * Aggregates small writes into batches. A batch is written, when it reaches the maximum
+		 * batch size, when the linger time elapsed or when {@link SerialConnection#flush()} is
+		 * called.
+		 * 
+		 * @param maxBatchSize
+		 *            the maximum number of bytes of a batch, must be greater than 0
+		 * @param lingerMicros
+		 *            the time in microseconds, a batch waits for further data, must not be
+		 *            negative
+		 * @return {@code this}
+		 */
+		@Nonnull
+		public SerialPortOptionsBuilder coalesceWrites(@Nonnegative int maxBatchSize, @Nonnegative long lingerMicros) {
+			checkArgument(maxBatchSize > 0, "maxBatchSize", "Expected a value greater than 0");
+			checkArgument(lingerMicros >= 0, "lingerMicros", "Expected a value greater than or equal to 0");
+			this.maxBatchSize = maxBatchSize;
+			this.lingerMicros = lingerMicros;
+			return this;
+		}
+
+		/**
+		 * Keeps up to <code>queueDepth</code> writes in flight. A write returns as soon as the data
+		 * is copied into a native staging buffer and only blocks, if all slots are in flight.
+		 * {@link SerialConnection#flush()} waits until all outstanding writes are completed.
+		 * 
+		 * @param queueDepth
+		 *            the maximum number of writes, that can be in flight at the same time, must be
+		 *            greater than 0
+		 * @param slotSize
+		 *            the size of the staging buffer of each slot in bytes, must be greater than 0
+		 * @return {@code this}
+		 */
+		@Nonnull
+		public SerialPortOptionsBuilder pipelineWrites(@Nonnegative int queueDepth, @Nonnegative int slotSize) {
+			checkArgument(queueDepth > 0, "queueDepth", "Expected a value greater than 0");
+			checkArgument(slotSize > 0, "slotSize", "Expected a value greater than 0");
+			this.queueDepth = queueDepth;
+			this.slotSize = slotSize;
+			return this;
+		}
+
+		/**
+		 * Drains the received data continuously from the input buffer of the driver into a ring
+		 * buffer of the given capacity. The reads of the connection are served from the ring
+		 * buffer, so the driver doesn't overrun, if the application doesn't read for a while.
+		 * 
+		 * @param receiveCapacity
+		 *            the capacity of the ring buffer in bytes, must be greater than 0
+		 * @return {@code this}
+		 */
+		@Nonnull
+		public SerialPortOptionsBuilder pumpReceivedData(@Nonnegative int receiveCapacity) {
+			checkArgument(receiveCapacity > 0, "receiveCapacity", "Expected a value greater than 0");
+			this.receiveCapacity = receiveCapacity;
+			return this;
+		}
+
+		/**
+		 * Waits for the arrival of data and reads it with a single native call, instead of
+		 * separate native calls for each step. This saves native transitions per read, but
+		 * requires a native library, that provides the fused call.
+		 * 
+		 * @return {@code this}
+		 */
+		@Nonnull
+		public SerialPortOptionsBuilder fuseReads() {
+			this.fusedReads = true;
+			return this;
+		}
+
+		/**
+		 * Limits the native buffer, that receives the data of a read. The buffer grows on demand
+		 * up to this size and is reused for all reads, so a single read returns not more than this
+		 * number of bytes. The rest of the received data remains in the input buffer of the driver
+		 * until the next read.
+		 * 
+		 * @param maxReadBufferSize
+		 *            the maximum size of the read buffer in bytes, must be greater than 0
+		 * @return {@code this}
+		 */
+		@Nonnull
+		public SerialPortOptionsBuilder limitReadBuffer(@Nonnegative int maxReadBufferSize) {
+			checkArgument(maxReadBufferSize > 0, "maxReadBufferSize", "Expected a value greater than 0");
+			this.maxReadBufferSize = maxReadBufferSize;
+			return this;
+		}
+
+		/**
+		 * Creates and returns the serial port options, specified by the current builder.
+		 * 
+		 * @return the serial port options, never <code>null</code>
+		 */
+		@Nonnull
+		public SerialPortOptions create() {
+			return new SerialPortOptions(maxBatchSize, lingerMicros, queueDepth, slotSize, receiveCapacity, fusedReads, maxReadBufferSize);
+		}
+
+	}
+
+	/** The options with all features disabled. */
+	public static final SerialPortOptions DEFAULTS = fromDefaults().create();
+
+	/** the maximum number of bytes of a batch, 0 if the writes are not coalesced */
+	private final int maxBatchSize;
+	/** the time in microseconds, a batch waits for further data */
+	private final long lingerMicros;
+	/** the maximum number of writes in flight, 0 if the writes are not pipelined */
+	private final int queueDepth;
+	/** the size of the staging buffer of each pipeline slot in bytes */
+	private final int slotSize;
+	/** the capacity of the ring buffer in bytes, 0 if the received data is not pumped */
+	private final int receiveCapacity;
+	/** <code>true</code>, if the wait for data and the read are done by one native call */
+	private final boolean fusedReads;
+	/** the maximum number of bytes of a single read, 0 for the default of the implementation */
+	private final int maxReadBufferSize;
+
+	/**
+	 * Creates serial port options with the given values.
+	 */
+	private SerialPortOptions(	@Nonnegative int maxBatchSize,
+								@Nonnegative long lingerMicros,
+								@Nonnegative int queueDepth,
+								@Nonnegative int slotSize,
+								@Nonnegative int receiveCapacity,
+								boolean fusedReads,
+								@Nonnegative int maxReadBufferSize) {
+		this.maxBatchSize = maxBatchSize;
+		this.lingerMicros = lingerMicros;
+		this.queueDepth = queueDepth;
+		this.slotSize = slotSize;
+		this.receiveCapacity = receiveCapacity;
+		this.fusedReads = fusedReads;
+		this.maxReadBufferSize = maxReadBufferSize;
+	}
+
+	/**
+	 * Creates a builder for the serial port options. All features are disabled initially.
+	 * 
+	 * @return a new builder for the serial port options, never <code>null</code>
+	 */
+	@Nonnull
+	public static SerialPortOptionsBuilder fromDefaults() {
+		return new SerialPortOptionsBuilder();
+	}
+
+	/**
+	 * Returns <code>true</code>, if small writes are aggregated into batches.
+	 * 
+	 * @return <code>true</code>, if the writes are coalesced
+	 */
+	public boolean isCoalescingWrites() {
+		return maxBatchSize > 0;
+	}
+
+	/**
+	 * Returns the maximum number of bytes of a batch.
+	 * 
+	 * @return the maximum batch size, 0 if the writes are not coalesced
+	 */
+	@Nonnegative
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * Returns the time in microseconds, a batch waits for further data.
+	 * 
+	 * @return the linger time in microseconds
+	 */
+	@Nonnegative
+	public long getLingerMicros() {
+		return lingerMicros;
+	}
+
+	/**
+	 * Returns <code>true</code>, if several writes are kept in flight.
+	 * 
+	 * @return <code>true</code>, if the writes are pipelined
+	 */
+	public boolean isPipeliningWrites() {
+		return queueDepth > 0;
+	}
+
+	/**
+	 * Returns the maximum number of writes, that can be in flight at the same time.
+	 * 
+	 * @return the queue depth, 0 if the writes are not pipelined
+	 */
+	@Nonnegative
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * Returns the size of the staging buffer of each pipeline slot in bytes.
+	 * 
+	 * @return the slot size, 0 if the writes are not pipelined
+	 */
+	@Nonnegative
+	public int getSlotSize() {
+		return slotSize;
+	}
+
+	/**
+	 * Returns <code>true</code>, if the received data is drained continuously into a ring buffer.
+	 * 
+	 * @return <code>true</code>, if the received data is pumped
+	 */
+	public boolean isPumpingReceivedData() {
+		return receiveCapacity > 0;
+	}
+
+	/**
+	 * Returns the capacity of the ring buffer for the received data in bytes.
+	 * 
+	 * @return the receive capacity, 0 if the received data is not pumped
+	 */
+	@Nonnegative
+	public int getReceiveCapacity() {
+		return receiveCapacity;
+	}
+
+	/**
+	 * Returns <code>true</code>, if the wait for data and the read are done by a single native
+	 * call.
+	 * 
+	 * @return <code>true</code>, if the reads are fused
+	 */
+	public boolean isFusingReads() {
+		return fusedReads;
+	}
+
+	/**
+	 * Returns the maximum size of the native buffer, that receives the data of a read.
+	 * 
+	 * @return the maximum read buffer size in bytes, 0 if the default of the implementation is used
+	 */
+	@Nonnegative
+	public int getMaxReadBufferSize() {
+		return maxReadBufferSize;
+	}
+}
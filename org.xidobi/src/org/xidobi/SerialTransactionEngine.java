@@ -0,0 +1,539 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.System.nanoTime;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.codec.CorruptFrameException;
+import org.xidobi.codec.FrameDecoder;
+import org.xidobi.codec.FrameReader;
+import org.xidobi.spi.CompletionFuture;
+
+/**
+ * Correlates requests and responses over one {@link SerialConnection}, for request/response
+ * protocols.
+ * <p>
+ * Any number of threads can submit requests by {@link #request(byte[], ResponseMatcher, long,
+ * TimeUnit)} without coordinating the access to the connection. The requests are queued and
+ * written in order by a sending thread. The received bytes are decoded into frames by a
+ * {@link FrameDecoder} on a receiving thread, each frame completes the oldest outstanding request,
+ * whose {@link ResponseMatcher} matches the frame. Frames that match no outstanding request are
+ * discarded.
+ * <p>
+ * Devices that can process several requests at once are used with a maximum number of outstanding
+ * requests greater than 1. In this case the next request is written without waiting for the
+ * previous response, so the round trip time doesn't limit the throughput. With a maximum of 1, a
+ * request is written only after the previous transaction was completed.
+ * <p>
+ * Example:
+ * 
+ * <pre>
+ * SerialTransactionEngine engine = new SerialTransactionEngine(connection, new DelimiterFrameDecoder(256, (byte) '\n'), 4);
+ * Future&lt;byte[]&gt; response = engine.request(&quot;*IDN?\n&quot;.getBytes(), ResponseMatcher.ANY, 500, MILLISECONDS);
+ * byte[] id = response.get();
+ * engine.close();
+ * </pre>
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ResponseMatcher
+ * @see FrameDecoder
+ */
+public class SerialTransactionEngine implements Closeable {
+
+	/** the connection, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+	/** reads the responses, used only by the receiving thread, never <code>null</code> */
+	@Nonnull
+	private final FrameReader frameReader;
+	/** the maximum number of requests, that wait for their response */
+	private final int maxOutstanding;
+
+	/** guards the state of this engine */
+	private final Lock lock = new ReentrantLock();
+	/**
+	 * signaled, when a request was queued, a transaction was completed or the engine was closed
+	 */
+	private final Condition stateChanged = lock.newCondition();
+
+	/** the requests, that are not written yet */
+	private final LinkedList<Transaction> queued = new LinkedList<Transaction>();
+	/** the written requests, that wait for their response, the oldest first */
+	private final LinkedList<Transaction> outstanding = new LinkedList<Transaction>();
+
+	/** <code>true</code>, if this engine was closed */
+	private boolean isClosed;
+	/** the failure of the connection, <code>null</code> if none occurred */
+	private IOException failure;
+
+	/** the number of transactions, that were completed with a response */
+	private long completedCount;
+	/** the number of transactions, whose response timed out */
+	private long timeoutCount;
+	/** the number of received frames, that matched no outstanding request or were corrupt */
+	private long discardedCount;
+
+	/**
+	 * Creates a new engine and starts the sending and receiving thread.
+	 * 
+	 * @param connection
+	 *            the connection, must not be <code>null</code>
+	 * @param decoder
+	 *            decodes the responses, must not be <code>null</code>
+	 * @param maxOutstanding
+	 *            the maximum number of requests, that wait for their response at the same time,
+	 *            must be greater than 0. Use 1, if the device processes one request at a time.
+	 */
+	public SerialTransactionEngine(	@Nonnull SerialConnection connection,
+									@Nonnull FrameDecoder decoder,
+									@Nonnegative int maxOutstanding) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+		checkArgumentNotNull(decoder, "decoder");
+		checkArgument(maxOutstanding > 0, "maxOutstanding", "Expected a value greater than 0");
+		this.maxOutstanding = maxOutstanding;
+		frameReader = new FrameReader(connection, decoder);
+
+		start(new Sender(), "xidobi transaction sender");
+		start(new Receiver(), "xidobi transaction receiver");
+	}
+
+	/** Starts a daemon thread, that runs the given task. */
+	private static void start(Runnable task, String name) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues the given request and returns immediately. The returned future completes with the
+	 * content of the first frame, that is received after the request was written and that matches
+	 * the given matcher. It fails with a {@link TimeoutException}, if no matching frame is received
+	 * within the timeout, or with an {@link IOException}, if the connection failed or the engine
+	 * was closed.
+	 * 
+	 * @param payload
+	 *            the request, that is written as it is, must not be <code>null</code>
+	 * @param matcher
+	 *            matches the response, must not be <code>null</code>
+	 * @param timeout
+	 *            the time the response may take after the request was written, must be greater
+	 *            than 0. The time the request waits in the queue is not included.
+	 * @param unit
+	 *            the unit of the timeout, must not be <code>null</code>
+	 * @return the future response, never <code>null</code>
+	 * @throws IOException
+	 *             if this engine was closed or the connection failed
+	 */
+	@Nonnull
+	public Future<byte[]> request(	@Nonnull byte[] payload,
+									@Nonnull ResponseMatcher matcher,
+									@Nonnegative long timeout,
+									@Nonnull TimeUnit unit) throws IOException {
+		checkArgumentNotNull(payload, "payload");
+		checkArgumentNotNull(matcher, "matcher");
+		checkArgument(timeout > 0, "timeout", "Expected a value greater than 0");
+		checkArgumentNotNull(unit, "unit");
+
+		Transaction transaction = new Transaction(payload, matcher, unit.toNanos(timeout));
+		lock.lock();
+		try {
+			throwIfClosed();
+			queued.add(transaction);
+			stateChanged.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		return transaction.future;
+	}
+
+	/** Throws an {@link IOException}, if this engine was closed. Must be called with the lock. */
+	private void throwIfClosed() throws IOException {
+		if (failure != null)
+			throw failure;
+		if (isClosed)
+			throw new IOException("The transaction engine was closed!");
+	}
+
+	/**
+	 * Closes this engine and the connection. The queued and outstanding transactions fail, the
+	 * background threads terminate.
+	 * 
+	 * @throws IOException
+	 *             if the connection couldn't be closed
+	 */
+	public void close() throws IOException {
+		List<Transaction> failed = new ArrayList<Transaction>();
+		lock.lock();
+		try {
+			if (isClosed)
+				return;
+			isClosed = true;
+			failAll(new IOException("The transaction engine was closed!"), failed);
+		}
+		finally {
+			lock.unlock();
+		}
+		finish(failed);
+		connection.close();
+	}
+
+	/**
+	 * Removes all queued and outstanding transactions and adds them to the given list, they are
+	 * failed with the given exception by {@link #finish(List)}. Must be called with the lock.
+	 */
+	private void failAll(IOException e, List<Transaction> failed) {
+		for (Transaction transaction : outstanding)
+			failed.add(transaction.failed(e));
+		outstanding.clear();
+		for (Transaction transaction : queued)
+			failed.add(transaction.failed(e));
+		queued.clear();
+		stateChanged.signalAll();
+	}
+
+	/**
+	 * Completes the futures of the given transactions, that were removed with the lock. Must be
+	 * called without the lock, so the threads, that wait for the futures, don't contend for it.
+	 */
+	private static void finish(List<Transaction> transactions) {
+		for (Transaction transaction : transactions)
+			transaction.finish();
+	}
+
+	/**
+	 * Returns the number of transactions, that were completed with a response.
+	 * 
+	 * @return the number of completed transactions
+	 */
+	public long getCompletedCount() {
+		lock.lock();
+		try {
+			return completedCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of transactions, whose response timed out.
+	 * 
+	 * @return the number of timeouts
+	 */
+	public long getTimeoutCount() {
+		lock.lock();
+		try {
+			return timeoutCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of received frames, that were discarded, because they matched no
+	 * outstanding request or were corrupt.
+	 * 
+	 * @return the number of discarded frames
+	 */
+	public long getDiscardedCount() {
+		lock.lock();
+		try {
+			return discardedCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of requests, that are queued or wait for their response.
+	 * 
+	 * @return the number of pending transactions
+	 */
+	public int getPendingCount() {
+		lock.lock();
+		try {
+			return queued.size() + outstanding.size();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** A request and its future response. */
+	private static final class Transaction {
+
+		/** the request */
+		final byte[] payload;
+		/** matches the response */
+		final ResponseMatcher matcher;
+		/** the timeout in nanoseconds */
+		final long timeoutNanos;
+		/** the future response */
+		final CompletionFuture<byte[]> future = new CompletionFuture<byte[]>();
+		/** the time in nanoseconds, when the response times out, set when the request is written */
+		long deadline;
+		/** the response, set when the transaction was removed with the lock */
+		byte[] response;
+		/** the failure, set when the transaction was removed with the lock */
+		Exception failure;
+
+		/** Creates a new transaction. */
+		Transaction(byte[] payload,
+					ResponseMatcher matcher,
+					long timeoutNanos) {
+			this.payload = payload;
+			this.matcher = matcher;
+			this.timeoutNanos = timeoutNanos;
+		}
+
+		/** Sets the response and returns this transaction. */
+		Transaction completed(byte[] response) {
+			this.response = response;
+			return this;
+		}
+
+		/** Sets the failure and returns this transaction. */
+		Transaction failed(Exception failure) {
+			this.failure = failure;
+			return this;
+		}
+
+		/** Completes the future with the response or the failure. */
+		void finish() {
+			if (failure != null)
+				future.failed(failure, null);
+			else
+				future.completed(response, null);
+		}
+	}
+
+	/** Writes the queued requests in order and expires the outstanding transactions. */
+	private final class Sender implements Runnable {
+
+		public void run() {
+			while (true) {
+				Transaction transaction = next();
+				if (transaction == null)
+					return;
+				try {
+					connection.write(transaction.payload);
+				}
+				catch (IOException e) {
+					fail(transaction, e);
+				}
+				catch (RuntimeException e) {
+					fail(transaction, e);
+				}
+			}
+		}
+
+		/**
+		 * Blocks until a request can be written and moves it to the outstanding transactions.
+		 * Returns <code>null</code>, if the engine was closed. The transactions, that timed out in
+		 * the meantime, are failed without the lock.
+		 */
+		private Transaction next() {
+			List<Transaction> expired = new ArrayList<Transaction>();
+			while (true) {
+				lock.lock();
+				try {
+					long wait = expire(expired);
+					if (expired.isEmpty()) {
+						if (isClosed || failure != null)
+							return null;
+						if (!queued.isEmpty() && outstanding.size() < maxOutstanding) {
+							Transaction transaction = queued.removeFirst();
+							transaction.deadline = nanoTime() + transaction.timeoutNanos;
+							outstanding.add(transaction);
+							return transaction;
+						}
+						if (wait == Long.MAX_VALUE)
+							stateChanged.await();
+						else
+							stateChanged.awaitNanos(wait);
+						continue;
+					}
+				}
+				catch (InterruptedException e) {
+					return null;
+				}
+				finally {
+					lock.unlock();
+				}
+				finish(expired);
+				expired.clear();
+			}
+		}
+
+		/**
+		 * Removes the outstanding transactions, whose response timed out, and adds them to the given
+		 * list. Returns the time in nanoseconds until the next one times out, {@link Long#MAX_VALUE}
+		 * if none is outstanding. Must be called with the lock.
+		 */
+		private long expire(List<Transaction> expired) {
+			long now = nanoTime();
+			long wait = Long.MAX_VALUE;
+			for (Iterator<Transaction> it = outstanding.iterator(); it.hasNext();) {
+				Transaction transaction = it.next();
+				long remaining = transaction.deadline - now;
+				if (remaining > 0) {
+					wait = Math.min(wait, remaining);
+					continue;
+				}
+				it.remove();
+				timeoutCount++;
+				expired.add(transaction.failed(new TimeoutException("No response received within " + TimeUnit.NANOSECONDS.toMillis(transaction.timeoutNanos) + " ms!")));
+			}
+			return wait;
+		}
+
+		/** Fails the given transaction, whose request couldn't be written. */
+		private void fail(Transaction transaction, Exception e) {
+			lock.lock();
+			try {
+				outstanding.remove(transaction);
+				stateChanged.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+			transaction.future.failed(e, null);
+		}
+	}
+
+	/** Reads the responses and completes the matching transactions, until the connection fails. */
+	private final class Receiver implements Runnable {
+
+		public void run() {
+			try {
+				while (true) {
+					ByteBuffer frame;
+					try {
+						frame = frameReader.read();
+					}
+					catch (CorruptFrameException e) {
+						discarded();
+						continue;
+					}
+					complete(frame);
+				}
+			}
+			catch (IOException e) {
+				fail(e);
+			}
+			catch (RuntimeException e) {
+				IOException failure = new IOException("The connection failed unexpected!");
+				failure.initCause(e);
+				fail(failure);
+			}
+		}
+
+		/**
+		 * Completes the oldest outstanding transaction, that matches the given frame. The futures
+		 * are completed without the lock.
+		 */
+		private void complete(ByteBuffer frame) {
+			int position = frame.position();
+			int limit = frame.limit();
+			List<Transaction> finished = new ArrayList<Transaction>();
+			lock.lock();
+			try {
+				for (Iterator<Transaction> it = outstanding.iterator(); it.hasNext();) {
+					Transaction transaction = it.next();
+					boolean matches;
+					try {
+						matches = transaction.matcher.matches(frame);
+					}
+					catch (RuntimeException e) {
+						// a faulty matcher fails only its own transaction
+						it.remove();
+						finished.add(transaction.failed(e));
+						stateChanged.signalAll();
+						continue;
+					}
+					finally {
+						frame.limit(limit).position(position);
+					}
+					if (!matches)
+						continue;
+
+					it.remove();
+					byte[] response = new byte[frame.remaining()];
+					frame.get(response);
+					completedCount++;
+					finished.add(transaction.completed(response));
+					stateChanged.signalAll();
+					return;
+				}
+				discardedCount++;
+			}
+			finally {
+				lock.unlock();
+				finish(finished);
+			}
+		}
+
+		/** Counts a corrupt frame. */
+		private void discarded() {
+			lock.lock();
+			try {
+				discardedCount++;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		/** Fails all transactions with the failure of the connection. */
+		private void fail(IOException e) {
+			List<Transaction> failed = new ArrayList<Transaction>();
+			lock.lock();
+			try {
+				if (isClosed)
+					return;
+				failure = e;
+				failAll(e, failed);
+			}
+			finally {
+				lock.unlock();
+			}
+			finish(failed);
+		}
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The state of a connection, that is shared by the {@link SerialConnectionView}s of
+ * {@link SharedSerialConnections}.
+ * <p>
+ * A background thread reads the received data into a ring buffer, every view reads the data with
+ * its own cursor. The writes of the views are serialized by a lock.
+ * 
+ * @author Christian Schwarz
+ */
+final class SharedConnection {
+
+	/** the port of the connection, never <code>null</code> */
+	@Nonnull
+	final SerialPort port;
+
+	/** the shared connection, never <code>null</code> */
+	@Nonnull
+	final SerialConnection connection;
+
+	/** the registry, that is notified when the connection fails, never <code>null</code> */
+	@Nonnull
+	private final SharedSerialConnections registry;
+
+	/** the received data, never <code>null</code> */
+	@Nonnull
+	private final byte[] ring;
+
+	/** guards the received data and the cursors of the views */
+	private final Lock lock = new ReentrantLock();
+	/** signaled, when data was received, the connection failed or a view was closed */
+	private final Condition stateChanged = lock.newCondition();
+
+	/** serializes the writes of the views */
+	private final Lock writeLock = new ReentrantLock();
+
+	/** the total number of received bytes */
+	private long received;
+	/** the failure of the connection, <code>null</code> if none occurred */
+	private IOException failure;
+
+	/** the number of open views, guarded by the registry */
+	int viewCount;
+
+	/**
+	 * Creates the shared state and starts the background thread.
+	 * 
+	 * @param port
+	 *            the port of the connection, must not be <code>null</code>
+	 * @param connection
+	 *            the shared connection, must not be <code>null</code>
+	 * @param registry
+	 *            the registry, must not be <code>null</code>
+	 * @param bufferSize
+	 *            the size of the ring buffer in bytes
+	 */
+	SharedConnection(	@Nonnull SerialPort port,
+						@Nonnull SerialConnection connection,
+						@Nonnull SharedSerialConnections registry,
+						int bufferSize) {
+		this.port = port;
+		this.connection = connection;
+		this.registry = registry;
+		ring = new byte[bufferSize];
+
+		Thread reader = new Thread(new Receiver(), "xidobi shared reader " + port.getPortName());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/** Returns the total number of received bytes, the initial cursor of a new view. */
+	long getReceived() {
+		lock.lock();
+		try {
+			return received;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Reads all data, that the given view didn't read yet. */
+	@Nonnull
+	byte[] read(@Nonnull SerialConnectionView view) throws IOException {
+		lock.lock();
+		try {
+			byte[] data = new byte[awaitData(view)];
+			copy(view, ByteBuffer.wrap(data), data.length);
+			return data;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Reads not more data, that the given view didn't read yet, than the buffer can take. */
+	int read(@Nonnull SerialConnectionView view, @Nonnull ByteBuffer dst) throws IOException {
+		lock.lock();
+		try {
+			int length = min(awaitData(view), dst.remaining());
+			copy(view, dst, length);
+			return length;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns the number of bytes, that the given view didn't read yet. */
+	int available(@Nonnull SerialConnectionView view) {
+		lock.lock();
+		try {
+			return (int) min(received - view.cursor, ring.length);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns the number of bytes, that the given view lost. */
+	long getLostBytes(@Nonnull SerialConnectionView view) {
+		lock.lock();
+		try {
+			return view.lostBytes;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Blocks until the given view has unread data and returns the number of unread bytes. If the
+	 * view fell behind by more than the size of the ring buffer, the oldest bytes are skipped.
+	 * Must be called while holding the lock.
+	 */
+	private int awaitData(SerialConnectionView view) throws IOException {
+		while (true) {
+			if (view.isClosed)
+				throw new IOException("Port " + port.getPortName() + " was closed!");
+
+			long unread = received - view.cursor;
+			if (unread > ring.length) {
+				view.lostBytes += unread - ring.length;
+				view.cursor = received - ring.length;
+				unread = ring.length;
+			}
+			if (unread > 0)
+				return (int) unread;
+
+			if (failure != null)
+				throw failure;
+			try {
+				stateChanged.await();
+			}
+			catch (InterruptedException e) {
+				throw new InterruptedIOException("The thread for the read operation is interrupted!");
+			}
+		}
+	}
+
+	/** Copies the given number of bytes at the cursor of the view. Must be called with the lock. */
+	private void copy(SerialConnectionView view, ByteBuffer dst, int length) {
+		int offset = (int) (view.cursor % ring.length);
+		int first = min(length, ring.length - offset);
+		dst.put(ring, offset, first);
+		dst.put(ring, 0, length - first);
+		view.cursor += length;
+	}
+
+	/** Wakes up the threads, that are blocked in a read of the given view, after it was closed. */
+	void closed(@Nonnull SerialConnectionView view) {
+		lock.lock();
+		try {
+			view.isClosed = true;
+			stateChanged.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Writes the given data, while no other view writes. */
+	void write(@Nonnull byte[] data) throws IOException {
+		writeLock.lock();
+		try {
+			connection.write(data);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/** Writes the given data, while no other view writes. */
+	int write(@Nonnull ByteBuffer src) throws IOException {
+		writeLock.lock();
+		try {
+			return connection.write(src);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/** Writes the given data, while no other view writes. */
+	long write(@Nonnull ByteBuffer[] srcs) throws IOException {
+		writeLock.lock();
+		try {
+			return connection.write(srcs);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/** Flushes the connection, while no other view writes. */
+	void flush() throws IOException {
+		writeLock.lock();
+		try {
+			connection.flush();
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/** Appends the given data to the ring buffer, only the last bytes are kept if it's too large. */
+	private void append(byte[] data) {
+		lock.lock();
+		try {
+			int skip = Math.max(0, data.length - ring.length);
+			int length = data.length - skip;
+			int offset = (int) ((received + skip) % ring.length);
+			int first = min(length, ring.length - offset);
+			arraycopy(data, skip, ring, offset, first);
+			arraycopy(data, skip + first, ring, 0, length - first);
+			received += data.length;
+			stateChanged.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Stores the failure, it is thrown by the reads of the views after all data was read. */
+	private void fail(IOException e) {
+		lock.lock();
+		try {
+			failure = e;
+			stateChanged.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		registry.failed(this);
+	}
+
+	/** Reads the received data into the ring buffer, until the connection fails or is closed. */
+	private final class Receiver implements Runnable {
+
+		public void run() {
+			try {
+				while (true)
+					append(connection.read());
+			}
+			catch (IOException e) {
+				fail(e);
+			}
+			catch (RuntimeException e) {
+				IOException failure = new IOException("The connection failed unexpected!");
+				failure.initCause(e);
+				fail(failure);
+			}
+		}
+	}
+}
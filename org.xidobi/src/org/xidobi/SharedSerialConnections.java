@@ -0,0 +1,212 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.WillCloseWhenClosed;
+
+/**
+ * A registry of connections, that are shared by several subsystems, e.g. a protocol handler, a
+ * logger and a diagnostic tool.
+ * <p>
+ * A serial port can only be opened once, because the access to a port is exclusive. This registry
+ * opens a port only for the first call of {@link #open(SerialPort, SerialPortSettings)} and hands
+ * out a {@link SerialConnectionView} of the same connection for every further call with the same
+ * port name. The connection is closed, when all of its views are closed.
+ * <p>
+ * The received data is read by one background thread per connection into a ring buffer, every
+ * view reads all data with its own cursor. The writes of the views are serialized.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialConnectionView
+ */
+public class SharedSerialConnections {
+
+	/** The default size of the ring buffer of each connection in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/** the size of the ring buffer of each connection in bytes */
+	private final int bufferSize;
+
+	/** the open connections by port name */
+	private final Map<String, SharedConnection> connections = new HashMap<String, SharedConnection>();
+
+	/** the names of the ports, that are currently opened by a call of {@link #open} */
+	private final Set<String> opening = new HashSet<String>();
+
+	/**
+	 * Creates a new registry with ring buffers of the {@link #DEFAULT_BUFFER_SIZE}.
+	 */
+	public SharedSerialConnections() {
+		this(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new registry.
+	 * 
+	 * @param bufferSize
+	 *            the size of the ring buffer of each connection in bytes, must be greater than 0.
+	 *            A view, that falls behind by more bytes, loses the oldest data.
+	 */
+	public SharedSerialConnections(@Nonnegative int bufferSize) {
+		checkArgument(bufferSize > 0, "bufferSize", "Expected a value greater than 0");
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Returns a new view of the connection to the given port. The port is opened with the given
+	 * settings, if no view of a port with the same name is open. Otherwise the settings are
+	 * ignored, the port keeps the settings of the first call.
+	 * <p>
+	 * The port is opened without holding the lock of this registry, so other ports can be opened
+	 * and released meanwhile. Concurrent calls for a port, that is currently opened, wait until
+	 * the open has finished.
+	 * <p>
+	 * <b>IMPORTANT:</b> The returned view must be closed, when it is not used anymore! Otherwise
+	 * the port stays open!
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param settings
+	 *            the control settings for the port, must not be <code>null</code>
+	 * @return the view, that receives all data from now on, never <code>null</code>
+	 * @throws IOException
+	 *             if the port cannot be opened or the thread was interrupted, while it was waiting
+	 *             for a concurrent open of the same port
+	 */
+	@Nonnull
+	@WillCloseWhenClosed
+	public SerialConnectionView open(@Nonnull SerialPort port, @Nonnull SerialPortSettings settings) throws IOException {
+		checkArgumentNotNull(port, "port");
+		checkArgumentNotNull(settings, "settings");
+
+		String portName = port.getPortName();
+		synchronized (this) {
+			while (opening.contains(portName))
+				awaitOpened();
+
+			SharedConnection shared = connections.get(portName);
+			if (shared != null)
+				return newView(shared);
+			opening.add(portName);
+		}
+
+		try {
+			SerialConnection connection = port.open(settings);
+			synchronized (this) {
+				// the reader of the connection can't report a failure before it is registered
+				SharedConnection shared = new SharedConnection(port, connection, this, bufferSize);
+				connections.put(portName, shared);
+				return newView(shared);
+			}
+		}
+		finally {
+			synchronized (this) {
+				opening.remove(portName);
+				notifyAll();
+			}
+		}
+	}
+
+	/** Waits until a concurrent call of {@link #open} has finished. */
+	private void awaitOpened() throws InterruptedIOException {
+		try {
+			wait();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The thread is interrupted, while waiting for the port to be opened!");
+		}
+	}
+
+	/** Returns a new view of the given connection. */
+	private SerialConnectionView newView(SharedConnection shared) {
+		shared.viewCount++;
+		return new SerialConnectionView(this, shared);
+	}
+
+	/**
+	 * Returns <code>true</code>, if a view of the port with the given name is open.
+	 * 
+	 * @param portName
+	 *            the name of the port, must not be <code>null</code>
+	 * @return <code>true</code>, if the port is shared by this registry
+	 */
+	public synchronized boolean isOpen(@Nonnull String portName) {
+		return connections.containsKey(portName);
+	}
+
+	/**
+	 * Returns the number of open views of the port with the given name.
+	 * 
+	 * @param portName
+	 *            the name of the port, must not be <code>null</code>
+	 * @return the number of open views, 0 if the port is not shared by this registry
+	 */
+	public synchronized int getViewCount(@Nonnull String portName) {
+		SharedConnection shared = connections.get(portName);
+		if (shared == null)
+			return 0;
+		return shared.viewCount;
+	}
+
+	/** Closes the given view and the connection, if it was the last open view. */
+	void release(@Nonnull SerialConnectionView view) throws IOException {
+		SharedConnection shared = view.shared;
+		synchronized (this) {
+			if (view.isClosed)
+				return;
+			shared.closed(view);
+			if (--shared.viewCount > 0)
+				return;
+			String portName = shared.port.getPortName();
+			if (connections.get(portName) == shared)
+				connections.remove(portName);
+		}
+		shared.connection.close();
+	}
+
+	/**
+	 * Removes the given connection after it failed, so the port can be opened again. The views
+	 * read the remaining data and throw the failure afterwards.
+	 */
+	void failed(@Nonnull SharedConnection shared) {
+		synchronized (this) {
+			String portName = shared.port.getPortName();
+			if (connections.get(portName) != shared)
+				return;
+			connections.remove(portName);
+		}
+		try {
+			shared.connection.close();
+		}
+		catch (IOException ignore) {
+			// the connection is already broken
+		}
+	}
+}
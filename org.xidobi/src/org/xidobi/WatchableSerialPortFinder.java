@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link SerialPortFinder}, that notifies {@link PortListener}s when a serial port is added to or
+ * removed from the system.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see PortListener
+ */
+public interface WatchableSerialPortFinder extends SerialPortFinder {
+
+	/**
+	 * Registers a listener, that is notified when a serial port is added to or removed from the
+	 * system. Only the changes after the registration are notified, use {@link #getAll()} to get
+	 * the serial ports, that are already installed.
+	 * 
+	 * @param listener
+	 *            the listener, must not be <code>null</code>
+	 * 
+	 * @exception IllegalArgumentException
+	 *                if <code>listener==null</code>
+	 * @exception UnsupportedOperationException
+	 *                if the implementation can't watch the serial ports on this system
+	 */
+	void addListener(@Nonnull PortListener listener);
+
+	/**
+	 * Removes a listener, that was registered with {@link #addListener(PortListener)}. Does nothing,
+	 * if the listener is not registered.
+	 * <p>
+	 * The listener is not notified anymore, after this method returned. If it is called by a
+	 * notification, only the following notifications are omitted.
+	 * 
+	 * @param listener
+	 *            the listener, must not be <code>null</code>
+	 * 
+	 * @exception IllegalArgumentException
+	 *                if <code>listener==null</code>
+	 */
+	void removeListener(@Nonnull PortListener listener);
+
+}
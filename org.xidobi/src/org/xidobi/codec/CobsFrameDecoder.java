@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes frames, that are encoded with Consistent Overhead Byte Stuffing (COBS) and terminated by
+ * <code>0x00</code>. Every group of the encoded frame starts with a code byte <code>n</code>,
+ * followed by <code>n - 1</code> data bytes. If <code>n</code> is less than <code>0xFF</code> and
+ * another group follows, the group is followed by a zero in the decoded frame. The frame is
+ * decoded in place. Empty frames are skipped.
+ * <p>
+ * A frame, whose last group is truncated by the delimiter, is corrupt. A frame, that exceeds the
+ * maximum length, is discarded up to the next delimiter.
+ * 
+ * @author Christian Schwarz
+ */
+public class CobsFrameDecoder implements FrameDecoder {
+
+	/** Terminates a frame. */
+	public static final byte DELIMITER = 0;
+
+	/** the maximum length of the content of a frame in bytes */
+	private final int maxFrameLength;
+
+	/** the number of encoded bytes of the current frame, that were decoded */
+	private int read;
+	/** the number of decoded bytes of the current frame */
+	private int written;
+	/** the number of data bytes, that remain in the current group */
+	private int remainingInGroup;
+	/** <code>true</code>, if a zero must be inserted, when the next group starts */
+	private boolean pendingZero;
+
+	/** <code>true</code>, if the bytes up to the next delimiter are discarded */
+	private boolean discarding;
+
+	/**
+	 * Creates a new decoder.
+	 * 
+	 * @param maxFrameLength
+	 *            the maximum length of the content of a frame in bytes, must be greater than 0
+	 */
+	public CobsFrameDecoder(@Nonnegative int maxFrameLength) {
+		checkArgument(maxFrameLength > 0, "maxFrameLength", "Expected a value greater than 0");
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	/** {@inheritDoc} */
+	@CheckForNull
+	public ByteBuffer decode(@Nonnull ByteBuffer buffer) throws CorruptFrameException {
+		int position = buffer.position();
+		int available = buffer.remaining();
+
+		while (read < available) {
+			byte b = buffer.get(position + read);
+
+			if (b == DELIMITER) {
+				int consumed = read + 1;
+				int length = written;
+				boolean truncated = remainingInGroup > 0;
+				boolean skip = discarding || read == 0;
+				reset();
+				if (!skip && !truncated)
+					return Frames.slice(buffer, 0, length, consumed);
+
+				buffer.position(position + consumed);
+				if (!skip)
+					throw new CorruptFrameException("The last group of the frame is truncated!");
+
+				// skip the empty frame or the end of the discarded frame
+				position += consumed;
+				available -= consumed;
+				continue;
+			}
+
+			read++;
+			if (discarding)
+				continue;
+
+			if (remainingInGroup > 0) {
+				remainingInGroup--;
+			}
+			else {
+				// b is the code byte of the next group
+				int code = b & 0xFF;
+				remainingInGroup = code - 1;
+				boolean zero = pendingZero;
+				pendingZero = code != 0xFF;
+				if (!zero)
+					continue;
+				b = 0;
+			}
+
+			if (written == maxFrameLength) {
+				// skip the decoded bytes, the rest of the frame is skipped by the next calls
+				buffer.position(position + read);
+				reset();
+				discarding = true;
+				throw new CorruptFrameException("The frame exceeds the maximum length of " + maxFrameLength + " bytes!");
+			}
+			// the decoded frame is never longer than the encoded frame, so it is decoded in place
+			buffer.put(position + written++, b);
+		}
+		if (discarding) {
+			buffer.position(position + read);
+			read = 0;
+		}
+		return null;
+	}
+
+	/** {@inheritDoc} */
+	public void reset() {
+		read = 0;
+		written = 0;
+		remainingInGroup = 0;
+		pendingZero = false;
+		discarding = false;
+	}
+}
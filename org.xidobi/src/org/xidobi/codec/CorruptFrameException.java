@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import java.io.IOException;
+
+/**
+ * Indicates, that the received bytes couldn't be decoded to a valid frame, e.g. because a frame
+ * exceeds the maximum length or the encoding is invalid.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see FrameDecoder
+ */
+public class CorruptFrameException extends IOException {
+
+	/** Serial-Version-UID */
+	private static final long serialVersionUID = -6093268524741389310L;
+
+	/**
+	 * Creates a new exception.
+	 * 
+	 * @param message
+	 *            an error description, can be <code>null</code>
+	 */
+	public CorruptFrameException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static java.lang.Math.max;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes frames, that are terminated by a delimiter, e.g. <code>"\r\n"</code>. The delimiter is
+ * not part of the content of the frame, consecutive delimiters result in empty frames.
+ * <p>
+ * The received bytes are scanned only once for the delimiter, even if a frame arrives in many
+ * chunks. A frame, that exceeds the maximum length, is discarded up to the next delimiter.
+ * 
+ * @author Christian Schwarz
+ */
+public class DelimiterFrameDecoder implements FrameDecoder {
+
+	/** the delimiter, never <code>null</code> or empty */
+	@Nonnull
+	private final byte[] delimiter;
+
+	/** the maximum length of the content of a frame in bytes */
+	private final int maxFrameLength;
+
+	/** the number of bytes of the current frame, that were scanned for the delimiter */
+	private int scanned;
+
+	/** <code>true</code>, if the bytes up to the next delimiter are discarded */
+	private boolean discarding;
+
+	/**
+	 * Creates a new decoder.
+	 * 
+	 * @param maxFrameLength
+	 *            the maximum length of the content of a frame in bytes, must be greater than 0
+	 * @param delimiter
+	 *            the delimiter, must not be <code>null</code> or empty
+	 */
+	public DelimiterFrameDecoder(	@Nonnegative int maxFrameLength,
+									@Nonnull byte... delimiter) {
+		checkArgument(maxFrameLength > 0, "maxFrameLength", "Expected a value greater than 0");
+		checkArgumentNotNull(delimiter, "delimiter");
+		checkArgument(delimiter.length > 0, "delimiter", "The delimiter must not be empty!");
+		this.maxFrameLength = maxFrameLength;
+		this.delimiter = delimiter.clone();
+	}
+
+	/** {@inheritDoc} */
+	@CheckForNull
+	public ByteBuffer decode(@Nonnull ByteBuffer buffer) throws CorruptFrameException {
+		int index = indexOfDelimiter(buffer);
+		while (discarding) {
+			if (index < 0) {
+				// skip the scanned bytes, but keep the start of a partially received delimiter
+				skip(buffer, scanned - (delimiter.length - 1));
+				return null;
+			}
+			discarding = false;
+			skip(buffer, index + delimiter.length);
+			index = indexOfDelimiter(buffer);
+		}
+
+		if (index < 0) {
+			if (scanned - (delimiter.length - 1) <= maxFrameLength)
+				return null;
+			discarding = true;
+			skip(buffer, scanned - (delimiter.length - 1));
+			throw new CorruptFrameException("The frame exceeds the maximum length of " + maxFrameLength + " bytes!");
+		}
+
+		scanned = 0;
+		if (index > maxFrameLength) {
+			skip(buffer, index + delimiter.length);
+			throw new CorruptFrameException("The frame exceeds the maximum length of " + maxFrameLength + " bytes! Got: " + index);
+		}
+		return Frames.slice(buffer, 0, index, index + delimiter.length);
+	}
+
+	/**
+	 * Returns the index of the first delimiter relative to the position of the buffer, or -1 if
+	 * no complete delimiter was received. The scan starts behind the bytes, that were scanned
+	 * already.
+	 */
+	private int indexOfDelimiter(ByteBuffer buffer) {
+		int position = buffer.position();
+		int available = buffer.remaining();
+
+		byte first = delimiter[0];
+		int end = position + available - delimiter.length;
+		// a delimiter may start in the bytes that were scanned, but not completely received
+		for (int index = position + max(0, scanned - (delimiter.length - 1)); index <= end; index++) {
+			if (buffer.get(index) == first && matches(buffer, index))
+				return index - position;
+		}
+		scanned = available;
+		return -1;
+	}
+
+	/** Returns <code>true</code>, if the delimiter starts at the given index of the buffer. */
+	private boolean matches(ByteBuffer buffer, int index) {
+		for (int i = 1; i < delimiter.length; i++) {
+			if (buffer.get(index + i) != delimiter[i])
+				return false;
+		}
+		return true;
+	}
+
+	/** Advances the position of the buffer by the given number of bytes. */
+	private void skip(ByteBuffer buffer, int numberOfBytes) {
+		if (numberOfBytes <= 0)
+			return;
+		buffer.position(buffer.position() + numberOfBytes);
+		scanned = max(0, scanned - numberOfBytes);
+	}
+
+	/** {@inheritDoc} */
+	public void reset() {
+		scanned = 0;
+		discarding = false;
+	}
+}
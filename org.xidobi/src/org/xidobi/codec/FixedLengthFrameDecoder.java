@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes frames, that have all the same length.
+ * 
+ * @author Christian Schwarz
+ */
+public class FixedLengthFrameDecoder implements FrameDecoder {
+
+	/** the length of a frame in bytes */
+	private final int frameLength;
+
+	/**
+	 * Creates a new decoder.
+	 * 
+	 * @param frameLength
+	 *            the length of a frame in bytes, must be greater than 0
+	 */
+	public FixedLengthFrameDecoder(@Nonnegative int frameLength) {
+		checkArgument(frameLength > 0, "frameLength", "Expected a value greater than 0");
+		this.frameLength = frameLength;
+	}
+
+	/** {@inheritDoc} */
+	@CheckForNull
+	public ByteBuffer decode(@Nonnull ByteBuffer buffer) {
+		if (buffer.remaining() < frameLength)
+			return null;
+		return Frames.slice(buffer, 0, frameLength, frameLength);
+	}
+
+	/** {@inheritDoc} */
+	public void reset() {}
+}
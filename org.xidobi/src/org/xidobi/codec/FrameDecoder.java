@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes frames from the received bytes of a serial connection, that arrive in arbitrary chunks.
+ * <p>
+ * The decoder works directly on the receive buffer of a {@link FrameReader}, the received bytes
+ * are located between the position and the limit of the buffer. If a complete frame is received,
+ * the decoder returns a slice of the receive buffer, that contains the content of the frame, so no
+ * bytes are copied. Decoders for escaped or stuffed encodings decode the frame in place, this is
+ * possible because the decoded content is never longer than the encoded frame.
+ * <p>
+ * A decoder may keep state between the calls of {@link #decode(ByteBuffer)}, e.g. the number of
+ * bytes, that were scanned already for a delimiter. This state must be relative to the position of
+ * the buffer, because the unread bytes may be moved to the beginning of the buffer between two
+ * calls. A decoder instance must only be used by one {@link FrameReader}.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see FrameReader
+ */
+public interface FrameDecoder {
+
+	/**
+	 * Decodes the next frame from the bytes between the position and the limit of the given
+	 * buffer.
+	 * <p>
+	 * If a complete frame is available, the position of the buffer is advanced behind the frame
+	 * and a slice of the buffer with the content of the frame is returned. Otherwise
+	 * <code>null</code> is returned, the position is only advanced behind bytes that are skipped,
+	 * e.g. empty frames. The limit of the buffer is never changed. The decoder may overwrite the
+	 * bytes between the position and the limit.
+	 * 
+	 * @param buffer
+	 *            the buffer with the received bytes, must not be <code>null</code>
+	 * @return a slice with the content of the decoded frame, <code>null</code> if more bytes are
+	 *         needed
+	 * @throws CorruptFrameException
+	 *             if the received bytes are not a valid frame. The position is advanced behind the
+	 *             corrupt bytes and the decoder skips the following bytes, until it finds the
+	 *             beginning of the next frame.
+	 */
+	@CheckForNull
+	ByteBuffer decode(@Nonnull ByteBuffer buffer) throws CorruptFrameException;
+
+	/**
+	 * Discards the state of a partially decoded frame. This method is called, if the received bytes
+	 * are discarded.
+	 */
+	void reset();
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.SerialConnection;
+
+/**
+ * Reads frames from a {@link SerialConnection}, that are decoded by a {@link FrameDecoder}.
+ * <p>
+ * The received bytes are read into a direct receive buffer, that is reused for all reads, with
+ * {@link SerialConnection#read(ByteBuffer)}, so the native code reads directly into the buffer.
+ * The decoder returns the frames as slices of the receive buffer, so no bytes are copied between
+ * the native read and the consumer of the frame.
+ * <p>
+ * Frames must be contiguous in the buffer, so the buffer is not used as a ring with wrap-around.
+ * Instead new bytes are appended behind the received bytes, and the bytes of an incomplete frame
+ * are moved to the beginning of the buffer only when the end of the buffer is reached. A frame
+ * must fit into the buffer, otherwise it is discarded.
+ * <p>
+ * Example:
+ * 
+ * <pre>
+ * FrameReader reader = new FrameReader(connection, new DelimiterFrameDecoder(256, (byte) '\n'));
+ * while (true) {
+ * 	ByteBuffer line = reader.read();
+ * 	...
+ * }
+ * </pre>
+ * 
+ * This class is not thread-safe.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see FrameDecoder
+ */
+public class FrameReader {
+
+	/** The default size of the receive buffer in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 4 * 1024;
+
+	/** the connection to read from, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+
+	/** decodes the frames, never <code>null</code> */
+	@Nonnull
+	private final FrameDecoder decoder;
+
+	/** the received bytes between the position and the limit, never <code>null</code> */
+	@Nonnull
+	private final ByteBuffer buffer;
+
+	/**
+	 * Creates a new frame reader with a receive buffer of the {@link #DEFAULT_BUFFER_SIZE}.
+	 * 
+	 * @param connection
+	 *            the connection to read from, must not be <code>null</code>
+	 * @param decoder
+	 *            decodes the frames, must not be <code>null</code>
+	 */
+	public FrameReader(	@Nonnull SerialConnection connection,
+						@Nonnull FrameDecoder decoder) {
+		this(connection, decoder, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new frame reader.
+	 * 
+	 * @param connection
+	 *            the connection to read from, must not be <code>null</code>
+	 * @param decoder
+	 *            decodes the frames, must not be <code>null</code>
+	 * @param bufferSize
+	 *            the size of the receive buffer in bytes, must be greater than 0. It limits the
+	 *            length of an encoded frame.
+	 */
+	public FrameReader(	@Nonnull SerialConnection connection,
+						@Nonnull FrameDecoder decoder,
+						@Nonnegative int bufferSize) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+		this.decoder = checkArgumentNotNull(decoder, "decoder");
+		checkArgument(bufferSize > 0, "bufferSize", "Expected a value greater than 0");
+
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		// the buffer is empty
+		buffer.limit(0);
+	}
+
+	/**
+	 * Returns the next frame. Blocks until a complete frame is received.
+	 * <p>
+	 * <b>IMPORTANT:</b> The returned buffer is a slice of the receive buffer, its content is only
+	 * valid until the next call of this method! The buffer can be modified by the caller.
+	 * 
+	 * @return the content of the frame, never <code>null</code>
+	 * @throws CorruptFrameException
+	 *             if the received bytes are not a valid frame or a frame doesn't fit into the
+	 *             receive buffer. The next call of this method continues with the next frame.
+	 * @throws IOException
+	 *             if the connection was closed or an unexpected I/O error occurs
+	 */
+	@Nonnull
+	public ByteBuffer read() throws IOException {
+		while (true) {
+			ByteBuffer frame = decoder.decode(buffer);
+			if (frame != null)
+				return frame;
+			receive();
+		}
+	}
+
+	/**
+	 * Appends the next received bytes to the receive buffer. The received bytes are moved to the
+	 * beginning of the buffer, if the end of the buffer is reached.
+	 */
+	private void receive() throws IOException {
+		int start;
+		if (!buffer.hasRemaining()) {
+			buffer.clear();
+			start = 0;
+		}
+		else if (buffer.limit() == buffer.capacity()) {
+			if (buffer.position() == 0) {
+				// the incomplete frame fills the whole buffer
+				buffer.limit(0);
+				decoder.reset();
+				throw new CorruptFrameException("The frame exceeds the receive buffer of " + buffer.capacity() + " bytes!");
+			}
+			buffer.compact();
+			start = 0;
+		}
+		else {
+			start = buffer.position();
+			buffer.position(buffer.limit());
+			buffer.limit(buffer.capacity());
+		}
+
+		try {
+			connection.read(buffer);
+		}
+		finally {
+			buffer.limit(buffer.position());
+			buffer.position(start);
+		}
+	}
+
+	/**
+	 * Returns the number of received bytes, that were not decoded yet.
+	 * 
+	 * @return the number of buffered bytes
+	 */
+	public int getBufferedBytes() {
+		return buffer.remaining();
+	}
+}
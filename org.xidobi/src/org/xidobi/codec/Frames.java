@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Utilities for the implementations of {@link FrameDecoder}.
+ * 
+ * @author Christian Schwarz
+ */
+final class Frames {
+
+	/** This class is not instantiable. */
+	private Frames() {}
+
+	/**
+	 * Returns a slice of the given buffer and advances the position of the buffer.
+	 * 
+	 * @param buffer
+	 *            the receive buffer, must not be <code>null</code>
+	 * @param offset
+	 *            the offset of the slice, relative to the position of the buffer
+	 * @param length
+	 *            the length of the slice
+	 * @param consumed
+	 *            the number of bytes, the position of the buffer is advanced by
+	 * @return the slice, never <code>null</code>
+	 */
+	@Nonnull
+	static ByteBuffer slice(@Nonnull ByteBuffer buffer, int offset, int length, int consumed) {
+		int position = buffer.position();
+		int limit = buffer.limit();
+
+		buffer.position(position + offset);
+		buffer.limit(position + offset + length);
+		ByteBuffer frame = buffer.slice();
+
+		buffer.limit(limit);
+		buffer.position(position + consumed);
+		return frame;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes frames, that start with an unsigned length field of 1, 2 or 4 bytes, followed by the
+ * content of the frame. The length field contains the length of the content and is not part of the
+ * content of the frame.
+ * <p>
+ * If the length field exceeds the maximum frame length, the decoder can't find the beginning of
+ * the next frame, the length field is skipped in this case.
+ * 
+ * @author Christian Schwarz
+ */
+public class LengthFieldFrameDecoder implements FrameDecoder {
+
+	/** the length of the length field in bytes, 1, 2 or 4 */
+	private final int lengthFieldLength;
+
+	/** the byte order of the length field, never <code>null</code> */
+	@Nonnull
+	private final ByteOrder byteOrder;
+
+	/** the maximum length of the content of a frame in bytes */
+	private final int maxFrameLength;
+
+	/**
+	 * Creates a new decoder.
+	 * 
+	 * @param lengthFieldLength
+	 *            the length of the length field in bytes, must be 1, 2 or 4
+	 * @param byteOrder
+	 *            the byte order of the length field, must not be <code>null</code>
+	 * @param maxFrameLength
+	 *            the maximum length of the content of a frame in bytes, must be greater than 0
+	 */
+	public LengthFieldFrameDecoder(	@Nonnegative int lengthFieldLength,
+									@Nonnull ByteOrder byteOrder,
+									@Nonnegative int maxFrameLength) {
+		checkArgument(lengthFieldLength == 1 || lengthFieldLength == 2 || lengthFieldLength == 4, "lengthFieldLength", "Expected 1, 2 or 4");
+		checkArgumentNotNull(byteOrder, "byteOrder");
+		checkArgument(maxFrameLength > 0, "maxFrameLength", "Expected a value greater than 0");
+		this.lengthFieldLength = lengthFieldLength;
+		this.byteOrder = byteOrder;
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	/** {@inheritDoc} */
+	@CheckForNull
+	public ByteBuffer decode(@Nonnull ByteBuffer buffer) throws CorruptFrameException {
+		if (buffer.remaining() < lengthFieldLength)
+			return null;
+
+		long length = getLength(buffer, buffer.position());
+		if (length > maxFrameLength) {
+			buffer.position(buffer.position() + lengthFieldLength);
+			throw new CorruptFrameException("The frame exceeds the maximum length of " + maxFrameLength + " bytes! Got: " + length);
+		}
+
+		int frameLength = lengthFieldLength + (int) length;
+		if (buffer.remaining() < frameLength)
+			return null;
+		return Frames.slice(buffer, lengthFieldLength, (int) length, frameLength);
+	}
+
+	/** Returns the unsigned value of the length field at the given index. */
+	private long getLength(ByteBuffer buffer, int index) {
+		long length = 0;
+		for (int i = 0; i < lengthFieldLength; i++) {
+			int shift = byteOrder == ByteOrder.BIG_ENDIAN ? (lengthFieldLength - 1 - i) * 8 : i * 8;
+			length |= (buffer.get(index + i) & 0xFFL) << shift;
+		}
+		return length;
+	}
+
+	/** {@inheritDoc} */
+	public void reset() {}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.codec;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes frames, that are encoded with SLIP (RFC 1055). A frame is terminated by
+ * <code>END</code> (<code>0xC0</code>), the escape sequences <code>ESC ESC_END</code> and
+ * <code>ESC ESC_ESC</code> are replaced in place by <code>END</code> and <code>ESC</code>
+ * (<code>0xDB</code>). Empty frames are skipped, so senders may also start every frame with
+ * <code>END</code>.
+ * <p>
+ * Like recommended by RFC 1055, an <code>ESC</code> followed by another byte is a protocol
+ * violation and the byte is left in the frame. A frame, that exceeds the maximum length, is
+ * discarded up to the next <code>END</code>.
+ * 
+ * @author Christian Schwarz
+ */
+public class SlipFrameDecoder implements FrameDecoder {
+
+	/** Terminates a frame. */
+	public static final byte END = (byte) 0xC0;
+	/** Starts an escape sequence. */
+	public static final byte ESC = (byte) 0xDB;
+	/** Escaped <code>END</code>. */
+	public static final byte ESC_END = (byte) 0xDC;
+	/** Escaped <code>ESC</code>. */
+	public static final byte ESC_ESC = (byte) 0xDD;
+
+	/** the maximum length of the content of a frame in bytes */
+	private final int maxFrameLength;
+
+	/** the number of encoded bytes of the current frame, that were decoded */
+	private int read;
+	/** the number of decoded bytes of the current frame */
+	private int written;
+
+	/** <code>true</code>, if the bytes up to the next <code>END</code> are discarded */
+	private boolean discarding;
+
+	/**
+	 * Creates a new decoder.
+	 * 
+	 * @param maxFrameLength
+	 *            the maximum length of the content of a frame in bytes, must be greater than 0
+	 */
+	public SlipFrameDecoder(@Nonnegative int maxFrameLength) {
+		checkArgument(maxFrameLength > 0, "maxFrameLength", "Expected a value greater than 0");
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	/** {@inheritDoc} */
+	@CheckForNull
+	public ByteBuffer decode(@Nonnull ByteBuffer buffer) throws CorruptFrameException {
+		int position = buffer.position();
+		int available = buffer.remaining();
+
+		while (read < available) {
+			byte b = buffer.get(position + read);
+
+			if (b == END) {
+				int consumed = read + 1;
+				int length = written;
+				boolean discarded = discarding;
+				reset();
+				if (length > 0 && !discarded)
+					return Frames.slice(buffer, 0, length, consumed);
+
+				// skip the empty frame or the end of the discarded frame
+				position += consumed;
+				available -= consumed;
+				buffer.position(position);
+				continue;
+			}
+
+			if (discarding) {
+				read++;
+				continue;
+			}
+
+			if (b == ESC) {
+				if (read + 1 == available)
+					// wait for the escaped byte
+					return null;
+				byte escaped = buffer.get(position + read + 1);
+				if (escaped == END) {
+					// protocol violation, the END terminates the frame
+					read++;
+					continue;
+				}
+				if (escaped == ESC_END)
+					b = END;
+				else if (escaped == ESC_ESC)
+					b = ESC;
+				else
+					b = escaped;
+				read += 2;
+			}
+			else
+				read++;
+
+			if (written == maxFrameLength) {
+				// skip the decoded bytes, the rest of the frame is skipped by the next calls
+				buffer.position(position + read);
+				reset();
+				discarding = true;
+				throw new CorruptFrameException("The frame exceeds the maximum length of " + maxFrameLength + " bytes!");
+			}
+			// the decoded frame is never longer than the encoded frame, so it is decoded in place
+			buffer.put(position + written++, b);
+		}
+		if (discarding) {
+			buffer.position(position + read);
+			read = 0;
+		}
+		return null;
+	}
+
+	/** {@inheritDoc} */
+	public void reset() {
+		read = 0;
+		written = 0;
+		discarding = false;
+	}
+}
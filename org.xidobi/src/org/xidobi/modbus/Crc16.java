@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Computes the CRC-16 of Modbus RTU frames (polynomial <code>0xA001</code>, initial value
+ * <code>0xFFFF</code>) with a lookup table, that processes one byte per step.
+ * 
+ * @author Christian Schwarz
+ */
+public final class Crc16 {
+
+	/** the CRC of each byte value */
+	private static final int[] TABLE = new int[256];
+
+	static {
+		for (int i = 0; i < TABLE.length; i++) {
+			int crc = i;
+			for (int bit = 0; bit < 8; bit++)
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0xA001 : crc >>> 1;
+			TABLE[i] = crc;
+		}
+	}
+
+	/** This class is not instantiable. */
+	private Crc16() {}
+
+	/**
+	 * Computes the CRC of the given bytes. In a frame the low byte of the CRC is transmitted
+	 * first.
+	 * 
+	 * @param data
+	 *            the data, must not be <code>null</code>
+	 * @param offset
+	 *            the offset of the first byte
+	 * @param length
+	 *            the number of bytes
+	 * @return the CRC, a value from <code>0</code> to <code>0xFFFF</code>
+	 */
+	public static int compute(@Nonnull byte[] data, int offset, int length) {
+		int crc = 0xFFFF;
+		for (int i = offset, end = offset + length; i < end; i++)
+			crc = (crc >>> 8) ^ TABLE[(crc ^ data[i]) & 0xFF];
+		return crc;
+	}
+}
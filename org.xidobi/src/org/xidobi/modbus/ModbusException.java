@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import java.io.IOException;
+
+/**
+ * Indicates, that a slave responded to a request with an exception response.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ModbusRtuMaster
+ */
+public class ModbusException extends IOException {
+
+	/** Serial-Version-UID */
+	private static final long serialVersionUID = 4790312867430455327L;
+
+	/** The exception code, if the function is not supported by the slave. */
+	public static final int ILLEGAL_FUNCTION = 0x01;
+	/** The exception code, if the address is not valid for the slave. */
+	public static final int ILLEGAL_DATA_ADDRESS = 0x02;
+	/** The exception code, if a value is not valid for the slave. */
+	public static final int ILLEGAL_DATA_VALUE = 0x03;
+	/** The exception code, if an unrecoverable error occurred in the slave. */
+	public static final int SLAVE_DEVICE_FAILURE = 0x04;
+	/** The exception code, if the slave accepted the request, but needs a long time to process it. */
+	public static final int ACKNOWLEDGE = 0x05;
+	/** The exception code, if the slave is busy with a long-duration command. */
+	public static final int SLAVE_DEVICE_BUSY = 0x06;
+
+	/** the address of the slave */
+	private final int slaveId;
+	/** the function code of the request */
+	private final int functionCode;
+	/** the exception code of the response */
+	private final int exceptionCode;
+
+	/**
+	 * Creates a new exception.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave
+	 * @param functionCode
+	 *            the function code of the request
+	 * @param exceptionCode
+	 *            the exception code of the response
+	 */
+	public ModbusException(	int slaveId,
+							int functionCode,
+							int exceptionCode) {
+		super("Slave " + slaveId + " responded to function " + functionCode + " with exception code " + exceptionCode + "!");
+		this.slaveId = slaveId;
+		this.functionCode = functionCode;
+		this.exceptionCode = exceptionCode;
+	}
+
+	/**
+	 * Returns the address of the slave.
+	 * 
+	 * @return the address of the slave
+	 */
+	public int getSlaveId() {
+		return slaveId;
+	}
+
+	/**
+	 * Returns the function code of the request.
+	 * 
+	 * @return the function code
+	 */
+	public int getFunctionCode() {
+		return functionCode;
+	}
+
+	/**
+	 * Returns the exception code of the response, e.g. {@link #ILLEGAL_DATA_ADDRESS}.
+	 * 
+	 * @return the exception code
+	 */
+	public int getExceptionCode() {
+		return exceptionCode;
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A request of a Modbus RTU master. The frame of the request, including the CRC, is encoded when
+ * the request is created, so the thread of the bus only has to transmit it.
+ * <p>
+ * Requests are created by the static factory methods for the supported functions. Requests to
+ * the {@link #BROADCAST} address are only allowed for write functions, they are not answered by
+ * the slaves.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ModbusRtuMaster
+ */
+public final class ModbusRequest {
+
+	/** The function code to read coils. */
+	public static final int READ_COILS = 0x01;
+	/** The function code to read discrete inputs. */
+	public static final int READ_DISCRETE_INPUTS = 0x02;
+	/** The function code to read holding registers. */
+	public static final int READ_HOLDING_REGISTERS = 0x03;
+	/** The function code to read input registers. */
+	public static final int READ_INPUT_REGISTERS = 0x04;
+	/** The function code to write a single coil. */
+	public static final int WRITE_SINGLE_COIL = 0x05;
+	/** The function code to write a single register. */
+	public static final int WRITE_SINGLE_REGISTER = 0x06;
+	/** The function code to write multiple coils. */
+	public static final int WRITE_MULTIPLE_COILS = 0x0F;
+	/** The function code to write multiple registers. */
+	public static final int WRITE_MULTIPLE_REGISTERS = 0x10;
+
+	/** The address of broadcast requests, that are received by all slaves. */
+	public static final int BROADCAST = 0;
+	/** The highest address of a slave. */
+	public static final int MAX_SLAVE_ID = 247;
+
+	/** The maximum number of coils or discrete inputs, that can be read by one request. */
+	public static final int MAX_READ_BITS = 2000;
+	/** The maximum number of registers, that can be read by one request. */
+	public static final int MAX_READ_REGISTERS = 125;
+	/** The maximum number of coils, that can be written by one request. */
+	public static final int MAX_WRITE_COILS = 1968;
+	/** The maximum number of registers, that can be written by one request. */
+	public static final int MAX_WRITE_REGISTERS = 123;
+
+	/** the address of the slave */
+	private final int slaveId;
+	/** the function code */
+	private final int functionCode;
+	/** the address of the first coil or register */
+	private final int address;
+	/** the number of coils or registers */
+	private final int quantity;
+	/** the length of the expected response frame in bytes */
+	private final int responseLength;
+
+	/** the encoded frame, including the CRC, never <code>null</code> */
+	@Nonnull
+	final byte[] frame;
+
+	/** Creates a request and encodes its frame. */
+	private ModbusRequest(	int slaveId,
+							int functionCode,
+							int address,
+							int quantity,
+							int value,
+							@Nonnull byte[] payload,
+							int responseLength) {
+		this.slaveId = slaveId;
+		this.functionCode = functionCode;
+		this.address = address;
+		this.quantity = quantity;
+		this.responseLength = responseLength;
+
+		frame = new byte[8 + payload.length];
+		frame[0] = (byte) slaveId;
+		frame[1] = (byte) functionCode;
+		frame[2] = (byte) (address >>> 8);
+		frame[3] = (byte) address;
+		frame[4] = (byte) (value >>> 8);
+		frame[5] = (byte) value;
+		System.arraycopy(payload, 0, frame, 6, payload.length);
+		int crc = Crc16.compute(frame, 0, frame.length - 2);
+		frame[frame.length - 2] = (byte) crc;
+		frame[frame.length - 1] = (byte) (crc >>> 8);
+	}
+
+	/**
+	 * Creates a request to read coils.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247
+	 * @param address
+	 *            the address of the first coil, from 0 to 65535
+	 * @param quantity
+	 *            the number of coils, from 1 to 2000
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest readCoils(int slaveId, int address, int quantity) {
+		return readBits(READ_COILS, slaveId, address, quantity);
+	}
+
+	/**
+	 * Creates a request to read discrete inputs.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247
+	 * @param address
+	 *            the address of the first input, from 0 to 65535
+	 * @param quantity
+	 *            the number of inputs, from 1 to 2000
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest readDiscreteInputs(int slaveId, int address, int quantity) {
+		return readBits(READ_DISCRETE_INPUTS, slaveId, address, quantity);
+	}
+
+	/**
+	 * Creates a request to read holding registers.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247
+	 * @param address
+	 *            the address of the first register, from 0 to 65535
+	 * @param quantity
+	 *            the number of registers, from 1 to 125
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest readHoldingRegisters(int slaveId, int address, int quantity) {
+		return readRegisters(READ_HOLDING_REGISTERS, slaveId, address, quantity);
+	}
+
+	/**
+	 * Creates a request to read input registers.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247
+	 * @param address
+	 *            the address of the first register, from 0 to 65535
+	 * @param quantity
+	 *            the number of registers, from 1 to 125
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest readInputRegisters(int slaveId, int address, int quantity) {
+		return readRegisters(READ_INPUT_REGISTERS, slaveId, address, quantity);
+	}
+
+	/**
+	 * Creates a request to write a single coil.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247 or {@link #BROADCAST}
+	 * @param address
+	 *            the address of the coil, from 0 to 65535
+	 * @param value
+	 *            the value of the coil
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest writeSingleCoil(int slaveId, int address, boolean value) {
+		checkWrite(slaveId, address, 1);
+		return new ModbusRequest(slaveId, WRITE_SINGLE_COIL, address, 1, value ? 0xFF00 : 0x0000, new byte[0], 8);
+	}
+
+	/**
+	 * Creates a request to write a single register.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247 or {@link #BROADCAST}
+	 * @param address
+	 *            the address of the register, from 0 to 65535
+	 * @param value
+	 *            the value of the register, the lower 16 bits are written
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest writeSingleRegister(int slaveId, int address, int value) {
+		checkWrite(slaveId, address, 1);
+		return new ModbusRequest(slaveId, WRITE_SINGLE_REGISTER, address, 1, value, new byte[0], 8);
+	}
+
+	/**
+	 * Creates a request to write multiple coils.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247 or {@link #BROADCAST}
+	 * @param address
+	 *            the address of the first coil, from 0 to 65535
+	 * @param values
+	 *            the values of the coils, must not be <code>null</code> and must contain 1 to
+	 *            1968 values
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest writeMultipleCoils(int slaveId, int address, @Nonnull boolean[] values) {
+		checkArgumentNotNull(values, "values");
+		checkArgument(values.length > 0 && values.length <= MAX_WRITE_COILS, "values", "Expected 1 to " + MAX_WRITE_COILS + " values");
+		checkWrite(slaveId, address, values.length);
+
+		byte[] payload = new byte[1 + (values.length + 7) / 8];
+		payload[0] = (byte) (payload.length - 1);
+		for (int i = 0; i < values.length; i++)
+			if (values[i])
+				payload[1 + i / 8] |= 1 << (i % 8);
+		return new ModbusRequest(slaveId, WRITE_MULTIPLE_COILS, address, values.length, values.length, payload, 8);
+	}
+
+	/**
+	 * Creates a request to write multiple registers.
+	 * 
+	 * @param slaveId
+	 *            the address of the slave, from 1 to 247 or {@link #BROADCAST}
+	 * @param address
+	 *            the address of the first register, from 0 to 65535
+	 * @param values
+	 *            the values of the registers, the lower 16 bits are written, must not be
+	 *            <code>null</code> and must contain 1 to 123 values
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public static ModbusRequest writeMultipleRegisters(int slaveId, int address, @Nonnull int[] values) {
+		checkArgumentNotNull(values, "values");
+		checkArgument(values.length > 0 && values.length <= MAX_WRITE_REGISTERS, "values", "Expected 1 to " + MAX_WRITE_REGISTERS + " values");
+		checkWrite(slaveId, address, values.length);
+
+		byte[] payload = new byte[1 + 2 * values.length];
+		payload[0] = (byte) (payload.length - 1);
+		for (int i = 0; i < values.length; i++) {
+			payload[1 + 2 * i] = (byte) (values[i] >>> 8);
+			payload[2 + 2 * i] = (byte) values[i];
+		}
+		return new ModbusRequest(slaveId, WRITE_MULTIPLE_REGISTERS, address, values.length, values.length, payload, 8);
+	}
+
+	/** Creates a request to read coils or discrete inputs. */
+	private static ModbusRequest readBits(int functionCode, int slaveId, int address, int quantity) {
+		checkArgument(quantity > 0 && quantity <= MAX_READ_BITS, "quantity", "Expected a value from 1 to " + MAX_READ_BITS);
+		checkRead(slaveId, address, quantity);
+		return new ModbusRequest(slaveId, functionCode, address, quantity, quantity, new byte[0], 5 + (quantity + 7) / 8);
+	}
+
+	/** Creates a request to read holding or input registers. */
+	private static ModbusRequest readRegisters(int functionCode, int slaveId, int address, int quantity) {
+		checkArgument(quantity > 0 && quantity <= MAX_READ_REGISTERS, "quantity", "Expected a value from 1 to " + MAX_READ_REGISTERS);
+		checkRead(slaveId, address, quantity);
+		return new ModbusRequest(slaveId, functionCode, address, quantity, quantity, new byte[0], 5 + 2 * quantity);
+	}
+
+	/** Checks the arguments of a read request, that can't be broadcasted. */
+	private static void checkRead(int slaveId, int address, int quantity) {
+		checkArgument(slaveId > BROADCAST && slaveId <= MAX_SLAVE_ID, "slaveId", "Expected a value from 1 to " + MAX_SLAVE_ID);
+		checkAddress(address, quantity);
+	}
+
+	/** Checks the arguments of a write request, that can be broadcasted. */
+	private static void checkWrite(int slaveId, int address, int quantity) {
+		checkArgument(slaveId >= BROADCAST && slaveId <= MAX_SLAVE_ID, "slaveId", "Expected a value from 0 to " + MAX_SLAVE_ID);
+		checkAddress(address, quantity);
+	}
+
+	/** Checks that the addressed coils or registers are within the address space. */
+	private static void checkAddress(int address, int quantity) {
+		checkArgument(address >= 0 && address + quantity <= 0x10000, "address", "Expected a value from 0 to " + (0x10000 - quantity));
+	}
+
+	/**
+	 * Returns the address of the slave.
+	 * 
+	 * @return the address of the slave, {@link #BROADCAST} for broadcast requests
+	 */
+	public int getSlaveId() {
+		return slaveId;
+	}
+
+	/**
+	 * Returns the function code.
+	 * 
+	 * @return the function code
+	 */
+	public int getFunctionCode() {
+		return functionCode;
+	}
+
+	/**
+	 * Returns the address of the first coil or register.
+	 * 
+	 * @return the address
+	 */
+	public int getAddress() {
+		return address;
+	}
+
+	/**
+	 * Returns the number of coils or registers.
+	 * 
+	 * @return the quantity
+	 */
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * Returns <code>true</code>, if this request is received by all slaves and not answered.
+	 * 
+	 * @return <code>true</code>, if this is a broadcast request
+	 */
+	public boolean isBroadcast() {
+		return slaveId == BROADCAST;
+	}
+
+	/**
+	 * Returns the length of the response frame, if the slave doesn't respond with an exception.
+	 * 
+	 * @return the length in bytes, including the address and the CRC
+	 */
+	public int getResponseLength() {
+		return responseLength;
+	}
+
+	/**
+	 * Returns the encoded frame of this request.
+	 * 
+	 * @return a copy of the frame, including the address and the CRC, never <code>null</code>
+	 */
+	@Nonnull
+	public byte[] getFrame() {
+		return frame.clone();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.xidobi.modbus.ModbusRequest.READ_COILS;
+import static org.xidobi.modbus.ModbusRequest.READ_DISCRETE_INPUTS;
+import static org.xidobi.modbus.ModbusRequest.READ_HOLDING_REGISTERS;
+import static org.xidobi.modbus.ModbusRequest.READ_INPUT_REGISTERS;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * The response of a slave to a {@link ModbusRequest}. The CRC of the frame is already verified.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ModbusRtuMaster
+ */
+public final class ModbusResponse {
+
+	/** the request, never <code>null</code> */
+	@Nonnull
+	private final ModbusRequest request;
+
+	/** the received frame, including the address and the CRC, <code>null</code> for broadcasts */
+	@CheckForNull
+	private final byte[] frame;
+
+	/**
+	 * Creates a new response.
+	 * 
+	 * @param request
+	 *            the request, must not be <code>null</code>
+	 * @param frame
+	 *            the received frame, <code>null</code> if the request was a broadcast
+	 */
+	ModbusResponse(	@Nonnull ModbusRequest request,
+					@CheckForNull byte[] frame) {
+		this.request = request;
+		this.frame = frame;
+	}
+
+	/**
+	 * Returns the request, this is the response to.
+	 * 
+	 * @return the request, never <code>null</code>
+	 */
+	@Nonnull
+	public ModbusRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Returns the received frame.
+	 * 
+	 * @return a copy of the frame, including the address and the CRC, <code>null</code> if the
+	 *         request was a broadcast, that is not answered
+	 */
+	@CheckForNull
+	public byte[] getFrame() {
+		if (frame == null)
+			return null;
+		return frame.clone();
+	}
+
+	/**
+	 * Returns the values of the registers, that were read by a request to read holding or input
+	 * registers.
+	 * 
+	 * @return the unsigned values of the registers, never <code>null</code>
+	 * @throws IllegalStateException
+	 *             if the request didn't read registers
+	 */
+	@Nonnull
+	public int[] getRegisters() {
+		int functionCode = request.getFunctionCode();
+		if (functionCode != READ_HOLDING_REGISTERS && functionCode != READ_INPUT_REGISTERS)
+			throw new IllegalStateException("The request didn't read registers!");
+
+		int[] registers = new int[request.getQuantity()];
+		for (int i = 0; i < registers.length; i++)
+			registers[i] = (frame[3 + 2 * i] & 0xFF) << 8 | frame[4 + 2 * i] & 0xFF;
+		return registers;
+	}
+
+	/**
+	 * Returns the values of the coils or discrete inputs, that were read by a request to read
+	 * coils or discrete inputs.
+	 * 
+	 * @return the values, never <code>null</code>
+	 * @throws IllegalStateException
+	 *             if the request didn't read coils or discrete inputs
+	 */
+	@Nonnull
+	public boolean[] getBits() {
+		int functionCode = request.getFunctionCode();
+		if (functionCode != READ_COILS && functionCode != READ_DISCRETE_INPUTS)
+			throw new IllegalStateException("The request didn't read coils or discrete inputs!");
+
+		boolean[] bits = new boolean[request.getQuantity()];
+		for (int i = 0; i < bits.length; i++)
+			bits[i] = (frame[3 + i / 8] & 1 << (i % 8)) != 0;
+		return bits;
+	}
+}
@@ -0,0 +1,561 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static java.lang.System.arraycopy;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.SerialConnection;
+import org.xidobi.SerialPortSettings;
+import org.xidobi.codec.CorruptFrameException;
+import org.xidobi.spi.CompletionFuture;
+
+/**
+ * A Modbus RTU master, that performs the transactions with the slaves of a bus over a
+ * {@link SerialConnection}.
+ * <p>
+ * The requests are queued and performed in order by a background thread, so any number of threads
+ * can submit requests without coordinating the access to the bus. The frames of the requests are
+ * encoded by the submitting threads. A response is complete, as soon as the number of bytes is
+ * received, that is expected for the request, so the master doesn't wait for the silence after the
+ * response. The silence of 3.5 character times between two frames is only awaited before the next
+ * request is sent, it is derived from the control settings of the port by {@link RtuTiming}.
+ * <p>
+ * The received bytes are read by a second background thread, in order to detect the response
+ * timeout. Bytes that are received outside of a transaction, e.g. the late response to a timed out
+ * request, are discarded and delay the next request until the bus is silent.
+ * <p>
+ * Example:
+ * 
+ * <pre>
+ * ModbusRtuMaster master = new ModbusRtuMaster(connection, settings);
+ * int[] registers = master.readHoldingRegisters(1, 0, 10);
+ * master.close();
+ * </pre>
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ModbusRequest
+ * @see RtuTiming
+ */
+public class ModbusRtuMaster implements Closeable {
+
+	/** The default time in milliseconds, a slave has to respond to a request. */
+	public static final long DEFAULT_RESPONSE_TIMEOUT = 1000;
+
+	/** The time in milliseconds, the slaves need to process a broadcast request. */
+	public static final long TURNAROUND_DELAY = 100;
+
+	/** the maximum length of a frame in bytes */
+	private static final int MAX_FRAME_LENGTH = 256;
+
+	/** the connection to the bus, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+	/** the timing of the frames, never <code>null</code> */
+	@Nonnull
+	private final RtuTiming timing;
+	/** the time in nanoseconds, a slave has to respond to a request */
+	private final long responseTimeoutNanos;
+
+	/** the submitted transactions, that are not performed yet */
+	private final BlockingQueue<Transaction> transactions = new LinkedBlockingQueue<Transaction>();
+	/** the received bytes, that are not processed yet */
+	private final BlockingQueue<Chunk> received = new LinkedBlockingQueue<Chunk>();
+
+	/** guards {@link #isClosed} */
+	private final Object lock = new Object();
+	/** <code>true</code>, if this master was closed */
+	private boolean isClosed;
+
+	/** the number of performed transactions */
+	private final AtomicLong transactionCount = new AtomicLong();
+	/** the number of transactions, whose response timed out */
+	private final AtomicLong timeoutCount = new AtomicLong();
+	/** the number of corrupt responses */
+	private final AtomicLong corruptFrameCount = new AtomicLong();
+
+	/**
+	 * Creates a new master with the {@link #DEFAULT_RESPONSE_TIMEOUT} and starts the background
+	 * threads.
+	 * 
+	 * @param connection
+	 *            the connection to the bus, must not be <code>null</code>
+	 * @param settings
+	 *            the control settings of the port, must not be <code>null</code>
+	 */
+	public ModbusRtuMaster(	@Nonnull SerialConnection connection,
+							@Nonnull SerialPortSettings settings) {
+		this(connection, new RtuTiming(settings), DEFAULT_RESPONSE_TIMEOUT);
+	}
+
+	/**
+	 * Creates a new master and starts the background threads.
+	 * 
+	 * @param connection
+	 *            the connection to the bus, must not be <code>null</code>
+	 * @param timing
+	 *            the timing of the frames, must not be <code>null</code>
+	 * @param responseTimeout
+	 *            the time in milliseconds, a slave has to respond to a request, must be greater
+	 *            than 0
+	 */
+	public ModbusRtuMaster(	@Nonnull SerialConnection connection,
+							@Nonnull RtuTiming timing,
+							@Nonnegative long responseTimeout) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+		this.timing = checkArgumentNotNull(timing, "timing");
+		checkArgument(responseTimeout > 0, "responseTimeout", "Expected a value greater than 0");
+		responseTimeoutNanos = responseTimeout * 1000000;
+
+		start(new Bus(), "xidobi modbus master");
+		start(new Receiver(), "xidobi modbus receiver");
+	}
+
+	/** Starts a daemon thread, that runs the given task. */
+	private static void start(Runnable task, String name) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues the given request and returns immediately. The returned future completes with the
+	 * response or fails with a {@link ModbusException}, if the slave responded with an exception,
+	 * a {@link ModbusTimeoutException}, if the slave didn't respond in time, a
+	 * {@link CorruptFrameException}, if the response was corrupt, or an {@link IOException}, if the
+	 * connection failed.
+	 * 
+	 * @param request
+	 *            the request, must not be <code>null</code>
+	 * @return the future response, never <code>null</code>
+	 * @throws IOException
+	 *             if this master was closed
+	 */
+	@Nonnull
+	public Future<ModbusResponse> submit(@Nonnull ModbusRequest request) throws IOException {
+		checkArgumentNotNull(request, "request");
+
+		CompletionFuture<ModbusResponse> future = new CompletionFuture<ModbusResponse>();
+		synchronized (lock) {
+			if (isClosed)
+				throw new IOException("The Modbus master was closed!");
+			transactions.add(new Transaction(request, future));
+		}
+		return future;
+	}
+
+	/**
+	 * Queues the given request and blocks until the transaction is completed.
+	 * 
+	 * @param request
+	 *            the request, must not be <code>null</code>
+	 * @return the response, never <code>null</code>
+	 * @throws ModbusException
+	 *             if the slave responded with an exception
+	 * @throws ModbusTimeoutException
+	 *             if the slave didn't respond in time
+	 * @throws CorruptFrameException
+	 *             if the response was corrupt
+	 * @throws IOException
+	 *             if this master was closed, the connection failed or the thread was interrupted
+	 */
+	@Nonnull
+	public ModbusResponse execute(@Nonnull ModbusRequest request) throws IOException {
+		Future<ModbusResponse> future = submit(request);
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			throw new InterruptedIOException("The thread is interrupted, while waiting for the response!");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw (Error) cause;
+		}
+	}
+
+	/**
+	 * Reads coils, see {@link ModbusRequest#readCoils(int, int, int)}.
+	 * 
+	 * @return the values of the coils, never <code>null</code>
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	@Nonnull
+	public boolean[] readCoils(int slaveId, int address, int quantity) throws IOException {
+		return execute(ModbusRequest.readCoils(slaveId, address, quantity)).getBits();
+	}
+
+	/**
+	 * Reads discrete inputs, see {@link ModbusRequest#readDiscreteInputs(int, int, int)}.
+	 * 
+	 * @return the values of the inputs, never <code>null</code>
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	@Nonnull
+	public boolean[] readDiscreteInputs(int slaveId, int address, int quantity) throws IOException {
+		return execute(ModbusRequest.readDiscreteInputs(slaveId, address, quantity)).getBits();
+	}
+
+	/**
+	 * Reads holding registers, see {@link ModbusRequest#readHoldingRegisters(int, int, int)}.
+	 * 
+	 * @return the unsigned values of the registers, never <code>null</code>
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	@Nonnull
+	public int[] readHoldingRegisters(int slaveId, int address, int quantity) throws IOException {
+		return execute(ModbusRequest.readHoldingRegisters(slaveId, address, quantity)).getRegisters();
+	}
+
+	/**
+	 * Reads input registers, see {@link ModbusRequest#readInputRegisters(int, int, int)}.
+	 * 
+	 * @return the unsigned values of the registers, never <code>null</code>
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	@Nonnull
+	public int[] readInputRegisters(int slaveId, int address, int quantity) throws IOException {
+		return execute(ModbusRequest.readInputRegisters(slaveId, address, quantity)).getRegisters();
+	}
+
+	/**
+	 * Writes a single coil, see {@link ModbusRequest#writeSingleCoil(int, int, boolean)}.
+	 * 
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	public void writeSingleCoil(int slaveId, int address, boolean value) throws IOException {
+		execute(ModbusRequest.writeSingleCoil(slaveId, address, value));
+	}
+
+	/**
+	 * Writes a single register, see {@link ModbusRequest#writeSingleRegister(int, int, int)}.
+	 * 
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	public void writeSingleRegister(int slaveId, int address, int value) throws IOException {
+		execute(ModbusRequest.writeSingleRegister(slaveId, address, value));
+	}
+
+	/**
+	 * Writes multiple coils, see {@link ModbusRequest#writeMultipleCoils(int, int, boolean[])}.
+	 * 
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	public void writeMultipleCoils(int slaveId, int address, @Nonnull boolean[] values) throws IOException {
+		execute(ModbusRequest.writeMultipleCoils(slaveId, address, values));
+	}
+
+	/**
+	 * Writes multiple registers, see
+	 * {@link ModbusRequest#writeMultipleRegisters(int, int, int[])}.
+	 * 
+	 * @throws IOException
+	 *             if the transaction failed, see {@link #execute(ModbusRequest)}
+	 */
+	public void writeMultipleRegisters(int slaveId, int address, @Nonnull int[] values) throws IOException {
+		execute(ModbusRequest.writeMultipleRegisters(slaveId, address, values));
+	}
+
+	/**
+	 * Closes this master and the connection. The queued transactions fail, the background threads
+	 * terminate.
+	 * 
+	 * @throws IOException
+	 *             if the connection couldn't be closed
+	 */
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (isClosed)
+				return;
+			isClosed = true;
+			// terminates the bus thread, after the queued transactions
+			transactions.add(new Transaction(null, null));
+		}
+		connection.close();
+	}
+
+	/**
+	 * Returns the number of transactions, whose request was sent.
+	 * 
+	 * @return the number of transactions
+	 */
+	public long getTransactionCount() {
+		return transactionCount.get();
+	}
+
+	/**
+	 * Returns the number of transactions, whose slave didn't respond in time.
+	 * 
+	 * @return the number of timeouts
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	/**
+	 * Returns the number of corrupt responses, e.g. because of a wrong CRC.
+	 * 
+	 * @return the number of corrupt responses
+	 */
+	public long getCorruptFrameCount() {
+		return corruptFrameCount.get();
+	}
+
+	/**
+	 * Returns the number of transactions, that are submitted and not completed yet.
+	 * 
+	 * @return the number of queued transactions
+	 */
+	public int getQueuedTransactions() {
+		return transactions.size();
+	}
+
+	/** A submitted request and its future response. */
+	private static final class Transaction {
+
+		/** the request, <code>null</code> if the bus thread must terminate */
+		@CheckForNull
+		final ModbusRequest request;
+		/** the future response */
+		final CompletionFuture<ModbusResponse> future;
+
+		/** Creates a new transaction. */
+		Transaction(ModbusRequest request,
+					CompletionFuture<ModbusResponse> future) {
+			this.request = request;
+			this.future = future;
+		}
+	}
+
+	/** The bytes of a read operation or the failure of the connection. */
+	private static final class Chunk {
+
+		/** the received bytes, <code>null</code> if the read failed */
+		@CheckForNull
+		final byte[] data;
+		/** the time in nanoseconds, when the bytes were received */
+		final long time;
+		/** the failure of the connection, <code>null</code> if the read succeeded */
+		@CheckForNull
+		final IOException failure;
+
+		/** Creates a new chunk. */
+		Chunk(	byte[] data,
+				long time,
+				IOException failure) {
+			this.data = data;
+			this.time = time;
+			this.failure = failure;
+		}
+	}
+
+	/** Performs the queued transactions in order. */
+	private final class Bus implements Runnable {
+
+		/** the buffer for the received response */
+		private final byte[] response = new byte[MAX_FRAME_LENGTH];
+
+		/** the time in nanoseconds, when the bus was active the last time */
+		private long lastActivity = nanoTime();
+
+		/** the failure of the connection, <code>null</code> if none occurred */
+		private IOException failure;
+
+		public void run() {
+			while (true) {
+				Transaction transaction;
+				try {
+					transaction = transactions.take();
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				if (transaction.request == null)
+					return;
+
+				try {
+					transaction.future.completed(perform(transaction.request), null);
+				}
+				catch (IOException e) {
+					transaction.future.failed(e, null);
+				}
+				catch (RuntimeException e) {
+					transaction.future.failed(e, null);
+				}
+				catch (InterruptedException e) {
+					transaction.future.failed(new InterruptedIOException("The Modbus master was interrupted!"), null);
+					return;
+				}
+			}
+		}
+
+		/** Sends the request and receives the response. */
+		private ModbusResponse perform(ModbusRequest request) throws IOException, InterruptedException {
+			if (failure != null)
+				throw failure;
+
+			awaitSilence();
+			connection.write(request.frame);
+			long sent = nanoTime() + timing.getTransmissionNanos(request.frame.length);
+			lastActivity = sent;
+			transactionCount.incrementAndGet();
+
+			if (request.isBroadcast()) {
+				// the slaves don't respond, but need time to process the request
+				lastActivity = sent + TURNAROUND_DELAY * 1000000;
+				return new ModbusResponse(request, null);
+			}
+			return new ModbusResponse(request, receive(request, sent + responseTimeoutNanos));
+		}
+
+		/**
+		 * Blocks until the bus was silent for 3.5 character times. Bytes, that are received in the
+		 * meantime, are discarded.
+		 */
+		private void awaitSilence() throws IOException, InterruptedException {
+			while (true) {
+				long remaining = lastActivity + timing.getInterFrameNanos() - nanoTime();
+				Chunk chunk = remaining > 0 ? received.poll(remaining, NANOSECONDS) : received.poll();
+				if (chunk == null)
+					return;
+				accept(chunk);
+			}
+		}
+
+		/** Receives the response to the given request until the deadline. */
+		private byte[] receive(ModbusRequest request, long deadline) throws IOException, InterruptedException {
+			int length = 0;
+			int expectedLength = MAX_FRAME_LENGTH;
+			while (length < expectedLength) {
+				long remaining = deadline - nanoTime();
+				Chunk chunk = remaining > 0 ? received.poll(remaining, NANOSECONDS) : null;
+				if (chunk == null) {
+					timeoutCount.incrementAndGet();
+					if (length == 0)
+						throw new ModbusTimeoutException("Slave " + request.getSlaveId() + " didn't respond in time!");
+					throw new ModbusTimeoutException("Slave " + request.getSlaveId() + " didn't respond completely in time! Received " + length + " of " + expectedLength + " bytes.");
+				}
+				accept(chunk);
+
+				if (length + chunk.data.length > MAX_FRAME_LENGTH)
+					throw corruptFrame("The response exceeds the maximum frame length!");
+				arraycopy(chunk.data, 0, response, length, chunk.data.length);
+				length += chunk.data.length;
+
+				if (length >= 2)
+					expectedLength = (response[1] & 0x80) != 0 ? 5 : request.getResponseLength();
+			}
+			if (length > expectedLength)
+				throw corruptFrame("The response is longer than expected! Received " + length + " of " + expectedLength + " bytes.");
+
+			return verify(request, length);
+		}
+
+		/** Verifies the received response to the given request and returns a copy of it. */
+		private byte[] verify(ModbusRequest request, int length) throws IOException {
+			int crc = Crc16.compute(response, 0, length - 2);
+			if ((response[length - 2] & 0xFF | (response[length - 1] & 0xFF) << 8) != crc)
+				throw corruptFrame("The CRC of the response is invalid!");
+
+			int slaveId = response[0] & 0xFF;
+			if (slaveId != request.getSlaveId())
+				throw corruptFrame("Received a response of slave " + slaveId + " instead of slave " + request.getSlaveId() + "!");
+
+			int functionCode = response[1] & 0xFF;
+			if (functionCode == (request.getFunctionCode() | 0x80))
+				throw new ModbusException(slaveId, request.getFunctionCode(), response[2] & 0xFF);
+			if (functionCode != request.getFunctionCode())
+				throw corruptFrame("Received a response to function " + functionCode + " instead of function " + request.getFunctionCode() + "!");
+
+			if (request.getResponseLength() == 8) {
+				// write responses echo the address and the value or quantity
+				for (int i = 2; i < 6; i++)
+					if (response[i] != request.frame[i])
+						throw corruptFrame("The response doesn't match the write request!");
+			}
+			else if ((response[2] & 0xFF) != length - 5)
+				throw corruptFrame("The byte count of the response is invalid!");
+
+			byte[] frame = new byte[length];
+			arraycopy(response, 0, frame, 0, length);
+			return frame;
+		}
+
+		/** Updates the last activity of the bus, or throws the failure of the connection. */
+		private void accept(Chunk chunk) throws IOException {
+			if (chunk.failure != null) {
+				failure = chunk.failure;
+				throw failure;
+			}
+			lastActivity = chunk.time;
+		}
+
+		/** Counts and returns an exception for a corrupt response. */
+		private CorruptFrameException corruptFrame(String message) {
+			corruptFrameCount.incrementAndGet();
+			return new CorruptFrameException(message);
+		}
+	}
+
+	/** Reads the received bytes, until the connection fails. */
+	private final class Receiver implements Runnable {
+
+		public void run() {
+			try {
+				while (true) {
+					byte[] data = connection.read();
+					received.add(new Chunk(data, nanoTime(), null));
+				}
+			}
+			catch (IOException e) {
+				received.add(new Chunk(null, nanoTime(), e));
+			}
+			catch (RuntimeException e) {
+				IOException failure = new IOException("The connection failed unexpected!");
+				failure.initCause(e);
+				received.add(new Chunk(null, nanoTime(), failure));
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.modbus;
+
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import javax.annotation.Nonnull;
+
+import org.xidobi.DataBits;
+import org.xidobi.Parity;
+import org.xidobi.SerialPortSettings;
+import org.xidobi.StopBits;
+
+/**
+ * The timing of Modbus RTU frames, that is derived from the control settings of the serial port.
+ * <p>
+ * A character consists of a start bit, the data bits, an optional parity bit and the stop bits.
+ * Frames are separated by a silence of at least 3.5 character times, within a frame the bytes
+ * must not be separated by more than 1.5 character times. Above 19200 bauds the Modbus
+ * specification recommends the fixed values of 1750&micro;s and 750&micro;s.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see ModbusRtuMaster
+ */
+public class RtuTiming {
+
+	/** The baud rate, above that the fixed timing is used. */
+	public static final int FIXED_TIMING_BAUDS = 19200;
+
+	/** The silence between two frames in nanoseconds, that is used above 19200 bauds. */
+	public static final long FIXED_INTER_FRAME_NANOS = 1750000;
+
+	/** The limit between two bytes of a frame in nanoseconds, that is used above 19200 bauds. */
+	public static final long FIXED_INTER_CHARACTER_NANOS = 750000;
+
+	/** the time in nanoseconds to transmit one character */
+	private final long characterNanos;
+	/** the minimum silence between two frames in nanoseconds */
+	private final long interFrameNanos;
+	/** the maximum silence between two bytes of a frame in nanoseconds */
+	private final long interCharacterNanos;
+
+	/**
+	 * Creates the timing for the given control settings.
+	 * 
+	 * @param settings
+	 *            the control settings of the serial port, must not be <code>null</code>
+	 */
+	public RtuTiming(@Nonnull SerialPortSettings settings) {
+		checkArgumentNotNull(settings, "settings");
+
+		int bauds = settings.getBauds();
+		// count in half bits, because of 1.5 stop bits
+		int halfBits = 2 * (1 + dataBits(settings.getDataBits()) + parityBits(settings.getParity())) + halfStopBits(settings.getStopBits());
+		characterNanos = halfBits * 1000000000L / (2L * bauds);
+
+		if (bauds > FIXED_TIMING_BAUDS) {
+			interFrameNanos = FIXED_INTER_FRAME_NANOS;
+			interCharacterNanos = FIXED_INTER_CHARACTER_NANOS;
+		}
+		else {
+			interFrameNanos = characterNanos * 7 / 2;
+			interCharacterNanos = characterNanos * 3 / 2;
+		}
+	}
+
+	/** Returns the number of data bits. */
+	private static int dataBits(DataBits dataBits) {
+		switch (dataBits) {
+			case DATABITS_5:
+				return 5;
+			case DATABITS_6:
+				return 6;
+			case DATABITS_7:
+				return 7;
+			case DATABITS_9:
+				return 9;
+			default:
+				return 8;
+		}
+	}
+
+	/** Returns the number of parity bits. */
+	private static int parityBits(Parity parity) {
+		return parity == Parity.PARITY_NONE ? 0 : 1;
+	}
+
+	/** Returns the number of stop bits multiplied by 2. */
+	private static int halfStopBits(StopBits stopBits) {
+		switch (stopBits) {
+			case STOPBITS_1_5:
+				return 3;
+			case STOPBITS_2:
+				return 4;
+			default:
+				return 2;
+		}
+	}
+
+	/**
+	 * Returns the time to transmit one character.
+	 * 
+	 * @return the character time in nanoseconds
+	 */
+	public long getCharacterNanos() {
+		return characterNanos;
+	}
+
+	/**
+	 * Returns the minimum silence between two frames, 3.5 character times.
+	 * 
+	 * @return the silence in nanoseconds
+	 */
+	public long getInterFrameNanos() {
+		return interFrameNanos;
+	}
+
+	/**
+	 * Returns the maximum silence between two bytes of a frame, 1.5 character times.
+	 * 
+	 * @return the silence in nanoseconds
+	 */
+	public long getInterCharacterNanos() {
+		return interCharacterNanos;
+	}
+
+	/**
+	 * Returns the time to transmit the given number of bytes.
+	 * 
+	 * @param numberOfBytes
+	 *            the number of bytes
+	 * @return the transmission time in nanoseconds
+	 */
+	public long getTransmissionNanos(int numberOfBytes) {
+		return numberOfBytes * characterNanos;
+	}
+}
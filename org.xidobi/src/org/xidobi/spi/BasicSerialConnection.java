@@ -1,245 +1,417 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi.spi;
-
-import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
-
-import java.io.IOException;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
-
-import org.xidobi.SerialConnection;
-import org.xidobi.SerialPort;
-
-/**
- * A basic implementation of the {@link SerialConnection} to provide synchonisation and proper
- * behaviour when the port is closed.
- * <p>
- * The class uses a {@link Reader} and {@link Writer}, which implement the different I/O operations.
- * 
- * @author Christian Schwarz
- * @author Tobias Breler
- */
-public class BasicSerialConnection implements SerialConnection {
-
-	/** The handle of this port, contains e.g. the name. */
-	@Nonnull
-	private final SerialPort port;
-
-	/**
-	 * <ul>
-	 * <li> <code>true</code> if this port is closed ({@link #close()} was called)
-	 * <li> <code>false</code> if this port is open
-	 * </ul>
-	 */
-	private volatile boolean isClosed;
-
-	/** Ensures that {@link #close()} can only called by one thread at a time. */
-	@Nonnull
-	private final Lock closeLock = new ReentrantLock();
-
-	/** read operation, never <code>null</code> */
-	@Nonnull
-	private final Reader reader;
-	/** write operation, never <code>null</code> */
-	@Nonnull
-	private final Writer writer;
-
-	/**
-	 * Creates a new serial connection instance for the given serial port.
-	 * 
-	 * @param port
-	 *            the serial port, must not be <code>null</code>
-	 * @param reader
-	 *            read operation, must not be <code>null</code>
-	 * @param writer
-	 *            write operation, must not be <code>null</code>
-	 * 
-	 * @exception IllegalArgumentException
-	 *                if {@code portHandle==null}
-	 */
-	protected BasicSerialConnection(@Nonnull SerialPort port,
-									@Nonnull Reader reader,
-									@Nonnull Writer writer) {
-
-		this.port = checkArgumentNotNull(port, "port");
-		this.reader = checkArgumentNotNull(reader, "reader");
-		this.writer = checkArgumentNotNull(writer, "writer");
-	}
-
-	/**
-	 * Returns the underlying serial port for this serial connection.
-	 * 
-	 * @return the serial port, never <code>null</code>
-	 */
-	@Nonnull
-	public SerialPort getPort() {
-		return port;
-	}
-
-	/** {@inheritDoc} */
-	public final void write(@Nonnull byte[] data) throws IOException {
-		checkArgumentNotNull(data, "data");
-		ensurePortIsOpen();
-		try {
-			writer.write(data);
-		}
-		catch (NativeCodeException e) {
-			// NOTE: If a NativeCodeException is thrown, the port must be closed in order to dispose
-			// all resources.
-			close();
-			throw e;
-		}
-		catch (IOException e) {
-			// NOTE: If a IOException is thrown, the port must be closed in order to dispose
-			// all resources.
-			close();
-			throw e;
-		}
-	}
-
-	/** {@inheritDoc} */
-	@Nonnull
-	public final byte[] read() throws IOException {
-		ensurePortIsOpen();
-		try {
-			return reader.read();
-		}
-		catch (NativeCodeException e) {
-			// NOTE: If a NativeCodeException is thrown, the port must be closed in order to dispose
-			// all resources.
-			close();
-			throw e;
-		}
-		catch (IOException e) {
-			// NOTE: If a IOException is thrown, the port must be closed in order to dispose
-			// all resources.
-			close();
-			throw e;
-		}
-	}
-
-	/** {@inheritDoc} */
-	public final void close() throws IOException {
-		closeLock.lock();
-		try {
-			if (isClosed)
-				return;
-			//@formatter:off
-			try {
-				// close the reader and writer
-				closeReaderAndWriter();
-			} finally { try {
-				// close system dependent resources
-				closeInternal();
-			} finally {
-				// dispose the allocated resources of the reader and writer
-				disposeReaderAndWriter();
-			}}
-			// @formatter:on
-		}
-		finally {
-			isClosed = true;
-			closeLock.unlock();
-		}
-	}
-
-	/** Closes the read and write operations. */
-	private void closeReaderAndWriter() throws IOException {
-		try {
-			reader.close();
-		}
-		finally {
-			writer.close();
-		}
-	}
-
-	/** Disposes the resources of the read and write operations. */
-	private void disposeReaderAndWriter() {
-		try {
-			reader.dispose();
-		}
-		finally {
-			writer.dispose();
-		}
-	}
-
-	/**
-	 * Subclasses can overwrite this method in order to close their system resources, when the
-	 * connection to the serial port is closed.
-	 * <p>
-	 * <b>IMPORTANT:</b> Don't call this method yourself!
-	 * 
-	 * @throws IOException
-	 *             if some I/O error uccurs
-	 */
-	protected void closeInternal() throws IOException {}
-
-	/** {@inheritDoc} */
-	public final boolean isClosed() {
-		return isClosed;
-	}
-
-	/**
-	 * Throw an {@link IOException} if this port is closed.
-	 * 
-	 * @throws IOException
-	 *             if this port is closed
-	 */
-	private void ensurePortIsOpen() throws IOException {
-		if (isClosed)
-			throw portClosedException();
-	}
-
-	/**
-	 * Returns a new {@link IOException} indicating that the port is closed. Subclasses may use this
-	 * to throw a consitent {@link IOException}, if a closed port was detected.
-	 * <p>
-	 * <b>NOTE:</b> This method is also used by {@link #read()} and {@link #write(byte[])} to throw
-	 * an {@link IOException} if the port is closed. Overriding it may have consequences to the
-	 * caller.
-	 * 
-	 * @return a new {@link IOException}, never <code>null</code>
-	 */
-	@Nonnull
-	protected IOException portClosedException() {
-		return portClosedException(null);
-	}
-
-	/**
-	 * Returns a new {@link IOException} indicating that the port is closed. Subclasses may use this
-	 * to throw a consitent {@link IOException}, if a closed port was detected.
-	 * <p>
-	 * <b>NOTE:</b> This method is also used by {@link #read()} and {@link #write(byte[])} to throw
-	 * an {@link IOException} if the port is closed. Overriding it may have consequences to the
-	 * caller.
-	 * 
-	 * @param message
-	 *            error description, may be <code>null</code>
-	 * @return a new {@link IOException}, never <code>null</code>
-	 */
-	@Nonnull
-	protected IOException portClosedException(@Nullable String message) {
-		if (message == null)
-			message = "";
-		else
-			message = " " + message;
-		return new IOException("Port " + port.getPortName() + " was closed!" + message);
-	}
-}
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static java.lang.Thread.currentThread;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.Flow;
+import org.xidobi.SerialConnection;
+import org.xidobi.SerialPort;
+
+/**
+ * A basic implementation of the {@link SerialConnection} to provide synchonisation and proper
+ * behaviour when the port is closed.
+ * <p>
+ * The class uses a {@link Reader} and {@link Writer}, which implement the different I/O operations.
+ * 
+ * @author Christian Schwarz
+ * @author Tobias Breßler
+ */
+public class BasicSerialConnection implements SerialConnection {
+
+	/** The handle of this port, contains e.g. the name. */
+	@Nonnull
+	private final SerialPort port;
+
+	/** The state of a connection, that is open. */
+	private static final int OPEN = 0;
+	/** The state of a connection, whose resources are currently closed by {@link #close()}. */
+	private static final int CLOSING = 1;
+	/** The state of a connection, whose resources are closed. */
+	private static final int CLOSED = 2;
+
+	/**
+	 * The state of this connection, one of {@link #OPEN}, {@link #CLOSING} or {@link #CLOSED}. Only
+	 * the thread, that changes the state from {@link #OPEN} to {@link #CLOSING}, closes the
+	 * resources.
+	 */
+	@Nonnull
+	private final AtomicInteger state = new AtomicInteger(OPEN);
+
+	/** Released, when the resources are closed. */
+	@Nonnull
+	private final CountDownLatch closed = new CountDownLatch(1);
+
+	/** The thread, that closes the resources, <code>null</code> if it isn't closing them */
+	@Nullable
+	private volatile Thread closingThread;
+
+	/** read operation, never <code>null</code> */
+	@Nonnull
+	private final Reader reader;
+	/** write operation, never <code>null</code> */
+	@Nonnull
+	private final Writer writer;
+
+	/** the input stream of this connection, <code>null</code> until it is requested */
+	private InputStream inputStream;
+	/** the output stream of this connection, <code>null</code> until it is requested */
+	private OutputStream outputStream;
+
+	/** publishes the received data, never <code>null</code> */
+	@Nonnull
+	private final SerialDataPublisher dataPublisher = new SerialDataPublisher(this);
+
+	/**
+	 * Creates a new serial connection instance for the given serial port.
+	 * 
+	 * @param port
+	 *            the serial port, must not be <code>null</code>
+	 * @param reader
+	 *            read operation, must not be <code>null</code>
+	 * @param writer
+	 *            write operation, must not be <code>null</code>
+	 * 
+	 * @exception IllegalArgumentException
+	 *                if {@code portHandle==null}
+	 */
+	protected BasicSerialConnection(@Nonnull SerialPort port,
+									@Nonnull Reader reader,
+									@Nonnull Writer writer) {
+
+		this.port = checkArgumentNotNull(port, "port");
+		this.reader = checkArgumentNotNull(reader, "reader");
+		this.writer = checkArgumentNotNull(writer, "writer");
+	}
+
+	/**
+	 * Returns the underlying serial port for this serial connection.
+	 * 
+	 * @return the serial port, never <code>null</code>
+	 */
+	@Nonnull
+	public SerialPort getPort() {
+		return port;
+	}
+
+	/** {@inheritDoc} */
+	public final void write(@Nonnull byte[] data) throws IOException {
+		checkArgumentNotNull(data, "data");
+		ensurePortIsOpen();
+		try {
+			writer.write(data);
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	public final int write(@Nonnull ByteBuffer src) throws IOException {
+		checkArgumentNotNull(src, "src");
+		ensurePortIsOpen();
+		int length = src.remaining();
+		if (length == 0)
+			return 0;
+		try {
+			writer.write(src);
+			return length;
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	public final long write(@Nonnull ByteBuffer[] srcs) throws IOException {
+		checkArgumentNotNull(srcs, "srcs");
+		long length = 0;
+		for (int i = 0; i < srcs.length; i++)
+			length += checkArgumentNotNull(srcs[i], "srcs[" + i + "]").remaining();
+		ensurePortIsOpen();
+		if (length == 0)
+			return 0;
+		try {
+			writer.write(srcs);
+			return length;
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The data is flushed, if the {@link Writer} implements {@link Flushable}, e.g. a
+	 * {@link CoalescingWriter}.
+	 */
+	public final void flush() throws IOException {
+		ensurePortIsOpen();
+		if (!(writer instanceof Flushable))
+			return;
+		try {
+			((Flushable) writer).flush();
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public final byte[] read() throws IOException {
+		ensurePortIsOpen();
+		try {
+			return reader.read();
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	public final int read(@Nonnull ByteBuffer dst) throws IOException {
+		checkArgumentNotNull(dst, "dst");
+		checkArgument(!dst.isReadOnly(), "dst", "The buffer must not be read-only!");
+		ensurePortIsOpen();
+		if (!dst.hasRemaining())
+			return 0;
+		try {
+			return reader.read(dst);
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	public final int available() throws IOException {
+		ensurePortIsOpen();
+		try {
+			return reader.available();
+		}
+		catch (NativeCodeException e) {
+			throw closeAfterFailure(e);
+		}
+		catch (IOException e) {
+			throw closeAfterFailure(e);
+		}
+	}
+
+	/**
+	 * Closes this connection after a read or write operation failed with the given exception and
+	 * returns the exception, so that it can be rethrown. The connection must be closed in order to
+	 * dispose all resources.
+	 */
+	@Nonnull
+	private <T extends Exception> T closeAfterFailure(@Nonnull T e) throws IOException {
+		dataPublisher.failed(e);
+		close();
+		return e;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public final synchronized InputStream getInputStream() {
+		if (inputStream == null)
+			inputStream = new SerialInputStream(this);
+		return inputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public final synchronized OutputStream getOutputStream() {
+		if (outputStream == null)
+			outputStream = new SerialOutputStream(this);
+		return outputStream;
+	}
+
+	/** {@inheritDoc} */
+	@Nonnull
+	public final Flow.Publisher<ByteBuffer> getDataPublisher() {
+		return dataPublisher;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If another thread is currently closing this connection, this method blocks until the
+	 * resources are closed. A call by the closing thread itself, e.g. by a reader that fails
+	 * during close, returns immediately.
+	 */
+	public final void close() throws IOException {
+		if (!state.compareAndSet(OPEN, CLOSING)) {
+			// a reader, writer or closeInternal() of the closing thread may call close() again
+			if (closingThread != currentThread())
+				awaitClosed();
+			return;
+		}
+		closingThread = currentThread();
+		// before the reader is closed, so that the subscriber is completed when its read fails
+		dataPublisher.close();
+		try {
+			//@formatter:off
+			try {
+				// close the reader and writer
+				closeReaderAndWriter();
+			} finally { try {
+				// close system dependent resources
+				closeInternal();
+			} finally {
+				// dispose the allocated resources of the reader and writer
+				disposeReaderAndWriter();
+			}}
+			// @formatter:on
+		}
+		finally {
+			closingThread = null;
+			state.set(CLOSED);
+			closed.countDown();
+		}
+	}
+
+	/** Blocks uninterruptibly until the thread, that closes this connection, has finished. */
+	private void awaitClosed() {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				closed.await();
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			// restore the interrupted status
+			currentThread().interrupt();
+	}
+
+	/** Closes the read and write operations. */
+	private void closeReaderAndWriter() throws IOException {
+		try {
+			reader.close();
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/** Disposes the resources of the read and write operations. */
+	private void disposeReaderAndWriter() {
+		try {
+			reader.dispose();
+		}
+		finally {
+			writer.dispose();
+		}
+	}
+
+	/**
+	 * Subclasses can overwrite this method in order to close their system resources, when the
+	 * connection to the serial port is closed.
+	 * <p>
+	 * <b>IMPORTANT:</b> Don't call this method yourself!
+	 * 
+	 * @throws IOException
+	 *             if some I/O error uccurs
+	 */
+	protected void closeInternal() throws IOException {}
+
+	/** {@inheritDoc} */
+	public final boolean isClosed() {
+		return state.get() != OPEN;
+	}
+
+	/**
+	 * Throw an {@link IOException} if this port is closed.
+	 * 
+	 * @throws IOException
+	 *             if this port is closed
+	 */
+	private void ensurePortIsOpen() throws IOException {
+		if (isClosed())
+			throw portClosedException();
+	}
+
+	/**
+	 * Returns a new {@link IOException} indicating that the port is closed. Subclasses may use this
+	 * to throw a consitent {@link IOException}, if a closed port was detected.
+	 * <p>
+	 * <b>NOTE:</b> This method is also used by {@link #read()} and {@link #write(byte[])} to throw
+	 * an {@link IOException} if the port is closed. Overriding it may have consequences to the
+	 * caller.
+	 * 
+	 * @return a new {@link IOException}, never <code>null</code>
+	 */
+	@Nonnull
+	protected IOException portClosedException() {
+		return portClosedException(null);
+	}
+
+	/**
+	 * Returns a new {@link IOException} indicating that the port is closed. Subclasses may use this
+	 * to throw a consitent {@link IOException}, if a closed port was detected.
+	 * <p>
+	 * <b>NOTE:</b> This method is also used by {@link #read()} and {@link #write(byte[])} to throw
+	 * an {@link IOException} if the port is closed. Overriding it may have consequences to the
+	 * caller.
+	 * 
+	 * @param message
+	 *            error description, may be <code>null</code>
+	 * @return a new {@link IOException}, never <code>null</code>
+	 */
+	@Nonnull
+	protected IOException portClosedException(@Nullable String message) {
+		if (message == null)
+			message = "";
+		else
+			message = " " + message;
+		return new IOException("Port " + port.getPortName() + " was closed!" + message);
+	}
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.lang.System.nanoTime;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link Writer} that aggregates small writes into batches, in order to reduce the number of
+ * native write operations. It decorates the {@link Writer} of a service provider.
+ * <p>
+ * The data of {@link #write(byte[])} is appended to the current batch and the method returns
+ * immediately. The batch is written by the decorated writer, if
+ * <ul>
+ * <li>the batch reaches the maximum batch size,
+ * <li>the linger time elapsed since the first data was appended to the batch,
+ * <li>{@link #flush()} is called or
+ * <li>the writer is closed.
+ * </ul>
+ * Data that is not smaller than the maximum batch size is written directly, after the current
+ * batch. In this case the buffers of {@link #write(ByteBuffer[])} are passed unchanged to the
+ * decorated writer, so large direct buffers are not copied.
+ * <p>
+ * Batches that are written when the linger time elapsed, are written by a background thread. If
+ * such a write fails, the failure is thrown by the next call of {@link #write(byte[])} or
+ * {@link #flush()}.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see BasicSerialConnection
+ */
+public class CoalescingWriter implements Writer, Flushable {
+
+	/** the number of buckets of the batch size histogram */
+	private static final int HISTOGRAM_SIZE = 32;
+
+	/** the decorated writer, never <code>null</code> */
+	@Nonnull
+	private final Writer writer;
+	/** the maximum number of bytes of a batch */
+	private final int maxBatchSize;
+	/** the linger time in nanoseconds */
+	private final long lingerNanos;
+
+	/** guards the state of this writer */
+	private final Lock lock = new ReentrantLock();
+	/** signaled, when data was appended to an empty batch or the writer was closed */
+	private final Condition batchStarted = lock.newCondition();
+
+	/** the data of the current batch */
+	private final byte[] batch;
+	/** the number of bytes in the current batch */
+	private int batchLength;
+	/** the time in nanoseconds, when the current batch must be written */
+	private long batchDeadline;
+
+	/** writes the batches when their linger time elapsed, <code>null</code> until needed */
+	private Thread flusher;
+	/** the failure of a write of the background thread, <code>null</code> if none occurred */
+	private Exception failure;
+	/** <code>true</code>, if this writer was closed */
+	private boolean isClosed;
+
+	/** the number of calls of {@link #write(byte[])} and {@link #write(ByteBuffer[])} */
+	private long writeCount;
+	/** the number of writes of the decorated writer */
+	private long batchCount;
+	/** the number of bytes written by the decorated writer */
+	private long byteCount;
+	/** the size of the largest batch */
+	private int largestBatchSize;
+	/** the number of batches by the highest bit of their size */
+	private final long[] batchSizeHistogram = new long[HISTOGRAM_SIZE];
+
+	/**
+	 * Creates a new coalescing writer.
+	 * 
+	 * @param writer
+	 *            the writer, that writes the batches, must not be <code>null</code>
+	 * @param maxBatchSize
+	 *            the maximum number of bytes of a batch, must be greater than 0
+	 * @param lingerMicros
+	 *            the time in microseconds, a batch waits for further data, must not be negative
+	 */
+	public CoalescingWriter(@Nonnull Writer writer,
+							@Nonnegative int maxBatchSize,
+							@Nonnegative long lingerMicros) {
+		this.writer = checkArgumentNotNull(writer, "writer");
+		checkArgument(maxBatchSize > 0, "maxBatchSize", "Expected a value greater than 0");
+		checkArgument(lingerMicros >= 0, "lingerMicros", "Expected a value greater than or equal to 0");
+		this.maxBatchSize = maxBatchSize;
+		this.lingerNanos = lingerMicros * 1000;
+		batch = new byte[maxBatchSize];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The data is appended to the current batch, it is written when the batch is full or the
+	 * linger time elapsed.
+	 * 
+	 * @throws IOException
+	 *             if the batch couldn't be written or a previous background write failed
+	 */
+	public void write(@Nonnull byte[] data) throws IOException {
+		lock.lock();
+		try {
+			throwFailure();
+			writeCount++;
+			if (data.length == 0)
+				return;
+
+			if (batchLength + data.length > maxBatchSize)
+				writeBatch();
+
+			if (data.length >= maxBatchSize) {
+				writeThrough(data);
+				return;
+			}
+
+			arraycopy(data, 0, batch, batchLength, data.length);
+			batchLength += data.length;
+
+			if (batchLength == maxBatchSize)
+				writeBatch();
+			else if (batchLength == data.length)
+				startLinger();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The remaining bytes of the buffer are appended to the current batch, see
+	 * {@link #write(ByteBuffer[])}.
+	 * 
+	 * @throws IOException
+	 *             if the batch couldn't be written or a previous background write failed
+	 */
+	public void write(@Nonnull ByteBuffer data) throws IOException {
+		write(new ByteBuffer[] { data });
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The remaining bytes of the buffers are appended to the current batch, it is written when the
+	 * batch is full or the linger time elapsed. If the buffers contain not less bytes than the
+	 * maximum batch size, they are passed to the decorated writer after the current batch.
+	 * 
+	 * @throws IOException
+	 *             if the batch couldn't be written or a previous background write failed
+	 */
+	public void write(@Nonnull ByteBuffer[] data) throws IOException {
+		lock.lock();
+		try {
+			throwFailure();
+			writeCount++;
+			long length = 0;
+			for (ByteBuffer src : data)
+				length += src.remaining();
+			if (length == 0)
+				return;
+
+			if (batchLength + length > maxBatchSize)
+				writeBatch();
+
+			if (length >= maxBatchSize) {
+				writer.write(data);
+				updateStatistics(length);
+				return;
+			}
+
+			for (ByteBuffer src : data) {
+				int remaining = src.remaining();
+				src.get(batch, batchLength, remaining);
+				batchLength += remaining;
+			}
+
+			if (batchLength == maxBatchSize)
+				writeBatch();
+			else if (batchLength == length)
+				startLinger();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the current batch immediately and flushes the decorated writer, if it implements
+	 * {@link Flushable}, e.g. a writer that keeps several writes in flight.
+	 * 
+	 * @throws IOException
+	 *             if the batch couldn't be written or a previous background write failed
+	 */
+	public void flush() throws IOException {
+		lock.lock();
+		try {
+			throwFailure();
+			writeBatch();
+			if (writer instanceof Flushable)
+				((Flushable) writer).flush();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the current batch and closes the decorated writer. The background thread terminates.
+	 * 
+	 * @throws IOException
+	 *             if the batch couldn't be written or the decorated writer couldn't be closed
+	 */
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (isClosed)
+				return;
+			isClosed = true;
+			batchStarted.signalAll();
+			if (failure == null)
+				writeBatch();
+		}
+		finally {
+			lock.unlock();
+			writer.close();
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void dispose() {
+		writer.dispose();
+	}
+
+	/** Starts the linger time of a new batch, called when the first data was appended. */
+	private void startLinger() throws IOException {
+		if (lingerNanos == 0) {
+			writeBatch();
+			return;
+		}
+		batchDeadline = nanoTime() + lingerNanos;
+		if (flusher == null) {
+			flusher = new Thread(new Flusher(), "xidobi write coalescing");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+		batchStarted.signal();
+	}
+
+	/** Writes the current batch, if it contains data. Must be called while holding the lock. */
+	private void writeBatch() throws IOException {
+		if (batchLength == 0)
+			return;
+		byte[] data = new byte[batchLength];
+		arraycopy(batch, 0, data, 0, batchLength);
+		batchLength = 0;
+		writeThrough(data);
+	}
+
+	/** Writes the given data by the decorated writer and updates the statistics. */
+	private void writeThrough(byte[] data) throws IOException {
+		writer.write(data);
+		updateStatistics(data.length);
+	}
+
+	/** Updates the statistics after a batch of the given size was written. */
+	private void updateStatistics(long batchSize) {
+		batchCount++;
+		byteCount += batchSize;
+		int size = (int) min(batchSize, Integer.MAX_VALUE);
+		if (size > largestBatchSize)
+			largestBatchSize = size;
+		batchSizeHistogram[31 - Integer.numberOfLeadingZeros(size)]++;
+	}
+
+	/** Throws the failure of a background write, if one occurred. */
+	private void throwFailure() throws IOException {
+		if (failure instanceof IOException)
+			throw (IOException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+	}
+
+	/**
+	 * Returns the number of calls of {@link #write(byte[])}, {@link #write(ByteBuffer)} and
+	 * {@link #write(ByteBuffer[])}.
+	 * 
+	 * @return the number of writes
+	 */
+	public long getWriteCount() {
+		lock.lock();
+		try {
+			return writeCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of batches, that were written by the decorated writer.
+	 * 
+	 * @return the number of batches
+	 */
+	public long getBatchCount() {
+		lock.lock();
+		try {
+			return batchCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes, that were written by the decorated writer.
+	 * 
+	 * @return the number of bytes
+	 */
+	public long getByteCount() {
+		lock.lock();
+		try {
+			return byteCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the size of the largest batch.
+	 * 
+	 * @return the size in bytes, 0 if no batch was written yet
+	 */
+	public int getLargestBatchSize() {
+		lock.lock();
+		try {
+			return largestBatchSize;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the average size of the written batches.
+	 * 
+	 * @return the average size in bytes, 0 if no batch was written yet
+	 */
+	public double getAverageBatchSize() {
+		lock.lock();
+		try {
+			if (batchCount == 0)
+				return 0;
+			return (double) byteCount / batchCount;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the histogram of the batch sizes. The element <code>i</code> contains the number of
+	 * batches with a size from <code>2<sup>i</sup></code> to <code>2<sup>i+1</sup>-1</code> bytes.
+	 * 
+	 * @return a copy of the histogram with 32 elements, never <code>null</code>
+	 */
+	@Nonnull
+	public long[] getBatchSizeHistogram() {
+		lock.lock();
+		try {
+			return batchSizeHistogram.clone();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Writes the batches, when their linger time elapsed. */
+	private class Flusher implements Runnable {
+
+		/** {@inheritDoc} */
+		public void run() {
+			lock.lock();
+			try {
+				while (!isClosed && failure == null) {
+					if (batchLength == 0) {
+						batchStarted.await();
+						continue;
+					}
+					long remaining = batchDeadline - nanoTime();
+					if (remaining > 0) {
+						batchStarted.awaitNanos(remaining);
+						continue;
+					}
+					try {
+						writeBatch();
+					}
+					catch (IOException e) {
+						failure = e;
+					}
+					catch (RuntimeException e) {
+						failure = e;
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				// terminate, the remaining batch is written by the next write, flush or close
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.xidobi.CompletionHandler;
+
+/**
+ * A {@link Future}, that is completed as a {@link CompletionHandler}. It is used to provide the
+ * {@link Future} based methods of an {@link org.xidobi.AsyncSerialConnection
+ * AsyncSerialConnection} by its handler based methods.
+ * <p>
+ * Pending I/O operations can't be canceled individually, so {@link #cancel(boolean)} has no
+ * effect. The operations are terminated when the connection is closed.
+ * 
+ * @param <V>
+ *            the type of the result
+ * 
+ * @author Christian Schwarz
+ */
+public class CompletionFuture<V> implements Future<V>, CompletionHandler<V, Object> {
+
+	/**
+	 * released when the operation has completed, while holding the lock of this future, so that
+	 * the result is published once and a concurrent completion can't overwrite it
+	 */
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	/** the result of the operation */
+	private V result;
+	/** the cause, if the operation failed */
+	private Throwable failure;
+
+	/** {@inheritDoc} */
+	public void completed(V result, @Nullable Object attachment) {
+		synchronized (this) {
+			if (isDone())
+				return;
+			this.result = result;
+			done.countDown();
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void failed(@Nonnull Throwable exc, @Nullable Object attachment) {
+		synchronized (this) {
+			if (isDone())
+				return;
+			failure = exc;
+			done.countDown();
+		}
+	}
+
+	/**
+	 * Has no effect, pending I/O operations can't be canceled.
+	 * 
+	 * @return always <code>false</code>
+	 */
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return false;
+	}
+
+	/**
+	 * Returns always <code>false</code>, because this future can't be cancelled.
+	 * 
+	 * @return always <code>false</code>
+	 */
+	public boolean isCancelled() {
+		return false;
+	}
+
+	/** {@inheritDoc} */
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	/** {@inheritDoc} */
+	public V get() throws InterruptedException, ExecutionException {
+		done.await();
+		return getResult();
+	}
+
+	/** {@inheritDoc} */
+	public V get(long timeout, @Nonnull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit))
+			throw new TimeoutException("The operation didn't complete within " + timeout + " " + unit + "!");
+		return getResult();
+	}
+
+	/** Returns the result or throws the failure of the completed operation. */
+	private synchronized V getResult() throws ExecutionException {
+		if (failure != null)
+			throw new ExecutionException(failure);
+		return result;
+	}
+}
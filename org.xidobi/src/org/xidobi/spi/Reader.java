@@ -1,48 +1,86 @@
-/*
- * Copyright 2013 Gemtec GmbH
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.xidobi.spi;
-
-import java.io.IOException;
-
-import javax.annotation.Nonnull;
-
-/**
- * This interface is implemented by service provider to read from a serial port.
- * 
- * @author Christian Schwarz
- * 
- * @see BasicSerialConnection
- */
-public interface Reader extends IoOperation {
-
-	/**
-	 * The implementation must block until at least one byte can be returned or an
-	 * {@link IOException} is thrown.
-	 * <p>
-	 * This method will be called by {@link BasicSerialConnection#read()} only if the port is open.
-	 * <p>
-	 * <b>IMPORTANT:</b> Dont call this method yourself! Otherwise there is no guaratee that the
-	 * port is currently open!
-	 * 
-	 * @return the byte's read from the port, never <code>null</code>
-	 * @throws IOException
-	 *             if this port was closed or an unexpected I/O error occurs or the thread was
-	 *             interrupted
-	 */
-	@Nonnull
-	byte[] read() throws IOException;
-
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * This interface is implemented by service provider to read from a serial port.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see BasicSerialConnection
+ */
+public interface Reader extends IoOperation {
+
+	/**
+	 * The implementation must block until at least one byte can be returned or an
+	 * {@link IOException} is thrown.
+	 * <p>
+	 * This method will be called by {@link BasicSerialConnection#read()} only if the port is open.
+	 * <p>
+	 * <b>IMPORTANT:</b> Dont call this method yourself! Otherwise there is no guaratee that the
+	 * port is currently open!
+	 * 
+	 * @return the byte's read from the port, never <code>null</code>
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs or the thread was
+	 *             interrupted
+	 */
+	@Nonnull
+	byte[] read() throws IOException;
+
+	/**
+	 * The implementation must block until at least one byte was transferred into the given buffer
+	 * or an {@link IOException} is thrown. The bytes must be written starting at the current
+	 * position of the buffer and the position must be advanced by the number of bytes read.
+	 * <p>
+	 * This method will be called by {@link BasicSerialConnection#read(ByteBuffer)} only if the
+	 * port is open and the buffer has at least one byte remaining.
+	 * <p>
+	 * <b>IMPORTANT:</b> Dont call this method yourself! Otherwise there is no guaratee that the
+	 * port is currently open!
+	 * 
+	 * @param dst
+	 *            the buffer into which the bytes are transferred, never <code>null</code>
+	 * @return the number of bytes read, greater than 0
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs or the thread was
+	 *             interrupted
+	 */
+	int read(@Nonnull ByteBuffer dst) throws IOException;
+
+	/**
+	 * The implementation must return the number of bytes, that can be read without blocking, e.g.
+	 * the number of bytes in the input buffer of the port. It must not block, even if a read
+	 * operation is in progress.
+	 * <p>
+	 * This method will be called by {@link BasicSerialConnection#available()} only if the port is
+	 * open.
+	 * <p>
+	 * <b>IMPORTANT:</b> Dont call this method yourself! Otherwise there is no guaratee that the
+	 * port is currently open!
+	 * 
+	 * @return the number of available bytes, not negative
+	 * @throws IOException
+	 *             if this port was closed or an unexpected I/O error occurs
+	 */
+	int available() throws IOException;
+
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+import org.xidobi.Flow;
+import org.xidobi.SerialConnection;
+
+/**
+ * A {@link Flow.Publisher}, that publishes the data of a blocking {@link SerialConnection} to one
+ * subscriber at a time.
+ * <p>
+ * Every subscription has its own daemon thread, that calls {@link SerialConnection#read()} only
+ * while the subscriber has an unfulfilled demand. Otherwise the received data remains in the input
+ * buffer of the driver. The data of a read, that is pending when the subscription is cancelled, is
+ * discarded.
+ * <p>
+ * The owner of this publisher must call {@link #close()}, before the resources of the connection
+ * are closed, and {@link #failed(Throwable)} before, if the connection is closed because of an I/O
+ * error. The subscriber is notified by {@link Flow.Subscriber#onComplete()} or by
+ * {@link Flow.Subscriber#onError(Throwable)} respectively. If a read fails while the connection is
+ * open, the subscriber is notified with the exception of the read.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialConnection#getDataPublisher()
+ */
+public class SerialDataPublisher implements Flow.Publisher<ByteBuffer> {
+
+	/** the connection to read from, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+
+	/** the current subscription, <code>null</code> if there is no subscriber */
+	private DataSubscription subscription;
+	/** <code>true</code>, if the connection was closed */
+	private boolean isClosed;
+	/** the cause, if the connection was closed because of an I/O error */
+	private Throwable failure;
+
+	/**
+	 * Creates a new publisher of the data, that is read from the given connection.
+	 * 
+	 * @param connection
+	 *            the connection to read from, must not be <code>null</code>
+	 */
+	public SerialDataPublisher(@Nonnull SerialConnection connection) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+	}
+
+	/** {@inheritDoc} */
+	public void subscribe(@Nonnull Flow.Subscriber<? super ByteBuffer> subscriber) {
+		checkArgumentNotNull(subscriber, "subscriber");
+
+		DataSubscription s = new DataSubscription(subscriber);
+		Throwable rejection = null;
+		synchronized (this) {
+			if (isClosed)
+				rejection = closedException();
+			else if (subscription != null)
+				rejection = new IllegalStateException("The data of port " + getPortName() + " is already subscribed!");
+			else
+				subscription = s;
+		}
+		subscriber.onSubscribe(s);
+		if (rejection != null) {
+			subscriber.onError(rejection);
+			return;
+		}
+
+		Thread reader = new Thread(s, "xidobi data publisher " + getPortName());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Records the I/O error, that causes the connection to be closed. The subscriber is notified
+	 * with this cause instead of the exception of its pending read. Has no effect, if the
+	 * connection is closed already.
+	 * 
+	 * @param cause
+	 *            the I/O error, must not be <code>null</code>
+	 */
+	public synchronized void failed(@Nonnull Throwable cause) {
+		checkArgumentNotNull(cause, "cause");
+		if (!isClosed && failure == null)
+			failure = cause;
+	}
+
+	/**
+	 * Terminates the subscription, because the connection is closed. A subscriber without demand
+	 * is notified immediately, otherwise when its pending read fails.
+	 */
+	public synchronized void close() {
+		isClosed = true;
+		notifyAll();
+	}
+
+	/** Returns the exception, that is passed to subscribers after the connection was closed. */
+	private Throwable closedException() {
+		if (failure != null)
+			return failure;
+		return new IOException("Port " + getPortName() + " was closed!");
+	}
+
+	/** Returns the name of the port of the connection. */
+	private String getPortName() {
+		return connection.getPort().getPortName();
+	}
+
+	/**
+	 * The subscription of the data, its reader thread passes the data to the subscriber. The state
+	 * is guarded by the publisher.
+	 */
+	private class DataSubscription implements Flow.Subscription, Runnable {
+
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+		/** the number of requested items, that were not passed yet */
+		private long demand;
+		/** the error passed to the subscriber, if it requested an invalid number of items */
+		private Throwable invalidRequest;
+
+		DataSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		/** {@inheritDoc} */
+		public void request(long n) {
+			synchronized (SerialDataPublisher.this) {
+				if (subscription != this)
+					return;
+				if (n <= 0)
+					invalidRequest = new IllegalArgumentException("The number of requested items must be greater than 0! Got: " + n);
+				else {
+					demand += n;
+					// the demand is unbounded, if it overflows
+					if (demand < 0)
+						demand = Long.MAX_VALUE;
+				}
+				SerialDataPublisher.this.notifyAll();
+			}
+		}
+
+		/** {@inheritDoc} */
+		public void cancel() {
+			synchronized (SerialDataPublisher.this) {
+				if (subscription == this)
+					subscription = null;
+				SerialDataPublisher.this.notifyAll();
+			}
+		}
+
+		/** Reads the data on demand, until the subscription is cancelled or terminated. */
+		public void run() {
+			try {
+				while (awaitDemand()) {
+					byte[] data;
+					try {
+						data = connection.read();
+					}
+					catch (IOException e) {
+						readFailed(e);
+						return;
+					}
+					if (data.length == 0)
+						continue;
+
+					synchronized (SerialDataPublisher.this) {
+						if (subscription != this)
+							return;
+						demand--;
+					}
+					subscriber.onNext(ByteBuffer.wrap(data));
+				}
+			}
+			finally {
+				// e.g. the subscriber threw an exception
+				cancel();
+			}
+		}
+
+		/**
+		 * Waits until the subscriber has an unfulfilled demand and returns <code>true</code>.
+		 * Returns <code>false</code>, if the subscription was cancelled or terminated, the
+		 * subscriber is notified about the termination.
+		 */
+		private boolean awaitDemand() {
+			Throwable cause;
+			synchronized (SerialDataPublisher.this) {
+				boolean interrupted = false;
+				try {
+					while (subscription == this && demand == 0 && invalidRequest == null && !isClosed)
+						SerialDataPublisher.this.wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					interrupted = true;
+				}
+				if (subscription != this)
+					return false;
+				if (interrupted)
+					cause = new InterruptedIOException("The reader thread of the data publisher is interrupted!");
+				else if (invalidRequest != null)
+					cause = invalidRequest;
+				else if (isClosed)
+					cause = failure;
+				else
+					return true;
+				subscription = null;
+			}
+			terminate(cause);
+			return false;
+		}
+
+		/** Terminates the subscription, because the read failed with the given exception. */
+		private void readFailed(IOException e) {
+			Throwable cause;
+			synchronized (SerialDataPublisher.this) {
+				if (subscription != this)
+					return;
+				subscription = null;
+				if (failure != null)
+					cause = failure;
+				else if (isClosed)
+					cause = null;
+				else
+					cause = e;
+			}
+			terminate(cause);
+		}
+
+		/**
+		 * Notifies the subscriber about the termination, by an error if the cause is not
+		 * <code>null</code>.
+		 */
+		private void terminate(Throwable cause) {
+			if (cause != null)
+				subscriber.onError(cause);
+			else
+				subscriber.onComplete();
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static java.lang.Math.min;
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.SerialConnection;
+
+/**
+ * An {@link InputStream}, that reads from a {@link SerialConnection}.
+ * <p>
+ * The received data is read into a direct buffer, that is reused for every read, so no array is
+ * allocated per read. Single-byte reads, {@link #available()} and {@link #skip(long)} are served
+ * from this buffer and only call the connection, if the buffer is empty. Reads into an array, that
+ * is at least as large as the buffer, bypass the buffer and read directly into the array.
+ * <p>
+ * The reads block until data is received or throw an {@link IOException} if the connection was
+ * closed. The end of the stream (<code>-1</code>) is only returned, if the connection signals it.
+ * Closing this stream closes the connection. {@link #close()} and {@link #available()} don't wait
+ * for a pending read, so a thread, that is blocked in a read, can be released by closing the
+ * stream.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialConnection#getInputStream()
+ * @see SerialOutputStream
+ */
+public class SerialInputStream extends InputStream {
+
+	/** The default size of the buffer in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 4 * 1024;
+
+	/** the connection to read from, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+
+	/**
+	 * the buffered data between the position and the limit, never <code>null</code>, guarded by
+	 * the monitor of this stream
+	 */
+	@Nonnull
+	private final ByteBuffer buffer;
+
+	/**
+	 * the number of buffered bytes, published for {@link #available()}, that doesn't take the
+	 * monitor of this stream
+	 */
+	private volatile int buffered;
+
+	/** <code>true</code>, if this stream was closed */
+	private final AtomicBoolean isClosed = new AtomicBoolean();
+
+	/**
+	 * Creates a new input stream with a buffer of the {@link #DEFAULT_BUFFER_SIZE}.
+	 * 
+	 * @param connection
+	 *            the connection to read from, must not be <code>null</code>
+	 */
+	public SerialInputStream(@Nonnull SerialConnection connection) {
+		this(connection, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new input stream.
+	 * 
+	 * @param connection
+	 *            the connection to read from, must not be <code>null</code>
+	 * @param bufferSize
+	 *            the size of the buffer in bytes, must be greater than 0
+	 */
+	public SerialInputStream(	@Nonnull SerialConnection connection,
+								@Nonnegative int bufferSize) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+		checkArgument(bufferSize > 0, "bufferSize", "Expected a value greater than 0");
+
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		// the buffer is empty
+		buffer.limit(0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Blocks until a byte is received, if the buffer is empty.
+	 */
+	@Override
+	public synchronized int read() throws IOException {
+		ensureOpen();
+		if (!buffer.hasRemaining() && fill() < 0)
+			return -1;
+		int b = buffer.get() & 0xFF;
+		buffered = buffer.remaining();
+		return b;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns the buffered bytes, if the buffer is not empty. Otherwise blocks until at least one
+	 * byte is received. If the buffer is empty and the requested length is not smaller than the
+	 * buffer, the data is read directly into the given array.
+	 */
+	@Override
+	public synchronized int read(@Nonnull byte[] b, int off, int len) throws IOException {
+		checkArgumentNotNull(b, "b");
+		if (off < 0 || len < 0 || len > b.length - off)
+			throw new IndexOutOfBoundsException("Invalid offset or length! Offset: " + off + ", length: " + len + ", array length: " + b.length);
+		ensureOpen();
+		if (len == 0)
+			return 0;
+
+		if (!buffer.hasRemaining()) {
+			// the buffer would only add a copy
+			if (len >= buffer.capacity())
+				return readFromConnection(ByteBuffer.wrap(b, off, len));
+			if (fill() < 0)
+				return -1;
+		}
+
+		int numberOfBytes = min(len, buffer.remaining());
+		buffer.get(b, off, numberOfBytes);
+		buffered = buffer.remaining();
+		return numberOfBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Skips the buffered bytes. Blocks until at least one byte is received, if the buffer is empty.
+	 */
+	@Override
+	public synchronized long skip(long n) throws IOException {
+		ensureOpen();
+		if (n <= 0)
+			return 0;
+
+		if (!buffer.hasRemaining() && fill() < 0)
+			return 0;
+
+		int numberOfBytes = (int) min(n, buffer.remaining());
+		buffer.position(buffer.position() + numberOfBytes);
+		buffered = buffer.remaining();
+		return numberOfBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns the number of buffered bytes, if the buffer is not empty. Otherwise the number of
+	 * bytes, that are available from the connection, is returned. Doesn't wait for a pending read.
+	 */
+	@Override
+	public int available() throws IOException {
+		ensureOpen();
+		int numberOfBytes = buffered;
+		if (numberOfBytes > 0)
+			return numberOfBytes;
+		return connection.available();
+	}
+
+	/**
+	 * Closes this stream and the connection. Doesn't wait for a pending read, the read is released
+	 * by closing the connection.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs, while the connection is closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!isClosed.compareAndSet(false, true))
+			return;
+		connection.close();
+	}
+
+	/**
+	 * Reads the next received data into the empty buffer, blocks until data is received. Returns
+	 * the number of read bytes or <code>-1</code> at the end of the stream.
+	 */
+	private int fill() throws IOException {
+		buffer.clear();
+		try {
+			return readFromConnection(buffer);
+		}
+		finally {
+			// if the read fails, the buffer stays empty
+			buffer.flip();
+			buffered = buffer.remaining();
+		}
+	}
+
+	/**
+	 * Reads from the connection into the given buffer, blocks until at least one byte was read.
+	 * Returns the number of read bytes or <code>-1</code> at the end of the stream.
+	 * 
+	 * @throws IOException
+	 *             if the read fails or the connection returned no bytes, though it must block
+	 *             until data is received
+	 */
+	private int readFromConnection(ByteBuffer dst) throws IOException {
+		int numberOfBytes = connection.read(dst);
+		if (numberOfBytes == 0)
+			throw new IOException("The connection returned no bytes, expected a blocking read!");
+		return numberOfBytes;
+	}
+
+	/** Throws an {@link IOException}, if this stream or the connection is closed. */
+	private void ensureOpen() throws IOException {
+		if (isClosed.get())
+			throw new IOException("Stream was closed!");
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013 Gemtec GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xidobi.spi;
+
+import static org.xidobi.spi.Preconditions.checkArgument;
+import static org.xidobi.spi.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.xidobi.SerialConnection;
+
+/**
+ * An {@link OutputStream}, that writes to a {@link SerialConnection}.
+ * <p>
+ * The written bytes are collected in a direct buffer, that is written to the connection without an
+ * intermediate copy, when it is full or the stream is flushed. Arrays that are at least as large as
+ * the buffer are written directly, after the buffered bytes were written.
+ * <p>
+ * Closing this stream writes the buffered bytes and closes the connection.
+ * 
+ * @author Christian Schwarz
+ * 
+ * @see SerialConnection#getOutputStream()
+ * @see SerialInputStream
+ */
+public class SerialOutputStream extends OutputStream {
+
+	/** The default size of the buffer in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 4 * 1024;
+
+	/** the connection to write to, never <code>null</code> */
+	@Nonnull
+	private final SerialConnection connection;
+
+	/** the buffered bytes between 0 and the position, never <code>null</code> */
+	@Nonnull
+	private final ByteBuffer buffer;
+
+	/** <code>true</code>, if this stream was closed */
+	private boolean isClosed;
+
+	/**
+	 * Creates a new output stream with a buffer of the {@link #DEFAULT_BUFFER_SIZE}.
+	 * 
+	 * @param connection
+	 *            the connection to write to, must not be <code>null</code>
+	 */
+	public SerialOutputStream(@Nonnull SerialConnection connection) {
+		this(connection, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new output stream.
+	 * 
+	 * @param connection
+	 *            the connection to write to, must not be <code>null</code>
+	 * @param bufferSize
+	 *            the size of the buffer in bytes, must be greater than 0
+	 */
+	public SerialOutputStream(	@Nonnull SerialConnection connection,
+								@Nonnegative int bufferSize) {
+		this.connection = checkArgumentNotNull(connection, "connection");
+		checkArgument(bufferSize > 0, "bufferSize", "Expected a value greater than 0");
+
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void write(int b) throws IOException {
+		ensureOpen();
+		if (!buffer.hasRemaining())
+			writeBuffer();
+		buffer.put((byte) b);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void write(@Nonnull byte[] b, int off, int len) throws IOException {
+		checkArgumentNotNull(b, "b");
+		if (off < 0 || len < 0 || len > b.length - off)
+			throw new IndexOutOfBoundsException("Invalid offset or length! Offset: " + off + ", length: " + len + ", array length: " + b.length);
+		ensureOpen();
+
+		if (len >= buffer.capacity()) {
+			// the data doesn't benefit from buffering
+			writeBuffer();
+			connection.write(ByteBuffer.wrap(b, off, len));
+			return;
+		}
+
+		if (len > buffer.remaining())
+			writeBuffer();
+		buffer.put(b, off, len);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Writes the buffered bytes and flushes the connection.
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		ensureOpen();
+		writeBuffer();
+		connection.flush();
+	}
+
+	/**
+	 * Writes the buffered bytes, if the connection is still open, and closes the connection.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs, while the buffered bytes are written or the connection
+	 *             is closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (isClosed)
+			return;
+		isClosed = true;
+		try {
+			if (!connection.isClosed())
+				writeBuffer();
+		}
+		finally {
+			connection.close();
+		}
+	}
+
+	/** Writes the buffered bytes to the connection, the buffer is empty afterwards. */
+	private void writeBuffer() throws IOException {
+		if (buffer.position() == 0)
+			return;
+		buffer.flip();
+		try {
+			connection.write(buffer);
+		}
+		finally {
+			buffer.clear();
+		}
+	}
+
+	/** Throws an {@link IOException}, if this stream is closed. */
+	private void ensureOpen() throws IOException {
+		if (isClosed)
+			throw new IOException("Stream was closed!");
+	}
+}